@@ -409,6 +409,9 @@ public final class DBConstants {
         public static final String FETCH_SIZE = "fetchSize";
         public static final String MAX_FIELD_SIZE = "maxFieldSize";
         public static final String MAX_ROWS = "maxRows";        
+        public static final String STATEMENT_CACHE_SIZE = "statementCacheSize";
+        public static final String NESTED_QUERY_BATCH_SIZE = "nestedQueryBatchSize";
+        public static final String STREAM_WITH_CURSOR = "streamWithCursor";
         public static final String DYNAMIC_USER_AUTH_CLASS = "dynamicUserAuthClass";
         public static final String DYNAMIC_USER_AUTH_MAPPING = "dynamicUserAuthMapping";
         public static final String USERNAME_WILDCARD = "*";
@@ -836,6 +839,7 @@ public final class DBConstants {
         public static final String ENABLE_BOXCARRING = "enableBoxcarring";
         public static final String DISABLE_STREAMING = "disableStreaming";
         public static final String DISABLE_LEGACY_BOXCARRING_MODE = "disableLegacyBoxcarringMode";
+        public static final String ENABLE_PARALLEL_REQUEST_BOX = "enableParallelRequestBox";
         public static final String RETURN_REQUEST_STATUS = "returnRequestStatus";
         public static final String SERVICE_STATUS = "serviceStatus";
         public static final String BASE_URI = "baseURI";
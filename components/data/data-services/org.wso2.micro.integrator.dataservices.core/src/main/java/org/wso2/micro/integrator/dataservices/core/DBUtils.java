@@ -117,6 +117,14 @@ public class DBUtils {
 
     private static final Log log = LogFactory.getLog(DBUtils.class);
 
+    /**
+     * System property to override the number of rows fetched at a time, when a query streams its result set
+     * with a database cursor.
+     */
+    private static final String STREAMING_FETCH_SIZE_PROPERTY = "dss.streaming.fetchSize";
+
+    private static final int DEFAULT_STREAMING_FETCH_SIZE = 1000;
+
     private static Pattern udtPattern = Pattern.compile("(.*?(\\[\\d+\\]))");
 
     private static ScheduledExecutorService globalExecutorService = Executors
@@ -680,6 +688,36 @@ public class DBUtils {
         }
     }
 
+    /**
+     * Returns whether the JDBC driver of the given jdbc connection only fetches the rows
+     * of a result set in chunks within a transaction, i.e. when auto commit is disabled.
+     * Otherwise the driver loads the full result set to memory, regardless of the fetch size.
+     */
+    public static boolean isCursorFetchInTransactionOnly(String jdbcUrl) {
+        return jdbcUrl != null && RDBMSUtils.getRDBMSEngine(jdbcUrl).equals(RDBMSEngines.POSTGRESQL);
+    }
+
+    /**
+     * Returns the number of rows fetched at a time, when a query streams its result set
+     * with a database cursor.
+     */
+    public static int getStreamingFetchSize() {
+        String fetchSize = System.getProperty(STREAMING_FETCH_SIZE_PROPERTY);
+        if (fetchSize != null) {
+            try {
+                int value = Integer.parseInt(fetchSize.trim());
+                if (value > 0) {
+                    return value;
+                }
+            } catch (NumberFormatException e) {
+                log.warn("Invalid value: " + fetchSize + " for the system property: " +
+                         STREAMING_FETCH_SIZE_PROPERTY + ", using the default fetch size: " +
+                         DEFAULT_STREAMING_FETCH_SIZE);
+            }
+        }
+        return DEFAULT_STREAMING_FETCH_SIZE;
+    }
+
     /**
      * Create a Timestamp object from the given timestamp string.
      */
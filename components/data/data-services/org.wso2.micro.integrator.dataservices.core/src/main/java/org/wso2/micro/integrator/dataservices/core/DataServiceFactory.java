@@ -117,6 +117,13 @@ public class DataServiceFactory {
                 disableLegacyBoxcarringMode = Boolean.parseBoolean(disableLegacyBoxcarringModeStr);
             }
 
+            boolean parallelRequestBoxEnabled = false;
+            String parallelRequestBoxEnabledStr =
+                    dbsElement.getAttributeValue(new QName(DBSFields.ENABLE_PARALLEL_REQUEST_BOX));
+            if (parallelRequestBoxEnabledStr != null) {
+                parallelRequestBoxEnabled = Boolean.parseBoolean(parallelRequestBoxEnabledStr);
+            }
+
             /* txManagerName property */
             String userTxJNDIName = dbsElement.getAttributeValue(
                     new QName(DBSFields.TRANSACTION_MANAGER_JNDI_NAME));
@@ -146,6 +153,9 @@ public class DataServiceFactory {
             /* set disable legacy boxcarring mode */
             dataService.setDisableLegacyBoxcarringMode(disableLegacyBoxcarringMode);
 
+            /* set parallel request box execution */
+            dataService.setParallelRequestBoxEnabled(parallelRequestBoxEnabled);
+
             /* add the password manager */
             Iterator<OMElement> passwordMngrItr = dbsElement.getChildrenWithName(
                     new QName(SecurityConstants.PASSWORD_MANAGER_SIMPLE));
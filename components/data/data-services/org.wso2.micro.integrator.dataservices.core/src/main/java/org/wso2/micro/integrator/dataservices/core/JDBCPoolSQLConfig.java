@@ -87,6 +87,7 @@ public class JDBCPoolSQLConfig extends SQLConfig {
 
 	@Override
 	public void close() {
+		this.closeStatementCache();
 		if (this.dataSource != null) {
 			this.dataSource.close();
 		}		
@@ -134,6 +135,7 @@ public class JDBCPoolSQLConfig extends SQLConfig {
 		props.remove(RDBMS.FETCH_SIZE);
 		props.remove(RDBMS.MAX_FIELD_SIZE);
 		props.remove(RDBMS.MAX_ROWS);
+		props.remove(RDBMS.STATEMENT_CACHE_SIZE);
 		props.remove(RDBMS.MAX_WAIT);
 		props.remove(RDBMS.DYNAMIC_USER_AUTH_CLASS);
 		props.remove(RDBMS.DYNAMIC_USER_AUTH_MAPPING);
@@ -19,19 +19,40 @@ package org.wso2.micro.integrator.dataservices.core.boxcarring;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.stream.XMLStreamException;
 
 import org.apache.axiom.om.OMElement;
+import org.apache.axis2.context.MessageContext;
 import org.apache.commons.io.output.NullOutputStream;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.wso2.micro.integrator.dataservices.core.DBUtils;
 import org.wso2.micro.integrator.dataservices.core.DataServiceFault;
+import org.wso2.micro.integrator.dataservices.core.DataServiceUser;
+import org.wso2.micro.integrator.dataservices.core.TLConnectionStore;
 import org.wso2.micro.integrator.dataservices.core.dispatch.DataServiceRequest;
+import org.wso2.micro.integrator.dataservices.core.dispatch.DispatchStatus;
+import org.wso2.micro.integrator.dataservices.core.engine.DataService;
 
 /**
  * Represents a boxcarring session service request group.
  */
 public class RequestBox {
+
+	private static final Log log = LogFactory.getLog(RequestBox.class);
+
+	/**
+	 * System property to set the number of threads which execute the requests of parallel request boxes.
+	 */
+	private static final String PARALLELISM_PROPERTY = "dss.requestBox.parallelism";
+
+	private static volatile ExecutorService parallelExecutor;
 	
 	private List<DataServiceRequest> requests;
 		
@@ -85,5 +106,127 @@ public class RequestBox {
 		}
 		return null;
 	}
-	
+
+	/**
+	 * This is called instead of {@link #execute()} when all the stored requests are independent read
+	 * requests. The requests are executed concurrently by a bounded pool of threads, each request with
+	 * its own connections, which are committed and closed by the thread when the request is done.
+	 * The threads execute the requests with the user and the message context of the request box, as
+	 * the credentials of dynamic user authentication and the context defaults of the queries are looked up
+	 * from them. The result of the last operation is returned, as in the sequential execution.
+	 */
+	public synchronized OMElement executeInParallel() throws DataServiceFault {
+		List<DataServiceRequest> reqList = this.getRequests();
+		int n = reqList.size();
+		DataServiceUser currentUser = DataService.getCurrentUser();
+		MessageContext messageContext = MessageContext.getCurrentMessageContext();
+		ExecutorService executor = getParallelExecutor();
+		List<Future<OMElement>> results = new ArrayList<Future<OMElement>>(n);
+		for (int i = 0; i < n; i++) {
+			DataServiceRequest request = reqList.get(i);
+			boolean last = i == (n - 1);
+			results.add(executor.submit(
+					() -> executeIndependentRequest(request, last, currentUser, messageContext)));
+		}
+		/* wait for all the requests, so that no request is still running when the box is finalized */
+		OMElement resultElement = null;
+		DataServiceFault fault = null;
+		for (int i = 0; i < n; i++) {
+			try {
+				OMElement result = results.get(i).get();
+				if (i == (n - 1)) {
+					resultElement = result;
+				}
+			} catch (ExecutionException e) {
+				if (fault == null) {
+					fault = e.getCause() instanceof DataServiceFault ? (DataServiceFault) e.getCause() :
+							new DataServiceFault(e.getCause(), "Error in parallel request box execution");
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				if (fault == null) {
+					fault = new DataServiceFault(e, "Interrupted in parallel request box execution");
+				}
+			}
+		}
+		if (fault != null) {
+			throw fault;
+		}
+		return DBUtils.wrapBoxCarringResponse(resultElement);
+	}
+
+	/**
+	 * Executes a request of a parallel request box in the current thread, and releases the
+	 * thread local state of the request, when it is done.
+	 */
+	private static OMElement executeIndependentRequest(DataServiceRequest request, boolean last,
+	                                                   DataServiceUser user, MessageContext messageContext)
+			throws DataServiceFault {
+		DataService.setCurrentUser(user);
+		MessageContext.setCurrentMessageContext(messageContext);
+		DispatchStatus.setBoxcarringRequest();
+		boolean error = true;
+		try {
+			OMElement result = request.dispatch();
+			if (result != null) {
+				if (last) {
+					result = DBUtils.cloneAndReturnBuiltElement(result);
+				} else {
+					/* process the result of the request, no need to cache the data */
+					result.serializeAndConsume(new NullOutputStream());
+					result = null;
+				}
+			}
+			error = false;
+			return result;
+		} catch (XMLStreamException e) {
+			throw new DataServiceFault(e, "Error in request box result serializing");
+		} finally {
+			if (error) {
+				TLConnectionStore.rollbackAll();
+			} else {
+				TLConnectionStore.commitAll();
+			}
+			TLConnectionStore.closeAll();
+			TLParamStore.clear();
+			DispatchStatus.clearRequestStatus();
+			DataService.setCurrentUser(null);
+			MessageContext.setCurrentMessageContext(null);
+		}
+	}
+
+	private static ExecutorService getParallelExecutor() {
+		if (parallelExecutor == null) {
+			synchronized (RequestBox.class) {
+				if (parallelExecutor == null) {
+					int parallelism = getParallelism();
+					AtomicInteger threadCount = new AtomicInteger();
+					parallelExecutor = Executors.newFixedThreadPool(parallelism, runnable -> {
+						Thread thread = new Thread(runnable, "dss-request-box-" + threadCount.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					});
+				}
+			}
+		}
+		return parallelExecutor;
+	}
+
+	private static int getParallelism() {
+		int defaultParallelism = Runtime.getRuntime().availableProcessors() * 2;
+		String parallelism = System.getProperty(PARALLELISM_PROPERTY);
+		if (parallelism != null) {
+			try {
+				int value = Integer.parseInt(parallelism.trim());
+				if (value > 0) {
+					return value;
+				}
+			} catch (NumberFormatException e) {
+				log.warn("Invalid value: " + parallelism + " for the system property: " + PARALLELISM_PROPERTY +
+				         ", using the default parallelism: " + defaultParallelism);
+			}
+		}
+		return defaultParallelism;
+	}
+
 }
@@ -121,6 +121,7 @@ public class JNDIConfig extends SQLConfig {
 
 	@Override
 	public void close() {
+		this.closeStatementCache();
 	}
 
 	@Override
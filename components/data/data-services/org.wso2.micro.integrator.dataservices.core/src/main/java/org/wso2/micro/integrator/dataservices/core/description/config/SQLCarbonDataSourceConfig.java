@@ -211,7 +211,7 @@ public class SQLCarbonDataSourceConfig extends SQLConfig {
 	}
 
 	public void close() {
-		/* nothing to close */
+		this.closeStatementCache();
 	}
 
 	@Override
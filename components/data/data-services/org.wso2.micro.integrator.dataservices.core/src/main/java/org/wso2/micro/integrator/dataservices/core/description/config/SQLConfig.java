@@ -28,6 +28,7 @@ import org.wso2.micro.integrator.dataservices.core.DBUtils;
 import org.wso2.micro.integrator.dataservices.core.DataServiceFault;
 import org.wso2.micro.integrator.dataservices.core.auth.ConfigurationBasedAuthenticator;
 import org.wso2.micro.integrator.dataservices.core.auth.DynamicUserAuthenticator;
+import org.wso2.micro.integrator.dataservices.core.description.query.PreparedStatementCache;
 import org.wso2.micro.integrator.dataservices.core.engine.DataService;
 
 import javax.sql.DataSource;
@@ -59,6 +60,8 @@ public abstract class SQLConfig extends Config {
 	private DynamicUserAuthenticator primaryDynAuth;
 	
 	private DynamicUserAuthenticator secondaryDynAuth;
+
+	private PreparedStatementCache statementCache;
 	
 	/**
 	 * This is used to keep the enlisted XADatasource objects
@@ -76,6 +79,36 @@ public abstract class SQLConfig extends Config {
 		this.validationQuery = this.getProperty(RDBMS.VALIDATION_QUERY);
 		this.processAutoCommitValue();
 		this.processDynamicAuth();
+		this.processStatementCacheSize();
+	}
+
+	private void processStatementCacheSize() throws DataServiceFault {
+		String statementCacheSizeProp = this.getProperty(RDBMS.STATEMENT_CACHE_SIZE);
+		if (!DBUtils.isEmptyString(statementCacheSizeProp)) {
+			statementCacheSizeProp = statementCacheSizeProp.trim();
+			int statementCacheSize;
+			try {
+				statementCacheSize = Integer.parseInt(statementCacheSizeProp);
+			} catch (NumberFormatException e) {
+				throw new DataServiceFault(e, "Invalid statement cache size in config: " + statementCacheSizeProp +
+				                           ", statement cache size should be a non-negative integer");
+			}
+			if (statementCacheSize < 0) {
+				throw new DataServiceFault("Invalid statement cache size in config: " + statementCacheSizeProp +
+				                           ", statement cache size should be a non-negative integer");
+			}
+			/* a zero size disables the statement cache */
+			if (statementCacheSize > 0) {
+				if (!DBUtils.isEmptyString(this.getProperty(RDBMS.JDBC_INTERCEPTORS))) {
+					/* cached statements are prepared with the physical connection, and would bypass the
+					 * interceptors of the pool */
+					log.warn("The statement cache of the config: " + this.getConfigId() +
+					         " is disabled, since it can not be used with JDBC interceptors");
+					return;
+				}
+				this.statementCache = new PreparedStatementCache(statementCacheSize);
+			}
+		}
 	}
 	
 	private void processDynamicAuth() throws DataServiceFault {
@@ -146,6 +179,20 @@ public abstract class SQLConfig extends Config {
 	public AutoCommit getAutoCommit() {
 		return autoCommit;
 	}
+
+	/**
+	 * Returns the prepared statement cache of this config, or null if statement caching is not enabled
+	 * with the statementCacheSize property.
+	 */
+	public PreparedStatementCache getStatementCache() {
+		return statementCache;
+	}
+
+	protected void closeStatementCache() {
+		if (this.statementCache != null) {
+			this.statementCache.close();
+		}
+	}
 		
 	protected void initSQLDataSource() throws SQLException, DataServiceFault {
         Connection conn = (Connection) this.createConnection()[0];
@@ -104,6 +104,7 @@ public class TabularDataBasedConfig extends SQLConfig {
 
 	@Override
 	public void close() {
+		this.closeStatementCache();
 		this.dataSource.close();
 	}
 
@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.dataservices.core.description.query;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class represents a cache of prepared statements of a SQL data source configuration. The statements are
+ * cached per physical connection in a bounded LRU map, keyed by the processed SQL and the generated keys mode,
+ * so that the statements of a pooled connection are reused by the requests which later take the same connection
+ * from the pool. A physical connection is only used by a single request at a time, hence its statements are never
+ * shared between threads.
+ * <p>
+ * The statements are prepared with the physical connection, not with the connection handle of the request, so
+ * they are not seen by the pool: the JDBC interceptors of the pool are not applied to them, and they are not
+ * closed when the handle is given back to the pool. Hence the cache is not used with a pool which has JDBC
+ * interceptors. The statements of a physical connection are closed with the cache, or when the cache finds the
+ * connection closed by the pool. The closed connections are looked up only when the number of connections seen
+ * since the last lookup has doubled, so the cache holds at most as many closed connections as open ones.
+ */
+public class PreparedStatementCache {
+
+    private static final Log log = LogFactory.getLog(PreparedStatementCache.class);
+
+    private static final int MIN_CONNECTION_SWEEP_THRESHOLD = 16;
+
+    private final int maxStatementsPerConnection;
+
+    private final Map<Connection, ConnectionStatements> connectionStatements = new ConcurrentHashMap<>();
+
+    /* the connection of each cached statement */
+    private final Map<Statement, ConnectionStatements> statementOwners =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+
+    /* the number of connections at which the closed connections are removed next */
+    private final AtomicInteger connectionSweepThreshold = new AtomicInteger(MIN_CONNECTION_SWEEP_THRESHOLD);
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    public PreparedStatementCache(int maxStatementsPerConnection) {
+        this.maxStatementsPerConnection = maxStatementsPerConnection;
+    }
+
+    /**
+     * This method returns a cached prepared statement of the given connection for the given SQL, or prepares and
+     * caches a new statement if there is none.
+     *
+     * @param conn                the connection of the request
+     * @param sql                 the processed SQL
+     * @param returnGeneratedKeys whether the generated keys are returned
+     * @param keyColumns          the names of the generated key columns, or null
+     * @return the prepared statement
+     * @throws SQLException if the statement can not be prepared
+     */
+    public PreparedStatement prepareStatement(Connection conn, String sql, boolean returnGeneratedKeys,
+                                              String[] keyColumns) throws SQLException {
+        Connection physicalConn = this.getPhysicalConnection(conn);
+        ConnectionStatements statements = this.connectionStatements.get(physicalConn);
+        if (statements == null) {
+            if (this.connectionStatements.size() >= this.connectionSweepThreshold.get()) {
+                this.removeClosedConnections();
+                this.connectionSweepThreshold.set(
+                        Math.max(MIN_CONNECTION_SWEEP_THRESHOLD, 2 * this.connectionStatements.size()));
+            }
+            statements = new ConnectionStatements();
+            this.connectionStatements.put(physicalConn, statements);
+        }
+        StatementKey key = new StatementKey(sql, returnGeneratedKeys, keyColumns);
+        PreparedStatement stmt = statements.get(key);
+        if (stmt != null) {
+            this.hitCount.increment();
+            return stmt;
+        }
+        this.missCount.increment();
+        if (!returnGeneratedKeys) {
+            stmt = physicalConn.prepareStatement(sql);
+        } else if (keyColumns != null) {
+            stmt = physicalConn.prepareStatement(sql, keyColumns);
+        } else {
+            stmt = physicalConn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+        }
+        statements.put(key, stmt);
+        return stmt;
+    }
+
+    /**
+     * This method releases a statement after its execution. A cached statement is kept open for the next
+     * execution, and only its parameters are cleared.
+     *
+     * @param stmt the executed statement
+     * @return true if the statement is cached, false if it has to be closed by the caller
+     */
+    public boolean release(Statement stmt) {
+        ConnectionStatements statements = this.statementOwners.get(stmt);
+        if (statements == null) {
+            return false;
+        }
+        try {
+            ((PreparedStatement) stmt).clearParameters();
+        } catch (SQLException e) {
+            log.debug("Discarding the cached statement, error in clearing parameters: " + e.getMessage(), e);
+            statements.remove(stmt);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * This method removes a statement from the cache, after it failed in the execution.
+     *
+     * @param stmt the failed statement
+     */
+    public void discard(Statement stmt) {
+        ConnectionStatements statements = this.statementOwners.get(stmt);
+        if (statements != null) {
+            statements.remove(stmt);
+        }
+    }
+
+    /**
+     * This method closes all the cached statements.
+     */
+    public void close() {
+        for (ConnectionStatements statements : this.connectionStatements.values()) {
+            statements.closeAll();
+        }
+        this.connectionStatements.clear();
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public int getCachedStatementCount() {
+        int count = 0;
+        for (ConnectionStatements statements : this.connectionStatements.values()) {
+            count += statements.size();
+        }
+        return count;
+    }
+
+    /**
+     * The pool hands out a proxy of the physical connection to each request, the statements are prepared with the
+     * physical connection so that they outlive the proxy. This bypasses the statement tracking of the pool, the
+     * physical connection is only used while the request holds the proxy. The physical connection is unwrapped
+     * with the JDBC wrapper interface, which the pools implement by returning the connection they wrap. If the
+     * connection can not be unwrapped, the statements are cached for the connection handle.
+     */
+    private Connection getPhysicalConnection(Connection conn) {
+        try {
+            if (conn.isWrapperFor(Connection.class)) {
+                Connection physicalConn = conn.unwrap(Connection.class);
+                if (physicalConn != null) {
+                    return physicalConn;
+                }
+            }
+        } catch (SQLException | AbstractMethodError e) {
+            /* JDBC drivers not supporting v4.0 features */
+            if (log.isDebugEnabled()) {
+                log.debug("Caching the statements for the connection handle, error in unwrapping the connection: " +
+                          e.getMessage());
+            }
+        }
+        return conn;
+    }
+
+    /**
+     * Closes the statements of the connections which were closed by the pool.
+     */
+    private void removeClosedConnections() {
+        Iterator<Map.Entry<Connection, ConnectionStatements>> iterator =
+                this.connectionStatements.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Connection, ConnectionStatements> entry = iterator.next();
+            if (isClosed(entry.getKey())) {
+                iterator.remove();
+                entry.getValue().closeAll();
+            }
+        }
+    }
+
+    private static boolean isClosed(Connection conn) {
+        try {
+            return conn.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    private static void closeStatement(Statement stmt) {
+        try {
+            stmt.close();
+        } catch (Exception ignore) {
+            // ignore
+        }
+    }
+
+    /**
+     * The cached statements of a physical connection, in the access order.
+     */
+    private class ConnectionStatements {
+
+        private final LinkedHashMap<StatementKey, PreparedStatement> statements =
+                new LinkedHashMap<StatementKey, PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<StatementKey, PreparedStatement> eldest) {
+                if (size() > maxStatementsPerConnection) {
+                    statementOwners.remove(eldest.getValue());
+                    closeStatement(eldest.getValue());
+                    evictionCount.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        synchronized PreparedStatement get(StatementKey key) {
+            PreparedStatement stmt = this.statements.get(key);
+            if (stmt != null && isClosed(stmt)) {
+                this.statements.remove(key);
+                statementOwners.remove(stmt);
+                return null;
+            }
+            return stmt;
+        }
+
+        synchronized void put(StatementKey key, PreparedStatement stmt) {
+            PreparedStatement previous = this.statements.put(key, stmt);
+            if (previous != null) {
+                statementOwners.remove(previous);
+                closeStatement(previous);
+            }
+            statementOwners.put(stmt, this);
+        }
+
+        synchronized void remove(Statement stmt) {
+            statementOwners.remove(stmt);
+            this.statements.values().removeIf(cachedStmt -> cachedStmt == stmt);
+        }
+
+        synchronized void closeAll() {
+            for (PreparedStatement stmt : this.statements.values()) {
+                statementOwners.remove(stmt);
+                closeStatement(stmt);
+            }
+            this.statements.clear();
+        }
+
+        synchronized int size() {
+            return this.statements.size();
+        }
+
+        private boolean isClosed(Statement stmt) {
+            try {
+                return stmt.isClosed();
+            } catch (SQLException e) {
+                return true;
+            } catch (Throwable e) {
+                /* JDBC drivers not supporting v4.0 features */
+                return false;
+            }
+        }
+    }
+
+    /**
+     * The key of a cached statement.
+     */
+    private static class StatementKey {
+
+        private final String sql;
+
+        private final boolean returnGeneratedKeys;
+
+        private final String[] keyColumns;
+
+        private final int hashCode;
+
+        StatementKey(String sql, boolean returnGeneratedKeys, String[] keyColumns) {
+            this.sql = sql;
+            this.returnGeneratedKeys = returnGeneratedKeys;
+            this.keyColumns = keyColumns;
+            this.hashCode = 31 * (31 * sql.hashCode() + Boolean.hashCode(returnGeneratedKeys)) +
+                            Arrays.hashCode(keyColumns);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof StatementKey)) {
+                return false;
+            }
+            StatementKey other = (StatementKey) obj;
+            return this.returnGeneratedKeys == other.returnGeneratedKeys && this.sql.equals(other.sql) &&
+                   Arrays.equals(this.keyColumns, other.keyColumns);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -181,6 +181,14 @@ public abstract class Query extends XMLWriterHelper {
 	public boolean hasResult() {
 		return this.getResult() != null;
 	}
+
+	/**
+	 * Returns whether this query only reads data, so that it can be executed independently
+	 * of the other requests of a request box, the default is false.
+	 */
+	public boolean isReadOnly() {
+		return false;
+	}
 	
 	public boolean isWriteRow() {
 		return writeRow;
@@ -413,21 +421,47 @@ public abstract class Query extends XMLWriterHelper {
     public abstract void runPostQuery(Object result, XMLStreamWriter xmlWriter, InternalParamCollection params,
                                   int queryLevel) throws DataServiceFault;
 	
+	/**
+	 * Writes the given result entries of this query, which are already fetched together with the
+	 * result entries of the other parent rows in a batched nested query, instead of executing the query.
+	 */
+	public void writePrefetchedResult(XMLStreamWriter xmlWriter, Map<String, ParamValue> params,
+			List<DataEntry> dataEntries, int queryLevel) throws DataServiceFault {
+		/* pre-process parameters as needed */
+		this.preprocessParams(params);
+		/* extract parameters, to be used internally in queries */
+		InternalParamCollection internalParams = this.extractParams(params);
+		Query.resetCurrentInternalParams();
+		/* validate params */
+		this.validateParams(params);
+		/* check user role based content filtering */
+		this.processContentFiltering();
+		for (DataEntry dataEntry : dataEntries) {
+			this.writeResultEntry(xmlWriter, dataEntry, internalParams, queryLevel);
+		}
+	}
+
 	/**
 	 * writes an result entry to the output.
 	 */
 	public void writeResultEntry(XMLStreamWriter xmlWriter, DataEntry dataEntry,
                                  InternalParamCollection ipc, int queryLevel) throws DataServiceFault {
-		/* increment query level */
-		queryLevel++;
-		
 		/* populate params, here an ExternalParamCollection is created from the
 		 * passed data and the internal parameters. This is done because, again,
 		 * output elements are simply provided with ExternalParam object for their values 
 		 * to be outputted. Output elements include, static elements and other call-query
 		 * object itself, where call-queries are used for nested queries. */
-		ExternalParamCollection params = this.createExternalParamCollection(dataEntry, ipc);
-		
+		this.writeResultEntry(xmlWriter, this.createExternalParamCollection(dataEntry, ipc), queryLevel);
+	}
+
+	/**
+	 * writes an result entry to the output, given the params created from the entry.
+	 */
+	protected void writeResultEntry(XMLStreamWriter xmlWriter, ExternalParamCollection params,
+			int queryLevel) throws DataServiceFault {
+		/* increment query level */
+		queryLevel++;
+
 		/* write result wrapper */
 		if (this.isWriteRow()) {
 			try {
@@ -451,7 +485,7 @@ public abstract class Query extends XMLWriterHelper {
 		}
 	}
 
-	private ExternalParamCollection createExternalParamCollection(DataEntry dataEntry,
+	protected ExternalParamCollection createExternalParamCollection(DataEntry dataEntry,
                                                                   InternalParamCollection queryParams) {
 		ExternalParamCollection pc = new ExternalParamCollection();
 		/* 'toLowerCase' - workaround for different character case issues in column names */
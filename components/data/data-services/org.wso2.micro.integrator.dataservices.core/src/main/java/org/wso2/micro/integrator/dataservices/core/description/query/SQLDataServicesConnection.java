@@ -30,9 +30,19 @@ public class SQLDataServicesConnection implements DataServiceConnection {
     private Connection jdbcConn;
     private boolean isXA;
 
+    /* whether auto commit was disabled to fetch a result set with a cursor, and has to be restored */
+    private boolean restoreAutoCommit;
+
+    private PreparedStatementCache statementCache;
+
     public SQLDataServicesConnection(Connection jdbcConn, boolean isXA) {
+        this(jdbcConn, isXA, null);
+    }
+
+    public SQLDataServicesConnection(Connection jdbcConn, boolean isXA, PreparedStatementCache statementCache) {
         this.jdbcConn = jdbcConn;
         this.isXA = isXA;
+        this.statementCache = statementCache;
     }
 
     @Override
@@ -61,6 +71,15 @@ public class SQLDataServicesConnection implements DataServiceConnection {
     public void close() throws DataServiceFault {
         try {
             if (!this.jdbcConn.isClosed()) {
+                if (this.restoreAutoCommit) {
+                    /* the connection may be pooled, so give it back as it was taken */
+                    this.restoreAutoCommit = false;
+                    try {
+                        this.jdbcConn.setAutoCommit(true);
+                    } catch (SQLException ignore) {
+                        /* closing the connection is not affected */
+                    }
+                }
                 this.jdbcConn.close();
             }
         } catch (SQLException e) {
@@ -77,6 +96,28 @@ public class SQLDataServicesConnection implements DataServiceConnection {
         return this.jdbcConn;
     }
 
+    /**
+     * Returns the cache of the prepared statements of this connection, which are kept open when the connection is
+     * returned to the pool, or null if the statements are not cached.
+     */
+    public PreparedStatementCache getStatementCache() {
+        return this.statementCache;
+    }
+
+    /**
+     * Disables auto commit of the connection, so that the JDBC driver fetches the rows of a result set in chunks
+     * through a cursor, instead of loading the full result set to memory. The transaction is committed when the
+     * request completes, and auto commit is enabled again before the connection is closed.
+     *
+     * @throws SQLException if auto commit can not be disabled
+     */
+    public void beginCursorTransaction() throws SQLException {
+        if (!this.isXA && this.getAutoCommit()) {
+            this.jdbcConn.setAutoCommit(false);
+            this.restoreAutoCommit = true;
+        }
+    }
+
     private boolean getAutoCommit() {
         try {
             return this.jdbcConn.getAutoCommit();
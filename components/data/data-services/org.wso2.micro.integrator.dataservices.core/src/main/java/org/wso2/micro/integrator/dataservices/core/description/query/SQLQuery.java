@@ -24,11 +24,12 @@ import org.apache.commons.logging.LogFactory;
 import org.wso2.micro.integrator.dataservices.common.DBConstants;
 import org.wso2.micro.integrator.dataservices.common.DBConstants.AdvancedSQLProps;
 import org.wso2.micro.integrator.dataservices.common.DBConstants.AutoCommit;
+import org.wso2.micro.integrator.dataservices.common.DBConstants.DataTypes;
 import org.wso2.micro.integrator.dataservices.common.DBConstants.FaultCodes;
+import org.wso2.micro.integrator.dataservices.common.DBConstants.QueryParamTypes;
 import org.wso2.micro.integrator.dataservices.common.DBConstants.QueryTypes;
 import org.wso2.micro.integrator.dataservices.common.DBConstants.RDBMS;
 import org.wso2.micro.integrator.dataservices.core.DBUtils;
-import org.wso2.micro.integrator.dataservices.core.DataServiceConnection;
 import org.wso2.micro.integrator.dataservices.core.DataServiceFault;
 import org.wso2.micro.integrator.dataservices.core.TLConnectionStore;
 import org.wso2.micro.integrator.dataservices.core.description.config.SQLConfig;
@@ -36,10 +37,14 @@ import org.wso2.micro.integrator.dataservices.core.description.event.EventTrigge
 import org.wso2.micro.integrator.dataservices.core.dispatch.BatchDataServiceRequest;
 import org.wso2.micro.integrator.dataservices.core.dispatch.BatchRequestParticipant;
 import org.wso2.micro.integrator.dataservices.core.dispatch.DispatchStatus;
+import org.wso2.micro.integrator.dataservices.core.engine.CallQuery;
 import org.wso2.micro.integrator.dataservices.core.engine.DataEntry;
 import org.wso2.micro.integrator.dataservices.core.engine.DataService;
 import org.wso2.micro.integrator.dataservices.core.engine.InternalParam;
+import org.wso2.micro.integrator.dataservices.core.engine.ExternalParamCollection;
 import org.wso2.micro.integrator.dataservices.core.engine.InternalParamCollection;
+import org.wso2.micro.integrator.dataservices.core.engine.OutputElement;
+import org.wso2.micro.integrator.dataservices.core.engine.OutputElementGroup;
 import org.wso2.micro.integrator.dataservices.core.engine.ParamValue;
 import org.wso2.micro.integrator.dataservices.core.engine.QueryParam;
 import org.wso2.micro.integrator.dataservices.core.engine.Result;
@@ -76,10 +81,17 @@ import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * This class represents an SQL query in a data service.
@@ -94,6 +106,41 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
 
     public static final int ORACLE_REF_CURSOR_TYPE = -10;
 
+    /**
+     * The maximum number of values in the IN list of a batched nested query.
+     */
+    private static final int MAX_NESTED_QUERY_BATCH_VALUES = 512;
+
+    /**
+     * The column which returns the query param value of a row of a batched nested query.
+     */
+    private static final String NESTED_QUERY_KEY_COLUMN = "DSS_NESTED_KEY";
+
+    private static final Pattern NESTED_QUERY_SELECT = Pattern.compile("^\\s*SELECT(\\s+DISTINCT)?\\s+",
+                                                                       Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern NESTED_QUERY_KEY_CONDITION = Pattern.compile(
+            "(\\bWHERE|\\bAND|\\()\\s*([\\w.]+)\\s*=\\s*\\?", Pattern.CASE_INSENSITIVE);
+
+    /* clauses which give a different result when the rows of many param values are queried at once */
+    private static final Pattern NESTED_QUERY_UNSUPPORTED_CLAUSES = Pattern.compile(
+            "\\b(GROUP|HAVING|UNION|INTERSECT|EXCEPT|MINUS|LIMIT|OFFSET|FETCH|TOP|ROWNUM|OR|COUNT|SUM|AVG|MIN|MAX|" +
+            "OVER)\\b", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern SQL_SELECT = Pattern.compile("\\bSELECT\\b", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern SQL_FROM = Pattern.compile("\\bFROM\\b", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern SQL_WHERE = Pattern.compile("\\bWHERE\\b", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern SQL_NOT = Pattern.compile("\\bNOT\\s*$", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern SELECT_ALL_COLUMNS = Pattern.compile("(^|,)\\s*\\*");
+
+    /* ORDER BY with column positions, which are shifted by the key column */
+    private static final Pattern ORDER_BY_POSITION = Pattern.compile("\\bORDER\\s+BY\\s+(.*,\\s*)?\\d+\\b",
+                                                                     Pattern.CASE_INSENSITIVE);
+
     private SQLConfig config;
 
     private int queryType;
@@ -110,6 +157,11 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
 
     private FetchSizeProperty fetchSizeProperty;
 
+    /* whether the result set is streamed with a cursor which is only opened within a transaction */
+    private boolean cursorFetchInTransactionOnly;
+
+    private boolean streamWithCursor;
+
     private boolean hasFetchDirection;
 
     private boolean hasFetchSize;
@@ -148,6 +200,17 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
 
     private boolean timeConvertEnabled = true;
 
+    private int nestedQueryBatchSize;
+
+    /* the parts of the query before and after the IN list, when the query is executed in batches as
+     * a nested query, null otherwise */
+    private String[] batchedNestedQuery;
+
+    private QueryParam nestedQueryKeyParam;
+
+    /* the call-queries in the result which are executed in batches, with their query level offset */
+    private volatile Map<CallQuery, Integer> batchedCallQueries;
+
     private static QueryType sqlQueryType;
 
     /**
@@ -229,11 +292,16 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
          */
         this.resultOnlyOutParams = this.calculateResultOnlyOutParams();
         /* set the optimal JDBC result set fetch size for mysql */
-        if (DBUtils.getChangeFetchSizeForRDBMS(this.getConfig().getProperty(RDBMS.URL))) {
+        String jdbcUrl = this.getConfig().getProperty(RDBMS.URL);
+        this.cursorFetchInTransactionOnly = this.streamWithCursor && DBUtils.isCursorFetchInTransactionOnly(jdbcUrl);
+        if (DBUtils.getChangeFetchSizeForRDBMS(jdbcUrl)) {
             this.fetchSizeProperty = new FetchSizeProperty(true, Integer.MIN_VALUE);
+        } else if (this.cursorFetchInTransactionOnly) {
+            this.fetchSizeProperty = new FetchSizeProperty(true, DBUtils.getStreamingFetchSize());
         } else {
             this.fetchSizeProperty = new FetchSizeProperty(false, 0);
         }
+        this.batchedNestedQuery = this.createBatchedNestedQuery();
         /* set batch update support for this query */
         try {
             this.hasBatchQuerySupport = this.getDataService().isBatchRequestsEnabled()
@@ -532,6 +600,26 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
         if (!DBUtils.isEmptyString(forceJDBCBatchRequests)) {
             this.forceJDBCBatchReqs = Boolean.parseBoolean(forceJDBCBatchRequests);
         }
+        /* stream the result set with a database cursor */
+        String streamWithCursorProp = props.get(RDBMS.STREAM_WITH_CURSOR);
+        if (!DBUtils.isEmptyString(streamWithCursorProp)) {
+            this.streamWithCursor = Boolean.parseBoolean(streamWithCursorProp.trim());
+        }
+        /* process nested query batch size */
+        String nestedQueryBatchSizeProp = props.get(RDBMS.NESTED_QUERY_BATCH_SIZE);
+        if (!DBUtils.isEmptyString(nestedQueryBatchSizeProp)) {
+            nestedQueryBatchSizeProp = nestedQueryBatchSizeProp.trim();
+            try {
+                this.nestedQueryBatchSize = Integer.parseInt(nestedQueryBatchSizeProp);
+                if (this.nestedQueryBatchSize < 0) {
+                    throw new DataServiceFault("Invalid nested query batch size: " + nestedQueryBatchSizeProp
+                            + ", nested query batch size should be a non-negative integer");
+                }
+            } catch (NumberFormatException e) {
+                throw new DataServiceFault(e, "Invalid nested query batch size: " + nestedQueryBatchSizeProp
+                        + ", nested query batch size should be a non-negative integer");
+            }
+        }
     }
 
     public boolean isHasFetchDirection() {
@@ -659,18 +747,30 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
      * @see Connection
      */
     private Connection createConnection(int queryLevel) throws DataServiceFault {
+        return this.createDataServicesConnection(queryLevel).getJDBCConnection();
+    }
+
+    /**
+     * Creates a new data services connection, or returns the connection of the current request, and return it.
+     *
+     * @see SQLDataServicesConnection
+     */
+    private SQLDataServicesConnection createDataServicesConnection(int queryLevel) throws DataServiceFault {
         try {
             String[] creds = this.lookupConnectionCredentials();
             Connection connection;
-            DataServiceConnection dsCon = TLConnectionStore.getConnection(this.getConfigId(), creds[0], queryLevel);
+            SQLDataServicesConnection dsCon = (SQLDataServicesConnection) TLConnectionStore.getConnection(
+                    this.getConfigId(), creds[0], queryLevel);
             if (dsCon == null) {
                 Object[] connInfo = this.getConfig().createConnection(creds[0], creds[1]);
                 connection = (Connection) connInfo[0];
                 boolean isXA = (Boolean) connInfo[1];
-                dsCon = new SQLDataServicesConnection(connection, isXA);
+                /* statements are not cached for XA connections, which are enlisted per transaction */
+                dsCon = new SQLDataServicesConnection(connection, isXA,
+                                                      isXA ? null : this.getConfig().getStatementCache());
                 TLConnectionStore.addConnection(this.getConfigId(), creds[0], queryLevel, dsCon);
             } else {
-                connection = ((SQLDataServicesConnection) dsCon).getJDBCConnection();
+                connection = dsCon.getJDBCConnection();
             }
             if (DispatchStatus.isInBatchBoxcarring() && !dsCon.isXA()) {
                 /* disable autocommit, and add to the connection list */
@@ -685,15 +785,62 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
                     setAutoCommit(connection, false);
                     break;
                 default:
+                    if (this.isStreamingCursorQuery()) {
+                        this.beginCursorTransaction(dsCon);
+                    }
                     break;
                 }
             }
-            return connection;
+            return dsCon;
         } catch (SQLException e) {
             throw new DataServiceFault(e, FaultCodes.DATABASE_ERROR, "Error in opening DBMS connection.");
         }
     }
 
+    /**
+     * A plain SELECT statement which returns its result set is read only, stored procedures are not
+     * considered read only since their effects are not known, and SELECT ... FOR UPDATE holds locks
+     * for the rest of the transaction.
+     */
+    @Override
+    public boolean isReadOnly() {
+        if (this.queryType != SQLQuery.DS_QUERY_TYPE_NORMAL || !this.hasResult() || this.isReturnGeneratedKeys() ||
+            this.isReturnUpdatedRowCount()) {
+            return false;
+        }
+        String query = this.getQuery().trim().toUpperCase();
+        return query.startsWith("SELECT") && !query.contains("FOR UPDATE");
+    }
+
+    /**
+     * Checks whether the result set of this query is streamed with a cursor, which is only opened within
+     * a transaction, so the result set would be loaded to memory in auto commit mode. This is only done when
+     * the query enables the streamWithCursor property, since the statements executed later in the request
+     * with the same connection run in the same transaction.
+     *
+     * @return true if auto commit has to be disabled to stream the result set
+     */
+    private boolean isStreamingCursorQuery() {
+        if (!this.cursorFetchInTransactionOnly || this.queryType != SQLQuery.DS_QUERY_TYPE_NORMAL ||
+            !this.hasResult() || this.isReturnGeneratedKeys() || this.isReturnUpdatedRowCount() ||
+            this.hasOutParams() || this.isJDBCBatchRequest()) {
+            return false;
+        }
+        if (this.isHasFetchSize()) {
+            return this.getFetchSize() > 0;
+        }
+        return this.getFetchSizeProperty().isChangeFetchSize();
+    }
+
+    private void beginCursorTransaction(SQLDataServicesConnection dsCon) {
+        try {
+            dsCon.beginCursorTransaction();
+        } catch (SQLException e) {
+            /* the result set is still returned, only without streaming */
+            log.debug("Unable to disable auto commit to stream the result set: " + e.getMessage(), e);
+        }
+    }
+
     private int retrieveQueryType(String query) {
         if (this.isForceStoredProc()) {
             return SQLQuery.DS_QUERY_TYPE_STORED_PROC;
@@ -771,9 +918,11 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
         ResultSet rs = null;
         boolean isError = false;
         try {
-            Connection conn = this.createConnection(queryLevel);
+            SQLDataServicesConnection dsCon = this.createDataServicesConnection(queryLevel);
+            /* statements of a JDBC batch are reused until the end of the batch, not cached */
             stmt = this.createProcessedPreparedStatement(
-                    SQLQuery.DS_QUERY_TYPE_NORMAL, params, conn);
+                    SQLQuery.DS_QUERY_TYPE_NORMAL, params, dsCon.getJDBCConnection(),
+                    this.isJDBCBatchRequest() ? null : dsCon.getStatementCache());
             /* check if this is a batch request */
             if (this.isJDBCFirstBatchRequest()) {
                 this.setBatchPreparedStatement(stmt);
@@ -810,6 +959,7 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
                 log.debug("Stopping DB calls: ThreadID - " + Thread.currentThread().getId());
             }
             if (isError) {
+                this.discardCachedStatement(stmt);
                 this.releaseResources(rs, this.isStatementClosable(isError) ? stmt : null);
             }
         }
@@ -841,6 +991,8 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
                     /* normal update operation */
                     this.writeGeneratedElements(stmt, xmlWriter, params, queryLevel);
                 }
+            } else if (this.nestedQueryBatchSize > 0 && !this.getBatchedCallQueries().isEmpty()) {
+                this.writeResultEntriesInPages(rs, xmlWriter, params, queryLevel);
             } else {
                 DataEntry dataEntry;
                 while (rs.next()) {
@@ -853,6 +1005,9 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
             throw new DataServiceFault(e, FaultCodes.DATABASE_ERROR,
                                        "Error in 'SQLQuery.processPostNormalQuery': " + e.getMessage());
         } finally {
+            if (isError) {
+                this.discardCachedStatement(stmt);
+            }
             this.releaseResources(rs, this.isStatementClosable(isError) ? stmt : null);
         }
     }
@@ -876,6 +1031,281 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
         }
     }
 
+    /**
+     * Writes the result entries a page at a time, where the nested queries of the result which can be
+     * batched are executed once for all the rows of a page, instead of once for each row.
+     */
+    private void writeResultEntriesInPages(ResultSet rs, XMLStreamWriter xmlWriter, InternalParamCollection params,
+                                           int queryLevel) throws DataServiceFault, SQLException {
+        List<DataEntry> page = new ArrayList<>(Math.min(this.nestedQueryBatchSize, MAX_NESTED_QUERY_BATCH_VALUES));
+        while (rs.next()) {
+            page.add(this.getDataEntryFromRS(new ResultSetWrapper(rs)));
+            if (page.size() == this.nestedQueryBatchSize) {
+                this.writeResultPage(page, xmlWriter, params, queryLevel);
+                page.clear();
+            }
+        }
+        if (!page.isEmpty()) {
+            this.writeResultPage(page, xmlWriter, params, queryLevel);
+        }
+    }
+
+    private void writeResultPage(List<DataEntry> page, XMLStreamWriter xmlWriter, InternalParamCollection params,
+                                 int queryLevel) throws DataServiceFault {
+        List<ExternalParamCollection> pageParams = new ArrayList<>(page.size());
+        for (DataEntry dataEntry : page) {
+            pageParams.add(this.createExternalParamCollection(dataEntry, params));
+        }
+        Map<CallQuery, Map<String, List<DataEntry>>> previousEntries = new HashMap<>();
+        try {
+            for (Map.Entry<CallQuery, Integer> entry : this.getBatchedCallQueries().entrySet()) {
+                Map<String, List<DataEntry>> entries = this.fetchNestedQueryBatch(entry.getKey(), pageParams,
+                                                                                  queryLevel + entry.getValue());
+                if (entries != null) {
+                    previousEntries.put(entry.getKey(), CallQuery.setPrefetchedEntries(entry.getKey(), entries));
+                }
+            }
+            for (ExternalParamCollection entryParams : pageParams) {
+                this.writeResultEntry(xmlWriter, entryParams, queryLevel);
+            }
+        } finally {
+            for (Map.Entry<CallQuery, Map<String, List<DataEntry>>> entry : previousEntries.entrySet()) {
+                CallQuery.setPrefetchedEntries(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Executes the nested query of the given call-query for the rows of a page.
+     *
+     * @return the result entries grouped by the query param value, or null if the nested query has to be
+     * executed for each row
+     */
+    private Map<String, List<DataEntry>> fetchNestedQueryBatch(CallQuery callQuery,
+                                                               List<ExternalParamCollection> pageParams,
+                                                               int queryLevel) throws DataServiceFault {
+        SQLQuery nestedQuery = (SQLQuery) callQuery.getQuery();
+        Set<String> keys = new LinkedHashSet<>();
+        for (ExternalParamCollection params : pageParams) {
+            ParamValue value = callQuery.extractParamValue(params, nestedQuery.getNestedQueryKeyParam());
+            if (value == null || value.getValueType() != ParamValue.PARAM_VALUE_SCALAR) {
+                return null;
+            }
+            if (value.getScalarValue() != null) {
+                String key = nestedQuery.toNestedQueryKey(value.getScalarValue());
+                if (key == null) {
+                    /* an invalid value, the error is reported when the query is executed for the row */
+                    return null;
+                }
+                keys.add(key);
+            }
+        }
+        return nestedQuery.executeNestedQueryBatch(keys, queryLevel);
+    }
+
+    /**
+     * Returns the call-queries of the result, for which the nested query can be executed in batches, with the
+     * offset of their query level from the query level of this query.
+     */
+    private Map<CallQuery, Integer> getBatchedCallQueries() {
+        Map<CallQuery, Integer> callQueries = this.batchedCallQueries;
+        if (callQueries == null) {
+            callQueries = new LinkedHashMap<>();
+            /* the query level is incremented for the result entry and for each element group */
+            this.collectBatchedCallQueries(this.getResult().getDefaultElementGroup(), 2, callQueries);
+            this.batchedCallQueries = callQueries;
+        }
+        return callQueries;
+    }
+
+    private void collectBatchedCallQueries(OutputElementGroup elementGroup, int levelOffset,
+                                           Map<CallQuery, Integer> callQueries) {
+        for (OutputElement element : elementGroup.getAllElements()) {
+            /* elements of arrays are executed with the params of each array element */
+            if (element.getArrayName() != null) {
+                continue;
+            }
+            if (element instanceof CallQuery) {
+                Query query = ((CallQuery) element).getQuery();
+                if (query instanceof SQLQuery && ((SQLQuery) query).isNestedQueryBatchable()) {
+                    callQueries.put((CallQuery) element, levelOffset);
+                }
+            } else if (element instanceof OutputElementGroup) {
+                this.collectBatchedCallQueries((OutputElementGroup) element, levelOffset + 1, callQueries);
+            }
+        }
+    }
+
+    /**
+     * Checks whether this query can be executed as a nested query for the rows of many parent rows at once,
+     * the query has to be a plain SELECT statement with a single integer param, which is only used in a
+     * "column = ?" condition of the WHERE clause, so that the condition can be replaced with an IN list.
+     *
+     * @return true if the query can be executed in batches as a nested query
+     */
+    public boolean isNestedQueryBatchable() {
+        return this.batchedNestedQuery != null;
+    }
+
+    public String getNestedQueryKeyParam() {
+        return this.nestedQueryKeyParam.getName();
+    }
+
+    /**
+     * Returns the value of the query param in the form it is compared with the values returned by a batched
+     * nested query, or null if the value is not valid for the query param.
+     */
+    public String toNestedQueryKey(String value) {
+        try {
+            BigDecimal decimalValue = new BigDecimal(value.trim());
+            if (DataTypes.BIGINT.equals(this.nestedQueryKeyParam.getSqlType())) {
+                return Long.toString(decimalValue.longValueExact());
+            }
+            return Integer.toString(decimalValue.intValueExact());
+        } catch (NumberFormatException | ArithmeticException e) {
+            return null;
+        }
+    }
+
+    private String[] createBatchedNestedQuery() {
+        if (this.queryType != SQLQuery.DS_QUERY_TYPE_NORMAL || !this.isReadOnly() || this.hasOutParams() ||
+            this.isUsingColumnNumbers() || this.isPreBuildResult() || this.isHasMaxRows() ||
+            this.getInputEventTrigger() != null || this.getOutputEventTrigger() != null ||
+            this.getQueryParams().size() != 1 || this.getParamCount() != 1) {
+            return null;
+        }
+        QueryParam queryParam = this.getQueryParams().get(0);
+        if (!QueryTypes.IN.equals(queryParam.getType()) ||
+            !QueryParamTypes.SCALAR.equals(queryParam.getParamType()) || queryParam.getOrdinals().size() != 1 ||
+            !(DataTypes.INTEGER.equals(queryParam.getSqlType()) || DataTypes.BIGINT.equals(queryParam.getSqlType()) ||
+              DataTypes.SMALLINT.equals(queryParam.getSqlType()))) {
+            return null;
+        }
+        String query = this.getQuery();
+        if (NESTED_QUERY_UNSUPPORTED_CLAUSES.matcher(query).find() || ORDER_BY_POSITION.matcher(query).find() ||
+            this.countMatches(SQL_SELECT, query) != 1) {
+            return null;
+        }
+        Matcher selectMatcher = NESTED_QUERY_SELECT.matcher(query);
+        Matcher fromMatcher = SQL_FROM.matcher(query);
+        Matcher conditionMatcher = NESTED_QUERY_KEY_CONDITION.matcher(query);
+        if (!selectMatcher.find() || !fromMatcher.find() || !conditionMatcher.find()) {
+            return null;
+        }
+        /* a column list with '*' can not be extended with the key column */
+        if (SELECT_ALL_COLUMNS.matcher(query.substring(selectMatcher.end(), fromMatcher.start()).trim()).find()) {
+            return null;
+        }
+        /* the condition has to be in the WHERE clause, not in the ON clause of a join */
+        if (!SQL_WHERE.matcher(query.substring(0, conditionMatcher.start(2))).find() ||
+            SQL_NOT.matcher(query.substring(0, conditionMatcher.start())).find()) {
+            return null;
+        }
+        String keyColumn = conditionMatcher.group(2);
+        this.nestedQueryKeyParam = queryParam;
+        return new String[] {
+                query.substring(0, selectMatcher.end()) + keyColumn + " AS " + NESTED_QUERY_KEY_COLUMN + ", " +
+                query.substring(selectMatcher.end(), conditionMatcher.start(2)) + keyColumn + " IN (",
+                ")" + query.substring(conditionMatcher.end()) };
+    }
+
+    private int countMatches(Pattern pattern, String value) {
+        Matcher matcher = pattern.matcher(value);
+        int count = 0;
+        while (matcher.find()) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Executes this query as a nested query for the given query param values of many parent rows at once.
+     *
+     * @param keys       the query param values, as returned by {@link #toNestedQueryKey(String)}
+     * @param queryLevel the query level of the nested query
+     * @return the result entries grouped by the query param value
+     * @throws DataServiceFault if an error occurs in executing the query
+     */
+    public Map<String, List<DataEntry>> executeNestedQueryBatch(Collection<String> keys, int queryLevel)
+            throws DataServiceFault {
+        Map<String, List<DataEntry>> entries = new HashMap<>();
+        List<String> keyList = new ArrayList<>(keys);
+        for (int start = 0; start < keyList.size(); start += MAX_NESTED_QUERY_BATCH_VALUES) {
+            this.executeNestedQueryBatch(keyList.subList(
+                    start, Math.min(start + MAX_NESTED_QUERY_BATCH_VALUES, keyList.size())), entries, queryLevel);
+        }
+        return entries;
+    }
+
+    private void executeNestedQueryBatch(List<String> keys, Map<String, List<DataEntry>> entries, int queryLevel)
+            throws DataServiceFault {
+        /* the IN list is padded to a power of two with the last value, so only a few statements are prepared */
+        int valueCount = keys.size() == 1 ? 1 : Integer.highestOneBit(keys.size() - 1) << 1;
+        StringBuilder sql = new StringBuilder(this.batchedNestedQuery[0]);
+        for (int i = 0; i < valueCount; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(this.batchedNestedQuery[1]);
+        boolean isBigInt = DataTypes.BIGINT.equals(this.nestedQueryKeyParam.getSqlType());
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        boolean isError = false;
+        try {
+            SQLDataServicesConnection dsCon = this.createDataServicesConnection(queryLevel);
+            PreparedStatementCache statementCache = dsCon.getStatementCache();
+            if (statementCache != null) {
+                stmt = statementCache.prepareStatement(dsCon.getJDBCConnection(), sql.toString(), false, null);
+                this.resetStatementSettings(stmt);
+            } else {
+                stmt = dsCon.getJDBCConnection().prepareStatement(sql.toString());
+            }
+            this.applyStatementSettings(stmt);
+            for (int i = 0; i < valueCount; i++) {
+                String key = keys.get(Math.min(i, keys.size() - 1));
+                if (isBigInt) {
+                    stmt.setLong(i + 1, Long.parseLong(key));
+                } else {
+                    stmt.setInt(i + 1, Integer.parseInt(key));
+                }
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Executing the nested query '" + this.getQueryId() + "' for " + keys.size() +
+                          " parent rows: " + sql);
+            }
+            rs = stmt.executeQuery();
+            while (rs.next()) {
+                DataEntry dataEntry = this.getDataEntryFromRS(new ResultSetWrapper(rs));
+                String key = this.removeNestedQueryKey(dataEntry);
+                if (key != null) {
+                    entries.computeIfAbsent(key, k -> new ArrayList<>()).add(dataEntry);
+                }
+            }
+        } catch (Throwable e) {
+            isError = true;
+            throw new DataServiceFault(e, FaultCodes.DATABASE_ERROR,
+                                       "Error in 'SQLQuery.executeNestedQueryBatch': " + e.getMessage());
+        } finally {
+            if (isError) {
+                this.discardCachedStatement(stmt);
+            }
+            this.releaseResources(rs, stmt);
+        }
+    }
+
+    private String removeNestedQueryKey(DataEntry dataEntry) {
+        Iterator<Map.Entry<String, ParamValue>> iterator = dataEntry.getData().entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, ParamValue> entry = iterator.next();
+            /* the case of the column label depends on the DBMS */
+            if (NESTED_QUERY_KEY_COLUMN.equalsIgnoreCase(entry.getKey())) {
+                iterator.remove();
+                String value = entry.getValue().getScalarValue();
+                return value != null ? this.toNestedQueryKey(value) : null;
+            }
+        }
+        return null;
+    }
+
     /**
      * This class contains the query results from the first execution phase.
      */
@@ -1034,6 +1464,19 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
         }
     }
 
+    private void resetStatementSettings(PreparedStatement stmt) throws SQLException {
+        stmt.setQueryTimeout(0);
+        stmt.setMaxFieldSize(0);
+        stmt.setMaxRows(0);
+        /* adding the try catch to avoid setting this for jdbc drivers that do not implement this method. */
+        try {
+            stmt.setFetchDirection(ResultSet.FETCH_FORWARD);
+            stmt.setFetchSize(0);
+        } catch (Throwable e) {
+            log.debug("Exception while resetting fetch size: " + e.getMessage(), e);
+        }
+    }
+
     private boolean isStatementClosable(boolean isError) {
         return (isError || !this.isJDBCBatchRequest() || this.isJDBCLastBatchRequest());
     }
@@ -1047,8 +1490,8 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
                 // ignore
             }
         }
-        /* close the statement */
-        if (stmt != null) {
+        /* close the statement, unless it is cached to be reused */
+        if (stmt != null && !this.releaseCachedStatement(stmt)) {
             try {
                 stmt.close();
             } catch (Exception ignore) {
@@ -1057,6 +1500,21 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
         }
     }
 
+    private boolean releaseCachedStatement(Statement stmt) {
+        PreparedStatementCache statementCache = this.getConfig().getStatementCache();
+        return statementCache != null && statementCache.release(stmt);
+    }
+
+    /**
+     * Removes a statement which failed in the execution from the statement cache, so that it is closed.
+     */
+    private void discardCachedStatement(Statement stmt) {
+        PreparedStatementCache statementCache = this.getConfig().getStatementCache();
+        if (statementCache != null && stmt != null) {
+            statementCache.discard(stmt);
+        }
+    }
+
     private List<DataEntry> getAllDataEntriesFromRS(ResultSet rs, boolean rsNextAlreadyCalled)
             throws SQLException {
         List<DataEntry> entries = new ArrayList<DataEntry>();
@@ -1388,6 +1846,12 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
     private PreparedStatement createProcessedPreparedStatement(int queryType,
                                                                InternalParamCollection params, Connection conn) throws
                                                                                                                 DataServiceFault {
+        return this.createProcessedPreparedStatement(queryType, params, conn, null);
+    }
+
+    private PreparedStatement createProcessedPreparedStatement(int queryType, InternalParamCollection params,
+                                                               Connection conn, PreparedStatementCache statementCache)
+            throws DataServiceFault {
         try {
             /*Creating a new update query based on the parameters passed in the payload, checking whether the missing
              parameters are optional*/
@@ -1432,7 +1896,12 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
                     log.debug("Starting DB calls: for \"" + processedSQL + "\" with params - " + paramsStr +
                               ", ThreadID - " + Thread.currentThread().getId());
                 }
-                if (queryType == SQLQuery.DS_QUERY_TYPE_NORMAL) {
+                if (queryType == SQLQuery.DS_QUERY_TYPE_NORMAL && statementCache != null) {
+                    stmt = statementCache.prepareStatement(conn, processedSQL, this.isReturnGeneratedKeys(),
+                                                           this.getKeyColumns());
+                    /* a cached statement may have been configured by another query with the same SQL */
+                    this.resetStatementSettings(stmt);
+                } else if (queryType == SQLQuery.DS_QUERY_TYPE_NORMAL) {
                     if (this.isReturnGeneratedKeys()) {
                         if (this.getKeyColumns() != null) {
                             stmt = conn.prepareStatement(processedSQL, this.getKeyColumns());
@@ -1453,42 +1922,7 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
             }
 
             if (!inTheMiddleOfABatch) {
-                /* set query timeout */
-                if (this.isHasQueryTimeout()) {
-                    stmt.setQueryTimeout(this.getQueryTimeout());
-                }
-                /* adding the try catch to avoid setting this for jdbc drivers that do not implement this method. */
-                try {
-                    /* set fetch direction */
-                    if (this.isHasFetchDirection()) {
-                        stmt.setFetchDirection(this.getFetchDirection());
-                    }
-                    /* set fetch size - user's setting */
-                    if (this.isHasFetchSize()) {
-                        stmt.setFetchSize(this.getFetchSize());
-                    } else {
-                        /*
-                         * stream data by sections - avoid the full result set
-                         * to be loaded to memory, and only stream if there
-                         * aren't any OUT parameters, MySQL fails in the
-                         * scenario of streaming and OUT parameters, so the
-                         * possibility is there for other DBMSs
-                         */
-                        if (!this.hasOutParams() && this.getFetchSizeProperty().isChangeFetchSize()) {
-                            stmt.setFetchSize(this.getFetchSizeProperty().getFetchSize());
-                        }
-                    }
-                } catch (Throwable e) {
-                    log.debug("Exception while setting fetch size: " + e.getMessage(), e);
-                }
-                /* set max field size */
-                if (this.isHasMaxFieldSize()) {
-                    stmt.setMaxFieldSize(this.getMaxFieldSize());
-                }
-                /* set max rows */
-                if (this.isHasMaxRows()) {
-                    stmt.setMaxRows(this.getMaxRows());
-                }
+                this.applyStatementSettings(stmt);
             }
 
             int currentOrdinal = 0;
@@ -1530,6 +1964,45 @@ public class SQLQuery extends ExpressionQuery implements BatchRequestParticipant
         }
     }
 
+    private void applyStatementSettings(PreparedStatement stmt) throws SQLException {
+        /* set query timeout */
+        if (this.isHasQueryTimeout()) {
+            stmt.setQueryTimeout(this.getQueryTimeout());
+        }
+        /* adding the try catch to avoid setting this for jdbc drivers that do not implement this method. */
+        try {
+            /* set fetch direction */
+            if (this.isHasFetchDirection()) {
+                stmt.setFetchDirection(this.getFetchDirection());
+            }
+            /* set fetch size - user's setting */
+            if (this.isHasFetchSize()) {
+                stmt.setFetchSize(this.getFetchSize());
+            } else {
+                /*
+                 * stream data by sections - avoid the full result set
+                 * to be loaded to memory, and only stream if there
+                 * aren't any OUT parameters, MySQL fails in the
+                 * scenario of streaming and OUT parameters, so the
+                 * possibility is there for other DBMSs
+                 */
+                if (!this.hasOutParams() && this.getFetchSizeProperty().isChangeFetchSize()) {
+                    stmt.setFetchSize(this.getFetchSizeProperty().getFetchSize());
+                }
+            }
+        } catch (Throwable e) {
+            log.debug("Exception while setting fetch size: " + e.getMessage(), e);
+        }
+        /* set max field size */
+        if (this.isHasMaxFieldSize()) {
+            stmt.setMaxFieldSize(this.getMaxFieldSize());
+        }
+        /* set max rows */
+        if (this.isHasMaxRows()) {
+            stmt.setMaxRows(this.getMaxRows());
+        }
+    }
+
     private String generateSQLupdateQuery(InternalParamCollection params, String query) {
 
         String referenceName = "";
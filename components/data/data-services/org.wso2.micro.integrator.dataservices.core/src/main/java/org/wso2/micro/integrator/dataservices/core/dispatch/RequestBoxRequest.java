@@ -22,7 +22,16 @@ import org.wso2.micro.integrator.dataservices.core.DataServiceFault;
 import org.wso2.micro.integrator.dataservices.core.TLConnectionStore;
 import org.wso2.micro.integrator.dataservices.core.boxcarring.RequestBox;
 import org.wso2.micro.integrator.dataservices.core.boxcarring.TLParamStore;
+import org.wso2.micro.integrator.dataservices.core.description.query.Query;
+import org.wso2.micro.integrator.dataservices.core.engine.CallQuery;
+import org.wso2.micro.integrator.dataservices.core.engine.CallableRequest;
 import org.wso2.micro.integrator.dataservices.core.engine.DataService;
+import org.wso2.micro.integrator.dataservices.core.engine.OutputElementGroup;
+import org.wso2.micro.integrator.dataservices.core.engine.StaticOutputElement;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Request box data service request for request grouping.
@@ -62,10 +71,17 @@ public class RequestBoxRequest extends DataServiceRequest {
         boolean error = true;
         try {
             DispatchStatus.setBoxcarringRequest();
+            /* checked before the transaction of the request box is started */
+            boolean parallel = isParallelExecutable(this.getDataService(), this.requestBox.getRequests());
             if (!this.getDataService().isInDTX()) {
                 this.getDataService().getDSSTxManager().begin();
             }
-            OMElement lastRequestResult = this.requestBox.execute();
+            OMElement lastRequestResult;
+            if (parallel) {
+                lastRequestResult = this.requestBox.executeInParallel();
+            } else {
+                lastRequestResult = this.requestBox.execute();
+            }
             error = false;
             return lastRequestResult;
         } finally {
@@ -75,6 +91,73 @@ public class RequestBoxRequest extends DataServiceRequest {
 
     }
 
+    /**
+     * Checks whether the requests of the request box can be executed in parallel, which is when it is
+     * enabled for the data service, the request box does not take part in a distributed transaction, and
+     * all the requests are single requests of read only queries, which do not export values to the
+     * other requests. Since such requests do not modify any data, running each of them in its own
+     * transaction does not change the outcome of the request box.
+     *
+     * @param dataService the data service of the request box
+     * @param requests    the requests of the request box
+     * @return true if the requests can be executed in parallel
+     */
+    public static boolean isParallelExecutable(DataService dataService, List<DataServiceRequest> requests) {
+        if (!dataService.isParallelRequestBoxEnabled() || dataService.isInDTX() || requests.size() < 2) {
+            return false;
+        }
+        Set<Query> visitedQueries = new HashSet<Query>();
+        for (DataServiceRequest request : requests) {
+            if (!(request instanceof SingleDataServiceRequest)) {
+                return false;
+            }
+            CallableRequest callableRequest = dataService.getCallableRequest(request.getRequestName());
+            if (callableRequest == null || callableRequest.getCallQuery() == null ||
+                !isIndependentReadQuery(callableRequest.getCallQuery().getQuery(), visitedQueries)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isIndependentReadQuery(Query query, Set<Query> visitedQueries) {
+        if (query == null) {
+            return false;
+        }
+        if (!visitedQueries.add(query)) {
+            return true;
+        }
+        if (!query.isReadOnly() || query.getInputEventTrigger() != null || query.getOutputEventTrigger() != null) {
+            return false;
+        }
+        OutputElementGroup elementGroup = query.getResult().getDefaultElementGroup();
+        return elementGroup == null || isIndependentElementGroup(elementGroup, visitedQueries);
+    }
+
+    private static boolean isIndependentElementGroup(OutputElementGroup elementGroup, Set<Query> visitedQueries) {
+        for (StaticOutputElement attribute : elementGroup.getAttributeEntries()) {
+            if (attribute.getExport() != null) {
+                return false;
+            }
+        }
+        for (StaticOutputElement element : elementGroup.getElementEntries()) {
+            if (element.getExport() != null) {
+                return false;
+            }
+        }
+        for (CallQuery callQuery : elementGroup.getCallQueryEntries()) {
+            if (!isIndependentReadQuery(callQuery.getQuery(), visitedQueries)) {
+                return false;
+            }
+        }
+        for (OutputElementGroup childGroup : elementGroup.getOutputElementGroupEntries()) {
+            if (!isIndependentElementGroup(childGroup, visitedQueries)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Helper method to finish the transaction.
      *
@@ -29,7 +29,9 @@ import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -49,6 +51,11 @@ public class CallQuery extends OutputElement {
 	/* key - target query's query-param name, value - withparam */
     private Map<String, WithParam> withParams;
 
+	/* the result entries of the call-queries which are executed in a batch for a page of parent rows,
+	 * grouped by the value of the batched query param */
+	private static ThreadLocal<Map<CallQuery, Map<String, List<DataEntry>>>> prefetchedEntries =
+			ThreadLocal.withInitial(IdentityHashMap::new);
+
 	public CallQuery(DataService dataService, String queryId, Map<String, WithParam> withParams,
 			Set<String> requiredRoles) {
         super(null, requiredRoles);
@@ -276,8 +283,17 @@ public class CallQuery extends OutputElement {
             this.processDefaultValues(params);
 		    /* convert/filter params according to the WithParams */
             Map<String, ParamValue> qparams = extractParams(params);
-		    /* execute query */
-            this.getQuery().execute(xmlWriter, qparams, queryLevel);
+		    /* execute query, unless its result is already fetched in a batch */
+            Map<String, List<DataEntry>> batchEntries = prefetchedEntries.get().remove(this);
+            if (batchEntries == null) {
+                this.getQuery().execute(xmlWriter, qparams, queryLevel);
+            } else {
+                try {
+                    this.writePrefetchedResult(xmlWriter, qparams, batchEntries, queryLevel);
+                } finally {
+                    prefetchedEntries.get().put(this, batchEntries);
+                }
+            }
 		    /* clear temp values */
             params.clearTempValues();
 
@@ -290,6 +306,51 @@ public class CallQuery extends OutputElement {
         }
     }
 
+    private void writePrefetchedResult(XMLStreamWriter xmlWriter, Map<String, ParamValue> qparams,
+                                       Map<String, List<DataEntry>> batchEntries, int queryLevel)
+            throws DataServiceFault {
+        SQLQuery sqlQuery = (SQLQuery) this.getQuery();
+        ParamValue keyValue = qparams.get(sqlQuery.getNestedQueryKeyParam());
+        List<DataEntry> entries = null;
+        /* a null value does not match any row */
+        if (keyValue != null && keyValue.getScalarValue() != null) {
+            entries = batchEntries.get(sqlQuery.toNestedQueryKey(keyValue.getScalarValue()));
+        }
+        sqlQuery.writePrefetchedResult(xmlWriter, qparams,
+                entries != null ? entries : Collections.<DataEntry>emptyList(), queryLevel);
+    }
+
+    /**
+     * Returns the value which is passed to the given query param of the called query, when this
+     * call-query is executed with the given params, or null if there is no value.
+     */
+    public ParamValue extractParamValue(ExternalParamCollection params, String queryParamName)
+            throws DataServiceFault {
+        this.processDefaultValues(params);
+        try {
+            return this.extractParams(params).get(queryParamName);
+        } finally {
+            params.clearTempValues();
+        }
+    }
+
+    /**
+     * Sets the result entries of the called query, which are fetched in a batch for the parent rows
+     * written next, and returns the previously set entries.
+     *
+     * @param callQuery the call-query
+     * @param entries   the result entries grouped by the value of the batched query param, or null to
+     *                  execute the query again for each parent row
+     * @return the previous result entries, or null
+     */
+    public static Map<String, List<DataEntry>> setPrefetchedEntries(CallQuery callQuery,
+                                                                    Map<String, List<DataEntry>> entries) {
+        if (entries == null) {
+            return prefetchedEntries.get().remove(callQuery);
+        }
+        return prefetchedEntries.get().put(callQuery, entries);
+    }
+
     /**
 	 * Convert's a call-query's ExternalParams to parameters (parameter map)
 	 * that can be passed into actual query objects, by making necessary
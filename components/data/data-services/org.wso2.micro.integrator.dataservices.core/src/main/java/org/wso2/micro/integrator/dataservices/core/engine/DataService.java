@@ -170,6 +170,11 @@ public class DataService implements AxisResources {
      */
     private boolean disableLegacyBoxcarringMode;
 
+    /**
+     * flag to check if the independent read requests of a request box are executed in parallel
+     */
+    private boolean parallelRequestBoxEnabled;
+
     /**
      * The tenant to which this service belongs to.
      */
@@ -369,6 +374,14 @@ public class DataService implements AxisResources {
         this.disableLegacyBoxcarringMode = disableLegacyBoxcarringMode;
     }
 
+    public boolean isParallelRequestBoxEnabled() {
+        return this.parallelRequestBoxEnabled;
+    }
+
+    public void setParallelRequestBoxEnabled(boolean parallelRequestBoxEnabled) {
+        this.parallelRequestBoxEnabled = parallelRequestBoxEnabled;
+    }
+
     public DSSXATransactionManager getDSSTxManager() {
         return txManager;
     }
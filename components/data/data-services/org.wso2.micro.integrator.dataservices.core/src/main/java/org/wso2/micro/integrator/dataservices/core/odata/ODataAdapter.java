@@ -197,6 +197,7 @@ public class ODataAdapter implements ServiceHandler {
         EdmEntityType entityType;
         Entity parentEntity;
         EdmEntitySet edmEntitySet;
+        ODataQuery query = null;
         EntityDetails details = new EntityDetails();
         String baseURL = request.getODataRequest().getRawBaseUri();
         UriInfo uriInfo = request.getUriInfo();
@@ -215,7 +216,8 @@ public class ODataAdapter implements ServiceHandler {
                         details.eTagMatched = true;
                     }
                 } else {
-                    entitySet = getEntityCollection(edmEntitySet.getName(), baseURL);
+                    query = createODataQuery(request, uriInfo);
+                    entitySet = getEntityCollection(edmEntitySet.getName(), query, baseURL);
                 }
             }
             ExpandOption expandOption = uriInfo.getExpandOption();
@@ -300,26 +302,29 @@ public class ODataAdapter implements ServiceHandler {
             SkipOption skipOption = uriInfo.getSkipOption();
             TopOption topOption = uriInfo.getTopOption();
             SkipTokenOption skipTokenOption = uriInfo.getSkipTokenOption();
-            if (filterOption != null) {
+            if (filterOption != null && (query == null || !query.isFilterApplied())) {
                 QueryHandler.applyFilterSystemQuery(filterOption, details.entitySet, edmEntitySet);
             }
             if (countOption != null) {
                 QueryHandler.applyCountSystemQueryOption(countOption, details.entitySet);
             }
-            if (orderByOption != null) {
+            if (orderByOption != null && (query == null || !query.isOrderByApplied())) {
                 QueryHandler.applyOrderByOption(orderByOption, details.entitySet, edmEntitySet);
             }
-            if (skipOption != null) {
+            boolean pagingApplied = query != null && query.isPagingApplied();
+            if (skipOption != null && !pagingApplied) {
                 QueryHandler.applySkipSystemQueryHandler(skipOption, details.entitySet);
             }
-            if (topOption != null) {
+            if (topOption != null && !pagingApplied) {
                 QueryHandler.applyTopSystemQueryOption(topOption, details.entitySet);
             }
             if (skipTokenOption != null) {
-                int pageSize = request.getOdata().createPreferences(request.getODataRequest()
-                                                                           .getHeaders(HttpHeader.PREFER))
-                                      .getMaxPageSize();
-                QueryHandler.applyServerSidePaging(skipTokenOption, details.entitySet, edmEntitySet, baseURL, pageSize);
+                if (query != null && query.isServerPagingApplied()) {
+                    QueryHandler.applyKeysetServerSidePaging(query, details.entitySet, edmEntitySet, baseURL);
+                } else {
+                    QueryHandler.applyServerSidePaging(skipTokenOption, details.entitySet, edmEntitySet, baseURL,
+                                                       getPreferredPageSize(request));
+                }
             }
             return details;
         } catch (ODataServiceFault dataServiceFault) {
@@ -1349,14 +1354,58 @@ public class ODataAdapter implements ServiceHandler {
     }
 
     /**
-     * This method returns the entity collection from the ODataDataHandler
+     * This method returns the entity collection from the ODataDataHandler, with the query options which could be
+     * applied by the data handler.
      *
      * @param tableName Name of the table
+     * @param query     Query options
+     * @param baseUrl   Base url
      * @return EntityCollection
      * @throws ODataServiceFault
      */
-    private EntityCollection getEntityCollection(String tableName, String baseUrl) throws ODataServiceFault {
-        return createEntityCollectionFromDataEntryList(tableName, this.dataHandler.readTable(tableName), baseUrl);
+    private EntityCollection getEntityCollection(String tableName, ODataQuery query, String baseUrl)
+            throws ODataServiceFault {
+        return createEntityCollectionFromDataEntryList(tableName, this.dataHandler.readTable(tableName, query),
+                                                       baseUrl);
+    }
+
+    /**
+     * This method creates the query options which can be pushed down to the data handler.
+     * Paging is not pushed down when the count is requested or server-side paging is used, since both of them
+     * need the whole filtered collection. Server-side paging itself is pushed down as a keyset position when the
+     * entities are read in primary key order, i.e. when no $orderby, $skip, $top or $count is requested.
+     *
+     * @param request DataRequest
+     * @param uriInfo Uri info
+     * @return ODataQuery
+     * @throws ODataApplicationException
+     */
+    private ODataQuery createODataQuery(DataRequest request, UriInfo uriInfo) throws ODataApplicationException {
+        Integer skip = null;
+        Integer top = null;
+        SkipOption skipOption = uriInfo.getSkipOption();
+        TopOption topOption = uriInfo.getTopOption();
+        CountOption countOption = uriInfo.getCountOption();
+        boolean countRequested = countOption != null && countOption.getValue();
+        boolean validPaging = (skipOption == null || skipOption.getValue() >= 0) &&
+                              (topOption == null || topOption.getValue() >= 0);
+        if (!countRequested && uriInfo.getSkipTokenOption() == null && validPaging) {
+            skip = skipOption == null ? null : skipOption.getValue();
+            top = topOption == null ? null : topOption.getValue();
+        }
+        ODataQuery query = new ODataQuery(uriInfo.getFilterOption(), uriInfo.getOrderByOption(), skip, top);
+        SkipTokenOption skipTokenOption = uriInfo.getSkipTokenOption();
+        if (skipTokenOption != null && QueryHandler.isKeysetSkipToken(skipTokenOption) && countOption == null &&
+            uriInfo.getOrderByOption() == null && skipOption == null && topOption == null) {
+            query.setServerPaging(QueryHandler.getPageSize(getPreferredPageSize(request)),
+                                  QueryHandler.decodeSkipToken(skipTokenOption));
+        }
+        return query;
+    }
+
+    private Integer getPreferredPageSize(DataRequest request) {
+        return request.getOdata().createPreferences(request.getODataRequest().getHeaders(HttpHeader.PREFER))
+                      .getMaxPageSize();
     }
 
     /**
@@ -39,6 +39,21 @@ public interface ODataDataHandler {
      */
     List<ODataEntry> readTable(String tableName) throws ODataServiceFault;
 
+    /**
+     * This method read the table data applying the query options which can be translated to the data source.
+     * Implementations must mark the options they applied in the given query, the rest are applied in memory.
+     * By default no option is applied and the whole table is read.
+     *
+     * @param tableName Name of the table
+     * @param query     Query options of the request
+     * @return EntityCollection
+     * @throws ODataServiceFault
+     * @see ODataQuery
+     */
+    default List<ODataEntry> readTable(String tableName, ODataQuery query) throws ODataServiceFault {
+        return readTable(tableName);
+    }
+
     /**
      * This method read the table with Keys and return.
      * Return a list of DataEntry object which has been wrapped the entity.
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.micro.integrator.dataservices.core.odata;
+
+import org.apache.olingo.server.api.uri.queryoption.FilterOption;
+import org.apache.olingo.server.api.uri.queryoption.OrderByOption;
+
+/**
+ * This class represents the $filter, $orderby, $skip and $top system query options of a read request, which a
+ * data handler may push down to the data source.
+ * A data handler marks the options it has applied, and the remaining options are applied in memory by the adapter.
+ * For server-side paging the query carries the page size and the primary keys of the last entity of the previous
+ * page (keyset position), so that a data handler can read only the requested page.
+ *
+ * @see ODataDataHandler#readTable(String, ODataQuery)
+ */
+public class ODataQuery {
+
+    private final FilterOption filterOption;
+
+    private final OrderByOption orderByOption;
+
+    private final Integer skip;
+
+    private final Integer top;
+
+    private boolean filterApplied;
+
+    private boolean orderByApplied;
+
+    private boolean pagingApplied;
+
+    private Integer pageSize;
+
+    private ODataEntry pageStartKeys;
+
+    private boolean serverPagingApplied;
+
+    private ODataEntry nextPageKeys;
+
+    public ODataQuery(FilterOption filterOption, OrderByOption orderByOption, Integer skip, Integer top) {
+        this.filterOption = filterOption;
+        this.orderByOption = orderByOption;
+        this.skip = skip;
+        this.top = top;
+    }
+
+    public FilterOption getFilterOption() {
+        return filterOption;
+    }
+
+    public OrderByOption getOrderByOption() {
+        return orderByOption;
+    }
+
+    public Integer getSkip() {
+        return skip;
+    }
+
+    public Integer getTop() {
+        return top;
+    }
+
+    public boolean hasPaging() {
+        return skip != null || top != null;
+    }
+
+    public boolean isFilterApplied() {
+        return filterApplied;
+    }
+
+    public void setFilterApplied(boolean filterApplied) {
+        this.filterApplied = filterApplied;
+    }
+
+    public boolean isOrderByApplied() {
+        return orderByApplied;
+    }
+
+    public void setOrderByApplied(boolean orderByApplied) {
+        this.orderByApplied = orderByApplied;
+    }
+
+    /**
+     * Returns whether both $skip and $top have been applied by the data handler.
+     * Paging can only be applied after the filter and order by options have been applied at the data source.
+     *
+     * @return true if paging is applied
+     */
+    public boolean isPagingApplied() {
+        return pagingApplied;
+    }
+
+    public void setPagingApplied(boolean pagingApplied) {
+        this.pagingApplied = pagingApplied;
+    }
+
+    /**
+     * Returns the server-side page size, or null if server-side paging is not requested.
+     *
+     * @return page size
+     */
+    public Integer getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Returns the primary keys of the last entity of the previous page, or null when reading the first page.
+     *
+     * @return keyset position
+     */
+    public ODataEntry getPageStartKeys() {
+        return pageStartKeys;
+    }
+
+    public void setServerPaging(Integer pageSize, ODataEntry pageStartKeys) {
+        this.pageSize = pageSize;
+        this.pageStartKeys = pageStartKeys;
+    }
+
+    public boolean isServerPagingApplied() {
+        return serverPagingApplied;
+    }
+
+    public void setServerPagingApplied(boolean serverPagingApplied) {
+        this.serverPagingApplied = serverPagingApplied;
+    }
+
+    /**
+     * Returns the primary keys of the last entity of the page read by the data handler, or null if there are no
+     * more pages.
+     *
+     * @return keyset position of the next page
+     */
+    public ODataEntry getNextPageKeys() {
+        return nextPageKeys;
+    }
+
+    public void setNextPageKeys(ODataEntry nextPageKeys) {
+        this.nextPageKeys = nextPageKeys;
+    }
+}
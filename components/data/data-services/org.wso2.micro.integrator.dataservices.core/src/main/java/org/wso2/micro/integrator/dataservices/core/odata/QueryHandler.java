@@ -34,8 +34,14 @@ import org.apache.olingo.server.api.uri.queryoption.TopOption;
 import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
 import org.wso2.micro.integrator.dataservices.core.odata.expression.ExpressionVisitorImpl;import org.wso2.micro.integrator.dataservices.core.odata.expression.operand.TypedOperand;import org.wso2.micro.integrator.dataservices.core.odata.expression.operand.VisitorOperand;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
@@ -45,6 +51,13 @@ public class QueryHandler {
 
     private static final int MAX_PAGE_SIZE = 10;
 
+    /**
+     * Prefix of the skip tokens which encode the primary keys of the last entity of a page.
+     */
+    private static final String KEYSET_SKIP_TOKEN_PREFIX = "k";
+
+    private static final String FIRST_PAGE_SKIP_TOKEN = "0";
+
     /**
      * This method applies count query option to the given entity collection.
      *
@@ -74,8 +87,9 @@ public class QueryHandler {
                         filterOption.getExpression().accept(new ExpressionVisitorImpl(iter.next(), edmEntitySet));
                 final TypedOperand typedOperand = operand.asTypedOperand();
 
-                if (typedOperand.is(ODataConstants.primitiveBoolean)) {
-                    if (Boolean.FALSE.equals(typedOperand.getTypedValue(Boolean.class))) {
+                if (typedOperand.is(ODataConstants.primitiveBoolean) || typedOperand.isNull()) {
+                    // Entities for which the filter evaluates to false or null are omitted.
+                    if (!Boolean.TRUE.equals(typedOperand.getValue())) {
                         iter.remove();
                     }
                 } else {
@@ -172,7 +186,7 @@ public class QueryHandler {
                 reduceToSize(entityCollection, pageSize);
                 // Determine if a new next Link has to be provided.
                 if (remainingItems > pageSize) {
-                    entityCollection.setNext(createNextLink(rawRequestUri, edmEntitySet, page + 1));
+                    entityCollection.setNext(createNextLink(rawRequestUri, edmEntitySet, String.valueOf(page + 1)));
                 }
             } else {
                 throw new ODataApplicationException("Nothing found.", HttpStatusCode.NOT_FOUND.getStatusCode(),
@@ -183,18 +197,112 @@ public class QueryHandler {
         return null;
     }
 
+    /**
+     * This method applies server-side paging for a page which has been read by the data handler using the keyset
+     * position of the skip token. Only the next link has to be provided, as the collection holds just the page.
+     * As with the page numbers, a page past the last entity is reported as not found.
+     *
+     * @param query            Query applied by the data handler
+     * @param entityCollection Entity collection of the page
+     * @param edmEntitySet     EDM entity set
+     * @param rawRequestUri    Request URI (used to construct the next link)
+     * @throws ODataApplicationException
+     */
+    public static void applyKeysetServerSidePaging(final ODataQuery query, EntityCollection entityCollection,
+                                                   final EdmEntitySet edmEntitySet, final String rawRequestUri)
+            throws ODataApplicationException {
+        if (query.getPageStartKeys() != null && entityCollection.getEntities().isEmpty()) {
+            throw new ODataApplicationException("Nothing found.", HttpStatusCode.NOT_FOUND.getStatusCode(),
+                                                Locale.ROOT);
+        }
+        if (query.getNextPageKeys() != null) {
+            entityCollection.setNext(createNextLink(rawRequestUri, edmEntitySet,
+                                                    encodeSkipToken(query.getNextPageKeys())));
+        }
+    }
+
+    /**
+     * This method checks whether the skip token can be served using a keyset position, which is the case for
+     * the first page and for the tokens issued by keyset paging.
+     *
+     * @param skipTokenOption Skip token option
+     * @return true if the skip token is a keyset skip token
+     */
+    public static boolean isKeysetSkipToken(final SkipTokenOption skipTokenOption) {
+        final String value = skipTokenOption.getValue();
+        return FIRST_PAGE_SKIP_TOKEN.equals(value) || (value != null && value.startsWith(KEYSET_SKIP_TOKEN_PREFIX));
+    }
+
+    /**
+     * This method decodes the primary keys of the last entity of the previous page from the skip token.
+     *
+     * @param skipTokenOption Skip token option
+     * @return keys of the last entity of the previous page, null for the first page
+     * @throws ODataApplicationException
+     */
+    public static ODataEntry decodeSkipToken(final SkipTokenOption skipTokenOption) throws ODataApplicationException {
+        final String value = skipTokenOption.getValue();
+        if (FIRST_PAGE_SKIP_TOKEN.equals(value)) {
+            return null;
+        }
+        try {
+            byte[] token = Base64.getUrlDecoder().decode(value.substring(KEYSET_SKIP_TOKEN_PREFIX.length()));
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(token));
+            ODataEntry keys = new ODataEntry();
+            int count = in.readInt();
+            if (count < 1) {
+                throw new IllegalArgumentException("No keys in the skip token");
+            }
+            for (int i = 0; i < count; i++) {
+                keys.addValue(in.readUTF(), in.readUTF());
+            }
+            if (in.available() > 0) {
+                throw new IllegalArgumentException("Unexpected data in the skip token");
+            }
+            return keys;
+        } catch (IllegalArgumentException | IOException e) {
+            throw new ODataApplicationException("Invalid skip token", HttpStatusCode.BAD_REQUEST.getStatusCode(),
+                                                Locale.ROOT, e);
+        }
+    }
+
+    /**
+     * This method encodes the primary keys of the last entity of a page to a skip token.
+     *
+     * @param keys Primary keys of the last entity of the page
+     * @return skip token
+     * @throws ODataApplicationException
+     */
+    private static String encodeSkipToken(final ODataEntry keys) throws ODataApplicationException {
+        try {
+            ByteArrayOutputStream token = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(token);
+            out.writeInt(keys.getNames().size());
+            for (String name : keys.getNames()) {
+                out.writeUTF(name);
+                out.writeUTF(keys.getValue(name));
+            }
+            out.flush();
+            return KEYSET_SKIP_TOKEN_PREFIX +
+                   Base64.getUrlEncoder().withoutPadding().encodeToString(token.toByteArray());
+        } catch (IOException e) {
+            throw new ODataApplicationException("Exception while constructing skip token",
+                                                HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), Locale.ROOT, e);
+        }
+    }
+
     /**
      * This method creates next url link.
      *
      * @param rawRequestUri Request uri
      * @param entitySet     EntitySet
-     * @param page          Page num
+     * @param skipToken     Skip token of the next page
      * @return uri
      * @throws ODataApplicationException
      */
-    private static URI createNextLink(final String rawRequestUri, final EdmEntitySet entitySet, final int page)
-            throws ODataApplicationException {
-        String nextLink = rawRequestUri + "/" + entitySet.getName() + "?$skiptoken=" + page;
+    private static URI createNextLink(final String rawRequestUri, final EdmEntitySet entitySet,
+                                      final String skipToken) throws ODataApplicationException {
+        String nextLink = rawRequestUri + "/" + entitySet.getName() + "?$skiptoken=" + skipToken;
         try {
             return new URI(nextLink);
         } catch (final URISyntaxException e) {
@@ -209,7 +317,7 @@ public class QueryHandler {
      * @param preferredPageSize Preferred page size
      * @return page size
      */
-    private static int getPageSize(final Integer preferredPageSize) {
+    public static int getPageSize(final Integer preferredPageSize) {
         return preferredPageSize == null ? MAX_PAGE_SIZE : preferredPageSize;
     }
 
@@ -222,12 +330,23 @@ public class QueryHandler {
      */
     private static int getPage(final SkipTokenOption skipTokenOption) throws ODataApplicationException {
         final String value = skipTokenOption.getValue();
+        if (value != null && value.startsWith(KEYSET_SKIP_TOKEN_PREFIX)) {
+            // Keyset skip tokens are only valid for the query options they were issued for.
+            throw new ODataApplicationException("Invalid skip token", HttpStatusCode.BAD_REQUEST.getStatusCode(),
+                                                Locale.ROOT);
+        }
+        final int page;
         try {
-            return Integer.parseInt(value);
+            page = Integer.parseInt(value);
         } catch (final NumberFormatException e) {
             throw new ODataApplicationException("Invalid skip token", HttpStatusCode.BAD_REQUEST.getStatusCode(),
                                                 Locale.ROOT, e);
         }
+        if (page < 0) {
+            throw new ODataApplicationException("Invalid skip token", HttpStatusCode.BAD_REQUEST.getStatusCode(),
+                                                Locale.ROOT);
+        }
+        return page;
     }
 
     /**
@@ -22,8 +22,19 @@ import org.apache.axis2.databinding.utils.ConverterUtil;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceProperty;
+import org.apache.olingo.server.api.uri.queryoption.OrderByItem;
+import org.apache.olingo.server.api.uri.queryoption.OrderByOption;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.api.uri.queryoption.expression.Member;
 import org.wso2.micro.integrator.dataservices.common.DBConstants;
 import org.wso2.micro.integrator.dataservices.core.odata.DataColumn.ODataDataType;
+import org.wso2.micro.integrator.dataservices.core.odata.expression.SQLExpressionVisitor;
+import org.wso2.micro.integrator.dataservices.core.odata.expression.SQLExpressionVisitor.SQLFragment;
+import org.wso2.micro.integrator.dataservices.core.odata.expression.SQLExpressionVisitor.SQLParameter;
 import org.wso2.micro.integrator.dataservices.core.DBUtils;
 import org.wso2.micro.integrator.dataservices.core.DataServiceFault;
 import org.wso2.micro.integrator.dataservices.core.engine.DataEntry;
@@ -52,6 +63,7 @@ import java.util.Calendar;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * This class implements RDBMS datasource related operations for ODataDataHandler.
@@ -92,6 +104,15 @@ public class RDBMSDataHandler implements ODataDataHandler {
     public static final String VIEW = "VIEW";
     public static final String ORACLE_SERVER = "oracle";
     public static final String MSSQL_SERVER = "microsoft sql server";
+    public static final String MYSQL_SERVER = "mysql";
+    public static final String MARIADB_SERVER = "mariadb";
+    public static final String POSTGRESQL_SERVER = "postgresql";
+    public static final String H2_SERVER = "h2";
+
+    /**
+     * Row count used with MySQL LIMIT to skip rows without limiting the result.
+     */
+    private static final String MYSQL_MAX_ROWS = "18446744073709551615";
 
     private ThreadLocal<Connection> transactionalConnection = new ThreadLocal<Connection>() {
         protected synchronized Connection initialValue() {
@@ -102,6 +123,26 @@ public class RDBMSDataHandler implements ODataDataHandler {
     private boolean defaultAutoCommit;
     private int defaultTransactionalIsolation;
 
+    /**
+     * Database product name in lower case, used to generate the paging clause.
+     */
+    private String databaseProductName;
+
+    /**
+     * String used to quote the SQL identifiers, empty if the database does not support quoting.
+     */
+    private String identifierQuote;
+
+    /**
+     * Whether the default collation of the database compares strings for equality as String.equals does.
+     */
+    private boolean exactStringEquality;
+
+    /**
+     * Whether the default collation of the database orders strings as String.compareTo does.
+     */
+    private boolean exactStringOrdering;
+
     /**
      * Navigation properties map <Target Table Name, Map<Source Table Name, List<String>).
      */
@@ -390,6 +431,352 @@ public class RDBMSDataHandler implements ODataDataHandler {
         }
     }
 
+    @Override
+    public List<ODataEntry> readTable(String tableName, ODataQuery query) throws ODataServiceFault {
+        StringBuilder sql = new StringBuilder();
+        sql.append("SELECT * FROM ").append(quoteIdentifier(tableName));
+        List<SQLParameter> parameters = new ArrayList<>();
+        if (query.getFilterOption() != null) {
+            SQLFragment condition = createFilterCondition(tableName, query.getFilterOption().getExpression());
+            if (condition == null) {
+                // Order by and paging can not be applied before the filter, hence read the whole table.
+                return readTable(tableName);
+            }
+            sql.append(" WHERE ").append(condition.getSql());
+            parameters.addAll(condition.getParameters());
+            query.setFilterApplied(true);
+        }
+        boolean applyServerPaging = isKeysetPagingApplicable(tableName, query);
+        if (applyServerPaging && query.getPageStartKeys() != null) {
+            SQLFragment keysetCondition = createKeysetCondition(tableName, query.getPageStartKeys());
+            sql.append(query.isFilterApplied() ? " AND " : " WHERE ").append(keysetCondition.getSql());
+            parameters.addAll(keysetCondition.getParameters());
+        }
+        String orderByClause = null;
+        if (query.getOrderByOption() != null) {
+            orderByClause = createOrderByClause(tableName, query.getOrderByOption());
+            if (orderByClause != null) {
+                query.setOrderByApplied(true);
+            }
+        }
+        boolean applyPaging = query.hasPaging() && (query.getOrderByOption() == null || query.isOrderByApplied());
+        if (applyPaging || applyServerPaging) {
+            // Rows must be in a deterministic order for the pages to be consistent.
+            orderByClause = appendPrimaryKeysToOrderBy(tableName, orderByClause);
+        }
+        if (orderByClause != null) {
+            sql.append(" ORDER BY ").append(orderByClause);
+        }
+        int skip = query.getSkip() == null ? 0 : query.getSkip();
+        Integer top = query.getTop();
+        if (applyServerPaging) {
+            // One more row than the page is read to find out whether there is a next page.
+            top = query.getPageSize() < Integer.MAX_VALUE ? Integer.valueOf(query.getPageSize() + 1) : null;
+        }
+        boolean pagingClauseSupported = false;
+        if (applyPaging || applyServerPaging) {
+            pagingClauseSupported = appendPagingClause(sql, orderByClause != null, skip, top);
+            query.setPagingApplied(applyPaging);
+        }
+        ResultSet resultSet = null;
+        Connection connection = null;
+        PreparedStatement statement = null;
+        try {
+            connection = initializeConnection();
+            statement = connection.prepareStatement(sql.toString());
+            int index = 1;
+            for (SQLParameter parameter : parameters) {
+                bindValuesToPreparedStatement(parameter.getSqlType(), parameter.getValue(), index, statement);
+                index++;
+            }
+            if ((applyPaging || applyServerPaging) && !pagingClauseSupported && top != null) {
+                long maxRows = (long) skip + top;
+                // Rows beyond the int range can not be limited by the driver, hence the result is not limited.
+                statement.setMaxRows(maxRows > Integer.MAX_VALUE ? 0 : (int) maxRows);
+            }
+            resultSet = statement.executeQuery();
+            if (applyPaging && !pagingClauseSupported) {
+                int skipped = 0;
+                while (skipped < skip && resultSet.next()) {
+                    skipped++;
+                }
+            }
+            List<ODataEntry> entries = createDataEntryCollectionFromRS(tableName, resultSet);
+            if (applyServerPaging) {
+                if (entries.size() > query.getPageSize()) {
+                    entries.remove(entries.size() - 1);
+                    query.setNextPageKeys(getPrimaryKeyValues(tableName, entries.get(entries.size() - 1)));
+                }
+                query.setServerPagingApplied(true);
+            }
+            return entries;
+        } catch (SQLException | ParseException e) {
+            throw new ODataServiceFault(e, "Error occurred while reading entities from " + tableName + " table. :" +
+                                           e.getMessage());
+        } finally {
+            releaseResources(resultSet, statement);
+            releaseConnection(connection);
+        }
+    }
+
+    /**
+     * This method checks whether the server-side paging of the query can be done using the primary keys of the
+     * table, which requires the entities to be read in primary key order, and the page start keys of the skip
+     * token to be values of the primary keys of the table.
+     *
+     * @param tableName Name of the table
+     * @param query     Query
+     * @return true if keyset paging can be applied
+     */
+    private boolean isKeysetPagingApplicable(String tableName, ODataQuery query) {
+        List<String> keys = this.primaryKeys.get(tableName);
+        if (query.getPageSize() == null || query.getPageSize() < 1 || keys == null || keys.isEmpty() ||
+            query.getOrderByOption() != null || query.hasPaging()) {
+            return false;
+        }
+        ODataEntry pageStartKeys = query.getPageStartKeys();
+        if (pageStartKeys == null) {
+            return true;
+        }
+        // The skip token is sent back by the client, hence it may not hold valid keys of the table.
+        Map<String, Integer> columnTypes = this.rdbmsDataTypes.get(tableName);
+        for (String key : keys) {
+            if (!isValidKeyValue(columnTypes.get(key), pageStartKeys.getValue(key))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * This method checks whether the primary key value of the skip token can be bound as a value of the column.
+     *
+     * @param type  SQL type of the column
+     * @param value Value of the skip token
+     * @return true if the value is valid
+     */
+    private boolean isValidKeyValue(int type, String value) {
+        if (value == null) {
+            return false;
+        }
+        try {
+            switch (type) {
+                case Types.INTEGER:
+                    ConverterUtil.convertToInt(value);
+                    break;
+                case Types.TINYINT:
+                    ConverterUtil.convertToByte(value);
+                    break;
+                case Types.SMALLINT:
+                    ConverterUtil.convertToShort(value);
+                    break;
+                case Types.BIGINT:
+                    ConverterUtil.convertToLong(value);
+                    break;
+                case Types.DOUBLE:
+                    ConverterUtil.convertToDouble(value);
+                    break;
+                case Types.FLOAT:
+                    /* fall through */
+                case Types.REAL:
+                    ConverterUtil.convertToFloat(value);
+                    break;
+                case Types.DECIMAL:
+                    /* fall through */
+                case Types.NUMERIC:
+                    ConverterUtil.convertToBigDecimal(value);
+                    break;
+                case Types.DATE:
+                    DBUtils.getDate(value);
+                    break;
+                case Types.TIME:
+                    DBUtils.getTime(value);
+                    break;
+                case Types.TIMESTAMP:
+                    DBUtils.getTimestamp(value);
+                    break;
+                default:
+                    break;
+            }
+            return true;
+        } catch (IllegalArgumentException | DataServiceFault | ParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * This method creates the condition to read the rows after the given primary keys in primary key order,
+     * i.e. (k1 > ?) OR (k1 = ? AND k2 > ?) ... for a composite primary key.
+     *
+     * @param tableName     Name of the table
+     * @param pageStartKeys Primary keys of the last row of the previous page
+     * @return SQL condition
+     */
+    private SQLFragment createKeysetCondition(String tableName, ODataEntry pageStartKeys) {
+        List<String> keys = this.primaryKeys.get(tableName);
+        Map<String, Integer> columnTypes = this.rdbmsDataTypes.get(tableName);
+        StringBuilder condition = new StringBuilder("(");
+        List<SQLParameter> parameters = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            if (i > 0) {
+                condition.append(" OR ");
+            }
+            condition.append("(");
+            for (int j = 0; j < i; j++) {
+                String key = keys.get(j);
+                condition.append(quoteIdentifier(key)).append(" = ? AND ");
+                parameters.add(new SQLParameter(columnTypes.get(key), pageStartKeys.getValue(key)));
+            }
+            String key = keys.get(i);
+            condition.append(quoteIdentifier(key)).append(" > ?)");
+            parameters.add(new SQLParameter(columnTypes.get(key), pageStartKeys.getValue(key)));
+        }
+        condition.append(")");
+        return SQLFragment.condition(condition.toString(), parameters);
+    }
+
+    private ODataEntry getPrimaryKeyValues(String tableName, ODataEntry entry) {
+        ODataEntry keys = new ODataEntry();
+        for (String key : this.primaryKeys.get(tableName)) {
+            keys.addValue(key, entry.getValue(key));
+        }
+        return keys;
+    }
+
+    /**
+     * This method translates the filter expression to a SQL condition.
+     *
+     * @param tableName  Name of the table
+     * @param expression Filter expression
+     * @return SQL condition or null if the expression can not be translated
+     */
+    private SQLFragment createFilterCondition(String tableName, Expression expression) {
+        try {
+            SQLFragment condition = expression.accept(
+                    new SQLExpressionVisitor(this.rdbmsDataTypes.get(tableName), this.identifierQuote,
+                                             this.exactStringEquality, this.exactStringOrdering));
+            return condition.isCondition() ? condition : null;
+        } catch (ExpressionVisitException | ODataApplicationException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Filter is applied in memory for " + tableName + " table. :" + e.getMessage());
+            }
+            return null;
+        }
+    }
+
+    /**
+     * This method creates the order by clause for the order by option.
+     * Only ordering by columns is translated, and the null ordering of the in memory sort is preserved for
+     * databases which order nulls last by default. Ordering by a string column is translated only if the database
+     * orders strings as the in memory sort does.
+     *
+     * @param tableName     Name of the table
+     * @param orderByOption Order by option
+     * @return order by clause or null if the order by option can not be translated
+     */
+    private String createOrderByClause(String tableName, OrderByOption orderByOption) {
+        StringBuilder orderBy = new StringBuilder();
+        boolean nullsOrderRequired = this.databaseProductName.contains(ORACLE_SERVER) ||
+                                     this.databaseProductName.contains(POSTGRESQL_SERVER);
+        for (OrderByItem item : orderByOption.getOrders()) {
+            if (!(item.getExpression() instanceof Member)) {
+                return null;
+            }
+            List<UriResource> resourceParts = ((Member) item.getExpression()).getResourcePath().getUriResourceParts();
+            if (resourceParts.size() != 1 || !(resourceParts.get(0) instanceof UriResourceProperty)) {
+                return null;
+            }
+            String column = ((UriResourceProperty) resourceParts.get(0)).getProperty().getName();
+            Integer columnType = this.rdbmsDataTypes.get(tableName).get(column);
+            if (columnType == null || (SQLExpressionVisitor.isStringType(columnType) && !this.exactStringOrdering)) {
+                return null;
+            }
+            if (orderBy.length() > 0) {
+                orderBy.append(", ");
+            }
+            orderBy.append(quoteIdentifier(column)).append(item.isDescending() ? " DESC" : " ASC");
+            if (nullsOrderRequired) {
+                orderBy.append(item.isDescending() ? " NULLS LAST" : " NULLS FIRST");
+            }
+        }
+        return orderBy.toString();
+    }
+
+    private String appendPrimaryKeysToOrderBy(String tableName, String orderByClause) {
+        List<String> keys = this.primaryKeys.get(tableName);
+        if (keys == null || keys.isEmpty()) {
+            return orderByClause;
+        }
+        StringBuilder orderBy = new StringBuilder(orderByClause == null ? "" : orderByClause);
+        for (String key : keys) {
+            if (orderBy.length() > 0) {
+                orderBy.append(", ");
+            }
+            orderBy.append(quoteIdentifier(key));
+        }
+        return orderBy.toString();
+    }
+
+    /**
+     * This method quotes the table or column name with the identifier quote string of the database.
+     *
+     * @param identifier Table or column name
+     * @return quoted identifier
+     */
+    private String quoteIdentifier(String identifier) {
+        return quoteIdentifier(identifier, this.identifierQuote);
+    }
+
+    /**
+     * This method quotes the identifier with the given quote string, doubling any quote string in the identifier.
+     *
+     * @param identifier Table or column name
+     * @param quote      Identifier quote string, empty if the identifiers are not quoted
+     * @return quoted identifier
+     */
+    public static String quoteIdentifier(String identifier, String quote) {
+        if (quote == null || quote.isEmpty()) {
+            return identifier;
+        }
+        return quote + identifier.replace(quote, quote + quote) + quote;
+    }
+
+    /**
+     * This method appends the paging clause of the database to the query.
+     *
+     * @param sql     SQL query
+     * @param ordered Whether the query has an order by clause
+     * @param skip    Number of rows to skip
+     * @param top     Number of rows to return, null if not limited
+     * @return false if the database paging clause is not known, and the paging has to be done on the result set
+     */
+    private boolean appendPagingClause(StringBuilder sql, boolean ordered, int skip, Integer top) {
+        if (this.databaseProductName.contains(ORACLE_SERVER) || this.databaseProductName.contains(MSSQL_SERVER)) {
+            if (!ordered && this.databaseProductName.contains(MSSQL_SERVER)) {
+                // OFFSET FETCH clause requires an order by clause in MSSQL.
+                sql.append(" ORDER BY (SELECT NULL)");
+            }
+            sql.append(" OFFSET ").append(skip).append(" ROWS");
+            if (top != null) {
+                sql.append(" FETCH NEXT ").append(top).append(" ROWS ONLY");
+            }
+            return true;
+        } else if (this.databaseProductName.contains(MYSQL_SERVER) ||
+                   this.databaseProductName.contains(MARIADB_SERVER)) {
+            sql.append(" LIMIT ").append(top == null ? MYSQL_MAX_ROWS : String.valueOf(top));
+            sql.append(" OFFSET ").append(skip);
+            return true;
+        } else if (this.databaseProductName.contains(POSTGRESQL_SERVER) ||
+                   this.databaseProductName.contains(H2_SERVER)) {
+            if (top != null) {
+                sql.append(" LIMIT ").append(top);
+            }
+            sql.append(" OFFSET ").append(skip);
+            return true;
+        }
+        return false;
+    }
+
     @Override
     public List<String> getTableList() {
         return this.tableList;
@@ -1080,6 +1467,15 @@ public class RDBMSDataHandler implements ODataDataHandler {
         try {
             connection = initializeConnection();
             DatabaseMetaData metadata = connection.getMetaData();
+            this.databaseProductName = metadata.getDatabaseProductName().toLowerCase();
+            String quote = metadata.getIdentifierQuoteString();
+            this.identifierQuote = quote == null || quote.trim().isEmpty() ? "" : quote.trim();
+            // H2 compares strings with String.compareTo unless a collation is set and PostgreSQL compares them
+            // exactly but orders them by the locale. MySQL, MariaDB and MSSQL are case insensitive by default and
+            // Oracle treats an empty string as null.
+            this.exactStringOrdering = this.databaseProductName.contains(H2_SERVER);
+            this.exactStringEquality =
+                    this.exactStringOrdering || this.databaseProductName.contains(POSTGRESQL_SERVER);
             String catalog = connection.getCatalog();
             for (String tableName : this.tableList) {
                 this.tableMetaData.put(tableName, readTableColumnMetaData(tableName, metadata));
@@ -1137,7 +1533,8 @@ public class RDBMSDataHandler implements ODataDataHandler {
     }
 
     /**
-     * This method reads primary keys of the table.
+     * This method reads primary keys of the table, in the order of the columns in the primary key, so that the
+     * keyset paging orders the rows as the primary key index does.
      *
      * @param tableName Name of the table
      * @return primary key list
@@ -1146,7 +1543,8 @@ public class RDBMSDataHandler implements ODataDataHandler {
     private List<String> readTablePrimaryKeys(String tableName, DatabaseMetaData metaData, String catalog)
             throws ODataServiceFault {
         ResultSet resultSet = null;
-        List<String> keys = new ArrayList<>();
+        // The primary key columns are returned in the order of the column names.
+        Map<Short, String> keys = new TreeMap<>();
         try {
             if (metaData.getDatabaseProductName().toLowerCase().contains(ORACLE_SERVER)) {
                 resultSet = metaData.getPrimaryKeys(catalog, metaData.getUserName(), tableName);
@@ -1155,9 +1553,9 @@ public class RDBMSDataHandler implements ODataDataHandler {
             }
             while (resultSet.next()) {
                 String primaryKey = resultSet.getString("COLUMN_NAME");
-                keys.add(primaryKey);
+                keys.put(resultSet.getShort("KEY_SEQ"), primaryKey);
             }
-            return keys;
+            return new ArrayList<>(keys.values());
         } catch (SQLException e) {
             throw new ODataServiceFault(e, "Error in reading table primary keys in " + tableName + " table. :" +
                                            e.getMessage());
@@ -0,0 +1,420 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.dataservices.core.odata.expression;
+
+import org.apache.olingo.commons.api.edm.EdmEnumType;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceProperty;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitor;
+import org.apache.olingo.server.api.uri.queryoption.expression.Literal;
+import org.apache.olingo.server.api.uri.queryoption.expression.Member;
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.UnaryOperatorKind;
+import org.wso2.micro.integrator.dataservices.core.odata.RDBMSDataHandler;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * This class translates an OData filter expression to a SQL condition with positional parameters.
+ * Only comparisons of a column with a literal, logical AND/OR and the contains, startswith and endswith methods are
+ * translated, for any other expression an ExpressionVisitException is thrown so that the caller can fall back to the
+ * in memory filter.
+ * <p>
+ * The in memory filter compares strings with String.equals and String.compareTo, whereas the database compares them
+ * with the collation of the column, which is case insensitive by default in MySQL, MariaDB and MSSQL, and orders
+ * strings by the locale in PostgreSQL and Oracle. Hence string equality and LIKE are translated only if the database
+ * compares strings exactly, and string ranges only if it also orders them by UTF-16 code units.
+ */
+public class SQLExpressionVisitor implements ExpressionVisitor<SQLExpressionVisitor.SQLFragment> {
+
+    private static final String NULL_LITERAL = "null";
+
+    private static final Pattern INTEGER_LITERAL = Pattern.compile("-?\\d+");
+
+    private static final Pattern DECIMAL_LITERAL = Pattern.compile("-?\\d+(\\.\\d+)?");
+
+    /**
+     * Column name to SQL type map of the table.
+     */
+    private final Map<String, Integer> columnTypes;
+
+    /**
+     * Identifier quote string of the database.
+     */
+    private final String identifierQuote;
+
+    /**
+     * Whether the database compares strings for equality as String.equals does.
+     */
+    private final boolean exactStringEquality;
+
+    /**
+     * Whether the database orders strings as String.compareTo does.
+     */
+    private final boolean exactStringOrdering;
+
+    public SQLExpressionVisitor(Map<String, Integer> columnTypes, String identifierQuote,
+                                boolean exactStringEquality, boolean exactStringOrdering) {
+        this.columnTypes = columnTypes;
+        this.identifierQuote = identifierQuote;
+        this.exactStringEquality = exactStringEquality;
+        this.exactStringOrdering = exactStringOrdering;
+    }
+
+    @Override
+    public SQLFragment visitBinaryOperator(final BinaryOperatorKind operator, final SQLFragment left,
+                                           final SQLFragment right)
+            throws ExpressionVisitException, ODataApplicationException {
+        switch (operator) {
+            case AND:
+                return logicalOperation("AND", left, right);
+            case OR:
+                return logicalOperation("OR", left, right);
+            case EQ:
+                /* fall through */
+            case NE:
+                /* fall through */
+            case GE:
+                /* fall through */
+            case GT:
+                /* fall through */
+            case LE:
+                /* fall through */
+            case LT:
+                return comparison(operator, left, right);
+            default:
+                return throwNotTranslatable(operator.name());
+        }
+    }
+
+    @Override
+    public SQLFragment visitUnaryOperator(final UnaryOperatorKind operator, final SQLFragment operand)
+            throws ExpressionVisitException, ODataApplicationException {
+        // NOT over a nullable column does not evaluate as the in memory filter does.
+        return throwNotTranslatable(operator.name());
+    }
+
+    @Override
+    public SQLFragment visitMethodCall(final MethodKind methodCall, final List<SQLFragment> parameters)
+            throws ExpressionVisitException, ODataApplicationException {
+        switch (methodCall) {
+            case CONTAINS:
+                return likeCondition(parameters, "%", "%");
+            case STARTSWITH:
+                return likeCondition(parameters, "", "%");
+            case ENDSWITH:
+                return likeCondition(parameters, "%", "");
+            default:
+                return throwNotTranslatable(methodCall.name());
+        }
+    }
+
+    @Override
+    public SQLFragment visitLambdaExpression(final String lambdaFunction, final String lambdaVariable,
+                                             final Expression expression)
+            throws ExpressionVisitException, ODataApplicationException {
+        return throwNotTranslatable(lambdaFunction);
+    }
+
+    @Override
+    public SQLFragment visitLiteral(Literal literal) throws ExpressionVisitException, ODataApplicationException {
+        return SQLFragment.literal(literal.getText());
+    }
+
+    @Override
+    public SQLFragment visitMember(Member member) throws ExpressionVisitException, ODataApplicationException {
+        final List<UriResource> uriResourceParts = member.getResourcePath().getUriResourceParts();
+        if (uriResourceParts.size() == 1 && uriResourceParts.get(0) instanceof UriResourceProperty) {
+            EdmProperty property = ((UriResourceProperty) uriResourceParts.get(0)).getProperty();
+            if (columnTypes.containsKey(property.getName())) {
+                return SQLFragment.column(property.getName());
+            }
+        }
+        return throwNotTranslatable(member.toString());
+    }
+
+    @Override
+    public SQLFragment visitAlias(final String aliasName) throws ExpressionVisitException, ODataApplicationException {
+        return throwNotTranslatable(aliasName);
+    }
+
+    @Override
+    public SQLFragment visitTypeLiteral(final EdmType type)
+            throws ExpressionVisitException, ODataApplicationException {
+        return throwNotTranslatable(type.getName());
+    }
+
+    @Override
+    public SQLFragment visitLambdaReference(final String variableName)
+            throws ExpressionVisitException, ODataApplicationException {
+        return throwNotTranslatable(variableName);
+    }
+
+    @Override
+    public SQLFragment visitEnum(final EdmEnumType type, final List<String> enumValues)
+            throws ExpressionVisitException, ODataApplicationException {
+        return throwNotTranslatable(type.getName());
+    }
+
+    private SQLFragment logicalOperation(String operator, SQLFragment left, SQLFragment right)
+            throws ExpressionVisitException {
+        if (!left.isCondition() || !right.isCondition()) {
+            return throwNotTranslatable(operator);
+        }
+        List<SQLParameter> parameters = new ArrayList<>(left.getParameters());
+        parameters.addAll(right.getParameters());
+        return SQLFragment.condition("(" + left.getSql() + " " + operator + " " + right.getSql() + ")", parameters);
+    }
+
+    private SQLFragment comparison(BinaryOperatorKind operator, SQLFragment left, SQLFragment right)
+            throws ExpressionVisitException {
+        SQLFragment column;
+        SQLFragment literal;
+        if (left.isColumn() && right.isLiteral()) {
+            column = left;
+            literal = right;
+        } else if (right.isColumn() && left.isLiteral()) {
+            column = right;
+            literal = left;
+            operator = mirror(operator);
+        } else {
+            return throwNotTranslatable(operator.name());
+        }
+        String columnName = RDBMSDataHandler.quoteIdentifier(column.getSql(), identifierQuote);
+        if (NULL_LITERAL.equals(literal.getSql())) {
+            if (operator == BinaryOperatorKind.EQ) {
+                return SQLFragment.condition(columnName + " IS NULL", Collections.<SQLParameter>emptyList());
+            } else if (operator == BinaryOperatorKind.NE) {
+                return SQLFragment.condition(columnName + " IS NOT NULL", Collections.<SQLParameter>emptyList());
+            }
+            return throwNotTranslatable(operator.name());
+        }
+        int columnType = columnTypes.get(column.getSql());
+        if (isStringType(columnType)) {
+            boolean equality = operator == BinaryOperatorKind.EQ || operator == BinaryOperatorKind.NE;
+            if (equality ? !exactStringEquality : !exactStringOrdering) {
+                return throwNotTranslatable(operator.name());
+            }
+        }
+        List<SQLParameter> parameters =
+                Collections.singletonList(new SQLParameter(columnType, toParameterValue(columnType, literal.getSql())));
+        switch (operator) {
+            case EQ:
+                return SQLFragment.condition(columnName + " = ?", parameters);
+            case NE:
+                // The in memory filter treats a null column as not equal to any value.
+                return SQLFragment.condition("(" + columnName + " <> ? OR " + columnName + " IS NULL)", parameters);
+            case GE:
+                return SQLFragment.condition(columnName + " >= ?", parameters);
+            case GT:
+                return SQLFragment.condition(columnName + " > ?", parameters);
+            case LE:
+                return SQLFragment.condition(columnName + " <= ?", parameters);
+            default:
+                return SQLFragment.condition(columnName + " < ?", parameters);
+        }
+    }
+
+    private SQLFragment likeCondition(List<SQLFragment> parameters, String prefix, String suffix)
+            throws ExpressionVisitException {
+        if (parameters.size() != 2 || !parameters.get(0).isColumn() || !parameters.get(1).isLiteral()) {
+            return throwNotTranslatable("method call");
+        }
+        String columnName = parameters.get(0).getSql();
+        int columnType = columnTypes.get(columnName);
+        if (!isStringType(columnType) || !exactStringEquality) {
+            return throwNotTranslatable(columnName);
+        }
+        columnName = RDBMSDataHandler.quoteIdentifier(columnName, identifierQuote);
+        String value = toParameterValue(columnType, parameters.get(1).getSql());
+        if (value.indexOf('%') >= 0 || value.indexOf('_') >= 0 || value.indexOf('\\') >= 0) {
+            // LIKE escaping is not portable across databases.
+            return throwNotTranslatable(value);
+        }
+        return SQLFragment.condition(columnName + " LIKE ?",
+                                     Collections.singletonList(new SQLParameter(columnType, prefix + value + suffix)));
+    }
+
+    private String toParameterValue(int columnType, String literal) throws ExpressionVisitException {
+        if (isStringType(columnType)) {
+            if (literal.length() >= 2 && literal.startsWith("'") && literal.endsWith("'")) {
+                return literal.substring(1, literal.length() - 1).replace("''", "'");
+            }
+        } else if (isIntegerType(columnType)) {
+            if (INTEGER_LITERAL.matcher(literal).matches()) {
+                return literal;
+            }
+        } else if (columnType == Types.DOUBLE || columnType == Types.DECIMAL || columnType == Types.NUMERIC) {
+            if (DECIMAL_LITERAL.matcher(literal).matches()) {
+                return literal;
+            }
+        } else if (columnType == Types.BIT || columnType == Types.BOOLEAN) {
+            if ("true".equals(literal) || "false".equals(literal)) {
+                return literal;
+            }
+        }
+        return throwNotTranslatable(literal);
+    }
+
+    /**
+     * This method checks whether the given SQL type is a character string type.
+     *
+     * @param columnType SQL type
+     * @return true if the type is a character string type
+     */
+    public static boolean isStringType(int columnType) {
+        switch (columnType) {
+            case Types.VARCHAR:
+                /* fall through */
+            case Types.CHAR:
+                /* fall through */
+            case Types.LONGVARCHAR:
+                /* fall through */
+            case Types.NVARCHAR:
+                /* fall through */
+            case Types.NCHAR:
+                /* fall through */
+            case Types.LONGNVARCHAR:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isIntegerType(int columnType) {
+        switch (columnType) {
+            case Types.INTEGER:
+                /* fall through */
+            case Types.TINYINT:
+                /* fall through */
+            case Types.SMALLINT:
+                /* fall through */
+            case Types.BIGINT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static BinaryOperatorKind mirror(BinaryOperatorKind operator) {
+        switch (operator) {
+            case GE:
+                return BinaryOperatorKind.LE;
+            case GT:
+                return BinaryOperatorKind.LT;
+            case LE:
+                return BinaryOperatorKind.GE;
+            case LT:
+                return BinaryOperatorKind.GT;
+            default:
+                return operator;
+        }
+    }
+
+    private static <T> T throwNotTranslatable(String token) throws ExpressionVisitException {
+        throw new ExpressionVisitException("Expression '" + token + "' cannot be translated to SQL");
+    }
+
+    /**
+     * A positional parameter of a translated SQL condition.
+     */
+    public static class SQLParameter {
+
+        private final int sqlType;
+
+        private final String value;
+
+        public SQLParameter(int sqlType, String value) {
+            this.sqlType = sqlType;
+            this.value = value;
+        }
+
+        public int getSqlType() {
+            return sqlType;
+        }
+
+        public String getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * A translated part of the filter expression, which is either a column, a literal or a SQL condition.
+     */
+    public static class SQLFragment {
+
+        private enum Kind {
+            COLUMN, LITERAL, CONDITION
+        }
+
+        private final Kind kind;
+
+        private final String sql;
+
+        private final List<SQLParameter> parameters;
+
+        private SQLFragment(Kind kind, String sql, List<SQLParameter> parameters) {
+            this.kind = kind;
+            this.sql = sql;
+            this.parameters = parameters;
+        }
+
+        static SQLFragment column(String columnName) {
+            return new SQLFragment(Kind.COLUMN, columnName, Collections.<SQLParameter>emptyList());
+        }
+
+        static SQLFragment literal(String text) {
+            return new SQLFragment(Kind.LITERAL, text, Collections.<SQLParameter>emptyList());
+        }
+
+        public static SQLFragment condition(String sql, List<SQLParameter> parameters) {
+            return new SQLFragment(Kind.CONDITION, sql, parameters);
+        }
+
+        boolean isColumn() {
+            return kind == Kind.COLUMN;
+        }
+
+        boolean isLiteral() {
+            return kind == Kind.LITERAL;
+        }
+
+        public boolean isCondition() {
+            return kind == Kind.CONDITION;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public List<SQLParameter> getParameters() {
+            return parameters;
+        }
+    }
+}
@@ -47,7 +47,7 @@ public class BinaryOperator {
 
     public VisitorOperand andOperator() throws ODataApplicationException {
         Boolean result = null;
-        if (left.is(ODataConstants.primitiveBoolean) && right.is(ODataConstants.primitiveBoolean)) {
+        if (isBooleanOrNull(left) && isBooleanOrNull(right)) {
             if (Boolean.TRUE.equals(left.getValue()) && Boolean.TRUE.equals(right.getValue())) {
                 result = true;
             } else if (Boolean.FALSE.equals(left.getValue()) || Boolean.FALSE.equals(right.getValue())) {
@@ -62,7 +62,7 @@ public class BinaryOperator {
 
     public VisitorOperand orOperator() throws ODataApplicationException {
         Boolean result = null;
-        if (left.is(ODataConstants.primitiveBoolean) && right.is(ODataConstants.primitiveBoolean)) {
+        if (isBooleanOrNull(left) && isBooleanOrNull(right)) {
             if (Boolean.TRUE.equals(left.getValue()) || Boolean.TRUE.equals(right.getValue())) {
                 result = true;
             } else if (Boolean.FALSE.equals(left.getValue()) && Boolean.FALSE.equals(right.getValue())) {
@@ -75,6 +75,11 @@ public class BinaryOperator {
         }
     }
 
+    private static boolean isBooleanOrNull(TypedOperand operand) {
+        // A null operand, e.g. a method called on a null property, is unknown in the three valued logic.
+        return operand.is(ODataConstants.primitiveBoolean) || operand.isNull();
+    }
+
     public VisitorOperand equalsOperator() {
         final boolean result = isBinaryComparisonNecessary() && binaryComparison(ODataConstants.EQUALS);
         return new TypedOperand(result, ODataConstants.primitiveBoolean);
@@ -125,7 +130,9 @@ public class BinaryOperator {
                 result = left.getTypedValue(BigDecimal.class).compareTo(right.getTypedValue(BigDecimal.class));
             } else if (left.getValue().getClass() == right.getValue().getClass() &&
                        left.getValue() instanceof Comparable) {
-                result = ((Comparable) left.getValue()).compareTo(right.getValue());
+                // Comparable.compareTo returns any negative or positive value, e.g. the character difference of
+                // two strings.
+                result = Integer.signum(((Comparable) left.getValue()).compareTo(right.getValue()));
             } else {
                 result = left.getValue().equals(right.getValue()) ? 0 : 1;
             }
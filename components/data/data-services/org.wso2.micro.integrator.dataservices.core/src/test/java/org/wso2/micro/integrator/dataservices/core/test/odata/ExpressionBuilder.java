@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.dataservices.core.test.odata;
+
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.provider.CsdlProperty;
+import org.apache.olingo.commons.core.edm.EdmPropertyImpl;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
+import org.apache.olingo.server.api.uri.queryoption.FilterOption;
+import org.apache.olingo.server.api.uri.queryoption.OrderByOption;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.UnaryOperatorKind;
+import org.apache.olingo.server.core.uri.UriInfoImpl;
+import org.apache.olingo.server.core.uri.UriResourcePrimitivePropertyImpl;
+import org.apache.olingo.server.core.uri.queryoption.FilterOptionImpl;
+import org.apache.olingo.server.core.uri.queryoption.OrderByItemImpl;
+import org.apache.olingo.server.core.uri.queryoption.OrderByOptionImpl;
+import org.apache.olingo.server.core.uri.queryoption.expression.BinaryImpl;
+import org.apache.olingo.server.core.uri.queryoption.expression.LiteralImpl;
+import org.apache.olingo.server.core.uri.queryoption.expression.MemberImpl;
+import org.apache.olingo.server.core.uri.queryoption.expression.MethodImpl;
+import org.apache.olingo.server.core.uri.queryoption.expression.UnaryImpl;
+
+import java.util.Arrays;
+
+/**
+ * Builds the OData filter and order by options which the URI parser creates for a request.
+ */
+final class ExpressionBuilder {
+
+    private ExpressionBuilder() {
+    }
+
+    static Expression member(String name, EdmPrimitiveTypeKind type) {
+        EdmPropertyImpl property =
+                new EdmPropertyImpl(null, new CsdlProperty().setName(name).setType(type.getFullQualifiedName()));
+        return new MemberImpl(new UriInfoImpl().addResourcePart(new UriResourcePrimitivePropertyImpl(property)), null);
+    }
+
+    static Expression literal(String text, EdmPrimitiveTypeKind type) {
+        return new LiteralImpl(text, EdmPrimitiveTypeFactory.getInstance(type));
+    }
+
+    static Expression nullLiteral() {
+        return new LiteralImpl("null", null);
+    }
+
+    static Expression binary(Expression left, BinaryOperatorKind operator, Expression right) {
+        return new BinaryImpl(left, operator, right, EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Boolean));
+    }
+
+    static Expression not(Expression operand) {
+        return new UnaryImpl(UnaryOperatorKind.NOT, operand,
+                             EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Boolean));
+    }
+
+    static Expression method(MethodKind method, Expression... parameters) {
+        return new MethodImpl(method, Arrays.asList(parameters));
+    }
+
+    static FilterOption filter(Expression expression) {
+        return new FilterOptionImpl().setExpression(expression);
+    }
+
+    static OrderByOption orderBy(Expression expression, boolean descending) {
+        return new OrderByOptionImpl().addOrder(new OrderByItemImpl().setExpression(expression)
+                                                                    .setDescending(descending));
+    }
+
+    static OrderByOption orderBy(OrderByOption orderByOption, Expression expression, boolean descending) {
+        return ((OrderByOptionImpl) orderByOption).addOrder(new OrderByItemImpl().setExpression(expression)
+                                                                                 .setDescending(descending));
+    }
+}
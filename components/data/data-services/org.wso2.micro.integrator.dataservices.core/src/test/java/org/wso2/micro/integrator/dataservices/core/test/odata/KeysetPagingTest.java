@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.dataservices.core.test.odata;
+
+import junit.framework.TestCase;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntitySet;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.commons.core.edm.EdmEntitySetImpl;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.queryoption.FilterOption;
+import org.apache.olingo.server.api.uri.queryoption.SkipTokenOption;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.core.uri.queryoption.SkipTokenOptionImpl;
+import org.h2.jdbcx.JdbcDataSource;
+import org.wso2.micro.integrator.dataservices.core.odata.ODataEntry;
+import org.wso2.micro.integrator.dataservices.core.odata.ODataQuery;
+import org.wso2.micro.integrator.dataservices.core.odata.QueryHandler;
+import org.wso2.micro.integrator.dataservices.core.odata.RDBMSDataHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.wso2.micro.integrator.dataservices.core.test.odata.ExpressionBuilder.binary;
+import static org.wso2.micro.integrator.dataservices.core.test.odata.ExpressionBuilder.filter;
+import static org.wso2.micro.integrator.dataservices.core.test.odata.ExpressionBuilder.literal;
+import static org.wso2.micro.integrator.dataservices.core.test.odata.ExpressionBuilder.member;
+
+/**
+ * Test cases for the server-side paging of entity collections using the primary keys of the last entity of the
+ * previous page as the skip token.
+ */
+public class KeysetPagingTest extends TestCase {
+
+    private static final String H2_URL = "jdbc:h2:mem:odata-keyset-test;DB_CLOSE_DELAY=-1";
+
+    private static final String TABLE = "ORDER_LINE";
+
+    private static final String BASE_URL = "http://localhost:8280/odata/test/default";
+
+    private static final EdmEntitySet ENTITY_SET =
+            new EdmEntitySetImpl(null, null, new CsdlEntitySet().setName(TABLE));
+
+    private Connection conn;
+
+    private RDBMSDataHandler handler;
+
+    public KeysetPagingTest(String testName) {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(H2_URL);
+        conn = dataSource.getConnection();
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE ORDER_LINE (ORDER_ID INT, LINE VARCHAR(10), QTY INT, " +
+                         "PRIMARY KEY (ORDER_ID, LINE))");
+            stmt.execute("INSERT INTO ORDER_LINE VALUES (1, 'a', 5), (1, 'b', 1), (1, 'c', 5), (2, 'a', 5), " +
+                         "(3, 'a', 2), (3, 'B', 5), (3, 'b', 5), (3, 'c', NULL), (4, 'a', 5), (10, 'a', 5)");
+        }
+        handler = new RDBMSDataHandler(dataSource, "odata-keyset-test");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE ORDER_LINE");
+        }
+        conn.close();
+    }
+
+    /**
+     * Test that the keys of the last entity are encoded to a skip token of the next link, which decodes to the
+     * same keys.
+     */
+    public void testSkipTokenEncoding() throws Exception {
+        ODataEntry keys = new ODataEntry();
+        keys.addValue("ORDER_ID", "42");
+        keys.addValue("LINE", "a/b?c&d=\u00e9 'x'");
+        String skipToken = getNextSkipToken(keys);
+        assertTrue(skipToken.startsWith("k"));
+        assertTrue(skipToken.matches("[A-Za-z0-9_-]+"));
+        SkipTokenOption skipTokenOption = skipToken(skipToken);
+        assertTrue(QueryHandler.isKeysetSkipToken(skipTokenOption));
+        ODataEntry decoded = QueryHandler.decodeSkipToken(skipTokenOption);
+        assertEquals(keys.getData(), decoded.getData());
+
+        assertTrue(QueryHandler.isKeysetSkipToken(skipToken("0")));
+        assertNull(QueryHandler.decodeSkipToken(skipToken("0")));
+        assertFalse(QueryHandler.isKeysetSkipToken(skipToken("1")));
+    }
+
+    /**
+     * Test that a skip token which can not be decoded is rejected as a bad request.
+     */
+    public void testInvalidSkipTokens() throws Exception {
+        assertInvalidSkipToken("k");
+        assertInvalidSkipToken("k!!");
+        assertInvalidSkipToken("k" + encode(0));
+        assertInvalidSkipToken("k" + encode(2, "ORDER_ID", "1"));
+        assertInvalidSkipToken("k" + encode(1, "ORDER_ID", "1", "LINE"));
+        String skipToken = encode(1, "ORDER_ID", "1");
+        assertInvalidSkipToken("k" + skipToken.substring(0, skipToken.length() - 2));
+    }
+
+    /**
+     * Test that the pages read with the skip tokens hold each entity once, in the primary key order, when the
+     * pages end within a group of entities having the same value of the first primary key column.
+     */
+    public void testPagingAcrossDuplicateKeys() throws Exception {
+        List<String> expected = getKeys(handler.readTable(TABLE));
+        expected.sort(null);
+        for (int pageSize = 1; pageSize <= 4; pageSize++) {
+            assertEquals("Page size " + pageSize, expected, readPages(null, pageSize));
+        }
+    }
+
+    /**
+     * Test that the pages read with the skip tokens hold the filtered entities, and the filter does not change the
+     * position of the next page.
+     */
+    public void testPagingWithFilter() throws Exception {
+        FilterOption filterOption = filter(binary(member("QTY", EdmPrimitiveTypeKind.Int32), BinaryOperatorKind.EQ,
+                                                  literal("5", EdmPrimitiveTypeKind.Int32)));
+        List<String> expected = new ArrayList<>();
+        for (ODataEntry entry : handler.readTable(TABLE)) {
+            if ("5".equals(entry.getValue("QTY"))) {
+                expected.add(getKey(entry));
+            }
+        }
+        expected.sort(null);
+        assertEquals(expected, readPages(filterOption, 2));
+    }
+
+    /**
+     * Test that a skip token altered by the client, which does not hold valid primary keys of the table, is not
+     * used as a keyset position, and is rejected as a bad request when the page is served.
+     */
+    public void testTamperedSkipTokens() throws Exception {
+        ODataEntry otherKeys = new ODataEntry();
+        otherKeys.addValue("ID", "1");
+        assertTamperedSkipToken(otherKeys);
+
+        ODataEntry missingKey = new ODataEntry();
+        missingKey.addValue("ORDER_ID", "1");
+        assertTamperedSkipToken(missingKey);
+
+        ODataEntry invalidValue = new ODataEntry();
+        invalidValue.addValue("ORDER_ID", "1 OR 1=1");
+        invalidValue.addValue("LINE", "a");
+        assertTamperedSkipToken(invalidValue);
+    }
+
+    /**
+     * Test that a skip token past the last entity is reported as not found.
+     */
+    public void testSkipTokenAfterLastPage() throws Exception {
+        ODataEntry keys = new ODataEntry();
+        keys.addValue("ORDER_ID", "10");
+        keys.addValue("LINE", "a");
+        ODataQuery query = new ODataQuery(null, null, null, null);
+        query.setServerPaging(2, QueryHandler.decodeSkipToken(skipToken(getNextSkipToken(keys))));
+        List<ODataEntry> entries = handler.readTable(TABLE, query);
+        assertTrue(query.isServerPagingApplied());
+        assertTrue(entries.isEmpty());
+        try {
+            QueryHandler.applyKeysetServerSidePaging(query, new EntityCollection(), ENTITY_SET, BASE_URL);
+            fail("The page after the last entity should not be found");
+        } catch (ODataApplicationException e) {
+            assertEquals(HttpStatusCode.NOT_FOUND.getStatusCode(), e.getStatusCode());
+        }
+    }
+
+    private List<String> readPages(FilterOption filterOption, int pageSize) throws Exception {
+        List<String> keys = new ArrayList<>();
+        SkipTokenOption skipTokenOption = skipToken("0");
+        for (int page = 0; page < 100; page++) {
+            ODataQuery query = new ODataQuery(filterOption, null, null, null);
+            query.setServerPaging(pageSize, QueryHandler.decodeSkipToken(skipTokenOption));
+            List<ODataEntry> entries = handler.readTable(TABLE, query);
+            assertTrue(query.isServerPagingApplied());
+            assertTrue(entries.size() <= pageSize);
+            keys.addAll(getKeys(entries));
+            if (query.getNextPageKeys() == null) {
+                return keys;
+            }
+            assertEquals(pageSize, entries.size());
+            skipTokenOption = skipToken(getNextSkipToken(query.getNextPageKeys()));
+        }
+        fail("Paging did not end");
+        return keys;
+    }
+
+    private void assertTamperedSkipToken(ODataEntry keys) throws Exception {
+        SkipTokenOption skipTokenOption = skipToken(getNextSkipToken(keys));
+        assertTrue(QueryHandler.isKeysetSkipToken(skipTokenOption));
+        ODataQuery query = new ODataQuery(null, null, null, null);
+        query.setServerPaging(2, QueryHandler.decodeSkipToken(skipTokenOption));
+        handler.readTable(TABLE, query);
+        assertFalse(query.isServerPagingApplied());
+        try {
+            QueryHandler.applyServerSidePaging(skipTokenOption, new EntityCollection(), ENTITY_SET, BASE_URL, 2);
+            fail("Skip token " + keys.getData() + " should be rejected");
+        } catch (ODataApplicationException e) {
+            assertEquals(HttpStatusCode.BAD_REQUEST.getStatusCode(), e.getStatusCode());
+        }
+    }
+
+    private static void assertInvalidSkipToken(String skipToken) {
+        try {
+            QueryHandler.decodeSkipToken(skipToken(skipToken));
+            fail("Skip token " + skipToken + " should be rejected");
+        } catch (ODataApplicationException e) {
+            assertEquals(HttpStatusCode.BAD_REQUEST.getStatusCode(), e.getStatusCode());
+        }
+    }
+
+    /**
+     * Returns the skip token of the next link of a page ending with the entity of the given keys.
+     */
+    private static String getNextSkipToken(ODataEntry keys) throws ODataApplicationException {
+        ODataQuery query = new ODataQuery(null, null, null, null);
+        query.setNextPageKeys(keys);
+        EntityCollection page = new EntityCollection();
+        page.getEntities().add(new Entity());
+        QueryHandler.applyKeysetServerSidePaging(query, page, ENTITY_SET, BASE_URL);
+        String nextLink = page.getNext().toString();
+        String prefix = BASE_URL + "/" + TABLE + "?$skiptoken=";
+        assertTrue(nextLink.startsWith(prefix));
+        return nextLink.substring(prefix.length());
+    }
+
+    private static SkipTokenOption skipToken(String value) {
+        return new SkipTokenOptionImpl().setValue(value);
+    }
+
+    private static String encode(int count, String... values) throws IOException {
+        ByteArrayOutputStream token = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(token);
+        out.writeInt(count);
+        for (String value : values) {
+            out.writeUTF(value);
+        }
+        out.flush();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token.toByteArray());
+    }
+
+    private static List<String> getKeys(List<ODataEntry> entries) {
+        List<String> keys = new ArrayList<>();
+        for (ODataEntry entry : entries) {
+            keys.add(getKey(entry));
+        }
+        return keys;
+    }
+
+    /**
+     * Returns the primary key of the entry, which sorts as the primary key order of the table.
+     */
+    private static String getKey(ODataEntry entry) {
+        return String.format("%03d/%s", Integer.parseInt(entry.getValue("ORDER_ID")), entry.getValue("LINE"));
+    }
+}
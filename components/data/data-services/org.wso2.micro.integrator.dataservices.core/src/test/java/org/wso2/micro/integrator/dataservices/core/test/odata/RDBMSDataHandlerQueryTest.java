@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.dataservices.core.test.odata;
+
+import junit.framework.TestCase;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.server.api.uri.queryoption.FilterOption;
+import org.apache.olingo.server.api.uri.queryoption.OrderByOption;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+import org.h2.jdbcx.JdbcDataSource;
+import org.wso2.micro.integrator.dataservices.core.odata.ODataEntry;
+import org.wso2.micro.integrator.dataservices.core.odata.ODataQuery;
+import org.wso2.micro.integrator.dataservices.core.odata.QueryHandler;
+import org.wso2.micro.integrator.dataservices.core.odata.RDBMSDataHandler;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.wso2.micro.integrator.dataservices.core.test.odata.ExpressionBuilder.binary;
+import static org.wso2.micro.integrator.dataservices.core.test.odata.ExpressionBuilder.filter;
+import static org.wso2.micro.integrator.dataservices.core.test.odata.ExpressionBuilder.literal;
+import static org.wso2.micro.integrator.dataservices.core.test.odata.ExpressionBuilder.member;
+import static org.wso2.micro.integrator.dataservices.core.test.odata.ExpressionBuilder.method;
+import static org.wso2.micro.integrator.dataservices.core.test.odata.ExpressionBuilder.not;
+import static org.wso2.micro.integrator.dataservices.core.test.odata.ExpressionBuilder.nullLiteral;
+import static org.wso2.micro.integrator.dataservices.core.test.odata.ExpressionBuilder.orderBy;
+
+/**
+ * Test cases which compare the OData queries pushed down to H2 with the in memory filter, sort and paging.
+ */
+public class RDBMSDataHandlerQueryTest extends TestCase {
+
+    private static final String H2_URL = "jdbc:h2:mem:odata-query-test;DB_CLOSE_DELAY=-1";
+
+    private static final String TABLE = "PERSON";
+
+    private static final Expression ID = member("ID", EdmPrimitiveTypeKind.Int32);
+
+    private static final Expression NAME = member("NAME", EdmPrimitiveTypeKind.String);
+
+    private static final Expression AGE = member("AGE", EdmPrimitiveTypeKind.Int32);
+
+    private Connection conn;
+
+    private RDBMSDataHandler handler;
+
+    public RDBMSDataHandlerQueryTest(String testName) {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(H2_URL);
+        conn = dataSource.getConnection();
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE PERSON (ID INT PRIMARY KEY, NAME VARCHAR(50), AGE INT)");
+            stmt.execute("INSERT INTO PERSON VALUES (1, 'alice', 30), (2, 'Bob', 25), (3, 'bob', NULL), " +
+                         "(4, NULL, 41), (5, 'Carol', 30), (6, 'al_ce', 19), (7, 'O''Neil', 30), (8, 'bob', 25)");
+        }
+        handler = new RDBMSDataHandler(dataSource, "odata-query-test");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE PERSON");
+        }
+        conn.close();
+    }
+
+    /**
+     * Test that the pushed down filters select the same entities as the in memory filter.
+     */
+    public void testFilterPushDown() throws Exception {
+        Expression thirty = literal("30", EdmPrimitiveTypeKind.Int32);
+        Expression bob = literal("'bob'", EdmPrimitiveTypeKind.String);
+        List<Expression> expressions = new ArrayList<>();
+        expressions.add(binary(AGE, BinaryOperatorKind.EQ, thirty));
+        expressions.add(binary(AGE, BinaryOperatorKind.NE, thirty));
+        expressions.add(binary(AGE, BinaryOperatorKind.GT, literal("25", EdmPrimitiveTypeKind.Int32)));
+        expressions.add(binary(literal("25", EdmPrimitiveTypeKind.Int32), BinaryOperatorKind.LT, AGE));
+        expressions.add(binary(binary(AGE, BinaryOperatorKind.LE, thirty), BinaryOperatorKind.AND,
+                               binary(NAME, BinaryOperatorKind.NE, nullLiteral())));
+        expressions.add(binary(NAME, BinaryOperatorKind.EQ, bob));
+        expressions.add(binary(NAME, BinaryOperatorKind.NE, bob));
+        expressions.add(binary(NAME, BinaryOperatorKind.GE, literal("'B'", EdmPrimitiveTypeKind.String)));
+        expressions.add(binary(NAME, BinaryOperatorKind.LT, literal("'b'", EdmPrimitiveTypeKind.String)));
+        expressions.add(binary(NAME, BinaryOperatorKind.EQ, nullLiteral()));
+        expressions.add(binary(NAME, BinaryOperatorKind.EQ, literal("'O''Neil'", EdmPrimitiveTypeKind.String)));
+        expressions.add(method(MethodKind.CONTAINS, NAME, literal("'o'", EdmPrimitiveTypeKind.String)));
+        expressions.add(method(MethodKind.STARTSWITH, NAME, literal("'al'", EdmPrimitiveTypeKind.String)));
+        expressions.add(binary(method(MethodKind.ENDSWITH, NAME, literal("'b'", EdmPrimitiveTypeKind.String)),
+                               BinaryOperatorKind.OR,
+                               binary(AGE, BinaryOperatorKind.LT, literal("20", EdmPrimitiveTypeKind.Int32))));
+        for (Expression expression : expressions) {
+            ODataQuery query = new ODataQuery(filter(expression), null, null, null);
+            List<String> pushedDown = getIds(handler.readTable(TABLE, query));
+            assertTrue("Filter " + expression + " is not pushed down", query.isFilterApplied());
+            Collections.sort(pushedDown);
+            List<String> inMemory = getIds(readInMemory(filter(expression), null, 0, Integer.MAX_VALUE));
+            Collections.sort(inMemory);
+            assertEquals("Filter " + expression, inMemory, pushedDown);
+        }
+    }
+
+    /**
+     * Test that a filter which can not be translated falls back to the in memory filter on the whole table.
+     */
+    public void testFilterFallback() throws Exception {
+        FilterOption filterOption = filter(not(binary(AGE, BinaryOperatorKind.EQ, literal("30",
+                                                                                          EdmPrimitiveTypeKind.Int32))));
+        ODataQuery query = new ODataQuery(filterOption, orderBy(NAME, false), 1, 2);
+        assertEquals(8, handler.readTable(TABLE, query).size());
+        assertFalse(query.isFilterApplied());
+        assertFalse(query.isOrderByApplied());
+        assertFalse(query.isPagingApplied());
+    }
+
+    /**
+     * Test that the pushed down order by and paging return the same page as the in memory sort and paging.
+     */
+    public void testOrderByAndPagingPushDown() throws Exception {
+        FilterOption filterOption = filter(binary(AGE, BinaryOperatorKind.NE, literal("41",
+                                                                                      EdmPrimitiveTypeKind.Int32)));
+        List<OrderByOption> orderByOptions = new ArrayList<>();
+        orderByOptions.add(orderBy(orderBy(AGE, false), ID, false));
+        orderByOptions.add(orderBy(orderBy(AGE, true), ID, true));
+        orderByOptions.add(orderBy(orderBy(NAME, false), ID, false));
+        orderByOptions.add(orderBy(orderBy(orderBy(NAME, true), AGE, false), ID, false));
+        for (OrderByOption orderByOption : orderByOptions) {
+            for (int skip = 0; skip < 4; skip++) {
+                ODataQuery query = new ODataQuery(filterOption, orderByOption, skip, 3);
+                List<String> pushedDown = getIds(handler.readTable(TABLE, query));
+                assertTrue(query.isFilterApplied());
+                assertTrue(query.isOrderByApplied());
+                assertTrue(query.isPagingApplied());
+                assertEquals(getIds(readInMemory(filterOption, orderByOption, skip, 3)), pushedDown);
+            }
+        }
+    }
+
+    private List<ODataEntry> readInMemory(FilterOption filterOption, OrderByOption orderByOption, int skip, int top)
+            throws Exception {
+        EntityCollection entities = new EntityCollection();
+        for (ODataEntry entry : handler.readTable(TABLE)) {
+            Entity entity = new Entity();
+            entity.addProperty(new Property(null, "ID", ValueType.PRIMITIVE, toInteger(entry.getValue("ID"))));
+            entity.addProperty(new Property(null, "NAME", ValueType.PRIMITIVE, entry.getValue("NAME")));
+            entity.addProperty(new Property(null, "AGE", ValueType.PRIMITIVE, toInteger(entry.getValue("AGE"))));
+            entities.getEntities().add(entity);
+        }
+        if (filterOption != null) {
+            QueryHandler.applyFilterSystemQuery(filterOption, entities, null);
+        }
+        if (orderByOption != null) {
+            QueryHandler.applyOrderByOption(orderByOption, entities, null);
+        }
+        List<ODataEntry> entries = new ArrayList<>();
+        List<Entity> page = entities.getEntities();
+        int from = Math.min(skip, page.size());
+        for (Entity entity : page.subList(from, from + Math.min(top, page.size() - from))) {
+            ODataEntry entry = new ODataEntry();
+            entry.addValue("ID", String.valueOf(entity.getProperty("ID").getValue()));
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static Integer toInteger(String value) {
+        return value == null ? null : Integer.valueOf(value);
+    }
+
+    private static List<String> getIds(List<ODataEntry> entries) {
+        List<String> ids = new ArrayList<>();
+        for (ODataEntry entry : entries) {
+            ids.add(entry.getValue("ID"));
+        }
+        return ids;
+    }
+}
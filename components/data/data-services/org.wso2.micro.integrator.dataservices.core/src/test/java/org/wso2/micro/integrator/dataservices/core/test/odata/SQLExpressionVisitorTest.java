@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.dataservices.core.test.odata;
+
+import junit.framework.TestCase;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+import org.wso2.micro.integrator.dataservices.core.odata.expression.SQLExpressionVisitor;
+import org.wso2.micro.integrator.dataservices.core.odata.expression.SQLExpressionVisitor.SQLFragment;
+import org.wso2.micro.integrator.dataservices.core.odata.expression.SQLExpressionVisitor.SQLParameter;
+
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.wso2.micro.integrator.dataservices.core.test.odata.ExpressionBuilder.binary;
+import static org.wso2.micro.integrator.dataservices.core.test.odata.ExpressionBuilder.literal;
+import static org.wso2.micro.integrator.dataservices.core.test.odata.ExpressionBuilder.member;
+import static org.wso2.micro.integrator.dataservices.core.test.odata.ExpressionBuilder.method;
+import static org.wso2.micro.integrator.dataservices.core.test.odata.ExpressionBuilder.not;
+import static org.wso2.micro.integrator.dataservices.core.test.odata.ExpressionBuilder.nullLiteral;
+
+/**
+ * Test cases for the translation of OData filter expressions to SQL conditions.
+ */
+public class SQLExpressionVisitorTest extends TestCase {
+
+    private static final Expression ID = member("ID", EdmPrimitiveTypeKind.Int32);
+
+    private static final Expression NAME = member("NAME", EdmPrimitiveTypeKind.String);
+
+    private static final Expression PRICE = member("PRICE", EdmPrimitiveTypeKind.Decimal);
+
+    private static final Expression ACTIVE = member("ACTIVE", EdmPrimitiveTypeKind.Boolean);
+
+    private Map<String, Integer> columnTypes;
+
+    public SQLExpressionVisitorTest(String testName) {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() {
+        columnTypes = new HashMap<>();
+        columnTypes.put("ID", Types.INTEGER);
+        columnTypes.put("NAME", Types.VARCHAR);
+        columnTypes.put("PRICE", Types.DECIMAL);
+        columnTypes.put("ACTIVE", Types.BOOLEAN);
+    }
+
+    /**
+     * Test that each comparison operator is translated to the SQL operator with the literal as a parameter.
+     */
+    public void testComparisonOperators() throws Exception {
+        Expression five = literal("5", EdmPrimitiveTypeKind.Int32);
+        assertCondition("\"ID\" = ?", translate(binary(ID, BinaryOperatorKind.EQ, five)), Types.INTEGER, "5");
+        assertCondition("(\"ID\" <> ? OR \"ID\" IS NULL)", translate(binary(ID, BinaryOperatorKind.NE, five)),
+                        Types.INTEGER, "5");
+        assertCondition("\"ID\" >= ?", translate(binary(ID, BinaryOperatorKind.GE, five)), Types.INTEGER, "5");
+        assertCondition("\"ID\" > ?", translate(binary(ID, BinaryOperatorKind.GT, five)), Types.INTEGER, "5");
+        assertCondition("\"ID\" <= ?", translate(binary(ID, BinaryOperatorKind.LE, five)), Types.INTEGER, "5");
+        assertCondition("\"ID\" < ?", translate(binary(ID, BinaryOperatorKind.LT, five)), Types.INTEGER, "5");
+        assertCondition("\"PRICE\" > ?",
+                        translate(binary(PRICE, BinaryOperatorKind.GT, literal("-2.5", EdmPrimitiveTypeKind.Decimal))),
+                        Types.DECIMAL, "-2.5");
+        assertCondition("\"ACTIVE\" = ?",
+                        translate(binary(ACTIVE, BinaryOperatorKind.EQ, literal("true", EdmPrimitiveTypeKind.Boolean))),
+                        Types.BOOLEAN, "true");
+    }
+
+    /**
+     * Test that the operator is mirrored when the literal is on the left side of the comparison.
+     */
+    public void testMirroredComparison() throws Exception {
+        Expression five = literal("5", EdmPrimitiveTypeKind.Int32);
+        assertCondition("\"ID\" <= ?", translate(binary(five, BinaryOperatorKind.GE, ID)), Types.INTEGER, "5");
+        assertCondition("\"ID\" < ?", translate(binary(five, BinaryOperatorKind.GT, ID)), Types.INTEGER, "5");
+        assertCondition("\"ID\" >= ?", translate(binary(five, BinaryOperatorKind.LE, ID)), Types.INTEGER, "5");
+        assertCondition("\"ID\" > ?", translate(binary(five, BinaryOperatorKind.LT, ID)), Types.INTEGER, "5");
+        assertCondition("\"ID\" = ?", translate(binary(five, BinaryOperatorKind.EQ, ID)), Types.INTEGER, "5");
+    }
+
+    /**
+     * Test that a comparison with null is translated to IS NULL and IS NOT NULL.
+     */
+    public void testNullComparison() throws Exception {
+        assertCondition("\"NAME\" IS NULL", translate(binary(NAME, BinaryOperatorKind.EQ, nullLiteral())));
+        assertCondition("\"NAME\" IS NOT NULL", translate(binary(nullLiteral(), BinaryOperatorKind.NE, NAME)));
+        assertNotTranslatable(binary(NAME, BinaryOperatorKind.GT, nullLiteral()));
+    }
+
+    /**
+     * Test that string literals are unquoted and the logical operators combine the parameters in order.
+     */
+    public void testLogicalOperators() throws Exception {
+        Expression condition = binary(binary(NAME, BinaryOperatorKind.EQ, literal("'O''Neil'",
+                                                                                  EdmPrimitiveTypeKind.String)),
+                                      BinaryOperatorKind.OR,
+                                      binary(ID, BinaryOperatorKind.LT, literal("3", EdmPrimitiveTypeKind.Int32)));
+        SQLFragment fragment = translate(binary(condition, BinaryOperatorKind.AND,
+                                                binary(PRICE, BinaryOperatorKind.EQ, nullLiteral())));
+        assertCondition("((\"NAME\" = ? OR \"ID\" < ?) AND \"PRICE\" IS NULL)", fragment, Types.VARCHAR, "O'Neil",
+                        Types.INTEGER, "3");
+    }
+
+    /**
+     * Test that the string methods are translated to LIKE patterns.
+     */
+    public void testStringMethods() throws Exception {
+        Expression value = literal("'ab'", EdmPrimitiveTypeKind.String);
+        assertCondition("\"NAME\" LIKE ?", translate(method(MethodKind.CONTAINS, NAME, value)), Types.VARCHAR,
+                        "%ab%");
+        assertCondition("\"NAME\" LIKE ?", translate(method(MethodKind.STARTSWITH, NAME, value)), Types.VARCHAR,
+                        "ab%");
+        assertCondition("\"NAME\" LIKE ?", translate(method(MethodKind.ENDSWITH, NAME, value)), Types.VARCHAR,
+                        "%ab");
+    }
+
+    /**
+     * Test that the expressions which do not evaluate as the in memory filter does are not translated.
+     */
+    public void testNotTranslatableExpressions() throws Exception {
+        Expression five = literal("5", EdmPrimitiveTypeKind.Int32);
+        assertNotTranslatable(not(binary(ID, BinaryOperatorKind.EQ, five)));
+        assertNotTranslatable(binary(ID, BinaryOperatorKind.EQ, ID));
+        assertNotTranslatable(binary(five, BinaryOperatorKind.EQ, five));
+        assertNotTranslatable(binary(ID, BinaryOperatorKind.ADD, five));
+        assertNotTranslatable(binary(ID, BinaryOperatorKind.EQ, literal("'5'", EdmPrimitiveTypeKind.String)));
+        assertNotTranslatable(binary(member("UNKNOWN", EdmPrimitiveTypeKind.Int32), BinaryOperatorKind.EQ, five));
+        assertNotTranslatable(binary(ID, BinaryOperatorKind.AND, five));
+        assertNotTranslatable(method(MethodKind.CONTAINS, NAME, literal("'a%'", EdmPrimitiveTypeKind.String)));
+        assertNotTranslatable(method(MethodKind.CONTAINS, NAME, literal("'a_'", EdmPrimitiveTypeKind.String)));
+        assertNotTranslatable(method(MethodKind.CONTAINS, ID, five));
+        assertNotTranslatable(method(MethodKind.TOLOWER, NAME));
+    }
+
+    /**
+     * Test that string comparisons are translated only if the database compares strings as the in memory filter
+     * does, while the other comparisons are always translated.
+     */
+    public void testCollationDependentComparisons() throws Exception {
+        Expression value = literal("'b'", EdmPrimitiveTypeKind.String);
+        Expression five = literal("5", EdmPrimitiveTypeKind.Int32);
+        SQLExpressionVisitor caseInsensitive = new SQLExpressionVisitor(columnTypes, "`", false, false);
+        assertNotTranslatable(binary(NAME, BinaryOperatorKind.EQ, value), caseInsensitive);
+        assertNotTranslatable(binary(NAME, BinaryOperatorKind.NE, value), caseInsensitive);
+        assertNotTranslatable(binary(NAME, BinaryOperatorKind.GT, value), caseInsensitive);
+        assertNotTranslatable(method(MethodKind.STARTSWITH, NAME, value), caseInsensitive);
+        assertCondition("`NAME` IS NULL", binary(NAME, BinaryOperatorKind.EQ, nullLiteral()).accept(caseInsensitive));
+        assertCondition("`ID` > ?", binary(ID, BinaryOperatorKind.GT, five).accept(caseInsensitive), Types.INTEGER,
+                        "5");
+
+        SQLExpressionVisitor localeOrdered = new SQLExpressionVisitor(columnTypes, "\"", true, false);
+        assertCondition("\"NAME\" = ?", binary(NAME, BinaryOperatorKind.EQ, value).accept(localeOrdered),
+                        Types.VARCHAR, "b");
+        assertCondition("\"NAME\" LIKE ?", method(MethodKind.ENDSWITH, NAME, value).accept(localeOrdered),
+                        Types.VARCHAR, "%b");
+        assertNotTranslatable(binary(NAME, BinaryOperatorKind.LT, value), localeOrdered);
+        assertNotTranslatable(binary(value, BinaryOperatorKind.LE, NAME), localeOrdered);
+
+        assertCondition("\"NAME\" < ?", translate(binary(NAME, BinaryOperatorKind.LT, value)), Types.VARCHAR, "b");
+    }
+
+    private SQLFragment translate(Expression expression) throws Exception {
+        return expression.accept(new SQLExpressionVisitor(columnTypes, "\"", true, true));
+    }
+
+    private void assertNotTranslatable(Expression expression) throws Exception {
+        assertNotTranslatable(expression, new SQLExpressionVisitor(columnTypes, "\"", true, true));
+    }
+
+    private void assertNotTranslatable(Expression expression, SQLExpressionVisitor visitor) throws Exception {
+        try {
+            expression.accept(visitor);
+            fail("Expression " + expression + " should not be translated");
+        } catch (ExpressionVisitException e) {
+            // expected
+        }
+    }
+
+    private static void assertCondition(String sql, SQLFragment fragment, Object... parameters) {
+        assertTrue(fragment.isCondition());
+        assertEquals(sql, fragment.getSql());
+        assertEquals(parameters.length / 2, fragment.getParameters().size());
+        for (int i = 0; i < parameters.length / 2; i++) {
+            SQLParameter parameter = fragment.getParameters().get(i);
+            assertEquals(parameters[2 * i], parameter.getSqlType());
+            assertEquals(parameters[2 * i + 1], parameter.getValue());
+        }
+    }
+}
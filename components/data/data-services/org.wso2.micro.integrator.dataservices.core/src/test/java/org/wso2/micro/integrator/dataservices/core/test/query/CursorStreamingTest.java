@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.dataservices.core.test.query;
+
+import junit.framework.TestCase;
+import org.wso2.micro.integrator.dataservices.core.DBUtils;
+import org.wso2.micro.integrator.dataservices.core.description.query.SQLDataServicesConnection;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+
+/**
+ * Test cases for streaming a result set with a database cursor, which is only done when a query enables it.
+ */
+public class CursorStreamingTest extends TestCase {
+
+    private static final String POSTGRESQL_URL = "jdbc:postgresql://localhost:5432/test";
+
+    private static final String MYSQL_URL = "jdbc:mysql://localhost:3306/test";
+
+    private static final String H2_URL = "jdbc:h2:mem:cursor-streaming-test";
+
+    public CursorStreamingTest(String testName) {
+        super(testName);
+    }
+
+    /**
+     * The fetch size of the queries which do not enable cursor streaming is not changed for PostgreSQL.
+     */
+    public void testDefaultFetchSize() {
+        assertFalse(DBUtils.getChangeFetchSizeForRDBMS(POSTGRESQL_URL));
+        assertEquals(1, DBUtils.getOptimalRSFetchSizeForRDBMS(POSTGRESQL_URL));
+        assertTrue(DBUtils.getChangeFetchSizeForRDBMS(MYSQL_URL));
+        assertEquals(Integer.MIN_VALUE, DBUtils.getOptimalRSFetchSizeForRDBMS(MYSQL_URL));
+    }
+
+    public void testCursorFetchInTransactionOnly() {
+        assertTrue(DBUtils.isCursorFetchInTransactionOnly(POSTGRESQL_URL));
+        assertFalse(DBUtils.isCursorFetchInTransactionOnly(MYSQL_URL));
+        assertFalse(DBUtils.isCursorFetchInTransactionOnly(H2_URL));
+        assertFalse(DBUtils.isCursorFetchInTransactionOnly(null));
+    }
+
+    public void testStreamingFetchSize() {
+        assertEquals(1000, DBUtils.getStreamingFetchSize());
+        System.setProperty("dss.streaming.fetchSize", "250");
+        try {
+            assertEquals(250, DBUtils.getStreamingFetchSize());
+            System.setProperty("dss.streaming.fetchSize", "-1");
+            assertEquals(1000, DBUtils.getStreamingFetchSize());
+            System.setProperty("dss.streaming.fetchSize", "many");
+            assertEquals(1000, DBUtils.getStreamingFetchSize());
+        } finally {
+            System.clearProperty("dss.streaming.fetchSize");
+        }
+    }
+
+    /**
+     * Auto commit is only disabled for a cursor transaction, and it is enabled again before the connection is given
+     * back to the pool.
+     */
+    public void testCursorTransaction() throws Exception {
+        Connection connection = DriverManager.getConnection(H2_URL);
+        try {
+            SQLDataServicesConnection dsConnection = new SQLDataServicesConnection(pooled(connection), false);
+            dsConnection.beginCursorTransaction();
+            assertFalse(connection.getAutoCommit());
+            dsConnection.commit();
+            dsConnection.close();
+            assertTrue("Auto commit is not restored", connection.getAutoCommit());
+
+            dsConnection = new SQLDataServicesConnection(pooled(connection), false);
+            dsConnection.close();
+            assertTrue(connection.getAutoCommit());
+        } finally {
+            connection.close();
+        }
+    }
+
+    /**
+     * Auto commit of an XA connection or a connection in a transaction is not changed.
+     */
+    public void testNoCursorTransaction() throws Exception {
+        Connection connection = DriverManager.getConnection(H2_URL);
+        try {
+            new SQLDataServicesConnection(pooled(connection), true).beginCursorTransaction();
+            assertTrue(connection.getAutoCommit());
+            connection.setAutoCommit(false);
+            SQLDataServicesConnection dsConnection = new SQLDataServicesConnection(pooled(connection), false);
+            dsConnection.beginCursorTransaction();
+            dsConnection.close();
+            assertFalse("Auto commit disabled by the query is changed", connection.getAutoCommit());
+        } finally {
+            connection.close();
+        }
+    }
+
+    /**
+     * Returns a view of the connection which is not closed by close(), as a pooled connection is given back to the
+     * pool instead.
+     */
+    private static Connection pooled(final Connection connection) {
+        return (Connection) Proxy.newProxyInstance(CursorStreamingTest.class.getClassLoader(),
+                new Class[]{Connection.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if ("close".equals(method.getName())) {
+                            return null;
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                });
+    }
+
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.dataservices.core.test.query;
+
+import junit.framework.TestCase;
+import org.apache.axiom.om.OMElement;
+import org.wso2.micro.integrator.dataservices.common.DBConstants;
+import org.wso2.micro.integrator.dataservices.common.DBConstants.DataCategory;
+import org.wso2.micro.integrator.dataservices.common.DBConstants.DataTypes;
+import org.wso2.micro.integrator.dataservices.common.DBConstants.QueryParamTypes;
+import org.wso2.micro.integrator.dataservices.common.DBConstants.QueryTypes;
+import org.wso2.micro.integrator.dataservices.common.DBConstants.RDBMS;
+import org.wso2.micro.integrator.dataservices.common.DBConstants.ResultTypes;
+import org.wso2.micro.integrator.dataservices.common.DBConstants.ServiceStatusValues;
+import org.wso2.micro.integrator.dataservices.core.DataServiceFault;
+import org.wso2.micro.integrator.dataservices.core.TLConnectionStore;
+import org.wso2.micro.integrator.dataservices.core.description.config.RDBMSConfig;
+import org.wso2.micro.integrator.dataservices.core.description.operation.Operation;
+import org.wso2.micro.integrator.dataservices.core.description.query.SQLQuery;
+import org.wso2.micro.integrator.dataservices.core.dispatch.SingleDataServiceRequest;
+import org.wso2.micro.integrator.dataservices.core.engine.CallQuery;
+import org.wso2.micro.integrator.dataservices.core.engine.CallQuery.WithParam;
+import org.wso2.micro.integrator.dataservices.core.engine.DataEntry;
+import org.wso2.micro.integrator.dataservices.core.engine.DataService;
+import org.wso2.micro.integrator.dataservices.core.engine.OutputElementGroup;
+import org.wso2.micro.integrator.dataservices.core.engine.ParamValue;
+import org.wso2.micro.integrator.dataservices.core.engine.QueryParam;
+import org.wso2.micro.integrator.dataservices.core.engine.Result;
+import org.wso2.micro.integrator.dataservices.core.engine.StaticOutputElement;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import javax.xml.namespace.QName;
+
+/**
+ * Test cases for executing the nested queries of a result page in a batch, with an IN list of the query param
+ * values of the parent rows.
+ */
+public class NestedQueryBatchTest extends TestCase {
+
+    private static final String CONFIG_ID = "default";
+
+    private static final String NAMESPACE = "http://ws.wso2.org/dataservice";
+
+    private static final String H2_URL = "jdbc:h2:mem:nested-query-batch-test;DB_CLOSE_DELAY=-1";
+
+    private static final String ORDERS_SQL = "SELECT id, total FROM Orders WHERE customerId = :customerId ORDER BY id";
+
+    private Connection connection;
+
+    private DataService dataService;
+
+    public NestedQueryBatchTest(String testName) {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        Class.forName("org.h2.Driver");
+        /* keeps the in memory database open for the test */
+        connection = DriverManager.getConnection(H2_URL);
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE Customers (id INT PRIMARY KEY, name VARCHAR(50))");
+            stmt.execute("CREATE TABLE Orders (id INT PRIMARY KEY, customerId INT, total INT)");
+            stmt.execute("INSERT INTO Customers VALUES (1, 'A'), (2, 'B'), (3, 'C'), (4, 'D'), (5, 'E')");
+            stmt.execute("INSERT INTO Orders VALUES (10, 1, 100), (11, 1, 110), (20, 2, 200), (30, 3, 300), " +
+                         "(50, 5, 500), (51, 5, 510), (52, 5, 520)");
+        }
+        dataService = new DataService("NestedQueryBatchService", null, NAMESPACE, null,
+                ServiceStatusValues.ACTIVE, false, false, null);
+        Map<String, String> properties = new HashMap<String, String>();
+        properties.put(RDBMS.DRIVER_CLASSNAME, "org.h2.Driver");
+        properties.put(RDBMS.URL, H2_URL);
+        dataService.addConfig(new RDBMSConfig(dataService, CONFIG_ID, properties));
+        addQuery("orders_query", ORDERS_SQL, intParam("customerId"), null, "Orders", "Order", "id", "total");
+        addOperation("select_customers", "SELECT id, name FROM Customers ORDER BY id", null);
+        Map<String, String> batchProperties = new HashMap<String, String>();
+        batchProperties.put(RDBMS.NESTED_QUERY_BATCH_SIZE, "2");
+        addOperation("select_customers_batched", "SELECT id, name FROM Customers ORDER BY id", batchProperties);
+        dataService.init();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        TLConnectionStore.closeAll();
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    public void testBatchableQueries() throws DataServiceFault {
+        assertTrue(isBatchable(ORDERS_SQL, intParam("customerId")));
+        assertTrue(isBatchable("SELECT DISTINCT total FROM Orders WHERE customerId = :customerId",
+                intParam("customerId")));
+        assertTrue(isBatchable("SELECT o.id FROM Orders o WHERE o.total > 0 AND (o.customerId = :customerId)",
+                intParam("customerId")));
+        assertTrue(isBatchable("SELECT id FROM Orders WHERE customerId = :customerId",
+                param("customerId", DataTypes.BIGINT)));
+    }
+
+    /**
+     * The queries, which can not be rewritten with an IN list of the param values, are executed for each row.
+     */
+    public void testNotBatchableQueries() throws DataServiceFault {
+        assertFalse(isBatchable("SELECT * FROM Orders WHERE customerId = :customerId", intParam("customerId")));
+        assertFalse(isBatchable("SELECT id FROM Orders WHERE customerId = :customerId OR total > 0",
+                intParam("customerId")));
+        assertFalse(isBatchable("SELECT customerId, COUNT(id) AS total FROM Orders WHERE customerId = :customerId " +
+                                "GROUP BY customerId", intParam("customerId")));
+        assertFalse(isBatchable("SELECT id, total FROM Orders WHERE customerId = :customerId ORDER BY 2",
+                intParam("customerId")));
+        assertFalse(isBatchable("SELECT id FROM Orders WHERE id IN (SELECT id FROM Orders WHERE " +
+                                "customerId = :customerId)", intParam("customerId")));
+        assertFalse(isBatchable("SELECT o.id FROM Orders o JOIN Customers c ON c.id = :customerId",
+                intParam("customerId")));
+        assertFalse(isBatchable("SELECT id FROM Orders WHERE NOT (customerId = :customerId)",
+                intParam("customerId")));
+        assertFalse(isBatchable("SELECT id FROM Orders WHERE customerId > :customerId", intParam("customerId")));
+        assertFalse(isBatchable("SELECT id FROM Orders WHERE name = :customerId",
+                param("customerId", DataTypes.STRING)));
+        assertFalse(isBatchable("SELECT id FROM Orders WHERE customerId = :customerId AND total = :customerId",
+                intParam("customerId")));
+        assertFalse(isBatchable("UPDATE Orders SET total = 0 WHERE customerId = :customerId",
+                intParam("customerId")));
+    }
+
+    public void testNestedQueryKeys() throws DataServiceFault {
+        SQLQuery query = (SQLQuery) dataService.getQuery("orders_query");
+        assertEquals("customerId", query.getNestedQueryKeyParam());
+        assertEquals("1", query.toNestedQueryKey(" 1 "));
+        assertEquals("2", query.toNestedQueryKey("2.0"));
+        assertNull(query.toNestedQueryKey("2.5"));
+        assertNull(query.toNestedQueryKey("3000000000"));
+        assertNull(query.toNestedQueryKey("abc"));
+    }
+
+    /**
+     * The rows of the rewritten query are grouped by the param value, the padded IN list does not duplicate rows,
+     * and the key column is not included in the entries.
+     */
+    public void testExecuteNestedQueryBatch() throws DataServiceFault {
+        SQLQuery query = (SQLQuery) dataService.getQuery("orders_query");
+        Map<String, List<DataEntry>> entries = query.executeNestedQueryBatch(Arrays.asList("1", "2", "5"), 1);
+        TLConnectionStore.commitAll();
+        assertEquals(3, entries.size());
+        assertEquals(2, entries.get("1").size());
+        assertEquals(1, entries.get("2").size());
+        assertEquals(3, entries.get("5").size());
+        for (DataEntry dataEntry : entries.get("5")) {
+            assertEquals(2, dataEntry.getData().size());
+        }
+        assertTrue(query.executeNestedQueryBatch(Arrays.asList("4"), 1).isEmpty());
+        TLConnectionStore.commitAll();
+    }
+
+    /**
+     * The result of a query with batched nested queries is the same as the result of executing the nested query
+     * for each row, including the rows without nested rows and the last partial page.
+     */
+    public void testStitchedResult() throws Exception {
+        String expected = execute("select_customers");
+        String actual = execute("select_customers_batched");
+        assertEquals(expected, actual);
+        assertTrue(actual.contains("510"));
+    }
+
+    /**
+     * The prefetched entries of a call query are replaced for each page, and the previous entries are returned,
+     * so the entries of an outer page can be restored.
+     */
+    public void testSetPrefetchedEntries() {
+        CallQuery callQuery = new CallQuery(dataService, "orders_query", new HashMap<String, WithParam>(),
+                new HashSet<String>());
+        Map<String, List<DataEntry>> outerEntries = new HashMap<String, List<DataEntry>>();
+        Map<String, List<DataEntry>> innerEntries = new HashMap<String, List<DataEntry>>();
+        assertNull(CallQuery.setPrefetchedEntries(callQuery, outerEntries));
+        assertSame(outerEntries, CallQuery.setPrefetchedEntries(callQuery, innerEntries));
+        assertSame(innerEntries, CallQuery.setPrefetchedEntries(callQuery, outerEntries));
+        assertSame(outerEntries, CallQuery.setPrefetchedEntries(callQuery, null));
+        assertNull(CallQuery.setPrefetchedEntries(callQuery, null));
+    }
+
+    private String execute(String operation) throws DataServiceFault {
+        OMElement result = new SingleDataServiceRequest(dataService, operation,
+                new HashMap<String, ParamValue>()).dispatch();
+        return result.toString();
+    }
+
+    private boolean isBatchable(String sql, QueryParam queryParam) throws DataServiceFault {
+        return ((SQLQuery) addQuery("batchable_query", sql, queryParam, null, "Orders", "Order", "id"))
+                .isNestedQueryBatchable();
+    }
+
+    private static QueryParam intParam(String name) throws DataServiceFault {
+        return param(name, DataTypes.INTEGER);
+    }
+
+    private static QueryParam param(String name, String sqlType) throws DataServiceFault {
+        return new QueryParam(name, sqlType, QueryTypes.IN, QueryParamTypes.SCALAR, 1, null, null,
+                new ArrayList<>(), false, false);
+    }
+
+    private void addOperation(String name, String sql, Map<String, String> advancedProperties)
+            throws DataServiceFault {
+        String queryId = name + "_query";
+        Map<String, WithParam> withParams = new HashMap<String, WithParam>();
+        withParams.put("customerId", new WithParam("customerId", "customerId", "id", DBConstants.DBSFields.COLUMN));
+        CallQuery ordersCallQuery = new CallQuery(dataService, "orders_query", withParams, new HashSet<String>());
+        SQLQuery query = addQuery(queryId, sql, null, advancedProperties, "Customers", "Customer", "id", "name");
+        query.getResult().getDefaultElementGroup().addCallQueryEntry(ordersCallQuery);
+        CallQuery callQuery = new CallQuery(dataService, queryId, new HashMap<String, WithParam>(),
+                new HashSet<String>());
+        dataService.addOperation(new Operation(dataService, name, null, callQuery, false, null, false, false));
+    }
+
+    private SQLQuery addQuery(String queryId, String sql, QueryParam queryParam,
+                              Map<String, String> advancedProperties, String elementName, String rowName,
+                              String... columns) throws DataServiceFault {
+        Result result = new Result(elementName, rowName, NAMESPACE, null, ResultTypes.XML);
+        OutputElementGroup elementGroup = new OutputElementGroup(null, null, null, null);
+        for (String column : columns) {
+            elementGroup.addElementEntry(new StaticOutputElement(dataService, column, column, column,
+                    DBConstants.DBSFields.COLUMN, DBConstants.DBSFields.ELEMENT, NAMESPACE,
+                    new QName(DBConstants.XSD_NAMESPACE, "integer"), new HashSet<String>(), DataCategory.VALUE,
+                    ResultTypes.XML, null, ParamValue.PARAM_VALUE_SCALAR, null));
+        }
+        result.setDefaultElementGroup(elementGroup);
+        List<QueryParam> queryParams = new ArrayList<QueryParam>();
+        if (queryParam != null) {
+            queryParams.add(queryParam);
+        }
+        SQLQuery query = new SQLQuery(dataService, queryId, CONFIG_ID, false, false, null, sql, queryParams, result,
+                null, null, advancedProperties != null ? advancedProperties : new HashMap<String, String>(),
+                NAMESPACE);
+        dataService.addQuery(query);
+        return query;
+    }
+
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.dataservices.core.test.query;
+
+import junit.framework.TestCase;
+import org.apache.axis2.context.MessageContext;
+import org.wso2.micro.integrator.dataservices.common.DBConstants;
+import org.wso2.micro.integrator.dataservices.common.DBConstants.DataCategory;
+import org.wso2.micro.integrator.dataservices.common.DBConstants.RDBMS;
+import org.wso2.micro.integrator.dataservices.common.DBConstants.ResultTypes;
+import org.wso2.micro.integrator.dataservices.common.DBConstants.ServiceStatusValues;
+import org.wso2.micro.integrator.dataservices.core.DataServiceFault;
+import org.wso2.micro.integrator.dataservices.core.TLConnectionStore;
+import org.wso2.micro.integrator.dataservices.core.auth.AuthorizationProvider;
+import org.wso2.micro.integrator.dataservices.core.auth.DynamicUserAuthenticator;
+import org.wso2.micro.integrator.dataservices.core.description.config.RDBMSConfig;
+import org.wso2.micro.integrator.dataservices.core.description.operation.Operation;
+import org.wso2.micro.integrator.dataservices.core.description.query.QueryParam;
+import org.wso2.micro.integrator.dataservices.core.description.query.SQLQuery;
+import org.wso2.micro.integrator.dataservices.core.dispatch.DataServiceRequest;
+import org.wso2.micro.integrator.dataservices.core.dispatch.RequestBoxRequest;
+import org.wso2.micro.integrator.dataservices.core.dispatch.SingleDataServiceRequest;
+import org.wso2.micro.integrator.dataservices.core.engine.CallQuery;
+import org.wso2.micro.integrator.dataservices.core.engine.DataService;
+import org.wso2.micro.integrator.dataservices.core.engine.OutputElementGroup;
+import org.wso2.micro.integrator.dataservices.core.engine.ParamValue;
+import org.wso2.micro.integrator.dataservices.core.engine.Result;
+import org.wso2.micro.integrator.dataservices.core.engine.StaticOutputElement;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import javax.xml.namespace.QName;
+
+/**
+ * Test cases for choosing the parallel execution of a request box, which is only done when all the requests of
+ * the box are independent read requests.
+ */
+public class ParallelRequestBoxTest extends TestCase {
+
+    private static final String CONFIG_ID = "default";
+
+    private static final String NAMESPACE = "http://ws.wso2.org/dataservice";
+
+    private static final String AUTH_H2_URL = "jdbc:h2:mem:parallel-request-box-auth-test;DB_CLOSE_DELAY=-1";
+
+    private DataService dataService;
+
+    public ParallelRequestBoxTest(String testName) {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        /* an inactive service does not initialize the data source of its config */
+        dataService = new DataService("ParallelRequestBoxService", null, NAMESPACE, null,
+                ServiceStatusValues.INACTIVE, false, false, null);
+        dataService.setParallelRequestBoxEnabled(true);
+        Map<String, String> properties = new HashMap<String, String>();
+        properties.put(RDBMS.DRIVER_CLASSNAME, "org.h2.Driver");
+        properties.put(RDBMS.URL, "jdbc:h2:mem:parallel-request-box-test");
+        dataService.addConfig(new RDBMSConfig(dataService, CONFIG_ID, properties));
+        addOperation("select_customers", "SELECT id, name FROM Customers", false, null);
+        addOperation("select_orders", "select id, name from Orders where id = 1", false, null);
+        addOperation("select_for_update", "SELECT id, name FROM Orders FOR UPDATE", false, null);
+        addOperation("select_exported", "SELECT id, name FROM Customers", false, "customerId");
+        addOperation("select_generated_keys", "SELECT id, name FROM Customers", true, null);
+        addOperation("call_procedure", "CALL getCustomers()", false, null);
+        addOperation("update_customers", "UPDATE Customers SET name = 'a'", false, null, false, null);
+        addOperation("select_nested_select", "SELECT id, name FROM Customers", false, null, true,
+                "select_orders");
+        addOperation("select_nested_update", "SELECT id, name FROM Customers", false, null, true,
+                "update_customers");
+        dataService.init();
+    }
+
+    public void testIndependentReadRequests() throws DataServiceFault {
+        assertTrue(RequestBoxRequest.isParallelExecutable(dataService,
+                requests("select_customers", "select_orders", "select_customers")));
+        assertTrue(RequestBoxRequest.isParallelExecutable(dataService,
+                requests("select_customers", "select_nested_select")));
+    }
+
+    public void testParallelExecutionDisabled() throws DataServiceFault {
+        dataService.setParallelRequestBoxEnabled(false);
+        assertFalse(RequestBoxRequest.isParallelExecutable(dataService,
+                requests("select_customers", "select_orders")));
+    }
+
+    public void testSingleRequest() throws DataServiceFault {
+        assertFalse(RequestBoxRequest.isParallelExecutable(dataService, requests("select_customers")));
+    }
+
+    public void testWriteRequests() throws DataServiceFault {
+        assertFalse(RequestBoxRequest.isParallelExecutable(dataService,
+                requests("select_customers", "update_customers")));
+        assertFalse(RequestBoxRequest.isParallelExecutable(dataService,
+                requests("select_customers", "select_for_update")));
+        assertFalse(RequestBoxRequest.isParallelExecutable(dataService,
+                requests("select_customers", "select_generated_keys")));
+        assertFalse(RequestBoxRequest.isParallelExecutable(dataService,
+                requests("select_customers", "call_procedure")));
+    }
+
+    /**
+     * A request is not independent when it exports a value to the later requests, or calls a nested query which
+     * writes data.
+     */
+    public void testDependentRequests() throws DataServiceFault {
+        assertFalse(RequestBoxRequest.isParallelExecutable(dataService,
+                requests("select_exported", "select_customers")));
+        assertFalse(RequestBoxRequest.isParallelExecutable(dataService,
+                requests("select_customers", "select_nested_update")));
+    }
+
+    public void testReadOnlyQueries() {
+        assertTrue(dataService.getQuery("select_customers_query").isReadOnly());
+        assertTrue(dataService.getQuery("select_orders_query").isReadOnly());
+        assertFalse(dataService.getQuery("select_for_update_query").isReadOnly());
+        assertFalse(dataService.getQuery("select_generated_keys_query").isReadOnly());
+        assertFalse(dataService.getQuery("call_procedure_query").isReadOnly());
+        assertFalse(dataService.getQuery("update_customers_query").isReadOnly());
+    }
+
+    /**
+     * The requests executed in parallel look up the credentials of the dynamic user authentication with the user of
+     * the message context of the request box, and not with the wildcard user, which has no credentials here.
+     */
+    public void testDynamicUserAuth() throws Exception {
+        Class.forName("org.h2.Driver");
+        /* keeps the in memory database open for the test */
+        Connection connection = DriverManager.getConnection(AUTH_H2_URL);
+        try {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("CREATE TABLE Customers (id INT PRIMARY KEY, name VARCHAR(50))");
+                stmt.execute("CREATE TABLE Orders (id INT PRIMARY KEY, name VARCHAR(50))");
+                stmt.execute("INSERT INTO Customers VALUES (1, 'A'), (2, 'B')");
+                stmt.execute("INSERT INTO Orders VALUES (1, 'C')");
+                stmt.execute("CREATE USER alice_db PASSWORD 'secret' ADMIN");
+            }
+            dataService = new DataService("ParallelRequestBoxAuthService", null, NAMESPACE, null,
+                    ServiceStatusValues.ACTIVE, false, false, null);
+            dataService.setParallelRequestBoxEnabled(true);
+            dataService.setAuthorizationProvider(new ContextUserProvider());
+            Map<String, String> properties = new HashMap<String, String>();
+            properties.put(RDBMS.DRIVER_CLASSNAME, "org.h2.Driver");
+            properties.put(RDBMS.URL, AUTH_H2_URL);
+            properties.put(RDBMS.DYNAMIC_USER_AUTH_CLASS, RecordingUserAuthenticator.class.getName());
+            dataService.addConfig(new RDBMSConfig(dataService, CONFIG_ID, properties));
+            addOperation("select_customers", "SELECT id, name FROM Customers", false, null);
+            addOperation("select_orders", "SELECT id, name FROM Orders", false, null);
+            dataService.init();
+
+            RequestBoxRequest requestBox = new RequestBoxRequest(dataService, "request_box");
+            for (DataServiceRequest request : requests("select_customers", "select_orders")) {
+                requestBox.addRequests(request);
+            }
+            assertTrue(RequestBoxRequest.isParallelExecutable(dataService,
+                    requests("select_customers", "select_orders")));
+            MessageContext messageContext = new MessageContext();
+            messageContext.setProperty(ContextUserProvider.USERNAME_PROPERTY, "alice");
+            MessageContext.setCurrentMessageContext(messageContext);
+            RecordingUserAuthenticator.USERS.clear();
+
+            assertNotNull(requestBox.processRequest());
+            assertFalse(RecordingUserAuthenticator.USERS.isEmpty());
+            assertEquals(Collections.singleton("alice"), new HashSet<String>(RecordingUserAuthenticator.USERS));
+        } finally {
+            MessageContext.setCurrentMessageContext(null);
+            TLConnectionStore.closeAll();
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("DROP ALL OBJECTS");
+            }
+            connection.close();
+        }
+    }
+
+    private List<DataServiceRequest> requests(String... requestNames) throws DataServiceFault {
+        List<DataServiceRequest> requests = new ArrayList<DataServiceRequest>();
+        for (String requestName : Arrays.asList(requestNames)) {
+            requests.add(new SingleDataServiceRequest(dataService, requestName, new HashMap<String, ParamValue>()));
+        }
+        return requests;
+    }
+
+    private void addOperation(String name, String sql, boolean returnGeneratedKeys, String export)
+            throws DataServiceFault {
+        addOperation(name, sql, returnGeneratedKeys, export, true, null);
+    }
+
+    /**
+     * Adds an operation, which calls a query with the given SQL, with a result of an id element, and a nested
+     * query call when the nested operation is given.
+     */
+    private void addOperation(String name, String sql, boolean returnGeneratedKeys, String export,
+                              boolean hasResult, String nestedOperation) throws DataServiceFault {
+        Result result = null;
+        if (hasResult) {
+            result = new Result("Entries", "Entry", NAMESPACE, null, ResultTypes.XML);
+            OutputElementGroup elementGroup = new OutputElementGroup(null, null, null, null);
+            elementGroup.addElementEntry(new StaticOutputElement(dataService, "id", "id", "id",
+                    DBConstants.DBSFields.COLUMN, DBConstants.DBSFields.ELEMENT, NAMESPACE,
+                    new QName(DBConstants.XSD_NAMESPACE, "integer"), new HashSet<String>(), DataCategory.VALUE,
+                    ResultTypes.XML, export, ParamValue.PARAM_VALUE_SCALAR, null));
+            if (nestedOperation != null) {
+                elementGroup.addCallQueryEntry(new CallQuery(dataService, nestedOperation + "_query",
+                        new HashMap<>(), new HashSet<String>()));
+            }
+            result.setDefaultElementGroup(elementGroup);
+        }
+        String queryId = name + "_query";
+        dataService.addQuery(new SQLQuery(dataService, queryId, CONFIG_ID, returnGeneratedKeys, false, null, sql,
+                new ArrayList<QueryParam>(), result, null, null, new HashMap<String, String>(), NAMESPACE));
+        CallQuery callQuery = new CallQuery(dataService, queryId, new HashMap<>(), new HashSet<String>());
+        dataService.addOperation(new Operation(dataService, name, null, callQuery, false, null, false, false));
+    }
+
+    /**
+     * Provides the user of the message context, as it is set by the test.
+     */
+    private static class ContextUserProvider implements AuthorizationProvider {
+
+        private static final String USERNAME_PROPERTY = "test.username";
+
+        @Override
+        public String[] getUserRoles(MessageContext msgContext) {
+            return new String[0];
+        }
+
+        @Override
+        public String[] getAllRoles() {
+            return new String[0];
+        }
+
+        @Override
+        public String getUsername(MessageContext msgContext) {
+            return (String) msgContext.getProperty(USERNAME_PROPERTY);
+        }
+
+        @Override
+        public void init(Map<String, String> authorizationProps) {
+        }
+    }
+
+    /**
+     * Records the users, for which the credentials are looked up, and maps only the user alice to a database user.
+     */
+    public static class RecordingUserAuthenticator implements DynamicUserAuthenticator {
+
+        private static final List<String> USERS = Collections.synchronizedList(new ArrayList<String>());
+
+        @Override
+        public String[] lookupCredentials(String user) {
+            USERS.add(user);
+            return "alice".equals(user) ? new String[] { "ALICE_DB", "secret" } : null;
+        }
+    }
+
+}
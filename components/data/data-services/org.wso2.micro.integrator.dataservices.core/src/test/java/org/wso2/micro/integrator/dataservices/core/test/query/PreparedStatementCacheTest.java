@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.micro.integrator.dataservices.core.test.query;
+
+import junit.framework.TestCase;
+import org.wso2.micro.integrator.dataservices.core.description.query.PreparedStatementCache;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test cases for the prepared statement cache of a SQL data source configuration.
+ */
+public class PreparedStatementCacheTest extends TestCase {
+
+    private static final String H2_URL = "jdbc:h2:mem:statement-cache-test;DB_CLOSE_DELAY=-1";
+
+    private static final String SELECT_SQL = "SELECT 1";
+
+    private static final String INSERT_SQL = "SELECT ?";
+
+    private Connection conn;
+
+    public PreparedStatementCacheTest(String testName) {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        Class.forName("org.h2.Driver");
+        conn = DriverManager.getConnection(H2_URL);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (!conn.isClosed()) {
+            conn.close();
+        }
+    }
+
+    public void testHitAndMissCounts() throws SQLException {
+        PreparedStatementCache cache = new PreparedStatementCache(10);
+        PreparedStatement stmt = cache.prepareStatement(conn, SELECT_SQL, false, null);
+        assertSame(stmt, cache.prepareStatement(conn, SELECT_SQL, false, null));
+        assertNotSame(stmt, cache.prepareStatement(conn, SELECT_SQL, true, null));
+        assertNotSame(stmt, cache.prepareStatement(conn, SELECT_SQL, true, new String[]{"ID"}));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+        assertEquals(0, cache.getEvictionCount());
+        assertEquals(3, cache.getCachedStatementCount());
+        cache.close();
+    }
+
+    public void testReleaseAndDiscard() throws SQLException {
+        PreparedStatementCache cache = new PreparedStatementCache(10);
+        PreparedStatement stmt = cache.prepareStatement(conn, INSERT_SQL, false, null);
+        stmt.setInt(1, 5);
+        assertTrue(cache.release(stmt));
+        assertFalse(stmt.isClosed());
+
+        /* a statement which is not cached has to be closed by the caller */
+        PreparedStatement uncached = conn.prepareStatement(INSERT_SQL);
+        assertFalse(cache.release(uncached));
+        uncached.close();
+
+        cache.discard(stmt);
+        assertEquals(0, cache.getCachedStatementCount());
+        assertFalse(cache.release(stmt));
+        assertNotSame(stmt, cache.prepareStatement(conn, INSERT_SQL, false, null));
+        stmt.close();
+        cache.close();
+    }
+
+    /**
+     * The least recently used statement of a connection is closed when the cache of the connection is full.
+     */
+    public void testEviction() throws SQLException {
+        PreparedStatementCache cache = new PreparedStatementCache(2);
+        PreparedStatement first = cache.prepareStatement(conn, "SELECT 1", false, null);
+        PreparedStatement second = cache.prepareStatement(conn, "SELECT 2", false, null);
+        /* the first statement is used again, so the second one is the eldest */
+        assertSame(first, cache.prepareStatement(conn, "SELECT 1", false, null));
+        cache.prepareStatement(conn, "SELECT 3", false, null);
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(2, cache.getCachedStatementCount());
+        assertTrue(second.isClosed());
+        assertFalse(first.isClosed());
+        assertFalse(cache.release(second));
+        cache.close();
+    }
+
+    /**
+     * The statements of the connections closed by the pool are removed once the number of connections seen has
+     * doubled, so the closed connections do not accumulate, and the statements of the open connections are kept.
+     */
+    public void testCloseOnConnectionClose() throws SQLException {
+        PreparedStatementCache cache = new PreparedStatementCache(10);
+        PreparedStatement stmt = cache.prepareStatement(conn, SELECT_SQL, false, null);
+        List<PreparedStatement> closedStmts = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Connection newConn = DriverManager.getConnection(H2_URL);
+            closedStmts.add(cache.prepareStatement(newConn, SELECT_SQL, false, null));
+            newConn.close();
+            assertTrue(cache.getCachedStatementCount() <= 16);
+        }
+        /* the statements of the first closed connections are closed by the cache */
+        for (PreparedStatement closedStmt : closedStmts.subList(0, 50)) {
+            assertTrue(closedStmt.isClosed());
+            assertFalse(cache.release(closedStmt));
+        }
+        assertSame(stmt, cache.prepareStatement(conn, SELECT_SQL, false, null));
+        assertFalse(stmt.isClosed());
+        cache.close();
+        assertTrue(stmt.isClosed());
+        assertEquals(0, cache.getCachedStatementCount());
+    }
+
+    /**
+     * The statements are prepared with the physical connection, so they are reused across the connection handles
+     * given out by the pool, and they stay open when a handle is closed.
+     */
+    public void testPooledConnectionHandles() throws SQLException {
+        PreparedStatementCache cache = new PreparedStatementCache(10);
+        Connection firstHandle = pooled(conn);
+        PreparedStatement stmt = cache.prepareStatement(firstHandle, SELECT_SQL, false, null);
+        firstHandle.close();
+        Connection secondHandle = pooled(conn);
+        assertSame(stmt, cache.prepareStatement(secondHandle, SELECT_SQL, false, null));
+        assertFalse(stmt.isClosed());
+        assertEquals(1, cache.getHitCount());
+        cache.close();
+        assertTrue(stmt.isClosed());
+    }
+
+    /**
+     * The statements of a connection handle which does not expose the physical connection are cached for the
+     * handle.
+     */
+    public void testUnwrappableConnectionHandles() throws SQLException {
+        PreparedStatementCache cache = new PreparedStatementCache(10);
+        Connection handle = pooled(conn, false);
+        PreparedStatement stmt = cache.prepareStatement(handle, SELECT_SQL, false, null);
+        assertSame(stmt, cache.prepareStatement(handle, SELECT_SQL, false, null));
+        assertNotSame(stmt, cache.prepareStatement(pooled(conn, false), SELECT_SQL, false, null));
+        assertEquals(2, cache.getCachedStatementCount());
+        cache.close();
+        assertTrue(stmt.isClosed());
+    }
+
+    private static Connection pooled(Connection physicalConn) {
+        return pooled(physicalConn, true);
+    }
+
+    /**
+     * Creates a connection handle of a pool, which is not closing the physical connection, and exposes it through
+     * the JDBC wrapper interface if it is unwrappable.
+     */
+    private static Connection pooled(Connection physicalConn, boolean unwrappable) {
+        InvocationHandler handler = new InvocationHandler() {
+
+            private boolean closed;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "isWrapperFor":
+                        return unwrappable || ((Class<?>) args[0]).isInstance(proxy);
+                    case "unwrap":
+                        if (closed) {
+                            throw new SQLException("Connection has already been closed.");
+                        }
+                        return unwrappable ? physicalConn : proxy;
+                    case "close":
+                        closed = true;
+                        return null;
+                    case "isClosed":
+                        return closed;
+                    default:
+                        try {
+                            return method.invoke(physicalConn, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                }
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(PreparedStatementCacheTest.class.getClassLoader(),
+                new Class[]{Connection.class}, handler);
+    }
+}
@@ -27,8 +27,8 @@ import org.apache.synapse.startup.quartz.StartUpController;
 import org.apache.synapse.task.TaskDescription;
 import org.apache.synapse.task.TaskManager;
 import org.wso2.carbon.inbound.endpoint.persistence.InboundEndpointsDataStore;
-import org.wso2.carbon.inbound.endpoint.protocol.rabbitmq.RabbitMQTask;
 import org.wso2.micro.integrator.mediation.ntask.NTaskTaskManager;
+import org.wso2.micro.integrator.ntask.core.impl.LocalTaskActionListener;
 
 import static org.wso2.carbon.inbound.endpoint.common.Constants.SUPER_TENANT_DOMAIN_NAME;
 
@@ -80,10 +80,10 @@ public abstract class InboundOneTimeTriggerRequestProcessor implements InboundRe
                 startUpController.setTaskDescription(taskDescription);
                 startUpController.init(synapseEnvironment);
                 // registering a listener to identify task removal or deletions.
-                if (task instanceof RabbitMQTask) {
+                if (task instanceof LocalTaskActionListener) {
                     TaskManager taskManagerImpl = synapseEnvironment.getTaskManager().getTaskManagerImpl();
                     if (taskManagerImpl instanceof NTaskTaskManager) {
-                        ((NTaskTaskManager) taskManagerImpl).registerListener((RabbitMQTask) task,
+                        ((NTaskTaskManager) taskManagerImpl).registerListener((LocalTaskActionListener) task,
                                                                               taskDescription.getName());
                     }
                 }
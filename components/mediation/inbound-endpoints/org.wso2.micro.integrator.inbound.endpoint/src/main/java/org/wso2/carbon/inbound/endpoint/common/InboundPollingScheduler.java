@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.inbound.endpoint.common;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * InboundPollingScheduler runs the poll cycles of the non coordinated polling inbound endpoints which opt in for the
+ * shared polling, over a small pool of threads shared by those endpoints instead of a thread per endpoint. A cycle
+ * holds a thread of the pool while it runs, hence the endpoints whose cycles block, such as a JMS consumer without a
+ * receive timeout, keep a thread of their own. The size of the pool can be set with the
+ * inbound.polling.scheduler.threads system property, it is the number of processors by default.
+ */
+public class InboundPollingScheduler {
+
+    private static final Log log = LogFactory.getLog(InboundPollingScheduler.class);
+
+    private static final String POOL_SIZE_PROPERTY = "inbound.polling.scheduler.threads";
+    private static final int MIN_POOL_SIZE = 2;
+
+    private final ScheduledThreadPoolExecutor executor;
+    private final int poolSize;
+
+    private InboundPollingScheduler() {
+        int poolSize = Integer.getInteger(POOL_SIZE_PROPERTY,
+                                          Math.max(MIN_POOL_SIZE, Runtime.getRuntime().availableProcessors()));
+        if (poolSize < 1) {
+            log.warn("Invalid value " + poolSize + " for " + POOL_SIZE_PROPERTY + ". Using " + MIN_POOL_SIZE
+                             + " polling threads.");
+            poolSize = MIN_POOL_SIZE;
+        }
+        this.poolSize = poolSize;
+        executor = new ScheduledThreadPoolExecutor(poolSize, new PollingThreadFactory());
+        executor.setRemoveOnCancelPolicy(true);
+        log.info("Inbound polling scheduler started with " + poolSize + " threads.");
+    }
+
+    public static InboundPollingScheduler getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Schedules a poll cycle of an endpoint.
+     *
+     * @param cycle the poll cycle
+     * @param delay delay of the cycle in milliseconds, the cycle is run as soon as a thread is free if it is zero
+     * @return the future of the scheduled cycle, which can be used to cancel it
+     */
+    ScheduledFuture<?> schedule(Runnable cycle, long delay) {
+        return executor.schedule(cycle, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the number of threads of the pool
+     */
+    int getPoolSize() {
+        return poolSize;
+    }
+
+    private static class Holder {
+        private static final InboundPollingScheduler INSTANCE = new InboundPollingScheduler();
+    }
+
+    private static class PollingThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "inbound-polling-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
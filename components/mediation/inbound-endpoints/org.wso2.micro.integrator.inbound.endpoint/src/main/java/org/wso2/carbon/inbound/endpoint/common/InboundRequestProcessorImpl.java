@@ -19,20 +19,20 @@ package org.wso2.carbon.inbound.endpoint.common;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.SynapseException;
 import org.apache.synapse.core.SynapseEnvironment;
 import org.apache.synapse.inbound.InboundRequestProcessor;
 import org.apache.synapse.startup.quartz.StartUpController;
 import org.apache.synapse.task.TaskDescription;
 import org.apache.synapse.task.TaskManager;
 import org.wso2.carbon.inbound.endpoint.persistence.InboundEndpointsDataStore;
+import org.wso2.carbon.inbound.endpoint.protocol.PollingConstants;
 import org.wso2.carbon.inbound.endpoint.protocol.jms.JMSTask;
 import org.wso2.micro.integrator.mediation.ntask.NTaskTaskManager;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.Properties;
 
 /**
  * This class provides the common implementation for polling protocol processors
@@ -45,7 +45,7 @@ public abstract class InboundRequestProcessorImpl implements InboundRequestProce
     protected boolean coordination;
 
     private List<StartUpController> startUpControllersList = new ArrayList<>();
-    private HashMap<Thread, InboundRunner> inboundRunnersThreadsMap = new HashMap<>();
+    private List<InboundRunner> inboundRunners = new ArrayList<>();
     private static final Log log = LogFactory.getLog(InboundRequestProcessorImpl.class);
     private InboundEndpointsDataStore dataStore;
 
@@ -96,15 +96,55 @@ public abstract class InboundRequestProcessorImpl implements InboundRequestProce
             }
         } else {
 
-            startInboundRunnerThread(task, Constants.SUPER_TENANT_DOMAIN_NAME, false);
+            startInboundRunner(task);
         }
     }
 
-    private void startInboundRunnerThread(InboundTask task, String tenantDomain, boolean mgrOverride) {
-        InboundRunner inboundRunner = new InboundRunner(task, interval, tenantDomain, mgrOverride);
-        Thread runningThread = new Thread(inboundRunner);
-        inboundRunnersThreadsMap.put(runningThread, inboundRunner);
-        runningThread.start();
+    private void startInboundRunner(InboundTask task) {
+        boolean sharedPolling = isSharedPolling(task);
+        InboundRunner inboundRunner = new InboundRunner(task, interval, getMaxInterval(task), sharedPolling);
+        inboundRunners.add(inboundRunner);
+        if (sharedPolling && inboundRunners.size() > InboundPollingScheduler.getInstance().getPoolSize()) {
+            log.warn("The " + inboundRunners.size() + " consumers of the inbound endpoint " + name + " share the "
+                             + InboundPollingScheduler.getInstance().getPoolSize() + " threads of the shared "
+                             + "polling. At most that many of them poll at a time.");
+        }
+        inboundRunner.start();
+    }
+
+    /**
+     * Whether the poll cycles of the task are run by the threads shared by the endpoints, instead of a thread of
+     * its own. This is enabled by the shared.polling parameter of the endpoint, the processors whose cycles block
+     * disable it.
+     */
+    protected boolean isSharedPolling(InboundTask task) {
+        Properties properties = task.getInboundProperties();
+        return properties != null
+                && Boolean.parseBoolean(properties.getProperty(PollingConstants.INBOUND_ENDPOINT_SHARED_POLLING));
+    }
+
+    /**
+     * The max interval of the adaptive polling, the interval of an idle endpoint is backed off up to it. It is the
+     * interval by default, which keeps polling an idle endpoint in the interval.
+     */
+    private long getMaxInterval(InboundTask task) {
+        Properties properties = task.getInboundProperties();
+        String maxInterval = properties != null ?
+                properties.getProperty(PollingConstants.INBOUND_ENDPOINT_MAX_INTERVAL) : null;
+        if (maxInterval == null) {
+            return interval;
+        }
+        try {
+            long value = Long.parseLong(maxInterval);
+            if (value < interval) {
+                log.warn("The " + PollingConstants.INBOUND_ENDPOINT_MAX_INTERVAL + " of the inbound endpoint " + name
+                                 + " is less than the interval. Polling in the interval : " + interval);
+                return interval;
+            }
+            return value;
+        } catch (NumberFormatException nfe) {
+            throw new SynapseException("Invalid numeric value for max.interval.", nfe);
+        }
     }
 
     /**
@@ -119,24 +159,11 @@ public abstract class InboundRequestProcessorImpl implements InboundRequestProce
                 sc.destroy();
             }
             startUpControllersList.clear();
-        } else if (!inboundRunnersThreadsMap.isEmpty()) {
-
-            Iterator itr = inboundRunnersThreadsMap.entrySet().iterator();
-            while (itr.hasNext()) {
-                Map.Entry entry = (Map.Entry) itr.next();
-                Thread thread = (Thread) entry.getKey();
-                InboundRunner inboundRunner = (InboundRunner) entry.getValue();
-
+        } else if (!inboundRunners.isEmpty()) {
+            for (InboundRunner inboundRunner : inboundRunners) {
                 inboundRunner.terminate();
-                thread.interrupt();
-                try {
-                    thread.join();
-                } catch (InterruptedException e) {
-                    thread.interrupt();
-                    log.error("Error while stopping the inbound thread.");
-                }
             }
-            inboundRunnersThreadsMap.clear();
+            inboundRunners.clear();
         }
     }
 
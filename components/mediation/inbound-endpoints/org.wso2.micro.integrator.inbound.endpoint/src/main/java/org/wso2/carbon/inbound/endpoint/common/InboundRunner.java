@@ -20,74 +20,183 @@ package org.wso2.carbon.inbound.endpoint.common;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * InboundRunner class is used to run the non coordinated processors in
- * background according to the scheduled interval
+ * background according to the scheduled interval. The interval adapts to the
+ * load: the task is polled again immediately while its cycles find work, and
+ * the interval is doubled after each idle cycle, up to the max interval.
+ * The poll cycles are run by a thread of the runner, or by the shared
+ * {@link InboundPollingScheduler} when the endpoint opts in for it, which
+ * suits only the endpoints whose cycles do not block.
  */
 public class InboundRunner implements Runnable {
 
     private InboundTask task;
     private long interval;
+    private long maxInterval;
+    private boolean sharedPolling;
 
     private volatile boolean execute = true;
-    private volatile boolean init = false;
-    // Following will be used to calculate the sleeping interval
-    private long lastRuntime;
-    private long currentRuntime;
-    private long cycleInterval;
-    private String tenantDomain;
-    private boolean runOnManagerOverride = false;
+    // Following will be used to calculate the delay of the next cycle
+    private long idleInterval;
+    private ScheduledExecutorService executor;
+    private ScheduledFuture<?> nextCycle;
+    // thread running the current poll cycle, interrupted when the runner is terminated
+    private Thread cycleThread;
+    private final Object cycleLock = new Object();
+
+    // max time to wait for the running cycle on termination, in milliseconds
+    private static final long TERMINATION_TIMEOUT = 30000;
 
-    private static final String CLUSTERING_PATTERN = "clusteringPattern";
-    private static final String CLUSTERING_PATTERN_WORKER_MANAGER = "WorkerManager";
     private static final Log log = LogFactory.getLog(InboundRunner.class);
 
-    public InboundRunner(InboundTask task, long interval, String tenantDomain, boolean mgrOverride) {
+    public InboundRunner(InboundTask task, long interval) {
+        this(task, interval, interval, false);
+    }
+
+    public InboundRunner(InboundTask task, long interval, long maxInterval, boolean sharedPolling) {
         this.task = task;
         this.interval = interval;
-        this.tenantDomain = tenantDomain;
-        this.runOnManagerOverride = mgrOverride;
+        this.maxInterval = Math.max(interval, maxInterval);
+        this.idleInterval = interval;
+        this.sharedPolling = sharedPolling;
+    }
+
+    /**
+     * Schedule the first poll cycle
+     */
+    protected void start() {
+        log.debug("Starting the Inbound Endpoint.");
+        synchronized (cycleLock) {
+            if (!sharedPolling) {
+                executor = Executors.newSingleThreadScheduledExecutor();
+            }
+            nextCycle = schedule(0);
+        }
     }
 
     /**
-     * Exit the running while loop and terminate the thread
+     * Stop scheduling the poll cycles, interrupt the running cycle and wait for it to complete, up to the
+     * termination timeout, so that the task is not destroyed while a cycle is still using it.
      */
     protected void terminate() {
         execute = false;
+        ExecutorService runnerExecutor;
+        boolean inCycle;
+        synchronized (cycleLock) {
+            if (nextCycle != null) {
+                nextCycle.cancel(false);
+                nextCycle = null;
+            }
+            if (cycleThread != null) {
+                cycleThread.interrupt();
+            }
+            inCycle = cycleThread == Thread.currentThread();
+            runnerExecutor = executor;
+            if (runnerExecutor != null) {
+                runnerExecutor.shutdown();
+            }
+        }
+        if (inCycle) {
+            // a task terminating its own runner from within a cycle can not wait for the cycle
+            log.debug("Exit the Inbound Endpoint polling cycles.");
+            return;
+        }
+        try {
+            boolean terminated;
+            if (runnerExecutor != null) {
+                terminated = runnerExecutor.awaitTermination(TERMINATION_TIMEOUT, TimeUnit.MILLISECONDS);
+            } else {
+                terminated = awaitCycleCompletion(TERMINATION_TIMEOUT);
+            }
+            if (!terminated) {
+                log.warn("The polling cycle of the Inbound Endpoint did not complete within " + TERMINATION_TIMEOUT
+                                 + "ms of the termination.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while waiting for the polling cycle of the Inbound Endpoint to complete.");
+        }
+        log.debug("Exit the Inbound Endpoint polling cycles.");
+    }
+
+    /**
+     * Wait for the cycle run by a shared polling thread to complete.
+     *
+     * @param timeout max time to wait in milliseconds
+     * @return true if no cycle is running
+     */
+    private boolean awaitCycleCompletion(long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        synchronized (cycleLock) {
+            while (cycleThread != null) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                cycleLock.wait(remaining);
+            }
+        }
+        return true;
     }
 
     @Override
     public void run() {
-        log.debug("Starting the Inbound Endpoint.");
-
-        log.debug("Configuration context loaded. Running the Inbound Endpoint.");
-        // Run the poll cycles
-        while (execute) {
-            log.debug("Executing the Inbound Endpoint.");
-            lastRuntime = getTime();
-            try {
-                task.taskExecute();
-            } catch (Exception e) {
-                log.error("Error executing the inbound endpoint polling cycle.", e);
+        synchronized (cycleLock) {
+            if (!execute) {
+                return;
             }
-            currentRuntime = getTime();
-            cycleInterval = interval - (currentRuntime - lastRuntime);
-            if (cycleInterval > 0) {
-                try {
-                    Thread.sleep(interval);
-                } catch (InterruptedException e) {
-                    if (log.isDebugEnabled()) {
-                        log.debug("Unable to sleep the inbound thread for interval of : " + interval + "ms.");
-                    }
-                }
+            cycleThread = Thread.currentThread();
+        }
+        log.debug("Executing the Inbound Endpoint.");
+        boolean workFound = false;
+        try {
+            workFound = task.pollCycle();
+        } catch (Exception e) {
+            log.error("Error executing the inbound endpoint polling cycle.", e);
+        } finally {
+            synchronized (cycleLock) {
+                cycleThread = null;
+                cycleLock.notifyAll();
+                // clear the interrupt of a terminate, so that it does not reach the next task of a shared thread
+                Thread.interrupted();
             }
         }
-        log.debug("Exit the Inbound Endpoint running loop.");
+        synchronized (cycleLock) {
+            if (!execute) {
+                return;
+            }
+            long delay;
+            if (workFound) {
+                delay = 0;
+                idleInterval = interval;
+            } else {
+                delay = idleInterval;
+                idleInterval = Math.min(idleInterval * 2, maxInterval);
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Next poll cycle of the Inbound Endpoint in " + delay + "ms.");
+            }
+            nextCycle = schedule(delay);
+        }
     }
 
-    private Long getTime() {
-        return new Date().getTime();
+    /**
+     * Schedule a poll cycle of the task.
+     *
+     * @param delay delay of the cycle in milliseconds
+     * @return the future of the scheduled cycle
+     */
+    protected ScheduledFuture<?> schedule(long delay) {
+        if (sharedPolling) {
+            return InboundPollingScheduler.getInstance().schedule(this, delay);
+        }
+        return executor.schedule(this, delay, TimeUnit.MILLISECONDS);
     }
 }
@@ -64,5 +64,17 @@ public abstract class InboundTask implements org.apache.synapse.task.Task, Manag
 
     protected abstract void taskExecute();
 
+    /**
+     * Run a poll cycle of a non coordinated endpoint, scheduled by the {@link InboundRunner}. The tasks which can
+     * tell whether a cycle found any work override this, so that they are polled again immediately while there is
+     * work. Other tasks are polled in the interval, backing off up to the max interval of the endpoint.
+     *
+     * @return true if the cycle found any work
+     */
+    protected boolean pollCycle() {
+        taskExecute();
+        return false;
+    }
+
     public abstract Properties getInboundProperties();
 }
@@ -0,0 +1,391 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.inbound.endpoint.common;
+
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.util.UUIDGenerator;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.builder.Builder;
+import org.apache.axis2.builder.BuilderUtil;
+import org.apache.axis2.builder.SOAPBuilder;
+import org.apache.axis2.context.MessageContext;
+import org.apache.axis2.transport.TransportUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.SynapseConstants;
+import org.apache.synapse.core.SynapseEnvironment;
+import org.apache.synapse.core.axis2.Axis2MessageContext;
+import org.apache.synapse.mediators.base.SequenceMediator;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import javax.xml.namespace.QName;
+
+/**
+ * MicroBatchInjector collects the messages received by an inbound endpoint into micro batches and injects each batch
+ * into the sequence as a single message, so that the sequence can feed the messages to bulk operations such as the
+ * batch requests of a data service. A batch is injected once it holds the batch size of messages, or when the batch
+ * timeout elapses after its first message, whichever comes first. The messages of a batch have the same content
+ * type, a message of another content type completes the current batch.
+ * <p>
+ * The payload of a batch of JSON messages is a JSON array of the messages. The payload of a batch of other messages
+ * is a batch element with a record element wrapping the payload of each message. The batch message carries the
+ * number of messages in the INBOUND_BATCH_SIZE property, the transport headers of the messages are not preserved.
+ * <p>
+ * The batches are mediated one at a time and in order, and each message is settled with the outcome of its batch
+ * through its {@link RecordCallback}. The sequence can fail individual messages of a successful batch by setting the
+ * INBOUND_BATCH_FAILED_RECORDS property to the comma separated indexes of the messages, starting from zero.
+ */
+public class MicroBatchInjector {
+
+    private static final Log log = LogFactory.getLog(MicroBatchInjector.class);
+
+    public static final String BATCH_SIZE_PROPERTY = "INBOUND_BATCH_SIZE";
+    public static final String FAILED_RECORDS_PROPERTY = "INBOUND_BATCH_FAILED_RECORDS";
+
+    private static final String BATCH_NAMESPACE = "http://ws.apache.org/ns/synapse/inbound/batch";
+    private static final QName BATCH_QNAME = new QName(BATCH_NAMESPACE, "batch");
+    private static final QName RECORD_QNAME = new QName(BATCH_NAMESPACE, "record");
+
+    private final String name;
+    private final String injectingSeq;
+    private final String onErrorSeq;
+    private final SynapseEnvironment synapseEnvironment;
+    private final int batchSize;
+    private final long batchTimeout;
+    private final ScheduledExecutorService timer;
+
+    /* held while the completed batches are mediated, so that they are mediated one at a time */
+    private final Object injectLock = new Object();
+
+    /* the batches waiting to be mediated, in the order they are completed */
+    private final Deque<Batch> completedBatches = new ArrayDeque<>();
+    private Batch batch;
+    private ScheduledFuture<?> timeoutFlush;
+    private boolean closed;
+
+    /**
+     * @param name               name of the inbound endpoint
+     * @param injectingSeq       the sequence the batches are injected to
+     * @param onErrorSeq         the error sequence of the injecting sequence
+     * @param synapseEnvironment the synapse environment
+     * @param batchSize          the maximum number of messages in a batch
+     * @param batchTimeout       the maximum time in milliseconds a message waits for its batch to complete
+     */
+    public MicroBatchInjector(String name, String injectingSeq, String onErrorSeq,
+                              SynapseEnvironment synapseEnvironment, int batchSize, long batchTimeout) {
+        this.name = name;
+        this.injectingSeq = injectingSeq;
+        this.onErrorSeq = onErrorSeq;
+        this.synapseEnvironment = synapseEnvironment;
+        this.batchSize = batchSize;
+        this.batchTimeout = batchTimeout;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inbound-batch-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Adds a message to the current batch. The batch is injected before the call returns if the message completes it,
+     * otherwise the call returns as soon as the message is added and the message is settled later.
+     *
+     * @param payload     the message payload
+     * @param contentType the content type of the message, the SOAP builder is used if it is null
+     * @param callback    the callback settling the message with the outcome of its batch
+     */
+    public void add(byte[] payload, String contentType, RecordCallback callback) {
+        synchronized (this) {
+            if (closed) {
+                callback.onComplete(false, null);
+                return;
+            }
+            if (batch != null && !Objects.equals(batch.contentType, contentType)) {
+                completeBatch();
+            }
+            if (batch == null) {
+                batch = new Batch(contentType, batchSize);
+                timeoutFlush = timer.schedule(this::flush, batchTimeout, TimeUnit.MILLISECONDS);
+            }
+            batch.records.add(new Record(payload, callback));
+            if (batch.records.size() >= batchSize) {
+                completeBatch();
+            }
+        }
+        injectCompletedBatches();
+    }
+
+    /**
+     * Injects the current batch without waiting for it to complete.
+     */
+    public void flush() {
+        synchronized (this) {
+            completeBatch();
+        }
+        injectCompletedBatches();
+    }
+
+    /**
+     * Injects the current batch and stops the batch timer, the messages added afterwards are failed.
+     */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        flush();
+        timer.shutdownNow();
+    }
+
+    /**
+     * Queues the current batch for the mediation, the caller holds the lock of the injector.
+     */
+    private void completeBatch() {
+        if (batch == null) {
+            return;
+        }
+        completedBatches.add(batch);
+        batch = null;
+        if (timeoutFlush != null) {
+            timeoutFlush.cancel(false);
+            timeoutFlush = null;
+        }
+    }
+
+    /**
+     * Injects the completed batches in the order they were completed. The thread holding the inject lock also
+     * injects the batches completed by the other threads meanwhile, hence a batch completed by a call is injected by
+     * the time the call returns.
+     */
+    private void injectCompletedBatches() {
+        synchronized (injectLock) {
+            while (true) {
+                Batch completedBatch;
+                synchronized (this) {
+                    completedBatch = completedBatches.poll();
+                }
+                if (completedBatch == null) {
+                    return;
+                }
+                inject(completedBatch);
+            }
+        }
+    }
+
+    /**
+     * Injects the aggregated message of a batch and settles the messages of the batch after the mediation.
+     */
+    private void inject(Batch completedBatch) {
+        org.apache.synapse.MessageContext msgCtx = null;
+        boolean injected = false;
+        try {
+            msgCtx = createMessageContext();
+            MessageContext axis2MsgCtx = ((Axis2MessageContext) msgCtx).getAxis2MessageContext();
+            OMElement documentElement = buildPayload(completedBatch, axis2MsgCtx);
+            msgCtx.setEnvelope(TransportUtils.createSOAPEnvelope(documentElement));
+            msgCtx.setProperty(BATCH_SIZE_PROPERTY, completedBatch.records.size());
+            injected = injectMessage(msgCtx);
+        } catch (AxisFault axisFault) {
+            log.error("Error while building the batch of " + completedBatch.records.size()
+                              + " messages in the inbound endpoint " + name, axisFault);
+        } catch (RuntimeException e) {
+            log.error("Error while mediating the batch of " + completedBatch.records.size()
+                              + " messages in the inbound endpoint " + name, e);
+        }
+        Set<Integer> failedRecords = injected ? getFailedRecords(msgCtx) : null;
+        for (int i = 0; i < completedBatch.records.size(); i++) {
+            boolean success = injected && !failedRecords.contains(i);
+            try {
+                completedBatch.records.get(i).callback.onComplete(success, msgCtx);
+            } catch (RuntimeException e) {
+                log.error("Error while settling the message " + i + " of the batch in the inbound endpoint "
+                                  + name, e);
+            }
+        }
+    }
+
+    private boolean injectMessage(org.apache.synapse.MessageContext msgCtx) {
+        if (injectingSeq == null || injectingSeq.isEmpty()) {
+            log.error("Sequence name not specified. Sequence : " + injectingSeq);
+            return false;
+        }
+        SequenceMediator seq = (SequenceMediator) synapseEnvironment.getSynapseConfiguration()
+                .getSequence(injectingSeq);
+        if (seq == null) {
+            log.error("Sequence: " + injectingSeq + " not found");
+            return false;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("injecting batch message to sequence : " + injectingSeq);
+        }
+        if (!seq.isInitialized()) {
+            seq.init(synapseEnvironment);
+        }
+        seq.setErrorHandler(onErrorSeq);
+        // the batch is mediated in this thread, so that its messages are settled after the mediation, and the
+        // messages are failed when the mediation of the batch does not complete
+        return synapseEnvironment.injectInbound(msgCtx, seq, true);
+    }
+
+    /**
+     * Builds the payload of a batch, a JSON array of JSON messages or a batch element wrapping the other messages.
+     */
+    private OMElement buildPayload(Batch completedBatch, MessageContext axis2MsgCtx) throws AxisFault {
+        String contentType = completedBatch.contentType;
+        Builder builder = getBuilder(contentType, axis2MsgCtx);
+        if (isJson(contentType)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.write('[');
+            for (int i = 0; i < completedBatch.records.size(); i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                byte[] payload = completedBatch.records.get(i).payload;
+                out.write(payload, 0, payload.length);
+            }
+            out.write(']');
+            return builder.processDocument(new ByteArrayInputStream(out.toByteArray()), contentType, axis2MsgCtx);
+        }
+        OMFactory factory = OMAbstractFactory.getOMFactory();
+        OMElement batchElement = factory.createOMElement(BATCH_QNAME);
+        for (Record record : completedBatch.records) {
+            OMElement recordElement = factory.createOMElement(RECORD_QNAME, batchElement);
+            OMElement element = builder.processDocument(new ByteArrayInputStream(record.payload), contentType,
+                                                        axis2MsgCtx);
+            if (element instanceof SOAPEnvelope) {
+                element = ((SOAPEnvelope) element).getBody().getFirstElement();
+            }
+            if (element != null) {
+                element.build();
+                element.detach();
+                recordElement.addChild(element);
+            }
+        }
+        return batchElement;
+    }
+
+    private Builder getBuilder(String contentType, MessageContext axis2MsgCtx) {
+        if (contentType == null) {
+            log.debug("No content type specified. Using SOAP builder.");
+            return new SOAPBuilder();
+        }
+        String type = getType(contentType);
+        Builder builder = null;
+        try {
+            builder = BuilderUtil.getBuilderFromSelector(type, axis2MsgCtx);
+        } catch (AxisFault axisFault) {
+            log.error("Error while creating message builder :: " + axisFault.getMessage(), axisFault);
+        }
+        if (builder == null) {
+            if (log.isDebugEnabled()) {
+                log.debug("No message builder found for type '" + type + "'. Falling back to SOAP.");
+            }
+            builder = new SOAPBuilder();
+        }
+        return builder;
+    }
+
+    private static boolean isJson(String contentType) {
+        return contentType != null && getType(contentType).trim().toLowerCase().endsWith("json");
+    }
+
+    private static String getType(String contentType) {
+        int index = contentType.indexOf(';');
+        return index > 0 ? contentType.substring(0, index) : contentType;
+    }
+
+    private Set<Integer> getFailedRecords(org.apache.synapse.MessageContext msgCtx) {
+        Set<Integer> failedRecords = new HashSet<>();
+        Object property = msgCtx.getProperty(FAILED_RECORDS_PROPERTY);
+        if (property == null) {
+            return failedRecords;
+        }
+        for (String index : property.toString().split(",")) {
+            if (index.trim().isEmpty()) {
+                continue;
+            }
+            try {
+                failedRecords.add(Integer.parseInt(index.trim()));
+            } catch (NumberFormatException e) {
+                log.warn("Invalid index '" + index + "' in the " + FAILED_RECORDS_PROPERTY
+                                 + " property of the inbound endpoint " + name);
+            }
+        }
+        return failedRecords;
+    }
+
+    private org.apache.synapse.MessageContext createMessageContext() {
+        org.apache.synapse.MessageContext msgCtx = synapseEnvironment.createMessageContext();
+        MessageContext axis2MsgCtx = ((Axis2MessageContext) msgCtx).getAxis2MessageContext();
+        axis2MsgCtx.setServerSide(true);
+        axis2MsgCtx.setMessageID(UUIDGenerator.getUUID());
+        msgCtx.setProperty(MessageContext.CLIENT_API_NON_BLOCKING, true);
+        msgCtx.setProperty(SynapseConstants.IS_INBOUND, true);
+        msgCtx.setProperty(SynapseConstants.INBOUND_ENDPOINT_NAME, name);
+        msgCtx.setProperty(SynapseConstants.ARTIFACT_NAME, SynapseConstants.FAIL_SAFE_MODE_INBOUND_ENDPOINT + name);
+        return msgCtx;
+    }
+
+    /**
+     * Settles a message with the outcome of its batch.
+     */
+    public interface RecordCallback {
+
+        /**
+         * @param success      whether the batch was mediated and the message was not failed by the sequence
+         * @param batchContext the message context of the batch, which is null if the batch was not created
+         */
+        void onComplete(boolean success, org.apache.synapse.MessageContext batchContext);
+    }
+
+    private static class Batch {
+
+        private final String contentType;
+        private final List<Record> records;
+
+        Batch(String contentType, int batchSize) {
+            this.contentType = contentType;
+            this.records = new ArrayList<>(batchSize);
+        }
+    }
+
+    private static class Record {
+
+        private final byte[] payload;
+        private final RecordCallback callback;
+
+        Record(byte[] payload, RecordCallback callback) {
+            this.payload = payload;
+            this.callback = callback;
+        }
+    }
+}
@@ -27,6 +27,7 @@ import org.wso2.carbon.inbound.endpoint.protocol.generic.GenericInboundListener;
 import org.wso2.carbon.inbound.endpoint.protocol.generic.GenericProcessor;
 import org.wso2.carbon.inbound.endpoint.protocol.http.InboundHttpListener;
 import org.wso2.carbon.inbound.endpoint.protocol.https.InboundHttpsListener;
+import org.wso2.carbon.inbound.endpoint.protocol.kafka.KAFKABatchProcessor;
 import org.wso2.carbon.inbound.endpoint.protocol.kafka.KAFKAProcessor;
 import org.wso2.carbon.inbound.endpoint.protocol.mqtt.MqttListener;
 import org.wso2.carbon.inbound.endpoint.protocol.rabbitmq.RabbitMQListener;
@@ -70,7 +71,11 @@ public class InboundRequestProcessorFactoryImpl implements InboundRequestProcess
             } else if (Protocols.hl7.toString().equals(protocol)) {
                 inboundRequestProcessor = new InboundHL7Listener(params);
             } else if (Protocols.kafka.toString().equals(protocol)) {
-                inboundRequestProcessor = new KAFKAProcessor(params);
+                if (KAFKABatchProcessor.isBatchConsumer(params)) {
+                    inboundRequestProcessor = new KAFKABatchProcessor(params);
+                } else {
+                    inboundRequestProcessor = new KAFKAProcessor(params);
+                }
             } else if (Protocols.mqtt.toString().equals(protocol)) {
                 inboundRequestProcessor = new MqttListener(params);
             } else if (Protocols.rabbitmq.toString().equals(protocol)) {
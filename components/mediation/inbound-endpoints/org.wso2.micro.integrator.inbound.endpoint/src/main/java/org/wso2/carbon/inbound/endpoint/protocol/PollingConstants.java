@@ -24,6 +24,10 @@ public class PollingConstants {
 
     public static final String INBOUND_ENDPOINT_INTERVAL = "interval";
 
+    public static final String INBOUND_ENDPOINT_MAX_INTERVAL = "max.interval";
+
+    public static final String INBOUND_ENDPOINT_SHARED_POLLING = "shared.polling";
+
     public static final String INBOUND_ENDPOINT_SEQUENTIAL = "sequential";
 
     public static final String INBOUND_COORDINATION = "coordination";
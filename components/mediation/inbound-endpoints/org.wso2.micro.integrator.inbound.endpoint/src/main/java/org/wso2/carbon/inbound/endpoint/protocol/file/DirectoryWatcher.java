@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.inbound.endpoint.protocol.file;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.FileType;
+import org.apache.commons.vfs2.NameScope;
+import org.apache.synapse.commons.vfs.VFSUtils;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Watches a local directory with a {@link WatchService}, so that the directory is listed only once instead of on
+ * every poll. The names of the files created or modified in the directory are kept until the files are moved or
+ * deleted after the processing, hence a file which could not be processed in a poll (e.g. locked by another node or
+ * not ready to read) is returned again in the next poll. The directory is listed again if the watch service misses
+ * events.
+ */
+public class DirectoryWatcher {
+
+    private static final Log log = LogFactory.getLog(DirectoryWatcher.class);
+
+    private static final String FILE_SCHEME = "file";
+
+    private final WatchService watchService;
+    private final String filePattern;
+    private final Set<String> fileNames = new LinkedHashSet<>();
+    private boolean listDirectory = true;
+
+    private DirectoryWatcher(WatchService watchService, String filePattern) {
+        this.watchService = watchService;
+        this.filePattern = filePattern;
+    }
+
+    /**
+     * Create a watcher for the given directory if it is in the local file system.
+     *
+     * @param directory   the directory of the inbound endpoint
+     * @param filePattern the file name pattern, or null to watch all the files
+     * @return the watcher, or null if the directory can not be watched
+     */
+    public static DirectoryWatcher create(FileObject directory, String filePattern) {
+        try {
+            if (!FILE_SCHEME.equals(directory.getName().getScheme()) || directory.getType() != FileType.FOLDER) {
+                return null;
+            }
+            Path path = Paths.get(directory.getURL().toURI());
+            WatchService watchService = FileSystems.getDefault().newWatchService();
+            path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            return new DirectoryWatcher(watchService, filePattern);
+        } catch (Exception e) {
+            log.warn("Unable to watch the directory " + VFSUtils.maskURLPassword(directory.getName().getURI())
+                             + ", the directory will be listed on every poll.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the files of the directory which are not processed yet.
+     *
+     * @param directory the watched directory
+     * @return the existing files created or modified since the watch started
+     * @throws IOException if the files can not be resolved or the directory is no longer watched
+     */
+    public FileObject[] getFiles(FileObject directory) throws IOException {
+        WatchKey key;
+        while ((key = watchService.poll()) != null) {
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    listDirectory = true;
+                } else {
+                    addFileName(event.context().toString());
+                }
+            }
+            if (!key.reset()) {
+                throw new IOException("The directory " + VFSUtils.maskURLPassword(directory.getName().getURI())
+                                              + " is no longer accessible to watch.");
+            }
+        }
+        if (listDirectory) {
+            listDirectory = false;
+            // the children of the directory may be cached since it was listed before
+            directory.refresh();
+            for (FileObject child : directory.getChildren()) {
+                addFileName(child.getName().getBaseName());
+            }
+        }
+        List<FileObject> files = new ArrayList<>(fileNames.size());
+        Iterator<String> iterator = fileNames.iterator();
+        while (iterator.hasNext()) {
+            FileObject file = directory.resolveFile(iterator.next(), NameScope.CHILD);
+            if (file.exists()) {
+                files.add(file);
+            } else {
+                // moved or deleted after the processing
+                iterator.remove();
+            }
+        }
+        return files.toArray(new FileObject[0]);
+    }
+
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            log.warn("Error while closing the directory watch service.", e);
+        }
+    }
+
+    private void addFileName(String fileName) {
+        if (fileName.endsWith(".lock") || fileName.endsWith(".fail")) {
+            return;
+        }
+        if (filePattern == null || fileName.matches(filePattern)) {
+            fileNames.add(fileName);
+        }
+    }
+}
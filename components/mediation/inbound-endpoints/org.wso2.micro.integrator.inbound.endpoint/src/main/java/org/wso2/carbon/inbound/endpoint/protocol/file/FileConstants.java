@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.inbound.endpoint.protocol.file;
+
+/**
+ * Holds the constants of the inbound file protocol, in addition to the common {@code VFSConstants}
+ */
+public class FileConstants {
+
+    // No. of workers processing the files of a directory in parallel. Files are processed in the polling thread if
+    // not given.
+    public static final String FILE_PROCESSING_WORKER_COUNT = "transport.vfs.FileProcessingWorkerCount";
+
+    // Watch a local directory for new files instead of listing it on every poll.
+    public static final String WATCH_DIRECTORY = "transport.vfs.WatchDirectory";
+}
@@ -35,6 +35,7 @@ import org.apache.synapse.commons.vfs.VFSParamDTO;
 import org.apache.synapse.commons.vfs.VFSUtils;
 import org.apache.synapse.core.SynapseEnvironment;
 
+import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Comparator;
@@ -42,15 +43,36 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * This class implement the processing logic related to inbound file protocol.
  * Common functinalities (with synapse vfs transport) are include in synapse
  * util that is found in synapse commons
+ * <p>
+ * The files of a directory are processed one by one in the polling thread, or in parallel by a bounded pool of
+ * workers if {@link FileConstants#FILE_PROCESSING_WORKER_COUNT} is given. A local directory can be watched for new
+ * files with {@link FileConstants#WATCH_DIRECTORY} instead of listing it on every poll.
  */
 public class FilePollingConsumer {
 
     private static final Log log = LogFactory.getLog(FilePollingConsumer.class);
+
+    /* Results of processing a file of the directory */
+    private static final int PROCESSING_SKIPPED = 0;
+    private static final int PROCESSING_SUCCEEDED = 1;
+    private static final int PROCESSING_FAILED = 2;
+    private static final int POST_PROCESSING_FAILED = 3;
+
+    private static final long WORKER_TERMINATION_TIMEOUT = 30000;
+
     private Properties vfsProperties;
     private boolean fileLock = true;
     private DefaultFileSystemManager fsManager = null;
@@ -59,6 +81,8 @@ public class FilePollingConsumer {
     private long scanInterval;
     private Long lastRanTime;
     private int lastCycle;
+    // whether the last poll cycle processed any file
+    private boolean filesProcessed;
     private FileInjectHandler injectHandler;
     private Long waitTimeBeforeRead;
 
@@ -75,7 +99,13 @@ public class FilePollingConsumer {
     private boolean distributedLock;
     private Long distributedLockTimeout;
     private FileSystemOptions fso;
+    private int workerCount;
     private boolean isClosed;
+    private boolean watchDirectory;
+    private DirectoryWatcher directoryWatcher;
+    private ThreadPoolExecutor workerPool;
+    // the files being processed by the workers, so that they are not dispatched again by the next poll
+    private Set<String> inProgressFiles = ConcurrentHashMap.newKeySet();
 
     public FilePollingConsumer(Properties vfsProperties, String name, SynapseEnvironment synapseEnvironment,
                                long scanInterval) {
@@ -102,6 +132,11 @@ public class FilePollingConsumer {
             log.warn("Unable to set the sftp Options", e);
             fso = null;
         }
+        if (workerCount > 1) {
+            workerPool = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                                                new ArrayBlockingQueue<>(workerCount),
+                                                new WorkerThreadFactory(name));
+        }
     }
 
     /**
@@ -117,9 +152,14 @@ public class FilePollingConsumer {
     /**
      * This will be called by the task scheduler. If a cycle execution takes
      * more than the schedule interval, tasks will call this method ignoring the
-     * interval. Timestamp based check is done to avoid that.
+     * interval. Timestamp based check is done to avoid that. The check is skipped
+     * if the last cycle processed files, as the directory is likely to have more.
+     *
+     * @return true if the cycle processed any file
      */
-    public void execute() {
+    public boolean execute() {
+        boolean lastCycleProcessed = filesProcessed;
+        filesProcessed = false;
         try {
             if (log.isDebugEnabled()) {
                 log.debug("Start : File Inbound EP : " + name);
@@ -127,7 +167,7 @@ public class FilePollingConsumer {
             // Check if the cycles are running in correct interval and start
             // scan
             long currentTime = (new Date()).getTime();
-            if (lastRanTime == null || ((lastRanTime + (scanInterval)) <= currentTime)) {
+            if (lastRanTime == null || lastCycleProcessed || ((lastRanTime + (scanInterval)) <= currentTime)) {
                 lastRanTime = currentTime;
                 poll();
             } else if (log.isDebugEnabled()) {
@@ -140,6 +180,7 @@ public class FilePollingConsumer {
         } catch (Exception e) {
             log.error("Error while reading file. " + e.getMessage(), e);
         }
+        return filesProcessed;
     }
 
     /**
@@ -168,7 +209,21 @@ public class FilePollingConsumer {
             if (fileObject.exists() && fileObject.isReadable()) {
                 FileObject[] children = null;
                 try {
-                    children = fileObject.getChildren();
+                    if (watchDirectory && directoryWatcher == null) {
+                        directoryWatcher = DirectoryWatcher.create(fileObject, strFilePattern);
+                        watchDirectory = directoryWatcher != null;
+                    }
+                    if (directoryWatcher != null) {
+                        children = getWatchedFiles();
+                        if (children.length == 0) {
+                            if (log.isDebugEnabled()) {
+                                log.debug("No new files found on : " + VFSUtils.maskURLPassword(fileURI));
+                            }
+                            return null;
+                        }
+                    } else {
+                        children = fileObject.getChildren();
+                    }
                 } catch (FileNotFolderException ignored) {
                     if (log.isDebugEnabled()) {
                         log.debug("No Folder found. Only file found on : " + VFSUtils.maskURLPassword(fileURI));
@@ -190,7 +245,7 @@ public class FilePollingConsumer {
                     } else {
                         try {
                             lastCycle = 2;
-                            moveOrDeleteAfterProcessing(fileObject);
+                            moveOrDeleteAfterProcessing(fileObject, lastCycle);
                         } catch (SynapseException synapseException) {
                             log.error("File object '" + VFSUtils.maskURLPassword(fileObject.getURL().toString()) + "' "
                                               + "cloud not be moved after first attempt", synapseException);
@@ -258,9 +313,11 @@ public class FilePollingConsumer {
                             e);
                 }
 
+                // a file which is not injected remains in place, hence it is not counted as processed
+                filesProcessed = runPostProcess;
                 if (runPostProcess) {
                     try {
-                        moveOrDeleteAfterProcessing(fileObject);
+                        moveOrDeleteAfterProcessing(fileObject, lastCycle);
                     } catch (SynapseException synapseException) {
                         lastCycle = 3;
                         log.error("File object '" + VFSUtils.maskURLPassword(fileObject.getURL().toString()) + "' "
@@ -405,6 +462,18 @@ public class FilePollingConsumer {
 
         }
 
+        workerCount = 0;
+        String strWorkerCount = vfsProperties.getProperty(FileConstants.FILE_PROCESSING_WORKER_COUNT);
+        if (strWorkerCount != null) {
+            try {
+                workerCount = Integer.parseInt(strWorkerCount.trim());
+            } catch (NumberFormatException e) {
+                log.warn("Invalid param value for " + FileConstants.FILE_PROCESSING_WORKER_COUNT + " : "
+                                 + strWorkerCount + ". Expected numeric value.");
+            }
+        }
+        watchDirectory = Boolean.parseBoolean(vfsProperties.getProperty(FileConstants.WATCH_DIRECTORY));
+
         waitTimeBeforeRead = null;
         String strWaitTimeBeforeRead = vfsProperties.getProperty(VFSConstants.WAIT_TIME_BEFORE_READ);
         if (strWaitTimeBeforeRead != null) {
@@ -431,6 +500,7 @@ public class FilePollingConsumer {
         int failCount = 0;
         int successCount = 0;
         int processCount = 0;
+        int dispatchCount = 0;
 
         if (log.isDebugEnabled()) {
             log.debug(
@@ -468,6 +538,7 @@ public class FilePollingConsumer {
         }
 
         for (FileObject child : children) {
+            boolean inProgress = false;
             // skipping *.lock / *.fail file
             if (child.getName().getBaseName().endsWith(".lock") || child.getName().getBaseName().endsWith(".fail")) {
                 continue;
@@ -484,57 +555,28 @@ public class FilePollingConsumer {
                     log.debug("Matching file : " + child.getName().getBaseName());
                 }
 
-                if ((!fileLock || (fileLock && acquireLock(fsManager, child)))) {
-                    // process the file
-                    boolean runPostProcess = true;
+                if (workerPool != null) {
                     try {
-                        if (log.isDebugEnabled()) {
-                            log.debug("Processing file :" + VFSUtils.maskURLPassword(child.toString()));
-                        }
-                        processCount++;
-                        if (processFile(child) == null) {
-                            runPostProcess = false;
-                        } else {
-                            successCount++;
+                        if (dispatchFile(child)) {
+                            dispatchCount++;
+                            processCount++;
                         }
-                        // tell moveOrDeleteAfterProcessing() file was success
-                        lastCycle = 1;
-                    } catch (Exception e) {
-                        if (e.getCause() instanceof FileNotFoundException) {
-                            log.warn("Error processing File URI : " + VFSUtils
-                                    .maskURLPassword(child.getName().toString())
-                                             + ". This can be due to file moved from another process.");
-                            runPostProcess = false;
-                        } else {
-                            log.error("Error processing File URI : " + VFSUtils
-                                    .maskURLPassword(child.getName().toString()), e);
-                            failCount++;
-                            // tell moveOrDeleteAfterProcessing() file failed
-                            lastCycle = 2;
-                        }
-
-                    }
-                    // skipping un-locking file if failed to do delete/move
-                    // after process
-                    boolean skipUnlock = false;
-                    if (runPostProcess) {
-                        try {
-                            moveOrDeleteAfterProcessing(child);
-                        } catch (SynapseException synapseException) {
-                            log.error("File object '" + VFSUtils.maskURLPassword(child.getURL().toString())
-                                              + "'cloud not be moved, will remain in \"locked\" state",
-                                      synapseException);
-                            skipUnlock = true;
-                            failCount++;
-                            lastCycle = 3;
-                            VFSUtils.markFailRecord(fsManager, child);
+                    } catch (RejectedExecutionException e) {
+                        if (log.isDebugEnabled()) {
+                            log.debug("File processing workers are busy, the rest of the files will be processed by "
+                                              + "the next poll : " + VFSUtils.maskURLPassword(fileURI));
                         }
+                        break;
                     }
-                    // if there is a failure or not we'll try to release the
-                    // lock
-                    if (fileLock && !skipUnlock) {
-                        // TODO: passing null to avoid build break. Fix properly
-                        VFSUtils.releaseLock(fsManager, child, fso);
+                    inProgress = true;
+                } else if ((!fileLock || (fileLock && acquireLock(fsManager, child)))) {
+                    // process the file
+                    processCount++;
+                    int result = processLockedFile(child);
+                    if (result == PROCESSING_SUCCEEDED) {
+                        successCount++;
+                    } else if (result == PROCESSING_FAILED || result == POST_PROCESSING_FAILED) {
+                        failCount++;
                     }
                     if (injectHandler == null) {
                         return child;
@@ -548,7 +590,7 @@ public class FilePollingConsumer {
                 // it is a failed record
                 try {
                     lastCycle = 1;
-                    moveOrDeleteAfterProcessing(child);
+                    moveOrDeleteAfterProcessing(child, lastCycle);
                 } catch (SynapseException synapseException) {
                     log.error("File object '" + VFSUtils.maskURLPassword(child.getURL().toString())
                                       + "'cloud not be moved, will remain in \"fail\" state", synapseException);
@@ -566,10 +608,12 @@ public class FilePollingConsumer {
                 log.debug("File cannot be read as it has to wait for some time: " + child.getName().getBaseName());
             }
 
-            //close the file system after processing
-            try {
-                child.close();
-            } catch (Exception e) {
+            //close the file system after processing, a file in progress is closed by the worker
+            if (!inProgress) {
+                try {
+                    child.close();
+                } catch (Exception e) {
+                }
             }
 
             // Manage throttling of file processing
@@ -586,6 +630,9 @@ public class FilePollingConsumer {
                 break;
             }
         }
+        // the files being processed by the workers and the files which are not injected are not counted, otherwise
+        // the directory is scanned again immediately while nothing changed
+        filesProcessed = dispatchCount > 0 || successCount > 0 || failCount > 0;
         if (failCount == 0 && successCount > 0) {
             lastCycle = 1;
         } else if (successCount == 0 && failCount > 0) {
@@ -596,6 +643,122 @@ public class FilePollingConsumer {
         return null;
     }
 
+    /**
+     * Process a locked file of the directory and do the post processing actions, then release the lock.
+     *
+     * @param child the locked file
+     * @return the result of the processing
+     * @throws FileSystemException
+     */
+    private int processLockedFile(FileObject child) throws FileSystemException {
+        int result;
+        int cycle;
+        boolean runPostProcess = true;
+        try {
+            if (log.isDebugEnabled()) {
+                log.debug("Processing file :" + VFSUtils.maskURLPassword(child.toString()));
+            }
+            if (processFile(child) == null) {
+                runPostProcess = false;
+                result = PROCESSING_SKIPPED;
+            } else {
+                result = PROCESSING_SUCCEEDED;
+            }
+            // tell moveOrDeleteAfterProcessing() file was success
+            cycle = 1;
+        } catch (Exception e) {
+            if (e.getCause() instanceof FileNotFoundException) {
+                log.warn("Error processing File URI : " + VFSUtils.maskURLPassword(child.getName().toString())
+                                 + ". This can be due to file moved from another process.");
+                runPostProcess = false;
+                result = PROCESSING_SKIPPED;
+            } else {
+                log.error("Error processing File URI : " + VFSUtils.maskURLPassword(child.getName().toString()), e);
+                result = PROCESSING_FAILED;
+            }
+            // tell moveOrDeleteAfterProcessing() file failed
+            cycle = 2;
+        }
+        // skipping un-locking file if failed to do delete/move
+        // after process
+        boolean skipUnlock = false;
+        if (runPostProcess) {
+            try {
+                moveOrDeleteAfterProcessing(child, cycle);
+            } catch (SynapseException synapseException) {
+                log.error("File object '" + VFSUtils.maskURLPassword(child.getURL().toString())
+                                  + "'cloud not be moved, will remain in \"locked\" state", synapseException);
+                skipUnlock = true;
+                result = POST_PROCESSING_FAILED;
+                VFSUtils.markFailRecord(fsManager, child);
+            }
+        }
+        // if there is a failure or not we'll try to release the
+        // lock
+        if (fileLock && !skipUnlock) {
+            // TODO: passing null to avoid build break. Fix properly
+            VFSUtils.releaseLock(fsManager, child, fso);
+        }
+        return result;
+    }
+
+    /**
+     * Hand over a file of the directory to the workers, unless it is already being processed.
+     *
+     * @param child the file to process
+     * @return false if the file is already being processed
+     * @throws RejectedExecutionException if the workers are busy
+     */
+    private boolean dispatchFile(FileObject child) {
+        String childURI = child.getName().getURI();
+        if (!inProgressFiles.add(childURI)) {
+            if (log.isDebugEnabled()) {
+                log.debug("File is already being processed : " + VFSUtils.maskURLPassword(childURI));
+            }
+            return false;
+        }
+        try {
+            workerPool.execute(() -> {
+                try {
+                    if (!fileLock || acquireLock(fsManager, child)) {
+                        processLockedFile(child);
+                    }
+                } catch (Exception e) {
+                    log.error("Error processing File URI : " + VFSUtils.maskURLPassword(childURI), e);
+                } finally {
+                    inProgressFiles.remove(childURI);
+                    try {
+                        child.close();
+                    } catch (Exception e) {
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inProgressFiles.remove(childURI);
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the unprocessed files of the watched directory. Falls back to listing the directory if it can no
+     * longer be watched.
+     */
+    private FileObject[] getWatchedFiles() throws FileSystemException {
+        try {
+            return directoryWatcher.getFiles(fileObject);
+        } catch (FileSystemException e) {
+            throw e;
+        } catch (IOException e) {
+            log.warn("Unable to watch the directory : " + VFSUtils.maskURLPassword(fileURI)
+                             + ". The directory will be listed on every poll.", e);
+            directoryWatcher.close();
+            directoryWatcher = null;
+            watchDirectory = false;
+            return fileObject.getChildren();
+        }
+    }
+
     /**
      * Check if the file/folder exists before proceeding and retrying
      */
@@ -701,9 +864,8 @@ public class FilePollingConsumer {
                     log.warn("Unable to set file length or last modified date header.", e);
                 }
 
-                injectHandler.setTransportHeaders(transportHeaders);
                 // injectHandler
-                if (!injectHandler.invoke(file, name)) {
+                if (!injectHandler.invoke(file, name, transportHeaders)) {
                     return null;
                 }
             }
@@ -718,13 +880,14 @@ public class FilePollingConsumer {
      * Do the post processing actions
      *
      * @param fileObject
+     * @param cycle      the result of the processing
      * @throws synapseException
      */
-    private void moveOrDeleteAfterProcessing(FileObject fileObject) throws SynapseException {
+    private void moveOrDeleteAfterProcessing(FileObject fileObject, int cycle) throws SynapseException {
 
         String moveToDirectoryURI = null;
         try {
-            switch (lastCycle) {
+            switch (cycle) {
             case 1:
                 if ("MOVE".equals(vfsProperties.getProperty(VFSConstants.TRANSPORT_FILE_ACTION_AFTER_PROCESS))) {
                     moveToDirectoryURI = vfsProperties.getProperty(VFSConstants.TRANSPORT_FILE_MOVE_AFTER_PROCESS);
@@ -897,8 +1060,43 @@ public class FilePollingConsumer {
         return vfsProperties;
     }
 
-    void destroy() {
-        fsManager.close();
+    /**
+     * Stop the file processing workers, waiting for the files in progress, and release the resources of the
+     * consumer.
+     */
+    public void destroy() {
         isClosed = true;
+        if (workerPool != null) {
+            workerPool.shutdown();
+            try {
+                workerPool.awaitTermination(WORKER_TERMINATION_TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (directoryWatcher != null) {
+            directoryWatcher.close();
+        }
+        fsManager.close();
+    }
+
+    /**
+     * Creates the daemon threads of the file processing workers.
+     */
+    private static class WorkerThreadFactory implements ThreadFactory {
+
+        private final String namePrefix;
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        WorkerThreadFactory(String name) {
+            this.namePrefix = "file-inbound-" + name + "-worker-";
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
     }
 }
@@ -45,6 +45,12 @@ public class FileTask extends InboundTask {
         fileScanner.execute();
     }
 
+    @Override
+    protected boolean pollCycle() {
+        logger.debug("File Task poll cycle executing.");
+        return fileScanner.execute();
+    }
+
     @Override
     public Properties getInboundProperties() {
         return fileScanner.getInboundProperties();
@@ -40,6 +40,15 @@ public class GenericTask extends InboundTask {
         pollingConsumer.poll();
     }
 
+    /**
+     * A generic consumer returns the polled object, or null if there was nothing to poll.
+     */
+    @Override
+    protected boolean pollCycle() {
+        logger.debug("Generic Task poll cycle executing.");
+        return pollingConsumer.poll() != null;
+    }
+
     @Override
     public Properties getInboundProperties() {
         return pollingConsumer.getInboundProperties();
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.inbound.endpoint.protocol.grpc;
+
+import org.wso2.carbon.inbound.endpoint.protocol.grpc.util.Event;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import javax.activation.DataSource;
+
+/**
+ * The data source of the binary payload of a gRPC event received in the binary passthrough mode. The event is kept
+ * as it was received, it is encoded into the protobuf bytes only when a mediator or a formatter reads the payload.
+ */
+public class GRPCEventDataSource implements DataSource {
+
+    private static final String NAME = "grpc-event";
+
+    private final Event event;
+
+    GRPCEventDataSource(Event event) {
+        this.event = event;
+    }
+
+    public Event getEvent() {
+        return event;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return event.toByteString().newInput();
+    }
+
+    @Override
+    public OutputStream getOutputStream() throws IOException {
+        throw new IOException("The gRPC event data source is read only");
+    }
+
+    @Override
+    public String getContentType() {
+        return InboundGRPCConstants.CONTENT_TYPE_BINARY_MIME_TYPE;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+}
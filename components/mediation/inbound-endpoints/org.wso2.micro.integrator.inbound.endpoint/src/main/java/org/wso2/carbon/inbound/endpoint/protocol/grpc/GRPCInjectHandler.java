@@ -20,13 +20,17 @@ package org.wso2.carbon.inbound.endpoint.protocol.grpc;
 
 import com.google.protobuf.Empty;
 import io.grpc.stub.StreamObserver;
+import org.apache.axiom.om.OMAbstractFactory;
 import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
 import org.apache.axiom.om.util.UUIDGenerator;
 import org.apache.axis2.AxisFault;
+import org.apache.axis2.Constants;
 import org.apache.axis2.builder.Builder;
 import org.apache.axis2.builder.BuilderUtil;
 import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.transport.TransportUtils;
+import org.apache.axis2.transport.base.BaseConstants;
 import org.apache.commons.io.input.AutoCloseInputStream;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -37,9 +41,9 @@ import org.apache.synapse.inbound.InboundEndpointConstants;
 import org.apache.synapse.mediators.base.SequenceMediator;
 import org.wso2.carbon.inbound.endpoint.protocol.grpc.util.Event;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import javax.activation.DataHandler;
 
 /**
  * Inject gRPC message into the sequence.
@@ -49,6 +53,7 @@ public class GRPCInjectHandler {
     private String injectingSeq;
     private String onErrorSeq;
     private boolean sequential;
+    private boolean binaryPassthrough;
     private SynapseEnvironment synapseEnvironment;
 
     /**
@@ -57,14 +62,16 @@ public class GRPCInjectHandler {
      * @param injectingSeq injecting sequence mentioned in the inbound endpoint
      * @param onErrorSeq error Sequence mentioned in the inbound endpoint
      * @param sequential is sequential
+     * @param binaryPassthrough whether the received events are injected as binary payloads
      * @param synapseEnvironment The SynapseEnvironment allows access into the the host SOAP engine. It allows
      *                           the sending of messages, class loader access etc
      */
-    GRPCInjectHandler(String injectingSeq, String onErrorSeq, boolean sequential,
-                      SynapseEnvironment synapseEnvironment) {
+    public GRPCInjectHandler(String injectingSeq, String onErrorSeq, boolean sequential, boolean binaryPassthrough,
+                             SynapseEnvironment synapseEnvironment) {
         this.injectingSeq = injectingSeq;
         this.onErrorSeq = onErrorSeq;
         this.sequential = sequential;
+        this.binaryPassthrough = binaryPassthrough;
         this.synapseEnvironment = synapseEnvironment;
     }
 
@@ -80,7 +87,7 @@ public class GRPCInjectHandler {
             org.apache.synapse.MessageContext msgCtx = createMessageContext();
             msgCtx.setProperty(InboundEndpointConstants.INBOUND_ENDPOINT_RESPONSE_WORKER,
                     new GRPCResponseSender(responseObserver));
-            initiateSequenceAndInjectPayload(responseObserver, receivedEvent, msgCtx);
+            initiateSequenceAndInjectPayload(responseObserver, receivedEvent, msgCtx, this.sequential);
         } catch (AxisFault e) {
             log.error("Error while processing the gRPC Message", e);
             throw new SynapseException("Error while processing the gRPC Message", e);
@@ -96,17 +103,40 @@ public class GRPCInjectHandler {
      */
     public void invokeConsume(Event receivedEvent, StreamObserver<Empty> responseObserver) {
         try {
-            initiateSequenceAndInjectPayload(responseObserver, receivedEvent, createMessageContext());
+            initiateSequenceAndInjectPayload(responseObserver, receivedEvent, createMessageContext(),
+                    this.sequential);
         } catch (AxisFault e) {
             log.error("Error while consuming the gRPC Message", e);
             throw new SynapseException("Error while consuming the JMS Message", e);
         }
     }
 
-    private void initiateSequenceAndInjectPayload(StreamObserver responseObserver,
-                                                  Event receivedEvent,
-                                                  org.apache.synapse.MessageContext msgCtx) throws AxisFault {
-        String msgPayload = receivedEvent.getPayload();
+    /**
+     * This method will be called for each event received over a bidirectional stream. The event is mediated in the
+     * calling thread, hence the stream requests the next event only after the mediation flow has taken this one.
+     * The responses of the flow are sent back over the stream.
+     * @param receivedEvent received event from gRPC
+     * @param responseObserver object to be used when sending the responses back over the stream
+     * @param streamId identifier of the stream, set to the message context
+     * @return true if the event is injected to the sequence, false otherwise
+     */
+    public boolean invokeStream(Event receivedEvent, StreamObserver<Event> responseObserver, String streamId) {
+        try {
+            org.apache.synapse.MessageContext msgCtx = createMessageContext();
+            msgCtx.setProperty(InboundEndpointConstants.INBOUND_ENDPOINT_RESPONSE_WORKER,
+                    new GRPCResponseSender(responseObserver, true));
+            msgCtx.setProperty(InboundGRPCConstants.GRPC_STREAM_ID, streamId);
+            return initiateSequenceAndInjectPayload(responseObserver, receivedEvent, msgCtx, true);
+        } catch (AxisFault e) {
+            log.error("Error while processing the gRPC Message of stream " + streamId, e);
+            throw new SynapseException("Error while processing the gRPC Message", e);
+        }
+    }
+
+    private boolean initiateSequenceAndInjectPayload(StreamObserver responseObserver,
+                                                     Event receivedEvent,
+                                                     org.apache.synapse.MessageContext msgCtx,
+                                                     boolean sequential) throws AxisFault {
         String sequenceName = receivedEvent.getHeadersMap().get(InboundGRPCConstants.HEADER_MAP_SEQUENCE_PARAMETER_NAME);
         SequenceMediator seq;
         if (sequenceName != null) {
@@ -117,33 +147,47 @@ public class GRPCInjectHandler {
         } else {
             if (injectingSeq == null || injectingSeq.isEmpty()) {
                 log.error("Sequence name is not specified in inbound endpoint or empty.");
-                return;
+                return false;
             }
             if (log.isDebugEnabled()) {
                 log.debug(injectingSeq + " sequence, received via the inbound endpoint.");
             }
             seq = (SequenceMediator) synapseEnvironment.getSynapseConfiguration().getSequence(injectingSeq);
         }
-        msgCtx.setProperty(SynapseConstants.IS_INBOUND, true);
         //validating the sequence
-        if (seq != null) {
-            if (!seq.isInitialized()) {
-                seq.init(synapseEnvironment);
-            }
-            seq.setErrorHandler(onErrorSeq);
-            if (log.isDebugEnabled()) {
-                log.debug("injecting received gRPC message to sequence : " + injectingSeq);
-            }
-            if (!synapseEnvironment.injectInbound(msgCtx, seq, this.sequential)) {
-                return;
-            }
-        } else {
+        if (seq == null) {
             log.error("Sequence: " + injectingSeq + " not found");
+            return false;
         }
+        msgCtx.setProperty(SynapseConstants.IS_INBOUND, true);
         MessageContext axis2MsgCtx =
                 ((org.apache.synapse.core.axis2.Axis2MessageContext) msgCtx).getAxis2MessageContext();
         //setting transport headers
         axis2MsgCtx.setProperty(MessageContext.TRANSPORT_HEADERS, receivedEvent.getHeadersMap());
+        OMElement documentElement;
+        if (binaryPassthrough) {
+            documentElement = buildBinaryPayload(receivedEvent, axis2MsgCtx);
+        } else {
+            documentElement = buildPayload(responseObserver, receivedEvent, axis2MsgCtx);
+            if (documentElement == null) {
+                return false;
+            }
+        }
+        msgCtx.setEnvelope(TransportUtils.createSOAPEnvelope(documentElement));
+        if (!seq.isInitialized()) {
+            seq.init(synapseEnvironment);
+        }
+        seq.setErrorHandler(onErrorSeq);
+        if (log.isDebugEnabled()) {
+            log.debug("injecting received gRPC message to sequence : " + injectingSeq);
+        }
+        // Inject the message to the sequence.
+        synapseEnvironment.injectInbound(msgCtx, seq, sequential);
+        return true;
+    }
+
+    private OMElement buildPayload(StreamObserver responseObserver, Event receivedEvent, MessageContext axis2MsgCtx)
+            throws AxisFault {
         String contentType = receivedEvent.getHeadersMap().
                 get(InboundGRPCConstants.HEADER_MAP_CONTENT_TYPE_PARAMETER_NAME);
         if (log.isDebugEnabled()) {
@@ -163,26 +207,25 @@ public class GRPCInjectHandler {
                 responseObserver.onError(
                         new Throwable("Error occurred when processing gRPC message. " + contentType +
                                 " type found in gRPC header is not supported"));
-                return;
+                return null;
             }
         } else {
             log.error("Invalid content type found in gRPC header. JSON, XML and text is supported");
             responseObserver.onError(
                     new Throwable("Invalid content type found in gRPC header. JSON, XML and text is supported"));
-            return;
+            return null;
         }
 
         Builder builder = BuilderUtil.getBuilderFromSelector(contentType, axis2MsgCtx);
-        OMElement documentElement;
         // set the message payload to the message context
         InputStream in = null;
         try {
-            in = new AutoCloseInputStream(new ByteArrayInputStream(msgPayload.getBytes()));
-            documentElement = builder.processDocument(in, contentType, axis2MsgCtx);
+            in = new AutoCloseInputStream(receivedEvent.getPayloadBytes().newInput());
+            return builder.processDocument(in, contentType, axis2MsgCtx);
         } catch (AxisFault ex) {
             // Handle message building error
             log.error("Error while building the message", ex);
-            return;
+            return null;
         } finally {
             if (in != null) {
                 try {
@@ -192,8 +235,22 @@ public class GRPCInjectHandler {
                 }
             }
         }
-        // Inject the message to the sequence.
-        msgCtx.setEnvelope(TransportUtils.createSOAPEnvelope(documentElement));
+    }
+
+    /**
+     * Wraps the received event as a binary payload. The event is not parsed into an XML or JSON infoset, it is
+     * encoded into the protobuf bytes only if a mediator reads the payload, and sent back as it is otherwise.
+     */
+    private OMElement buildBinaryPayload(Event receivedEvent, MessageContext axis2MsgCtx) {
+        OMFactory factory = OMAbstractFactory.getOMFactory();
+        OMElement wrapper = factory.createOMElement(BaseConstants.DEFAULT_BINARY_WRAPPER);
+        DataHandler dataHandler = new DataHandler(new GRPCEventDataSource(receivedEvent));
+        wrapper.addChild(factory.createOMText(dataHandler, true));
+        axis2MsgCtx.setProperty(Constants.Configuration.CONTENT_TYPE,
+                InboundGRPCConstants.CONTENT_TYPE_BINARY_MIME_TYPE);
+        axis2MsgCtx.setProperty(Constants.Configuration.MESSAGE_TYPE,
+                InboundGRPCConstants.CONTENT_TYPE_BINARY_MIME_TYPE);
+        return wrapper;
     }
 
     /**
@@ -19,7 +19,12 @@
 package org.wso2.carbon.inbound.endpoint.protocol.grpc;
 
 
+import com.google.protobuf.InvalidProtocolBufferException;
 import io.grpc.stub.StreamObserver;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMNode;
+import org.apache.axiom.om.OMText;
+import org.apache.axis2.transport.base.BaseConstants;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.synapse.MessageContext;
@@ -31,20 +36,40 @@ import org.wso2.carbon.inbound.endpoint.protocol.grpc.util.Event;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import javax.activation.DataHandler;
 
 import static org.apache.axis2.Constants.Configuration.MESSAGE_TYPE;
 
 public class GRPCResponseSender implements InboundResponseSender {
     private StreamObserver<Event> responseObserver;
+    private boolean streaming;
     private static final Log log = LogFactory.getLog(GRPCResponseSender.class.getName());
     GRPCResponseSender(StreamObserver<Event> responseObserver) {
+        this(responseObserver, false);
+    }
+
+    /**
+     * @param responseObserver object to be used when sending the response back to the gRPC client
+     * @param streaming whether the response is sent over a stream, which is kept open for the next responses
+     */
+    GRPCResponseSender(StreamObserver<Event> responseObserver, boolean streaming) {
         this.responseObserver = responseObserver;
+        this.streaming = streaming;
     }
     @Override
     public void sendBack(MessageContext messageContext) {
         if (responseObserver != null) {
             org.apache.axis2.context.MessageContext msgContext = ((Axis2MessageContext) messageContext).getAxis2MessageContext();
+            Event binaryResponse = getBinaryResponse(msgContext);
+            if (binaryResponse != null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Sending the binary payload of the message as the response");
+                }
+                send(binaryResponse);
+                return;
+            }
             String content;
             String contentType = msgContext.getProperty(MESSAGE_TYPE).toString();
             if (log.isDebugEnabled()) {
@@ -78,8 +103,7 @@ public class GRPCResponseSender implements InboundResponseSender {
             Event.Builder responseBuilder = Event.newBuilder();
             responseBuilder.setPayload(content);
             Event response = responseBuilder.build();
-            responseObserver.onNext(response);
-            responseObserver.onCompleted();
+            send(response);
         } else {
             String msg = "Message context doesn't contain gRPC Response Observer. " +
                     "Please make sure the gRPC call accepts a response ";
@@ -87,4 +111,45 @@ public class GRPCResponseSender implements InboundResponseSender {
             throw new SynapseException(msg);
         }
     }
+
+    private void send(Event response) {
+        responseObserver.onNext(response);
+        if (!streaming) {
+            responseObserver.onCompleted();
+        }
+    }
+
+    /**
+     * Returns the event of a binary payload, which is the payload of a message received in the binary passthrough
+     * mode or a protobuf encoded event set by the mediation flow. The event received is sent back as it is, without
+     * encoding it into bytes.
+     */
+    private Event getBinaryResponse(org.apache.axis2.context.MessageContext msgContext) {
+        if (msgContext.getEnvelope() == null) {
+            return null;
+        }
+        OMElement wrapper = msgContext.getEnvelope().getBody().getFirstElement();
+        if (wrapper == null || !BaseConstants.DEFAULT_BINARY_WRAPPER.equals(wrapper.getQName())) {
+            return null;
+        }
+        OMNode omNode = wrapper.getFirstOMChild();
+        if (!(omNode instanceof OMText) || !(((OMText) omNode).getDataHandler() instanceof DataHandler)) {
+            return null;
+        }
+        DataHandler dataHandler = (DataHandler) ((OMText) omNode).getDataHandler();
+        if (dataHandler.getDataSource() instanceof GRPCEventDataSource) {
+            return ((GRPCEventDataSource) dataHandler.getDataSource()).getEvent();
+        }
+        try (InputStream in = dataHandler.getInputStream()) {
+            return Event.parseFrom(in);
+        } catch (InvalidProtocolBufferException e) {
+            String msg = "Error occurred when sending response. The binary payload is not a gRPC event";
+            log.error(msg, e);
+            throw new SynapseException(msg, e);
+        } catch (IOException e) {
+            String msg = "Error occurred while reading the binary payload. " + e.getMessage();
+            log.error(msg, e);
+            throw new SynapseException(msg, e);
+        }
+    }
 }
@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.inbound.endpoint.protocol.grpc;
+
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.apache.axiom.om.util.UUIDGenerator;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.SynapseException;
+import org.wso2.carbon.inbound.endpoint.protocol.grpc.util.Event;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Handles a bidirectional gRPC stream as a long lived mediation flow. The events received over the stream are
+ * injected in the order they are received and the responses of the flow are sent back over the same stream.
+ * The inbound flow control of the stream is done here, the events are requested from the client up to the window
+ * size, and only while the client reads the responses, so a client can not send faster than the mediation flow
+ * takes the events.
+ * <p>
+ * The stream is completed once the client has half closed it and each injected event is settled. An event is
+ * settled once its injection has returned and the flow has sent at least one response for it, so the responses
+ * sent by the flow before it returns are all sent over the stream. As a flow may not respond at all, the stream is
+ * completed anyway when the events are not settled within the response timeout after the half close.
+ */
+public class GRPCStreamHandler implements StreamObserver<Event> {
+
+    private static final Log log = LogFactory.getLog(GRPCStreamHandler.class);
+
+    private final String streamId = UUIDGenerator.getUUID();
+    private final GRPCInjectHandler injectHandler;
+    private final ServerCallStreamObserver<Event> responseObserver;
+    private final ResponseObserver responses = new ResponseObserver();
+    private final int window;
+    private final long responseTimeout;
+    private final ScheduledExecutorService timer;
+
+    /* events requested from the client and not received yet, only accessed by the callbacks of the call */
+    private int requested;
+
+    /* events received which are not settled yet */
+    private final AtomicInteger pendingEvents = new AtomicInteger();
+
+    private volatile boolean halfClosed;
+    private volatile boolean closed;
+    private volatile ScheduledFuture<?> completionTimeout;
+
+    /**
+     * @param injectHandler    handler which injects the events to the mediation flow
+     * @param responseObserver observer of the call, used to send the responses
+     * @param window           number of events requested from the client ahead of the mediation flow
+     * @param responseTimeout  time in milliseconds to wait for the responses of the pending events once the client
+     *                         half closes the stream
+     * @param timer            executor which completes the stream when the response timeout expires
+     */
+    public GRPCStreamHandler(GRPCInjectHandler injectHandler, ServerCallStreamObserver<Event> responseObserver,
+                             int window, long responseTimeout, ScheduledExecutorService timer) {
+        this.injectHandler = injectHandler;
+        this.responseObserver = responseObserver;
+        this.window = window;
+        this.responseTimeout = responseTimeout;
+        this.timer = timer;
+        responseObserver.disableAutoInboundFlowControl();
+        responseObserver.setOnReadyHandler(this::requestEvents);
+        responseObserver.setOnCancelHandler(() -> closed = true);
+        if (log.isDebugEnabled()) {
+            log.debug("gRPC stream " + streamId + " opened");
+        }
+        requestEvents();
+    }
+
+    @Override
+    public void onNext(Event receivedEvent) {
+        requested--;
+        pendingEvents.incrementAndGet();
+        EventResponseObserver eventResponses = new EventResponseObserver();
+        boolean injected;
+        try {
+            injected = injectHandler.invokeStream(receivedEvent, eventResponses, streamId);
+        } catch (SynapseException e) {
+            eventResponses.settle();
+            responses.onError(e);
+            return;
+        }
+        if (injected) {
+            eventResponses.onInjected();
+        } else {
+            eventResponses.settle();
+        }
+        requestEvents();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        closed = true;
+        cancelCompletionTimeout();
+        if (log.isDebugEnabled()) {
+            log.debug("gRPC stream " + streamId + " is closed by the client", throwable);
+        }
+    }
+
+    @Override
+    public void onCompleted() {
+        halfClosed = true;
+        int pending = pendingEvents.get();
+        if (log.isDebugEnabled()) {
+            log.debug("gRPC stream " + streamId + " is half closed by the client, " + pending +
+                    " events are pending");
+        }
+        if (pending == 0) {
+            responses.onCompleted();
+            return;
+        }
+        try {
+            completionTimeout = timer.schedule(this::onResponseTimeout, responseTimeout, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            responses.onCompleted();
+        }
+    }
+
+    public String getStreamId() {
+        return streamId;
+    }
+
+    /**
+     * Requests events from the client to fill the window. The events are not requested while the client does not
+     * read the responses, the stream requests them again when it becomes ready.
+     */
+    private void requestEvents() {
+        if (closed || halfClosed || !responseObserver.isReady()) {
+            return;
+        }
+        int count = window - requested;
+        if (count > 0) {
+            requested += count;
+            responseObserver.request(count);
+        }
+    }
+
+    private void releaseEvent() {
+        if (pendingEvents.decrementAndGet() == 0 && halfClosed) {
+            responses.onCompleted();
+        }
+    }
+
+    private void onResponseTimeout() {
+        if (!closed) {
+            log.warn("Completing the gRPC stream " + streamId + " with " + pendingEvents.get() + " events whose " +
+                    "responses are not sent within " + responseTimeout + " ms");
+            responses.onCompleted();
+        }
+    }
+
+    private void cancelCompletionTimeout() {
+        ScheduledFuture<?> timeout = completionTimeout;
+        if (timeout != null) {
+            timeout.cancel(false);
+        }
+    }
+
+    /**
+     * The observer of the responses of a single event. The event is settled once the injection has returned and a
+     * response is sent, or when it can not be injected.
+     */
+    private class EventResponseObserver implements StreamObserver<Event> {
+
+        private boolean injected;
+        private boolean responded;
+        private boolean settled;
+
+        @Override
+        public void onNext(Event response) {
+            responses.onNext(response);
+            if (update(false)) {
+                releaseEvent();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            responses.onError(throwable);
+            settle();
+        }
+
+        @Override
+        public void onCompleted() {
+            // the stream is completed once the client half closes it and all the events are settled
+        }
+
+        void onInjected() {
+            if (update(true)) {
+                releaseEvent();
+            }
+        }
+
+        void settle() {
+            boolean release;
+            synchronized (this) {
+                release = !settled;
+                settled = true;
+            }
+            if (release) {
+                releaseEvent();
+            }
+        }
+
+        private synchronized boolean update(boolean injection) {
+            if (injection) {
+                injected = true;
+            } else {
+                responded = true;
+            }
+            if (injected && responded && !settled) {
+                settled = true;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The observer of the responses of the stream, the responses are sent from the threads of the flow, hence they
+     * are serialized here.
+     */
+    private class ResponseObserver implements StreamObserver<Event> {
+
+        @Override
+        public synchronized void onNext(Event response) {
+            if (!closed) {
+                responseObserver.onNext(response);
+            } else if (log.isDebugEnabled()) {
+                log.debug("Dropping the response of the closed gRPC stream " + streamId);
+            }
+        }
+
+        @Override
+        public synchronized void onError(Throwable throwable) {
+            if (!closed) {
+                closed = true;
+                cancelCompletionTimeout();
+                responseObserver.onError(throwable);
+            }
+        }
+
+        @Override
+        public synchronized void onCompleted() {
+            if (!closed) {
+                closed = true;
+                cancelCompletionTimeout();
+                responseObserver.onCompleted();
+                if (log.isDebugEnabled()) {
+                    log.debug("gRPC stream " + streamId + " completed");
+                }
+            }
+        }
+    }
+}
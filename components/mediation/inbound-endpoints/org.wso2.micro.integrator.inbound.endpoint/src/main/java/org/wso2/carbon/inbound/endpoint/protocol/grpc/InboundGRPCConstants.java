@@ -19,13 +19,21 @@ package org.wso2.carbon.inbound.endpoint.protocol.grpc;
 
 public class InboundGRPCConstants {
     public static final String INBOUND_ENDPOINT_PARAMETER_GRPC_PORT = "inbound.grpc.port";
+    public static final String INBOUND_ENDPOINT_PARAMETER_GRPC_BINARY_PASSTHROUGH = "inbound.grpc.binary.passthrough";
+    public static final String INBOUND_ENDPOINT_PARAMETER_GRPC_STREAM_WINDOW = "inbound.grpc.stream.window";
+    public static final String INBOUND_ENDPOINT_PARAMETER_GRPC_STREAM_RESPONSE_TIMEOUT =
+            "inbound.grpc.stream.response.timeout";
     public static final String CONTENT_TYPE_JSON = "json";
     public static final String CONTENT_TYPE_JSON_MIME_TYPE = "application/json";
     public static final String CONTENT_TYPE_XML = "xml";
     public static final String CONTENT_TYPE_XML_MIME_TYPE = "text/xml";
     public static final String CONTENT_TYPE_TEXT = "text";
     public static final String CONTENT_TYPE_TEXT_MIME_TYPE = "text/plain";
+    public static final String CONTENT_TYPE_BINARY_MIME_TYPE = "application/octet-stream";
     public static final String HEADER_MAP_SEQUENCE_PARAMETER_NAME = "sequence";
     public static final String HEADER_MAP_CONTENT_TYPE_PARAMETER_NAME = "Content-Type";
+    public static final String GRPC_STREAM_ID = "GRPC_STREAM_ID";
     public static final int DEFAULT_INBOUND_ENDPOINT_GRPC_PORT = 8888;
+    public static final int DEFAULT_INBOUND_ENDPOINT_GRPC_STREAM_WINDOW = 16;
+    public static final long DEFAULT_INBOUND_ENDPOINT_GRPC_STREAM_RESPONSE_TIMEOUT = 60000;
 }
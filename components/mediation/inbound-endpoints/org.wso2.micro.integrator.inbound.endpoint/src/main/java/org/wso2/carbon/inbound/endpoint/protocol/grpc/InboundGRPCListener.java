@@ -20,6 +20,7 @@ package org.wso2.carbon.inbound.endpoint.protocol.grpc;
 import com.google.protobuf.Empty;
 import io.grpc.Server;
 import io.grpc.ServerBuilder;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import org.apache.log4j.Logger;
 import org.apache.synapse.SynapseException;
@@ -30,13 +31,18 @@ import org.wso2.carbon.inbound.endpoint.protocol.grpc.util.EventServiceGrpc;
 import org.wso2.carbon.inbound.endpoint.protocol.grpc.util.Event;
 
 import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 public class InboundGRPCListener implements InboundRequestProcessor {
     private int port;
+    private int streamWindow;
+    private long streamResponseTimeout;
     private GRPCInjectHandler injectHandler;
     private static final Logger log = Logger.getLogger(InboundGRPCListener.class.getName());
     private Server server;
+    private ScheduledExecutorService streamTimer;
 
     public InboundGRPCListener(InboundProcessorParams params) {
         String injectingSeq = params.getInjectingSeq();
@@ -50,7 +56,42 @@ public class InboundGRPCListener implements InboundRequestProcessor {
                     " property. Setting the port as " + InboundGRPCConstants.DEFAULT_INBOUND_ENDPOINT_GRPC_PORT);
             port = InboundGRPCConstants.DEFAULT_INBOUND_ENDPOINT_GRPC_PORT;
         }
-        injectHandler = new GRPCInjectHandler(injectingSeq, onErrorSeq, false, synapseEnvironment);
+        String streamWindowParam = params.getProperties().getProperty(
+                InboundGRPCConstants.INBOUND_ENDPOINT_PARAMETER_GRPC_STREAM_WINDOW);
+        streamWindow = InboundGRPCConstants.DEFAULT_INBOUND_ENDPOINT_GRPC_STREAM_WINDOW;
+        if (streamWindowParam != null) {
+            try {
+                streamWindow = Integer.parseInt(streamWindowParam);
+            } catch (NumberFormatException e) {
+                streamWindow = 0;
+            }
+            if (streamWindow <= 0) {
+                log.warn("Invalid value " + streamWindowParam + " for the " +
+                        InboundGRPCConstants.INBOUND_ENDPOINT_PARAMETER_GRPC_STREAM_WINDOW + " property. Setting the " +
+                        "stream window as " + InboundGRPCConstants.DEFAULT_INBOUND_ENDPOINT_GRPC_STREAM_WINDOW);
+                streamWindow = InboundGRPCConstants.DEFAULT_INBOUND_ENDPOINT_GRPC_STREAM_WINDOW;
+            }
+        }
+        String streamResponseTimeoutParam = params.getProperties().getProperty(
+                InboundGRPCConstants.INBOUND_ENDPOINT_PARAMETER_GRPC_STREAM_RESPONSE_TIMEOUT);
+        streamResponseTimeout = InboundGRPCConstants.DEFAULT_INBOUND_ENDPOINT_GRPC_STREAM_RESPONSE_TIMEOUT;
+        if (streamResponseTimeoutParam != null) {
+            try {
+                streamResponseTimeout = Long.parseLong(streamResponseTimeoutParam);
+            } catch (NumberFormatException e) {
+                streamResponseTimeout = -1;
+            }
+            if (streamResponseTimeout < 0) {
+                log.warn("Invalid value " + streamResponseTimeoutParam + " for the " +
+                        InboundGRPCConstants.INBOUND_ENDPOINT_PARAMETER_GRPC_STREAM_RESPONSE_TIMEOUT + " property. " +
+                        "Setting the stream response timeout as " +
+                        InboundGRPCConstants.DEFAULT_INBOUND_ENDPOINT_GRPC_STREAM_RESPONSE_TIMEOUT);
+                streamResponseTimeout = InboundGRPCConstants.DEFAULT_INBOUND_ENDPOINT_GRPC_STREAM_RESPONSE_TIMEOUT;
+            }
+        }
+        boolean binaryPassthrough = Boolean.parseBoolean(params.getProperties().getProperty(
+                InboundGRPCConstants.INBOUND_ENDPOINT_PARAMETER_GRPC_BINARY_PASSTHROUGH));
+        injectHandler = new GRPCInjectHandler(injectingSeq, onErrorSeq, false, binaryPassthrough, synapseEnvironment);
     }
 
     public void init() {
@@ -73,6 +114,11 @@ public class InboundGRPCListener implements InboundRequestProcessor {
         if (server != null) {
             throw new IllegalStateException("gRPC Listener Server already started");
         }
+        streamTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "grpc-stream-timer-" + port);
+            thread.setDaemon(true);
+            return thread;
+        });
         server = ServerBuilder.forPort(port).addService(new EventServiceGrpc.EventServiceImplBase() {
             @Override
             public void process(Event request, StreamObserver<Event> responseObserver) {
@@ -91,6 +137,15 @@ public class InboundGRPCListener implements InboundRequestProcessor {
                 responseObserver.onNext(Empty.getDefaultInstance());
                 responseObserver.onCompleted();
             }
+
+            @Override
+            public StreamObserver<Event> processStream(StreamObserver<Event> responseObserver) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Stream opened for gRPC Listener processStream method");
+                }
+                return new GRPCStreamHandler(injectHandler, (ServerCallStreamObserver<Event>) responseObserver,
+                        streamWindow, streamResponseTimeout, streamTimer);
+            }
         }).build();
         server.start();
         log.debug("gRPC Listener Server started");
@@ -102,6 +157,7 @@ public class InboundGRPCListener implements InboundRequestProcessor {
             throw new IllegalStateException("gRPC Listener Server is already stopped");
         }
         server = null;
+        streamTimer.shutdownNow();
         s.shutdown();
         if (s.awaitTermination(1, TimeUnit.SECONDS)) {
             log.debug("gRPC Listener Server stopped");
@@ -23,7 +23,9 @@ import io.grpc.stub.ClientCalls;
 import static io.grpc.MethodDescriptor.generateFullMethodName;
 import static io.grpc.stub.ClientCalls.blockingUnaryCall;
 import static io.grpc.stub.ClientCalls.futureUnaryCall;
+import static io.grpc.stub.ServerCalls.asyncBidiStreamingCall;
 import static io.grpc.stub.ServerCalls.asyncUnaryCall;
+import static io.grpc.stub.ServerCalls.asyncUnimplementedStreamingCall;
 import static io.grpc.stub.ServerCalls.asyncUnimplementedUnaryCall;
 
 /**
@@ -102,6 +104,38 @@ public final class EventServiceGrpc {
      return getConsumeMethod;
   }
 
+  private static volatile io.grpc.MethodDescriptor<Event,
+      Event> getProcessStreamMethod;
+
+  @io.grpc.stub.annotations.RpcMethod(
+      fullMethodName = SERVICE_NAME + '/' + "processStream",
+      requestType = Event.class,
+      responseType = Event.class,
+      methodType = io.grpc.MethodDescriptor.MethodType.BIDI_STREAMING)
+  public static io.grpc.MethodDescriptor<Event,
+      Event> getProcessStreamMethod() {
+    io.grpc.MethodDescriptor<Event, Event> getProcessStreamMethod;
+    if ((getProcessStreamMethod = EventServiceGrpc.getProcessStreamMethod) == null) {
+      synchronized (EventServiceGrpc.class) {
+        if ((getProcessStreamMethod = EventServiceGrpc.getProcessStreamMethod) == null) {
+          EventServiceGrpc.getProcessStreamMethod = getProcessStreamMethod =
+              io.grpc.MethodDescriptor.<Event, Event>newBuilder()
+              .setType(io.grpc.MethodDescriptor.MethodType.BIDI_STREAMING)
+              .setFullMethodName(generateFullMethodName(
+                  "eventservice.EventService", "processStream"))
+              .setSampledToLocalTracing(true)
+              .setRequestMarshaller(io.grpc.protobuf.ProtoUtils.marshaller(
+                  Event.getDefaultInstance()))
+              .setResponseMarshaller(io.grpc.protobuf.ProtoUtils.marshaller(
+                  Event.getDefaultInstance()))
+                  .setSchemaDescriptor(new EventServiceMethodDescriptorSupplier("processStream"))
+                  .build();
+          }
+        }
+     }
+     return getProcessStreamMethod;
+  }
+
   /**
    * Creates a new async stub that supports all call types for the service
    */
@@ -143,6 +177,13 @@ public final class EventServiceGrpc {
       asyncUnimplementedUnaryCall(getConsumeMethod(), responseObserver);
     }
 
+    /**
+     */
+    public io.grpc.stub.StreamObserver<Event> processStream(
+        io.grpc.stub.StreamObserver<Event> responseObserver) {
+      return asyncUnimplementedStreamingCall(getProcessStreamMethod(), responseObserver);
+    }
+
     @Override public final io.grpc.ServerServiceDefinition bindService() {
       return io.grpc.ServerServiceDefinition.builder(getServiceDescriptor())
           .addMethod(
@@ -159,6 +200,13 @@ public final class EventServiceGrpc {
                       Event,
                 com.google.protobuf.Empty>(
                   this, METHODID_CONSUME)))
+          .addMethod(
+            getProcessStreamMethod(),
+            asyncBidiStreamingCall(
+              new MethodHandlers<
+                Event,
+                Event>(
+                  this, METHODID_PROCESS_STREAM)))
           .build();
     }
   }
@@ -196,6 +244,14 @@ public final class EventServiceGrpc {
       ClientCalls.asyncUnaryCall(
           getChannel().newCall(getConsumeMethod(), getCallOptions()), request, responseObserver);
     }
+
+    /**
+     */
+    public io.grpc.stub.StreamObserver<Event> processStream(
+        io.grpc.stub.StreamObserver<Event> responseObserver) {
+      return ClientCalls.asyncBidiStreamingCall(
+          getChannel().newCall(getProcessStreamMethod(), getCallOptions()), responseObserver);
+    }
   }
 
   /**
@@ -268,6 +324,7 @@ public final class EventServiceGrpc {
 
   private static final int METHODID_PROCESS = 0;
   private static final int METHODID_CONSUME = 1;
+  private static final int METHODID_PROCESS_STREAM = 2;
 
   private static final class MethodHandlers<Req, Resp> implements
       io.grpc.stub.ServerCalls.UnaryMethod<Req, Resp>,
@@ -304,6 +361,9 @@ public final class EventServiceGrpc {
     public io.grpc.stub.StreamObserver<Req> invoke(
         io.grpc.stub.StreamObserver<Resp> responseObserver) {
       switch (methodId) {
+        case METHODID_PROCESS_STREAM:
+          return (io.grpc.stub.StreamObserver<Req>) serviceImpl.processStream(
+              (io.grpc.stub.StreamObserver<Event>) responseObserver);
         default:
           throw new AssertionError();
       }
@@ -357,6 +417,7 @@ public final class EventServiceGrpc {
               .setSchemaDescriptor(new EventServiceFileDescriptorSupplier())
               .addMethod(getProcessMethod())
               .addMethod(getConsumeMethod())
+              .addMethod(getProcessStreamMethod())
               .build();
         }
       }
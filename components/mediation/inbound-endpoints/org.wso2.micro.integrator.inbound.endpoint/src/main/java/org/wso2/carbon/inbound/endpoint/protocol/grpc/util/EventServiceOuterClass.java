@@ -55,11 +55,12 @@ public final class EventServiceOuterClass {
       "le/protobuf/empty.proto\"{\n\005Event\022\017\n\007payl" +
       "oad\030\001 \001(\t\0221\n\007headers\030\002 \003(\0132 .eventservic" +
       "e.Event.HeadersEntry\032.\n\014HeadersEntry\022\013\n\003" +
-      "key\030\001 \001(\t\022\r\n\005value\030\002 \001(\t:\0028\0012\177\n\014EventSer" +
-      "vice\0225\n\007process\022\023.eventservice.Event\032\023.e" +
-      "ventservice.Event\"\000\0228\n\007consume\022\023.eventse" +
-      "rvice.Event\032\026.google.protobuf.Empty\"\000B\021\n" +
-      "\rorg.wso2.grpcP\001b\006proto3"
+      "key\030\001 \001(\t\022\r\n\005value\030\002 \001(\t:\0028\0012\300\001\n\014Even" +
+      "tService\0225\n\007process\022\023.eventservice.Event\032\023" +
+      ".eventservice.Event\"\000\0228\n\007consume\022\023.events" +
+      "ervice.Event\032\026.google.protobuf.Empty\"\000\022?\n\rp" +
+      "rocessStream\022\023.eventservice.Event\032\023.eventservi" +
+      "ce.Event\"\000(\0010\001B\021\n\rorg.wso2.grpcP\001b\006proto3"
     };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
         new com.google.protobuf.Descriptors.FileDescriptor.    InternalDescriptorAssigner() {
@@ -28,7 +28,10 @@ import org.wso2.carbon.inbound.endpoint.protocol.hl7.util.HL7MessageUtils;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
 import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
 
 public class HL7Codec {
     private static final Log log = LogFactory.getLog(HL7Codec.class);
@@ -43,9 +46,13 @@ public class HL7Codec {
     public static final int WRITE_TRAILER = 6;
     public static final int WRITE_COMPLETE = 7;
 
+    // large enough for the incomplete bytes of a character in any charset
+    private static final int CARRY_BUFFER_SIZE = 16;
+
     private CharsetDecoder charsetDecoder;
 
     private volatile int state;
+    private boolean trailerPending;
 
     private int responseReadPosition = 0;
     private byte[] responseBytes = null;
@@ -57,9 +64,22 @@ public class HL7Codec {
 
     public HL7Codec(CharsetDecoder charsetDecoder) {
         this.state = READ_HEADER;
-        setCharsetDecoder(charsetDecoder);
+        // The decoder keeps the state of a request split into several buffers, hence it is not shared between
+        // the connections
+        setCharsetDecoder(charsetDecoder.charset().newDecoder()
+                                  .onMalformedInput(charsetDecoder.malformedInputAction())
+                                  .onUnmappableCharacter(charsetDecoder.unmappableCharacterAction()));
     }
 
+    /**
+     * Frames the request read into the given buffer. The request content is not copied, the context keeps views of
+     * the input buffers until the trailer is found, when the whole request is decoded at once.
+     *
+     * @param dst     buffer with the bytes read from the channel
+     * @param context context of the connection
+     * @return the number of bytes of the buffer retained by the context, the caller must hand over the buffer to the
+     * context if this is positive. -1 if the request is already read
+     */
     public int decode(ByteBuffer dst, MLLPContext context) throws IOException, MLLProtocolException, HL7Exception {
 
         if (this.state >= READ_COMPLETE || dst.position() < 0) {
@@ -67,52 +87,126 @@ public class HL7Codec {
         }
 
         if (this.state == READ_HEADER) {
-            if (dst.get(0) == MLLPConstants.HL7_HEADER[0]) {
-                dst.position(1);
+            if (dst.get(dst.position()) == MLLPConstants.HL7_HEADER[0]) {
+                dst.position(dst.position() + 1);
                 this.state = READ_CONTENT;
+                this.trailerPending = false;
             } else {
                 throw new MLLProtocolException("Could not find header in incoming message.");
             }
         }
 
+        int retained = 0;
         if (this.state == READ_CONTENT) {
+            int start = dst.position();
+            int end = dst.limit();
+
+            if (trailerPending && start < end) {
+                // The previous read ended with the first byte of the trailer
+                trailerPending = false;
+                if (dst.get(start) == MLLPConstants.HL7_TRAILER[1]) {
+                    context.trimRequest(1);
+                    this.state = READ_TRAILER;
+                } else {
+                    context.addRequestChunk(ByteBuffer.wrap(new byte[] { MLLPConstants.HL7_TRAILER[0] }));
+                }
+            }
 
-            int trailerIndex = findTrailer(dst);
+            if (this.state == READ_CONTENT) {
+                int trailerIndex = findTrailer(dst);
+                if (trailerIndex > -1) {
+                    // The byte before the trailer, the carriage return of the last segment, is not kept
+                    if (trailerIndex > start) {
+                        end = trailerIndex - 1;
+                    } else {
+                        context.trimRequest(1);
+                        end = start;
+                    }
+                    this.state = READ_TRAILER;
+                } else if (end > start && dst.get(end - 1) == MLLPConstants.HL7_TRAILER[0]) {
+                    end--;
+                    trailerPending = true;
+                }
 
-            if (trailerIndex > -1) {
-                dst.limit(trailerIndex);
-                this.state = READ_TRAILER;
+                if (end > start) {
+                    ByteBuffer chunk = dst.duplicate();
+                    chunk.position(start);
+                    chunk.limit(end);
+                    context.addRequestChunk(chunk);
+                    retained = end - start;
+                }
             }
-
-            context.getRequestBuffer().append(charsetDecoder.decode(dst).toString());
+            dst.position(dst.limit());
         }
 
         if (this.state == READ_TRAILER) {
             this.state = READ_COMPLETE;
             try {
-                if (context.isPreProcess()) {
-                    context.setHl7Message(HL7MessageUtils.parse(context.getRequestBuffer().toString(),
+                context.setRawMessage(decodeRequest(context));
+            } finally {
+                context.releaseRequestBuffers();
+            }
+            retained = 0;
+            try {
+                if (context.isLazyParse()) {
+                    context.setHl7Message(HL7MessageUtils.parseHeader(context.getRawMessage()));
+                } else if (context.isPreProcess()) {
+                    context.setHl7Message(HL7MessageUtils.parse(context.getRawMessage(),
                                                                 context.getPreProcessParser()));
                 } else {
                     context.setHl7Message(
-                            HL7MessageUtils.parse(context.getRequestBuffer().toString(), context.isValidateMessage()));
+                            HL7MessageUtils.parse(context.getRawMessage(), context.isValidateMessage()));
                 }
-                context.getRequestBuffer().setLength(0);
             } catch (HL7Exception e) {
-                log.error("Error while parsing request message: " + context.getRequestBuffer());
+                log.error("Error while parsing request message: " + context.getRawMessage());
                 throw e;
             }
         }
 
-        return 0;
+        return retained;
 
     }
 
+    /**
+     * Decodes the request content kept by the context in one pass. A character split between two input buffers is
+     * completed through a small carry buffer.
+     */
+    private String decodeRequest(MLLPContext context) throws CharacterCodingException {
+        CharBuffer out = CharBuffer.allocate((int) (context.getRequestLength() * charsetDecoder.maxCharsPerByte()) + 1);
+        ByteBuffer carry = ByteBuffer.allocate(CARRY_BUFFER_SIZE);
+        charsetDecoder.reset();
+
+        for (ByteBuffer in : context.getRequestChunks()) {
+            while (carry.position() > 0 && in.hasRemaining()) {
+                carry.put(in.get());
+                carry.flip();
+                checkResult(charsetDecoder.decode(carry, out, false));
+                carry.compact();
+            }
+            checkResult(charsetDecoder.decode(in, out, false));
+            if (in.hasRemaining()) {
+                carry.put(in);
+            }
+        }
+        carry.flip();
+        checkResult(charsetDecoder.decode(carry, out, true));
+        checkResult(charsetDecoder.flush(out));
+
+        out.flip();
+        return out.toString();
+    }
+
+    private void checkResult(CoderResult result) throws CharacterCodingException {
+        if (result.isError()) {
+            result.throwException();
+        }
+    }
+
     private int findTrailer(ByteBuffer dst) {
-        for (int i = 0; i < dst.limit(); i++) {
+        for (int i = dst.position(); i < dst.limit() - 1; i++) {
             if (dst.get(i) == MLLPConstants.HL7_TRAILER[0]) {
                 if (dst.get(i + 1) == MLLPConstants.HL7_TRAILER[1]) {
-                    return i - 1;
+                    return i;
                 }
             }
         }
@@ -129,6 +223,7 @@ public class HL7Codec {
         if (this.state == READ_COMPLETE) {
 
             if ((context.isAutoAck() || context.isApplicationAck()) && !context.isNackMode()) {
+                // In the lazy parse mode the message holds only the MSH segment, which is enough to generate the ACK
                 responseBytes = context.getHl7Message().generateACK().encode().getBytes(charsetDecoder.charset());
                 context.setApplicationAck(false);
             } else {
@@ -25,18 +25,22 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.http.nio.reactor.EventMask;
 import org.apache.http.nio.reactor.IOSession;
 import org.apache.synapse.transport.passthru.util.BufferFactory;
+import org.apache.synapse.transport.passthru.util.ControlledByteBuffer;
 import org.wso2.carbon.inbound.endpoint.protocol.hl7.core.MLLPConstants;
 import org.wso2.carbon.inbound.endpoint.protocol.hl7.codec.HL7Codec;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.CharsetDecoder;
+import java.util.ArrayList;
+import java.util.List;
 
 public class MLLPContext {
     private static final Log log = LogFactory.getLog(MLLPContext.class);
 
     private IOSession session;
-    private StringBuffer requestBuffer;
     private StringBuffer responseBuffer;
     private Message hl7Message;
+    private String rawMessage;
     private volatile HL7Codec codec;
     private long requestTime;
     private int expiry;
@@ -47,12 +51,18 @@ public class MLLPContext {
     private volatile boolean markForClose = false;
     private boolean preProcess = true;
     private boolean applicationAck = false;
+    private boolean lazyParse = false;
 
     private volatile String messageId;
 
     private Parser preProcessorParser = null;
     private BufferFactory bufferFactory;
 
+    // Content of the request being read, as views of the pooled input buffers handed over by the source handler
+    private final List<ByteBuffer> requestChunks = new ArrayList<>();
+    private final List<ControlledByteBuffer> requestBuffers = new ArrayList<>();
+    private int requestLength;
+
     public MLLPContext(IOSession session, CharsetDecoder decoder, boolean autoAck, boolean validateMessage,
                        Parser preProcessorParser, BufferFactory bufferFactory) {
         this.session = session;
@@ -62,7 +72,6 @@ public class MLLPContext {
         this.preProcessorParser = preProcessorParser;
         this.bufferFactory = bufferFactory;
         this.expiry = MLLPConstants.DEFAULT_HL7_TIMEOUT;
-        this.requestBuffer = new StringBuffer();
         this.responseBuffer = new StringBuffer();
 
         if (preProcessorParser == null) {
@@ -75,8 +84,77 @@ public class MLLPContext {
         return codec;
     }
 
-    public StringBuffer getRequestBuffer() {
-        return this.requestBuffer;
+    /**
+     * Adds a chunk of the request content read by the codec. The chunk is a view of the input buffer, which is
+     * handed over to this context through {@link #addRequestBuffer(ControlledByteBuffer)}.
+     *
+     * @param chunk view of the request content
+     */
+    public void addRequestChunk(ByteBuffer chunk) {
+        requestChunks.add(chunk);
+        requestLength += chunk.remaining();
+    }
+
+    /**
+     * Takes the ownership of a pooled input buffer which holds a chunk of the request content. The buffer is
+     * released to the buffer factory once the request is decoded, or when the context is reset.
+     *
+     * @param buffer input buffer of the source handler
+     */
+    public void addRequestBuffer(ControlledByteBuffer buffer) {
+        requestBuffers.add(buffer);
+    }
+
+    /**
+     * Drops the given number of bytes from the end of the request content read so far.
+     *
+     * @param length number of bytes to drop
+     */
+    public void trimRequest(int length) {
+        while (length > 0 && !requestChunks.isEmpty()) {
+            ByteBuffer last = requestChunks.get(requestChunks.size() - 1);
+            int trimmed = Math.min(length, last.remaining());
+            last.limit(last.limit() - trimmed);
+            requestLength -= trimmed;
+            length -= trimmed;
+            if (!last.hasRemaining()) {
+                requestChunks.remove(requestChunks.size() - 1);
+            }
+        }
+    }
+
+    public List<ByteBuffer> getRequestChunks() {
+        return requestChunks;
+    }
+
+    public int getRequestLength() {
+        return requestLength;
+    }
+
+    /**
+     * Drops the request content and returns the input buffers holding it to the buffer factory.
+     */
+    public void releaseRequestBuffers() {
+        requestChunks.clear();
+        requestLength = 0;
+        for (ControlledByteBuffer buffer : requestBuffers) {
+            bufferFactory.release(buffer);
+        }
+        requestBuffers.clear();
+    }
+
+    /**
+     * Returns the decoded request, this is kept until the context is reset so that an error sequence gets the
+     * request even if it could not be parsed.
+     *
+     * @return the request message in the HL7 pipe format
+     */
+    public String getRawMessage() {
+        return rawMessage;
+    }
+
+    public void setRawMessage(String rawMessage) {
+        this.rawMessage = rawMessage;
     }
 
     public StringBuffer getResponseBuffer() {
@@ -145,6 +223,20 @@ public class MLLPContext {
         return preProcess;
     }
 
+    /**
+     * In the lazy parse mode only the MSH segment of a request is parsed when it is read, the request is kept in
+     * the raw form and parsed only if the payload is accessed during the mediation.
+     *
+     * @return whether the requests are lazily parsed
+     */
+    public boolean isLazyParse() {
+        return lazyParse;
+    }
+
+    public void setLazyParse(boolean lazyParse) {
+        this.lazyParse = lazyParse;
+    }
+
     public boolean isNackMode() {
         return nackMode;
     }
@@ -188,7 +280,8 @@ public class MLLPContext {
     public void reset() {
         // Resets MLLP Context and HL7Codec to default states.
         this.responseBuffer.setLength(0);
-        this.requestBuffer.setLength(0);
+        this.releaseRequestBuffers();
+        this.rawMessage = null;
         this.getCodec().setState(HL7Codec.READ_HEADER);
         this.setNackMode(false);
     }
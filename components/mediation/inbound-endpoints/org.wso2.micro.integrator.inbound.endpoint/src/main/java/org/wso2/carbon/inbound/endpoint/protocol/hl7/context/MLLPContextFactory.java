@@ -41,7 +41,10 @@ public class MLLPContextFactory {
         BufferFactory bufferFactory = (BufferFactory) processor.getInboundParameterMap()
                 .get(MLLPConstants.INBOUND_HL7_BUFFER_FACTORY);
 
-        return new MLLPContext(session, decoder, autoAck, validate, preParser, bufferFactory);
+        MLLPContext context = new MLLPContext(session, decoder, autoAck, validate, preParser, bufferFactory);
+        context.setLazyParse(
+                Boolean.valueOf(inboundParams.getProperties().getProperty(MLLPConstants.PARAM_HL7_LAZY_PARSE)));
+        return context;
     }
 
 }
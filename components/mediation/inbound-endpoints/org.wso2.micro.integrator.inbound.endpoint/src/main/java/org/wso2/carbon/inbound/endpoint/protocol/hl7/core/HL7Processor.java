@@ -38,6 +38,7 @@ import org.wso2.carbon.inbound.endpoint.protocol.hl7.util.HL7MessageUtils;
 import java.nio.charset.CharsetDecoder;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -45,6 +46,8 @@ public class HL7Processor implements InboundResponseSender {
     private static final Log log = LogFactory.getLog(HL7Processor.class);
 
     private ScheduledExecutorService executorService = HL7ExecutorServiceFactory.getExecutorService();
+    // dedicated workers of the endpoint, the shared executor service is used if this is not configured
+    private HL7WorkerPool workerPool;
 
     private Map<String, Object> parameters;
     private InboundProcessorParams params;
@@ -67,6 +70,11 @@ public class HL7Processor implements InboundResponseSender {
 
         timeOut = HL7MessageUtils.getInt(MLLPConstants.PARAM_HL7_TIMEOUT, params);
 
+        if (params.getProperties().getProperty(MLLPConstants.PARAM_HL7_WORKER_POOL_SIZE) != null) {
+            workerPool = new HL7WorkerPool(params.getName(),
+                                           HL7MessageUtils.getInt(MLLPConstants.PARAM_HL7_WORKER_POOL_SIZE, params),
+                                           HL7MessageUtils.getInt(MLLPConstants.PARAM_HL7_WORKER_QUEUE_SIZE, params));
+        }
     }
 
     /**
@@ -81,7 +89,13 @@ public class HL7Processor implements InboundResponseSender {
         // Prepare Synapse Context for message injection
         MessageContext synCtx;
         try {
-            synCtx = HL7MessageUtils.createSynapseMessageContext(mllpContext.getHl7Message(), params);
+            if (mllpContext.isLazyParse()) {
+                synCtx = HL7MessageUtils.createSynapseMessageContext(mllpContext.getHl7Message(),
+                        mllpContext.getRawMessage(), mllpContext.getPreProcessParser(),
+                        mllpContext.isValidateMessage(), params);
+            } else {
+                synCtx = HL7MessageUtils.createSynapseMessageContext(mllpContext.getHl7Message(), params);
+            }
         } catch (HL7Exception e) {
             handleException(mllpContext, e.getMessage());
             return;
@@ -123,9 +137,7 @@ public class HL7Processor implements InboundResponseSender {
                     .schedule(new TimeoutHandler(mllpContext, synCtx.getMessageID()), timeOut, TimeUnit.MILLISECONDS);
         }
 
-        CallableTask task = new CallableTask(synCtx, injectSeq);
-
-        executorService.submit(task);
+        submit(mllpContext, new CallableTask(synCtx, injectSeq));
 
     }
 
@@ -135,9 +147,9 @@ public class HL7Processor implements InboundResponseSender {
         // Prepare Synapse Context for message injection
         MessageContext synCtx;
         try {
-            if (mllpContext.getRequestBuffer() != null) {
+            if (mllpContext.getRawMessage() != null) {
                 synCtx = HL7MessageUtils.
-                        createErrorMessageContext(mllpContext.getRequestBuffer().toString(), ex, params);
+                        createErrorMessageContext(mllpContext.getRawMessage(), ex, params);
             } else {
                 synCtx = HL7MessageUtils.
                         createErrorMessageContext("The message received is not parseable", ex, params);
@@ -182,9 +194,60 @@ public class HL7Processor implements InboundResponseSender {
                     .schedule(new TimeoutHandler(mllpContext, synCtx.getMessageID()), timeOut, TimeUnit.MILLISECONDS);
         }
 
-        CallableTask task = new CallableTask(synCtx, injectSeq);
+        submit(mllpContext, new CallableTask(synCtx, injectSeq));
+    }
+
+    /**
+     * Submits the mediation of a message. In the auto ack mode the ACK is requested only after the message is
+     * accepted by the workers, so that a message rejected by a full worker queue gets the NACK alone.
+     *
+     * @param mllpContext context of the connection
+     * @param task        mediation of the message
+     */
+    public void submit(MLLPContext mllpContext, CallableTask task) {
+        try {
+            if (workerPool == null) {
+                executorService.submit(task);
+            } else {
+                workerPool.submit(task);
+            }
+        } catch (RejectedExecutionException e) {
+            log.warn("Worker queue of HL7 inbound endpoint " + params.getName() + " is full, rejecting message.");
+            try {
+                mllpContext.setNackMode(true);
+                mllpContext.setHl7Message(HL7MessageUtils.createNack(mllpContext.getHl7Message(),
+                                                                     "HL7 inbound endpoint is overloaded."));
+                mllpContext.requestOutput();
+            } catch (HL7Exception ex) {
+                log.error("Error while generating NACK response.", ex);
+            }
+            return;
+        }
+        if (mllpContext.isAutoAck()) {
+            mllpContext.requestOutput();
+        }
+    }
+
+    /**
+     * Resumes reading from the connection of the given context once its response is sent, unless the worker queue of
+     * the endpoint is full. In that case reading is resumed when a queued message is processed.
+     *
+     * @param mllpContext context of the connection
+     */
+    public void requestInput(MLLPContext mllpContext) {
+        if (workerPool == null || !workerPool.pauseIfSaturated(mllpContext)) {
+            mllpContext.requestInput();
+        }
+    }
+
+    public HL7WorkerPool getWorkerPool() {
+        return workerPool;
+    }
 
-        executorService.submit(task);
+    public void destroy() {
+        if (workerPool != null) {
+            workerPool.shutdown();
+        }
     }
 
     /**
@@ -197,7 +260,10 @@ public class HL7Processor implements InboundResponseSender {
         org.apache.axis2.context.MessageContext axis2MsgCtx = ((org.apache.synapse.core.axis2.Axis2MessageContext) synCtx)
                 .getAxis2MessageContext();
 
-        axis2MsgCtx.setProperty(Axis2HL7Constants.HL7_MESSAGE_OBJECT, context.getHl7Message());
+        // In the lazy parse mode the context holds only the MSH segment of the request
+        if (!context.isLazyParse()) {
+            axis2MsgCtx.setProperty(Axis2HL7Constants.HL7_MESSAGE_OBJECT, context.getHl7Message());
+        }
 
         if (params.getProperties().getProperty(MLLPConstants.PARAM_HL7_BUILD_RAW_MESSAGE) != null) {
             axis2MsgCtx.setProperty(Axis2HL7Constants.HL7_BUILD_RAW_MESSAGE, Boolean.valueOf(
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.inbound.endpoint.protocol.hl7.core;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.commons.jmx.MBeanRegistrar;
+import org.wso2.carbon.inbound.endpoint.protocol.hl7.context.MLLPContext;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded worker pool of a single HL7 inbound endpoint. When the queue of the pool is full, the connections of the
+ * endpoint stop reading further requests after sending the current response, and they are resumed one by one as
+ * the queued messages are processed. A message which is read while the queue is full is rejected.
+ */
+public class HL7WorkerPool implements HL7WorkerPoolMBean {
+
+    private static final Log log = LogFactory.getLog(HL7WorkerPool.class);
+
+    private static final String MBEAN_CATEGORY = "HL7InboundEndpoint";
+
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+
+    private final Queue<MLLPContext> pausedContexts = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inFlightCount = new AtomicInteger();
+    private final LongAdder completedCount = new LongAdder();
+    private final LongAdder rejectedCount = new LongAdder();
+    private final LongAdder totalProcessingTime = new LongAdder();
+    private final AtomicLong maxProcessingTime = new AtomicLong();
+
+    public HL7WorkerPool(String name, int poolSize, int queueCapacity) {
+        this.name = name;
+        this.queueCapacity = queueCapacity;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                                               new LinkedBlockingQueue<Runnable>(queueCapacity),
+                                               new WorkerThreadFactory(name));
+        MBeanRegistrar.getInstance().registerMBean(this, MBEAN_CATEGORY, name);
+    }
+
+    /**
+     * Submits a message for mediation.
+     *
+     * @param task mediation of the message
+     * @throws RejectedExecutionException if the queue of the pool is full
+     */
+    public void submit(final CallableTask task) {
+        final long submitTime = System.currentTimeMillis();
+        inFlightCount.incrementAndGet();
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        task.call();
+                    } catch (Exception e) {
+                        log.error("Error while mediating a message of HL7 inbound endpoint " + name, e);
+                    } finally {
+                        completed(System.currentTimeMillis() - submitTime);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlightCount.decrementAndGet();
+            rejectedCount.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Stops reading from the connection of the given context if the queue of the pool is full.
+     *
+     * @param context context of the connection, which has sent the response of its last request
+     * @return true if the connection is paused, false if it can read the next request
+     */
+    public boolean pauseIfSaturated(MLLPContext context) {
+        if (!isSaturated()) {
+            return false;
+        }
+        pausedContexts.add(context);
+        if (log.isDebugEnabled()) {
+            log.debug("Worker queue of HL7 inbound endpoint " + name + " is full, pausing a connection.");
+        }
+        // a message may have completed before the connection was queued
+        resumeConnection();
+        return true;
+    }
+
+    private void completed(long processingTime) {
+        inFlightCount.decrementAndGet();
+        completedCount.increment();
+        totalProcessingTime.add(processingTime);
+        long max = maxProcessingTime.get();
+        while (processingTime > max && !maxProcessingTime.compareAndSet(max, processingTime)) {
+            max = maxProcessingTime.get();
+        }
+        resumeConnection();
+    }
+
+    private void resumeConnection() {
+        if (!isSaturated()) {
+            MLLPContext context = pausedContexts.poll();
+            if (context != null) {
+                context.requestInput();
+            }
+        }
+    }
+
+    private boolean isSaturated() {
+        return executor.getQueue().remainingCapacity() == 0;
+    }
+
+    public void shutdown() {
+        MBeanRegistrar.getInstance().unRegisterMBean(MBEAN_CATEGORY, name);
+        executor.shutdown();
+        pausedContexts.clear();
+    }
+
+    @Override
+    public int getPoolSize() {
+        return executor.getPoolSize();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    @Override
+    public int getInFlightCount() {
+        return inFlightCount.get();
+    }
+
+    @Override
+    public int getPausedConnectionCount() {
+        return pausedContexts.size();
+    }
+
+    @Override
+    public long getCompletedCount() {
+        return completedCount.sum();
+    }
+
+    @Override
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    @Override
+    public double getAverageProcessingTime() {
+        long count = completedCount.sum();
+        return count == 0 ? 0 : (double) totalProcessingTime.sum() / count;
+    }
+
+    @Override
+    public long getMaxProcessingTime() {
+        return maxProcessingTime.get();
+    }
+
+    @Override
+    public void resetStatistics() {
+        completedCount.reset();
+        rejectedCount.reset();
+        totalProcessingTime.reset();
+        maxProcessingTime.set(0);
+    }
+
+    private static class WorkerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+        private final String namePrefix;
+
+        WorkerThreadFactory(String endpointName) {
+            this.namePrefix = "HL7-inbound-" + endpointName + "-worker-";
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            return new Thread(r, namePrefix + threadNumber.getAndIncrement());
+        }
+    }
+}
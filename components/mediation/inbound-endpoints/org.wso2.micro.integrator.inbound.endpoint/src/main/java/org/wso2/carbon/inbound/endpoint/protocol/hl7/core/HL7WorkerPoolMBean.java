@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.inbound.endpoint.protocol.hl7.core;
+
+/**
+ * JMX view of the worker pool of an HL7 inbound endpoint.
+ */
+public interface HL7WorkerPoolMBean {
+
+    int getPoolSize();
+
+    int getActiveCount();
+
+    int getQueueDepth();
+
+    int getQueueCapacity();
+
+    int getInFlightCount();
+
+    int getPausedConnectionCount();
+
+    long getCompletedCount();
+
+    long getRejectedCount();
+
+    /**
+     * @return the average time in milliseconds from the submission of a message to the end of its mediation
+     */
+    double getAverageProcessingTime();
+
+    /**
+     * @return the longest time in milliseconds from the submission of a message to the end of its mediation
+     */
+    long getMaxProcessingTime();
+
+    void resetStatistics();
+}
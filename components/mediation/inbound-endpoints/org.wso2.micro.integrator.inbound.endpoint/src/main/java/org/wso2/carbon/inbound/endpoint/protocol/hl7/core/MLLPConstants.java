@@ -59,6 +59,16 @@ public class MLLPConstants {
 
     public final static String PARAM_HL7_PASS_THROUGH_INVALID_MESSAGES = "inbound.hl7.PassThroughInvalidMessages";
 
+    public final static String PARAM_HL7_LAZY_PARSE = "inbound.hl7.LazyParse";
+
+    public final static String HL7_XML_NAMESPACE = "urn:hl7-org:v2xml";
+
+    public final static String PARAM_HL7_WORKER_POOL_SIZE = "inbound.hl7.WorkerPoolSize";
+
+    public final static String PARAM_HL7_WORKER_QUEUE_SIZE = "inbound.hl7.WorkerQueueSize";
+
+    public final static int DEFAULT_HL7_WORKER_QUEUE_SIZE = 1000;
+
     public final static String HL7_ID_GENERATOR = "hl7_id_generator";
 
     public final static String HL7_INBOUND_MSG_ID = "HL7_INBOUND_MSG_ID";
@@ -76,7 +76,12 @@ public class MLLPSourceHandler implements IOEventDispatch {
             while ((read = ch.read(inputBuffer.getByteBuffer())) > 0) {
                 inputBuffer.flip();
                 try {
-                    mllpContext.getCodec().decode(inputBuffer.getByteBuffer(), mllpContext);
+                    if (mllpContext.getCodec().decode(inputBuffer.getByteBuffer(), mllpContext) > 0) {
+                        // the context keeps the request content in the buffer, read the rest into a new buffer
+                        mllpContext.addRequestBuffer(inputBuffer);
+                        inputBuffer = bufferFactory.getBuffer();
+                    }
+                    inputBuffer.clear();
                 } catch (MLLProtocolException e) {
                     handleException(session, mllpContext, e);
                     clearInputBuffers(mllpContext);
@@ -99,7 +104,7 @@ public class MLLPSourceHandler implements IOEventDispatch {
 
             if (mllpContext.getCodec().isReadComplete()) {
                 if (mllpContext.isAutoAck()) {
-                    mllpContext.requestOutput();
+                    // the processor requests the output once it decides between the ACK and a NACK
                     bufferFactory.release(inputBuffer);
                     inputBuffer = bufferFactory.getBuffer();
                 }
@@ -171,7 +176,7 @@ public class MLLPSourceHandler implements IOEventDispatch {
                 outputBuffer = bufferFactory.getBuffer();
                 mllpContext.setMessageId("RESPONDED");
                 mllpContext.reset();
-                mllpContext.requestInput();
+                hl7Processor.requestInput(mllpContext);
             }
         }
 
@@ -195,6 +200,9 @@ public class MLLPSourceHandler implements IOEventDispatch {
             handleException(session, mllpContext, e);
         }
 
+        if (mllpContext != null) {
+            mllpContext.releaseRequestBuffers();
+        }
         bufferFactory.release(inputBuffer);
         bufferFactory.release(outputBuffer);
         session.close();
@@ -163,6 +163,28 @@ public class HL7EndpointManager extends AbstractInboundEndpointManager {
                               + ". Default UTF-8 will be used instead.");
         }
 
+        String workerPoolSize = params.getProperties().getProperty(MLLPConstants.PARAM_HL7_WORKER_POOL_SIZE);
+        if (workerPoolSize != null) {
+            try {
+                if (Integer.parseInt(workerPoolSize) < 1) {
+                    throw new NumberFormatException();
+                }
+            } catch (NumberFormatException e) {
+                log.warn("Parameter inbound.hl7.WorkerPoolSize in HL7 inbound " + params.getName()
+                                 + " is not valid. The shared HL7 worker pool will be used.");
+                params.getProperties().remove(MLLPConstants.PARAM_HL7_WORKER_POOL_SIZE);
+            }
+        }
+
+        try {
+            if (Integer.parseInt(params.getProperties().getProperty(MLLPConstants.PARAM_HL7_WORKER_QUEUE_SIZE)) < 1) {
+                throw new NumberFormatException();
+            }
+        } catch (NumberFormatException e) {
+            params.getProperties().setProperty(MLLPConstants.PARAM_HL7_WORKER_QUEUE_SIZE,
+                                               String.valueOf(MLLPConstants.DEFAULT_HL7_WORKER_QUEUE_SIZE));
+        }
+
         if (params.getProperties().getProperty(MLLPConstants.PARAM_HL7_VALIDATE) == null) {
             params.getProperties().setProperty(MLLPConstants.PARAM_HL7_VALIDATE, "true");
         }
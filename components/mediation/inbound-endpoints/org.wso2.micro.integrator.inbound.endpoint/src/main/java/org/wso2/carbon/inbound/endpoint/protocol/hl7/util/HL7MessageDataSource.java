@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.inbound.endpoint.protocol.hl7.util;
+
+import ca.uhn.hl7v2.HL7Exception;
+import ca.uhn.hl7v2.model.Message;
+import ca.uhn.hl7v2.parser.Parser;
+import org.apache.axiom.om.OMDataSource;
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axiom.om.impl.serialize.StreamingOMSerializer;
+import org.apache.axiom.om.util.StAXUtils;
+
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.io.Writer;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * The data source of the XML element of a lazily parsed HL7 message. The raw message is parsed and encoded into XML
+ * only when the element is expanded or serialized, so a message which is not accessed during the mediation is never
+ * parsed.
+ */
+public class HL7MessageDataSource implements OMDataSource {
+
+    private final String rawMessage;
+    private final Parser preProcessor;
+    private final boolean validate;
+
+    private String xmlMessage;
+
+    public HL7MessageDataSource(String rawMessage, Parser preProcessor, boolean validate) {
+        this.rawMessage = rawMessage;
+        this.preProcessor = preProcessor;
+        this.validate = validate;
+    }
+
+    public String getRawMessage() {
+        return rawMessage;
+    }
+
+    @Override
+    public void serialize(OutputStream output, OMOutputFormat format) throws XMLStreamException {
+        XMLStreamWriter xmlWriter = StAXUtils.createXMLStreamWriter(output, format.getCharSetEncoding());
+        serialize(xmlWriter);
+        xmlWriter.flush();
+    }
+
+    @Override
+    public void serialize(Writer writer, OMOutputFormat format) throws XMLStreamException {
+        XMLStreamWriter xmlWriter = StAXUtils.createXMLStreamWriter(writer);
+        serialize(xmlWriter);
+        xmlWriter.flush();
+    }
+
+    @Override
+    public void serialize(XMLStreamWriter xmlWriter) throws XMLStreamException {
+        XMLStreamReader reader = getReader();
+        // skip the XML declaration of the encoded message
+        while (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+            reader.next();
+        }
+        new StreamingOMSerializer().serialize(reader, xmlWriter);
+        reader.close();
+    }
+
+    @Override
+    public XMLStreamReader getReader() throws XMLStreamException {
+        return StAXUtils.createXMLStreamReader(new StringReader(getXmlMessage()));
+    }
+
+    private synchronized String getXmlMessage() throws XMLStreamException {
+        if (xmlMessage == null) {
+            try {
+                Message message;
+                if (preProcessor != null) {
+                    message = HL7MessageUtils.parse(rawMessage, preProcessor);
+                } else {
+                    message = HL7MessageUtils.parse(rawMessage, validate);
+                }
+                xmlMessage = HL7MessageUtils.encodeXml(message);
+            } catch (HL7Exception e) {
+                throw new XMLStreamException("Could not encode HL7 message into XML", e);
+            }
+        }
+        return xmlMessage;
+    }
+}
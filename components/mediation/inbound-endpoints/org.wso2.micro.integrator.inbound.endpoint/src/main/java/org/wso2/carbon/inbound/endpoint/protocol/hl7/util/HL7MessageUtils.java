@@ -108,6 +108,30 @@ public class HL7MessageUtils {
         return preProcessor.parse(msg);
     }
 
+    /**
+     * Parses only the MSH segment of the given message, without validation. The returned message is enough to
+     * generate an ACK or a NACK for the message.
+     *
+     * @param msg the message in the pipe format
+     * @return a message of the type of the given message, with the MSH segment only
+     * @throws HL7Exception if the MSH segment can not be parsed
+     */
+    public static Message parseHeader(String msg) throws HL7Exception {
+        int end = msg.length();
+        for (int i = 0; i < msg.length(); i++) {
+            char c = msg.charAt(i);
+            if (c == '\r' || c == '\n') {
+                end = i;
+                break;
+            }
+        }
+        return noValidationPipeParser.parse(msg.substring(0, end));
+    }
+
+    static String encodeXml(Message message) throws HL7Exception {
+        return xmlParser.encode(message);
+    }
+
     public static MessageContext createSynapseMessageContext(Message message, InboundProcessorParams params)
             throws HL7Exception, AxisFault {
 
@@ -128,6 +152,37 @@ public class HL7MessageUtils {
         return synCtx;
     }
 
+    /**
+     * Creates the message context of a lazily parsed message. The HL7 message element of the envelope is backed by
+     * the raw message, which is parsed only if the element is accessed. Hence the message is not validated until then,
+     * and the validation result is not set on the message context.
+     *
+     * @param header       the message with the MSH segment only
+     * @param rawMessage   the message in the pipe format
+     * @param preProcessor the parser of the message pre-processor, or null
+     * @param validate     whether the message is validated when it is parsed
+     * @param params       the parameters of the inbound endpoint
+     * @return the message context
+     */
+    public static MessageContext createSynapseMessageContext(Message header, String rawMessage, Parser preProcessor,
+                                                             boolean validate, InboundProcessorParams params)
+            throws AxisFault {
+
+        MessageContext synCtx = createSynapseMessageContext(
+                params.getProperties().getProperty(MLLPConstants.HL7_INBOUND_TENANT_DOMAIN));
+
+        SOAPEnvelope envelope = fac.getDefaultEnvelope();
+        OMNamespace hl7Namespace = fac.createOMNamespace(MLLPConstants.HL7_XML_NAMESPACE, "");
+        OMElement hl7Element = fac.createOMElement(new HL7MessageDataSource(rawMessage, preProcessor, validate),
+                                                   header.getName(), hl7Namespace);
+        OMElement messageEl = fac.createOMElement(Axis2HL7Constants.HL7_MESSAGE_ELEMENT_NAME, ns);
+        messageEl.addChild(hl7Element);
+        envelope.getBody().addChild(messageEl);
+        synCtx.setEnvelope(envelope);
+
+        return synCtx;
+    }
+
     public static MessageContext createErrorMessageContext(String rawMessage, Exception errorMsg,
                                                            InboundProcessorParams params)
             throws AxisFault, HL7Exception {
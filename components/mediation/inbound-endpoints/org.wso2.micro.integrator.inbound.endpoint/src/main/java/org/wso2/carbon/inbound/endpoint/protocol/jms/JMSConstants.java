@@ -240,6 +240,12 @@ public class JMSConstants {
 
     public static final String JMS_RETRY_DURATION = "transport.jms.retry.duration";
 
+    // Max no. of messages received in a polling cycle, the queue is drained until empty if not given.
+    public static final String MAX_MESSAGES_PER_POLL = "transport.jms.MaxMessagesPerPoll";
+    // No. of messages acknowledged or committed together in client acknowledge and transacted sessions. A failed
+    // message recovers or rolls back the messages of its batch, hence they are redelivered.
+    public static final String ACK_BATCH_SIZE = "transport.jms.AckBatchSize";
+
     /**
      * JMS 2.0 Parameters
      */
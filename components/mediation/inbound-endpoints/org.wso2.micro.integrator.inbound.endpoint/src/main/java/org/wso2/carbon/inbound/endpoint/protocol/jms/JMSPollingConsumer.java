@@ -46,9 +46,13 @@ public class JMSPollingConsumer {
     private JMSInjectHandler injectHandler;
     private long scanInterval;
     private Long lastRanTime;
+    // whether the last poll cycle received any message
+    private boolean messagesReceived;
     private String strUserName;
     private String strPassword;
     private Integer iReceiveTimeout;
+    private int maxMessagesPerPoll = -1;
+    private int ackBatchSize = 1;
     private String replyDestinationName;
     private String name;
     private Properties jmsProperties;
@@ -141,6 +145,24 @@ public class JMSPollingConsumer {
             }
         }
 
+        String strMaxMessagesPerPoll = jmsProperties.getProperty(JMSConstants.MAX_MESSAGES_PER_POLL);
+        if (strMaxMessagesPerPoll != null) {
+            try {
+                maxMessagesPerPoll = Integer.parseInt(strMaxMessagesPerPoll.trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid value for transport.jms.MaxMessagesPerPoll : " + strMaxMessagesPerPoll);
+            }
+        }
+
+        String strAckBatchSize = jmsProperties.getProperty(JMSConstants.ACK_BATCH_SIZE);
+        if (strAckBatchSize != null) {
+            try {
+                ackBatchSize = Math.max(Integer.parseInt(strAckBatchSize.trim()), 1);
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid value for transport.jms.AckBatchSize : " + strAckBatchSize);
+            }
+        }
+
         String strReconnectDuration = jmsProperties.getProperty(JMSConstants.JMS_RETRY_DURATION);
         if (strReconnectDuration != null) {
             try {
@@ -168,9 +190,14 @@ public class JMSPollingConsumer {
     /**
      * This will be called by the task scheduler. If a cycle execution takes
      * more than the schedule interval, tasks will call this method ignoring the
-     * interval. Timestamp based check is done to avoid that.
+     * interval. Timestamp based check is done to avoid that. The check is skipped
+     * if the last cycle received messages, as the destination is likely to have more.
+     *
+     * @return true if the cycle received any message
      */
-    public void execute() {
+    public boolean execute() {
+        boolean lastCycleReceived = messagesReceived;
+        messagesReceived = false;
         try {
             logger.debug("Executing : JMS Inbound EP : ");
             // Check if the cycles are running in correct interval and start
@@ -178,7 +205,7 @@ public class JMSPollingConsumer {
             if (pollingSuspensionLimit == 0) {
                 logger.info("Polling is suspended permanently since \""
                                     + JMSConstants.JMS_CLIENT_POLLING_RETRIES_BEFORE_SUSPENSION + "\" is Zero.");
-                return;
+                return false;
             }
 
             long currentTime = (new Date()).getTime();
@@ -194,11 +221,11 @@ public class JMSPollingConsumer {
                                 "Polling is suspended. Polling will be re-activated in " + (pollingSuspensionPeriod - (
                                         currentTime - lastRanTime)) + " milliseconds.");
                     }
-                    return;
+                    return false;
                 }
             }
 
-            if (lastRanTime == null || ((lastRanTime + (scanInterval)) <= currentTime)) {
+            if (lastRanTime == null || lastCycleReceived || ((lastRanTime + (scanInterval)) <= currentTime)) {
                 lastRanTime = currentTime;
                 poll();
             } else if (logger.isDebugEnabled()) {
@@ -210,6 +237,7 @@ public class JMSPollingConsumer {
         } catch (Exception e) {
             logger.error("Error while retrieving or injecting JMS message. " + e.getMessage(), e);
         }
+        return messagesReceived;
     }
 
     /**
@@ -276,9 +304,17 @@ public class JMSPollingConsumer {
                 logger.debug("Inbound JMS Endpoint. No JMS message received.");
                 return null;
             }
+            messagesReceived = true;
+            int receivedCount = 0;
+            // the last successful message not acknowledged or committed yet, and the no. of such messages
+            Message pendingMsg = null;
+            int pendingCount = 0;
             while (msg != null) {
                 if (JMSUtils.inferJMSMessageType(msg) == null) {
                     logger.error("Invalid JMS Message type.");
+                    if (pendingMsg != null) {
+                        commitOrAcknowledge(pendingMsg, true);
+                    }
                     return null;
                 }
 
@@ -291,57 +327,14 @@ public class JMSPollingConsumer {
                     }
                     injectHandler.setConnection(connection);
                     commitOrAck = injectHandler.invoke(msg, name);
-
-                    // if client acknowledgement is selected, and processing
-                    // requested ACK
-                    if (jmsConnectionFactory.getSessionAckMode() == Session.CLIENT_ACKNOWLEDGE) {
-                        if (commitOrAck) {
-                            try {
-                                msg.acknowledge();
-                                if (logger.isDebugEnabled()) {
-                                    logger.debug("Message : " + msg.getJMSMessageID() + " acknowledged");
-                                }
-                            } catch (JMSException e) {
-                                logger.error("Error acknowledging message : " + msg.getJMSMessageID(), e);
-                            }
-                        } else {
-                            // recoverSession method is used only in non transacted session
-                            if (!jmsConnectionFactory.isTransactedSession()) {
-                                jmsConnectionFactory.recoverSession(session, false);
-                            }
-
-                            // Need to create a new consumer and session since
-                            // we need to rollback the message
-                            if (messageConsumer != null) {
-                                jmsConnectionFactory.closeConsumer(messageConsumer);
-                            }
-                            if (session != null) {
-                                jmsConnectionFactory.closeSession(session);
-                            }
-                            session = jmsConnectionFactory.getSession(connection);
-                            messageConsumer = jmsConnectionFactory.getMessageConsumer(session, destination);
-                        }
-                    }
-                    // if session was transacted, commit it or rollback
-                    if (jmsConnectionFactory.isTransactedSession()) {
-                        try {
-                            if (session.getTransacted()) {
-                                if (commitOrAck) {
-                                    session.commit();
-                                    if (logger.isDebugEnabled()) {
-                                        logger.debug("Session for message : " + msg.getJMSMessageID() + " committed");
-                                    }
-                                } else {
-                                    session.rollback();
-                                    if (logger.isDebugEnabled()) {
-                                        logger.debug("Session for message : " + msg.getJMSMessageID() + " rolled back");
-                                    }
-                                }
-                            }
-                        } catch (JMSException e) {
-                            logger.error("Error " + (commitOrAck ? "committing" : "rolling back")
-                                                 + " local session txn for message : " + msg.getJMSMessageID(), e);
-                        }
+                    receivedCount++;
+
+                    if (commitOrAck && ++pendingCount < ackBatchSize) {
+                        pendingMsg = msg;
+                    } else {
+                        commitOrAcknowledge(msg, commitOrAck);
+                        pendingMsg = null;
+                        pendingCount = 0;
                     }
 
                     if (pollingSuspensionEnabled) {
@@ -367,8 +360,22 @@ public class JMSPollingConsumer {
                 } else {
                     return msg;
                 }
+                if (maxMessagesPerPoll > 0 && receivedCount >= maxMessagesPerPoll) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Inbound JMS Endpoint. Received the max " + maxMessagesPerPoll
+                                             + " messages per poll.");
+                    }
+                    break;
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    logger.debug("Inbound JMS Endpoint. The poll is interrupted.");
+                    break;
+                }
                 msg = receiveMessage(messageConsumer);
             }
+            if (pendingMsg != null) {
+                commitOrAcknowledge(pendingMsg, true);
+            }
 
         } catch (JMSException e) {
             logger.error("Error while receiving JMS message for " + name, e);
@@ -407,6 +414,68 @@ public class JMSPollingConsumer {
         return null;
     }
 
+    /**
+     * Acknowledge or commit the session of the message if the processing succeeded, recover or roll back otherwise.
+     * This settles all the messages received by the session since the last acknowledgement or commit.
+     *
+     * @param msg         the last processed message
+     * @param commitOrAck whether the processing succeeded
+     * @throws JMSException if the session could not be recovered
+     */
+    private void commitOrAcknowledge(Message msg, boolean commitOrAck) throws JMSException {
+        // if client acknowledgement is selected, and processing
+        // requested ACK
+        if (jmsConnectionFactory.getSessionAckMode() == Session.CLIENT_ACKNOWLEDGE) {
+            if (commitOrAck) {
+                try {
+                    msg.acknowledge();
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Message : " + msg.getJMSMessageID() + " acknowledged");
+                    }
+                } catch (JMSException e) {
+                    logger.error("Error acknowledging message : " + msg.getJMSMessageID(), e);
+                }
+            } else {
+                // recoverSession method is used only in non transacted session
+                if (!jmsConnectionFactory.isTransactedSession()) {
+                    jmsConnectionFactory.recoverSession(session, false);
+                }
+
+                // Need to create a new consumer and session since
+                // we need to rollback the message
+                if (messageConsumer != null) {
+                    jmsConnectionFactory.closeConsumer(messageConsumer);
+                }
+                if (session != null) {
+                    jmsConnectionFactory.closeSession(session);
+                }
+                session = jmsConnectionFactory.getSession(connection);
+                messageConsumer = jmsConnectionFactory.getMessageConsumer(session, destination);
+            }
+        }
+        // if session was transacted, commit it or rollback
+        if (jmsConnectionFactory.isTransactedSession()) {
+            try {
+                if (session.getTransacted()) {
+                    if (commitOrAck) {
+                        session.commit();
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("Session for message : " + msg.getJMSMessageID() + " committed");
+                        }
+                    } else {
+                        session.rollback();
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("Session for message : " + msg.getJMSMessageID() + " rolled back");
+                        }
+                    }
+                }
+            } catch (JMSException e) {
+                logger.error("Error " + (commitOrAck ? "committing" : "rolling back")
+                                     + " local session txn for message : " + msg.getJMSMessageID(), e);
+            }
+        }
+    }
+
     /**
      * Release the JMS connection, session and consumer to the pool or forcefully close the resource.
      *
@@ -105,6 +105,28 @@ public class JMSProcessor extends InboundRequestProcessorImpl implements TaskSta
         super.destroy();
     }
 
+    /**
+     * A consumer without a receive timeout blocks its poll cycles until a message is received, hence it keeps a
+     * thread of its own instead of holding one of the shared polling threads.
+     */
+    @Override
+    protected boolean isSharedPolling(InboundTask task) {
+        if (!super.isSharedPolling(task)) {
+            return false;
+        }
+        String receiveTimeout = jmsProperties.getProperty(JMSConstants.RECEIVER_TIMEOUT);
+        try {
+            if (receiveTimeout != null && Integer.parseInt(receiveTimeout.trim()) <= 0) {
+                log.warn("The inbound endpoint " + name + " does not use the shared polling as it blocks without a "
+                                 + JMSConstants.RECEIVER_TIMEOUT);
+                return false;
+            }
+        } catch (NumberFormatException e) {
+            // the consumer uses the default receive timeout
+        }
+        return true;
+    }
+
     /**
      * Register/start the schedule service
      */
@@ -46,6 +46,12 @@ public class JMSTask extends InboundTask implements LocalTaskActionListener {
         jmsPollingConsumer.execute();
     }
 
+    @Override
+    protected boolean pollCycle() {
+        logger.debug("Executing JMS Task poll cycle.");
+        return jmsPollingConsumer.execute();
+    }
+
     @Override
     public Properties getInboundProperties() {
         return jmsPollingConsumer.getInboundProperites();
@@ -0,0 +1,507 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.inbound.endpoint.protocol.kafka;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Consumes the records of the subscribed topics with a {@link KafkaConsumer} poll loop. The records of each polled
+ * batch are mediated in a lane per partition, so that the partitions are mediated in parallel while the records of
+ * a partition are mediated in order. A partition is paused while its lane is mediating a batch, and the offset of a
+ * record is committed only after the injected sequence completed for the record.
+ * <p>
+ * When a record can not be injected, the offset is not committed past the record, and the partition stays paused
+ * for the retry interval. The partition is then rewound to the failed record, so that the record and the records
+ * after it are consumed again. The faults raised in the mediation of the sequence are handled by the error
+ * sequence of the endpoint, and are not retried.
+ */
+public class KAFKABatchConsumer implements Runnable {
+
+    private static final Log log = LogFactory.getLog(KAFKABatchConsumer.class);
+
+    private final Properties consumerProperties;
+
+    private final List<String> topics;
+
+    private final Pattern topicPattern;
+
+    private final InjectHandler injectHandler;
+
+    private final String inboundName;
+
+    private final long pollTimeout;
+
+    private final int threadCount;
+
+    private final long retryInterval;
+
+    /* the lanes and the paused partitions are only accessed by the polling thread */
+    private final Map<TopicPartition, PartitionLane> lanes = new HashMap<>();
+
+    private final Set<TopicPartition> pausedPartitions = new HashSet<>();
+
+    private volatile boolean running;
+
+    private volatile Consumer<byte[], byte[]> consumer;
+
+    private ExecutorService laneExecutor;
+
+    private Thread pollingThread;
+
+    public KAFKABatchConsumer(Properties consumerProperties, List<String> topics, Pattern topicPattern,
+                              InjectHandler injectHandler, String inboundName, long pollTimeout, int threadCount,
+                              long retryInterval) {
+        this.consumerProperties = consumerProperties;
+        this.topics = topics;
+        this.topicPattern = topicPattern;
+        this.injectHandler = injectHandler;
+        this.inboundName = inboundName;
+        this.pollTimeout = pollTimeout;
+        this.threadCount = threadCount;
+        this.retryInterval = retryInterval;
+    }
+
+    /**
+     * Starts the polling thread, unless it is already running.
+     */
+    public synchronized void execute() {
+        if (pollingThread != null && pollingThread.isAlive()) {
+            return;
+        }
+        running = true;
+        pollingThread = new Thread(this, "kafka-inbound-" + inboundName);
+        pollingThread.start();
+    }
+
+    /**
+     * Stops the polling thread, after the lanes completed the records being mediated and their offsets are
+     * committed. The records polled but not yet mediated are consumed again by the next consumer of the partition.
+     */
+    public void shutdown() {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = pollingThread;
+        }
+        Consumer<byte[], byte[]> kafkaConsumer = consumer;
+        if (kafkaConsumer != null) {
+            kafkaConsumer.wakeup();
+        }
+        if (thread != null && thread != Thread.currentThread()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        laneExecutor = Executors.newFixedThreadPool(threadCount, new LaneThreadFactory(inboundName));
+        Consumer<byte[], byte[]> kafkaConsumer;
+        try {
+            kafkaConsumer = createConsumer();
+        } catch (KafkaException e) {
+            log.error("Error while creating the Kafka consumer of the inbound endpoint " + inboundName, e);
+            laneExecutor.shutdown();
+            return;
+        }
+        consumer = kafkaConsumer;
+        try {
+            if (topics != null && !topics.isEmpty()) {
+                kafkaConsumer.subscribe(topics, new LaneRebalanceListener());
+            } else {
+                kafkaConsumer.subscribe(topicPattern, new LaneRebalanceListener());
+            }
+            log.info("Kafka consumer of the inbound endpoint " + inboundName + " started");
+            while (running) {
+                commitCompletedOffsets(false);
+                resumeIdlePartitions();
+                dispatch(kafkaConsumer.poll(Duration.ofMillis(pollTimeout)));
+            }
+        } catch (WakeupException e) {
+            // the consumer is woken up to shutdown
+            if (running) {
+                log.error("Kafka consumer of the inbound endpoint " + inboundName + " is interrupted", e);
+            }
+        } catch (Exception e) {
+            log.error("Error while consuming from Kafka in the inbound endpoint " + inboundName, e);
+        } finally {
+            close(kafkaConsumer);
+        }
+    }
+
+    /**
+     * Creates the consumer of the polling thread.
+     *
+     * @return the consumer
+     */
+    protected Consumer<byte[], byte[]> createConsumer() {
+        return new KafkaConsumer<>(consumerProperties, new ByteArrayDeserializer(), new ByteArrayDeserializer());
+    }
+
+    /**
+     * Hands over the records of each partition to the lane of the partition, and pauses the partition until the
+     * lane completed the records.
+     */
+    private void dispatch(ConsumerRecords<byte[], byte[]> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Polled " + records.count() + " records from " + records.partitions().size()
+                              + " partitions in the inbound endpoint " + inboundName);
+        }
+        for (TopicPartition partition : records.partitions()) {
+            PartitionLane lane = lanes.get(partition);
+            if (lane == null) {
+                lane = new PartitionLane(partition);
+                lanes.put(partition, lane);
+            }
+            lane.submit(records.records(partition));
+            consumer.pause(Collections.singleton(partition));
+            pausedPartitions.add(partition);
+        }
+    }
+
+    /**
+     * Resumes the partitions of the lanes which completed their records. The partition of a lane which failed to
+     * mediate a record is resumed after the retry interval, from the failed record.
+     */
+    private void resumeIdlePartitions() {
+        List<TopicPartition> idlePartitions = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        Iterator<TopicPartition> iterator = pausedPartitions.iterator();
+        while (iterator.hasNext()) {
+            TopicPartition partition = iterator.next();
+            PartitionLane lane = lanes.get(partition);
+            if (lane != null) {
+                if (lane.isBusy()) {
+                    continue;
+                }
+                long failedOffset = lane.takeFailedOffset(now);
+                if (failedOffset == PartitionLane.RETRY_PENDING) {
+                    continue;
+                }
+                if (failedOffset >= 0) {
+                    consumer.seek(partition, failedOffset);
+                }
+            }
+            idlePartitions.add(partition);
+            iterator.remove();
+        }
+        if (!idlePartitions.isEmpty()) {
+            consumer.resume(idlePartitions);
+        }
+    }
+
+    /**
+     * Commits the offsets of the records mediated by the lanes since the last commit.
+     *
+     * @param sync whether to wait for the commit, the offsets of all the lanes are committed in that case
+     */
+    private void commitCompletedOffsets(boolean sync) {
+        commitCompletedOffsets(lanes.values(), sync);
+    }
+
+    private void commitCompletedOffsets(Collection<PartitionLane> commitLanes, boolean sync) {
+        Map<PartitionLane, Long> laneOffsets = new HashMap<>();
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        for (PartitionLane lane : commitLanes) {
+            long offset = lane.getCompletedOffset();
+            if (offset >= 0 && (sync || offset > lane.committingOffset)) {
+                laneOffsets.put(lane, offset);
+                offsets.put(lane.partition, new OffsetAndMetadata(offset));
+                lane.committingOffset = offset;
+            }
+        }
+        if (offsets.isEmpty()) {
+            return;
+        }
+        if (sync) {
+            try {
+                consumer.commitSync(offsets);
+            } catch (RuntimeException e) {
+                commitFailed(laneOffsets);
+                throw e;
+            }
+            commitSucceeded(laneOffsets);
+        } else {
+            // the callback is invoked by the polling thread, in a following poll or commit
+            consumer.commitAsync(offsets, (committedOffsets, exception) -> {
+                if (exception == null) {
+                    commitSucceeded(laneOffsets);
+                    return;
+                }
+                commitFailed(laneOffsets);
+                log.warn("Error while committing the offsets " + committedOffsets + " in the inbound endpoint "
+                                 + inboundName + ", the offsets are committed with the next commit", exception);
+            });
+        }
+    }
+
+    private static void commitSucceeded(Map<PartitionLane, Long> laneOffsets) {
+        for (Map.Entry<PartitionLane, Long> laneOffset : laneOffsets.entrySet()) {
+            PartitionLane lane = laneOffset.getKey();
+            lane.committedOffset = Math.max(lane.committedOffset, laneOffset.getValue());
+        }
+    }
+
+    /**
+     * Resets the offsets being committed to the committed offsets, so that the next commit commits them again.
+     */
+    private static void commitFailed(Map<PartitionLane, Long> laneOffsets) {
+        for (PartitionLane lane : laneOffsets.keySet()) {
+            lane.committingOffset = lane.committedOffset;
+        }
+    }
+
+    private void close(Consumer<byte[], byte[]> kafkaConsumer) {
+        running = false;
+        laneExecutor.shutdown();
+        try {
+            for (PartitionLane lane : lanes.values()) {
+                lane.awaitIdle();
+            }
+            try {
+                commitCompletedOffsets(true);
+            } catch (WakeupException e) {
+                // the wakeup of the shutdown is raised by the first blocking call after the poll
+                commitCompletedOffsets(true);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Error while committing the offsets of the inbound endpoint " + inboundName, e);
+        } finally {
+            lanes.clear();
+            pausedPartitions.clear();
+            consumer = null;
+            kafkaConsumer.close();
+            log.info("Kafka consumer of the inbound endpoint " + inboundName + " stopped");
+        }
+    }
+
+    /**
+     * Injects the record to the sequence.
+     *
+     * @return true if the record is injected, false if it has to be mediated again
+     */
+    private boolean mediate(ConsumerRecord<byte[], byte[]> record) {
+        try {
+            if (injectHandler.invoke(record.value(), inboundName)) {
+                return true;
+            }
+            log.error("Could not inject the record at offset " + record.offset() + " of the partition "
+                              + record.topic() + "-" + record.partition() + " in the inbound endpoint "
+                              + inboundName + ", the record is consumed again in " + retryInterval + " ms");
+        } catch (Exception e) {
+            log.error("Error while mediating the record at offset " + record.offset() + " of the partition "
+                              + record.topic() + "-" + record.partition() + " in the inbound endpoint "
+                              + inboundName + ", the record is consumed again in " + retryInterval + " ms", e);
+        }
+        return false;
+    }
+
+    /**
+     * Waits for the lanes of the revoked partitions and commits their offsets, so that the next consumer of the
+     * partitions continues from the last mediated record.
+     */
+    private class LaneRebalanceListener implements ConsumerRebalanceListener {
+
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            List<PartitionLane> revokedLanes = new ArrayList<>();
+            for (TopicPartition partition : partitions) {
+                PartitionLane lane = lanes.remove(partition);
+                if (lane != null) {
+                    revokedLanes.add(lane);
+                }
+                pausedPartitions.remove(partition);
+            }
+            try {
+                for (PartitionLane lane : revokedLanes) {
+                    lane.awaitIdle();
+                }
+                commitCompletedOffsets(revokedLanes, true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (KafkaException e) {
+                log.error("Error while committing the offsets of the revoked partitions " + partitions
+                                  + " in the inbound endpoint " + inboundName, e);
+            }
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            if (log.isDebugEnabled()) {
+                log.debug("Partitions " + partitions + " are assigned to the inbound endpoint " + inboundName);
+            }
+        }
+    }
+
+    /**
+     * Mediates the records of a partition in order. A lane mediates a single batch at a time, since the partition
+     * is paused until the batch is completed.
+     */
+    private class PartitionLane implements Runnable {
+
+        static final long RETRY_PENDING = -2;
+
+        private final TopicPartition partition;
+
+        private List<ConsumerRecord<byte[], byte[]>> records;
+
+        private boolean busy;
+
+        /* the offset of the next record to be mediated */
+        private volatile long completedOffset = -1;
+
+        /* the last offset committed successfully, and the last offset sent to be committed, only accessed by the
+           polling thread */
+        private long committedOffset = -1;
+
+        private long committingOffset = -1;
+
+        /* the offset of the record which failed in the mediation, and the time to consume it again */
+        private long failedOffset = -1;
+
+        private long retryTime;
+
+        PartitionLane(TopicPartition partition) {
+            this.partition = partition;
+        }
+
+        synchronized void submit(List<ConsumerRecord<byte[], byte[]>> records) {
+            this.records = records;
+            this.busy = true;
+            laneExecutor.execute(this);
+        }
+
+        synchronized boolean isBusy() {
+            return busy;
+        }
+
+        long getCompletedOffset() {
+            return completedOffset;
+        }
+
+        /**
+         * Returns the offset of the failed record once the retry time has passed, RETRY_PENDING before that, or -1
+         * if no record failed.
+         */
+        synchronized long takeFailedOffset(long now) {
+            if (failedOffset < 0) {
+                return -1;
+            }
+            if (now < retryTime) {
+                return RETRY_PENDING;
+            }
+            long offset = failedOffset;
+            failedOffset = -1;
+            return offset;
+        }
+
+        synchronized void awaitIdle() throws InterruptedException {
+            while (busy) {
+                wait();
+            }
+        }
+
+        @Override
+        public void run() {
+            List<ConsumerRecord<byte[], byte[]>> batch;
+            synchronized (this) {
+                batch = records;
+                records = null;
+            }
+            long failed = -1;
+            try {
+                for (ConsumerRecord<byte[], byte[]> record : batch) {
+                    if (!running) {
+                        // the remaining records are consumed again by the next consumer of the partition
+                        break;
+                    }
+                    if (!mediate(record)) {
+                        // the offset is not committed past the failed record
+                        failed = record.offset();
+                        break;
+                    }
+                    completedOffset = record.offset() + 1;
+                }
+            } finally {
+                synchronized (this) {
+                    if (failed >= 0) {
+                        failedOffset = failed;
+                        retryTime = System.currentTimeMillis() + retryInterval;
+                    }
+                    busy = false;
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    private static class LaneThreadFactory implements ThreadFactory {
+
+        private final String inboundName;
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        LaneThreadFactory(String inboundName) {
+            this.inboundName = inboundName;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable,
+                                       "kafka-inbound-" + inboundName + "-lane-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.inbound.endpoint.protocol.kafka;
+
+import org.apache.commons.lang.BooleanUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.synapse.SynapseException;
+import org.apache.synapse.inbound.InboundProcessorParams;
+import org.wso2.carbon.inbound.endpoint.common.InboundOneTimeTriggerRequestProcessor;
+import org.wso2.carbon.inbound.endpoint.protocol.PollingConstants;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * The KAFKA inbound endpoint for the batch consumer type, which consumes the records with a Kafka consumer poll
+ * loop instead of the high level or simple consumers of the zookeeper based client. The partitions are mediated in
+ * parallel and the offsets are committed after the mediation, see {@link KAFKABatchConsumer}.
+ * <p>
+ * The Kafka consumer configurations (e.g. bootstrap.servers, group.id, max.poll.records) are taken from the inbound
+ * endpoint parameters. Since the partitions are balanced among the members of the consumer group, the endpoint is
+ * not coordinated by default.
+ */
+public class KAFKABatchProcessor extends InboundOneTimeTriggerRequestProcessor {
+
+    private static final String ENDPOINT_POSTFIX = "KAFKA-BATCH" + COMMON_ENDPOINT_POSTFIX;
+    private static final Log log = LogFactory.getLog(KAFKABatchProcessor.class);
+
+    private Properties kafkaProperties;
+    private String injectingSeq;
+    private String onErrorSeq;
+    private KAFKABatchConsumer batchConsumer;
+
+    public KAFKABatchProcessor(InboundProcessorParams params) {
+        this.name = params.getName();
+        this.kafkaProperties = params.getProperties();
+        this.injectingSeq = params.getInjectingSeq();
+        this.onErrorSeq = params.getOnErrorSeq();
+        this.synapseEnvironment = params.getSynapseEnvironment();
+        this.coordination = BooleanUtils.toBooleanDefaultIfNull(BooleanUtils.toBooleanObject(
+                kafkaProperties.getProperty(PollingConstants.INBOUND_COORDINATION)), false);
+    }
+
+    /**
+     * Checks whether the KAFKA inbound endpoint uses the batch consumer type.
+     *
+     * @param params the inbound endpoint parameters
+     * @return true if the batch consumer is configured
+     */
+    public static boolean isBatchConsumer(InboundProcessorParams params) {
+        return AbstractKafkaMessageListener.CONSUMER_TYPE.BATCH.getName()
+                .equalsIgnoreCase(params.getProperties().getProperty(KAFKAConstants.CONSUMER_TYPE));
+    }
+
+    @Override
+    public void init() {
+        log.info("Initializing inbound KAFKA batch consumer for destination " + name);
+        List<String> topics = new ArrayList<>();
+        String topicsProperty = kafkaProperties.getProperty(KAFKAConstants.TOPICS);
+        if (topicsProperty != null) {
+            for (String topic : topicsProperty.split(",")) {
+                if (!topic.trim().isEmpty()) {
+                    topics.add(topic.trim());
+                }
+            }
+        }
+        Pattern topicPattern = null;
+        if (topics.isEmpty()) {
+            topicPattern = createTopicPattern();
+        }
+        // the sequence is injected in the lane thread, so that the offset is committed after the mediation
+        KAFKAInjectHandler injectHandler = new KAFKAInjectHandler(
+                injectingSeq, onErrorSeq, true, synapseEnvironment,
+                kafkaProperties.getProperty(KAFKAConstants.CONTENT_TYPE));
+        batchConsumer = new KAFKABatchConsumer(createConsumerProperties(), topics, topicPattern, injectHandler, name,
+                                               getLongProperty(KAFKAConstants.POLL_TIMEOUT,
+                                                               KAFKAConstants.DEFAULT_POLL_TIMEOUT),
+                                               (int) getLongProperty(KAFKAConstants.THREAD_COUNT,
+                                                                     Runtime.getRuntime().availableProcessors()),
+                                               getLongProperty(KAFKAConstants.RETRY_INTERVAL,
+                                                               KAFKAConstants.DEFAULT_RETRY_INTERVAL));
+        start(new KAFKABatchTask(batchConsumer), ENDPOINT_POSTFIX);
+    }
+
+    @Override
+    public void destroy() {
+        destroy(true);
+    }
+
+    @Override
+    public void destroy(boolean removeTask) {
+        if (batchConsumer != null) {
+            batchConsumer.shutdown();
+        }
+        super.destroy(removeTask);
+    }
+
+    /**
+     * The Kafka consumer configurations among the inbound endpoint parameters, offsets are always committed by the
+     * consumer after the mediation.
+     */
+    private Properties createConsumerProperties() {
+        Properties consumerProperties = new Properties();
+        Set<String> configNames = ConsumerConfig.configNames();
+        for (String propertyName : kafkaProperties.stringPropertyNames()) {
+            if (configNames.contains(propertyName)) {
+                consumerProperties.setProperty(propertyName, kafkaProperties.getProperty(propertyName));
+            }
+        }
+        consumerProperties.setProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        return consumerProperties;
+    }
+
+    private Pattern createTopicPattern() {
+        String topicFilter = kafkaProperties.getProperty(KAFKAConstants.TOPIC_FILTER);
+        if (topicFilter == null || topicFilter.trim().isEmpty()) {
+            throw new SynapseException("Either " + KAFKAConstants.TOPICS + " or " + KAFKAConstants.TOPIC_FILTER
+                                               + " should be specified for the inbound endpoint " + name);
+        }
+        String fromWhiteList = kafkaProperties.getProperty(KAFKAConstants.FILTER_FROM_WHITE_LIST);
+        if (fromWhiteList != null && !fromWhiteList.isEmpty() && !Boolean.parseBoolean(fromWhiteList)) {
+            throw new SynapseException("Black list topic filters are not supported by the batch consumer of the "
+                                               + "inbound endpoint " + name);
+        }
+        // the white list filter separates the topic patterns with commas, as the zookeeper based consumer does
+        return Pattern.compile(topicFilter.trim().replace(',', '|'));
+    }
+
+    private long getLongProperty(String propertyName, long defaultValue) {
+        String value = kafkaProperties.getProperty(propertyName);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            long longValue = Long.parseLong(value.trim());
+            return longValue > 0 ? longValue : defaultValue;
+        } catch (NumberFormatException e) {
+            throw new SynapseException("Invalid numeric value for " + propertyName + " : " + value, e);
+        }
+    }
+}
@@ -56,6 +56,14 @@ public class KAFKAConstants {
 
     public static final String CONSUMER_TIMEOUT = "consumer.timeout.ms";
 
+    public static final String POLL_TIMEOUT = "poll.timeout.ms";
+
+    public static final long DEFAULT_POLL_TIMEOUT = 1000;
+
+    public static final String RETRY_INTERVAL = "retry.interval.ms";
+
+    public static final long DEFAULT_RETRY_INTERVAL = 1000;
+
     public static final int SO_TIMEOUT = 100000;
 
     public static final int BUFFER_SIZE = 64 * 1024;
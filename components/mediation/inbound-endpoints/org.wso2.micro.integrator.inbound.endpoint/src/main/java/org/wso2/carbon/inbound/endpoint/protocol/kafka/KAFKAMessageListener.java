@@ -186,11 +186,14 @@ public class KAFKAMessageListener extends AbstractKafkaMessageListener {
     }
 
     @Override
-    public void consumeMultipleTopics(String name) {
+    public boolean consumeMultipleTopics(String name) {
+        boolean consumed = false;
         for (ConsumerIterator<byte[], byte[]> consumerIterator : consumerIte) {
             if (hasNext(consumerIterator)) {
                 injectMessageToESB(name, consumerIterator);
+                consumed = true;
             }
         }
+        return consumed;
     }
 }
@@ -36,6 +36,8 @@ public class KAFKAPollingConsumer {
     protected AbstractKafkaMessageListener messageListener;
     private long scanInterval;
     private Long lastRanTime;
+    // whether the last poll cycle consumed any message
+    private boolean messagesConsumed;
     private String name;
 
     /**
@@ -89,13 +91,21 @@ public class KAFKAPollingConsumer {
         }
     }
 
-    public void execute() {
+    /**
+     * Run a poll cycle. The scan interval check is skipped if the last cycle consumed a message, as the topics are
+     * likely to have more.
+     *
+     * @return true if the cycle consumed any message
+     */
+    public boolean execute() {
+        boolean lastCycleConsumed = messagesConsumed;
+        messagesConsumed = false;
         try {
             log.debug("Executing : KAFKA Inbound EP : ");
             // Check if the cycles are running in correct interval and start
             // scan
             long currentTime = (new Date()).getTime();
-            if (lastRanTime == null || ((lastRanTime + (scanInterval)) <= currentTime)) {
+            if (lastRanTime == null || lastCycleConsumed || ((lastRanTime + (scanInterval)) <= currentTime)) {
                 lastRanTime = currentTime;
                 poll();
             } else if (log.isDebugEnabled()) {
@@ -107,6 +117,7 @@ public class KAFKAPollingConsumer {
         } catch (Exception e) {
             log.error("Error while retrieving or injecting KAFKA message." + e.getMessage(), e);
         }
+        return messagesConsumed;
     }
 
     /**
@@ -137,13 +148,14 @@ public class KAFKAPollingConsumer {
         try {
             if (messageListener.hasMultipleTopicsToConsume()) {
                 if (injectHandler != null) {
-                    messageListener.consumeMultipleTopics(name);
+                    messagesConsumed = messageListener.consumeMultipleTopics(name);
                 } else {
                     return null;
                 }
             } else {
                 if (injectHandler != null && messageListener.hasNext()) {
                     messageListener.injectMessageToESB(name);
+                    messagesConsumed = true;
                 } else {
                     return null;
                 }
@@ -47,6 +47,12 @@ public class KAFKATask extends InboundTask {
         kafkaPollingConsumer.execute();
     }
 
+    @Override
+    protected boolean pollCycle() {
+        logger.debug("Executing poll cycle.");
+        return kafkaPollingConsumer.execute();
+    }
+
     @Override
     public Properties getInboundProperties() {
         return kafkaPollingConsumer.getInboundProperties();
@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ * <p>
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.inbound.endpoint.protocol.rabbitmq;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Settles the deliveries of a consumer channel when their mediation completes. The deliveries are mediated in
+ * parallel, hence they complete out of the order of the delivery tags. If the multiple acknowledgements are enabled,
+ * the acknowledged deliveries are held until all the deliveries before them are settled and then acknowledged with
+ * a single basic.ack covering all of them. A delivery waiting for a delayed requeue would hold the acknowledgements
+ * for the whole delay, so the deliveries completed after it are acknowledged individually. A delivery which could not
+ * be settled is no longer tracked, as the broker redelivers it once the channel is closed, so that it does not hold
+ * the acknowledgements of the deliveries after it.
+ * <p>
+ * A channel must not be used by several threads at once, hence the messages published on the consumer channel
+ * while the deliveries are mediated in parallel are published through the acknowledger as well.
+ */
+public class RabbitMQAcknowledger {
+
+    private final Channel channel;
+    private final boolean multiple;
+
+    /* the delivery tags which are neither acknowledged nor rejected, in the delivery order */
+    private final TreeSet<Long> unsettled = new TreeSet<>();
+    private final Set<Long> acknowledged = new HashSet<>();
+    private final Set<Long> delayedRequeues = new HashSet<>();
+
+    public RabbitMQAcknowledger(Channel channel, boolean multiple) {
+        this.channel = channel;
+        this.multiple = multiple;
+    }
+
+    /**
+     * Tracks a delivery which is handed over for the mediation.
+     *
+     * @param deliveryTag the delivery tag
+     */
+    public synchronized void received(long deliveryTag) {
+        if (multiple) {
+            unsettled.add(deliveryTag);
+        }
+    }
+
+    /**
+     * Acknowledges a delivery, or holds it to be acknowledged with the deliveries before it.
+     *
+     * @param deliveryTag the delivery tag
+     * @throws IOException if the acknowledgement fails
+     */
+    public synchronized void acknowledge(long deliveryTag) throws IOException {
+        if (!multiple) {
+            channel.basicAck(deliveryTag, false);
+            return;
+        }
+        acknowledged.add(deliveryTag);
+        flush();
+    }
+
+    /**
+     * Rejects a delivery.
+     *
+     * @param deliveryTag the delivery tag
+     * @param requeue     whether the message is requeued
+     * @throws IOException if the rejection fails
+     */
+    public synchronized void reject(long deliveryTag, boolean requeue) throws IOException {
+        try {
+            channel.basicReject(deliveryTag, requeue);
+        } finally {
+            if (multiple) {
+                unsettled.remove(deliveryTag);
+                delayedRequeues.remove(deliveryTag);
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Marks a delivery which will be rejected with requeue after a delay, so that the deliveries after it are not
+     * held for the delay.
+     *
+     * @param deliveryTag the delivery tag
+     * @throws IOException if the acknowledgement of the held deliveries fails
+     */
+    public synchronized void delayRequeue(long deliveryTag) throws IOException {
+        if (multiple) {
+            delayedRequeues.add(deliveryTag);
+            flush();
+        }
+    }
+
+    /**
+     * Publishes a message on the channel of the deliveries.
+     *
+     * @param exchangeName the exchange to publish the message to
+     * @param routingKey   the routing key
+     * @param properties   content header data for the message
+     * @param body         the message body
+     * @throws IOException if the message could not be published
+     */
+    public synchronized void publish(String exchangeName, String routingKey, AMQP.BasicProperties properties,
+                                     byte[] body) throws IOException {
+        channel.basicPublish(exchangeName, routingKey, properties, body);
+    }
+
+    private void flush() throws IOException {
+        long lastAcknowledged = -1;
+        while (!unsettled.isEmpty() && acknowledged.remove(unsettled.first())) {
+            lastAcknowledged = unsettled.pollFirst();
+        }
+        if (lastAcknowledged != -1) {
+            channel.basicAck(lastAcknowledged, true);
+        }
+        if (!unsettled.isEmpty() && delayedRequeues.contains(unsettled.first())) {
+            Iterator<Long> iterator = acknowledged.iterator();
+            while (iterator.hasNext()) {
+                Long deliveryTag = iterator.next();
+                iterator.remove();
+                unsettled.remove(deliveryTag);
+                channel.basicAck(deliveryTag, false);
+            }
+        }
+    }
+}
@@ -58,14 +58,20 @@ public class RabbitMQConstants {
 
     public static final String CONSUMER_QOS = "rabbitmq.channel.consumer.qos";
     public static final String CONSUMER_TAG = "rabbitmq.consumer.tag";
+    public static final String CONSUMER_ASYNC_DELIVERY = "rabbitmq.consumer.async.delivery";
+    public static final String CONSUMER_MEDIATION_POOL_SIZE = "rabbitmq.consumer.mediation.pool.size";
+    public static final String CONSUMER_BATCH_SIZE = "rabbitmq.consumer.batch.size";
+    public static final String CONSUMER_BATCH_TIMEOUT = "rabbitmq.consumer.batch.timeout";
 
     public static final String MESSAGE_MAX_DEAD_LETTERED_COUNT = "rabbitmq.message.max.dead.lettered.count";
     public static final String MESSAGE_ERROR_EXCHANGE_NAME = "rabbitmq.message.error.exchange.name";
     public static final String MESSAGE_ERROR_QUEUE_ROUTING_KEY = "rabbitmq.message.error.queue.routing.key";
+    public static final String MESSAGE_ACK_MULTIPLE = "rabbitmq.message.ack.multiple";
 
     public static final int DEFAULT_RETRY_INTERVAL = 30000;
     public static final int DEFAULT_RETRY_COUNT = 3;
     public static final int DEFAULT_CONSUMER_QOS = 0;
+    public static final long DEFAULT_CONSUMER_BATCH_TIMEOUT = 1000;
 }
 
 
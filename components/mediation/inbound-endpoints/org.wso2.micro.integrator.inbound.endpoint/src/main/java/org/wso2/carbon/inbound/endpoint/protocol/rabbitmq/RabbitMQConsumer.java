@@ -38,9 +38,21 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The actual tasks that perform message consuming
+ * <p>
+ * By default the messages are mediated on the RabbitMQ client thread of the channel. If the async delivery is
+ * enabled, the deliveries are handed over to a bounded mediation pool, sized to the consumer qos unless given, and
+ * each delivery is acknowledged or rejected by the {@link RabbitMQAcknowledger} as its mediation completes. The
+ * delayed requeues are scheduled on a timer in both modes instead of blocking the thread for the delay.
  */
 public class RabbitMQConsumer implements Consumer {
 
@@ -55,6 +67,9 @@ public class RabbitMQConsumer implements Consumer {
     private long requeueDelay;
     private boolean autoAck;
     private String inboundName;
+    private RabbitMQAcknowledger acknowledger;
+    private ThreadPoolExecutor mediationPool;
+    private ScheduledExecutorService requeueScheduler;
 
     public RabbitMQConsumer(RabbitMQConnectionFactory rabbitMQConnectionFactory, Properties properties,
                             RabbitMQInjectHandler injectHandler) {
@@ -111,6 +126,25 @@ public class RabbitMQConsumer implements Consumer {
         autoAck = BooleanUtils.toBooleanDefaultIfNull(BooleanUtils.toBooleanObject(rabbitMQProperties
                 .get(RabbitMQConstants.QUEUE_AUTO_ACK)), true);
 
+        boolean ackMultiple = BooleanUtils.toBoolean(rabbitMQProperties.get(RabbitMQConstants.MESSAGE_ACK_MULTIPLE));
+        acknowledger = new RabbitMQAcknowledger(channel, ackMultiple && !autoAck);
+
+        if (requeueDelay > 0 && requeueScheduler == null) {
+            requeueScheduler = Executors.newSingleThreadScheduledExecutor(
+                    new ConsumerThreadFactory(inboundName + "-requeue"));
+        }
+        boolean asyncDelivery = BooleanUtils.toBoolean(
+                rabbitMQProperties.get(RabbitMQConstants.CONSUMER_ASYNC_DELIVERY));
+        if (asyncDelivery && mediationPool == null) {
+            int poolSize = NumberUtils.toInt(rabbitMQProperties.get(RabbitMQConstants.CONSUMER_MEDIATION_POOL_SIZE),
+                    qos > 0 ? qos : Runtime.getRuntime().availableProcessors());
+            // at most qos deliveries are unacknowledged, an unbounded qos is throttled by mediating on the client
+            // thread when the pool is busy
+            mediationPool = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(Math.max(qos, poolSize)), new ConsumerThreadFactory(inboundName),
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+        }
+
         if (StringUtils.isNotEmpty(consumerTag)) {
             channel.basicConsume(queueName, autoAck, consumerTag, this);
         } else {
@@ -197,15 +231,70 @@ public class RabbitMQConsumer implements Consumer {
     @Override
     public void handleDelivery(String consumerTag, Envelope envelope, AMQP.BasicProperties properties, byte[] body)
             throws IOException {
-        AcknowledgementMode acknowledgementMode = injectHandler.onMessage(properties, body, inboundName);
-        switch (acknowledgementMode) {
-            case REQUEUE_TRUE:
+        RabbitMQAcknowledger deliveryAcknowledger = acknowledger;
+        deliveryAcknowledger.received(envelope.getDeliveryTag());
+        if (mediationPool != null) {
+            mediationPool.execute(() -> {
                 try {
-                    Thread.sleep(requeueDelay);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
+                    mediate(envelope, properties, body, deliveryAcknowledger);
+                } catch (IOException e) {
+                    log.error("Error occurred while settling the message with delivery tag: " +
+                            envelope.getDeliveryTag() + " on the queue: " + queueName, e);
+                } catch (RuntimeException e) {
+                    log.error("Error occurred while mediating the message with message id: " +
+                            properties.getMessageId() + " and delivery tag: " + envelope.getDeliveryTag() +
+                            " on the queue: " + queueName + ", the message will be requeued.", e);
+                    requeue(envelope, deliveryAcknowledger);
                 }
-                channel.basicReject(envelope.getDeliveryTag(), true);
+            });
+        } else {
+            mediate(envelope, properties, body, deliveryAcknowledger);
+        }
+    }
+
+    /**
+     * Inject the message to the sequence and settle the delivery according to the mediation result. If the
+     * micro batching is enabled, the message is added to the current batch and settled after the batch is mediated.
+     *
+     * @param envelope             packaging data for the message
+     * @param properties           content header data for the message
+     * @param body                 the message body
+     * @param deliveryAcknowledger the acknowledger of the channel the message was delivered on
+     * @throws IOException if the delivery could not be settled
+     */
+    private void mediate(Envelope envelope, AMQP.BasicProperties properties, byte[] body,
+                         RabbitMQAcknowledger deliveryAcknowledger) throws IOException {
+        if (injectHandler.isBatching()) {
+            injectHandler.onMessage(properties, body, acknowledgementMode -> {
+                try {
+                    settle(envelope, properties, body, acknowledgementMode, deliveryAcknowledger);
+                } catch (IOException e) {
+                    log.error("Error occurred while settling the message with delivery tag: " +
+                            envelope.getDeliveryTag() + " on the queue: " + queueName, e);
+                }
+            });
+        } else {
+            settle(envelope, properties, body, injectHandler.onMessage(properties, body, inboundName),
+                    deliveryAcknowledger);
+        }
+    }
+
+    /**
+     * Settle the delivery according to the mediation result.
+     *
+     * @param envelope             packaging data for the message
+     * @param properties           content header data for the message
+     * @param body                 the message body
+     * @param acknowledgementMode  the delivery status of the message
+     * @param deliveryAcknowledger the acknowledger of the channel the message was delivered on
+     * @throws IOException if the delivery could not be settled
+     */
+    private void settle(Envelope envelope, AMQP.BasicProperties properties, byte[] body,
+                        AcknowledgementMode acknowledgementMode, RabbitMQAcknowledger deliveryAcknowledger)
+            throws IOException {
+        switch (acknowledgementMode) {
+            case REQUEUE_TRUE:
+                requeue(envelope, deliveryAcknowledger);
                 break;
             case REQUEUE_FALSE:
                 List<HashMap<String, Object>> xDeathHeader =
@@ -214,17 +303,17 @@ public class RabbitMQConsumer implements Consumer {
                 if (xDeathHeader != null && xDeathHeader.size() > 0 && maxDeadLetteredCount != -1) {
                     Long count = (Long) xDeathHeader.get(0).get("count");
                     if (count <= maxDeadLetteredCount) {
-                        channel.basicReject(envelope.getDeliveryTag(), false);
+                        deliveryAcknowledger.reject(envelope.getDeliveryTag(), false);
                         log.info("The rejected message with message id: " + properties.getMessageId() + " and " +
                                 "delivery tag: " + envelope.getDeliveryTag() + " on the queue: " +
                                 queueName + " is dead-lettered " + count + " time(s).");
                     } else {
                         // handle the message after exceeding the max dead-lettered count
-                        proceedAfterMaxDeadLetteredCount(envelope, properties, body);
+                        proceedAfterMaxDeadLetteredCount(envelope, properties, body, deliveryAcknowledger);
                     }
                 } else {
                     // the message might be dead-lettered or discard if an error occurred in the mediation flow
-                    channel.basicReject(envelope.getDeliveryTag(), false);
+                    deliveryAcknowledger.reject(envelope.getDeliveryTag(), false);
                     log.info("The rejected message with message id: " + properties.getMessageId() + " and " +
                             "delivery tag: " + envelope.getDeliveryTag() + " on the queue: " +
                             queueName + " will discard or dead-lettered.");
@@ -232,43 +321,73 @@ public class RabbitMQConsumer implements Consumer {
                 break;
             default:
                 if (!autoAck) {
-                    channel.basicAck(envelope.getDeliveryTag(), false);
+                    deliveryAcknowledger.acknowledge(envelope.getDeliveryTag());
                 }
                 break;
         }
     }
 
+    /**
+     * Reject the message with requeue, after the requeue delay if given. The delay is scheduled on the requeue timer
+     * so that the other deliveries are not held for the delay.
+     *
+     * @param envelope             packaging data for the message
+     * @param deliveryAcknowledger the acknowledger of the channel the message was delivered on
+     */
+    private void requeue(Envelope envelope, RabbitMQAcknowledger deliveryAcknowledger) {
+        long deliveryTag = envelope.getDeliveryTag();
+        try {
+            if (requeueDelay > 0) {
+                deliveryAcknowledger.delayRequeue(deliveryTag);
+                requeueScheduler.schedule(() -> {
+                    try {
+                        deliveryAcknowledger.reject(deliveryTag, true);
+                    } catch (IOException | RuntimeException e) {
+                        log.error("Error occurred while requeuing the message with delivery tag: " + deliveryTag +
+                                " on the queue: " + queueName, e);
+                    }
+                }, requeueDelay, TimeUnit.MILLISECONDS);
+            } else {
+                deliveryAcknowledger.reject(deliveryTag, true);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Error occurred while requeuing the message with delivery tag: " + deliveryTag +
+                    " on the queue: " + queueName, e);
+        }
+    }
+
     /**
      * The message will publish to the exchange with routing key or discard
      *
-     * @param envelope   packaging data for the message
-     * @param properties content header data for the message
-     * @param body       the message body
+     * @param envelope             packaging data for the message
+     * @param properties           content header data for the message
+     * @param body                 the message body
+     * @param deliveryAcknowledger the acknowledger of the channel the message was delivered on
      * @throws IOException
      */
-    private void proceedAfterMaxDeadLetteredCount(Envelope envelope, AMQP.BasicProperties properties, byte[] body)
-            throws IOException {
+    private void proceedAfterMaxDeadLetteredCount(Envelope envelope, AMQP.BasicProperties properties, byte[] body,
+                                                  RabbitMQAcknowledger deliveryAcknowledger) throws IOException {
         String routingKey =
                 rabbitMQProperties.get(RabbitMQConstants.MESSAGE_ERROR_QUEUE_ROUTING_KEY);
         String exchangeName =
                 rabbitMQProperties.get(RabbitMQConstants.MESSAGE_ERROR_EXCHANGE_NAME);
         if (StringUtils.isNotEmpty(routingKey) && StringUtils.isNotEmpty(exchangeName)) {
             // publish message to the given exchange with the routing key
-            channel.basicPublish(exchangeName, routingKey, properties, body);
-            channel.basicAck(envelope.getDeliveryTag(), false);
+            deliveryAcknowledger.publish(exchangeName, routingKey, properties, body);
+            deliveryAcknowledger.acknowledge(envelope.getDeliveryTag());
             log.info("The max dead lettered count exceeded. Hence message with message id: " +
                     properties.getMessageId() + " and delivery tag: " + envelope.getDeliveryTag() +
                     " publish to the exchange: " + exchangeName + " with the routing key: " + routingKey + ".");
         } else if (StringUtils.isNotEmpty(routingKey) && StringUtils.isEmpty(exchangeName)) {
             // publish message to the default exchange with the routing key
-            channel.basicPublish("", routingKey, properties, body);
-            channel.basicAck(envelope.getDeliveryTag(), false);
+            deliveryAcknowledger.publish("", routingKey, properties, body);
+            deliveryAcknowledger.acknowledge(envelope.getDeliveryTag());
             log.info("The max dead lettered count exceeded. Hence message with message id: " +
                     properties.getMessageId() + " and delivery tag: " + envelope.getDeliveryTag() + " publish to the " +
                     "default exchange with the routing key: " + routingKey + ".");
         } else {
             // discard the message
-            channel.basicAck(envelope.getDeliveryTag(), false);
+            deliveryAcknowledger.acknowledge(envelope.getDeliveryTag());
             log.info("The max dead lettered count exceeded. " +
                     "No 'rabbitmq.message.error.queue.routing.key' specified for publishing the message. " +
                     "Hence the message with message id: " + properties.getMessageId() + " and delivery tag: " +
@@ -283,6 +402,15 @@ public class RabbitMQConsumer implements Consumer {
         connection.abort();
         channel = null;
         connection = null;
+        // the unacknowledged messages are redelivered by the broker once the connection is closed
+        if (mediationPool != null) {
+            mediationPool.shutdownNow();
+            mediationPool = null;
+        }
+        if (requeueScheduler != null) {
+            requeueScheduler.shutdownNow();
+            requeueScheduler = null;
+        }
     }
 
     public String getInboundName() {
@@ -296,4 +424,24 @@ public class RabbitMQConsumer implements Consumer {
     protected void requestShutdown() {
         close();
     }
+
+    /**
+     * Creates the daemon threads of the mediation pool and the requeue timer of the consumer.
+     */
+    private static class ConsumerThreadFactory implements ThreadFactory {
+
+        private final String namePrefix;
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        ConsumerThreadFactory(String name) {
+            this.namePrefix = "rabbitmq-inbound-" + name + "-";
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
@@ -28,11 +28,15 @@ import org.apache.synapse.SynapseConstants;
 import org.apache.synapse.SynapseException;
 import org.apache.synapse.core.SynapseEnvironment;
 import org.apache.synapse.mediators.base.SequenceMediator;
+import org.wso2.carbon.inbound.endpoint.common.MicroBatchInjector;
 
 import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
- * The received messages will be injected into the sequence for the mediation.
+ * The received messages will be injected into the sequence for the mediation. If the micro batching is enabled, the
+ * messages are injected in batches by a {@link MicroBatchInjector} and each message is settled with the outcome of
+ * its batch.
  */
 public class RabbitMQInjectHandler {
     private static final Log log = LogFactory.getLog(RabbitMQInjectHandler.class);
@@ -42,6 +46,7 @@ public class RabbitMQInjectHandler {
     private boolean sequential;
     private SynapseEnvironment synapseEnvironment;
     private SequenceMediator seq;
+    private MicroBatchInjector batchInjector;
 
     public RabbitMQInjectHandler(String injectingSeq, String onErrorSeq, boolean sequential,
                                  SynapseEnvironment synapseEnvironment) {
@@ -94,25 +99,78 @@ public class RabbitMQInjectHandler {
                 log.error("Sequence: " + injectingSeq + " not found");
             }
 
-            Object rollbackProperty = msgCtx.getProperty(RabbitMQConstants.SET_ROLLBACK_ONLY);
-            if ((rollbackProperty instanceof Boolean && ((Boolean) rollbackProperty)) ||
-                    (rollbackProperty instanceof String && Boolean.parseBoolean((String) rollbackProperty))) {
-                return AcknowledgementMode.REQUEUE_FALSE;
-            }
-            Object requeueOnRollbackProperty = msgCtx.getProperty(RabbitMQConstants.SET_REQUEUE_ON_ROLLBACK);
-            if ((requeueOnRollbackProperty instanceof Boolean && ((Boolean) requeueOnRollbackProperty)) ||
-                    (requeueOnRollbackProperty instanceof String &&
-                            Boolean.parseBoolean((String) requeueOnRollbackProperty))) {
-                return AcknowledgementMode.REQUEUE_TRUE;
-            }
-
+            return getAcknowledgementMode(msgCtx);
         } catch (AxisFault axisFault) {
             log.error("Error when trying to read incoming message ...", axisFault);
             return AcknowledgementMode.REQUEUE_FALSE;
         }
+    }
+
+    /**
+     * Enable the micro batching of the received messages.
+     *
+     * @param inboundName  Inbound Name
+     * @param batchSize    the maximum number of messages in a batch
+     * @param batchTimeout the maximum time in milliseconds a message waits for its batch
+     */
+    public void enableBatching(String inboundName, int batchSize, long batchTimeout) {
+        batchInjector = new MicroBatchInjector(inboundName, injectingSeq, onErrorSeq, synapseEnvironment, batchSize,
+                batchTimeout);
+    }
+
+    public boolean isBatching() {
+        return batchInjector != null;
+    }
+
+    /**
+     * Add the message to the current batch. The message is settled once its batch is mediated, a message which is
+     * not mediated since the endpoint is closed is requeued.
+     *
+     * @param properties the AMQP basic properties
+     * @param body       the message body
+     * @param settlement settles the message with its delivery status
+     */
+    public void onMessage(AMQP.BasicProperties properties, byte[] body, Consumer<AcknowledgementMode> settlement) {
+        batchInjector.add(body, properties.getContentType(), (success, batchCtx) -> {
+            if (batchCtx == null) {
+                settlement.accept(AcknowledgementMode.REQUEUE_TRUE);
+            } else if (success) {
+                settlement.accept(getAcknowledgementMode(batchCtx));
+            } else if (isTrue(batchCtx.getProperty(RabbitMQConstants.SET_REQUEUE_ON_ROLLBACK))) {
+                settlement.accept(AcknowledgementMode.REQUEUE_TRUE);
+            } else {
+                settlement.accept(AcknowledgementMode.REQUEUE_FALSE);
+            }
+        });
+    }
+
+    /**
+     * Inject the pending batch and stop batching.
+     */
+    public void close() {
+        if (batchInjector != null) {
+            batchInjector.close();
+        }
+    }
+
+    /**
+     * Determine the delivery status from the rollback properties set in the mediation.
+     */
+    private AcknowledgementMode getAcknowledgementMode(org.apache.synapse.MessageContext msgCtx) {
+        if (isTrue(msgCtx.getProperty(RabbitMQConstants.SET_ROLLBACK_ONLY))) {
+            return AcknowledgementMode.REQUEUE_FALSE;
+        }
+        if (isTrue(msgCtx.getProperty(RabbitMQConstants.SET_REQUEUE_ON_ROLLBACK))) {
+            return AcknowledgementMode.REQUEUE_TRUE;
+        }
         return AcknowledgementMode.ACKNOWLEDGE;
     }
 
+    private static boolean isTrue(Object property) {
+        return (property instanceof Boolean && ((Boolean) property)) ||
+                (property instanceof String && Boolean.parseBoolean((String) property));
+    }
+
     /**
      * Create the initial message context for rabbitmq
      */
@@ -19,6 +19,7 @@
 package org.wso2.carbon.inbound.endpoint.protocol.rabbitmq;
 
 import org.apache.commons.lang.BooleanUtils;
+import org.apache.commons.lang.math.NumberUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.synapse.SynapseException;
@@ -63,6 +64,19 @@ public class RabbitMQListener extends InboundOneTimeTriggerRequestProcessor {
         }
 
         injectHandler = new RabbitMQInjectHandler(injectingSeq, onErrorSeq, sequential, synapseEnvironment);
+
+        int batchSize = NumberUtils.toInt(rabbitmqProperties.getProperty(RabbitMQConstants.CONSUMER_BATCH_SIZE));
+        if (batchSize > 1) {
+            long batchTimeout = NumberUtils.toLong(rabbitmqProperties.getProperty(
+                    RabbitMQConstants.CONSUMER_BATCH_TIMEOUT), RabbitMQConstants.DEFAULT_CONSUMER_BATCH_TIMEOUT);
+            int qos = NumberUtils.toInt(rabbitmqProperties.getProperty(RabbitMQConstants.CONSUMER_QOS),
+                    RabbitMQConstants.DEFAULT_CONSUMER_QOS);
+            if (qos > 0 && qos < batchSize) {
+                log.warn("The consumer qos " + qos + " of the RABBITMQ inbound endpoint " + name + " is less than " +
+                        "the batch size " + batchSize + ", the batches are completed by the batch timeout.");
+            }
+            injectHandler.enableBatching(name, batchSize, batchTimeout);
+        }
     }
 
     @Override
@@ -72,6 +86,8 @@ public class RabbitMQListener extends InboundOneTimeTriggerRequestProcessor {
 
     @Override
     public void destroy(boolean removeTask) {
+        // the pending batch is mediated and settled before the channel is closed
+        injectHandler.close();
         rabbitMQConsumer.close();
         super.destroy(removeTask);
     }
@@ -18,6 +18,7 @@
 
 package org.wso2.carbon.inbound.endpoint.protocol.websocket;
 
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
@@ -28,6 +29,10 @@ public class InboundWebsocketChannelContext {
 
     private ChannelHandlerContext ctx;
     private String channelIdentifier;
+    private String slowConsumerPolicy = InboundWebsocketConstants.SLOW_CONSUMER_POLICY_NONE;
+    // latest broadcast frame held back while the channel is not writable, accessed from the event loop only
+    private WebSocketFrame pendingFrame;
+    private long droppedFrameCount;
 
     public InboundWebsocketChannelContext(ChannelHandlerContext ctx) {
         this.ctx = ctx;
@@ -40,6 +45,65 @@ public class InboundWebsocketChannelContext {
         }
     }
 
+    /**
+     * Writes a frame broadcast on the subscriber path of the channel. This is called from the event loop of the
+     * channel, and the frame is released by this method. If the channel is not writable, the frame is dropped or
+     * kept in place of the previous pending frame based on the slow consumer policy.
+     *
+     * @param frame the broadcast frame
+     */
+    public void writeBroadcastFrame(WebSocketFrame frame) {
+        Channel channel = ctx.channel();
+        if (!channel.isActive()) {
+            frame.release();
+            return;
+        }
+        if (channel.isWritable() || frame instanceof CloseWebSocketFrame
+                || InboundWebsocketConstants.SLOW_CONSUMER_POLICY_NONE.equals(slowConsumerPolicy)) {
+            channel.writeAndFlush(frame);
+            return;
+        }
+        droppedFrameCount++;
+        if (InboundWebsocketConstants.SLOW_CONSUMER_POLICY_COALESCE.equals(slowConsumerPolicy)) {
+            if (pendingFrame != null) {
+                pendingFrame.release();
+            }
+            pendingFrame = frame;
+        } else {
+            frame.release();
+        }
+    }
+
+    /**
+     * Writes the pending broadcast frame once the channel is writable again, or releases it if the channel is
+     * closed. This is called from the event loop of the channel.
+     */
+    public void flushPendingFrame() {
+        if (pendingFrame == null) {
+            return;
+        }
+        Channel channel = ctx.channel();
+        if (!channel.isActive()) {
+            pendingFrame.release();
+            pendingFrame = null;
+        } else if (channel.isWritable()) {
+            WebSocketFrame frame = pendingFrame;
+            pendingFrame = null;
+            channel.writeAndFlush(frame);
+        }
+    }
+
+    public void setSlowConsumerPolicy(String slowConsumerPolicy) {
+        this.slowConsumerPolicy = slowConsumerPolicy;
+    }
+
+    /**
+     * @return the number of broadcast frames which were dropped or replaced as the channel was not writable
+     */
+    public long getDroppedFrameCount() {
+        return droppedFrameCount;
+    }
+
     public ChannelHandlerContext getChannelHandlerContext() {
         return this.ctx;
     }
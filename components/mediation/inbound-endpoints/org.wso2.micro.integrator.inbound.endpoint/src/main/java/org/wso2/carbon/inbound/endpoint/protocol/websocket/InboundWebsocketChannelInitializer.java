@@ -44,6 +44,7 @@ public class InboundWebsocketChannelInitializer extends ChannelInitializer<Socke
     private boolean dispatchToCustomSequence;
     private ArrayList<AbstractSubprotocolHandler> subprotocolHandlers;
     private int portOffset;
+    private String slowConsumerPolicy;
 
     public InboundWebsocketChannelInitializer() {
     }
@@ -76,6 +77,10 @@ public class InboundWebsocketChannelInitializer extends ChannelInitializer<Socke
         this.subprotocolHandlers = subprotocolHandlers;
     }
 
+    public void setSlowConsumerPolicy(String slowConsumerPolicy) {
+        this.slowConsumerPolicy = slowConsumerPolicy;
+    }
+
     @Override
     protected void initChannel(SocketChannel websocketChannel) throws Exception {
 
@@ -92,6 +97,7 @@ public class InboundWebsocketChannelInitializer extends ChannelInitializer<Socke
         sourceHandler.setClientBroadcastLevel(clientBroadcastLevel);
         sourceHandler.setDispatchToCustomSequence(dispatchToCustomSequence);
         sourceHandler.setPortOffset(portOffset);
+        sourceHandler.setSlowConsumerPolicy(slowConsumerPolicy);
         if (outflowDispatchSequence != null)
             sourceHandler.setOutflowDispatchSequence(outflowDispatchSequence);
         if (outflowErrorSequence != null)
@@ -31,6 +31,7 @@ public class InboundWebsocketConfiguration {
     private String defaultContentType;
     private String pipelineHandler;
     private String dispatchToCustomSequence;
+    private String slowConsumerPolicy;
     private final boolean usePortOffset;
 
     private InboundWebsocketConfiguration(InboundWebsocketConfigurationBuilder builder) {
@@ -45,6 +46,7 @@ public class InboundWebsocketConfiguration {
         this.defaultContentType = builder.defaultContentType;
         this.pipelineHandler = builder.pipelineHandler;
         this.dispatchToCustomSequence = builder.dispatchToCustomSequence;
+        this.slowConsumerPolicy = builder.slowConsumerPolicy;
         this.usePortOffset = builder.usePortOffset;
     }
 
@@ -92,6 +94,10 @@ public class InboundWebsocketConfiguration {
         return dispatchToCustomSequence;
     }
 
+    public String getSlowConsumerPolicy() {
+        return slowConsumerPolicy;
+    }
+
     public boolean isUsePortOffset() {
         return usePortOffset;
     }
@@ -108,6 +114,7 @@ public class InboundWebsocketConfiguration {
         private String defaultContentType;
         private String pipelineHandler;
         private String dispatchToCustomSequence;
+        private String slowConsumerPolicy;
         private boolean usePortOffset = false;
 
         public InboundWebsocketConfigurationBuilder(int port, String name) {
@@ -164,6 +171,11 @@ public class InboundWebsocketConfiguration {
             return this;
         }
 
+        public InboundWebsocketConfigurationBuilder slowConsumerPolicy(String slowConsumerPolicy) {
+            this.slowConsumerPolicy = slowConsumerPolicy;
+            return this;
+        }
+
         public InboundWebsocketConfigurationBuilder usePortOffset(boolean usePortOffset) {
             this.usePortOffset = usePortOffset;
             return this;
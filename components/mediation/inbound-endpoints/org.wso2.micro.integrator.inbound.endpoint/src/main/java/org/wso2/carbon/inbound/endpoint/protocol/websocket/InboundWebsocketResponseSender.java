@@ -238,11 +238,20 @@ public class InboundWebsocketResponseSender implements InboundResponseSender {
         } else if (clientBroadcastLevel == 1) {
             String endpointName = WebsocketEndpointManager.getInstance()
                     .getEndpointName(sourceHandler.getPort(), sourceHandler.getTenantDomain());
-            pathManager.broadcastOnSubscriberPath(frame, endpointName, subscriberPath);
+            try {
+                pathManager.broadcastOnSubscriberPath(frame, endpointName, subscriberPath);
+            } finally {
+                // the subscribers hold their own references to the frame
+                frame.release();
+            }
         } else if (clientBroadcastLevel == 2) {
             String endpointName = WebsocketEndpointManager.getInstance()
                     .getEndpointName(sourceHandler.getPort(), sourceHandler.getTenantDomain());
-            pathManager.exclusiveBroadcastOnSubscriberPath(frame, endpointName, subscriberPath, ctx);
+            try {
+                pathManager.exclusiveBroadcastOnSubscriberPath(frame, endpointName, subscriberPath, ctx);
+            } finally {
+                frame.release();
+            }
         }
     }
 
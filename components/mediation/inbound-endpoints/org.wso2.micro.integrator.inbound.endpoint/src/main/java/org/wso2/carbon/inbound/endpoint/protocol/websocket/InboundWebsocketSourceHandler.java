@@ -101,6 +101,7 @@ public class InboundWebsocketSourceHandler extends ChannelInboundHandlerAdapter
     private ArrayList<AbstractSubprotocolHandler> subprotocolHandlers;
     private String defaultContentType;
     private int portOffset;
+    private String slowConsumerPolicy;
 
     private InboundApiHandler inboundApiHandler = new InboundApiHandler();
     private static final AttributeKey<Map<String, Object>> WSO2_PROPERTIES = AttributeKey.valueOf("WSO2_PROPERTIES");
@@ -125,6 +126,9 @@ public class InboundWebsocketSourceHandler extends ChannelInboundHandlerAdapter
     public void channelActive(final ChannelHandlerContext ctx) throws Exception {
         this.isSSLEnabled = ctx.channel().pipeline().get("ssl") != null;
         this.wrappedContext = new InboundWebsocketChannelContext(ctx);
+        if (slowConsumerPolicy != null) {
+            this.wrappedContext.setSlowConsumerPolicy(slowConsumerPolicy);
+        }
         this.port = ((InetSocketAddress) ctx.channel().localAddress()).getPort() - portOffset;
         this.responseSender = new InboundWebsocketResponseSender(this);
         WebsocketEndpointManager.getInstance().setSourceHandler(this);
@@ -145,6 +149,14 @@ public class InboundWebsocketSourceHandler extends ChannelInboundHandlerAdapter
         }
     }
 
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (wrappedContext != null) {
+            wrappedContext.flushPendingFrame();
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
     @Override
     public void channelInactive(ChannelHandlerContext ctx) throws Exception {
         String endpointName = WebsocketEndpointManager.getInstance().getEndpointName(port, tenantDomain);
@@ -152,7 +164,8 @@ public class InboundWebsocketSourceHandler extends ChannelInboundHandlerAdapter
             handleException("Endpoint not found for port : " + port + "" + " tenant domain : " + tenantDomain);
         }
         WebsocketSubscriberPathManager.getInstance()
-                .addChannelContext(endpointName, subscriberPath.getPath(), wrappedContext);
+                .removeChannelContext(endpointName, subscriberPath.getPath(), wrappedContext);
+        wrappedContext.flushPendingFrame();
         MessageContext synCtx = getSynapseMessageContext(tenantDomain, ctx);
         InboundEndpoint endpoint = synCtx.getConfiguration().getInboundEndpoint(endpointName);
         synCtx.setProperty(InboundWebsocketConstants.CONNECTION_TERMINATE, new Boolean(true));
@@ -618,4 +631,8 @@ public class InboundWebsocketSourceHandler extends ChannelInboundHandlerAdapter
         this.portOffset = portOffset;
     }
 
+    public void setSlowConsumerPolicy(String slowConsumerPolicy) {
+        this.slowConsumerPolicy = slowConsumerPolicy;
+    }
+
 }
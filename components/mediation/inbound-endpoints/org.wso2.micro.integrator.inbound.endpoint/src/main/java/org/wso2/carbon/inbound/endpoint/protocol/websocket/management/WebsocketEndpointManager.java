@@ -142,6 +142,7 @@ public class WebsocketEndpointManager extends AbstractInboundEndpointManager {
                 SubprotocolBuilderUtil.stringToSubprotocolHandlers(config.getSubprotocolHandler()));
         handler.setPipelineHandler(PipelineHandlerBuilderUtil.stringToPipelineHandlers(config.getPipelineHandler()));
         handler.setDispatchToCustomSequence(config.getDispatchToCustomSequence());
+        handler.setSlowConsumerPolicy(config.getSlowConsumerPolicy());
         handler.setPortOffset(PersistenceUtils.getPortOffset(params.getProperties()));
         bootstrap.childHandler(handler);
         try {
@@ -177,6 +178,7 @@ public class WebsocketEndpointManager extends AbstractInboundEndpointManager {
                 SubprotocolBuilderUtil.stringToSubprotocolHandlers(config.getSubprotocolHandler()));
         handler.setPipelineHandler(PipelineHandlerBuilderUtil.stringToPipelineHandlers(config.getPipelineHandler()));
         handler.setDispatchToCustomSequence(config.getDispatchToCustomSequence());
+        handler.setSlowConsumerPolicy(config.getSlowConsumerPolicy());
         handler.setPortOffset(PersistenceUtils.getPortOffset(params.getProperties()));
         bootstrap.childHandler(handler);
         try {
@@ -220,8 +222,12 @@ public class WebsocketEndpointManager extends AbstractInboundEndpointManager {
                 log.error("Error while getting synapse message context. " + fault);
                 throw new SynapseException(fault);
             }
-            pathManager.broadcastOnSubscriberPath(new CloseWebSocketFrame(shutdownStatusCode, shutdownStatusMessage),
-                                                  endpointName, sourceHandler.getSubscriberPath());
+            CloseWebSocketFrame closeFrame = new CloseWebSocketFrame(shutdownStatusCode, shutdownStatusMessage);
+            try {
+                pathManager.broadcastOnSubscriberPath(closeFrame, endpointName, sourceHandler.getSubscriberPath());
+            } finally {
+                closeFrame.release();
+            }
         }
 
         dataStore.unregisterListeningEndpoint(port, SUPER_TENANT_DOMAIN_NAME);
@@ -252,6 +258,8 @@ public class WebsocketEndpointManager extends AbstractInboundEndpointManager {
                 .pipelineHandler(
                         params.getProperties().getProperty(InboundWebsocketConstants.INBOUND_PIPELINE_HANDLER_CLASS))
                 .dispatchToCustomSequence(params.getProperties().getProperty(InboundWebsocketConstants.CUSTOM_SEQUENCE))
+                .slowConsumerPolicy(validateSlowConsumerPolicyParam(
+                        params.getProperties().getProperty(InboundWebsocketConstants.WEBSOCKET_SLOW_CONSUMER_POLICY)))
                 .usePortOffset(Boolean.valueOf(
                         params.getProperties().getProperty(InboundWebsocketConstants.WEBSOCKET_USE_PORT_OFFSET)))
                 .build();
@@ -276,6 +284,21 @@ public class WebsocketEndpointManager extends AbstractInboundEndpointManager {
         return broadcastLevel;
     }
 
+    protected String validateSlowConsumerPolicyParam(String slowConsumerPolicyParam) {
+        if (slowConsumerPolicyParam == null || "".equals(slowConsumerPolicyParam.trim())) {
+            return InboundWebsocketConstants.SLOW_CONSUMER_POLICY_NONE;
+        }
+        String slowConsumerPolicy = slowConsumerPolicyParam.trim().toLowerCase();
+        if (!InboundWebsocketConstants.SLOW_CONSUMER_POLICY_NONE.equals(slowConsumerPolicy)
+                && !InboundWebsocketConstants.SLOW_CONSUMER_POLICY_DROP.equals(slowConsumerPolicy)
+                && !InboundWebsocketConstants.SLOW_CONSUMER_POLICY_COALESCE.equals(slowConsumerPolicy)) {
+            String msg = "Validation failed. Unknown slow consumer policy : " + slowConsumerPolicyParam;
+            log.error(msg);
+            throw new SynapseException(msg);
+        }
+        return slowConsumerPolicy;
+    }
+
     public InboundWebsocketSSLConfiguration buildSSLConfiguration(InboundProcessorParams params) {
         return new InboundWebsocketSSLConfiguration.SSLConfigurationBuilder(
                 params.getProperties().getProperty(InboundWebsocketConstants.INBOUND_SSL_KEY_STORE_FILE),
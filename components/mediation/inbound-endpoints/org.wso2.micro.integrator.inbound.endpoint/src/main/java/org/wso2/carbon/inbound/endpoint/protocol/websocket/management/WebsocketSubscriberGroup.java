@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.inbound.endpoint.protocol.websocket.management;
+
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.inbound.endpoint.protocol.websocket.InboundWebsocketChannelContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The subscribers of a subscriber path, grouped by the event loop of their channels. A frame broadcast on the path
+ * is handed to each event loop once, and the event loop writes it to its own channels. The frame content is shared
+ * by all the writes instead of being copied per subscriber.
+ */
+public class WebsocketSubscriberGroup {
+
+    private static final Log log = LogFactory.getLog(WebsocketSubscriberGroup.class);
+
+    private final ConcurrentHashMap<EventLoop, List<InboundWebsocketChannelContext>> subscribers =
+            new ConcurrentHashMap<>();
+
+    public void add(final InboundWebsocketChannelContext context) {
+        subscribers.compute(getEventLoop(context), (loop, contexts) -> {
+            if (contexts == null) {
+                contexts = new CopyOnWriteArrayList<>();
+            }
+            contexts.add(context);
+            return contexts;
+        });
+    }
+
+    /**
+     * Removes the subscriber of the channel of the given context.
+     *
+     * @param context context of the channel
+     * @return true if the group is empty after the removal
+     */
+    public boolean remove(final InboundWebsocketChannelContext context) {
+        subscribers.computeIfPresent(getEventLoop(context), (loop, contexts) -> {
+            contexts.removeIf(subscriber -> subscriber.getChannelIdentifier().equals(context.getChannelIdentifier()));
+            return contexts.isEmpty() ? null : contexts;
+        });
+        return subscribers.isEmpty();
+    }
+
+    public boolean isEmpty() {
+        return subscribers.isEmpty();
+    }
+
+    public List<InboundWebsocketChannelContext> getChannelContexts() {
+        List<InboundWebsocketChannelContext> contexts = new ArrayList<>();
+        for (List<InboundWebsocketChannelContext> loopContexts : subscribers.values()) {
+            contexts.addAll(loopContexts);
+        }
+        return contexts;
+    }
+
+    /**
+     * Writes the given frame to all the subscribers except the given one. The reference count of the frame is not
+     * changed, each event loop holds its own reference until the frame is written to its subscribers. Hence the
+     * caller still owns the frame and has to release it.
+     *
+     * @param frame    the frame to broadcast
+     * @param excluded context of the subscriber which does not get the frame, or null
+     */
+    public void broadcast(WebSocketFrame frame, final InboundWebsocketChannelContext excluded) {
+        for (Map.Entry<EventLoop, List<InboundWebsocketChannelContext>> entry : subscribers.entrySet()) {
+            final WebSocketFrame loopFrame = frame.retainedDuplicate();
+            final List<InboundWebsocketChannelContext> contexts = entry.getValue();
+            EventLoop eventLoop = entry.getKey();
+            if (eventLoop.inEventLoop()) {
+                write(loopFrame, contexts, excluded);
+            } else {
+                try {
+                    eventLoop.execute(() -> write(loopFrame, contexts, excluded));
+                } catch (RejectedExecutionException e) {
+                    log.warn("Could not broadcast the frame to the subscribers of a stopped event loop.");
+                    loopFrame.release();
+                }
+            }
+        }
+    }
+
+    private static void write(WebSocketFrame frame, List<InboundWebsocketChannelContext> contexts,
+                              InboundWebsocketChannelContext excluded) {
+        try {
+            for (InboundWebsocketChannelContext context : contexts) {
+                if (excluded == null || !context.getChannelIdentifier().equals(excluded.getChannelIdentifier())) {
+                    context.writeBroadcastFrame(frame.retainedDuplicate());
+                }
+            }
+        } finally {
+            frame.release();
+        }
+    }
+
+    private static EventLoop getEventLoop(InboundWebsocketChannelContext context) {
+        return context.getChannelHandlerContext().channel().eventLoop();
+    }
+}
@@ -21,7 +21,6 @@ package org.wso2.carbon.inbound.endpoint.protocol.websocket.management;
 import io.netty.handler.codec.http.websocketx.WebSocketFrame;
 import org.wso2.carbon.inbound.endpoint.protocol.websocket.InboundWebsocketChannelContext;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -29,7 +28,8 @@ public class WebsocketSubscriberPathManager {
 
     private static WebsocketSubscriberPathManager instance = null;
 
-    private ConcurrentHashMap<String, ConcurrentHashMap<String, List<InboundWebsocketChannelContext>>> inboundSubscriberPathMap = new ConcurrentHashMap<String, ConcurrentHashMap<String, List<InboundWebsocketChannelContext>>>();
+    private ConcurrentHashMap<String, ConcurrentHashMap<String, WebsocketSubscriberGroup>> inboundSubscriberPathMap =
+            new ConcurrentHashMap<String, ConcurrentHashMap<String, WebsocketSubscriberGroup>>();
 
     public static WebsocketSubscriberPathManager getInstance() {
         if (instance == null) {
@@ -38,71 +38,56 @@ public class WebsocketSubscriberPathManager {
         return instance;
     }
 
-    public void addChannelContext(String inboundName, String subscriberPath, InboundWebsocketChannelContext ctx) {
-        ConcurrentHashMap<String, List<InboundWebsocketChannelContext>> subscriberPathMap = inboundSubscriberPathMap
-                .get(inboundName);
-        if (subscriberPathMap == null) {
-            subscriberPathMap = new ConcurrentHashMap<String, List<InboundWebsocketChannelContext>>();
-            ArrayList<InboundWebsocketChannelContext> listContext = new ArrayList<InboundWebsocketChannelContext>();
-            listContext.add(ctx);
-            subscriberPathMap.put(subscriberPath, listContext);
-            inboundSubscriberPathMap.put(inboundName, subscriberPathMap);
-        } else {
-            List<InboundWebsocketChannelContext> listContext = subscriberPathMap.get(subscriberPath);
-            if (listContext == null) {
-                listContext = new ArrayList<InboundWebsocketChannelContext>();
-                listContext.add(ctx);
-                subscriberPathMap.put(subscriberPath, listContext);
-            } else {
-                listContext.add(ctx);
+    public void addChannelContext(String inboundName, final String subscriberPath,
+                                  final InboundWebsocketChannelContext ctx) {
+        inboundSubscriberPathMap.compute(inboundName, (name, subscriberPathMap) -> {
+            if (subscriberPathMap == null) {
+                subscriberPathMap = new ConcurrentHashMap<String, WebsocketSubscriberGroup>();
             }
-        }
+            subscriberPathMap.compute(subscriberPath, (path, group) -> {
+                if (group == null) {
+                    group = new WebsocketSubscriberGroup();
+                }
+                group.add(ctx);
+                return group;
+            });
+            return subscriberPathMap;
+        });
     }
 
-    public void removeChannelContext(String inboundName, String subscriberPath, InboundWebsocketChannelContext ctx) {
-        ConcurrentHashMap<String, List<InboundWebsocketChannelContext>> subscriberPathMap = inboundSubscriberPathMap
-                .get(inboundName);
-        List<InboundWebsocketChannelContext> listContext = subscriberPathMap.get(subscriberPath);
-        for (Object context : listContext.toArray()) {
-            if (((InboundWebsocketChannelContext) context).getChannelIdentifier().equals(ctx.getChannelIdentifier())) {
-                listContext.remove(context);
-                break;
-            }
-        }
-        if (listContext.isEmpty()) {
-            listContext.clear();
-            subscriberPathMap.remove(subscriberPath);
-        }
-        if (subscriberPathMap.isEmpty()) {
-            subscriberPathMap.clear();
-            inboundSubscriberPathMap.remove(inboundName);
-        }
+    public void removeChannelContext(String inboundName, final String subscriberPath,
+                                     final InboundWebsocketChannelContext ctx) {
+        inboundSubscriberPathMap.computeIfPresent(inboundName, (name, subscriberPathMap) -> {
+            subscriberPathMap.computeIfPresent(subscriberPath, (path, group) -> group.remove(ctx) ? null : group);
+            return subscriberPathMap.isEmpty() ? null : subscriberPathMap;
+        });
     }
 
     public List<InboundWebsocketChannelContext> getSubscriberPathChannelContextList(String inboundName,
                                                                                     String subscriberPath) {
-        return inboundSubscriberPathMap.get(inboundName).get(subscriberPath);
+        WebsocketSubscriberGroup group = getSubscriberGroup(inboundName, subscriberPath);
+        return group != null ? group.getChannelContexts() : null;
     }
 
     public void broadcastOnSubscriberPath(WebSocketFrame frame, String inboundName, String subscriberPath) {
-        List<InboundWebsocketChannelContext> contextList = getSubscriberPathChannelContextList(inboundName,
-                                                                                               subscriberPath);
-        for (InboundWebsocketChannelContext context : contextList) {
-            WebSocketFrame duplicatedFrame = frame.duplicate();
-            context.writeToChannel(duplicatedFrame);
+        WebsocketSubscriberGroup group = getSubscriberGroup(inboundName, subscriberPath);
+        if (group != null) {
+            group.broadcast(frame, null);
         }
     }
 
     public void exclusiveBroadcastOnSubscriberPath(WebSocketFrame frame, String inboundName, String subscriberPath,
                                                    InboundWebsocketChannelContext ctx) {
-        List<InboundWebsocketChannelContext> contextList = getSubscriberPathChannelContextList(inboundName,
-                                                                                               subscriberPath);
-        for (InboundWebsocketChannelContext context : contextList) {
-            if (!context.getChannelIdentifier().equals(ctx.getChannelIdentifier())) {
-                WebSocketFrame duplicatedFrame = frame.duplicate();
-                context.writeToChannel(duplicatedFrame);
-            }
+        WebsocketSubscriberGroup group = getSubscriberGroup(inboundName, subscriberPath);
+        if (group != null) {
+            group.broadcast(frame, ctx);
         }
     }
 
+    private WebsocketSubscriberGroup getSubscriberGroup(String inboundName, String subscriberPath) {
+        ConcurrentHashMap<String, WebsocketSubscriberGroup> subscriberPathMap = inboundSubscriberPathMap
+                .get(inboundName);
+        return subscriberPathMap != null ? subscriberPathMap.get(subscriberPath) : null;
+    }
+
 }
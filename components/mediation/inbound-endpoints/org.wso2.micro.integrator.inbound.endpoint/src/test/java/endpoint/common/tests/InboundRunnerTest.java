@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package endpoint.common.tests;
+
+import junit.framework.TestCase;
+import org.apache.synapse.core.SynapseEnvironment;
+import org.wso2.carbon.inbound.endpoint.common.InboundRunner;
+import org.wso2.carbon.inbound.endpoint.common.InboundTask;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+public class InboundRunnerTest extends TestCase {
+
+    private static final long TIMEOUT = 10000;
+
+    private TestRunner runner;
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (runner != null) {
+            runner.terminate();
+        }
+    }
+
+    /**
+     * Test that the delay of the next cycle is doubled after each idle cycle up to the max interval.
+     *
+     * @throws Exception
+     */
+    public void testAdaptiveBackoff() throws Exception {
+        TestTask task = new TestTask(7, 0);
+        runner = new TestRunner(task, 1, 8, false);
+        runner.start();
+        assertTrue(task.await());
+        assertEquals(Arrays.asList(0L, 1L, 2L, 4L, 8L, 8L, 8L), runner.getDelays(7));
+    }
+
+    /**
+     * Test that the task is polled again immediately while its cycles find work, and that the delay is reset to the
+     * interval once a cycle finds no work.
+     *
+     * @throws Exception
+     */
+    public void testImmediateRepoll() throws Exception {
+        TestTask task = new TestTask(6, 3);
+        runner = new TestRunner(task, 1, 8, false);
+        runner.start();
+        assertTrue(task.await());
+        assertEquals(Arrays.asList(0L, 0L, 0L, 0L, 1L, 2L), runner.getDelays(6));
+    }
+
+    /**
+     * Test that the cycles of a shared polling runner are run by the threads of the shared polling scheduler.
+     *
+     * @throws Exception
+     */
+    public void testSharedPolling() throws Exception {
+        TestTask task = new TestTask(4, 2);
+        runner = new TestRunner(task, 1, 4, true);
+        runner.start();
+        assertTrue(task.await());
+        assertEquals(Arrays.asList(0L, 0L, 0L, 1L), runner.getDelays(4));
+        for (String threadName : task.getThreadNames()) {
+            assertTrue(threadName, threadName.startsWith("inbound-polling-"));
+        }
+    }
+
+    /**
+     * Test that terminate waits for the running cycle of a runner with a thread of its own.
+     *
+     * @throws Exception
+     */
+    public void testTerminateWaitsForCycle() throws Exception {
+        assertTerminateWaitsForCycle(false);
+    }
+
+    /**
+     * Test that terminate waits for the running cycle of a shared polling runner.
+     *
+     * @throws Exception
+     */
+    public void testTerminateWaitsForSharedCycle() throws Exception {
+        assertTerminateWaitsForCycle(true);
+    }
+
+    private void assertTerminateWaitsForCycle(boolean sharedPolling) throws Exception {
+        BlockingTask task = new BlockingTask();
+        runner = new TestRunner(task, 1, 1, sharedPolling);
+        runner.start();
+        assertTrue(task.started.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        runner.terminate();
+        assertTrue(task.completed);
+        assertEquals(1, task.cycles);
+    }
+
+    /**
+     * Runner which records the delays of the cycles it schedules.
+     */
+    private static class TestRunner extends InboundRunner {
+
+        private final List<Long> delays = new ArrayList<>();
+
+        TestRunner(InboundTask task, long interval, long maxInterval, boolean sharedPolling) {
+            super(task, interval, maxInterval, sharedPolling);
+        }
+
+        @Override
+        protected void start() {
+            super.start();
+        }
+
+        @Override
+        protected void terminate() {
+            super.terminate();
+        }
+
+        @Override
+        protected ScheduledFuture<?> schedule(long delay) {
+            synchronized (delays) {
+                delays.add(delay);
+            }
+            return super.schedule(delay);
+        }
+
+        List<Long> getDelays(int count) {
+            synchronized (delays) {
+                return new ArrayList<>(delays.subList(0, count));
+            }
+        }
+    }
+
+    /**
+     * Task which finds work in its first cycles, and counts down a latch once it has run the expected cycles.
+     */
+    private static class TestTask extends InboundTask {
+
+        private final int workCycles;
+        private final CountDownLatch latch;
+        private final List<String> threadNames = new ArrayList<>();
+        private int cycles;
+
+        TestTask(int cycles, int workCycles) {
+            this.latch = new CountDownLatch(cycles);
+            this.workCycles = workCycles;
+        }
+
+        @Override
+        protected synchronized boolean pollCycle() {
+            threadNames.add(Thread.currentThread().getName());
+            latch.countDown();
+            return ++cycles <= workCycles;
+        }
+
+        boolean await() throws InterruptedException {
+            return latch.await(TIMEOUT, TimeUnit.MILLISECONDS);
+        }
+
+        synchronized List<String> getThreadNames() {
+            return new ArrayList<>(threadNames);
+        }
+
+        @Override
+        protected void taskExecute() {
+        }
+
+        @Override
+        public Properties getInboundProperties() {
+            return new Properties();
+        }
+
+        @Override
+        public void init(SynapseEnvironment synapseEnvironment) {
+        }
+
+        @Override
+        public void destroy() {
+        }
+    }
+
+    /**
+     * Task whose first cycle keeps running for a while after it is interrupted.
+     */
+    private static class BlockingTask extends TestTask {
+
+        private final CountDownLatch started = new CountDownLatch(1);
+        private volatile boolean completed;
+        private volatile int cycles;
+
+        BlockingTask() {
+            super(1, 0);
+        }
+
+        @Override
+        protected boolean pollCycle() {
+            cycles++;
+            started.countDown();
+            long end = System.currentTimeMillis() + 200;
+            while (System.currentTimeMillis() < end) {
+                try {
+                    Thread.sleep(Math.max(1, end - System.currentTimeMillis()));
+                } catch (InterruptedException e) {
+                    // keep running the cycle as a task blocked in a poll does until it returns
+                }
+            }
+            completed = true;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package endpoint.common.tests;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import org.apache.axiom.om.OMElement;
+import org.apache.axis2.builder.ApplicationXMLBuilder;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.config.SynapseConfiguration;
+import org.apache.synapse.core.axis2.Axis2MessageContext;
+import org.apache.synapse.core.axis2.Axis2SynapseEnvironment;
+import org.apache.synapse.mediators.base.SequenceMediator;
+import org.junit.Test;
+import org.wso2.carbon.inbound.endpoint.common.MicroBatchInjector;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class MicroBatchInjectorTest extends TestCase {
+
+    private static final String SEQUENCE = "batchSequence";
+    private static final String XML = "application/xml";
+    private static final String SOAP = "text/xml";
+    private static final long BATCH_TIMEOUT = 60000;
+
+    private final Map<String, Boolean> outcomes = new ConcurrentHashMap<>();
+    private final Map<String, MessageContext> batchContexts = new ConcurrentHashMap<>();
+    private TestSynapseEnvironment synapseEnvironment;
+    private MicroBatchInjector injector;
+
+    @Override
+    protected void setUp() throws Exception {
+        SynapseConfiguration synapseConfiguration = new SynapseConfiguration();
+        SequenceMediator sequence = new SequenceMediator();
+        sequence.setName(SEQUENCE);
+        synapseConfiguration.addSequence(SEQUENCE, sequence);
+        synapseEnvironment = new TestSynapseEnvironment(synapseConfiguration);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (injector != null) {
+            injector.close();
+        }
+    }
+
+    /**
+     * Test that a batch is injected in the calling thread once it holds the batch size of messages, and that its
+     * messages are settled once it is mediated.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBatchSizeCompletion() throws Exception {
+        injector = createInjector(3, BATCH_TIMEOUT);
+        add("first", XML);
+        add("second", XML);
+        Assert.assertTrue("The batch is injected before it is complete", synapseEnvironment.batches.isEmpty());
+
+        add("third", XML);
+        Assert.assertEquals(1, synapseEnvironment.batches.size());
+        InjectedBatch batch = synapseEnvironment.batches.get(0);
+        Assert.assertEquals(Arrays.asList("first", "second", "third"), batch.records);
+        Assert.assertEquals(3, batch.batchSize);
+        Assert.assertEquals(Thread.currentThread().getName(), batch.threadName);
+        assertOutcomes(true, "first", "second", "third");
+        Assert.assertSame(batchContexts.get("first"), batchContexts.get("third"));
+    }
+
+    /**
+     * Test that an incomplete batch is injected by the batch timer once the batch timeout elapses after its first
+     * message.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBatchTimeoutCompletion() throws Exception {
+        long batchTimeout = 200;
+        injector = createInjector(10, batchTimeout);
+        long start = System.currentTimeMillis();
+        add("first", XML);
+        add("second", XML);
+
+        waitFor(() -> outcomes.size() == 2);
+        Assert.assertTrue("The batch is injected before the batch timeout",
+                          System.currentTimeMillis() - start >= batchTimeout);
+        Assert.assertEquals(1, synapseEnvironment.batches.size());
+        InjectedBatch batch = synapseEnvironment.batches.get(0);
+        Assert.assertEquals(Arrays.asList("first", "second"), batch.records);
+        Assert.assertTrue("The batch is not injected by the batch timer",
+                          batch.threadName.startsWith("inbound-batch-"));
+        assertOutcomes(true, "first", "second");
+    }
+
+    /**
+     * Test that a message of another content type completes the current batch, and starts a batch of its own.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testContentTypeSplit() throws Exception {
+        injector = createInjector(10, BATCH_TIMEOUT);
+        add("first", XML);
+        add("second", XML);
+        add("third", SOAP);
+        Assert.assertEquals(1, synapseEnvironment.batches.size());
+        Assert.assertEquals(Arrays.asList("first", "second"), synapseEnvironment.batches.get(0).records);
+        Assert.assertNull("The message of another content type is settled with the previous batch",
+                          outcomes.get("third"));
+
+        injector.flush();
+        Assert.assertEquals(2, synapseEnvironment.batches.size());
+        Assert.assertEquals(Collections.singletonList("third"), synapseEnvironment.batches.get(1).records);
+        assertOutcomes(true, "first", "second", "third");
+    }
+
+    /**
+     * Test that only the messages listed in the failed records property of a mediated batch are failed, ignoring
+     * the invalid indexes.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFailedRecords() throws Exception {
+        synapseEnvironment.sequence = msgCtx -> msgCtx.setProperty(MicroBatchInjector.FAILED_RECORDS_PROPERTY,
+                                                                   "1, invalid,3,");
+        injector = createInjector(4, BATCH_TIMEOUT);
+        add("first", XML);
+        add("second", XML);
+        add("third", XML);
+        add("fourth", XML);
+
+        assertOutcomes(true, "first", "third");
+        assertOutcomes(false, "second", "fourth");
+    }
+
+    /**
+     * Test that all the messages of a batch are failed when the mediation of the batch fails.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFailedMediation() throws Exception {
+        synapseEnvironment.sequence = msgCtx -> {
+            throw new IllegalStateException("mediation failure");
+        };
+        injector = createInjector(2, BATCH_TIMEOUT);
+        add("first", XML);
+        add("second", XML);
+
+        assertOutcomes(false, "first", "second");
+        Assert.assertNotNull(batchContexts.get("first"));
+    }
+
+    /**
+     * Test that all the messages of a batch are failed when the mediation of the batch does not complete.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testIncompleteMediation() throws Exception {
+        synapseEnvironment.mediationCompleted = false;
+        injector = createInjector(2, BATCH_TIMEOUT);
+        add("first", XML);
+        add("second", XML);
+
+        Assert.assertEquals(1, synapseEnvironment.batches.size());
+        assertOutcomes(false, "first", "second");
+    }
+
+    /**
+     * Test that closing the injector injects the current batch, and fails the messages added afterwards without a
+     * batch context.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testClose() throws Exception {
+        injector = createInjector(10, BATCH_TIMEOUT);
+        add("first", XML);
+        injector.close();
+        Assert.assertEquals(1, synapseEnvironment.batches.size());
+        assertOutcomes(true, "first");
+
+        add("late", XML);
+        assertOutcomes(false, "late");
+        Assert.assertFalse(batchContexts.containsKey("late"));
+        Assert.assertEquals(1, synapseEnvironment.batches.size());
+    }
+
+    /**
+     * Test that the batches completed by other threads while a batch is mediated are mediated in the order they are
+     * completed.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBatchOrder() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        synapseEnvironment.sequence = msgCtx -> release.await(10, TimeUnit.SECONDS);
+        injector = createInjector(1, BATCH_TIMEOUT);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            String record = "record-" + i;
+            Thread thread = new Thread(() -> add(record, XML));
+            threads.add(thread);
+            thread.start();
+            if (i == 0) {
+                waitFor(() -> synapseEnvironment.mediating > 0);
+            } else {
+                // the batch of the thread is completed, and it waits for the batches completed before it
+                waitFor(() -> thread.getState() == Thread.State.BLOCKED);
+            }
+        }
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join(10000);
+        }
+
+        List<String> records = new ArrayList<>();
+        for (InjectedBatch batch : synapseEnvironment.batches) {
+            records.addAll(batch.records);
+        }
+        Assert.assertEquals(Arrays.asList("record-0", "record-1", "record-2", "record-3", "record-4"), records);
+        Assert.assertEquals(5, outcomes.size());
+    }
+
+    private MicroBatchInjector createInjector(int batchSize, long batchTimeout) {
+        return new MicroBatchInjector("testBatchInjector", SEQUENCE, null, synapseEnvironment, batchSize,
+                                      batchTimeout);
+    }
+
+    private void add(String record, String contentType) {
+        String payload = SOAP.equals(contentType)
+                ? "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\"><soapenv:Body>"
+                + "<record>" + record + "</record></soapenv:Body></soapenv:Envelope>"
+                : "<record>" + record + "</record>";
+        injector.add(payload.getBytes(StandardCharsets.UTF_8), contentType, (success, batchContext) -> {
+            if (batchContext != null) {
+                batchContexts.put(record, batchContext);
+            }
+            outcomes.put(record, success);
+        });
+    }
+
+    private void assertOutcomes(boolean success, String... records) {
+        for (String record : records) {
+            Assert.assertEquals("The outcome of " + record, Boolean.valueOf(success), outcomes.get(record));
+        }
+    }
+
+    private static void waitFor(Condition condition) throws Exception {
+        for (int i = 0; i < 200 && !condition.isMet(); i++) {
+            Thread.sleep(50);
+        }
+        Assert.assertTrue("The condition is not met in time", condition.isMet());
+    }
+
+    private interface Condition {
+
+        boolean isMet();
+    }
+
+    /**
+     * The mediation of a batch by the sequence.
+     */
+    private interface Sequence {
+
+        void mediate(MessageContext msgCtx) throws Exception;
+    }
+
+    /**
+     * A batch as it is injected to the sequence.
+     */
+    private static class InjectedBatch {
+
+        private final List<String> records = new ArrayList<>();
+        private final Object batchSize;
+        private final String threadName;
+
+        InjectedBatch(MessageContext msgCtx) {
+            OMElement batchElement = msgCtx.getEnvelope().getBody().getFirstElement();
+            Iterator<?> recordElements = batchElement.getChildElements();
+            while (recordElements.hasNext()) {
+                records.add(((OMElement) recordElements.next()).getFirstElement().getText());
+            }
+            this.batchSize = msgCtx.getProperty(MicroBatchInjector.BATCH_SIZE_PROPERTY);
+            this.threadName = Thread.currentThread().getName();
+        }
+    }
+
+    /**
+     * Records the batches injected to the sequence, which are mediated by the given sequence.
+     */
+    private static class TestSynapseEnvironment extends Axis2SynapseEnvironment {
+
+        private final SynapseConfiguration synapseConfiguration;
+        private final List<InjectedBatch> batches = Collections.synchronizedList(new ArrayList<>());
+        private volatile Sequence sequence = msgCtx -> { };
+        private volatile boolean mediationCompleted = true;
+        private volatile int mediating;
+
+        TestSynapseEnvironment(SynapseConfiguration synapseConfiguration) {
+            super(synapseConfiguration);
+            this.synapseConfiguration = synapseConfiguration;
+        }
+
+        @Override
+        public SynapseConfiguration getSynapseConfiguration() {
+            return synapseConfiguration;
+        }
+
+        @Override
+        public MessageContext createMessageContext() {
+            AxisConfiguration axisConfiguration = new AxisConfiguration();
+            axisConfiguration.addMessageBuilder(XML, new ApplicationXMLBuilder());
+            org.apache.axis2.context.MessageContext axis2MsgCtx = new org.apache.axis2.context.MessageContext();
+            axis2MsgCtx.setConfigurationContext(new ConfigurationContext(axisConfiguration));
+            return new Axis2MessageContext(axis2MsgCtx, synapseConfiguration, this);
+        }
+
+        @Override
+        public boolean injectInbound(MessageContext msgCtx, SequenceMediator seq, boolean sequential) {
+            batches.add(new InjectedBatch(msgCtx));
+            mediating++;
+            try {
+                sequence.mediate(msgCtx);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return mediationCompleted;
+        }
+    }
+}
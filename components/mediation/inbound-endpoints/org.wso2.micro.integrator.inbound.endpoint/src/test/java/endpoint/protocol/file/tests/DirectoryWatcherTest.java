@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package endpoint.protocol.file.tests;
+
+import junit.framework.TestCase;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.commons.vfs2.VFS;
+import org.wso2.carbon.inbound.endpoint.protocol.file.DirectoryWatcher;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+public class DirectoryWatcherTest extends TestCase {
+
+    private static final long TIMEOUT = 10000;
+
+    private Path directory;
+    private FileObject directoryObject;
+    private DirectoryWatcher watcher;
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = Files.createTempDirectory("directory-watcher-test");
+        directoryObject = VFS.getManager().resolveFile(directory.toUri().toString());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (watcher != null) {
+            watcher.close();
+        }
+        File[] files = directory.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    /**
+     * Test that the files in the directory when the watch starts are returned by the first poll.
+     *
+     * @throws Exception
+     */
+    public void testExistingFiles() throws Exception {
+        createFile("existing.xml");
+        watcher = DirectoryWatcher.create(directoryObject, null);
+        assertNotNull(watcher);
+        assertEquals(setOf("existing.xml"), getFileNames());
+    }
+
+    /**
+     * Test that a created file matching the pattern is returned once the watch service reports it, and that it is
+     * no longer returned once it is deleted after the processing.
+     *
+     * @throws Exception
+     */
+    public void testCreatedFile() throws Exception {
+        watcher = DirectoryWatcher.create(directoryObject, ".*\\.xml");
+        assertNotNull(watcher);
+        assertTrue(getFileNames().isEmpty());
+
+        createFile("created.txt");
+        createFile("created.xml");
+        createFile("created.xml.lock");
+        assertEquals(setOf("created.xml"), awaitFileNames(1));
+
+        Files.delete(directory.resolve("created.xml"));
+        assertTrue(getFileNames().isEmpty());
+    }
+
+    /**
+     * Test that the directory is listed again when the watch service overflows, so that the files whose events were
+     * dropped are still returned.
+     *
+     * @throws Exception
+     */
+    public void testOverflow() throws Exception {
+        watcher = DirectoryWatcher.create(directoryObject, null);
+        assertNotNull(watcher);
+        assertTrue(getFileNames().isEmpty());
+
+        // more events than the watch key holds before it overflows
+        int fileCount = 1000;
+        for (int i = 0; i < fileCount; i++) {
+            createFile("file-" + i + ".xml");
+        }
+        // let the watch service queue all the events before they are polled
+        Thread.sleep(1000);
+        assertEquals(fileCount, awaitFileNames(fileCount).size());
+    }
+
+    private void createFile(String name) throws Exception {
+        Files.write(directory.resolve(name), "<test/>".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Set<String> awaitFileNames(int count) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        Set<String> fileNames = getFileNames();
+        while (fileNames.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            fileNames = getFileNames();
+        }
+        return fileNames;
+    }
+
+    private Set<String> getFileNames() throws Exception {
+        Set<String> fileNames = new HashSet<>();
+        for (FileObject file : watcher.getFiles(directoryObject)) {
+            fileNames.add(file.getName().getBaseName());
+        }
+        return fileNames;
+    }
+
+    private static Set<String> setOf(String... names) {
+        Set<String> set = new HashSet<>();
+        for (String name : names) {
+            set.add(name);
+        }
+        return set;
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package endpoint.protocol.file.tests;
+
+import junit.framework.TestCase;
+import org.apache.commons.vfs2.FileObject;
+import org.apache.synapse.commons.vfs.VFSConstants;
+import org.wso2.carbon.inbound.endpoint.protocol.file.FileConstants;
+import org.wso2.carbon.inbound.endpoint.protocol.file.FileInjectHandler;
+import org.wso2.carbon.inbound.endpoint.protocol.file.FilePollingConsumer;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class FilePollingConsumerTest extends TestCase {
+
+    private static final String NAME = "fileTest";
+    private static final String WORKER_THREAD_PREFIX = "file-inbound-" + NAME + "-worker-";
+    private static final long TIMEOUT = 10000;
+
+    private Path directory;
+    private FilePollingConsumer consumer;
+    private RecordingInjectHandler injectHandler;
+
+    @Override
+    protected void setUp() throws Exception {
+        directory = Files.createTempDirectory("file-polling-consumer-test");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (injectHandler != null) {
+            injectHandler.release.countDown();
+        }
+        if (consumer != null) {
+            consumer.destroy();
+        }
+        File[] files = directory.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    /**
+     * Test that the files of the directory are handed over to the workers, and each of them is injected once and
+     * deleted after the processing.
+     *
+     * @throws Exception
+     */
+    public void testWorkersProcessFiles() throws Exception {
+        createFiles("a.xml", "b.xml", "c.xml");
+        createConsumer(2, false, 0);
+        injectHandler.release.countDown();
+        awaitProcessed(3);
+        assertEquals(Arrays.asList("a.xml", "b.xml", "c.xml"), injectHandler.getInjectedFiles());
+        for (String threadName : injectHandler.getThreadNames()) {
+            assertTrue(threadName, threadName.startsWith(WORKER_THREAD_PREFIX));
+        }
+    }
+
+    /**
+     * Test that a file which is still being processed by a worker is not dispatched again by the next poll, and that
+     * the poll does not count it as processed.
+     *
+     * @throws Exception
+     */
+    public void testFileInProgressNotDispatchedAgain() throws Exception {
+        createFiles("a.xml");
+        createConsumer(2, false, 1);
+        assertTrue(consumer.execute());
+        assertTrue(injectHandler.started.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        assertFalse(consumer.execute());
+        injectHandler.release.countDown();
+        awaitProcessed(1);
+        assertEquals(Collections.singletonList("a.xml"), injectHandler.getInjectedFiles());
+    }
+
+    /**
+     * Test that the files which do not fit in the busy workers are left for the next poll.
+     *
+     * @throws Exception
+     */
+    public void testBusyWorkers() throws Exception {
+        createFiles("a.xml", "b.xml", "c.xml", "d.xml", "e.xml", "f.xml");
+        createConsumer(2, false, 2);
+        assertTrue(consumer.execute());
+        assertTrue(injectHandler.started.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        // two files are processed by the workers and two are queued, the rest is left in the directory
+        assertEquals(2, injectHandler.getInjectedFiles().size());
+        assertTrue(Files.exists(directory.resolve("e.xml")));
+        assertTrue(Files.exists(directory.resolve("f.xml")));
+        injectHandler.release.countDown();
+        awaitProcessed(6);
+        assertEquals(Arrays.asList("a.xml", "b.xml", "c.xml", "d.xml", "e.xml", "f.xml"),
+                     injectHandler.getInjectedFiles());
+    }
+
+    /**
+     * Test that destroy waits for the files in progress and stops the worker threads.
+     *
+     * @throws Exception
+     */
+    public void testDestroyShutsDownWorkers() throws Exception {
+        createFiles("a.xml", "b.xml");
+        createConsumer(2, false, 2);
+        injectHandler.delay = 200;
+        assertTrue(consumer.execute());
+        assertTrue(injectHandler.started.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        injectHandler.release.countDown();
+        consumer.destroy();
+        consumer = null;
+        assertEquals(2, injectHandler.getCompletedCount());
+        assertFalse(Files.exists(directory.resolve("a.xml")));
+        assertFalse(Files.exists(directory.resolve("b.xml")));
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            assertFalse(thread.getName(), thread.getName().startsWith(WORKER_THREAD_PREFIX) && thread.isAlive());
+        }
+    }
+
+    /**
+     * Test that a file created in a watched directory is processed by a following poll.
+     *
+     * @throws Exception
+     */
+    public void testWatchedDirectory() throws Exception {
+        createConsumer(0, true, 0);
+        injectHandler.release.countDown();
+        assertFalse(consumer.execute());
+        createFiles("created.xml");
+        awaitProcessed(1);
+        assertEquals(Collections.singletonList("created.xml"), injectHandler.getInjectedFiles());
+        assertFalse(consumer.execute());
+    }
+
+    private void createConsumer(int workerCount, boolean watchDirectory, int blockedFiles) {
+        Properties properties = new Properties();
+        properties.setProperty(VFSConstants.TRANSPORT_FILE_FILE_URI, directory.toUri().toString());
+        properties.setProperty(VFSConstants.TRANSPORT_FILE_FILE_NAME_PATTERN, ".*\\.xml");
+        properties.setProperty(VFSConstants.FILE_SORT_PARAM, VFSConstants.FILE_SORT_VALUE_NAME);
+        if (workerCount > 0) {
+            properties.setProperty(FileConstants.FILE_PROCESSING_WORKER_COUNT, String.valueOf(workerCount));
+        }
+        properties.setProperty(FileConstants.WATCH_DIRECTORY, String.valueOf(watchDirectory));
+        consumer = new FilePollingConsumer(properties, NAME, null, 0);
+        injectHandler = new RecordingInjectHandler(properties, blockedFiles);
+        consumer.registerHandler(injectHandler);
+    }
+
+    private void createFiles(String... names) throws Exception {
+        for (String name : names) {
+            Files.write(directory.resolve(name), "<test/>".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Polls the directory until the given number of files are processed and removed from the directory.
+     */
+    private void awaitProcessed(int count) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (System.currentTimeMillis() < deadline) {
+            consumer.execute();
+            if (injectHandler.getCompletedCount() >= count && directory.toFile().list().length == 0) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        fail("Only " + injectHandler.getCompletedCount() + " of " + count + " files were processed");
+    }
+
+    /**
+     * Inject handler which records the injected files, holding the first files until it is released.
+     */
+    private static class RecordingInjectHandler extends FileInjectHandler {
+
+        private final List<String> injectedFiles = new ArrayList<>();
+        private final List<String> threadNames = new ArrayList<>();
+        private final CountDownLatch started;
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile long delay;
+        private int completedCount;
+
+        RecordingInjectHandler(Properties properties, int blockedFiles) {
+            super(null, null, true, null, properties);
+            this.started = new CountDownLatch(blockedFiles);
+        }
+
+        @Override
+        public boolean invoke(Object object, String name, Map<String, Object> transportHeaders) {
+            synchronized (this) {
+                injectedFiles.add(((FileObject) object).getName().getBaseName());
+                threadNames.add(Thread.currentThread().getName());
+            }
+            started.countDown();
+            try {
+                if (!release.await(TIMEOUT, TimeUnit.MILLISECONDS)) {
+                    return false;
+                }
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            synchronized (this) {
+                completedCount++;
+            }
+            return true;
+        }
+
+        synchronized List<String> getInjectedFiles() {
+            List<String> files = new ArrayList<>(injectedFiles);
+            Collections.sort(files);
+            return files;
+        }
+
+        synchronized List<String> getThreadNames() {
+            return new ArrayList<>(threadNames);
+        }
+
+        synchronized int getCompletedCount() {
+            return completedCount;
+        }
+    }
+}
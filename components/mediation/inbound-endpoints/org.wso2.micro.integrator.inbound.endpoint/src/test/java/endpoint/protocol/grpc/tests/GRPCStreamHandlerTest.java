@@ -0,0 +1,334 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package endpoint.protocol.grpc.tests;
+
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.wso2.carbon.inbound.endpoint.protocol.grpc.GRPCInjectHandler;
+import org.wso2.carbon.inbound.endpoint.protocol.grpc.GRPCStreamHandler;
+import org.wso2.carbon.inbound.endpoint.protocol.grpc.util.Event;
+import org.wso2.carbon.inbound.endpoint.protocol.grpc.util.EventServiceGrpc;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GRPCStreamHandlerTest extends TestCase {
+
+    private static final long RESPONSE_TIMEOUT = 60000;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService flowExecutor = Executors.newCachedThreadPool();
+    private Server server;
+    private ManagedChannel channel;
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (channel != null) {
+            channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+        if (server != null) {
+            server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        }
+        flowExecutor.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    /**
+     * Test that the responses of the events are sent over the stream, and the stream is completed once the client
+     * half closes it.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testResponsesAndHalfClose() throws Exception {
+        start(16, RESPONSE_TIMEOUT, (event, responses) -> {
+            responses.onNext(createEvent("response-" + event.getPayload()));
+            return true;
+        });
+        TestClient client = new TestClient(3, true);
+        client.open();
+
+        client.awaitCompletion();
+        Assert.assertEquals(Arrays.asList("response-event-0", "response-event-1", "response-event-2"),
+                            client.responses);
+    }
+
+    /**
+     * Test that all the responses of a flow which responds more than once are sent before the stream is completed.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMultipleResponses() throws Exception {
+        start(16, RESPONSE_TIMEOUT, (event, responses) -> {
+            responses.onNext(createEvent("first-" + event.getPayload()));
+            responses.onNext(createEvent("second-" + event.getPayload()));
+            return true;
+        });
+        TestClient client = new TestClient(2, true);
+        client.open();
+
+        client.awaitCompletion();
+        Assert.assertEquals(Arrays.asList("first-event-0", "second-event-0", "first-event-1", "second-event-1"),
+                            client.responses);
+    }
+
+    /**
+     * Test that the stream is not completed before the response sent by the flow after the client has half closed
+     * the stream.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testResponseAfterHalfClose() throws Exception {
+        CountDownLatch halfClosed = new CountDownLatch(1);
+        start(16, RESPONSE_TIMEOUT, (event, responses) -> {
+            flowExecutor.execute(() -> {
+                try {
+                    halfClosed.await(10, TimeUnit.SECONDS);
+                    // give the server time to receive the half close
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                responses.onNext(createEvent("response-" + event.getPayload()));
+            });
+            return true;
+        });
+        TestClient client = new TestClient(1, true);
+        client.halfClosed = halfClosed;
+        client.open();
+
+        client.awaitCompletion();
+        Assert.assertEquals(Collections.singletonList("response-event-0"), client.responses);
+    }
+
+    /**
+     * Test that the stream of a flow which does not respond is completed once the response timeout expires after
+     * the half close.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testNoResponse() throws Exception {
+        long responseTimeout = 500;
+        start(16, responseTimeout, (event, responses) -> true);
+        TestClient client = new TestClient(2, true);
+        long start = System.currentTimeMillis();
+        client.open();
+
+        client.awaitCompletion();
+        Assert.assertTrue("The stream is completed before the response timeout",
+                          System.currentTimeMillis() - start >= responseTimeout);
+        Assert.assertTrue(client.responses.isEmpty());
+    }
+
+    /**
+     * Test that the stream is completed on the half close when the events are not injected.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testNotInjected() throws Exception {
+        start(16, RESPONSE_TIMEOUT, (event, responses) -> false);
+        TestClient client = new TestClient(2, true);
+        client.open();
+
+        client.awaitCompletion();
+        Assert.assertTrue(client.responses.isEmpty());
+    }
+
+    /**
+     * Test that the client can send only up to the window while the flow does not take the events, and only while
+     * it reads the responses.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFlowControl() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger injected = new AtomicInteger();
+        start(2, RESPONSE_TIMEOUT, (event, responses) -> {
+            injected.incrementAndGet();
+            release.await(10, TimeUnit.SECONDS);
+            responses.onNext(createEvent("response-" + event.getPayload()));
+            return true;
+        });
+        // the client reads only the first response, which is requested when the call starts
+        TestClient client = new TestClient(10, false);
+        client.open();
+
+        waitFor(() -> injected.get() == 1);
+        Thread.sleep(200);
+        Assert.assertEquals("The client sent beyond the window while the flow is blocked", 2, client.sent.get());
+
+        release.countDown();
+        waitFor(() -> injected.get() == 2);
+        Thread.sleep(200);
+        Assert.assertEquals("Events are requested while the client does not read the responses", 2,
+                            client.sent.get());
+        Assert.assertEquals(1, client.responses.size());
+
+        client.requestResponses(10);
+        client.awaitCompletion();
+        Assert.assertEquals(10, client.sent.get());
+        Assert.assertEquals(10, client.responses.size());
+    }
+
+    private void start(int window, long responseTimeout, Flow flow) throws Exception {
+        String name = InProcessServerBuilder.generateName();
+        TestInjectHandler injectHandler = new TestInjectHandler(flow);
+        server = InProcessServerBuilder.forName(name).addService(new EventServiceGrpc.EventServiceImplBase() {
+            @Override
+            public StreamObserver<Event> processStream(StreamObserver<Event> responseObserver) {
+                return new GRPCStreamHandler(injectHandler, (ServerCallStreamObserver<Event>) responseObserver,
+                                             window, responseTimeout, timer);
+            }
+        }).build().start();
+        channel = InProcessChannelBuilder.forName(name).build();
+    }
+
+    private static Event createEvent(String payload) {
+        return Event.newBuilder().setPayload(payload).build();
+    }
+
+    private static void waitFor(Condition condition) throws Exception {
+        for (int i = 0; i < 200 && !condition.isMet(); i++) {
+            Thread.sleep(50);
+        }
+        Assert.assertTrue("The condition is not met in time", condition.isMet());
+    }
+
+    private interface Condition {
+
+        boolean isMet();
+    }
+
+    /**
+     * The mediation flow of an event.
+     */
+    private interface Flow {
+
+        boolean inject(Event event, StreamObserver<Event> responses) throws Exception;
+    }
+
+    private static class TestInjectHandler extends GRPCInjectHandler {
+
+        private final Flow flow;
+
+        TestInjectHandler(Flow flow) {
+            super(null, null, true, false, null);
+            this.flow = flow;
+        }
+
+        @Override
+        public boolean invokeStream(Event receivedEvent, StreamObserver<Event> responseObserver, String streamId) {
+            try {
+                return flow.inject(receivedEvent, responseObserver);
+            } catch (Exception e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    /**
+     * Sends the given number of events while the stream is ready, and half closes the stream after them.
+     */
+    private class TestClient implements ClientResponseObserver<Event, Event> {
+
+        private final int count;
+        private final boolean autoRead;
+        private final AtomicInteger sent = new AtomicInteger();
+        private final List<String> responses = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile Throwable error;
+        private volatile CountDownLatch halfClosed = new CountDownLatch(1);
+        private ClientCallStreamObserver<Event> requestStream;
+
+        TestClient(int count, boolean autoRead) {
+            this.count = count;
+            this.autoRead = autoRead;
+        }
+
+        void open() {
+            EventServiceGrpc.newStub(channel).processStream(this);
+        }
+
+        void requestResponses(int responses) {
+            requestStream.request(responses);
+        }
+
+        void awaitCompletion() throws Exception {
+            Assert.assertTrue("The stream is not completed", completed.await(10, TimeUnit.SECONDS));
+            Assert.assertNull("The stream is failed", error);
+        }
+
+        @Override
+        public void beforeStart(ClientCallStreamObserver<Event> requestStream) {
+            this.requestStream = requestStream;
+            if (!autoRead) {
+                requestStream.disableAutoInboundFlowControl();
+            }
+            requestStream.setOnReadyHandler(this::send);
+        }
+
+        private synchronized void send() {
+            while (sent.get() < count && requestStream.isReady()) {
+                requestStream.onNext(createEvent("event-" + sent.getAndIncrement()));
+            }
+            if (sent.get() == count && halfClosed.getCount() > 0) {
+                requestStream.onCompleted();
+                halfClosed.countDown();
+            }
+        }
+
+        @Override
+        public void onNext(Event response) {
+            responses.add(response.getPayload());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            completed.countDown();
+        }
+
+        @Override
+        public void onCompleted() {
+            completed.countDown();
+        }
+    }
+}
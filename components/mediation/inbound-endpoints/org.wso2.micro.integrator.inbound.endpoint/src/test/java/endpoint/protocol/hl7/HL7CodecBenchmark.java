@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package endpoint.protocol.hl7;
+
+import ca.uhn.hl7v2.model.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.wso2.carbon.inbound.endpoint.protocol.hl7.context.MLLPContext;
+import org.wso2.carbon.inbound.endpoint.protocol.hl7.core.MLLPConstants;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the time taken by the HL7 codec to frame, decode and parse a 2KB and a 200KB request read in
+ * 8KB buffers, with and without the lazy parsing. The benchmark is not run with the unit tests, it can be run with
+ * the main method using the test class path of the module.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HL7CodecBenchmark {
+
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    @Param({"2048", "204800"})
+    private int messageSize;
+
+    @Param({"false", "true"})
+    private boolean lazyParse;
+
+    private ByteBuffer[] reads;
+
+    @Setup
+    public void setUp() {
+        byte[] frame = createFrame(createMessage(messageSize));
+        reads = new ByteBuffer[(frame.length + READ_BUFFER_SIZE - 1) / READ_BUFFER_SIZE];
+        for (int i = 0; i < reads.length; i++) {
+            int offset = i * READ_BUFFER_SIZE;
+            reads[i] = ByteBuffer.wrap(frame, offset, Math.min(READ_BUFFER_SIZE, frame.length - offset)).slice();
+        }
+    }
+
+    @Benchmark
+    public Message decode() throws Exception {
+        MLLPContext context = new MLLPContext(null, MLLPConstants.UTF8_CHARSET.newDecoder(), true, false, null,
+                                              null);
+        context.setLazyParse(lazyParse);
+        for (ByteBuffer read : reads) {
+            // the codec consumes the buffer, hence each invocation reads a view of it
+            context.getCodec().decode(read.duplicate(), context);
+        }
+        return context.getHl7Message();
+    }
+
+    private static String createMessage(int size) {
+        StringBuilder message = new StringBuilder(size + 128)
+                .append("MSH|^~\\&|SENDER|HOSPITAL|RECEIVER|HOSPITAL|20200101120000||ADT^A01|MSG00001|P|2.5\r")
+                .append("EVN|A01|20200101120000\r")
+                .append("PID|1||12345^^^HOSPITAL^MR||Doe^John||19800101|M\r")
+                .append("PV1|1|I|WARD^101^1\r");
+        for (int i = 1; message.length() < size; i++) {
+            message.append("OBX|").append(i).append("|NM|8867-4^Heart rate^LN||").append(60 + i % 40)
+                    .append("|/min|60-100|N|||F\r");
+        }
+        return message.toString();
+    }
+
+    private static byte[] createFrame(String message) {
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        frame.write(MLLPConstants.HL7_HEADER, 0, MLLPConstants.HL7_HEADER.length);
+        byte[] content = message.getBytes(MLLPConstants.UTF8_CHARSET);
+        frame.write(content, 0, content.length);
+        frame.write(MLLPConstants.HL7_TRAILER, 0, MLLPConstants.HL7_TRAILER.length);
+        return frame.toByteArray();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(HL7CodecBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+}
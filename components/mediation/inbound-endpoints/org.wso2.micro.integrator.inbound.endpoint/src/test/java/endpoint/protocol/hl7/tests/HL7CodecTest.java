@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package endpoint.protocol.hl7.tests;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.wso2.carbon.inbound.endpoint.protocol.hl7.codec.HL7Codec;
+import org.wso2.carbon.inbound.endpoint.protocol.hl7.context.MLLPContext;
+import org.wso2.carbon.inbound.endpoint.protocol.hl7.core.MLLPConstants;
+import org.wso2.carbon.inbound.endpoint.protocol.hl7.core.MLLProtocolException;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class HL7CodecTest extends TestCase {
+
+    private static final String MESSAGE = "MSH|^~\\&|SENDER|HOSPITAL|RECEIVER|HOSPITAL|20200101120000||ADT^A01|"
+            + "MSG00001|P|2.5\r"
+            + "EVN|A01|20200101120000\r"
+            + "PID|1||12345^^^HOSPITAL^MR||Müller^Jürgen||19800101|M\r"
+            + "NTE|1||日本語のコメント";
+
+    /**
+     * Test decoding a frame read at once.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testDecodeSingleRead() throws Exception {
+        byte[] frame = createFrame(MESSAGE);
+        MLLPContext context = decode(frame, frame.length);
+        assertDecoded(context);
+    }
+
+    /**
+     * Test decoding a frame split into many small reads.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testDecodeSplitContent() throws Exception {
+        byte[] frame = createFrame(MESSAGE);
+        for (int readSize = 1; readSize <= 16; readSize++) {
+            MLLPContext context = decode(frame, readSize);
+            Assert.assertEquals("Invalid message decoded from reads of " + readSize + " bytes", MESSAGE,
+                                context.getRawMessage());
+        }
+    }
+
+    /**
+     * Test decoding a frame with the trailer split between two reads.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testDecodeSplitTrailer() throws Exception {
+        byte[] frame = createFrame(MESSAGE);
+        MLLPContext context = decodeParts(Arrays.copyOfRange(frame, 0, frame.length - 1),
+                                          Arrays.copyOfRange(frame, frame.length - 1, frame.length));
+        assertDecoded(context);
+    }
+
+    /**
+     * Test decoding a frame with the trailer at the start of a read.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testDecodeTrailerAtStartOfRead() throws Exception {
+        byte[] frame = createFrame(MESSAGE);
+        MLLPContext context = decodeParts(Arrays.copyOfRange(frame, 0, frame.length - 2),
+                                          Arrays.copyOfRange(frame, frame.length - 2, frame.length));
+        assertDecoded(context);
+    }
+
+    /**
+     * Test decoding a frame with the first byte of the trailer at the end of a read and the segment separator
+     * before it in the previous read.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testDecodeSplitTrailerAtStartOfRead() throws Exception {
+        byte[] frame = createFrame(MESSAGE);
+        MLLPContext context = decodeParts(Arrays.copyOfRange(frame, 0, frame.length - 2),
+                                          Arrays.copyOfRange(frame, frame.length - 2, frame.length - 1),
+                                          Arrays.copyOfRange(frame, frame.length - 1, frame.length));
+        assertDecoded(context);
+    }
+
+    /**
+     * Test decoding a frame with multibyte characters split between two reads.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testDecodeSplitMultibyteCharacter() throws Exception {
+        byte[] frame = createFrame(MESSAGE);
+        byte[] name = "Müller".getBytes(MLLPConstants.UTF8_CHARSET);
+        byte[] comment = "日本".getBytes(MLLPConstants.UTF8_CHARSET);
+        // split after the first byte of the two byte character
+        int twoByteSplit = indexOf(frame, name) + 2;
+        MLLPContext context = decodeParts(Arrays.copyOfRange(frame, 0, twoByteSplit),
+                                          Arrays.copyOfRange(frame, twoByteSplit, frame.length));
+        assertDecoded(context);
+        // split the three byte character after each of its bytes, in three reads
+        int threeByteSplit = indexOf(frame, comment) + 3;
+        context = decodeParts(Arrays.copyOfRange(frame, 0, threeByteSplit + 1),
+                              Arrays.copyOfRange(frame, threeByteSplit + 1, threeByteSplit + 2),
+                              Arrays.copyOfRange(frame, threeByteSplit + 2, frame.length));
+        assertDecoded(context);
+    }
+
+    /**
+     * Test that a frame without the header is rejected.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testDecodeMissingHeader() throws Exception {
+        byte[] frame = createFrame(MESSAGE);
+        try {
+            decodeParts(Arrays.copyOfRange(frame, 1, frame.length));
+            Assert.fail("A frame without the header is decoded");
+        } catch (MLLProtocolException e) {
+            // expected
+        }
+    }
+
+    private static void assertDecoded(MLLPContext context) {
+        Assert.assertTrue("The frame is not read completely", context.getCodec().isReadComplete());
+        Assert.assertEquals(MESSAGE, context.getRawMessage());
+        Assert.assertNotNull("The message is not parsed", context.getHl7Message());
+        Assert.assertEquals("The request buffers are not released", 0, context.getRequestLength());
+    }
+
+    /**
+     * Decodes the frame read in chunks of the given size.
+     */
+    private static MLLPContext decode(byte[] frame, int readSize) throws Exception {
+        byte[][] parts = new byte[(frame.length + readSize - 1) / readSize][];
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = Arrays.copyOfRange(frame, i * readSize, Math.min(frame.length, (i + 1) * readSize));
+        }
+        return decodeParts(parts);
+    }
+
+    /**
+     * Decodes the given reads the way the source handler does, a read retained by the context is not reused.
+     */
+    private static MLLPContext decodeParts(byte[]... parts) throws Exception {
+        MLLPContext context = new MLLPContext(null, MLLPConstants.UTF8_CHARSET.newDecoder(), true, false, null,
+                                              null);
+        HL7Codec codec = context.getCodec();
+        for (byte[] part : parts) {
+            Assert.assertFalse("The frame is read completely before the last read", codec.isReadComplete());
+            ByteBuffer buffer = ByteBuffer.wrap(part);
+            codec.decode(buffer, context);
+            Assert.assertFalse("The read is not consumed", buffer.hasRemaining());
+        }
+        return context;
+    }
+
+    private static byte[] createFrame(String message) {
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        frame.write(MLLPConstants.HL7_HEADER, 0, MLLPConstants.HL7_HEADER.length);
+        byte[] content = (message + "\r").getBytes(MLLPConstants.UTF8_CHARSET);
+        frame.write(content, 0, content.length);
+        frame.write(MLLPConstants.HL7_TRAILER, 0, MLLPConstants.HL7_TRAILER.length);
+        return frame.toByteArray();
+    }
+
+    private static int indexOf(byte[] bytes, byte[] target) {
+        for (int i = 0; i <= bytes.length - target.length; i++) {
+            if (Arrays.equals(Arrays.copyOfRange(bytes, i, i + target.length), target)) {
+                return i;
+            }
+        }
+        throw new AssertionError("Bytes not found");
+    }
+}
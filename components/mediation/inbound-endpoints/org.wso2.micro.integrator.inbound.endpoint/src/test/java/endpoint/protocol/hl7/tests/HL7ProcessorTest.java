@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package endpoint.protocol.hl7.tests;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import org.apache.http.nio.reactor.EventMask;
+import org.apache.http.nio.reactor.IOSession;
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.inbound.InboundProcessorParams;
+import org.junit.Test;
+import org.wso2.carbon.inbound.endpoint.protocol.hl7.codec.HL7Codec;
+import org.wso2.carbon.inbound.endpoint.protocol.hl7.context.MLLPContext;
+import org.wso2.carbon.inbound.endpoint.protocol.hl7.core.CallableTask;
+import org.wso2.carbon.inbound.endpoint.protocol.hl7.core.HL7Processor;
+import org.wso2.carbon.inbound.endpoint.protocol.hl7.core.MLLPConstants;
+import org.wso2.carbon.inbound.endpoint.protocol.hl7.util.HL7MessageUtils;
+
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HL7ProcessorTest extends TestCase {
+
+    private static final String MESSAGE = "MSH|^~\\&|SENDER|HOSPITAL|RECEIVER|HOSPITAL|20200101120000||ADT^A01|"
+            + "MSG00001|P|2.5\r"
+            + "EVN|A01|20200101120000\r"
+            + "PID|1||12345^^^HOSPITAL^MR||Doe^John||19800101|M";
+
+    /**
+     * Test that the ACK is requested once the message is accepted by the workers in the auto ack mode.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testAckRequestedAfterSubmit() throws Exception {
+        HL7Processor processor = createProcessor();
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            AtomicInteger outputRequests = new AtomicInteger();
+            MLLPContext context = createContext(outputRequests);
+            processor.submit(context, new BlockingTask(release));
+            Assert.assertEquals("The response is not requested once", 1, outputRequests.get());
+            Assert.assertFalse("An accepted message is rejected", context.isNackMode());
+            Assert.assertTrue(encodeResponse(context).contains("MSA|AA|MSG00001"));
+        } finally {
+            release.countDown();
+            processor.destroy();
+        }
+    }
+
+    /**
+     * Test that a message rejected by a full worker queue gets the NACK alone, and the response is requested once.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRejectedMessageGetsOnlyNack() throws Exception {
+        HL7Processor processor = createProcessor();
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // the first message occupies the only worker and the second one fills the queue
+            processor.submit(createContext(new AtomicInteger()), new BlockingTask(release));
+            processor.submit(createContext(new AtomicInteger()), new BlockingTask(release));
+
+            AtomicInteger outputRequests = new AtomicInteger();
+            MLLPContext context = createContext(outputRequests);
+            processor.submit(context, new BlockingTask(release));
+            Assert.assertEquals("The response is not requested once", 1, outputRequests.get());
+            Assert.assertTrue("The rejected message is not NACKed", context.isNackMode());
+            Assert.assertEquals(1, processor.getWorkerPool().getRejectedCount());
+
+            release.countDown();
+            for (int i = 0; i < 100 && processor.getWorkerPool().getCompletedCount() < 2; i++) {
+                Thread.sleep(50);
+            }
+            Assert.assertEquals(2, processor.getWorkerPool().getCompletedCount());
+            Assert.assertEquals("The response of the rejected message is requested again", 1, outputRequests.get());
+            Assert.assertTrue(encodeResponse(context).contains("MSA|AE|MSG00001"));
+        } finally {
+            release.countDown();
+            processor.destroy();
+        }
+    }
+
+    private static HL7Processor createProcessor() {
+        Properties properties = new Properties();
+        properties.setProperty(MLLPConstants.PARAM_HL7_AUTO_ACK, "true");
+        properties.setProperty(MLLPConstants.PARAM_HL7_TIMEOUT, "10000");
+        properties.setProperty(MLLPConstants.PARAM_HL7_WORKER_POOL_SIZE, "1");
+        properties.setProperty(MLLPConstants.PARAM_HL7_WORKER_QUEUE_SIZE, "1");
+        InboundProcessorParams params = new InboundProcessorParams();
+        params.setName("testHL7Processor");
+        params.setProperties(properties);
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put(MLLPConstants.INBOUND_PARAMS, params);
+        return new HL7Processor(parameters);
+    }
+
+    /**
+     * Creates the context of a read request, over a session which counts the requests to write the response.
+     */
+    private static MLLPContext createContext(AtomicInteger outputRequests) throws Exception {
+        IOSession session = (IOSession) Proxy.newProxyInstance(
+                HL7ProcessorTest.class.getClassLoader(), new Class[]{IOSession.class}, (proxy, method, args) -> {
+                    if ("setEvent".equals(method.getName()) && (Integer) args[0] == EventMask.WRITE) {
+                        outputRequests.incrementAndGet();
+                    }
+                    return null;
+                });
+        MLLPContext context = new MLLPContext(session, MLLPConstants.UTF8_CHARSET.newDecoder(), true, false, null,
+                                              null);
+        context.setHl7Message(HL7MessageUtils.parse(MESSAGE, false));
+        context.getCodec().setState(HL7Codec.READ_COMPLETE);
+        return context;
+    }
+
+    private static String encodeResponse(MLLPContext context) throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        context.getCodec().encode(buffer, context);
+        return MLLPConstants.UTF8_CHARSET.decode(buffer).toString();
+    }
+
+    /**
+     * Holds a worker until it is released.
+     */
+    private static class BlockingTask extends CallableTask {
+
+        private final CountDownLatch release;
+
+        BlockingTask(CountDownLatch release) {
+            super((MessageContext) Proxy.newProxyInstance(HL7ProcessorTest.class.getClassLoader(),
+                                                          new Class[]{MessageContext.class},
+                                                          (proxy, method, args) -> null), null);
+            this.release = release;
+        }
+
+        @Override
+        public Boolean call() throws Exception {
+            return release.await(10, TimeUnit.SECONDS);
+        }
+    }
+}
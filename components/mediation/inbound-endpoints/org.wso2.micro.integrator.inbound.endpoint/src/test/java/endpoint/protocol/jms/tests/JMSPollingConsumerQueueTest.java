@@ -23,15 +23,24 @@ import endpoint.protocol.jms.JMSTestsUtils;
 import junit.framework.Assert;
 import junit.framework.TestCase;
 import org.apache.activemq.command.ActiveMQDestination;
+import org.apache.activemq.command.ActiveMQQueue;
 import org.apache.activemq.command.ActiveMQTextMessage;
 import org.junit.Test;
 import org.wso2.carbon.inbound.endpoint.common.InboundTask;
 import org.wso2.carbon.inbound.endpoint.protocol.jms.JMSConstants;
+import org.wso2.carbon.inbound.endpoint.protocol.jms.JMSInjectHandler;
 import org.wso2.carbon.inbound.endpoint.protocol.jms.JMSPollingConsumer;
 import org.wso2.carbon.inbound.endpoint.protocol.jms.JMSTask;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Properties;
+import java.util.Set;
+import javax.jms.JMSException;
 import javax.jms.Message;
+import javax.jms.TextMessage;
 
 public class JMSPollingConsumerQueueTest extends TestCase {
 
@@ -44,6 +53,8 @@ public class JMSPollingConsumerQueueTest extends TestCase {
             + "  <soapenv:Header/>" + "  <soapenv:Body>" + "    <ser:getQuote> " + "      <ser:request>"
             + "        <xsd:symbol>IBM</xsd:symbol>" + "      </ser:request>" + "    </ser:getQuote>"
             + "  </soapenv:Body>" + "</soapenv:Envelope>";
+    private static final String RECEIVE_TIMEOUT = "100";
+    private static final int MAX_POLLS = 50;
 
     /**
      * Test Run Inbound Task to poll messages from Queue
@@ -153,4 +164,168 @@ public class JMSPollingConsumerQueueTest extends TestCase {
         }
     }
 
+    /**
+     * Test that a polling cycle receives at most MaxMessagesPerPoll messages, and the rest are received by the
+     * following cycles.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMaxMessagesPerPoll() throws Exception {
+        String queueName = "testQueueMaxMessagesPerPoll";
+        Properties jmsProperties = JMSTestsUtils.getJMSPropertiesForDestination(queueName, PROVIDER_URL, true);
+        jmsProperties.put(JMSConstants.RECEIVER_TIMEOUT, RECEIVE_TIMEOUT);
+        jmsProperties.put(JMSConstants.MAX_MESSAGES_PER_POLL, "2");
+        JMSBrokerController brokerController = new JMSBrokerController(PROVIDER_URL, jmsProperties);
+        JMSPollingConsumer jmsPollingConsumer = null;
+        try {
+            brokerController.startProcess();
+            brokerController.connect(queueName, true);
+            for (int i = 1; i <= 5; i++) {
+                brokerController.pushMessage("message" + i);
+            }
+            jmsPollingConsumer = new JMSPollingConsumer(jmsProperties, INTERVAL, INBOUND_EP_NAME);
+            TestInjectHandler injectHandler = new TestInjectHandler(jmsProperties);
+            jmsPollingConsumer.registerHandler(injectHandler);
+            for (int i = 0; i < MAX_POLLS && injectHandler.getReceived().size() < 5; i++) {
+                int receivedBefore = injectHandler.getReceived().size();
+                jmsPollingConsumer.poll();
+                Assert.assertTrue("More than MaxMessagesPerPoll messages are received in a polling cycle",
+                                  injectHandler.getReceived().size() - receivedBefore <= 2);
+            }
+            Assert.assertEquals("The messages are not received in the order",
+                                "[message1, message2, message3, message4, message5]",
+                                injectHandler.getReceived().toString());
+        } finally {
+            if (jmsPollingConsumer != null) {
+                jmsPollingConsumer.destroy();
+            }
+            brokerController.disconnect();
+            brokerController.stopProcess();
+        }
+    }
+
+    /**
+     * Test that the client acknowledgements are batched by AckBatchSize, and a partial batch is acknowledged at the
+     * end of the polling cycle.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testAckBatchSize() throws Exception {
+        String queueName = "testQueueAckBatchSize";
+        Properties jmsProperties = JMSTestsUtils.getJMSPropertiesForDestination(queueName, PROVIDER_URL, true);
+        jmsProperties.put(JMSConstants.SESSION_ACK, "CLIENT_ACKNOWLEDGE");
+        jmsProperties.put(JMSConstants.RECEIVER_TIMEOUT, RECEIVE_TIMEOUT);
+        jmsProperties.put(JMSConstants.ACK_BATCH_SIZE, "2");
+        JMSBrokerController brokerController = new JMSBrokerController(PROVIDER_URL, jmsProperties);
+        JMSPollingConsumer jmsPollingConsumer = null;
+        try {
+            brokerController.startProcess();
+            brokerController.connect(queueName, true);
+            for (int i = 1; i <= 3; i++) {
+                brokerController.pushMessage("message" + i);
+            }
+            jmsPollingConsumer = new JMSPollingConsumer(jmsProperties, INTERVAL, INBOUND_EP_NAME);
+            TestInjectHandler injectHandler = new TestInjectHandler(jmsProperties);
+            jmsPollingConsumer.registerHandler(injectHandler);
+            for (int i = 0; i < MAX_POLLS && injectHandler.getReceived().size() < 3; i++) {
+                jmsPollingConsumer.poll();
+            }
+            Assert.assertEquals("[message1, message2, message3]", injectHandler.getReceived().toString());
+            // the consumer is cached, hence an unacknowledged message would remain in the queue
+            Assert.assertEquals("The last partial batch is not acknowledged", 0, getQueueSize(brokerController,
+                                                                                               queueName));
+        } finally {
+            if (jmsPollingConsumer != null) {
+                jmsPollingConsumer.destroy();
+            }
+            brokerController.disconnect();
+            brokerController.stopProcess();
+        }
+    }
+
+    /**
+     * Test that a failed message recovers the session, hence the messages of its batch which are not acknowledged
+     * yet are redelivered with it.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testAckBatchSizeWithFailure() throws Exception {
+        String queueName = "testQueueAckBatchSizeFailure";
+        Properties jmsProperties = JMSTestsUtils.getJMSPropertiesForDestination(queueName, PROVIDER_URL, true);
+        jmsProperties.put(JMSConstants.SESSION_ACK, "CLIENT_ACKNOWLEDGE");
+        jmsProperties.put(JMSConstants.RECEIVER_TIMEOUT, RECEIVE_TIMEOUT);
+        jmsProperties.put(JMSConstants.ACK_BATCH_SIZE, "3");
+        JMSBrokerController brokerController = new JMSBrokerController(PROVIDER_URL, jmsProperties);
+        JMSPollingConsumer jmsPollingConsumer = null;
+        try {
+            brokerController.startProcess();
+            brokerController.connect(queueName, true);
+            for (int i = 1; i <= 3; i++) {
+                brokerController.pushMessage("message" + i);
+            }
+            jmsPollingConsumer = new JMSPollingConsumer(jmsProperties, INTERVAL, INBOUND_EP_NAME);
+            TestInjectHandler injectHandler = new TestInjectHandler(jmsProperties);
+            injectHandler.failOnce("message2");
+            jmsPollingConsumer.registerHandler(injectHandler);
+            for (int i = 0; i < MAX_POLLS && getQueueSize(brokerController, queueName) > 0; i++) {
+                jmsPollingConsumer.poll();
+            }
+            List<String> received = injectHandler.getReceived();
+            Assert.assertEquals("The message of the failed batch is not redelivered", 2,
+                                Collections.frequency(received, "message1"));
+            Assert.assertEquals("The failed message is not redelivered", 2,
+                                Collections.frequency(received, "message2"));
+            Assert.assertEquals(1, Collections.frequency(received, "message3"));
+            Assert.assertEquals(0, getQueueSize(brokerController, queueName));
+        } finally {
+            if (jmsPollingConsumer != null) {
+                jmsPollingConsumer.destroy();
+            }
+            brokerController.disconnect();
+            brokerController.stopProcess();
+        }
+    }
+
+    /**
+     * Returns the no. of messages in the queue which are not acknowledged yet, including the delivered ones.
+     */
+    private static long getQueueSize(JMSBrokerController brokerController, String queueName) throws Exception {
+        return brokerController.getBrokerService().getDestination(new ActiveMQQueue(queueName))
+                .getDestinationStatistics().getMessages().getCount();
+    }
+
+    /**
+     * Records the text of the injected messages, and fails the first injection of the given messages.
+     */
+    private static class TestInjectHandler extends JMSInjectHandler {
+
+        private final List<String> received = new ArrayList<>();
+        private final Set<String> failures = new HashSet<>();
+
+        TestInjectHandler(Properties jmsProperties) {
+            super(null, null, true, null, jmsProperties);
+        }
+
+        void failOnce(String text) {
+            failures.add(text);
+        }
+
+        List<String> getReceived() {
+            return received;
+        }
+
+        @Override
+        public boolean invoke(Object object, String name) {
+            try {
+                String text = ((TextMessage) object).getText();
+                received.add(text);
+                return !failures.remove(text);
+            } catch (JMSException e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
 }
@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package endpoint.protocol.kafka.tests;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.consumer.RetriableCommitFailedException;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+import org.wso2.carbon.inbound.endpoint.protocol.kafka.InjectHandler;
+import org.wso2.carbon.inbound.endpoint.protocol.kafka.KAFKABatchConsumer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+public class KAFKABatchConsumerTest extends TestCase {
+
+    private static final String INBOUND_EP_NAME = "testKafkaBatch";
+    private static final String TOPIC = "testTopic";
+    private static final TopicPartition PARTITION = new TopicPartition(TOPIC, 0);
+    private static final long RETRY_INTERVAL = 1000;
+    private static final long TIMEOUT = 10000;
+
+    /**
+     * Test that the partition is paused while its records are mediated, and the offsets are committed after the
+     * mediation.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testPauseAndCommit() throws Exception {
+        TestConsumer mockConsumer = new TestConsumer();
+        BlockingInjectHandler injectHandler = new BlockingInjectHandler();
+        KAFKABatchConsumer batchConsumer = createBatchConsumer(mockConsumer, injectHandler);
+        mockConsumer.schedulePollTask(() -> {
+            mockConsumer.rebalance(Collections.singletonList(PARTITION));
+            mockConsumer.updateBeginningOffsets(Collections.singletonMap(PARTITION, 0L));
+            addRecords(mockConsumer, 0, "a", "b", "c");
+        });
+        try {
+            batchConsumer.execute();
+            Assert.assertTrue("The records are not mediated",
+                              injectHandler.mediationStarted.await(TIMEOUT, TimeUnit.MILLISECONDS));
+            // the partition is paused by the polling thread after the records are handed over to the lane
+            waitFor(() -> Collections.singleton(PARTITION).equals(mockConsumer.paused()));
+            Assert.assertEquals("The offset is committed before the mediation", -1, committedOffset(mockConsumer));
+            injectHandler.mediationReleased.countDown();
+            waitFor(() -> committedOffset(mockConsumer) == 3);
+            waitFor(() -> mockConsumer.paused().isEmpty());
+            Assert.assertEquals("a,b,c", String.join(",", injectHandler.mediated));
+        } finally {
+            injectHandler.mediationReleased.countDown();
+            batchConsumer.shutdown();
+        }
+        Assert.assertTrue("The consumer is not closed", mockConsumer.isClosed());
+    }
+
+    /**
+     * Test that the offset is not committed past a record which could not be injected, and that the record is
+     * consumed again after the retry interval.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFailedRecordIsConsumedAgain() throws Exception {
+        TestConsumer mockConsumer = new TestConsumer();
+        TestInjectHandler injectHandler = new TestInjectHandler("fail");
+        KAFKABatchConsumer batchConsumer = createBatchConsumer(mockConsumer, injectHandler);
+        mockConsumer.schedulePollTask(() -> {
+            mockConsumer.rebalance(Collections.singletonList(PARTITION));
+            mockConsumer.updateBeginningOffsets(Collections.singletonMap(PARTITION, 0L));
+            addRecords(mockConsumer, 0, "a", "fail", "b");
+        });
+        try {
+            batchConsumer.execute();
+            waitFor(() -> committedOffset(mockConsumer) == 1);
+            Assert.assertEquals("The records after the failed record are mediated", "a,fail",
+                                String.join(",", injectHandler.mediated));
+            Assert.assertEquals("The partition is resumed before the retry interval",
+                                Collections.singleton(PARTITION), mockConsumer.paused());
+            // the mock consumer returns a record once, so the records are added again after the rewind
+            waitFor(() -> mockConsumer.position(PARTITION) == 1 && mockConsumer.paused().isEmpty());
+            addRecords(mockConsumer, 1, "fail", "b");
+            waitFor(() -> committedOffset(mockConsumer) == 3);
+            Assert.assertEquals("a,fail,fail,b", String.join(",", injectHandler.mediated));
+        } finally {
+            batchConsumer.shutdown();
+        }
+    }
+
+    /**
+     * Test that the shutdown waits for the record being mediated, and commits the offsets of the mediated records.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCommitOnShutdown() throws Exception {
+        TestConsumer mockConsumer = new TestConsumer();
+        BlockingInjectHandler injectHandler = new BlockingInjectHandler();
+        KAFKABatchConsumer batchConsumer = createBatchConsumer(mockConsumer, injectHandler);
+        mockConsumer.schedulePollTask(() -> {
+            mockConsumer.rebalance(Collections.singletonList(PARTITION));
+            mockConsumer.updateBeginningOffsets(Collections.singletonMap(PARTITION, 0L));
+            addRecords(mockConsumer, 0, "a", "b", "c");
+        });
+        batchConsumer.execute();
+        Assert.assertTrue("The records are not mediated",
+                          injectHandler.mediationStarted.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        Thread shutdownThread = new Thread(batchConsumer::shutdown);
+        shutdownThread.start();
+        Thread.sleep(100);
+        Assert.assertFalse("The consumer is closed while a record is mediated", mockConsumer.isClosed());
+        injectHandler.mediationReleased.countDown();
+        shutdownThread.join(TIMEOUT);
+        Assert.assertTrue("The consumer is not closed", mockConsumer.isClosed());
+        // the records not mediated before the shutdown are consumed again by the next consumer
+        Assert.assertFalse(injectHandler.mediated.isEmpty());
+        Assert.assertEquals(injectHandler.mediated.size(), committedOffset(mockConsumer));
+    }
+
+    /**
+     * Test that the offsets of a failed asynchronous commit are committed again by the next commit.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFailedCommitIsRetried() throws Exception {
+        TestConsumer mockConsumer = new TestConsumer();
+        mockConsumer.failedCommits = 1;
+        TestInjectHandler injectHandler = new TestInjectHandler(null);
+        KAFKABatchConsumer batchConsumer = createBatchConsumer(mockConsumer, injectHandler);
+        mockConsumer.schedulePollTask(() -> {
+            mockConsumer.rebalance(Collections.singletonList(PARTITION));
+            mockConsumer.updateBeginningOffsets(Collections.singletonMap(PARTITION, 0L));
+            addRecords(mockConsumer, 0, "a", "b", "c");
+        });
+        try {
+            batchConsumer.execute();
+            waitFor(() -> committedOffset(mockConsumer) == 3);
+            Assert.assertEquals(0, mockConsumer.failedCommits);
+            Assert.assertEquals("a,b,c", String.join(",", injectHandler.mediated));
+        } finally {
+            batchConsumer.shutdown();
+        }
+    }
+
+    private static KAFKABatchConsumer createBatchConsumer(MockConsumer<byte[], byte[]> mockConsumer,
+                                                          InjectHandler injectHandler) {
+        return new KAFKABatchConsumer(new Properties(), Collections.singletonList(TOPIC), null, injectHandler,
+                                      INBOUND_EP_NAME, 10, 2, RETRY_INTERVAL) {
+            @Override
+            protected Consumer<byte[], byte[]> createConsumer() {
+                return mockConsumer;
+            }
+        };
+    }
+
+    private static void addRecords(MockConsumer<byte[], byte[]> mockConsumer, long offset, String... values) {
+        for (String value : values) {
+            mockConsumer.addRecord(new ConsumerRecord<>(TOPIC, PARTITION.partition(), offset++, null,
+                                                        value.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    private static long committedOffset(MockConsumer<byte[], byte[]> mockConsumer) {
+        OffsetAndMetadata offset = mockConsumer.committed(Collections.singleton(PARTITION)).get(PARTITION);
+        return offset == null ? -1 : offset.offset();
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue("Timed out while waiting for the consumer", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * A mock consumer, whose committed offsets can be read after it is closed, and which fails the given number of
+     * asynchronous commits.
+     */
+    private static class TestConsumer extends MockConsumer<byte[], byte[]> {
+
+        private volatile boolean closed;
+
+        private volatile int failedCommits;
+
+        TestConsumer() {
+            super(OffsetResetStrategy.EARLIEST);
+        }
+
+        @Override
+        public synchronized void close() {
+            closed = true;
+        }
+
+        @Override
+        public synchronized void commitAsync(Map<TopicPartition, OffsetAndMetadata> offsets,
+                                             OffsetCommitCallback callback) {
+            if (failedCommits > 0) {
+                failedCommits--;
+                callback.onComplete(offsets, new RetriableCommitFailedException("Commit failed"));
+                return;
+            }
+            super.commitAsync(offsets, callback);
+        }
+
+        boolean isClosed() {
+            return closed;
+        }
+    }
+
+    /**
+     * Blocks the mediation of the records until it is released.
+     */
+    private static class BlockingInjectHandler extends TestInjectHandler {
+
+        private final CountDownLatch mediationStarted = new CountDownLatch(1);
+
+        private final CountDownLatch mediationReleased = new CountDownLatch(1);
+
+        BlockingInjectHandler() {
+            super(null);
+        }
+
+        @Override
+        public boolean invoke(Object object, String name) {
+            mediationStarted.countDown();
+            try {
+                mediationReleased.await(TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.invoke(object, name);
+        }
+    }
+
+    /**
+     * Records the mediated payloads, and fails the first injection of the given payload.
+     */
+    private static class TestInjectHandler implements InjectHandler {
+
+        final List<String> mediated = new CopyOnWriteArrayList<>();
+
+        private String failingPayload;
+
+        TestInjectHandler(String failingPayload) {
+            this.failingPayload = failingPayload;
+        }
+
+        @Override
+        public boolean invoke(Object object, String name) {
+            String payload = new String((byte[]) object, StandardCharsets.UTF_8);
+            mediated.add(payload);
+            if (payload.equals(failingPayload)) {
+                failingPayload = null;
+                return false;
+            }
+            return true;
+        }
+    }
+}
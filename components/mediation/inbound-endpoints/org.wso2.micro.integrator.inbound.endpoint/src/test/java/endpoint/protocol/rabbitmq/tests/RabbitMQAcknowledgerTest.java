@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package endpoint.protocol.rabbitmq.tests;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.wso2.carbon.inbound.endpoint.protocol.rabbitmq.RabbitMQAcknowledger;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RabbitMQAcknowledgerTest extends TestCase {
+
+    private final List<String> operations = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger activeOperations = new AtomicInteger();
+    private final AtomicBoolean concurrentUse = new AtomicBoolean();
+    private final Set<Long> failingSettlements = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Test that the deliveries are acknowledged individually when the multiple acknowledgements are disabled.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSingleAcknowledgement() throws Exception {
+        RabbitMQAcknowledger acknowledger = new RabbitMQAcknowledger(createChannel(), false);
+        acknowledger.received(1);
+        acknowledger.received(2);
+        acknowledger.acknowledge(2);
+        acknowledger.acknowledge(1);
+        Assert.assertEquals(Arrays.asList("ack 2", "ack 1"), operations);
+    }
+
+    /**
+     * Test that the deliveries completed out of order are held until the deliveries before them are acknowledged,
+     * and then acknowledged with a single multiple acknowledgement.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMultipleAcknowledgement() throws Exception {
+        RabbitMQAcknowledger acknowledger = new RabbitMQAcknowledger(createChannel(), true);
+        acknowledger.received(1);
+        acknowledger.received(2);
+        acknowledger.received(3);
+        acknowledger.acknowledge(3);
+        acknowledger.acknowledge(2);
+        Assert.assertTrue("The deliveries are acknowledged before the first delivery", operations.isEmpty());
+        acknowledger.acknowledge(1);
+        acknowledger.received(4);
+        acknowledger.acknowledge(4);
+        Assert.assertEquals(Arrays.asList("ack 3 multiple", "ack 4 multiple"), operations);
+    }
+
+    /**
+     * Test that a rejected delivery releases the acknowledgements held behind it.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRejectReleasesHeldAcknowledgements() throws Exception {
+        RabbitMQAcknowledger acknowledger = new RabbitMQAcknowledger(createChannel(), true);
+        acknowledger.received(1);
+        acknowledger.received(2);
+        acknowledger.received(3);
+        acknowledger.acknowledge(2);
+        acknowledger.reject(1, false);
+        Assert.assertEquals(Arrays.asList("reject 1", "ack 2 multiple"), operations);
+        acknowledger.acknowledge(3);
+        Assert.assertEquals(Arrays.asList("reject 1", "ack 2 multiple", "ack 3 multiple"), operations);
+    }
+
+    /**
+     * Test that the deliveries completed after a delivery waiting for a delayed requeue are acknowledged
+     * individually, and the multiple acknowledgements continue after the requeue.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testDelayedRequeue() throws Exception {
+        RabbitMQAcknowledger acknowledger = new RabbitMQAcknowledger(createChannel(), true);
+        acknowledger.received(1);
+        acknowledger.received(2);
+        acknowledger.received(3);
+        acknowledger.received(4);
+        acknowledger.acknowledge(3);
+        Assert.assertTrue("The delivery is acknowledged before the first delivery", operations.isEmpty());
+        acknowledger.delayRequeue(1);
+        Assert.assertEquals(Collections.singletonList("ack 3"), operations);
+        acknowledger.acknowledge(2);
+        Assert.assertEquals(Arrays.asList("ack 3", "ack 2"), operations);
+        acknowledger.reject(1, true);
+        acknowledger.acknowledge(4);
+        Assert.assertEquals(Arrays.asList("ack 3", "ack 2", "reject 1 requeue", "ack 4 multiple"), operations);
+    }
+
+    /**
+     * Test that a delivery which could not be rejected does not hold the acknowledgements of the deliveries after it.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFailedRejectReleasesHeldAcknowledgements() throws Exception {
+        RabbitMQAcknowledger acknowledger = new RabbitMQAcknowledger(createChannel(), true);
+        failingSettlements.add(1L);
+        acknowledger.received(1);
+        acknowledger.received(2);
+        acknowledger.received(3);
+        acknowledger.acknowledge(2);
+        try {
+            acknowledger.reject(1, true);
+            Assert.fail("The failed rejection is not reported");
+        } catch (IOException e) {
+            // expected
+        }
+        Assert.assertEquals(Collections.singletonList("ack 2 multiple"), operations);
+        acknowledger.acknowledge(3);
+        Assert.assertEquals(Arrays.asList("ack 2 multiple", "ack 3 multiple"), operations);
+    }
+
+    /**
+     * Test that an individual acknowledgement which fails behind a delayed requeue is not retried, and that the other
+     * held deliveries are acknowledged by the next settlement.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFailedAcknowledgementBehindDelayedRequeue() throws Exception {
+        RabbitMQAcknowledger acknowledger = new RabbitMQAcknowledger(createChannel(), true);
+        failingSettlements.add(2L);
+        failingSettlements.add(3L);
+        acknowledger.received(1);
+        acknowledger.received(2);
+        acknowledger.received(3);
+        acknowledger.received(4);
+        acknowledger.acknowledge(2);
+        acknowledger.acknowledge(3);
+        try {
+            acknowledger.delayRequeue(1);
+            Assert.fail("The failed acknowledgement is not reported");
+        } catch (IOException e) {
+            // expected
+        }
+        try {
+            acknowledger.acknowledge(4);
+            Assert.fail("The failed acknowledgement is not reported");
+        } catch (IOException e) {
+            // expected
+        }
+        failingSettlements.clear();
+        acknowledger.reject(1, true);
+        Assert.assertEquals(Arrays.asList("reject 1 requeue", "ack 4 multiple"), operations);
+    }
+
+    /**
+     * Test that the messages published while the deliveries are settled from several threads do not use the channel
+     * concurrently.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testPublishIsSerialized() throws Exception {
+        RabbitMQAcknowledger acknowledger = new RabbitMQAcknowledger(createChannel(), true);
+        int deliveries = 200;
+        for (int i = 1; i <= deliveries; i++) {
+            acknowledger.received(i);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 1; i <= deliveries; i++) {
+                long deliveryTag = i;
+                futures.add(executor.submit(() -> {
+                    acknowledger.publish("errorExchange", "error", new AMQP.BasicProperties(), new byte[0]);
+                    acknowledger.acknowledge(deliveryTag);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertFalse("The channel is used concurrently", concurrentUse.get());
+        Assert.assertTrue(operations.contains("ack " + deliveries + " multiple"));
+        Assert.assertEquals(deliveries, operations.stream().filter("publish errorExchange error"::equals).count());
+    }
+
+    /**
+     * Creates a channel which records the acknowledgements, rejections and publications, and whether it is used by
+     * several threads at once. The settlements of the failing delivery tags fail.
+     */
+    private Channel createChannel() {
+        return (Channel) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Channel.class},
+                (proxy, method, args) -> {
+                    if (activeOperations.incrementAndGet() > 1) {
+                        concurrentUse.set(true);
+                    }
+                    try {
+                        if (method.getName().startsWith("basic") && failingSettlements.contains(args[0])) {
+                            throw new IOException("Could not settle the delivery " + args[0]);
+                        }
+                        switch (method.getName()) {
+                            case "basicAck":
+                                operations.add("ack " + args[0] + ((Boolean) args[1] ? " multiple" : ""));
+                                break;
+                            case "basicReject":
+                                operations.add("reject " + args[0] + ((Boolean) args[1] ? " requeue" : ""));
+                                break;
+                            case "basicPublish":
+                                operations.add("publish " + args[0] + " " + args[1]);
+                                Thread.yield();
+                                break;
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                        return null;
+                    } finally {
+                        activeOperations.decrementAndGet();
+                    }
+                });
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package endpoint.protocol.websocket.tests;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.wso2.carbon.inbound.endpoint.protocol.websocket.InboundWebsocketChannelContext;
+import org.wso2.carbon.inbound.endpoint.protocol.websocket.InboundWebsocketConstants;
+
+import java.nio.charset.StandardCharsets;
+
+public class InboundWebsocketChannelContextTest extends TestCase {
+
+    /**
+     * Test that the frames broadcast to a channel which is not writable are written anyway without a slow consumer
+     * policy.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testNonePolicy() throws Exception {
+        EmbeddedChannel channel = createChannel();
+        InboundWebsocketChannelContext context = createContext(channel,
+                                                               InboundWebsocketConstants.SLOW_CONSUMER_POLICY_NONE);
+        ByteBuf backlog = fillOutboundBuffer(channel);
+        WebSocketFrame frame = createFrame("first");
+        context.writeBroadcastFrame(frame);
+
+        Assert.assertEquals(0, context.getDroppedFrameCount());
+        Assert.assertSame(backlog, channel.readOutbound());
+        Assert.assertSame(frame, channel.readOutbound());
+        channel.finishAndReleaseAll();
+    }
+
+    /**
+     * Test that the frames broadcast to a channel which is not writable are dropped and released with the drop
+     * policy.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testDropPolicy() throws Exception {
+        EmbeddedChannel channel = createChannel();
+        InboundWebsocketChannelContext context = createContext(channel,
+                                                               InboundWebsocketConstants.SLOW_CONSUMER_POLICY_DROP);
+        ByteBuf backlog = fillOutboundBuffer(channel);
+        WebSocketFrame frame = createFrame("first");
+        context.writeBroadcastFrame(frame);
+
+        Assert.assertEquals(1, context.getDroppedFrameCount());
+        Assert.assertEquals("The dropped frame is not released", 0, frame.refCnt());
+        channel.flush();
+        Assert.assertTrue(channel.isWritable());
+        context.flushPendingFrame();
+        Assert.assertSame(backlog, channel.readOutbound());
+        Assert.assertNull("The dropped frame is written", channel.readOutbound());
+
+        WebSocketFrame next = createFrame("second");
+        context.writeBroadcastFrame(next);
+        Assert.assertSame("The frame is not written once the channel is writable", next, channel.readOutbound());
+        channel.finishAndReleaseAll();
+    }
+
+    /**
+     * Test that only the latest frame broadcast to a channel which is not writable is kept with the coalesce policy,
+     * and that it is written once the channel is writable again.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCoalescePolicy() throws Exception {
+        EmbeddedChannel channel = createChannel();
+        InboundWebsocketChannelContext context = createContext(channel,
+                                                               InboundWebsocketConstants.SLOW_CONSUMER_POLICY_COALESCE);
+        ByteBuf backlog = fillOutboundBuffer(channel);
+        WebSocketFrame first = createFrame("first");
+        WebSocketFrame second = createFrame("second");
+        context.writeBroadcastFrame(first);
+        context.writeBroadcastFrame(second);
+
+        Assert.assertEquals(2, context.getDroppedFrameCount());
+        Assert.assertEquals("The replaced frame is not released", 0, first.refCnt());
+        Assert.assertEquals("The latest frame is not kept", 1, second.refCnt());
+        context.flushPendingFrame();
+        Assert.assertFalse("The pending frame is written to a channel which is not writable",
+                           channel.outboundMessages().contains(second));
+
+        channel.flush();
+        context.flushPendingFrame();
+        Assert.assertSame(backlog, channel.readOutbound());
+        Assert.assertSame(second, channel.readOutbound());
+        Assert.assertNull(channel.readOutbound());
+        channel.finishAndReleaseAll();
+    }
+
+    /**
+     * Test that a close frame is written to a channel which is not writable, and that the pending frame is
+     * released when the channel is closed.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCloseFrameAndClosedChannel() throws Exception {
+        EmbeddedChannel channel = createChannel();
+        InboundWebsocketChannelContext context = createContext(channel,
+                                                               InboundWebsocketConstants.SLOW_CONSUMER_POLICY_COALESCE);
+        fillOutboundBuffer(channel);
+        WebSocketFrame pending = createFrame("pending");
+        context.writeBroadcastFrame(pending);
+        CloseWebSocketFrame close = new CloseWebSocketFrame(1001, "shutdown");
+        context.writeBroadcastFrame(close);
+        Assert.assertEquals(1, context.getDroppedFrameCount());
+        Assert.assertTrue("The close frame is not written", channel.outboundMessages().contains(close));
+
+        channel.finishAndReleaseAll();
+        context.flushPendingFrame();
+        Assert.assertEquals("The pending frame of a closed channel is not released", 0, pending.refCnt());
+        WebSocketFrame late = createFrame("late");
+        context.writeBroadcastFrame(late);
+        Assert.assertEquals("The frame broadcast to a closed channel is not released", 0, late.refCnt());
+    }
+
+    private static EmbeddedChannel createChannel() {
+        EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        channel.config().setWriteBufferWaterMark(new WriteBufferWaterMark(8, 16));
+        return channel;
+    }
+
+    private static InboundWebsocketChannelContext createContext(EmbeddedChannel channel, String policy) {
+        InboundWebsocketChannelContext context = new InboundWebsocketChannelContext(
+                channel.pipeline().firstContext());
+        context.setSlowConsumerPolicy(policy);
+        return context;
+    }
+
+    /**
+     * Writes data above the high water mark without flushing it, so that the channel is not writable.
+     */
+    private static ByteBuf fillOutboundBuffer(EmbeddedChannel channel) {
+        ByteBuf backlog = Unpooled.wrappedBuffer(new byte[32]);
+        channel.write(backlog);
+        Assert.assertFalse("The channel is writable", channel.isWritable());
+        return backlog;
+    }
+
+    private static WebSocketFrame createFrame(String text) {
+        return new TextWebSocketFrame(Unpooled.copiedBuffer(text, StandardCharsets.UTF_8));
+    }
+}
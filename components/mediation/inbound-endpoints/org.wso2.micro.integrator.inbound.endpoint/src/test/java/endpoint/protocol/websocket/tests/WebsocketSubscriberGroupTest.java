@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package endpoint.protocol.websocket.tests;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.wso2.carbon.inbound.endpoint.protocol.websocket.InboundWebsocketChannelContext;
+import org.wso2.carbon.inbound.endpoint.protocol.websocket.management.WebsocketSubscriberGroup;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class WebsocketSubscriberGroupTest extends TestCase {
+
+    private final List<EventLoop> eventLoops = new ArrayList<>();
+
+    @Override
+    protected void tearDown() throws Exception {
+        for (EventLoop eventLoop : eventLoops) {
+            eventLoop.shutdownGracefully(0, 1, TimeUnit.SECONDS).await(5, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Test that a broadcast frame is written to each subscriber from the event loop of its channel, sharing the
+     * content of the frame, and that the frame is released once it is written to all the subscribers.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBroadcastPerEventLoop() throws Exception {
+        EventLoop firstLoop = createEventLoop();
+        EventLoop secondLoop = createEventLoop();
+        CountDownLatch written = new CountDownLatch(4);
+        List<RecordingContext> subscribers = new ArrayList<>();
+        WebsocketSubscriberGroup group = new WebsocketSubscriberGroup();
+        for (int i = 0; i < 4; i++) {
+            RecordingContext subscriber = new RecordingContext("channel-" + i, i % 2 == 0 ? firstLoop : secondLoop,
+                                                               written);
+            subscribers.add(subscriber);
+            group.add(subscriber);
+        }
+
+        WebSocketFrame frame = createFrame();
+        byte[] content = frame.content().array();
+        group.broadcast(frame, null);
+        frame.release();
+
+        Assert.assertTrue("The frame is not written to all the subscribers", written.await(10, TimeUnit.SECONDS));
+        // the write tasks of an event loop run in order, hence these complete after the broadcast
+        firstLoop.submit(() -> null).await(10, TimeUnit.SECONDS);
+        secondLoop.submit(() -> null).await(10, TimeUnit.SECONDS);
+        for (RecordingContext subscriber : subscribers) {
+            Assert.assertEquals(1, subscriber.frameCount);
+            Assert.assertTrue("The frame is not written from the event loop of the channel",
+                              subscriber.writtenInEventLoop);
+            Assert.assertSame("The frame content is copied", content, subscriber.content);
+        }
+        Assert.assertEquals("The frame is not released", 0, frame.refCnt());
+    }
+
+    /**
+     * Test that an exclusive broadcast is not written to the excluded subscriber.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExclusiveBroadcast() throws Exception {
+        EventLoop eventLoop = createEventLoop();
+        CountDownLatch written = new CountDownLatch(1);
+        RecordingContext sender = new RecordingContext("sender", eventLoop, written);
+        RecordingContext receiver = new RecordingContext("receiver", eventLoop, written);
+        WebsocketSubscriberGroup group = new WebsocketSubscriberGroup();
+        group.add(sender);
+        group.add(receiver);
+
+        WebSocketFrame frame = createFrame();
+        group.broadcast(frame, sender);
+        frame.release();
+
+        Assert.assertTrue(written.await(10, TimeUnit.SECONDS));
+        // the write tasks of an event loop run in order, hence this completes after the broadcast
+        eventLoop.submit(() -> null).await(10, TimeUnit.SECONDS);
+        Assert.assertEquals(0, sender.frameCount);
+        Assert.assertEquals(1, receiver.frameCount);
+        Assert.assertEquals("The frame is not released", 0, frame.refCnt());
+    }
+
+    /**
+     * Test that the frame handed to a stopped event loop is released.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBroadcastToStoppedEventLoop() throws Exception {
+        EventLoop eventLoop = createEventLoop();
+        RecordingContext subscriber = new RecordingContext("channel", eventLoop, new CountDownLatch(1));
+        WebsocketSubscriberGroup group = new WebsocketSubscriberGroup();
+        group.add(subscriber);
+        eventLoop.shutdownGracefully(0, 1, TimeUnit.SECONDS).await(5, TimeUnit.SECONDS);
+
+        WebSocketFrame frame = createFrame();
+        group.broadcast(frame, null);
+        frame.release();
+
+        Assert.assertEquals(0, subscriber.frameCount);
+        Assert.assertEquals("The frame is not released", 0, frame.refCnt());
+    }
+
+    /**
+     * Test that the group is empty once all the subscribers are removed.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRemove() throws Exception {
+        EventLoop firstLoop = createEventLoop();
+        EventLoop secondLoop = createEventLoop();
+        RecordingContext first = new RecordingContext("first", firstLoop, new CountDownLatch(1));
+        RecordingContext second = new RecordingContext("second", secondLoop, new CountDownLatch(1));
+        WebsocketSubscriberGroup group = new WebsocketSubscriberGroup();
+        group.add(first);
+        group.add(second);
+        Assert.assertEquals(2, group.getChannelContexts().size());
+        Assert.assertFalse(group.remove(first));
+        Assert.assertTrue(group.remove(second));
+        Assert.assertTrue(group.isEmpty());
+    }
+
+    private EventLoop createEventLoop() {
+        EventLoop eventLoop = new DefaultEventLoop();
+        eventLoops.add(eventLoop);
+        return eventLoop;
+    }
+
+    private static WebSocketFrame createFrame() {
+        return new TextWebSocketFrame(Unpooled.copiedBuffer("broadcast", StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates the context of a channel, which is only identified by its name and bound to the given event loop.
+     */
+    private static ChannelHandlerContext createChannelHandlerContext(String name, EventLoop eventLoop) {
+        ClassLoader classLoader = WebsocketSubscriberGroupTest.class.getClassLoader();
+        Channel channel = (Channel) Proxy.newProxyInstance(classLoader, new Class[]{Channel.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "eventLoop":
+                            return eventLoop;
+                        case "toString":
+                            return name;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+        return (ChannelHandlerContext) Proxy.newProxyInstance(classLoader, new Class[]{ChannelHandlerContext.class},
+                (proxy, method, args) -> {
+                    if ("channel".equals(method.getName())) {
+                        return channel;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * Records the frames broadcast to a subscriber instead of writing them.
+     */
+    private static class RecordingContext extends InboundWebsocketChannelContext {
+
+        private final EventLoop eventLoop;
+        private final CountDownLatch written;
+        private volatile int frameCount;
+        private volatile boolean writtenInEventLoop;
+        private volatile byte[] content;
+
+        RecordingContext(String name, EventLoop eventLoop, CountDownLatch written) {
+            super(createChannelHandlerContext(name, eventLoop));
+            this.eventLoop = eventLoop;
+            this.written = written;
+        }
+
+        @Override
+        public void writeBroadcastFrame(WebSocketFrame frame) {
+            try {
+                frameCount++;
+                writtenInEventLoop = eventLoop.inEventLoop();
+                content = frame.content().array();
+            } finally {
+                frame.release();
+                written.countDown();
+            }
+        }
+    }
+}
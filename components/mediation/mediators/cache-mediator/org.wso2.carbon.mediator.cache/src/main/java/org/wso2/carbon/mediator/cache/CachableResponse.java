@@ -20,6 +20,10 @@ package org.wso2.carbon.mediator.cache;
 import org.apache.axiom.soap.SOAPEnvelope;
 
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
 
@@ -37,6 +41,11 @@ public class CachableResponse implements Serializable {
      */
     private byte[] responsePayload = null;
 
+    /**
+     * This holds the response for json outside the Java heap when the off-heap storage is enabled
+     */
+    private transient ByteBuffer offHeapResponsePayload = null;
+
     /**
      * The response is stored as a SOAPEnvelope (This cannot be used if supporting a cluster because SOAPEnvelope is not
      * serializable)
@@ -115,30 +124,89 @@ public class CachableResponse implements Serializable {
      */
     private boolean addAgeHeaderEnabled;
 
+    /**
+     * This specifies whether the json response payload should be stored outside the Java heap.
+     */
+    private boolean offHeapEnabled;
+
+    /**
+     * This specifies whether the cache which holds the response is bounded by the size of the responses in bytes.
+     */
+    private boolean sizeBounded;
+
+    /**
+     * The time at which the response was stored in or revalidated with the cache.
+     */
+    private volatile long storedTime;
+
+    /**
+     * The id of the cache which holds this response.
+     */
+    private String cacheId;
+
+    /**
+     * The size of the response in bytes which is accounted in the cache, 0 if the response is not accounted.
+     */
+    private transient long weight;
+
+    /**
+     * The time at which a request started fetching this response from the backend, 0 if there is no such request.
+     */
+    private transient long inFlightSince;
+
+    /**
+     * The time at which a request started revalidating this response in the background, 0 if there is no such
+     * request.
+     */
+    private transient long revalidationSince;
+
+    /**
+     * The requests waiting for the response of the request which is fetching this response from the backend.
+     */
+    private transient List<PendingCacheRequest> pendingRequests;
+
     /**
      * Sets the responsePayload and the headerProperties to null
      */
     public void clean() {
         responsePayload = null;
+        offHeapResponsePayload = null;
         headerProperties = null;
     }
 
     /**
-     * This method gives the cached response payload for json as a byte array
+     * This method gives the cached response payload for json as a byte array. If the payload is stored off-heap a
+     * copy of it is returned.
      *
      * @return byte[] representing the cached response payload for json
      */
     public byte[] getResponsePayload() {
+        ByteBuffer offHeapPayload = offHeapResponsePayload;
+        if (offHeapPayload != null) {
+            byte[] payload = new byte[offHeapPayload.remaining()];
+            offHeapPayload.duplicate().get(payload);
+            return payload;
+        }
         return responsePayload;
     }
 
     /**
-     * This method sets the response payload to the cache as a byte array
+     * This method sets the response payload to the cache as a byte array. If the off-heap storage is enabled the
+     * payload is copied to a direct buffer and the given array is not retained.
      *
      * @param responsePayload - response payload to be stored in to the cache as a byte array
      */
     public void setResponsePayload(byte[] responsePayload) {
-        this.responsePayload = responsePayload;
+        if (offHeapEnabled && responsePayload != null) {
+            ByteBuffer offHeapPayload = ByteBuffer.allocateDirect(responsePayload.length);
+            offHeapPayload.put(responsePayload);
+            offHeapPayload.flip();
+            this.offHeapResponsePayload = offHeapPayload;
+            this.responsePayload = null;
+        } else {
+            this.offHeapResponsePayload = null;
+            this.responsePayload = responsePayload;
+        }
     }
 
     /**
@@ -393,4 +461,169 @@ public class CachableResponse implements Serializable {
         this.addAgeHeaderEnabled = addAgeHeaderEnabled;
     }
 
+    /**
+     * This method returns whether the json response payload is stored outside the Java heap.
+     *
+     * @return whether the off-heap storage is enabled or not.
+     */
+    public boolean isOffHeapEnabled() {
+        return offHeapEnabled;
+    }
+
+    /**
+     * This method sets whether the json response payload is stored outside the Java heap.
+     *
+     * @param offHeapEnabled whether the off-heap storage is enabled or not.
+     */
+    public void setOffHeapEnabled(boolean offHeapEnabled) {
+        this.offHeapEnabled = offHeapEnabled;
+    }
+
+    /**
+     * This method returns whether the cache which holds the response is bounded by the size of the responses in bytes.
+     *
+     * @return whether the size of the response has to be accounted.
+     */
+    public boolean isSizeBounded() {
+        return sizeBounded;
+    }
+
+    /**
+     * This method sets whether the cache which holds the response is bounded by the size of the responses in bytes.
+     *
+     * @param sizeBounded whether the size of the response has to be accounted.
+     */
+    public void setSizeBounded(boolean sizeBounded) {
+        this.sizeBounded = sizeBounded;
+    }
+
+    /**
+     * This method returns the time at which the response was stored in or revalidated with the cache.
+     *
+     * @return the stored time in milliseconds.
+     */
+    public long getStoredTime() {
+        return storedTime;
+    }
+
+    /**
+     * This method sets the time at which the response was stored in or revalidated with the cache.
+     *
+     * @param storedTime the stored time in milliseconds.
+     */
+    public void setStoredTime(long storedTime) {
+        this.storedTime = storedTime;
+    }
+
+    /**
+     * This method marks the response as being revalidated in the background. If a revalidation is in progress and
+     * has not exceeded the retry interval, the response is not marked and must not be revalidated again.
+     *
+     * @param retryInterval the time in milliseconds after which an incomplete revalidation is retried
+     * @return true if the caller should revalidate the response
+     */
+    public synchronized boolean startRevalidation(long retryInterval) {
+        long currentTime = System.currentTimeMillis();
+        if (revalidationSince != 0 && currentTime - revalidationSince <= retryInterval) {
+            return false;
+        }
+        revalidationSince = currentTime;
+        return true;
+    }
+
+    /**
+     * This method marks the background revalidation of the response as completed.
+     */
+    public synchronized void completeRevalidation() {
+        revalidationSince = 0;
+    }
+
+    /**
+     * @return the id of the cache which holds this response
+     */
+    public String getCacheId() {
+        return cacheId;
+    }
+
+    /**
+     * @param cacheId the id of the cache which holds this response
+     */
+    public void setCacheId(String cacheId) {
+        this.cacheId = cacheId;
+    }
+
+    /**
+     * This method gives the size of the response in bytes which is accounted in the cache.
+     *
+     * @return size of the response in bytes
+     */
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    /**
+     * This method sets the size of the response in bytes which is accounted in the cache.
+     *
+     * @param weight size of the response in bytes
+     */
+    public synchronized void setWeight(long weight) {
+        this.weight = weight;
+    }
+
+    /**
+     * This method registers the given request to wait for the response of the request which is fetching this
+     * response from the backend. If there is no such request, or if it has been in flight longer than the wait
+     * timeout, the given request is not registered and it has to fetch the response itself.
+     *
+     * @param request     the request to be registered
+     * @param waitTimeout the maximum time in milliseconds to wait for the in flight request
+     * @return true if the request has been registered to wait for the response
+     */
+    public synchronized boolean addPendingRequest(PendingCacheRequest request, long waitTimeout) {
+        long currentTime = System.currentTimeMillis();
+        if (inFlightSince == 0 || currentTime - inFlightSince > waitTimeout) {
+            inFlightSince = currentTime;
+            return false;
+        }
+        if (pendingRequests == null) {
+            pendingRequests = new ArrayList<>();
+        }
+        pendingRequests.add(request);
+        return true;
+    }
+
+    /**
+     * This method removes a request which stopped waiting for the response.
+     *
+     * @param request the request to be removed
+     */
+    public synchronized void removePendingRequest(PendingCacheRequest request) {
+        if (pendingRequests != null) {
+            pendingRequests.remove(request);
+        }
+    }
+
+    /**
+     * This method marks the in flight request as completed and gives the requests which waited for its response.
+     *
+     * @return the requests waiting for the response
+     */
+    public synchronized List<PendingCacheRequest> completeInFlightRequest() {
+        inFlightSince = 0;
+        if (pendingRequests == null) {
+            return Collections.emptyList();
+        }
+        List<PendingCacheRequest> requests = pendingRequests;
+        pendingRequests = null;
+        return requests;
+    }
+
+    /**
+     * This method returns whether this holds a response which can be served from the cache.
+     *
+     * @return whether a response is available
+     */
+    public boolean isResponseAvailable() {
+        return responsePayload != null || offHeapResponsePayload != null || responseEnvelope != null;
+    }
 }
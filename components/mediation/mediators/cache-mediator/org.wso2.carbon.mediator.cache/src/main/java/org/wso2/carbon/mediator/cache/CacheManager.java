@@ -18,21 +18,55 @@
 package org.wso2.carbon.mediator.cache;
 
 import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * There would be two instances of the cache mediator in a single mediation flow. Hence it must be possible for the
  * cache created in one instance to be reused in the next. This CacheManager enables this feature with static methods.
+ * The CacheManager also accounts the bytes held by all the caches, bounded by the value of the
+ * {@value CachingConstants#GLOBAL_MAX_BYTES_PROPERTY} system property, and collects the cache statistics.
  */
-public class CacheManager {
+public class CacheManager implements RemovalListener<String, CachableResponse> {
 
     /**
      * Maps the id with the relevant LoadingCache
      */
     private Map<String, LoadingCache<String, CachableResponse>> cacheMap = new ConcurrentHashMap<>();
 
+    /**
+     * The maximum number of bytes held by all the caches. If this is -1 then the caches can hold any number of bytes.
+     */
+    private final long maxBytes;
+
+    /**
+     * The number of bytes held by all the caches.
+     */
+    private final AtomicLong cachedBytes = new AtomicLong();
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    public CacheManager() {
+        this(Long.getLong(CachingConstants.GLOBAL_MAX_BYTES_PROPERTY, CachingConstants.DEFAULT_MAX_BYTES));
+    }
+
+    /**
+     * @param maxBytes the maximum number of bytes held by all the caches, -1 for no limit
+     */
+    public CacheManager(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
     /**
      * @param id the id of the mediator
      * @return the relevant cache of the mediator
@@ -42,13 +76,15 @@ public class CacheManager {
     }
 
     /**
-     * Insert id and the LoadingCache to the CaccheManager
+     * Insert id and the LoadingCache to the CaccheManager, unless a LoadingCache is already related to the id
      *
      * @param id    the id of the cache mediator
      * @param cache the Loading cache related to the id
+     * @return the Loading cache related to the id
      */
-    void put(String id, LoadingCache<String, CachableResponse> cache) {
-        cacheMap.put(id, cache);
+    LoadingCache<String, CachableResponse> putIfAbsent(String id, LoadingCache<String, CachableResponse> cache) {
+        LoadingCache<String, CachableResponse> existingCache = cacheMap.putIfAbsent(id, cache);
+        return existingCache != null ? existingCache : cache;
     }
 
     /**
@@ -57,14 +93,127 @@ public class CacheManager {
      * @param id the id of the cache mediator
      */
     void remove(String id) {
-        cacheMap.remove(id);
+        LoadingCache<String, CachableResponse> cache = cacheMap.remove(id);
+        if (cache != null) {
+            cache.invalidateAll();
+        }
     }
 
     /**
      * Clears the CacheManager
      */
     void clean() {
+        for (LoadingCache<String, CachableResponse> cache : cacheMap.values()) {
+            cache.invalidateAll();
+        }
         cacheMap.clear();
     }
 
+    /**
+     * Accounts the given size of the response in the bytes held by the caches, replacing the size accounted
+     * previously for the same response. The size is not accounted if it exceeds the global maximum.
+     *
+     * @param response the response to be stored in the cache
+     * @param weight   the size of the response in bytes
+     * @return true if the size is accounted and the response can be stored
+     */
+    boolean reserveBytes(CachableResponse response, long weight) {
+        synchronized (response) {
+            long delta = weight - response.getWeight();
+            while (true) {
+                long current = cachedBytes.get();
+                if (delta > 0 && maxBytes > -1 && current + delta > maxBytes) {
+                    return false;
+                }
+                if (cachedBytes.compareAndSet(current, current + delta)) {
+                    response.setWeight(weight);
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the size of the given response from the bytes held by the caches.
+     *
+     * @param response the response which is no longer stored in the cache
+     */
+    void releaseBytes(CachableResponse response) {
+        synchronized (response) {
+            cachedBytes.addAndGet(-response.getWeight());
+            response.setWeight(0);
+        }
+    }
+
+    /**
+     * Releases the bytes of the responses removed from the caches. Replacements are not accounted as the mediator
+     * which replaces a response releases its bytes, once the replacing response has been accounted.
+     *
+     * @param notification the removal notification of the cache
+     */
+    @Override
+    public void onRemoval(RemovalNotification<String, CachableResponse> notification) {
+        if (notification.wasEvicted()) {
+            evictionCount.increment();
+        }
+        CachableResponse response = notification.getValue();
+        if (response != null && notification.getCause() != RemovalCause.REPLACED) {
+            releaseBytes(response);
+        }
+    }
+
+    void recordHit() {
+        hitCount.increment();
+    }
+
+    void recordMiss() {
+        missCount.increment();
+    }
+
+    /**
+     * @return the number of requests served from the caches
+     */
+    long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * @return the number of requests which could not be served from the caches
+     */
+    long getMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * @return the number of responses evicted from the caches due to the size limits or the timeout
+     */
+    long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * @return the number of bytes held by all the caches
+     */
+    long getCachedBytes() {
+        return cachedBytes.get();
+    }
+
+    /**
+     * @return the maximum number of bytes held by all the caches, -1 if there is no limit
+     */
+    long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @return the number of responses held by all the caches
+     */
+    long getCachedResponseCount() {
+        long count = 0;
+        for (LoadingCache<String, CachableResponse> cache : cacheMap.values()) {
+            count += cache.size();
+        }
+        return count;
+    }
+
 }
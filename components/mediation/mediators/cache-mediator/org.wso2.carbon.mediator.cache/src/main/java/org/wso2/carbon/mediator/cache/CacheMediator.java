@@ -47,9 +47,11 @@ import org.wso2.carbon.mediator.cache.digest.DigestGenerator;
 import org.wso2.carbon.mediator.cache.util.HttpCachingFilter;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.text.ParseException;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
@@ -127,6 +129,22 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
      */
     private int inMemoryCacheSize = CachingConstants.DEFAULT_SIZE;
 
+    /**
+     * The maximum number of bytes of the messages to be cached in memory. If this is -1 then the cache is bounded by
+     * the number of messages.
+     */
+    private long maxBytes = CachingConstants.DEFAULT_MAX_BYTES;
+
+    /**
+     * This specifies whether the json response payloads should be stored outside the Java heap.
+     */
+    private boolean offHeap = CachingConstants.DEFAULT_OFF_HEAP;
+
+    /**
+     * The number of concurrent writers of the cache, which is the number of segments the cache is divided into.
+     */
+    private int concurrencyLevel = CachingConstants.DEFAULT_CONCURRENCY_LEVEL;
+
     /**
      * The compiled pattern for the regex of the responseCodes.
      */
@@ -162,6 +180,23 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
      */
     private boolean addAgeHeaderEnabled = CachingConstants.DEFAULT_ADD_AGE_HEADER;
 
+    /**
+     * This specifies whether concurrent cache misses for the same request hash should wait for the response of the
+     * first request instead of going to the backend.
+     */
+    private boolean coalesceRequests = CachingConstants.DEFAULT_COALESCE_REQUESTS;
+
+    /**
+     * The maximum time in milliseconds a coalesced request waits for the response of the first request.
+     */
+    private long coalesceWaitTimeout = CachingConstants.DEFAULT_COALESCE_WAIT_TIMEOUT;
+
+    /**
+     * The time duration in seconds for which an expired response is served while it is revalidated with the backend
+     * in the background. If this is 0 an expired response is fetched again from the backend.
+     */
+    private long staleWhileRevalidate = CachingConstants.DEFAULT_STALE_WHILE_REVALIDATE;
+
     /**
      * Variable to represent NOT_MODIFIED status code.
      */
@@ -245,7 +280,16 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
         boolean result = true;
         try {
             if (synCtx.isResponse()) {
-                processResponseMessage(synCtx, cfgCtx, synLog);
+                CachableResponse collectedResponse = null;
+                try {
+                    collectedResponse = processResponseMessage(synCtx, cfgCtx, synLog);
+                } finally {
+                    releasePendingRequests(synCtx, collectedResponse);
+                }
+                if (isRevalidationRequest(synCtx)) {
+                    // The client has already been served with the stale response.
+                    result = false;
+                }
             } else {
                 result = processRequestMessage(synCtx, synLog);
             }
@@ -266,6 +310,7 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
         CachableResponse response = new CachableResponse();
         response.setRequestHash(requestHash);
         response.setTimeout(timeout);
+        response.setCacheId(id);
         return response;
     }
 
@@ -306,7 +351,9 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
         cachedResponse.setMaxMessageSize(maxMessageSize);
         cachedResponse.setCacheControlEnabled(cacheControlEnabled);
         cachedResponse.setAddAgeHeaderEnabled(addAgeHeaderEnabled);
-        if (cachedResponse.getResponsePayload() != null || cachedResponse.getResponseEnvelope() != null) {
+        cachedResponse.setOffHeapEnabled(offHeap);
+        cachedResponse.setSizeBounded(maxBytes > -1);
+        if (cachedResponse.isResponseAvailable()) {
             // get the response from the cache and attach to the context and change the
             // direction of the message
             if (synLog.isTraceOrDebugEnabled()) {
@@ -316,16 +363,151 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
             if (CachingConstants.HTTP_PROTOCOL_TYPE.equals(getProtocolType())
                     && cachedResponse.isCacheControlEnabled() &&
                     HttpCachingFilter.isValidCacheEntry(cachedResponse, synCtx)) {
+                cacheManager.recordMiss();
                 return true;
             }
+            if (staleWhileRevalidate > 0 && isStale(cachedResponse)) {
+                // The revalidation request is resumed through the continuation stack
+                if (!synCtx.isContinuationEnabled()) {
+                    cacheManager.recordMiss();
+                    return true;
+                }
+                revalidateInBackground(synCtx, cachedResponse, synLog);
+            }
+            cacheManager.recordHit();
             // mark as a response and replace envelope from cache
             synCtx.setResponse(true);
             replaceEnvelopeWithCachedResponse(synCtx, synLog, msgCtx, cachedResponse);
             return false;
         }
+        // The waiting request is resumed through the continuation stack, hence continuation has to be enabled.
+        if (coalesceRequests && synCtx.isContinuationEnabled()) {
+            PendingCacheRequest pendingRequest = new PendingCacheRequest(this, synCtx, cachedResponse);
+            if (cachedResponse.addPendingRequest(pendingRequest, coalesceWaitTimeout)) {
+                if (synLog.isTraceOrDebugEnabled()) {
+                    synLog.traceOrDebug("Request message " + synCtx.getMessageID() + " is waiting for the " +
+                            "in flight response of request hash : " + requestHash);
+                }
+                try {
+                    synCtx.getConfiguration().getSynapseTimer().schedule(pendingRequest, coalesceWaitTimeout);
+                } catch (IllegalStateException e) {
+                    // The response has already released the request.
+                }
+                return false;
+            }
+        }
+        cacheManager.recordMiss();
         return true;
     }
 
+    /**
+     * Returns whether the cached response has outlived the timeout and has to be revalidated.
+     *
+     * @param cachedResponse the cached response
+     * @return whether the response is stale
+     */
+    private boolean isStale(CachableResponse cachedResponse) {
+        return System.currentTimeMillis() - cachedResponse.getStoredTime() > TimeUnit.SECONDS.toMillis(timeout);
+    }
+
+    /**
+     * Sends a copy of the request to the backend with the conditional headers of the stale cached response, while the
+     * request itself is served with the stale response. The collector refreshes the cached response with the response
+     * of the copy, and then drops it.
+     *
+     * @param synCtx         the request message
+     * @param cachedResponse the stale cached response
+     * @param synLog         the Synapse log to use
+     */
+    private void revalidateInBackground(MessageContext synCtx, CachableResponse cachedResponse, SynapseLog synLog) {
+        if (!cachedResponse.startRevalidation(CachingConstants.REVALIDATION_RETRY_INTERVAL)) {
+            return;
+        }
+        final MessageContext revalidationCtx;
+        try {
+            revalidationCtx = MessageHelper.cloneMessageContext(synCtx);
+        } catch (AxisFault e) {
+            cachedResponse.completeRevalidation();
+            synLog.auditWarn("Unable to revalidate the cached response for request hash : " +
+                    cachedResponse.getRequestHash() + " " + e.getMessage());
+            return;
+        }
+        revalidationCtx.setProperty(CachingConstants.REVALIDATION_REQUEST, Boolean.TRUE);
+        HttpCachingFilter.setRevalidationHeaders(cachedResponse,
+                ((Axis2MessageContext) revalidationCtx).getAxis2MessageContext());
+        if (synLog.isTraceOrDebugEnabled()) {
+            synLog.traceOrDebug("Revalidating the stale cached response for request hash : " +
+                    cachedResponse.getRequestHash() + " in the background");
+        }
+        synCtx.getEnvironment().getExecutorService().execute(() -> {
+            ContinuationStackManager.updateSeqContinuationState(revalidationCtx, getMediatorPosition());
+            revalidationCtx.getEnvironment().mediateFromContinuationStateStack(revalidationCtx);
+        });
+    }
+
+    /**
+     * Returns whether the message is a background revalidation of a stale cached response.
+     *
+     * @param synCtx the message
+     * @return whether the message is a revalidation
+     */
+    private boolean isRevalidationRequest(MessageContext synCtx) {
+        return Boolean.TRUE.equals(synCtx.getProperty(CachingConstants.REVALIDATION_REQUEST));
+    }
+
+    /**
+     * Serves a request which waited for the response of a concurrent request with the same request hash.
+     *
+     * @param synCtx         the waiting request message
+     * @param cachedResponse the collected response
+     */
+    void serveFromCache(MessageContext synCtx, CachableResponse cachedResponse) {
+        SynapseLog synLog = getLog(synCtx);
+        if (synLog.isTraceOrDebugEnabled()) {
+            synLog.traceOrDebug("Cache-hit for waiting message ID : " + synCtx.getMessageID());
+        }
+        cacheManager.recordHit();
+        synCtx.setResponse(true);
+        replaceEnvelopeWithCachedResponse(synCtx, synLog, ((Axis2MessageContext) synCtx).getAxis2MessageContext(),
+                cachedResponse);
+    }
+
+    /**
+     * Continues the mediation of a waiting request from the mediator next to this cache mediator, so that the request
+     * goes to the backend.
+     *
+     * @param synCtx the waiting request message
+     */
+    void continueMediation(MessageContext synCtx) {
+        SynapseLog synLog = getLog(synCtx);
+        if (synLog.isTraceOrDebugEnabled()) {
+            synLog.traceOrDebug("Request message " + synCtx.getMessageID() + " stopped waiting for the in flight " +
+                    "response and continues to the backend");
+        }
+        cacheManager.recordMiss();
+        ContinuationStackManager.updateSeqContinuationState(synCtx, getMediatorPosition());
+        synCtx.getEnvironment().mediateFromContinuationStateStack(synCtx);
+    }
+
+    /**
+     * Releases the requests which waited for the response collected by this collector.
+     *
+     * @param synCtx            the response message
+     * @param collectedResponse the response collected by this collector, null if no response could be collected
+     */
+    private void releasePendingRequests(MessageContext synCtx, CachableResponse collectedResponse) {
+        CachableResponse response = (CachableResponse) synCtx.getProperty(CachingConstants.CACHED_OBJECT);
+        if (response != null) {
+            List<PendingCacheRequest> pendingRequests = response.completeInFlightRequest();
+            for (PendingCacheRequest pendingRequest : pendingRequests) {
+                pendingRequest.release(collectedResponse);
+            }
+            if (isRevalidationRequest(synCtx)) {
+                response.completeRevalidation();
+            }
+        }
+    }
+
     /**
      * This method returns the existing cached response.
      * @param synCtx Message context.
@@ -412,21 +594,25 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
 
     /**
      * Process a response message through this cache mediator. This finds the Cache used, and updates it for the
-     * corresponding request hash
+     * corresponding request hash. The cached object found by the request is shared with the concurrent requests which
+     * are served from it, hence the collected response is built as a new cached object which replaces it in the cache.
      *
      * @param synLog the Synapse log to use
      * @param synCtx the current message (response)
      * @param cfgCtx the abstract context in which the cache will be kept
+     * @return the response which can be served to the waiting requests, null if no response is available
      */
     @SuppressWarnings("unchecked")
-    private void processResponseMessage(MessageContext synCtx, ConfigurationContext cfgCtx, SynapseLog synLog) {
+    private CachableResponse processResponseMessage(MessageContext synCtx, ConfigurationContext cfgCtx,
+                                                    SynapseLog synLog) {
         if (!collector) {
             handleException("Response messages cannot be handled in a non collector cache", synCtx);
         }
         org.apache.axis2.context.MessageContext msgCtx = ((Axis2MessageContext) synCtx).getAxis2MessageContext();
-        CachableResponse response = (CachableResponse) synCtx.getProperty(CachingConstants.CACHED_OBJECT);
+        CachableResponse cachedResponse = (CachableResponse) synCtx.getProperty(CachingConstants.CACHED_OBJECT);
 
-        if (response != null) {
+        if (cachedResponse != null) {
+            CachableResponse response = newResponse(cachedResponse);
             boolean toCache = true;
             if (CachingConstants.HTTP_PROTOCOL_TYPE.equals(response.getProtocolType())) {
                 Object httpStatus = msgCtx.getProperty(NhttpConstants.HTTP_SC);
@@ -434,8 +620,8 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
                 //Honor no-store header if cacheControlEnabled.
                 // If "no-store" header presents in the response, returned response can not be cached.
                 if (response.isCacheControlEnabled() && HttpCachingFilter.isNoStore(msgCtx)) {
-                    response.clean();
-                    return;
+                    discardResponse(cachedResponse);
+                    return null;
                 }
                 //Need to check the data type of HTTP_SC to avoid classcast exceptions.
                 if (httpStatus instanceof String) {
@@ -447,8 +633,17 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
                 if (statusCode != null) {
                     //If status code is SC_NOT_MODIFIED then return the cached response.
                     if (statusCode.equals(SC_NOT_MODIFIED)) {
-                        replaceEnvelopeWithCachedResponse(synCtx, synLog, msgCtx, response);
-                        return;
+                        if (isRevalidationRequest(synCtx)) {
+                            // The stale response is still valid, hence it is kept in the cache for another timeout.
+                            if (synLog.isTraceOrDebugEnabled()) {
+                                synLog.traceOrDebug("Cached response for request hash : " +
+                                        cachedResponse.getRequestHash() + " has been revalidated");
+                            }
+                            storeInCache(cachedResponse, cachedResponse, cachedResponse.getWeight());
+                            return cachedResponse;
+                        }
+                        replaceEnvelopeWithCachedResponse(synCtx, synLog, msgCtx, cachedResponse);
+                        return cachedResponse.isResponseAvailable() ? cachedResponse : null;
                     }
                     // Now create matcher object.
                     Matcher m = response.getResponseCodePattern().matcher(statusCode);
@@ -472,17 +667,18 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
                 }
             }
             if (toCache) {
+                long responseSize;
                 if (JsonUtil.hasAJsonPayload(msgCtx)) {
                     byte[] responsePayload = JsonUtil.jsonPayloadToByteArray(msgCtx);
                     if (response.getMaxMessageSize() > -1 &&
                             responsePayload.length > response.getMaxMessageSize()) {
                         synLog.traceOrDebug(
                                 "Message size exceeds the upper bound for caching, request will not be cached");
-                        return;
+                        return null;
                     }
                     response.setResponsePayload(responsePayload);
-                    response.setResponseEnvelope(null);
                     response.setJson(true);
+                    responseSize = responsePayload.length;
                 } else {
                     SOAPEnvelope clonedEnvelope = MessageHelper.cloneSOAPEnvelope(synCtx.getEnvelope());
                     if (response.getMaxMessageSize() > -1) {
@@ -495,7 +691,7 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
                         } catch (SynapseException syne) {
                             synLog.traceOrDebug(
                                     "Message size exceeds the upper bound for caching, request will not be cached");
-                            return;
+                            return null;
                         } finally {
                             try {
                                 fbaos.close();
@@ -504,9 +700,14 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
                                         synCtx);
                             }
                         }
+                        responseSize = fbaos.size();
+                    } else if (response.isSizeBounded() || cacheManager.getMaxBytes() > -1) {
+                        responseSize = getSerializedSize(clonedEnvelope, synCtx);
+                    } else {
+                        // The size is not accounted if no cache is bounded by bytes.
+                        responseSize = 0;
                     }
 
-                    response.setResponsePayload(null);
                     response.setResponseEnvelope(clonedEnvelope);
                     response.setJson(false);
 
@@ -552,44 +753,146 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
                 response.setHeaderProperties(headerProperties);
                 msgCtx.setProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS, headerProperties);
 
-            } else {
-                response.clean();
+                if (!storeInCache(cachedResponse, response, responseSize)) {
+                    synLog.traceOrDebug("The mediator cache has reached its maximum size in bytes, request will not " +
+                            "be cached");
+                    discardResponse(cachedResponse);
+                }
+                return response;
+            } else if (!isRevalidationRequest(synCtx)) {
+                discardResponse(cachedResponse);
             }
         } else {
             synLog.auditWarn("A response message without a valid mapping to the " +
                     "request hash found. Unable to store the response in cache");
         }
+        return null;
+    }
+
+    /**
+     * Creates an empty cached object which is configured as the given cached object, to hold a newly collected
+     * response for the same request hash.
+     *
+     * @param cachedResponse the cached object found by the request
+     * @return the new cached object
+     */
+    private CachableResponse newResponse(CachableResponse cachedResponse) {
+        CachableResponse response = new CachableResponse();
+        response.setRequestHash(cachedResponse.getRequestHash());
+        response.setTimeout(cachedResponse.getTimeout());
+        response.setCacheId(cachedResponse.getCacheId());
+        response.setHttpMethod(cachedResponse.getHttpMethod());
+        response.setProtocolType(cachedResponse.getProtocolType());
+        response.setResponseCodePattern(cachedResponse.getResponseCodePattern());
+        response.setHTTPMethodsToCache(cachedResponse.getHTTPMethodsToCache());
+        response.setMaxMessageSize(cachedResponse.getMaxMessageSize());
+        response.setCacheControlEnabled(cachedResponse.isCacheControlEnabled());
+        response.setAddAgeHeaderEnabled(cachedResponse.isAddAgeHeaderEnabled());
+        response.setOffHeapEnabled(cachedResponse.isOffHeapEnabled());
+        response.setSizeBounded(cachedResponse.isSizeBounded());
+        return response;
+    }
+
+    /**
+     * Accounts the size of the collected response and stores it in the cache in place of the cached object found by
+     * the request, so that the cache weighs the response with the collected payload. A revalidated response replaces
+     * itself.
+     *
+     * @param cachedResponse the cached object found by the request
+     * @param response       the collected response
+     * @param responseSize   the size of the response in bytes
+     * @return false if the response cannot be cached as the global maximum size in bytes is reached
+     */
+    private boolean storeInCache(CachableResponse cachedResponse, CachableResponse response, long responseSize) {
+        if (!cacheManager.reserveBytes(response, responseSize)) {
+            return false;
+        }
+        response.setStoredTime(System.currentTimeMillis());
+        LoadingCache<String, CachableResponse> cache = cacheManager.get(response.getCacheId());
+        // The cached object may have been evicted or invalidated while the response was fetched from the backend, in
+        // which case the response is only used to serve the waiting requests.
+        if (cache != null && cache.asMap().replace(response.getRequestHash(), cachedResponse, response)) {
+            if (cachedResponse != response) {
+                cacheManager.releaseBytes(cachedResponse);
+            }
+        } else {
+            cacheManager.releaseBytes(response);
+        }
+        return true;
+    }
 
+    /**
+     * Removes the cached object of a response which cannot be cached from the cache, which releases its size. The
+     * object is left intact as it may be served to concurrent requests.
+     *
+     * @param cachedResponse the cached object found by the request
+     */
+    private void discardResponse(CachableResponse cachedResponse) {
+        LoadingCache<String, CachableResponse> cache = cacheManager.get(cachedResponse.getCacheId());
+        if (cache != null) {
+            cache.asMap().remove(cachedResponse.getRequestHash(), cachedResponse);
+        }
+        cacheManager.releaseBytes(cachedResponse);
     }
 
     /**
-     * Creates default cache to keep mediator cache.
+     * Calculates the size of the serialized envelope without buffering it.
+     *
+     * @param envelope the envelope to be measured
+     * @param synCtx   the current message
+     * @return size of the envelope in bytes
+     */
+    private long getSerializedSize(SOAPEnvelope envelope, MessageContext synCtx) {
+        final long[] size = new long[1];
+        OutputStream countingStream = new OutputStream() {
+            @Override
+            public void write(int b) {
+                size[0]++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                size[0] += len;
+            }
+        };
+        try {
+            envelope.serialize(countingStream);
+        } catch (XMLStreamException e) {
+            handleException("Error in checking the message size", e, synCtx);
+        }
+        return size[0];
+    }
+
+    /**
+     * Creates default cache to keep mediator cache. The cache is bounded by the size of the messages in bytes if
+     * maxBytes is specified, otherwise by the number of messages if maxSize is specified.
      *
      * @return global cache
      */
     public LoadingCache<String, CachableResponse> getMediatorCache() {
         LoadingCache<String, CachableResponse> cache = cacheManager.get(id);
         if (cache == null) {
-            if (inMemoryCacheSize > -1) {
-                cache = CacheBuilder.newBuilder().expireAfterWrite(timeout,
-                        TimeUnit.SECONDS).maximumSize(inMemoryCacheSize)
-                        .build(new CacheLoader<String, CachableResponse>() {
-                            @Override
-                            public CachableResponse load(String requestHash) throws Exception {
-                                return cacheNewResponse(requestHash);
-                            }
-                        });
-            } else {
-                cache = CacheBuilder.newBuilder().expireAfterWrite(timeout,
-                        TimeUnit.SECONDS).build(
-                        new CacheLoader<String, CachableResponse>() {
-                            @Override
-                            public CachableResponse load(String requestHash) throws Exception {
-                                return cacheNewResponse(requestHash);
-                            }
-                        });
+            // A stale response is kept in the cache until it is revalidated or the revalidation period is over.
+            CacheBuilder<String, CachableResponse> cacheBuilder = CacheBuilder.newBuilder()
+                    .expireAfterWrite(timeout + staleWhileRevalidate, TimeUnit.SECONDS).removalListener(cacheManager)
+                    .concurrencyLevel(concurrencyLevel);
+            if (maxBytes > -1) {
+                // The maximum weight is divided among the segments of the cache, hence a response larger than
+                // maxBytes / concurrencyLevel is evicted as soon as it is stored.
+                cacheBuilder.maximumWeight(maxBytes).weigher(
+                        (String requestHash, CachableResponse response) ->
+                                (int) Math.min(response.getWeight(), Integer.MAX_VALUE));
+            } else if (inMemoryCacheSize > -1) {
+                cacheBuilder.maximumSize(inMemoryCacheSize);
             }
-            cacheManager.put(id, cache);
+            cache = cacheBuilder.build(new CacheLoader<String, CachableResponse>() {
+                @Override
+                public CachableResponse load(String requestHash) throws Exception {
+                    return cacheNewResponse(requestHash);
+                }
+            });
+            // The cache may have been created by a concurrent request meanwhile.
+            cache = cacheManager.putIfAbsent(id, cache);
         }
         return cache;
     }
@@ -795,6 +1098,60 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
         this.inMemoryCacheSize = inMemoryCacheSize;
     }
 
+    /**
+     * This method gives the maximum number of bytes of the messages to be cached in memory.
+     *
+     * @return maximum number of bytes, -1 if the cache is not bounded by bytes.
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * This method sets the maximum number of bytes of the messages to be cached in memory.
+     *
+     * @param maxBytes maximum number of bytes to be set, -1 if the cache is not bounded by bytes.
+     */
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * This method gives the number of concurrent writers of the cache.
+     *
+     * @return the concurrency level of the cache.
+     */
+    public int getConcurrencyLevel() {
+        return concurrencyLevel;
+    }
+
+    /**
+     * This method sets the number of concurrent writers of the cache.
+     *
+     * @param concurrencyLevel the concurrency level of the cache.
+     */
+    public void setConcurrencyLevel(int concurrencyLevel) {
+        this.concurrencyLevel = concurrencyLevel;
+    }
+
+    /**
+     * This method returns whether the json response payloads are stored outside the Java heap.
+     *
+     * @return whether the off-heap storage is enabled or not.
+     */
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * This method sets whether the json response payloads are stored outside the Java heap.
+     *
+     * @param offHeap whether the off-heap storage is enabled or not.
+     */
+    public void setOffHeap(boolean offHeap) {
+        this.offHeap = offHeap;
+    }
+
     /**
      * This method gives the HTTP method that needs to be cached.
      *
@@ -900,6 +1257,60 @@ public class CacheMediator extends AbstractMediator implements ManagedLifecycle,
         this.addAgeHeaderEnabled = addAgeHeaderEnabled;
     }
 
+    /**
+     * This method returns whether concurrent cache misses for the same request are coalesced.
+     *
+     * @return whether concurrent cache misses are coalesced
+     */
+    public boolean isCoalesceRequests() {
+        return coalesceRequests;
+    }
+
+    /**
+     * This method sets whether concurrent cache misses for the same request are coalesced.
+     *
+     * @param coalesceRequests whether concurrent cache misses are coalesced
+     */
+    public void setCoalesceRequests(boolean coalesceRequests) {
+        this.coalesceRequests = coalesceRequests;
+    }
+
+    /**
+     * This method returns the maximum time a coalesced request waits for the in flight response.
+     *
+     * @return wait timeout in milliseconds
+     */
+    public long getCoalesceWaitTimeout() {
+        return coalesceWaitTimeout;
+    }
+
+    /**
+     * This method sets the maximum time a coalesced request waits for the in flight response.
+     *
+     * @param coalesceWaitTimeout wait timeout in milliseconds
+     */
+    public void setCoalesceWaitTimeout(long coalesceWaitTimeout) {
+        this.coalesceWaitTimeout = coalesceWaitTimeout;
+    }
+
+    /**
+     * This method gives the time an expired response is served while it is revalidated in the background.
+     *
+     * @return stale-while-revalidate period in seconds
+     */
+    public long getStaleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+
+    /**
+     * This method sets the time an expired response is served while it is revalidated in the background.
+     *
+     * @param staleWhileRevalidate stale-while-revalidate period in seconds, 0 to disable
+     */
+    public void setStaleWhileRevalidate(long staleWhileRevalidate) {
+        this.staleWhileRevalidate = staleWhileRevalidate;
+    }
+
     /**
      * This method sets the id of the cache configuration.
      *
@@ -119,6 +119,21 @@ public class CacheMediatorFactory extends AbstractMediatorFactory {
      */
     private static final QName ATT_SIZE = new QName(CachingConstants.MAX_SIZE_STRING);
 
+    /**
+     * QName of the maximum number of bytes of the cached messages.
+     */
+    private static final QName ATT_MAX_BYTES = new QName(CachingConstants.MAX_BYTES_STRING);
+
+    /**
+     * QName of the off-heap storage of the cached messages.
+     */
+    private static final QName ATT_OFF_HEAP = new QName(CachingConstants.OFF_HEAP_STRING);
+
+    /**
+     * QName of the number of concurrent writers of the cache.
+     */
+    private static final QName ATT_CONCURRENCY_LEVEL = new QName(CachingConstants.CONCURRENCY_LEVEL_STRING);
+
     /**
      * QName of the enableCacheControl.
      */
@@ -130,6 +145,23 @@ public class CacheMediatorFactory extends AbstractMediatorFactory {
     private static final QName INCLUDE_AGE_HEADER_Q = new QName(XMLConfigConstants.SYNAPSE_NAMESPACE,
                                                             CachingConstants.INCLUDE_AGE_HEADER_STRING);
 
+    /**
+     * QName of the coalesceRequests.
+     */
+    private static final QName COALESCE_REQUESTS_Q = new QName(XMLConfigConstants.SYNAPSE_NAMESPACE,
+                                                               CachingConstants.COALESCE_REQUESTS_STRING);
+
+    /**
+     * QName of the staleWhileRevalidate.
+     */
+    private static final QName STALE_WHILE_REVALIDATE_Q = new QName(XMLConfigConstants.SYNAPSE_NAMESPACE,
+                                                                    CachingConstants.STALE_WHILE_REVALIDATE_STRING);
+
+    /**
+     * QName of the wait timeout of coalesced requests.
+     */
+    private static final QName ATT_WAIT_TIMEOUT = new QName(CachingConstants.WAIT_TIMEOUT_STRING);
+
     /**
      * QNama of the cache id.
      */
@@ -347,6 +379,26 @@ public class CacheMediatorFactory extends AbstractMediatorFactory {
                     cache.setOnCacheHitSequence(null);
                 }
 
+                OMElement coalesceRequestsElem = elem.getFirstChildWithName(COALESCE_REQUESTS_Q);
+                if (coalesceRequestsElem != null) {
+                    String coalesceRequestsElemText = coalesceRequestsElem.getText();
+                    if (StringUtils.isNotEmpty(coalesceRequestsElemText)) {
+                        cache.setCoalesceRequests(Boolean.parseBoolean(coalesceRequestsElemText.trim()));
+                    }
+                    OMAttribute waitTimeoutAttr = coalesceRequestsElem.getAttribute(ATT_WAIT_TIMEOUT);
+                    if (waitTimeoutAttr != null && waitTimeoutAttr.getAttributeValue() != null) {
+                        cache.setCoalesceWaitTimeout(Long.parseLong(waitTimeoutAttr.getAttributeValue().trim()));
+                    }
+                }
+
+                OMElement staleWhileRevalidateElem = elem.getFirstChildWithName(STALE_WHILE_REVALIDATE_Q);
+                if (staleWhileRevalidateElem != null) {
+                    String staleWhileRevalidateElemText = staleWhileRevalidateElem.getText();
+                    if (StringUtils.isNotEmpty(staleWhileRevalidateElemText)) {
+                        cache.setStaleWhileRevalidate(Long.parseLong(staleWhileRevalidateElemText.trim()));
+                    }
+                }
+
                 OMElement implElem = elem.getFirstChildWithName(IMPLEMENTATION_Q);
                 if (implElem != null) {
                     OMAttribute sizeAttr = implElem.getAttribute(ATT_SIZE);
@@ -357,6 +409,21 @@ public class CacheMediatorFactory extends AbstractMediatorFactory {
                         cache.setInMemoryCacheSize(-1);
                     }
 
+                    OMAttribute maxBytesAttr = implElem.getAttribute(ATT_MAX_BYTES);
+                    if (maxBytesAttr != null && maxBytesAttr.getAttributeValue() != null) {
+                        cache.setMaxBytes(Long.parseLong(maxBytesAttr.getAttributeValue().trim()));
+                    }
+
+                    OMAttribute offHeapAttr = implElem.getAttribute(ATT_OFF_HEAP);
+                    if (offHeapAttr != null && offHeapAttr.getAttributeValue() != null) {
+                        cache.setOffHeap(Boolean.parseBoolean(offHeapAttr.getAttributeValue().trim()));
+                    }
+
+                    OMAttribute concurrencyLevelAttr = implElem.getAttribute(ATT_CONCURRENCY_LEVEL);
+                    if (concurrencyLevelAttr != null && concurrencyLevelAttr.getAttributeValue() != null) {
+                        cache.setConcurrencyLevel(Integer.parseInt(concurrencyLevelAttr.getAttributeValue().trim()));
+                    }
+
                     OMAttribute typeAttribute = implElem.getAttribute(ATT_TYPE);
                     if (typeAttribute != null && typeAttribute.getAttributeValue() != null) {
                         cache.setImplementationType(typeAttribute.getAttributeValue().trim());
@@ -172,10 +172,41 @@ public class CacheMediatorSerializer extends AbstractMediatorSerializer {
                 cacheElem.addChild(protocolElem);
             }
 
-            if (cacheMediator.getInMemoryCacheSize() > -1) {
+            if (cacheMediator.isCoalesceRequests()) {
+                OMElement coalesceRequestsElem = fac.createOMElement(CachingConstants.COALESCE_REQUESTS_STRING, synNS);
+                coalesceRequestsElem.addAttribute(fac.createOMAttribute(CachingConstants.WAIT_TIMEOUT_STRING, nullNS,
+                        Long.toString(cacheMediator.getCoalesceWaitTimeout())));
+                coalesceRequestsElem.setText(String.valueOf(true));
+                cacheElem.addChild(coalesceRequestsElem);
+            }
+
+            if (cacheMediator.getStaleWhileRevalidate() > 0) {
+                OMElement staleWhileRevalidateElem =
+                        fac.createOMElement(CachingConstants.STALE_WHILE_REVALIDATE_STRING, synNS);
+                staleWhileRevalidateElem.setText(Long.toString(cacheMediator.getStaleWhileRevalidate()));
+                cacheElem.addChild(staleWhileRevalidateElem);
+            }
+
+            if (cacheMediator.getInMemoryCacheSize() > -1 || cacheMediator.getMaxBytes() > -1 ||
+                    cacheMediator.isOffHeap() ||
+                    cacheMediator.getConcurrencyLevel() != CachingConstants.DEFAULT_CONCURRENCY_LEVEL) {
                 OMElement implElem = fac.createOMElement(CachingConstants.IMPLEMENTATION_STRING, synNS);
-                implElem.addAttribute(fac.createOMAttribute(CachingConstants.MAX_SIZE_STRING, nullNS,
-                                                            Integer.toString(cacheMediator.getInMemoryCacheSize())));
+                if (cacheMediator.getInMemoryCacheSize() > -1) {
+                    implElem.addAttribute(fac.createOMAttribute(CachingConstants.MAX_SIZE_STRING, nullNS,
+                            Integer.toString(cacheMediator.getInMemoryCacheSize())));
+                }
+                if (cacheMediator.getMaxBytes() > -1) {
+                    implElem.addAttribute(fac.createOMAttribute(CachingConstants.MAX_BYTES_STRING, nullNS,
+                            Long.toString(cacheMediator.getMaxBytes())));
+                }
+                if (cacheMediator.isOffHeap()) {
+                    implElem.addAttribute(fac.createOMAttribute(CachingConstants.OFF_HEAP_STRING, nullNS,
+                            String.valueOf(true)));
+                }
+                if (cacheMediator.getConcurrencyLevel() != CachingConstants.DEFAULT_CONCURRENCY_LEVEL) {
+                    implElem.addAttribute(fac.createOMAttribute(CachingConstants.CONCURRENCY_LEVEL_STRING, nullNS,
+                            Integer.toString(cacheMediator.getConcurrencyLevel())));
+                }
                 if (isPreviousCacheImplementation) {
                     implElem.addAttribute(fac.createOMAttribute(CachingConstants.TYPE_STRING, nullNS,
                             cacheMediator.getImplementationType()));
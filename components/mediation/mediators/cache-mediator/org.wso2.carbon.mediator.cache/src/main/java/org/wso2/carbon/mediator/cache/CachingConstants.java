@@ -74,6 +74,11 @@ public class CachingConstants {
      */
     public static final String CACHED_OBJECT = "CachableResponse";
 
+    /**
+     * String key to mark a request which revalidates a stale cached response in the background.
+     */
+    public static final String REVALIDATION_REQUEST = "CacheRevalidationRequest";
+
     /**
      * The the header that would be used to return the hashed value to invalidate this value.
      */
@@ -94,6 +99,47 @@ public class CachingConstants {
      */
     public static final boolean DEFAULT_ADD_AGE_HEADER = false;
 
+    /**
+     * The default value for coalesceRequests.
+     */
+    public static final boolean DEFAULT_COALESCE_REQUESTS = false;
+
+    /**
+     * The default time in milliseconds a coalesced request waits for the response of the in flight request.
+     */
+    public static final long DEFAULT_COALESCE_WAIT_TIMEOUT = 5000;
+
+    /**
+     * The default time in seconds a stale response is served while it is revalidated, 0 to disable.
+     */
+    public static final long DEFAULT_STALE_WHILE_REVALIDATE = 0;
+
+    /**
+     * The time in milliseconds after which a stale response is revalidated again, if the previous revalidation
+     * did not complete.
+     */
+    public static final long REVALIDATION_RETRY_INTERVAL = 10000;
+
+    /**
+     * The default value for the maximum number of bytes held by a cache, -1 for no limit.
+     */
+    public static final long DEFAULT_MAX_BYTES = -1;
+
+    /**
+     * The default number of concurrent writers of a cache, which is the default of the underlying Guava cache.
+     */
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 4;
+
+    /**
+     * The default value for offHeap.
+     */
+    public static final boolean DEFAULT_OFF_HEAP = false;
+
+    /**
+     * The system property which specifies the maximum number of bytes held by all the mediator caches.
+     */
+    public static final String GLOBAL_MAX_BYTES_PROPERTY = "mediator.cache.maxBytes";
+
     /**
      * Headers which need to be permanently excluded in hashing due to its dynamic nature.
      */
@@ -118,8 +164,15 @@ public class CachingConstants {
     public static final String HASH_GENERATOR_STRING = "hashGenerator";
     public static final String IMPLEMENTATION_STRING = "implementation";
     public static final String MAX_SIZE_STRING = "maxSize";
+    public static final String MAX_BYTES_STRING = "maxBytes";
+    public static final String OFF_HEAP_STRING = "offHeap";
+    public static final String CONCURRENCY_LEVEL_STRING = "concurrencyLevel";
     public static final String ENABLE_CACHE_CONTROL_STRING = "enableCacheControl";
     public static final String INCLUDE_AGE_HEADER_STRING = "includeAgeHeader";
+    public static final String COALESCE_REQUESTS_STRING = "coalesceRequests";
+    public static final String WAIT_TIMEOUT_STRING = "waitTimeout";
+    public static final String STALE_WHILE_REVALIDATE_STRING = "staleWhileRevalidate";
+    public static final String IF_MODIFIED_SINCE = "If-Modified-Since";
     public static final String IF_NONE_MATCH = "IF-None-Match";
     public static final String DATE_PATTERN = "EEE, dd MMM yyyy HH:mm:ss z";
     public static final String NO_CACHE_STRING = "no-cache";
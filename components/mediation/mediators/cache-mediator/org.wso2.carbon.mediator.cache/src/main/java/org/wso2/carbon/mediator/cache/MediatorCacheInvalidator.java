@@ -69,6 +69,36 @@ public class MediatorCacheInvalidator implements MediatorCacheInvalidatorMBean {
         log.info("Total mediator cache has been invalidated.");
     }
 
+    @Override
+    public long getHitCount() {
+        return cacheManager.getHitCount();
+    }
+
+    @Override
+    public long getMissCount() {
+        return cacheManager.getMissCount();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return cacheManager.getEvictionCount();
+    }
+
+    @Override
+    public long getCachedBytes() {
+        return cacheManager.getCachedBytes();
+    }
+
+    @Override
+    public long getMaxBytes() {
+        return cacheManager.getMaxBytes();
+    }
+
+    @Override
+    public long getCachedResponseCount() {
+        return cacheManager.getCachedResponseCount();
+    }
+
     /**
      * This method gives the tenant domain.
      *
@@ -18,11 +18,41 @@
 package org.wso2.carbon.mediator.cache;
 
 /**
- * The interface for MBean used to invalidate the cache mediator.
+ * The interface for MBean used to invalidate the cache mediator and to monitor the mediator cache.
  */
 public interface MediatorCacheInvalidatorMBean {
     /**
      * This abstract method should be implemented to invalidate the whole mediator Cache.
      */
     void invalidateTheWholeCache();
+
+    /**
+     * @return the number of requests served from the mediator cache
+     */
+    long getHitCount();
+
+    /**
+     * @return the number of requests which could not be served from the mediator cache
+     */
+    long getMissCount();
+
+    /**
+     * @return the number of responses evicted from the mediator cache
+     */
+    long getEvictionCount();
+
+    /**
+     * @return the number of bytes held by the mediator cache
+     */
+    long getCachedBytes();
+
+    /**
+     * @return the maximum number of bytes held by the mediator cache, -1 if there is no limit
+     */
+    long getMaxBytes();
+
+    /**
+     * @return the number of responses held by the mediator cache
+     */
+    long getCachedResponseCount();
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.mediator.cache;
+
+import org.apache.synapse.MessageContext;
+
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A request which missed the cache while another request with the same request hash is fetching the response from
+ * the backend. Instead of going to the backend, the request waits without holding a thread until the response is
+ * collected, and is then served from the cache. If the response could not be cached or the wait timeout is reached,
+ * the request continues the mediation towards the backend.
+ */
+public class PendingCacheRequest extends TimerTask {
+
+    /**
+     * The cache mediator which parked the request.
+     */
+    private final CacheMediator mediator;
+
+    /**
+     * The message context of the waiting request.
+     */
+    private final MessageContext synCtx;
+
+    /**
+     * The cache entry of which the response is awaited.
+     */
+    private final CachableResponse cachedResponse;
+
+    /**
+     * Ensures the request is released only once, either by the response or by the wait timeout.
+     */
+    private final AtomicBoolean released = new AtomicBoolean(false);
+
+    public PendingCacheRequest(CacheMediator mediator, MessageContext synCtx, CachableResponse cachedResponse) {
+        this.mediator = mediator;
+        this.synCtx = synCtx;
+        this.cachedResponse = cachedResponse;
+    }
+
+    /**
+     * Releases the request once the in flight request completed.
+     *
+     * @param collectedResponse the response collected by the in flight request, null if no response could be
+     *                          collected
+     */
+    public void release(final CachableResponse collectedResponse) {
+        if (released.compareAndSet(false, true)) {
+            cancel();
+            synCtx.getEnvironment().getExecutorService().execute(() -> {
+                if (collectedResponse != null && collectedResponse.isResponseAvailable()) {
+                    mediator.serveFromCache(synCtx, collectedResponse);
+                } else {
+                    mediator.continueMediation(synCtx);
+                }
+            });
+        }
+    }
+
+    /**
+     * Invoked when the wait timeout is reached, the request stops waiting and goes to the backend.
+     */
+    @Override
+    public void run() {
+        if (released.compareAndSet(false, true)) {
+            cachedResponse.removePendingRequest(this);
+            synCtx.getEnvironment().getExecutorService().execute(() -> mediator.continueMediation(synCtx));
+        }
+    }
+}
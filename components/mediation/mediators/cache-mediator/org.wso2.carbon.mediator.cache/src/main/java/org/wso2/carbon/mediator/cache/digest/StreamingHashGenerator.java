@@ -0,0 +1,343 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.mediator.cache.digest;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.soap.SOAPBody;
+import org.apache.axis2.Constants;
+import org.apache.axis2.context.MessageContext;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.commons.json.JsonUtil;
+import org.apache.synapse.transport.passthru.PassThroughConstants;
+import org.wso2.carbon.mediator.cache.CachingConstants;
+import org.wso2.carbon.mediator.cache.CachingException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.SortedMap;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * The {@link DigestGenerator} for the HTTP protocol type which hashes the HTTP method, the To address, the headers and
+ * the payload in a single pass, without building intermediate byte arrays or digests per node. A json payload is
+ * hashed from the buffered json stream and an XML payload is hashed while it is serialized. The hash is a 128 bit
+ * murmur3 hash, {@link StreamingMD5HashGenerator} can be used if a cryptographic digest is required. The generated
+ * key is the base64 representation of the hash.
+ * <p>
+ * Unlike the {@link HttpRequestHashGenerator}, the XML payload is not normalized, hence semantically equal payloads
+ * with a different serialization (e.g. attribute order) get different keys.
+ */
+public class StreamingHashGenerator implements DigestGenerator {
+
+    static final long serialVersionUID = 42L;
+
+    /**
+     * Log object to use when logging is required in this class.
+     */
+    private static final Log log = LogFactory.getLog(StreamingHashGenerator.class);
+
+    /**
+     * This value can be specified for the headersToExcludeInHash property to avoid all the headers when caching.
+     */
+    private static final String EXCLUDE_ALL_VAL = "*";
+
+    /**
+     * Headers which are never hashed due to their dynamic nature.
+     */
+    private static final String[] DYNAMIC_HEADERS = {"Date", "User-Agent"};
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * Buffer used to encode strings and to read the json payload, reused by the requests of a thread.
+     */
+    private static final ThreadLocal<byte[]> BUFFER = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    private String[] headers = {""};
+
+    private String[] permanentlyExcludedHeaders = {};
+
+    private boolean isIncludeHeadersMode = true;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void init(Map<String, Object> properties) {
+        String[] includedHeaders = (String[]) properties.get(CachingConstants.INCLUDED_HEADERS_PROPERTY);
+        if (includedHeaders == null || includedHeaders[0].isEmpty()) {
+            // if include headers have not been explicitly defined mode becomes exclude header
+            isIncludeHeadersMode = false;
+            String[] excludedHeaders = (String[]) properties.get(CachingConstants.EXCLUDED_HEADERS_PROPERTY);
+            headers = excludedHeaders != null ? excludedHeaders : new String[]{""};
+        } else {
+            isIncludeHeadersMode = true;
+            headers = includedHeaders;
+        }
+        String[] excludedHeaders = (String[]) properties.get(CachingConstants.PERMANENTLY_EXCLUDED_HEADERS_STRING);
+        if (excludedHeaders != null) {
+            permanentlyExcludedHeaders = excludedHeaders;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getDigest(MessageContext msgContext) throws CachingException {
+        byte[] buffer = BUFFER.get();
+        HashStream hashStream = newHashStream();
+        try {
+            String method = (String) msgContext.getProperty(Constants.Configuration.HTTP_METHOD);
+            writeString(hashStream, buffer, method);
+            writeString(hashStream, buffer, msgContext.getTo() != null ? msgContext.getTo().getAddress() : null);
+            writeHeaders(hashStream, buffer, msgContext);
+            boolean isGet = msgContext.isDoingREST() && (PassThroughConstants.HTTP_GET.equals(method) ||
+                    PassThroughConstants.HTTP_DELETE.equals(method) ||
+                    PassThroughConstants.HTTP_HEAD.equals(method));
+            if (!isGet) {
+                writePayload(hashStream, buffer, msgContext);
+            }
+        } catch (IOException e) {
+            handleException("Error in calculating the hash value of the request", e);
+        } catch (XMLStreamException e) {
+            handleException("Error in calculating the hash value of the request payload", e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(hashStream.hash());
+    }
+
+    /**
+     * Creates the stream which calculates the hash of the bytes written to it.
+     *
+     * @return hash stream of a new hash
+     */
+    protected HashStream newHashStream() {
+        return new HasherStream(Hashing.murmur3_128().newHasher());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeHeaders(OutputStream out, byte[] buffer, MessageContext msgContext) throws IOException {
+        Map<String, String> transportHeaders = (Map<String, String>) msgContext.getProperty(
+                MessageContext.TRANSPORT_HEADERS);
+        if (transportHeaders == null) {
+            return;
+        }
+        if (isIncludeHeadersMode) {
+            if (EXCLUDE_ALL_VAL.equals(headers[0])) {
+                writeHeaders(out, buffer, transportHeaders, false);
+            } else {
+                // The included headers are written in the configured order
+                for (String header : headers) {
+                    if (!isExcluded(header, permanentlyExcludedHeaders)) {
+                        writeHeader(out, buffer, header, transportHeaders.get(header));
+                    }
+                }
+            }
+        } else if (!EXCLUDE_ALL_VAL.equals(headers[0])) {
+            writeHeaders(out, buffer, transportHeaders, true);
+        }
+    }
+
+    /**
+     * Writes the transport headers in the order of the header names, so that the same set of headers always gives
+     * the same hash. The pass-through transport keeps the headers sorted, the headers are sorted here otherwise.
+     */
+    private void writeHeaders(OutputStream out, byte[] buffer, Map<String, String> transportHeaders,
+                              boolean excludeHeaders) throws IOException {
+        if (transportHeaders instanceof SortedMap) {
+            for (Map.Entry<String, String> entry : transportHeaders.entrySet()) {
+                if (!isExcludedHeader(entry.getKey(), excludeHeaders)) {
+                    writeHeader(out, buffer, entry.getKey(), entry.getValue());
+                }
+            }
+        } else {
+            String[] names = transportHeaders.keySet().toArray(new String[0]);
+            Arrays.sort(names, String.CASE_INSENSITIVE_ORDER);
+            for (String name : names) {
+                if (!isExcludedHeader(name, excludeHeaders)) {
+                    writeHeader(out, buffer, name, transportHeaders.get(name));
+                }
+            }
+        }
+    }
+
+    private boolean isExcludedHeader(String header, boolean excludeHeaders) {
+        return isExcluded(header, permanentlyExcludedHeaders) || (excludeHeaders && isExcluded(header, headers));
+    }
+
+    private boolean isExcluded(String header, String[] excludedHeaders) {
+        for (String excludedHeader : excludedHeaders) {
+            if (excludedHeader.equalsIgnoreCase(header)) {
+                return true;
+            }
+        }
+        return isExcludedDynamicHeader(header);
+    }
+
+    private boolean isExcludedDynamicHeader(String header) {
+        for (String dynamicHeader : DYNAMIC_HEADERS) {
+            if (dynamicHeader.equalsIgnoreCase(header)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeHeader(OutputStream out, byte[] buffer, String name, String value) throws IOException {
+        writeString(out, buffer, name);
+        writeString(out, buffer, value);
+    }
+
+    private void writePayload(OutputStream out, byte[] buffer, MessageContext msgContext)
+            throws IOException, XMLStreamException {
+        if (JsonUtil.hasAJsonPayload(msgContext)) {
+            InputStream jsonStream = JsonUtil.getJsonPayload(msgContext);
+            if (jsonStream != null) {
+                int length;
+                while ((length = jsonStream.read(buffer)) != -1) {
+                    out.write(buffer, 0, length);
+                }
+                return;
+            }
+        }
+        SOAPBody body = msgContext.getEnvelope() != null ? msgContext.getEnvelope().getBody() : null;
+        if (body != null) {
+            OMElement payload = body.getFirstElement();
+            if (payload != null) {
+                payload.serialize(out);
+            }
+        }
+    }
+
+    /**
+     * Writes the UTF-16 code units of the given string followed by a separator, using the given buffer instead of
+     * encoding the string to a new byte array.
+     */
+    private void writeString(OutputStream out, byte[] buffer, String value) throws IOException {
+        if (value != null) {
+            int length = value.length();
+            int position = 0;
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                buffer[position++] = (byte) (c >>> 8);
+                buffer[position++] = (byte) c;
+                if (position == buffer.length) {
+                    out.write(buffer, 0, position);
+                    position = 0;
+                }
+            }
+            out.write(buffer, 0, position);
+        }
+        // A code unit which can not occur in a header or an address separates the values
+        out.write(0);
+        out.write(0);
+    }
+
+    private void handleException(String message, Throwable cause) throws CachingException {
+        log.debug(message, cause);
+        throw new CachingException(message, cause);
+    }
+
+    /**
+     * A stream which calculates the hash of the bytes written to it.
+     */
+    protected abstract static class HashStream extends OutputStream {
+
+        /**
+         * @return the hash of the bytes written to the stream
+         */
+        protected abstract byte[] hash();
+    }
+
+    /**
+     * The hash stream of a Guava {@link Hasher}.
+     */
+    private static class HasherStream extends HashStream {
+
+        private final Hasher hasher;
+
+        HasherStream(Hasher hasher) {
+            this.hasher = hasher;
+        }
+
+        @Override
+        public void write(int b) {
+            hasher.putByte((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            hasher.putBytes(b, off, len);
+        }
+
+        @Override
+        protected byte[] hash() {
+            return hasher.hash().asBytes();
+        }
+    }
+
+    /**
+     * The hash stream of a {@link MessageDigest}. The stream is reset when the hash is calculated, hence it can be
+     * reused by the requests of a thread.
+     */
+    protected static class MessageDigestStream extends HashStream {
+
+        private final MessageDigest messageDigest;
+
+        public MessageDigestStream(String digestAlgorithm) {
+            try {
+                messageDigest = MessageDigest.getInstance(digestAlgorithm);
+            } catch (NoSuchAlgorithmException e) {
+                throw new CachingException("Can not locate the algorithm provided for the digest generation : " +
+                        digestAlgorithm, e);
+            }
+        }
+
+        @Override
+        public void write(int b) {
+            messageDigest.update((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            messageDigest.update(b, off, len);
+        }
+
+        @Override
+        protected byte[] hash() {
+            return messageDigest.digest();
+        }
+
+        /**
+         * Discards the bytes written to the stream since the last hash.
+         */
+        public void reset() {
+            messageDigest.reset();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.mediator.cache.digest;
+
+/**
+ * The {@link StreamingHashGenerator} which uses the MD5 digest instead of the murmur3 hash. The MessageDigest is
+ * reused by the requests of a thread.
+ */
+public class StreamingMD5HashGenerator extends StreamingHashGenerator {
+
+    static final long serialVersionUID = 42L;
+
+    /**
+     * String representing the MD5 digest algorithm.
+     */
+    private static final String MD5_DIGEST_ALGORITHM = "MD5";
+
+    private static final ThreadLocal<MessageDigestStream> DIGEST_STREAM =
+            ThreadLocal.withInitial(() -> new MessageDigestStream(MD5_DIGEST_ALGORITHM));
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected HashStream newHashStream() {
+        MessageDigestStream digestStream = DIGEST_STREAM.get();
+        digestStream.reset();
+        return digestStream;
+    }
+}
@@ -34,6 +34,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -130,6 +131,36 @@ public class HttpCachingFilter {
         return null;
     }
 
+    /**
+     * This method sets the conditional headers to revalidate the cached response with the backend, so that the
+     * backend can reply with 304 Not Modified if the response has not changed.
+     *
+     * @param cachedResponse The cached response to be revalidated.
+     * @param msgCtx         The messageContext of the revalidation request.
+     */
+    @SuppressWarnings("unchecked")
+    public static void setRevalidationHeaders(CachableResponse cachedResponse,
+                                              org.apache.axis2.context.MessageContext msgCtx) {
+        Map<String, Object> httpHeaders = cachedResponse.getHeaderProperties();
+        if (httpHeaders == null) {
+            return;
+        }
+        Map<String, Object> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        Map<String, Object> requestHeaders = (Map<String, Object>) msgCtx.getProperty(
+                org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS);
+        if (requestHeaders != null) {
+            headers.putAll(requestHeaders);
+        }
+        String eTagValue = getETagValue(httpHeaders);
+        if (StringUtils.isNotEmpty(eTagValue)) {
+            headers.put(CachingConstants.IF_NONE_MATCH, eTagValue);
+        }
+        if (httpHeaders.get(HttpHeaders.LAST_MODIFIED) != null) {
+            headers.put(CachingConstants.IF_MODIFIED_SINCE, String.valueOf(httpHeaders.get(HttpHeaders.LAST_MODIFIED)));
+        }
+        msgCtx.setProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS, headers);
+    }
+
     /**
      * This method sets the Age header.
      *
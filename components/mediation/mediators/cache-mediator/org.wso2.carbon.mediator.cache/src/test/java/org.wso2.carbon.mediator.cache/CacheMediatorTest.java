@@ -17,35 +17,56 @@
 
 package org.wso2.carbon.mediator.cache;
 
+import com.google.common.cache.LoadingCache;
 import com.google.common.net.HttpHeaders;
 import org.apache.axiom.om.OMAbstractFactory;
 import org.apache.axiom.om.OMElement;
 import org.apache.axiom.om.util.UUIDGenerator;
 import org.apache.axiom.util.UIDGenerator;
 import org.apache.axis2.AxisFault;
+import org.apache.axis2.addressing.EndpointReference;
 import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.context.OperationContext;
 import org.apache.axis2.context.ServiceContext;
 import org.apache.axis2.description.InOutAxisOperation;
+import org.apache.axis2.engine.AxisConfiguration;
 import org.apache.commons.collections.map.MultiValueMap;
 import org.apache.synapse.MessageContext;
 import org.apache.synapse.config.SynapseConfigUtils;
 import org.apache.synapse.config.SynapseConfiguration;
+import org.apache.synapse.core.SynapseEnvironment;
 import org.apache.synapse.core.axis2.Axis2MessageContext;
+import org.apache.synapse.core.axis2.Axis2SynapseEnvironment;
+import org.apache.synapse.mediators.AbstractMediator;
+import org.apache.synapse.mediators.base.SequenceMediator;
 import org.apache.synapse.transport.nhttp.NhttpConstants;
 import org.custommonkey.xmlunit.XMLTestCase;
 import org.custommonkey.xmlunit.XMLUnit;
+import org.wso2.carbon.mediator.cache.digest.DigestGenerator;
+import org.wso2.carbon.mediator.cache.digest.StreamingHashGenerator;
+import org.wso2.carbon.mediator.cache.digest.StreamingMD5HashGenerator;
 import org.wso2.carbon.mediator.cache.util.HttpCachingFilter;
 
+import java.nio.charset.StandardCharsets;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Test the functionality of the {@link CacheMediatorFactory} and the {@link CacheMediatorSerializer}
@@ -75,11 +96,22 @@ public class CacheMediatorTest extends XMLTestCase {
     public static final String CACHE_CONTROL_HEADER = "no-cache, no-store, max-age=80";
     private ConfigurationContext configContext;
     private SynapseConfiguration synapseConfig;
+    private SynapseEnvironment synapseEnvironment;
 
     public CacheMediatorTest(String name) {
         super(name);
     }
 
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        AxisConfiguration axisConfig = new AxisConfiguration();
+        configContext = new ConfigurationContext(axisConfig);
+        synapseConfig = new SynapseConfiguration();
+        synapseConfig.setAxisConfiguration(axisConfig);
+        synapseEnvironment = new Axis2SynapseEnvironment(configContext, synapseConfig);
+    }
+
     public void testMediatorFactory() {
         OMElement mediatorElement = SynapseConfigUtils.stringToOM(mediatorXml);
 
@@ -220,6 +252,423 @@ public class CacheMediatorTest extends XMLTestCase {
         assertEquals(dateFormat.format(cachedResponse.getResponseFetchedTime()), responseOriginatedTime);
     }
 
+    /**
+     * Test case for the coalesceRequests configuration of the mediator factory and serializer.
+     */
+    public void testCoalesceRequestsConfiguration() {
+        String coalescingMediatorXml =
+                "<cache xmlns=\"http://ws.apache.org/ns/synapse\" collector=\"false\" timeout=\"60\">\n" +
+                        "            <protocol type=\"HTTP\"/>\n" +
+                        "            <coalesceRequests waitTimeout=\"2000\">true</coalesceRequests>\n" +
+                        "         </cache>";
+        CacheMediatorFactory factory = new CacheMediatorFactory();
+        CacheMediator mediator = (CacheMediator) factory.createSpecificMediator(
+                SynapseConfigUtils.stringToOM(coalescingMediatorXml), new Properties());
+        assertTrue("Incorrect value for the coalesceRequests", mediator.isCoalesceRequests());
+        assertEquals("Incorrect value for the waitTimeout", mediator.getCoalesceWaitTimeout(), 2000);
+
+        OMElement serializedMediatorElement = new CacheMediatorSerializer().serializeSpecificMediator(mediator);
+        CacheMediator deserializedMediator =
+                (CacheMediator) factory.createSpecificMediator(serializedMediatorElement, new Properties());
+        assertTrue("Incorrect value for the coalesceRequests", deserializedMediator.isCoalesceRequests());
+        assertEquals("Incorrect value for the waitTimeout", deserializedMediator.getCoalesceWaitTimeout(), 2000);
+    }
+
+    /**
+     * Test case for registering requests which wait for an in flight response.
+     */
+    public void testPendingRequests() {
+        CachableResponse cachedResponse = new CachableResponse();
+        PendingCacheRequest firstRequest = new PendingCacheRequest(null, null, cachedResponse);
+        PendingCacheRequest secondRequest = new PendingCacheRequest(null, null, cachedResponse);
+        PendingCacheRequest thirdRequest = new PendingCacheRequest(null, null, cachedResponse);
+
+        assertFalse("First cache miss should fetch the response",
+                cachedResponse.addPendingRequest(firstRequest, 60000));
+        assertTrue("Concurrent cache miss should wait", cachedResponse.addPendingRequest(secondRequest, 60000));
+        assertTrue("Concurrent cache miss should wait", cachedResponse.addPendingRequest(thirdRequest, 60000));
+        cachedResponse.removePendingRequest(thirdRequest);
+        assertEquals(Arrays.asList(secondRequest), cachedResponse.completeInFlightRequest());
+        assertTrue(cachedResponse.completeInFlightRequest().isEmpty());
+
+        assertFalse("Cache miss after completion should fetch the response",
+                cachedResponse.addPendingRequest(firstRequest, 60000));
+        assertFalse("Cache miss after the wait timeout should fetch the response",
+                cachedResponse.addPendingRequest(secondRequest, -1));
+    }
+
+    /**
+     * Test case for sending a single request to the backend for concurrent identical requests.
+     */
+    public void testCoalescedRequests() throws Exception {
+        int requestCount = 20;
+        CountDownLatch released = new CountDownLatch(requestCount - 1);
+        AtomicInteger servedRequests = new AtomicInteger();
+        AtomicInteger continuedRequests = new AtomicInteger();
+        CacheManager cacheManager = new CacheManager(-1);
+        CacheMediator mediator = new CacheMediator(cacheManager) {
+            @Override
+            void serveFromCache(MessageContext synCtx, CachableResponse cachedResponse) {
+                servedRequests.incrementAndGet();
+                released.countDown();
+            }
+
+            @Override
+            void continueMediation(MessageContext synCtx) {
+                continuedRequests.incrementAndGet();
+                released.countDown();
+            }
+        };
+        mediator.setDigestGenerator(createDigestGenerator());
+        mediator.setCoalesceRequests(true);
+        mediator.setCoalesceWaitTimeout(60000);
+        CacheMediator collector = new CacheMediator(cacheManager);
+        collector.setCollector(true);
+
+        List<MessageContext> backendRequests = new CopyOnWriteArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(requestCount);
+        try {
+            List<Future<?>> requests = new ArrayList<>();
+            for (int i = 0; i < requestCount; i++) {
+                MessageContext requestCtx = createRequestMessageContext();
+                requestCtx.setContinuationEnabled(true);
+                requests.add(executor.submit(() -> {
+                    start.await();
+                    if (mediator.mediate(requestCtx)) {
+                        backendRequests.add(requestCtx);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> request : requests) {
+                request.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals("Only one of the concurrent requests should go to the backend", 1, backendRequests.size());
+
+        assertTrue(collector.mediate(createResponseMessageContext(
+                (CachableResponse) backendRequests.get(0).getProperty(CachingConstants.CACHED_OBJECT), "response")));
+        assertTrue("Waiting requests should be released", released.await(10, TimeUnit.SECONDS));
+        assertEquals("Waiting requests should be served from the cache", requestCount - 1, servedRequests.get());
+        assertEquals(0, continuedRequests.get());
+    }
+
+    /**
+     * Test case for the factory and serializer of the byte bounded and off-heap cache configuration.
+     */
+    public void testWeightedCacheConfiguration() {
+        String weightedMediatorXml =
+                "<cache xmlns=\"http://ws.apache.org/ns/synapse\" collector=\"false\" timeout=\"60\">\n" +
+                        "            <protocol type=\"HTTP\"/>\n" +
+                        "            <implementation maxBytes=\"1048576\" offHeap=\"true\" concurrencyLevel=\"8\"/>\n" +
+                        "         </cache>";
+        CacheMediatorFactory factory = new CacheMediatorFactory();
+        CacheMediator mediator = (CacheMediator) factory.createSpecificMediator(
+                SynapseConfigUtils.stringToOM(weightedMediatorXml), new Properties());
+        assertEquals("Incorrect value for the maxBytes", mediator.getMaxBytes(), 1048576);
+        assertTrue("Incorrect value for the offHeap", mediator.isOffHeap());
+        assertEquals("Incorrect value for the maxSize", mediator.getInMemoryCacheSize(), -1);
+        assertEquals("Incorrect value for the concurrencyLevel", mediator.getConcurrencyLevel(), 8);
+
+        OMElement serializedMediatorElement = new CacheMediatorSerializer().serializeSpecificMediator(mediator);
+        CacheMediator deserializedMediator =
+                (CacheMediator) factory.createSpecificMediator(serializedMediatorElement, new Properties());
+        assertEquals("Incorrect value for the maxBytes", deserializedMediator.getMaxBytes(), 1048576);
+        assertTrue("Incorrect value for the offHeap", deserializedMediator.isOffHeap());
+        assertEquals("Incorrect value for the concurrencyLevel", deserializedMediator.getConcurrencyLevel(), 8);
+    }
+
+    /**
+     * Test case for the accounting of the cached bytes and the byte weighted eviction.
+     */
+    public void testCachedBytes() {
+        CacheManager cacheManager = new CacheManager(150);
+        CacheMediator mediator = new CacheMediator(cacheManager);
+        mediator.setMaxBytes(100);
+        // A single segment is used so that the whole cache is evicted in the least recently used order.
+        mediator.setConcurrencyLevel(1);
+        LoadingCache<String, CachableResponse> cache = mediator.getMediatorCache();
+
+        CachableResponse firstResponse = cache.getUnchecked("first");
+        assertTrue(cacheManager.reserveBytes(firstResponse, 60));
+        assertTrue(cache.asMap().replace("first", firstResponse, firstResponse));
+        CachableResponse secondResponse = cache.getUnchecked("second");
+        assertTrue(cacheManager.reserveBytes(secondResponse, 60));
+        assertTrue(cache.asMap().replace("second", secondResponse, secondResponse));
+        cache.cleanUp();
+        assertEquals("Least recently used response should be evicted", 1, cache.size());
+        assertEquals(60, cacheManager.getCachedBytes());
+        assertEquals(1, cacheManager.getEvictionCount());
+
+        CachableResponse thirdResponse = cache.getUnchecked("third");
+        assertFalse("Global maximum bytes should not be exceeded", cacheManager.reserveBytes(thirdResponse, 100));
+        assertEquals(60, cacheManager.getCachedBytes());
+
+        cacheManager.clean();
+        assertEquals(0, cacheManager.getCachedBytes());
+    }
+
+    /**
+     * Test case for accounting the size of the collected responses only if the cache is bounded by bytes.
+     */
+    public void testResponseSizeAccounting() throws Exception {
+        CacheManager cacheManager = new CacheManager(-1);
+        CacheMediator mediator = new CacheMediator(cacheManager);
+        mediator.setDigestGenerator(createDigestGenerator());
+        CacheMediator collector = new CacheMediator(cacheManager);
+        collector.setCollector(true);
+
+        MessageContext requestCtx = createRequestMessageContext();
+        assertTrue(mediator.mediate(requestCtx));
+        assertTrue(collector.mediate(createResponseMessageContext(
+                (CachableResponse) requestCtx.getProperty(CachingConstants.CACHED_OBJECT), "unbounded")));
+        assertEquals("Size should not be accounted without a limit", 0, cacheManager.getCachedBytes());
+
+        CacheMediator boundedMediator = new CacheMediator(cacheManager);
+        boundedMediator.setDigestGenerator(createDigestGenerator());
+        boundedMediator.setMaxBytes(1048576);
+        requestCtx = createRequestMessageContext();
+        assertTrue(boundedMediator.mediate(requestCtx));
+        assertTrue(collector.mediate(createResponseMessageContext(
+                (CachableResponse) requestCtx.getProperty(CachingConstants.CACHED_OBJECT), "bounded")));
+        CachableResponse cachedResponse = boundedMediator.getMediatorCache().getUnchecked(
+                (String) requestCtx.getProperty(CachingConstants.REQUEST_HASH));
+        assertTrue("Size should be accounted with a limit", cachedResponse.getWeight() > 0);
+        assertEquals(cachedResponse.getWeight(), cacheManager.getCachedBytes());
+    }
+
+    /**
+     * Test case for storing the json response payload outside the Java heap.
+     */
+    public void testOffHeapResponsePayload() {
+        byte[] payload = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+        CachableResponse cachedResponse = new CachableResponse();
+        cachedResponse.setOffHeapEnabled(true);
+        cachedResponse.setResponsePayload(payload);
+        assertTrue(cachedResponse.isResponseAvailable());
+        assertTrue(Arrays.equals(payload, cachedResponse.getResponsePayload()));
+        assertTrue(Arrays.equals(payload, cachedResponse.getResponsePayload()));
+        cachedResponse.clean();
+        assertFalse(cachedResponse.isResponseAvailable());
+    }
+
+    /**
+     * Test case for the factory and serializer of the staleWhileRevalidate configuration.
+     */
+    public void testStaleWhileRevalidateConfiguration() {
+        String staleMediatorXml =
+                "<cache xmlns=\"http://ws.apache.org/ns/synapse\" collector=\"false\" timeout=\"60\">\n" +
+                        "            <protocol type=\"HTTP\"/>\n" +
+                        "            <staleWhileRevalidate>30</staleWhileRevalidate>\n" +
+                        "         </cache>";
+        CacheMediatorFactory factory = new CacheMediatorFactory();
+        CacheMediator mediator = (CacheMediator) factory.createSpecificMediator(
+                SynapseConfigUtils.stringToOM(staleMediatorXml), new Properties());
+        assertEquals("Incorrect value for the staleWhileRevalidate", mediator.getStaleWhileRevalidate(), 30);
+
+        OMElement serializedMediatorElement = new CacheMediatorSerializer().serializeSpecificMediator(mediator);
+        CacheMediator deserializedMediator =
+                (CacheMediator) factory.createSpecificMediator(serializedMediatorElement, new Properties());
+        assertEquals("Incorrect value for the staleWhileRevalidate",
+                deserializedMediator.getStaleWhileRevalidate(), 30);
+    }
+
+    /**
+     * Test case for allowing a single background revalidation of a stale response.
+     */
+    public void testStartRevalidation() {
+        CachableResponse cachedResponse = new CachableResponse();
+        assertTrue("First stale hit should revalidate", cachedResponse.startRevalidation(60000));
+        assertFalse("Concurrent stale hit should not revalidate", cachedResponse.startRevalidation(60000));
+        assertTrue("Incomplete revalidation should be retried", cachedResponse.startRevalidation(-1));
+        cachedResponse.completeRevalidation();
+        assertTrue("Stale hit after the revalidation should revalidate", cachedResponse.startRevalidation(60000));
+    }
+
+    /**
+     * Test case for the conditional headers of the revalidation request.
+     */
+    public void testSetRevalidationHeaders() throws AxisFault {
+        MessageContext synCtx = createMessageContext();
+        org.apache.axis2.context.MessageContext msgCtx = ((Axis2MessageContext) synCtx).getAxis2MessageContext();
+        Map<String, String> requestHeaders = new HashMap<>();
+        requestHeaders.put(HttpHeaders.ACCEPT, "application/json");
+        msgCtx.setProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS, requestHeaders);
+
+        CachableResponse cachedResponse = new CachableResponse();
+        Map<String, Object> responseHeaders = new HashMap<>();
+        responseHeaders.put(HttpHeaders.ETAG, "\"1234\"");
+        responseHeaders.put(HttpHeaders.LAST_MODIFIED, "Wed, 21 Oct 2015 07:28:00 GMT");
+        cachedResponse.setHeaderProperties(responseHeaders);
+
+        HttpCachingFilter.setRevalidationHeaders(cachedResponse, msgCtx);
+        Map headers = (Map) msgCtx.getProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS);
+        assertEquals("application/json", headers.get(HttpHeaders.ACCEPT));
+        assertEquals("\"1234\"", headers.get(HttpHeaders.IF_NONE_MATCH));
+        assertEquals("Wed, 21 Oct 2015 07:28:00 GMT", headers.get(HttpHeaders.IF_MODIFIED_SINCE));
+    }
+
+    /**
+     * Test case for the keys generated by the streaming hash generators.
+     */
+    public void testStreamingHashGenerator() throws AxisFault {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(CachingConstants.INCLUDED_HEADERS_PROPERTY, new String[]{""});
+        properties.put(CachingConstants.EXCLUDED_HEADERS_PROPERTY, new String[]{"Excluded"});
+        properties.put(CachingConstants.PERMANENTLY_EXCLUDED_HEADERS_STRING, new String[]{"activityid"});
+        for (DigestGenerator digestGenerator : Arrays.asList(new StreamingHashGenerator(),
+                new StreamingMD5HashGenerator())) {
+            digestGenerator.init(properties);
+            String key = digestGenerator.getDigest(createHashedMessageContext("1", "a", "a", "1"));
+            assertEquals("Same request should give the same key", key,
+                    digestGenerator.getDigest(createHashedMessageContext("1", "b", "b", "1")));
+            assertFalse("Different header should give a different key", key.equals(
+                    digestGenerator.getDigest(createHashedMessageContext("2", "a", "a", "1"))));
+            assertFalse("Different payload should give a different key", key.equals(
+                    digestGenerator.getDigest(createHashedMessageContext("1", "a", "a", "2"))));
+        }
+    }
+
+    /**
+     * Test case for serving cache hits while a revalidation of the cached response collects a new response.
+     */
+    public void testRevalidationWithConcurrentHits() throws Exception {
+        CacheManager cacheManager = new CacheManager(-1);
+        CacheMediator mediator = new CacheMediator(cacheManager);
+        mediator.setDigestGenerator(createDigestGenerator());
+        mediator.setStaleWhileRevalidate(60);
+        RecordingMediator onCacheHit = new RecordingMediator();
+        SequenceMediator onCacheHitSequence = new SequenceMediator();
+        onCacheHitSequence.addChild(onCacheHit);
+        mediator.setOnCacheHitSequence(onCacheHitSequence);
+        CacheMediator collector = new CacheMediator(cacheManager);
+        collector.setCollector(true);
+
+        MessageContext requestCtx = createRequestMessageContext();
+        assertTrue("Cache miss should go to the backend", mediator.mediate(requestCtx));
+        assertTrue(collector.mediate(createResponseMessageContext(
+                (CachableResponse) requestCtx.getProperty(CachingConstants.CACHED_OBJECT), "stale")));
+        String requestHash = (String) requestCtx.getProperty(CachingConstants.REQUEST_HASH);
+        CachableResponse staleResponse = mediator.getMediatorCache().getUnchecked(requestHash);
+        assertTrue(staleResponse.isResponseAvailable());
+
+        int hitCount = 200;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> hits = new CopyOnWriteArrayList<>();
+            for (int i = 0; i < hitCount; i++) {
+                hits.add(executor.submit(() -> {
+                    start.await();
+                    return mediator.mediate(createRequestMessageContext());
+                }));
+            }
+            MessageContext revalidationCtx = createResponseMessageContext(staleResponse, "fresh");
+            revalidationCtx.setProperty(CachingConstants.REVALIDATION_REQUEST, Boolean.TRUE);
+            start.countDown();
+            assertFalse("Revalidation response should not be sent to the client",
+                    collector.mediate(revalidationCtx));
+            for (Future<Boolean> hit : hits) {
+                assertFalse("Request should be served from the cache", hit.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(hitCount, onCacheHit.getServedVersions().size());
+        for (String servedVersion : onCacheHit.getServedVersions()) {
+            assertTrue("Hit should be served with a consistent response : " + servedVersion,
+                    "stale|stale".equals(servedVersion) || "fresh|fresh".equals(servedVersion));
+        }
+        assertEquals("Response served to the concurrent hits should not be modified", "stale",
+                staleResponse.getResponseEnvelope().getBody().getFirstElement().getText());
+        assertEquals("stale", staleResponse.getHeaderProperties().get("X-Version"));
+        CachableResponse freshResponse = mediator.getMediatorCache().getUnchecked(requestHash);
+        assertNotSame(staleResponse, freshResponse);
+        assertEquals("fresh", freshResponse.getResponseEnvelope().getBody().getFirstElement().getText());
+        assertEquals("fresh", freshResponse.getHeaderProperties().get("X-Version"));
+    }
+
+    private DigestGenerator createDigestGenerator() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(CachingConstants.INCLUDED_HEADERS_PROPERTY, new String[]{""});
+        properties.put(CachingConstants.EXCLUDED_HEADERS_PROPERTY, new String[]{""});
+        properties.put(CachingConstants.PERMANENTLY_EXCLUDED_HEADERS_STRING, new String[]{"activityid"});
+        DigestGenerator digestGenerator = new StreamingHashGenerator();
+        digestGenerator.init(properties);
+        return digestGenerator;
+    }
+
+    private MessageContext createRequestMessageContext() throws AxisFault {
+        MessageContext synCtx = createMessageContext();
+        org.apache.axis2.context.MessageContext msgCtx = ((Axis2MessageContext) synCtx).getAxis2MessageContext();
+        msgCtx.setTo(new EndpointReference("http://localhost:8280/orders"));
+        msgCtx.setProperty(org.apache.axis2.Constants.Configuration.HTTP_METHOD, "POST");
+        msgCtx.setProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS,
+                new TreeMap<>(String.CASE_INSENSITIVE_ORDER));
+        msgCtx.getEnvelope().getBody().addChild(SynapseConfigUtils.stringToOM("<order><id>1</id></order>"));
+        return synCtx;
+    }
+
+    private MessageContext createResponseMessageContext(CachableResponse cachedResponse, String version)
+            throws AxisFault {
+        MessageContext synCtx = createMessageContext();
+        synCtx.setResponse(true);
+        synCtx.setProperty(CachingConstants.CACHED_OBJECT, cachedResponse);
+        org.apache.axis2.context.MessageContext msgCtx = ((Axis2MessageContext) synCtx).getAxis2MessageContext();
+        msgCtx.setProperty(NhttpConstants.HTTP_SC, 200);
+        Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.put("X-Version", version);
+        msgCtx.setProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS, headers);
+        msgCtx.getEnvelope().getBody().addChild(
+                SynapseConfigUtils.stringToOM("<version>" + version + "</version>"));
+        return synCtx;
+    }
+
+    /**
+     * Records the payload and the headers of the responses served from the cache.
+     */
+    private static class RecordingMediator extends AbstractMediator {
+
+        private final List<String> servedVersions = new CopyOnWriteArrayList<>();
+
+        @Override
+        public boolean mediate(MessageContext synCtx) {
+            org.apache.axis2.context.MessageContext msgCtx = ((Axis2MessageContext) synCtx).getAxis2MessageContext();
+            Map headers = (Map) msgCtx.getProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS);
+            servedVersions.add(msgCtx.getEnvelope().getBody().getFirstElement().getText() + "|" +
+                    headers.get("X-Version"));
+            return true;
+        }
+
+        List<String> getServedVersions() {
+            return servedVersions;
+        }
+    }
+
+    private org.apache.axis2.context.MessageContext createHashedMessageContext(String headerValue,
+                                                                               String excludedHeaderValue,
+                                                                               String activityId,
+                                                                               String payloadValue)
+            throws AxisFault {
+        org.apache.axis2.context.MessageContext msgCtx =
+                ((Axis2MessageContext) createMessageContext()).getAxis2MessageContext();
+        msgCtx.setTo(new EndpointReference("http://localhost:8280/orders"));
+        msgCtx.setProperty(org.apache.axis2.Constants.Configuration.HTTP_METHOD, "POST");
+        Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.put("Included", headerValue);
+        headers.put("Excluded", excludedHeaderValue);
+        headers.put("activityid", activityId);
+        msgCtx.setProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS, headers);
+        msgCtx.getEnvelope().getBody().addChild(
+                SynapseConfigUtils.stringToOM("<order><id>" + payloadValue + "</id></order>"));
+        return msgCtx;
+    }
+
     /**
      * Create Axis2 Message Context.
      *
@@ -248,7 +697,7 @@ public class CacheMediatorTest extends XMLTestCase {
         OperationContext opCtx = new OperationContext(new InOutAxisOperation(), svcCtx);
         axis2MC.setServiceContext(svcCtx);
         axis2MC.setOperationContext(opCtx);
-        Axis2MessageContext mc = new Axis2MessageContext(axis2MC, this.synapseConfig, null);
+        Axis2MessageContext mc = new Axis2MessageContext(axis2MC, this.synapseConfig, this.synapseEnvironment);
         mc.setMessageID(UIDGenerator.generateURNString());
         mc.setEnvelope(OMAbstractFactory.getSOAP12Factory().createSOAPEnvelope());
         mc.getEnvelope().addChild(OMAbstractFactory.getSOAP12Factory().createSOAPBody());
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.mediator.cache;
+
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axiom.soap.SOAPFactory;
+import org.apache.axis2.Constants;
+import org.apache.axis2.addressing.EndpointReference;
+import org.apache.axis2.context.MessageContext;
+import org.apache.synapse.config.SynapseConfigUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.wso2.carbon.mediator.cache.digest.DigestGenerator;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the time taken by the digest generators to generate the key of a request with a 1KB and a 100KB
+ * XML payload. The benchmark is not run with the unit tests, it can be run with the main method using the test
+ * class path of the module.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DigestGeneratorBenchmark {
+
+    @Param({"REQUESTHASHGenerator", "DOMHASHGenerator", "HttpRequestHashGenerator", "StreamingHashGenerator",
+            "StreamingMD5HashGenerator"})
+    private String generator;
+
+    @Param({"1024", "102400"})
+    private int payloadSize;
+
+    private DigestGenerator digestGenerator;
+
+    private MessageContext msgContext;
+
+    @Setup
+    public void setUp() throws Exception {
+        digestGenerator = (DigestGenerator) Class.forName("org.wso2.carbon.mediator.cache.digest." + generator)
+                .newInstance();
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(CachingConstants.INCLUDED_HEADERS_PROPERTY, new String[]{""});
+        properties.put(CachingConstants.EXCLUDED_HEADERS_PROPERTY, new String[]{""});
+        properties.put(CachingConstants.PERMANENTLY_EXCLUDED_HEADERS_STRING, new String[]{"activityid"});
+        digestGenerator.init(properties);
+
+        msgContext = new MessageContext();
+        msgContext.setTo(new EndpointReference("http://localhost:8280/orders"));
+        msgContext.setProperty(Constants.Configuration.HTTP_METHOD, "POST");
+        Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.put("Content-Type", "application/xml");
+        headers.put("Accept", "application/xml");
+        headers.put("Host", "localhost:8280");
+        headers.put("activityid", "a2b4c6d8");
+        msgContext.setProperty(MessageContext.TRANSPORT_HEADERS, headers);
+        SOAPFactory factory = OMAbstractFactory.getSOAP12Factory();
+        SOAPEnvelope envelope = factory.createSOAPEnvelope();
+        envelope.addChild(factory.createSOAPBody());
+        msgContext.setEnvelope(envelope);
+        envelope.getBody().addChild(SynapseConfigUtils.stringToOM(createPayload(payloadSize)));
+        // The message is built before the key is generated by the mediator.
+        envelope.build();
+    }
+
+    @Benchmark
+    public String getDigest() throws CachingException {
+        return digestGenerator.getDigest(msgContext);
+    }
+
+    private static String createPayload(int size) {
+        StringBuilder payload = new StringBuilder(size + 64).append("<orders>");
+        for (int i = 0; payload.length() < size; i++) {
+            payload.append("<order id=\"").append(i).append("\"><symbol>WSO2</symbol><quantity>").append(i % 100)
+                    .append("</quantity><price>").append(i * 1.5).append("</price></order>");
+        }
+        return payload.append("</orders>").toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(DigestGeneratorBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+}
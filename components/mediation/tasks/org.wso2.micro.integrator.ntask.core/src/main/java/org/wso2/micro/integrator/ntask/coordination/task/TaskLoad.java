@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.micro.integrator.ntask.coordination.task;
+
+/**
+ * Representation of the measured load of a coordinated task, i.e. the time spent on executing the task per second
+ * of wall clock time.
+ */
+public class TaskLoad {
+
+    /**
+     * Execution time of the task in microseconds per second.
+     */
+    private long executionTime;
+
+    /**
+     * CPU time of the task in microseconds per second, which is zero if the JVM doesn't measure the CPU time.
+     */
+    private long cpuTime;
+
+    public TaskLoad(long executionTime, long cpuTime) {
+
+        this.executionTime = executionTime;
+        this.cpuTime = cpuTime;
+    }
+
+    public long getExecutionTime() {
+        return this.executionTime;
+    }
+
+    public long getCpuTime() {
+        return this.cpuTime;
+    }
+
+    public String toString() {
+        return "Execution time [" + executionTime + "us/s] CPU time [" + cpuTime + "us/s]";
+    }
+}
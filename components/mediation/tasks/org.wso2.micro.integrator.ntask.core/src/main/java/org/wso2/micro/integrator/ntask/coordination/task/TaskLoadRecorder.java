@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.micro.integrator.ntask.coordination.task;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the execution time and the CPU time of the task executions in this node, from which the load of the
+ * coordinated tasks is calculated to be published to the task store.
+ *
+ * @see org.wso2.micro.integrator.ntask.coordination.task.resolver.LoadAwareTaskLocationResolver
+ */
+public class TaskLoadRecorder {
+
+    private static final Log LOG = LogFactory.getLog(TaskLoadRecorder.class);
+
+    /**
+     * Weight of the latest measurement in the smoothed load.
+     */
+    private static final double SMOOTHING_FACTOR = 0.5;
+
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    private final boolean cpuTimeSupported;
+    private final Map<String, TaskStatistics> taskStatistics = new ConcurrentHashMap<>();
+    private long lastCalculatedTime = System.nanoTime();
+
+    public TaskLoadRecorder() {
+
+        boolean supported = threadMXBean.isCurrentThreadCpuTimeSupported();
+        if (supported && !threadMXBean.isThreadCpuTimeEnabled()) {
+            try {
+                threadMXBean.setThreadCpuTimeEnabled(true);
+            } catch (UnsupportedOperationException | SecurityException e) {
+                LOG.debug("Unable to enable thread CPU time measurement.", e);
+            }
+        }
+        this.cpuTimeSupported = supported && threadMXBean.isThreadCpuTimeEnabled();
+        if (!cpuTimeSupported) {
+            LOG.debug("Thread CPU time is not supported, hence only the execution time of the tasks is recorded.");
+        }
+    }
+
+    /**
+     * Provides the CPU time of the current thread, to be passed to {@link #record(String, long, long)} along with
+     * the CPU time after the execution.
+     *
+     * @return - CPU time of the current thread in nanoseconds, or zero if it is not supported.
+     */
+    public long getCurrentThreadCpuTime() {
+        return cpuTimeSupported ? threadMXBean.getCurrentThreadCpuTime() : 0;
+    }
+
+    /**
+     * Records an execution of the task.
+     *
+     * @param taskName      - Name of the task.
+     * @param executionTime - Execution time in nanoseconds.
+     * @param cpuTime       - CPU time in nanoseconds.
+     */
+    public void record(String taskName, long executionTime, long cpuTime) {
+        taskStatistics.computeIfAbsent(taskName, name -> new TaskStatistics()).record(executionTime, cpuTime);
+    }
+
+    /**
+     * Calculates the load of the given tasks from the executions recorded since the previous calculation, smoothed
+     * with the previous loads. The recorded executions of the other tasks are discarded.
+     *
+     * @param taskNames - Names of the tasks, for which the load needs to be calculated.
+     * @return - Map of task name to load.
+     */
+    public synchronized Map<String, TaskLoad> calculateTaskLoads(Collection<String> taskNames) {
+
+        long currentTime = System.nanoTime();
+        long elapsedTime = Math.max(currentTime - lastCalculatedTime, 1);
+        lastCalculatedTime = currentTime;
+        taskStatistics.keySet().retainAll(taskNames);
+        Map<String, TaskLoad> taskLoads = new HashMap<>();
+        for (String taskName : taskNames) {
+            TaskStatistics statistics = taskStatistics.computeIfAbsent(taskName, name -> new TaskStatistics());
+            taskLoads.put(taskName, statistics.calculateLoad(elapsedTime));
+        }
+        return taskLoads;
+    }
+
+    /**
+     * The executions of a task since the previous calculation, and the smoothed load.
+     */
+    private static class TaskStatistics {
+
+        private final LongAdder executionTime = new LongAdder();
+        private final LongAdder cpuTime = new LongAdder();
+        private double smoothedExecutionTime = -1;
+        private double smoothedCpuTime = -1;
+
+        void record(long executionTime, long cpuTime) {
+            this.executionTime.add(executionTime);
+            this.cpuTime.add(cpuTime);
+        }
+
+        TaskLoad calculateLoad(long elapsedTime) {
+
+            smoothedExecutionTime = smooth(smoothedExecutionTime, perSecond(executionTime.sumThenReset(), elapsedTime));
+            smoothedCpuTime = smooth(smoothedCpuTime, perSecond(cpuTime.sumThenReset(), elapsedTime));
+            return new TaskLoad(Math.round(smoothedExecutionTime), Math.round(smoothedCpuTime));
+        }
+
+        private static double perSecond(long time, long elapsedTime) {
+            return (double) TimeUnit.NANOSECONDS.toMicros(time) * TimeUnit.SECONDS.toNanos(1) / elapsedTime;
+        }
+
+        private static double smooth(double smoothedValue, double value) {
+            return smoothedValue < 0 ? value : SMOOTHING_FACTOR * value + (1 - SMOOTHING_FACTOR) * smoothedValue;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.micro.integrator.ntask.coordination.task.resolver;
+
+import org.wso2.micro.integrator.ntask.coordination.task.ClusterCommunicator;
+import org.wso2.micro.integrator.ntask.coordination.task.CoordinatedTask;
+import org.wso2.micro.integrator.ntask.coordination.task.TaskLoad;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This interface represents a task location resolver which resolves the tasks based on their measured load. When
+ * this resolver is used, each node publishes the load of its running coordinated tasks to the task store, and the
+ * leader node periodically updates the resolver with the loads, upon which the resolver can move tasks between nodes.
+ */
+public interface LoadAwareTaskLocationResolver extends TaskLocationResolver {
+
+    /**
+     * Updates the resolver with the current assignment and the load of the tasks, and returns the tasks which need
+     * to be moved to balance the load. The returned tasks will be un assigned and resolved again.
+     *
+     * @param clusterCommunicator - The cluster clusterCommunicator instance.
+     * @param assignedTasks       - All the assigned and incomplete tasks.
+     * @param taskLoads           - The load of the tasks, by task name.
+     * @return - Names of the tasks to be moved.
+     */
+    List<String> rebalance(ClusterCommunicator clusterCommunicator, List<CoordinatedTask> assignedTasks,
+                           Map<String, TaskLoad> taskLoads);
+
+    /**
+     * Sets the period of the task scheduler of the nodes. A node stops the tasks un assigned from it on its next run
+     * of the task scheduler, hence a moved task needs to be resolved again only after this period has elapsed.
+     *
+     * @param schedulerPeriod - The period of the task scheduler in milliseconds.
+     */
+    void setSchedulerPeriod(long schedulerPeriod);
+
+    /**
+     * Notifies the resolver that this node became the leader. The tasks moved by the previous leader may still be
+     * running in their previous nodes, hence the un assigned tasks need to be resolved only after the handoff delay.
+     */
+    void becameLeader();
+
+}
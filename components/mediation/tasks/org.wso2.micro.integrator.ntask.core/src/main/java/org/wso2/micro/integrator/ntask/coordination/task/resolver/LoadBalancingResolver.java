@@ -0,0 +1,353 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.micro.integrator.ntask.coordination.task.resolver;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.micro.integrator.ntask.coordination.task.ClusterCommunicator;
+import org.wso2.micro.integrator.ntask.coordination.task.CoordinatedTask;
+import org.wso2.micro.integrator.ntask.coordination.task.TaskLoad;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This resolver resolves the tasks to the node with the least load, where the load of a node is the sum of the
+ * measured cost of the tasks assigned to it. The cost of a task is its CPU time per second plus a fraction of the
+ * time it spends waiting ( i.e. execution time which is not CPU time ), and the tasks which are not measured yet are
+ * assumed to have the average cost.
+ * <p>
+ * Upon rebalancing, running tasks are moved from the node with the highest load to the node with the lowest load as
+ * long as the difference between them exceeds the rebalance threshold. To avoid thrashing, a moved task is not moved
+ * again within the move cooldown. A moved task is resolved to its new node only after the handoff delay, so that the
+ * previous node stops it first. As the previous node stops it on its next run of the task scheduler, the handoff
+ * delay is at least two periods of the task scheduler, whichever the configured handoff delay. The moves are known
+ * only to the leader which made them, hence a node which becomes the leader resolves no task within the handoff
+ * delay, as any of the un assigned tasks may have been moved by the previous leader.
+ */
+public class LoadBalancingResolver implements LoadAwareTaskLocationResolver {
+
+    private static final Log log = LogFactory.getLog(LoadBalancingResolver.class);
+
+    // the ratio of the load difference between the nodes with the highest and the lowest loads to the highest load,
+    // above which the tasks are rebalanced
+    private static final String REBALANCE_THRESHOLD_PROPERTY = "rebalance_threshold";
+    // the minimum load difference in microseconds per second, for the tasks to be rebalanced
+    private static final String MIN_REBALANCE_LOAD_PROPERTY = "min_rebalance_load";
+    private static final String MAX_MOVES_PER_REBALANCE_PROPERTY = "max_moves_per_rebalance";
+    // time in seconds
+    private static final String MOVE_COOLDOWN_PROPERTY = "move_cooldown";
+    // time in milliseconds
+    private static final String HANDOFF_DELAY_PROPERTY = "handoff_delay";
+    private static final String WAITING_TIME_WEIGHT_PROPERTY = "waiting_time_weight";
+    // the number of periods of the task scheduler, within which a node stops the tasks moved from it
+    private static final int HANDOFF_SCHEDULER_PERIODS = 2;
+
+    private double rebalanceThreshold = 0.25;
+    private long minRebalanceLoad = 10000;
+    private int maxMovesPerRebalance = 1;
+    private long moveCooldown = TimeUnit.SECONDS.toMillis(300);
+    // the configured handoff delay, which is raised to the handoff periods of the task scheduler
+    private long handoffDelay = 0;
+    private long schedulerPeriod = TimeUnit.SECONDS.toMillis(2);
+    private double waitingTimeWeight = 0.1;
+
+    private final Map<String, Double> taskCosts = new HashMap<>();
+    // the cost assumed for the tasks which are not measured yet
+    private double estimatedCost = 1;
+    private final Map<String, Double> nodeLoads = new HashMap<>();
+    private final Map<String, Integer> nodeTaskCounts = new HashMap<>();
+    // the moved tasks which are not resolved yet
+    private final Map<String, Move> pendingMoves = new HashMap<>();
+    // the time at which the tasks were moved last
+    private final Map<String, Long> moveTimes = new HashMap<>();
+    // the time at which this node became the leader
+    private long leaderTime = 0;
+
+    @Override
+    public void init(Map<String, String> properties) {
+
+        rebalanceThreshold = getDoubleProperty(properties, REBALANCE_THRESHOLD_PROPERTY, rebalanceThreshold);
+        minRebalanceLoad = getLongProperty(properties, MIN_REBALANCE_LOAD_PROPERTY, minRebalanceLoad);
+        maxMovesPerRebalance = (int) getLongProperty(properties, MAX_MOVES_PER_REBALANCE_PROPERTY,
+                                                     maxMovesPerRebalance);
+        moveCooldown = TimeUnit.SECONDS.toMillis(
+                getLongProperty(properties, MOVE_COOLDOWN_PROPERTY, TimeUnit.MILLISECONDS.toSeconds(moveCooldown)));
+        handoffDelay = getLongProperty(properties, HANDOFF_DELAY_PROPERTY, handoffDelay);
+        waitingTimeWeight = getDoubleProperty(properties, WAITING_TIME_WEIGHT_PROPERTY, waitingTimeWeight);
+    }
+
+    @Override
+    public synchronized String getTaskNodeLocation(ClusterCommunicator clusterCommunicator, String taskName) {
+
+        List<String> allNodesAvailableInCluster = clusterCommunicator.getAllNodeIds();
+        if (allNodesAvailableInCluster.isEmpty()) {
+            log.warn("No nodes are registered to the cluster successfully yet.");
+            return null;
+        }
+        if (System.currentTimeMillis() - leaderTime < getHandoffDelay()) {
+            if (log.isDebugEnabled()) {
+                log.debug("The task : " + taskName + ", may have been moved by the previous leader. Hence waiting for "
+                                  + "the previous node to stop it.");
+            }
+            return null;
+        }
+        String destinedNode = null;
+        Move move = pendingMoves.get(taskName);
+        if (move != null) {
+            if (System.currentTimeMillis() - move.time < getHandoffDelay()) {
+                if (log.isDebugEnabled()) {
+                    log.debug("The task : " + taskName + ", is being moved to node with id : " + move.node
+                                      + ". Hence waiting for the previous node to stop it.");
+                }
+                return null;
+            }
+            pendingMoves.remove(taskName);
+            // the load of the moved task is already added to its new node
+            if (allNodesAvailableInCluster.contains(move.node)) {
+                destinedNode = move.node;
+            } else {
+                removeLoad(move.node, getCost(taskName));
+            }
+        }
+        if (destinedNode == null) {
+            destinedNode = getLeastLoadedNode(allNodesAvailableInCluster);
+            addLoad(destinedNode, getCost(taskName));
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("The task : " + taskName + ", is resolved to node with id : " + destinedNode);
+        }
+        return destinedNode;
+    }
+
+    @Override
+    public synchronized List<String> rebalance(ClusterCommunicator clusterCommunicator,
+                                               List<CoordinatedTask> assignedTasks, Map<String, TaskLoad> taskLoads) {
+
+        long currentTime = System.currentTimeMillis();
+        taskCosts.clear();
+        taskLoads.forEach((taskName, taskLoad) -> taskCosts.put(taskName, getCost(taskLoad)));
+        estimatedCost = taskCosts.isEmpty() ? 1 :
+                taskCosts.values().stream().mapToDouble(Double::doubleValue).average().orElse(1);
+        // the moves not resolved within the cooldown are of removed tasks, but are kept for the handoff delay
+        pendingMoves.values().removeIf(move -> currentTime - move.time > Math.max(moveCooldown, getHandoffDelay()));
+        moveTimes.values().removeIf(moveTime -> currentTime - moveTime > moveCooldown);
+
+        List<String> allNodesAvailableInCluster = clusterCommunicator.getAllNodeIds();
+        nodeLoads.clear();
+        nodeTaskCounts.clear();
+        Map<String, List<String>> movableTasks = new HashMap<>();
+        for (String node : allNodesAvailableInCluster) {
+            nodeLoads.put(node, 0.0);
+            nodeTaskCounts.put(node, 0);
+            movableTasks.put(node, new ArrayList<>());
+        }
+        for (CoordinatedTask task : assignedTasks) {
+            String node = task.getDestinedNodeId();
+            CoordinatedTask.States state = task.getTaskState();
+            // paused tasks don't add load, and the tasks of the nodes which left will be resolved again
+            if (CoordinatedTask.States.PAUSED == state || CoordinatedTask.States.DEACTIVATED == state
+                    || !nodeLoads.containsKey(node)) {
+                continue;
+            }
+            String taskName = task.getTaskName();
+            addLoad(node, getCost(taskName));
+            if (CoordinatedTask.States.RUNNING == state && taskCosts.containsKey(taskName)
+                    && !moveTimes.containsKey(taskName)) {
+                movableTasks.get(node).add(taskName);
+            }
+        }
+        pendingMoves.forEach((taskName, move) -> {
+            if (nodeLoads.containsKey(move.node)) {
+                addLoad(move.node, getCost(taskName));
+            }
+        });
+
+        List<String> tasksToBeMoved = new ArrayList<>();
+        while (tasksToBeMoved.size() < maxMovesPerRebalance && allNodesAvailableInCluster.size() > 1) {
+            String mostLoadedNode = getMostLoadedNode(allNodesAvailableInCluster);
+            String leastLoadedNode = getLeastLoadedNode(allNodesAvailableInCluster);
+            double highestLoad = nodeLoads.get(mostLoadedNode);
+            double loadDifference = highestLoad - nodeLoads.get(leastLoadedNode);
+            if (loadDifference < minRebalanceLoad || loadDifference < rebalanceThreshold * highestLoad) {
+                break;
+            }
+            // moving a task with a cost less than the difference reduces the highest load, and the cost closest to
+            // half of the difference balances the two nodes the most
+            String taskToBeMoved = null;
+            double balance = Double.MAX_VALUE;
+            for (String taskName : movableTasks.get(mostLoadedNode)) {
+                double cost = taskCosts.get(taskName);
+                if (cost > 0 && cost < loadDifference && Math.abs(loadDifference / 2 - cost) < balance) {
+                    taskToBeMoved = taskName;
+                    balance = Math.abs(loadDifference / 2 - cost);
+                }
+            }
+            if (taskToBeMoved == null) {
+                break;
+            }
+            double cost = taskCosts.get(taskToBeMoved);
+            movableTasks.get(mostLoadedNode).remove(taskToBeMoved);
+            removeLoad(mostLoadedNode, cost);
+            addLoad(leastLoadedNode, cost);
+            pendingMoves.put(taskToBeMoved, new Move(leastLoadedNode, currentTime));
+            moveTimes.put(taskToBeMoved, currentTime);
+            tasksToBeMoved.add(taskToBeMoved);
+            log.info("Moving the task : " + taskToBeMoved + ", with a load of " + Math.round(cost) + "us/s from node "
+                             + "with id : " + mostLoadedNode + " to node with id : " + leastLoadedNode
+                             + ", to balance the load.");
+        }
+        if (log.isDebugEnabled()) {
+            nodeLoads.forEach((node, load) -> log.debug(
+                    "Node with id : " + node + ", has a load of " + Math.round(load) + "us/s with "
+                            + nodeTaskCounts.get(node) + " task(s)."));
+        }
+        return tasksToBeMoved;
+    }
+
+    @Override
+    public synchronized void setSchedulerPeriod(long schedulerPeriod) {
+
+        this.schedulerPeriod = schedulerPeriod;
+        if (handoffDelay > 0 && handoffDelay < getHandoffDelay()) {
+            log.warn("The " + HANDOFF_DELAY_PROPERTY + " of " + handoffDelay + "ms is less than "
+                             + HANDOFF_SCHEDULER_PERIODS + " periods of the task scheduler. Hence a handoff delay of "
+                             + getHandoffDelay() + "ms will be used.");
+        }
+    }
+
+    @Override
+    public synchronized void becameLeader() {
+
+        leaderTime = System.currentTimeMillis();
+        // the moves made while this node was the leader before may have been resolved by the other leaders
+        pendingMoves.clear();
+    }
+
+    /**
+     * Provides the time in milliseconds after which a moved task is resolved, which is long enough for the previous
+     * node to run the task scheduler and stop the task.
+     */
+    private long getHandoffDelay() {
+        return Math.max(handoffDelay, HANDOFF_SCHEDULER_PERIODS * schedulerPeriod);
+    }
+
+    private double getCost(TaskLoad taskLoad) {
+
+        long waitingTime = Math.max(taskLoad.getExecutionTime() - taskLoad.getCpuTime(), 0);
+        return taskLoad.getCpuTime() + waitingTimeWeight * waitingTime;
+    }
+
+    private double getCost(String taskName) {
+        return taskCosts.getOrDefault(taskName, estimatedCost);
+    }
+
+    private void addLoad(String node, double cost) {
+
+        nodeLoads.merge(node, cost, Double::sum);
+        nodeTaskCounts.merge(node, 1, Integer::sum);
+    }
+
+    private void removeLoad(String node, double cost) {
+
+        nodeLoads.computeIfPresent(node, (key, load) -> Math.max(load - cost, 0));
+        nodeTaskCounts.computeIfPresent(node, (key, count) -> Math.max(count - 1, 0));
+    }
+
+    /**
+     * Provides the node with the least load, or with the least number of tasks if the loads are equal.
+     */
+    private String getLeastLoadedNode(List<String> nodes) {
+
+        String leastLoadedNode = null;
+        for (String node : nodes) {
+            if (leastLoadedNode == null || compareLoad(node, leastLoadedNode) < 0) {
+                leastLoadedNode = node;
+            }
+        }
+        return leastLoadedNode;
+    }
+
+    private String getMostLoadedNode(List<String> nodes) {
+
+        String mostLoadedNode = null;
+        for (String node : nodes) {
+            if (mostLoadedNode == null || compareLoad(node, mostLoadedNode) > 0) {
+                mostLoadedNode = node;
+            }
+        }
+        return mostLoadedNode;
+    }
+
+    private int compareLoad(String node, String otherNode) {
+
+        int result = Double.compare(nodeLoads.getOrDefault(node, 0.0), nodeLoads.getOrDefault(otherNode, 0.0));
+        if (result == 0) {
+            result = Integer.compare(nodeTaskCounts.getOrDefault(node, 0), nodeTaskCounts.getOrDefault(otherNode, 0));
+        }
+        return result;
+    }
+
+    private static double getDoubleProperty(Map<String, String> properties, String name, double defaultValue) {
+
+        String value = properties.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException ex) {
+            log.error("Specify a numeric value for " + name + ". Default value of " + defaultValue + " will be used.",
+                      ex);
+            return defaultValue;
+        }
+    }
+
+    private static long getLongProperty(Map<String, String> properties, String name, long defaultValue) {
+
+        String value = properties.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException ex) {
+            log.error("Specify an int value for " + name + ". Default value of " + defaultValue + " will be used.",
+                      ex);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * The node to which a task is moved, and the time of the move.
+     */
+    private static class Move {
+
+        private final String node;
+        private final long time;
+
+        Move(String node, long time) {
+            this.node = node;
+            this.time = time;
+        }
+    }
+}
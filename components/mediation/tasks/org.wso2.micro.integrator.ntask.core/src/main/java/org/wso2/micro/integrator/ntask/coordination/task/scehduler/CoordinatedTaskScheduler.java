@@ -25,21 +25,34 @@ import org.wso2.micro.integrator.ntask.common.TaskException;
 import org.wso2.micro.integrator.ntask.coordination.TaskCoordinationException;
 import org.wso2.micro.integrator.ntask.coordination.task.ClusterCommunicator;
 import org.wso2.micro.integrator.ntask.coordination.task.CoordinatedTask;
+import org.wso2.micro.integrator.ntask.coordination.task.TaskLoad;
+import org.wso2.micro.integrator.ntask.coordination.task.resolver.LoadAwareTaskLocationResolver;
 import org.wso2.micro.integrator.ntask.coordination.task.resolver.TaskLocationResolver;
 import org.wso2.micro.integrator.ntask.coordination.task.store.TaskStore;
+import org.wso2.micro.integrator.ntask.coordination.task.store.connector.RDMBSConnector;
+import org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper;
 import org.wso2.micro.integrator.ntask.coordination.task.store.cleaner.TaskStoreCleaner;
 import org.wso2.micro.integrator.ntask.core.impl.standalone.ScheduledTaskManager;
 import org.wso2.micro.integrator.ntask.core.internal.DataHolder;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Scheduler class, which runs periodically to retrieve all the scheduled tasks assigned to the node and schedule
  * them locally. Also if the running node is leader, it cleans up the task store and resolve the un assigned nodes.
+ * <p>
+ * The tasks of the node are retrieved only if the version of the node in the task store changed since the last run,
+ * and the un assigned tasks are resolved only if the version of the un assigned tasks changed. Both are retrieved
+ * regardless of the versions once per resolving frequency, along with the cleaning of the task store.
+ * <p>
+ * If the task location resolver is a {@link LoadAwareTaskLocationResolver}, each node publishes the load of its
+ * running tasks once per resolving frequency, and the leader rebalances the tasks along with the cleaning.
  */
 public class CoordinatedTaskScheduler implements Runnable {
 
@@ -52,6 +65,11 @@ public class CoordinatedTaskScheduler implements Runnable {
     private TaskStoreCleaner taskStoreCleaner;
     private int resolvingFrequency;
     private int resolveCount = 0;
+    private int runCount = 0;
+    private long nodeVersion = RDMBSConnector.UNKNOWN_VERSION;
+    private long unassignedTasksVersion = RDMBSConnector.UNKNOWN_VERSION;
+    private boolean unresolvedTasksRemaining = false;
+    private boolean leader = false;
     private ClusterCommunicator clusterCommunicator;
     private ScheduledTaskManager taskManager;
     private String localNodeId;
@@ -77,49 +95,172 @@ public class CoordinatedTaskScheduler implements Runnable {
     public void run() {
 
         try {
-            pauseDeactivatedTasks();
-            scheduleAssignedTasks(CoordinatedTask.States.ACTIVATED);
+            // all the tasks will be retrieved for each n times resolving frequency . ( n = 0,1,2 ... ).
+            boolean refresh = runCount % resolvingFrequency == 0;
+            runCount = refresh ? 1 : runCount + 1;
+            if (refresh && taskLocationResolver instanceof LoadAwareTaskLocationResolver) {
+                publishTaskLoads();
+            }
+            long retrievedVersion = taskStore.getNodeVersion(localNodeId);
+            List<CoordinatedTask> tasksOfThisNode = retrieveTasksOfThisNode(retrievedVersion, refresh);
+            boolean upToDate = pauseDeactivatedTasks(tasksOfThisNode);
+            upToDate &= scheduleAssignedTasks(tasksOfThisNode, CoordinatedTask.States.ACTIVATED);
             if (clusterCoordinator.isLeader()) {
+                updateLeadership(true);
                 // cleaning will run for each n times resolving frequency . ( n = 0,1,2 ... ).
+                boolean cleaned = false;
                 if (resolveCount % resolvingFrequency == 0) {
                     LOG.debug("This node is leader hence cleaning task store.");
                     taskStoreCleaner.clean();
                     resolveCount = 0;
+                    cleaned = true;
+                    if (taskLocationResolver instanceof LoadAwareTaskLocationResolver) {
+                        rebalanceTasks((LoadAwareTaskLocationResolver) taskLocationResolver);
+                    }
                 }
-                LOG.debug("This node is leader hence resolving unassigned tasks.");
                 addFailedTasks();
                 resolveCount++;
-                resolveUnassignedNotCompletedTasksAndUpdateStore();
+                long retrievedUnassignedTasksVersion = taskStore.getNodeVersion(
+                        TaskQueryHelper.UNASSIGNED_TASKS_NODE_ID);
+                if (cleaned || unresolvedTasksRemaining || !isUnchanged(retrievedUnassignedTasksVersion,
+                                                                         unassignedTasksVersion)) {
+                    LOG.debug("This node is leader hence resolving unassigned tasks.");
+                    resolveUnassignedNotCompletedTasksAndUpdateStore();
+                    unassignedTasksVersion = retrievedUnassignedTasksVersion;
+                } else {
+                    LOG.debug("No changes in the unassigned tasks since the last resolving.");
+                }
+                // the tasks which got assigned to this node by resolving are scheduled in the same run.
+                long latestVersion = taskStore.getNodeVersion(localNodeId);
+                if (latestVersion != retrievedVersion) {
+                    retrievedVersion = latestVersion;
+                    tasksOfThisNode = retrieveTasksOfThisNode(retrievedVersion, true);
+                    upToDate = pauseDeactivatedTasks(tasksOfThisNode);
+                    upToDate &= scheduleAssignedTasks(tasksOfThisNode, CoordinatedTask.States.ACTIVATED);
+                }
             } else {
                 LOG.debug("This node is not leader. Hence not cleaning task store or resolving un assigned tasks.");
+                updateLeadership(false);
+                unassignedTasksVersion = RDMBSConnector.UNKNOWN_VERSION;
             }
             // schedule all tasks assigned to this node and in state none
-            scheduleAssignedTasks(CoordinatedTask.States.NONE);
+            upToDate &= scheduleAssignedTasks(tasksOfThisNode, CoordinatedTask.States.NONE);
+            // the tasks which were not handled are retrieved again in the next run regardless of the version.
+            nodeVersion = upToDate ? retrievedVersion : RDMBSConnector.UNKNOWN_VERSION;
         } catch (Throwable throwable) { // catching throwable to prohibit permanent stopping of the executor service.
             LOG.fatal("Unexpected error occurred while trying to schedule tasks.", throwable);
         }
     }
 
+    /**
+     * Retrieves the tasks of this node, if they have changed since the last run. The locally running tasks which are
+     * no longer assigned to this node ( i.e. moved to another node or un assigned ) are stopped.
+     *
+     * @param retrievedVersion - The current version of this node.
+     * @param refresh          - Whether to retrieve the tasks regardless of the version.
+     * @return - List of tasks, which is empty if the tasks haven't changed.
+     * @throws TaskCoordinationException - When something goes wrong while retrieving the tasks.
+     */
+    private List<CoordinatedTask> retrieveTasksOfThisNode(long retrievedVersion, boolean refresh)
+            throws TaskCoordinationException {
+
+        if (!refresh && isUnchanged(retrievedVersion, nodeVersion)) {
+            LOG.debug("No changes in the tasks assigned to this node since the last run.");
+            return Collections.emptyList();
+        }
+        LOG.debug("Retrieving tasks assigned to this node and to be scheduled or paused.");
+        List<CoordinatedTask> tasksOfThisNode = taskStore.retrieveActiveTasks(localNodeId);
+        Set<String> assignedTasks = tasksOfThisNode.stream().map(CoordinatedTask::getTaskName)
+                .collect(Collectors.toSet());
+        for (String task : taskManager.getLocallyRunningCoordinatedTasks()) {
+            if (!assignedTasks.contains(task)) {
+                LOG.info("The task [" + task + "] is no longer assigned to this node, hence stopping it.");
+                try {
+                    taskManager.stopExecution(task);
+                } catch (TaskException e) {
+                    LOG.error("Error stopping the task [" + task + "]", e);
+                }
+            }
+        }
+        return tasksOfThisNode;
+    }
+
+    /**
+     * Publishes the load of the tasks running in this node to the store.
+     *
+     * @throws TaskCoordinationException - When something goes wrong while updating the store.
+     */
+    private void publishTaskLoads() throws TaskCoordinationException {
+
+        Map<String, TaskLoad> taskLoads = dataHolder.getTaskLoadRecorder().calculateTaskLoads(
+                taskManager.getLocallyRunningCoordinatedTasks());
+        taskStore.updateTaskLoads(taskLoads);
+    }
+
+    /**
+     * Moves the tasks between the nodes to balance the load, by un assigning the tasks to be moved so that they get
+     * resolved again.
+     *
+     * @param resolver - The load aware task location resolver.
+     * @throws TaskCoordinationException - When something goes wrong while updating the store.
+     */
+    private void rebalanceTasks(LoadAwareTaskLocationResolver resolver) throws TaskCoordinationException {
+
+        taskStore.deleteInvalidTaskLoads();
+        List<String> tasksToBeMoved = resolver.rebalance(clusterCommunicator,
+                                                         taskStore.getAllAssignedIncompleteTasks(),
+                                                         taskStore.getAllTaskLoads());
+        taskStore.unAssignAndUpdateState(tasksToBeMoved);
+    }
+
+    /**
+     * Records whether this node is the leader, and notifies the load aware task location resolver when this node
+     * becomes the leader, as the tasks moved by the previous leader may still be running in their previous nodes.
+     *
+     * @param isLeader - Whether this node is the leader.
+     */
+    private synchronized void updateLeadership(boolean isLeader) {
+
+        if (isLeader && !leader && taskLocationResolver instanceof LoadAwareTaskLocationResolver) {
+            ((LoadAwareTaskLocationResolver) taskLocationResolver).becameLeader();
+        }
+        leader = isLeader;
+    }
+
+    private static boolean isUnchanged(long retrievedVersion, long lastVersion) {
+
+        return retrievedVersion != RDMBSConnector.UNKNOWN_VERSION && retrievedVersion == lastVersion;
+    }
+
+    private static List<String> filterByState(List<CoordinatedTask> tasks, CoordinatedTask.States state) {
+
+        return tasks.stream().filter(task -> state == task.getTaskState()).map(CoordinatedTask::getTaskName)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Pause ( stop execution ) the deactivated tasks.
      *
-     * @throws TaskCoordinationException - when something goes wrong while retrieving tasks information from store.
+     * @param tasksOfThisNode - The tasks retrieved for this node.
+     * @return - Whether all the deactivated tasks were paused.
+     * @throws TaskCoordinationException - when something goes wrong while updating tasks information in store.
      */
-    private void pauseDeactivatedTasks() throws TaskCoordinationException {
+    private boolean pauseDeactivatedTasks(List<CoordinatedTask> tasksOfThisNode) throws TaskCoordinationException {
 
-        List<String> deactivatedTasks = taskStore.retrieveTaskNames(localNodeId, CoordinatedTask.States.DEACTIVATED);
+        List<String> deactivatedTasks = filterByState(tasksOfThisNode, CoordinatedTask.States.DEACTIVATED);
+        if (deactivatedTasks.isEmpty()) {
+            return true;
+        }
         if (LOG.isDebugEnabled()) {
             deactivatedTasks.stream().map(
                     task -> "Task [" + task + "] retrieved in [" + CoordinatedTask.States.DEACTIVATED + "] state.")
                     .forEachOrdered(LOG::debug);
         }
-        ScheduledTaskManager scheduledTaskManager = taskManager;
         List<String> pausedTasks = new ArrayList<>();
-        List<String> deployedTasks = taskManager.getAllCoordinatedTasksDeployed();
         deactivatedTasks.forEach(task -> {
-            if (deployedTasks.contains(task)) {
+            if (taskManager.isCoordinatedTaskDeployed(task)) {
                 try {
-                    scheduledTaskManager.stopExecution(task);
+                    taskManager.stopExecution(task);
                     pausedTasks.add(task);
                 } catch (TaskException e) {
                     LOG.error("Error stopping the task [" + task + "]", e);
@@ -130,6 +271,7 @@ public class CoordinatedTaskScheduler implements Runnable {
             }
         });
         taskStore.updateTaskState(pausedTasks, CoordinatedTask.States.PAUSED);
+        return pausedTasks.size() == deactivatedTasks.size();
     }
 
     /**
@@ -156,23 +298,25 @@ public class CoordinatedTaskScheduler implements Runnable {
     /**
      * Schedules all tasks assigned to this node.
      *
-     * @param state - The state of the tasks which need to be scheduled.
-     * @throws TaskCoordinationException - When something goes wrong while retrieving all the assigned tasks.
+     * @param tasksOfThisNode - The tasks retrieved for this node.
+     * @param state           - The state of the tasks which need to be scheduled.
+     * @return - Whether all the tasks were scheduled.
+     * @throws TaskCoordinationException - When something goes wrong while updating the errored tasks.
      */
-    private void scheduleAssignedTasks(CoordinatedTask.States state) throws TaskCoordinationException {
+    private boolean scheduleAssignedTasks(List<CoordinatedTask> tasksOfThisNode, CoordinatedTask.States state)
+            throws TaskCoordinationException {
 
-        LOG.debug("Retrieving tasks assigned to this node and to be scheduled.");
-        List<String> tasksOfThisNode = taskStore.retrieveTaskNames(localNodeId, state);
-        if (tasksOfThisNode.isEmpty()) {
+        List<String> tasksToBeScheduled = filterByState(tasksOfThisNode, state);
+        if (tasksToBeScheduled.isEmpty()) {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("No tasks assigned to this node to be scheduled in state " + state);
             }
-            return;
+            return true;
         }
-        List<String> deployedCoordinatedTasks = taskManager.getAllCoordinatedTasksDeployed();
         List<String> erroredTasks = new ArrayList<>();
-        for (String taskName : tasksOfThisNode) {
-            if (deployedCoordinatedTasks.contains(taskName)) {
+        boolean allScheduled = true;
+        for (String taskName : tasksToBeScheduled) {
+            if (taskManager.isCoordinatedTaskDeployed(taskName)) {
                 if (LOG.isDebugEnabled()) {
                     LOG.debug("Submitting retrieved task [" + taskName + "] to the task manager.");
                 }
@@ -182,14 +326,17 @@ public class CoordinatedTaskScheduler implements Runnable {
                     if (!TaskException.Code.DATABASE_ERROR.equals(ex.getCode())) {
                         erroredTasks.add(taskName);
                     }
+                    allScheduled = false;
                     LOG.error("Exception occurred while scheduling coordinated task : " + taskName, ex);
                 }
             } else {
+                allScheduled = false;
                 LOG.info("The task [" + taskName + "] retrieved to be scheduled is not a deployed task "
                                  + "in this node or an invalid entry, hence ignoring it.");
             }
         }
         taskStore.updateTaskState(erroredTasks, CoordinatedTask.States.NONE);
+        return allScheduled;
     }
 
     /**
@@ -200,9 +347,12 @@ public class CoordinatedTaskScheduler implements Runnable {
      */
     public synchronized void resolveUnassignedNotCompletedTasksAndUpdateStore() throws TaskCoordinationException {
 
+        // resolving is triggered only in the leader
+        updateLeadership(true);
         List<String> unAssignedTasks = taskStore.retrieveAllUnAssignedAndIncompleteTasks();
         if (unAssignedTasks.isEmpty()) {
             LOG.debug("No un assigned tasks found.");
+            unresolvedTasksRemaining = false;
             return;
         }
         Map<String, String> tasksToBeUpdated = new HashMap<>();
@@ -213,5 +363,6 @@ public class CoordinatedTaskScheduler implements Runnable {
             }
         });
         taskStore.updateAssignmentAndState(tasksToBeUpdated);
+        unresolvedTasksRemaining = tasksToBeUpdated.size() < unAssignedTasks.size();
     }
 }
@@ -20,6 +20,7 @@ package org.wso2.micro.integrator.ntask.coordination.task.store;
 
 import org.wso2.micro.integrator.ntask.coordination.TaskCoordinationException;
 import org.wso2.micro.integrator.ntask.coordination.task.CoordinatedTask;
+import org.wso2.micro.integrator.ntask.coordination.task.TaskLoad;
 import org.wso2.micro.integrator.ntask.coordination.task.store.connector.RDMBSConnector;
 
 import java.util.List;
@@ -74,6 +75,28 @@ public class TaskStore {
         return rdmbsConnector.retrieveTaskNames(nodeID, state);
     }
 
+    /**
+     * Retrieves the tasks of the node, which are running or are to be scheduled or paused.
+     *
+     * @param nodeID - Id of the node, for which the tasks need to be retrieved.
+     * @return - List of tasks.
+     */
+    public List<CoordinatedTask> retrieveActiveTasks(String nodeID) throws TaskCoordinationException {
+
+        return rdmbsConnector.retrieveActiveTasks(nodeID);
+    }
+
+    /**
+     * Retrieves the version of the node, which changes whenever the tasks of the node change.
+     *
+     * @param nodeId - Id of the node.
+     * @return - Version of the node, or {@link RDMBSConnector#UNKNOWN_VERSION} if the version was not available.
+     */
+    public long getNodeVersion(String nodeId) throws TaskCoordinationException {
+
+        return rdmbsConnector.getNodeVersion(nodeId);
+    }
+
     /**
      * Removes all the tasks assigned to the node.
      *
@@ -201,4 +224,32 @@ public class TaskStore {
         return rdmbsConnector.retrieveAllUnAssignedAndIncompleteTasks();
     }
 
+    /**
+     * Updates the load of the tasks.
+     *
+     * @param taskLoads - Map of task name to load.
+     */
+    public void updateTaskLoads(Map<String, TaskLoad> taskLoads) throws TaskCoordinationException {
+
+        rdmbsConnector.updateTaskLoads(taskLoads);
+    }
+
+    /**
+     * Retrieve the load of all the tasks.
+     *
+     * @return - Map of task name to load.
+     */
+    public Map<String, TaskLoad> getAllTaskLoads() throws TaskCoordinationException {
+
+        return rdmbsConnector.getAllTaskLoads();
+    }
+
+    /**
+     * Removes the load of the tasks which are not available in the store.
+     */
+    public void deleteInvalidTaskLoads() throws TaskCoordinationException {
+
+        rdmbsConnector.deleteInvalidTaskLoads();
+    }
+
 }
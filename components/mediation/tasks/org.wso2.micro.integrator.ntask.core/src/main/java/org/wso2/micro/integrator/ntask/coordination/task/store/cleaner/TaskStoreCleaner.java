@@ -109,14 +109,13 @@ public class TaskStoreCleaner {
      */
     private void removeInvalidTasksFromStore(List<String> tasksList) throws TaskCoordinationException {
 
-        List<String> deployedCoordinatedTasks = taskManager.getAllCoordinatedTasksDeployed();
         if (LOG.isDebugEnabled()) {
             LOG.debug("Following list of tasks are found deployed coordinated task list.");
-            deployedCoordinatedTasks.forEach(LOG::debug);
+            taskManager.getAllCoordinatedTasksDeployed().forEach(LOG::debug);
         }
         // We first add to list and then to the store  while deploying. So all the tasks retrieved from the store
         // should be in the list, if not they are invalid entries.
-        tasksList.removeAll(deployedCoordinatedTasks);
+        tasksList.removeIf(taskManager::isCoordinatedTaskDeployed);
         taskStore.deleteTasks(tasksList);
         if (LOG.isDebugEnabled()) {
             tasksList.forEach(removedTask -> LOG.debug("Removed invalid task :" + removedTask));
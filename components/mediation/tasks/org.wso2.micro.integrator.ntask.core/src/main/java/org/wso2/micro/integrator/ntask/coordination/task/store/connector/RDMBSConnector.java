@@ -22,35 +22,57 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.micro.integrator.ntask.coordination.TaskCoordinationException;
 import org.wso2.micro.integrator.ntask.coordination.task.CoordinatedTask;
+import org.wso2.micro.integrator.ntask.coordination.task.TaskLoad;
 
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import javax.sql.DataSource;
 
 import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.ACTIVATE_TASK;
+import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.ADD_NODE_VERSION;
 import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.ADD_TASK;
+import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.ADD_TASK_LOAD;
+import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.CHECK_NODE_VERSION_TABLE;
+import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.CHECK_TASK_LOAD_TABLE;
+import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.CPU_TIME;
 import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.CLEAN_TASKS_OF_NODE;
-import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.DELETE_TASK;
+import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.DELETE_INVALID_TASK_LOADS;
+import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.DELETE_NODE_VERSION;
+import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.DELETE_TASKS;
 import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.DESTINED_NODE_ID;
+import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.EXECUTION_TIME;
 import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.GET_ALL_ASSIGNED_INCOMPLETE_TASKS;
-import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.REMOVE_ASSIGNMENT_AND_UPDATE_STATE;
+import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.INCREMENT_NODE_VERSION;
+import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.INCREMENT_NODE_VERSION_OF_TASKS;
+import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.REMOVE_ASSIGNMENT_AND_UPDATE_STATE_OF_TASKS;
 import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.REMOVE_TASKS_OF_NODE;
+import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.NODE_VERSION;
+import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.RETRIEVE_ACTIVE_TASKS_OF_NODE;
 import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.RETRIEVE_ALL_TASKS;
+import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.RETRIEVE_ALL_TASK_LOADS;
+import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.RETRIEVE_NODE_VERSION;
 import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.RETRIEVE_TASKS_OF_NODE;
 import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.RETRIEVE_TASK_STATE;
 import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.RETRIEVE_UNASSIGNED_NOT_COMPLETED_TASKS;
 import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.TASK_NAME;
 import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.TASK_STATE;
-import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.UPDATE_ASSIGNMENT_AND_STATE;
-import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.UPDATE_TASK_STATE;
+import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.UNASSIGNED_TASKS_NODE_ID;
+import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.UPDATE_ASSIGNMENT_AND_STATE_OF_TASKS;
+import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.UPDATE_TASK_LOAD;
+import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.UPDATE_TASKS_STATE;
 import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.UPDATE_TASK_STATE_FOR_DESTINED_NODE;
 import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.UPDATE_TASK_STATUS_TO_DEACTIVATED;
+import static org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper.withParameters;
 
 /**
  * The connector class which deals with underlying coordinated task table.
@@ -61,7 +83,18 @@ public class RDMBSConnector {
     private static final String ERROR_MSG = "Error while doing data base operation.";
     private static final String EMPTY_LIST = "Provided list is empty ";
     private static final String SQL_INTEGRITY_VIOLATION_CODE = "23";
+    // the maximum number of tasks updated by a single multi row statement
+    private static final int MAX_TASKS_PER_STATEMENT = 100;
+    // the version returned when the changes of the node are not tracked
+    public static final long UNKNOWN_VERSION = -1;
     private DataSource dataSource;
+    // whether the node version table exists in the data base, the tasks are always retrieved otherwise
+    private boolean nodeVersionsSupported;
+    // whether the task load table exists in the data base, which is checked upon the first use
+    private volatile Boolean taskLoadsSupported;
+    // whether the driver reports the updated row count of each statement of a batch, the task loads are updated one
+    // at a time otherwise
+    private volatile boolean batchUpdateCountsSupported = true;
 
     /**
      * Constructor.
@@ -78,11 +111,56 @@ public class RDMBSConnector {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Successfully connected to : " + databaseType);
             }
+            nodeVersionsSupported = isTableAvailable(connection, CHECK_NODE_VERSION_TABLE);
+            if (!nodeVersionsSupported) {
+                LOG.warn("Task node version table is not available, hence the tasks of the node will be retrieved "
+                                 + "from the data base on each run of the task scheduler. Please update the cluster "
+                                 + "data base with the latest scripts.");
+            }
         } catch (SQLException ex) {
             throw new TaskCoordinationException("Error while initializing RDBMS connection.", ex);
         }
     }
 
+    /**
+     * Checks whether a table exists, which is not the case for the tables added later in the data bases created
+     * with older scripts.
+     *
+     * @param connection - Connection to the data base.
+     * @param checkQuery - Query which selects from the table.
+     * @return - Whether the table is available.
+     */
+    private static boolean isTableAvailable(Connection connection, String checkQuery) {
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(checkQuery);
+                ResultSet ignored = preparedStatement.executeQuery()) {
+            return true;
+        } catch (SQLException ex) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Error while executing the query : " + checkQuery, ex);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Checks whether the task load table exists, upon the first use.
+     *
+     * @param connection - Connection to the data base.
+     * @return - Whether the task load table is available.
+     */
+    private boolean isTaskLoadTableAvailable(Connection connection) {
+
+        if (taskLoadsSupported == null) {
+            taskLoadsSupported = isTableAvailable(connection, CHECK_TASK_LOAD_TABLE);
+            if (!taskLoadsSupported) {
+                LOG.warn("Task load table is not available, hence the load of the tasks will not be published. Please"
+                                 + " update the cluster data base with the latest scripts.");
+            }
+        }
+        return taskLoadsSupported;
+    }
+
     /**
      * Removes the node id of the task and update the task state.
      *
@@ -96,16 +174,25 @@ public class RDMBSConnector {
             }
             return;
         }
-        try (Connection connection = getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(
-                REMOVE_ASSIGNMENT_AND_UPDATE_STATE)) {
-            for (String task : tasks) {
-                preparedStatement.setString(1, task);
-                preparedStatement.addBatch();
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug("Removing the node assignment of task [" + task + "].");
+        try (Connection connection = getConnection()) {
+            // the versions of the nodes, which need to stop running the tasks, are incremented before removing the
+            // assignment, hence both are done in a single transaction
+            connection.setAutoCommit(false);
+            try {
+                for (List<String> chunk : chunks(tasks)) {
+                    incrementNodeVersionOfTasks(connection, chunk);
+                    try (PreparedStatement preparedStatement = connection.prepareStatement(
+                            withParameters(REMOVE_ASSIGNMENT_AND_UPDATE_STATE_OF_TASKS, chunk.size()))) {
+                        setTaskNames(preparedStatement, 1, chunk);
+                        preparedStatement.executeUpdate();
+                    }
                 }
+                incrementNodeVersion(connection, UNASSIGNED_TASKS_NODE_ID);
+                connection.commit();
+            } catch (SQLException ex) {
+                connection.rollback();
+                throw ex;
             }
-            preparedStatement.executeBatch();
             if (LOG.isDebugEnabled()) {
                 tasks.forEach(task -> LOG.debug("Successfully removed the node assignment of task [" + task + "]."));
             }
@@ -115,7 +202,8 @@ public class RDMBSConnector {
     }
 
     /**
-     * Sets the destined node id to null and state to none if running or to paused if deactivated.
+     * Sets the destined node id to null and state to none if running or to paused if deactivated. The version of the
+     * node is removed as well, so that the node retrieves its tasks again once it gets tasks assigned.
      *
      * @param nodeId - Node Id which needs to be set to null.
      */
@@ -128,6 +216,8 @@ public class RDMBSConnector {
                 LOG.debug("Un assigning the tasks of node [" + nodeId + "].");
             }
             preparedStatement.executeUpdate();
+            incrementNodeVersion(connection, UNASSIGNED_TASKS_NODE_ID);
+            deleteNodeVersion(connection, nodeId);
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Successfully un assigned the tasks of node [" + nodeId + "].");
             }
@@ -156,6 +246,151 @@ public class RDMBSConnector {
         }
     }
 
+    /**
+     * Retrieves the tasks of the node, which are running or are to be scheduled or paused, i.e. the tasks in the
+     * states deactivated, activated, none and running.
+     *
+     * @param nodeID - Id of the node, for which the tasks need to be retrieved.
+     * @return - List of tasks.
+     */
+    public List<CoordinatedTask> retrieveActiveTasks(String nodeID) throws TaskCoordinationException {
+
+        try (Connection connection = getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(
+                RETRIEVE_ACTIVE_TASKS_OF_NODE)) {
+            preparedStatement.setString(1, nodeID);
+            return executeQuery(preparedStatement, "for node [" + nodeID + "] which are active.");
+        } catch (SQLException ex) {
+            throw new TaskCoordinationException(ERROR_MSG, ex);
+        }
+    }
+
+    /**
+     * Retrieves the version of the node, which is incremented whenever the tasks of the node are assigned, activated,
+     * deactivated or change the state. The version of the un assigned tasks is retrieved with the node id
+     * {@link TaskQueryHelper#UNASSIGNED_TASKS_NODE_ID}. The version is added if the node doesn't have one.
+     *
+     * @param nodeId - Id of the node.
+     * @return - Version of the node, or {@link #UNKNOWN_VERSION} if the version was not available.
+     */
+    public long getNodeVersion(String nodeId) throws TaskCoordinationException {
+
+        if (!nodeVersionsSupported) {
+            return UNKNOWN_VERSION;
+        }
+        try (Connection connection = getConnection()) {
+            try (PreparedStatement preparedStatement = connection.prepareStatement(RETRIEVE_NODE_VERSION)) {
+                preparedStatement.setString(1, nodeId);
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    if (resultSet.next()) {
+                        return resultSet.getLong(NODE_VERSION);
+                    }
+                }
+            }
+            // the changes before adding the version are not tracked, hence the version is unknown at this point
+            try (PreparedStatement preparedStatement = connection.prepareStatement(ADD_NODE_VERSION)) {
+                preparedStatement.setString(1, nodeId);
+                preparedStatement.executeUpdate();
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Added the version of node [" + nodeId + "].");
+                }
+            } catch (SQLException ex) {
+                if (!ex.getSQLState().startsWith(SQL_INTEGRITY_VIOLATION_CODE)) {
+                    throw ex;
+                }
+            }
+            return UNKNOWN_VERSION;
+        } catch (SQLException ex) {
+            throw new TaskCoordinationException(ERROR_MSG, ex);
+        }
+    }
+
+    /**
+     * Increments the version of the node.
+     *
+     * @param connection - Connection to the data base.
+     * @param nodeId     - Id of the node.
+     * @throws SQLException - Exception.
+     */
+    private void incrementNodeVersion(Connection connection, String nodeId) throws SQLException {
+
+        if (!nodeVersionsSupported) {
+            return;
+        }
+        try (PreparedStatement preparedStatement = connection.prepareStatement(INCREMENT_NODE_VERSION)) {
+            preparedStatement.setString(1, nodeId);
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    /**
+     * Increments the versions of the nodes to which the given tasks are assigned.
+     *
+     * @param connection - Connection to the data base.
+     * @param tasks      - List of tasks, not more than {@link #MAX_TASKS_PER_STATEMENT}.
+     * @throws SQLException - Exception.
+     */
+    private void incrementNodeVersionOfTasks(Connection connection, List<String> tasks) throws SQLException {
+
+        if (!nodeVersionsSupported) {
+            return;
+        }
+        try (PreparedStatement preparedStatement = connection.prepareStatement(
+                withParameters(INCREMENT_NODE_VERSION_OF_TASKS, tasks.size()))) {
+            setTaskNames(preparedStatement, 1, tasks);
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    /**
+     * Removes the version of the node.
+     *
+     * @param connection - Connection to the data base.
+     * @param nodeId     - Id of the node.
+     * @throws SQLException - Exception.
+     */
+    private void deleteNodeVersion(Connection connection, String nodeId) throws SQLException {
+
+        if (!nodeVersionsSupported) {
+            return;
+        }
+        try (PreparedStatement preparedStatement = connection.prepareStatement(DELETE_NODE_VERSION)) {
+            preparedStatement.setString(1, nodeId);
+            preparedStatement.executeUpdate();
+        }
+    }
+
+    /**
+     * Splits the tasks in to the chunks which are updated by a single multi row statement.
+     *
+     * @param tasks - List of tasks.
+     * @return - List of chunks.
+     */
+    private static List<List<String>> chunks(List<String> tasks) {
+
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i += MAX_TASKS_PER_STATEMENT) {
+            chunks.add(tasks.subList(i, Math.min(i + MAX_TASKS_PER_STATEMENT, tasks.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * Sets the task names as the parameters of a multi row statement.
+     *
+     * @param preparedStatement - Multi row statement.
+     * @param firstIndex        - Index of the first task name parameter.
+     * @param tasks             - List of task names.
+     * @throws SQLException - Exception.
+     */
+    private static void setTaskNames(PreparedStatement preparedStatement, int firstIndex, List<String> tasks)
+            throws SQLException {
+
+        int index = firstIndex;
+        for (String task : tasks) {
+            preparedStatement.setString(index++, task);
+        }
+    }
+
     private void printDebugLogs(List<Object> tasks, String msg) {
         if (LOG.isDebugEnabled()) {
             LOG.debug(msg);
@@ -191,7 +426,9 @@ public class RDMBSConnector {
         try (Connection connection = getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(
                 UPDATE_TASK_STATUS_TO_DEACTIVATED)) {
             preparedStatement.setString(1, name);
-            preparedStatement.executeUpdate();
+            if (preparedStatement.executeUpdate() > 0) {
+                incrementNodeVersionOfTasks(connection, Collections.singletonList(name));
+            }
         } catch (SQLException ex) {
             throw new TaskCoordinationException(ERROR_MSG, ex);
         }
@@ -206,7 +443,9 @@ public class RDMBSConnector {
         try (Connection connection = getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(
                 ACTIVATE_TASK)) {
             preparedStatement.setString(1, name);
-            preparedStatement.executeUpdate();
+            if (preparedStatement.executeUpdate() > 0) {
+                incrementNodeVersionOfTasks(connection, Collections.singletonList(name));
+            }
         } catch (SQLException ex) {
             throw new TaskCoordinationException(ERROR_MSG, ex);
         }
@@ -248,13 +487,14 @@ public class RDMBSConnector {
             }
             return;
         }
-        try (Connection connection = getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(
-                DELETE_TASK)) {
-            for (String task : tasks) {
-                preparedStatement.setString(1, task);
-                preparedStatement.addBatch();
+        try (Connection connection = getConnection()) {
+            for (List<String> chunk : chunks(tasks)) {
+                try (PreparedStatement preparedStatement = connection.prepareStatement(
+                        withParameters(DELETE_TASKS, chunk.size()))) {
+                    setTaskNames(preparedStatement, 1, chunk);
+                    preparedStatement.executeUpdate();
+                }
             }
-            preparedStatement.executeBatch();
             printDebugLogs(new ArrayList<>(tasks), "Following list of tasks were deleted.");
         } catch (SQLException ex) {
             throw new TaskCoordinationException(ERROR_MSG, ex);
@@ -284,7 +524,8 @@ public class RDMBSConnector {
      * @param preparedStatement - Statement to be executed to retrieve the list of tasks.
      * @throws SQLException - Exception.
      */
-    private List<CoordinatedTask> executeQuery(PreparedStatement preparedStatement) throws SQLException {
+    private List<CoordinatedTask> executeQuery(PreparedStatement preparedStatement, String debug)
+            throws SQLException {
 
         List<CoordinatedTask> tasks = new ArrayList<>();
         try (ResultSet resultSet = preparedStatement.executeQuery()) {
@@ -294,8 +535,7 @@ public class RDMBSConnector {
                                               CoordinatedTask.States.valueOf(resultSet.getString(TASK_STATE))));
             }
         }
-        printDebugLogs(new ArrayList<>(tasks),
-                       "Following list of tasks were retrieved for assigned and incomplete tasks.");
+        printDebugLogs(new ArrayList<>(tasks), "Following list of tasks were retrieved " + debug);
         return tasks;
     }
 
@@ -323,7 +563,7 @@ public class RDMBSConnector {
 
         try (Connection connection = getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(
                 GET_ALL_ASSIGNED_INCOMPLETE_TASKS)) {
-            return executeQuery(preparedStatement);
+            return executeQuery(preparedStatement, "for assigned and incomplete tasks.");
         } catch (SQLException ex) {
             throw new TaskCoordinationException(ERROR_MSG, ex);
         }
@@ -340,6 +580,7 @@ public class RDMBSConnector {
                 ADD_TASK)) {
             preparedStatement.setString(1, taskName);
             preparedStatement.executeUpdate();
+            incrementNodeVersion(connection, UNASSIGNED_TASKS_NODE_ID);
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Successfully added the task [" + taskName + "].");
             }
@@ -367,14 +608,21 @@ public class RDMBSConnector {
             }
             return;
         }
-        try (Connection connection = getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(
-                UPDATE_ASSIGNMENT_AND_STATE)) {
-            for (Map.Entry<String, String> entry : tasks.entrySet()) {
-                preparedStatement.setString(1, entry.getValue());
-                preparedStatement.setString(2, entry.getKey());
-                preparedStatement.addBatch();
+        Map<String, List<String>> tasksOfNodes = new HashMap<>();
+        tasks.forEach((task, destinedNode) -> tasksOfNodes.computeIfAbsent(destinedNode, node -> new ArrayList<>())
+                .add(task));
+        try (Connection connection = getConnection()) {
+            for (Map.Entry<String, List<String>> entry : tasksOfNodes.entrySet()) {
+                for (List<String> chunk : chunks(entry.getValue())) {
+                    try (PreparedStatement preparedStatement = connection.prepareStatement(
+                            withParameters(UPDATE_ASSIGNMENT_AND_STATE_OF_TASKS, chunk.size()))) {
+                        preparedStatement.setString(1, entry.getKey());
+                        setTaskNames(preparedStatement, 2, chunk);
+                        preparedStatement.executeUpdate();
+                    }
+                }
+                incrementNodeVersion(connection, entry.getKey());
             }
-            preparedStatement.executeBatch();
             if (LOG.isDebugEnabled()) {
                 tasks.forEach((task, destinedNode) -> LOG
                         .debug("Assigned the task [" + task + "] with destined node [" + destinedNode + "]"));
@@ -420,20 +668,25 @@ public class RDMBSConnector {
      */
     public void updateTaskState(List<String> tasks, CoordinatedTask.States state) throws TaskCoordinationException {
 
-        if (LOG.isDebugEnabled()) {
-            LOG.debug(EMPTY_LIST + " for    update assignment and state change to none if running.");
+        if (tasks.isEmpty()) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(EMPTY_LIST + " for state change to " + state + ".");
+            }
             return;
         }
-        try (Connection connection = getConnection(); PreparedStatement preparedStatement = connection.prepareStatement(
-                UPDATE_TASK_STATE)) {
-            for (String task : tasks) {
-                preparedStatement.setString(1, state.name());
-                preparedStatement.setString(2, task);
-                preparedStatement.addBatch();
+        try (Connection connection = getConnection()) {
+            for (List<String> chunk : chunks(tasks)) {
+                try (PreparedStatement preparedStatement = connection.prepareStatement(
+                        withParameters(UPDATE_TASKS_STATE, chunk.size()))) {
+                    preparedStatement.setString(1, state.name());
+                    setTaskNames(preparedStatement, 2, chunk);
+                    preparedStatement.executeUpdate();
+                }
+                incrementNodeVersionOfTasks(connection, chunk);
             }
-            preparedStatement.executeBatch();
             if (LOG.isDebugEnabled()) {
-                tasks.stream().map(task -> "Paused task [" + task + "]").forEachOrdered(LOG::debug);
+                tasks.stream().map(task -> "Updated the state of task [" + task + "] to " + state)
+                        .forEachOrdered(LOG::debug);
             }
         } catch (SQLException ex) {
             throw new TaskCoordinationException(ERROR_MSG, ex);
@@ -455,6 +708,139 @@ public class RDMBSConnector {
         }
     }
 
+    /**
+     * Updates the load of the tasks, and adds the load of the tasks which don't have one.
+     *
+     * @param taskLoads - Map of task name to load.
+     */
+    public void updateTaskLoads(Map<String, TaskLoad> taskLoads) throws TaskCoordinationException {
+
+        if (taskLoads.isEmpty()) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug(EMPTY_LIST + "for task load update.");
+            }
+            return;
+        }
+        try (Connection connection = getConnection()) {
+            if (!isTaskLoadTableAvailable(connection)) {
+                return;
+            }
+            List<String> tasks = new ArrayList<>(taskLoads.keySet());
+            int[] results = new int[tasks.size()];
+            if (batchUpdateCountsSupported) {
+                try (PreparedStatement preparedStatement = connection.prepareStatement(UPDATE_TASK_LOAD)) {
+                    for (String task : tasks) {
+                        setTaskLoad(preparedStatement, task, taskLoads.get(task));
+                        preparedStatement.addBatch();
+                    }
+                    results = preparedStatement.executeBatch();
+                }
+            } else {
+                Arrays.fill(results, Statement.SUCCESS_NO_INFO);
+            }
+            for (int i = 0; i < results.length; i++) {
+                String task = tasks.get(i);
+                if (results[i] == Statement.SUCCESS_NO_INFO) {
+                    // the driver doesn't tell whether the row exists ( e.g. Oracle ), hence updating it alone
+                    if (batchUpdateCountsSupported) {
+                        LOG.debug("The driver doesn't report the update counts of a batch, hence updating the task "
+                                          + "loads one at a time.");
+                        batchUpdateCountsSupported = false;
+                    }
+                    results[i] = updateTaskLoad(connection, task, taskLoads.get(task));
+                }
+                if (results[i] == 0) {
+                    addTaskLoad(connection, task, taskLoads.get(task));
+                }
+            }
+            if (LOG.isDebugEnabled()) {
+                taskLoads.forEach(
+                        (task, taskLoad) -> LOG.debug("Updated the load of task [" + task + "] : " + taskLoad));
+            }
+        } catch (SQLException ex) {
+            throw new TaskCoordinationException(ERROR_MSG, ex);
+        }
+    }
+
+    private static int updateTaskLoad(Connection connection, String taskName, TaskLoad taskLoad)
+            throws SQLException {
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(UPDATE_TASK_LOAD)) {
+            setTaskLoad(preparedStatement, taskName, taskLoad);
+            return preparedStatement.executeUpdate();
+        }
+    }
+
+    private static void setTaskLoad(PreparedStatement preparedStatement, String taskName, TaskLoad taskLoad)
+            throws SQLException {
+
+        preparedStatement.setLong(1, taskLoad.getExecutionTime());
+        preparedStatement.setLong(2, taskLoad.getCpuTime());
+        preparedStatement.setString(3, taskName);
+    }
+
+    private void addTaskLoad(Connection connection, String taskName, TaskLoad taskLoad) throws SQLException {
+
+        try (PreparedStatement preparedStatement = connection.prepareStatement(ADD_TASK_LOAD)) {
+            preparedStatement.setString(1, taskName);
+            preparedStatement.setLong(2, taskLoad.getExecutionTime());
+            preparedStatement.setLong(3, taskLoad.getCpuTime());
+            preparedStatement.executeUpdate();
+        } catch (SQLException ex) {
+            if (!ex.getSQLState().startsWith(SQL_INTEGRITY_VIOLATION_CODE)) {
+                throw ex;
+            }
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Load of task [" + taskName + "] already exists.");
+            }
+        }
+    }
+
+    /**
+     * Retrieve the load of all the tasks.
+     *
+     * @return - Map of task name to load.
+     */
+    public Map<String, TaskLoad> getAllTaskLoads() throws TaskCoordinationException {
+
+        Map<String, TaskLoad> taskLoads = new HashMap<>();
+        try (Connection connection = getConnection()) {
+            if (!isTaskLoadTableAvailable(connection)) {
+                return taskLoads;
+            }
+            try (PreparedStatement preparedStatement = connection.prepareStatement(RETRIEVE_ALL_TASK_LOADS);
+                    ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    taskLoads.put(resultSet.getString(TASK_NAME), new TaskLoad(resultSet.getLong(EXECUTION_TIME),
+                                                                               resultSet.getLong(CPU_TIME)));
+                }
+            }
+        } catch (SQLException ex) {
+            throw new TaskCoordinationException(ERROR_MSG, ex);
+        }
+        return taskLoads;
+    }
+
+    /**
+     * Removes the load of the tasks which are not in the task table.
+     */
+    public void deleteInvalidTaskLoads() throws TaskCoordinationException {
+
+        try (Connection connection = getConnection()) {
+            if (!isTaskLoadTableAvailable(connection)) {
+                return;
+            }
+            try (PreparedStatement preparedStatement = connection.prepareStatement(DELETE_INVALID_TASK_LOADS)) {
+                int result = preparedStatement.executeUpdate();
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Removed the load of " + result + " invalid task(s).");
+                }
+            }
+        } catch (SQLException ex) {
+            throw new TaskCoordinationException(ERROR_MSG, ex);
+        }
+    }
+
     /**
      * Get connection.
      *
@@ -33,6 +33,26 @@ public class TaskQueryHelper {
     public static final String DESTINED_NODE_ID = "DESTINED_NODE_ID";
     public static final String TASK_STATE = "TASK_STATE";
 
+    // node version table name
+    public static final String NODE_VERSION_TABLE_NAME = "TASK_NODE_VERSION_TABLE";
+
+    // node version table columns
+    public static final String NODE_ID = "NODE_ID";
+    public static final String NODE_VERSION = "NODE_VERSION";
+
+    // task load table name
+    public static final String TASK_LOAD_TABLE_NAME = "TASK_LOAD_TABLE";
+
+    // task load table columns
+    public static final String EXECUTION_TIME = "EXECUTION_TIME";
+    public static final String CPU_TIME = "CPU_TIME";
+
+    // the reserved node id of the version, which changes when tasks become un assigned
+    public static final String UNASSIGNED_TASKS_NODE_ID = "[UNASSIGNED]";
+
+    // the place holder of the parameter list in the multi row queries
+    private static final String PARAMETERS = "%s";
+
     private static final String TASK_STATE_CONST =
             "( CASE " + TASK_STATE + " WHEN '" + CoordinatedTask.States.RUNNING + "' THEN '"
                     + CoordinatedTask.States.NONE + "' WHEN '" + CoordinatedTask.States.DEACTIVATED + "'THEN '"
@@ -42,10 +62,6 @@ public class TaskQueryHelper {
             "INSERT INTO " + TABLE_NAME + " ( " + TASK_NAME + ", " + DESTINED_NODE_ID + ", " + TASK_STATE + ") "
                     + "VALUES (?,NULL,'" + CoordinatedTask.States.NONE + "')";
 
-    static final String UPDATE_ASSIGNMENT_AND_STATE =
-            "UPDATE  " + TABLE_NAME + " SET  " + DESTINED_NODE_ID + " = ? , " + TASK_STATE + " = " + TASK_STATE_CONST
-                    + " WHERE " + TASK_NAME + " = ?";
-
     static final String UPDATE_TASK_STATUS_TO_DEACTIVATED =
             "UPDATE  " + TABLE_NAME + "  SET " + TASK_STATE + " = '" + CoordinatedTask.States.DEACTIVATED + "' "
                     + "WHERE " + TASK_NAME + " =? AND " + TASK_STATE + " !='" + CoordinatedTask.States.PAUSED + "'";
@@ -54,13 +70,17 @@ public class TaskQueryHelper {
             "UPDATE  " + TABLE_NAME + "  SET " + TASK_STATE + " = '" + CoordinatedTask.States.ACTIVATED + "' WHERE "
                     + TASK_NAME + " =? AND " + TASK_STATE + " !='" + CoordinatedTask.States.RUNNING + "'";
 
-    static final String UPDATE_TASK_STATE =
-            "UPDATE  " + TABLE_NAME + "  SET " + TASK_STATE + " = ? WHERE " + TASK_NAME + " =? ";
-
     static final String UPDATE_TASK_STATE_FOR_DESTINED_NODE =
             "UPDATE  " + TABLE_NAME + "  SET " + TASK_STATE + " = ? WHERE " + TASK_NAME + " =? AND " + DESTINED_NODE_ID
                     + " =?";
 
+    static final String UPDATE_TASKS_STATE =
+            "UPDATE  " + TABLE_NAME + "  SET " + TASK_STATE + " = ? WHERE " + TASK_NAME + " IN (" + PARAMETERS + ")";
+
+    static final String UPDATE_ASSIGNMENT_AND_STATE_OF_TASKS =
+            "UPDATE  " + TABLE_NAME + " SET  " + DESTINED_NODE_ID + " = ? , " + TASK_STATE + " = " + TASK_STATE_CONST
+                    + " WHERE " + TASK_NAME + " IN (" + PARAMETERS + ")";
+
     static final String RETRIEVE_ALL_TASKS = "SELECT  " + TASK_NAME + " FROM " + TABLE_NAME;
 
     static final String RETRIEVE_UNASSIGNED_NOT_COMPLETED_TASKS =
@@ -71,18 +91,25 @@ public class TaskQueryHelper {
             "SELECT " + TASK_NAME + " FROM " + TABLE_NAME + "  WHERE " + DESTINED_NODE_ID + " =? AND " + TASK_STATE
                     + " =?";
 
+    static final String RETRIEVE_ACTIVE_TASKS_OF_NODE =
+            "SELECT " + TASK_NAME + ", " + DESTINED_NODE_ID + ", " + TASK_STATE + " FROM " + TABLE_NAME + "  WHERE "
+                    + DESTINED_NODE_ID + " =? AND " + TASK_STATE + " IN ('" + CoordinatedTask.States.DEACTIVATED
+                    + "', '" + CoordinatedTask.States.ACTIVATED + "', '" + CoordinatedTask.States.NONE + "', '"
+                    + CoordinatedTask.States.RUNNING + "')";
+
     static final String RETRIEVE_TASK_STATE =
             "SELECT " + TASK_STATE + " FROM " + TABLE_NAME + "  WHERE " + TASK_NAME + " =?";
 
-    static final String REMOVE_ASSIGNMENT_AND_UPDATE_STATE =
+    static final String REMOVE_ASSIGNMENT_AND_UPDATE_STATE_OF_TASKS =
             "UPDATE " + TABLE_NAME + " SET " + DESTINED_NODE_ID + " = NULL , " + TASK_STATE + " = " + TASK_STATE_CONST
-                    + " WHERE " + TASK_NAME + " =?";
+                    + " WHERE " + TASK_NAME + " IN (" + PARAMETERS + ")";
 
     static final String REMOVE_TASKS_OF_NODE = "DELETE FROM " + TABLE_NAME + "  WHERE " + DESTINED_NODE_ID + " =? AND "
             + TASK_STATE + " NOT IN ('" + CoordinatedTask.States.COMPLETED + "', '" + CoordinatedTask.States.ACTIVATED
             + "', '" + CoordinatedTask.States.DEACTIVATED + "')";
 
-    static final String DELETE_TASK = "DELETE FROM " + TABLE_NAME + " WHERE " + TASK_NAME + " =?";
+    static final String DELETE_TASKS =
+            "DELETE FROM " + TABLE_NAME + " WHERE " + TASK_NAME + " IN (" + PARAMETERS + ")";
 
     static final String CLEAN_TASKS_OF_NODE =
             "UPDATE " + TABLE_NAME + " SET " + DESTINED_NODE_ID + " = NULL , " + TASK_STATE + " = " + TASK_STATE_CONST
@@ -93,6 +120,61 @@ public class TaskQueryHelper {
             "SELECT * FROM " + TABLE_NAME + " WHERE " + DESTINED_NODE_ID + " IS NOT NULL AND " + TASK_STATE + " != '"
                     + CoordinatedTask.States.COMPLETED + "'";
 
+    static final String RETRIEVE_NODE_VERSION =
+            "SELECT " + NODE_VERSION + " FROM " + NODE_VERSION_TABLE_NAME + " WHERE " + NODE_ID + " =?";
+
+    static final String ADD_NODE_VERSION =
+            "INSERT INTO " + NODE_VERSION_TABLE_NAME + " ( " + NODE_ID + ", " + NODE_VERSION + ") VALUES (?,0)";
+
+    static final String INCREMENT_NODE_VERSION =
+            "UPDATE " + NODE_VERSION_TABLE_NAME + " SET " + NODE_VERSION + " = " + NODE_VERSION + " + 1 WHERE "
+                    + NODE_ID + " =?";
+
+    static final String INCREMENT_NODE_VERSION_OF_TASKS =
+            "UPDATE " + NODE_VERSION_TABLE_NAME + " SET " + NODE_VERSION + " = " + NODE_VERSION + " + 1 WHERE "
+                    + NODE_ID + " IN (SELECT " + DESTINED_NODE_ID + " FROM " + TABLE_NAME + " WHERE " + TASK_NAME
+                    + " IN (" + PARAMETERS + "))";
+
+    static final String DELETE_NODE_VERSION =
+            "DELETE FROM " + NODE_VERSION_TABLE_NAME + " WHERE " + NODE_ID + " =?";
+
+    static final String CHECK_NODE_VERSION_TABLE = "SELECT " + NODE_ID + " FROM " + NODE_VERSION_TABLE_NAME
+            + " WHERE 1 = 0";
+
+    static final String UPDATE_TASK_LOAD =
+            "UPDATE " + TASK_LOAD_TABLE_NAME + " SET " + EXECUTION_TIME + " = ? , " + CPU_TIME + " = ? WHERE "
+                    + TASK_NAME + " =?";
+
+    static final String ADD_TASK_LOAD =
+            "INSERT INTO " + TASK_LOAD_TABLE_NAME + " ( " + TASK_NAME + ", " + EXECUTION_TIME + ", " + CPU_TIME
+                    + ") VALUES (?,?,?)";
+
+    static final String RETRIEVE_ALL_TASK_LOADS =
+            "SELECT " + TASK_NAME + ", " + EXECUTION_TIME + ", " + CPU_TIME + " FROM " + TASK_LOAD_TABLE_NAME;
+
+    static final String DELETE_INVALID_TASK_LOADS =
+            "DELETE FROM " + TASK_LOAD_TABLE_NAME + " WHERE " + TASK_NAME + " NOT IN (SELECT " + TASK_NAME + " FROM "
+                    + TABLE_NAME + ")";
+
+    static final String CHECK_TASK_LOAD_TABLE = "SELECT " + TASK_NAME + " FROM " + TASK_LOAD_TABLE_NAME
+            + " WHERE 1 = 0";
+
+    /**
+     * Builds the multi row query for the given number of parameters.
+     *
+     * @param query          - Multi row query.
+     * @param parameterCount - Number of parameters in the parameter list.
+     * @return - The query with the parameter list.
+     */
+    static String withParameters(String query, int parameterCount) {
+
+        StringBuilder parameters = new StringBuilder();
+        for (int i = 0; i < parameterCount; i++) {
+            parameters.append(i == 0 ? "?" : ",?");
+        }
+        return query.replace(PARAMETERS, parameters);
+    }
+
     private TaskQueryHelper() throws IllegalAccessException {
         throw new IllegalAccessException("This class not to be initialized.");
     }
@@ -67,6 +67,14 @@ public interface TaskManager {
      */
     List<String> getAllCoordinatedTasksDeployed();
 
+    /**
+     * Checks whether the coordinated task with the given name is deployed in this node.
+     *
+     * @param taskName The name of the task
+     * @return true if the coordinated task is deployed in this node.
+     */
+    boolean isCoordinatedTaskDeployed(String taskName);
+
     /**
      * Get all the locally running coordinated tasks.
      *
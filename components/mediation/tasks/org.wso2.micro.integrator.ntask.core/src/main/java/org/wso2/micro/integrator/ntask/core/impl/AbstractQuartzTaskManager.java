@@ -401,7 +401,7 @@ public abstract class AbstractQuartzTaskManager implements TaskManager {
                 try {
                     String taskName = trigger.getJobKey().getName();
                     TaskUtils.setTaskFinished(getTaskRepository(), taskName, true);
-                    if (getAllCoordinatedTasksDeployed().contains(taskName)) {
+                    if (isCoordinatedTaskDeployed(taskName)) {
                         removeTaskFromLocallyRunningTaskList(taskName);
                         taskStore.updateTaskState(Collections.singletonList(taskName),
                                                   CoordinatedTask.States.COMPLETED);
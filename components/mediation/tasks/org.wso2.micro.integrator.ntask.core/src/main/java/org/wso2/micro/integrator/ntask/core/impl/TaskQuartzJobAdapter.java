@@ -24,7 +24,9 @@ import org.quartz.JobDataMap;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.wso2.micro.integrator.ntask.common.TaskConstants;
+import org.wso2.micro.integrator.ntask.coordination.task.TaskLoadRecorder;
 import org.wso2.micro.integrator.ntask.core.Task;
+import org.wso2.micro.integrator.ntask.core.internal.DataHolder;
 import org.wso2.micro.integrator.ntask.core.internal.TasksDSComponent;
 
 import java.util.Map;
@@ -60,7 +62,21 @@ public class TaskQuartzJobAdapter implements Job {
             task.setProperties(properties);
 
             task.init();
-            task.execute();
+            DataHolder dataHolder = DataHolder.getInstance();
+            if (dataHolder.isCoordinationEnabledGlobally()) {
+                /* the execution is recorded to calculate the load of the coordinated tasks */
+                TaskLoadRecorder loadRecorder = dataHolder.getTaskLoadRecorder();
+                long startTime = System.nanoTime();
+                long startCpuTime = loadRecorder.getCurrentThreadCpuTime();
+                try {
+                    task.execute();
+                } finally {
+                    loadRecorder.record(ctx.getJobDetail().getKey().getName(), System.nanoTime() - startTime,
+                                        loadRecorder.getCurrentThreadCpuTime() - startCpuTime);
+                }
+            } else {
+                task.execute();
+            }
 
         } catch (Throwable e) {
             String msg = "Error in executing task: " + e.getMessage();
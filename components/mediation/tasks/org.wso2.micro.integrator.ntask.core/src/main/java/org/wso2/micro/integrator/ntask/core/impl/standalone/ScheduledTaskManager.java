@@ -36,6 +36,8 @@ import org.wso2.micro.integrator.ntask.core.internal.TasksDSComponent;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class is responsible for handling / scheduling all tasks in Micro Integrator.
@@ -44,16 +46,16 @@ public class ScheduledTaskManager extends AbstractQuartzTaskManager {
 
     private static Log log = LogFactory.getLog(ScheduledTaskManager.class);
     /**
-     * The list which holds the list of coordinated tasks deployed in this node.
+     * The set which holds the coordinated tasks deployed in this node.
      */
-    private List<String> deployedCoordinatedTasks = new ArrayList<>();
+    private Set<String> deployedCoordinatedTasks = ConcurrentHashMap.newKeySet();
 
     /**
      * The list of tasks for which the addition failed.
      */
     private List<String> additionFailedTasks = new ArrayList<>();
 
-    private List<String> locallyRunningCoordinatedTasks = new ArrayList<>();
+    private Set<String> locallyRunningCoordinatedTasks = ConcurrentHashMap.newKeySet();
 
     private SynapseEnvironment synapseEnvironment = null;
     private TaskStore taskStore;
@@ -191,6 +193,11 @@ public class ScheduledTaskManager extends AbstractQuartzTaskManager {
         return new ArrayList<>(deployedCoordinatedTasks);
     }
 
+    @Override
+    public boolean isCoordinatedTaskDeployed(String taskName) {
+        return deployedCoordinatedTasks.contains(taskName);
+    }
+
     /**
      * Stops the execution of the task.
      *
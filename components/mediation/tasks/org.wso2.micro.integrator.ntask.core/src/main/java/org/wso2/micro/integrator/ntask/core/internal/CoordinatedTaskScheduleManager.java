@@ -23,6 +23,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.micro.integrator.coordination.ClusterCoordinator;
 import org.wso2.micro.integrator.ntask.coordination.task.ClusterCommunicator;
+import org.wso2.micro.integrator.ntask.coordination.task.resolver.LoadAwareTaskLocationResolver;
 import org.wso2.micro.integrator.ntask.coordination.task.resolver.TaskLocationResolver;
 import org.wso2.micro.integrator.ntask.coordination.task.scehduler.CoordinatedTaskScheduler;
 import org.wso2.micro.integrator.ntask.coordination.task.store.TaskStore;
@@ -78,6 +79,9 @@ public class CoordinatedTaskScheduleManager {
         ScheduledExecutorService taskSchedulerExecutor = Executors.newSingleThreadScheduledExecutor(namedThreadFactory);
         TaskStoreCleaner taskStoreCleaner = new TaskStoreCleaner(taskManager, taskStore);
         ClusterCommunicator connector = new ClusterCommunicator(clusterCoordinator);
+        if (resolver instanceof LoadAwareTaskLocationResolver) {
+            ((LoadAwareTaskLocationResolver) resolver).setSchedulerPeriod(TimeUnit.SECONDS.toMillis(executionPeriod));
+        }
         CoordinatedTaskScheduler taskScheduler = new CoordinatedTaskScheduler(taskManager, taskStore, resolver,
                                                                               connector, taskStoreCleaner,
                                                                               resolveFrequency);
@@ -19,6 +19,7 @@
 package org.wso2.micro.integrator.ntask.core.internal;
 
 import org.wso2.micro.integrator.coordination.ClusterCoordinator;
+import org.wso2.micro.integrator.ntask.coordination.task.TaskLoadRecorder;
 import org.wso2.micro.integrator.ntask.core.impl.standalone.ScheduledTaskManager;
 
 import java.util.concurrent.ScheduledExecutorService;
@@ -34,6 +35,7 @@ public class DataHolder {
     private ClusterCoordinator clusterCoordinator;
     private ScheduledTaskManager taskManager;
     private ScheduledExecutorService taskScheduler;
+    private final TaskLoadRecorder taskLoadRecorder = new TaskLoadRecorder();
 
     private DataHolder() {
 
@@ -75,4 +77,8 @@ public class DataHolder {
         this.taskScheduler = taskScheduler;
     }
 
+    public TaskLoadRecorder getTaskLoadRecorder() {
+        return taskLoadRecorder;
+    }
+
 }
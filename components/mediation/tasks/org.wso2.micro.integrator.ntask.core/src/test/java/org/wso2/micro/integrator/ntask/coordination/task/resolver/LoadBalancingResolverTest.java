@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.micro.integrator.ntask.coordination.task.resolver;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.wso2.micro.integrator.ntask.coordination.task.ClusterCommunicator;
+import org.wso2.micro.integrator.ntask.coordination.task.CoordinatedTask;
+import org.wso2.micro.integrator.ntask.coordination.task.TaskLoad;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class LoadBalancingResolverTest extends TestCase {
+
+    private final TestClusterCommunicator clusterCommunicator = new TestClusterCommunicator();
+    private final List<CoordinatedTask> assignedTasks = new ArrayList<>();
+    private final Map<String, TaskLoad> taskLoads = new HashMap<>();
+
+    /**
+     * Test that the tasks are resolved to the node with the least load, where the tasks which are not measured yet
+     * add the average cost and the paused tasks add no load.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testResolveToLeastLoadedNode() throws Exception {
+        LoadBalancingResolver resolver = createResolver(Collections.emptyMap());
+        clusterCommunicator.nodes = Arrays.asList("node1", "node2", "node3");
+        assign("task1", "node1", CoordinatedTask.States.RUNNING, 5000);
+        assign("task2", "node2", CoordinatedTask.States.RUNNING, 3000);
+        assign("paused", "node3", CoordinatedTask.States.PAUSED, 0);
+
+        Assert.assertTrue("The tasks are moved below the minimum load difference", rebalance(resolver).isEmpty());
+        Assert.assertEquals("node3", resolver.getTaskNodeLocation(clusterCommunicator, "task3"));
+        Assert.assertEquals("node2", resolver.getTaskNodeLocation(clusterCommunicator, "task4"));
+        Assert.assertEquals("node3", resolver.getTaskNodeLocation(clusterCommunicator, "task5"));
+    }
+
+    /**
+     * Test that no node is resolved while no node is registered to the cluster.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testResolveWithoutNodes() throws Exception {
+        LoadBalancingResolver resolver = createResolver(Collections.emptyMap());
+        clusterCommunicator.nodes = Collections.emptyList();
+        Assert.assertNull(resolver.getTaskNodeLocation(clusterCommunicator, "task1"));
+    }
+
+    /**
+     * Test that the running task which balances the most loaded and the least loaded nodes the most is moved, and
+     * that the pending move is accounted for in the next rebalance.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRebalanceMovesTask() throws Exception {
+        LoadBalancingResolver resolver = createResolver(Collections.emptyMap());
+        clusterCommunicator.nodes = Arrays.asList("node1", "node2");
+        assign("task1", "node1", CoordinatedTask.States.RUNNING, 60000);
+        assign("task2", "node1", CoordinatedTask.States.RUNNING, 30000);
+        assign("task3", "node1", CoordinatedTask.States.RUNNING, 20000);
+
+        Assert.assertEquals(Collections.singletonList("task1"), rebalance(resolver));
+
+        // the moved task is un assigned, and its load is added to the node it is moved to
+        assignedTasks.remove(0);
+        Assert.assertTrue("The load of the pending move is not accounted for", rebalance(resolver).isEmpty());
+    }
+
+    /**
+     * Test that the tasks are moved only up to the maximum number of moves per rebalance.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMaxMovesPerRebalance() throws Exception {
+        clusterCommunicator.nodes = Arrays.asList("node1", "node2", "node3");
+        for (int i = 0; i < 4; i++) {
+            assign("task" + i, "node1", CoordinatedTask.States.RUNNING, 40000);
+        }
+        Assert.assertEquals(1, rebalance(createResolver(Collections.emptyMap())).size());
+
+        Map<String, String> properties = Collections.singletonMap("max_moves_per_rebalance", "2");
+        Assert.assertEquals(2, rebalance(createResolver(properties)).size());
+    }
+
+    /**
+     * Test that no task is moved while the load difference is below the rebalance threshold, nor a task which is not
+     * running or not measured.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testNoMovableTask() throws Exception {
+        LoadBalancingResolver resolver = createResolver(Collections.emptyMap());
+        clusterCommunicator.nodes = Arrays.asList("node1", "node2");
+        assign("task1", "node1", CoordinatedTask.States.RUNNING, 60000);
+        assign("task2", "node2", CoordinatedTask.States.RUNNING, 50000);
+        Assert.assertTrue("The tasks are moved below the rebalance threshold", rebalance(resolver).isEmpty());
+
+        assignedTasks.clear();
+        taskLoads.clear();
+        assign("scheduled", "node1", CoordinatedTask.States.NONE, 100000);
+        assignedTasks.add(new CoordinatedTask("unmeasured", "node1", CoordinatedTask.States.RUNNING));
+        Assert.assertTrue("A task which is not running or not measured is moved", rebalance(resolver).isEmpty());
+    }
+
+    /**
+     * Test that a moved task is not moved again within the move cooldown, while the other tasks can be moved.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMoveCooldown() throws Exception {
+        LoadBalancingResolver resolver = createResolver(Collections.emptyMap());
+        resolver.setSchedulerPeriod(10);
+        clusterCommunicator.nodes = Arrays.asList("node1", "node2");
+        assign("task1", "node1", CoordinatedTask.States.RUNNING, 20000);
+        assign("task2", "node1", CoordinatedTask.States.RUNNING, 12000);
+        Assert.assertEquals(Collections.singletonList("task1"), rebalance(resolver));
+        Assert.assertEquals("node2", waitForNodeLocation(resolver, "task1"));
+
+        assignedTasks.clear();
+        assign("task1", "node2", CoordinatedTask.States.RUNNING, 20000);
+        assign("task2", "node1", CoordinatedTask.States.RUNNING, 12000);
+        assign("task3", "node2", CoordinatedTask.States.RUNNING, 30000);
+        Assert.assertEquals(Collections.singletonList("task3"), rebalance(resolver));
+    }
+
+    /**
+     * Test that a moved task is resolved only after two periods of the task scheduler, when the configured handoff
+     * delay is shorter.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testHandoffDelayOfSchedulerPeriod() throws Exception {
+        LoadBalancingResolver resolver = createResolver(Collections.singletonMap("handoff_delay", "100"));
+        resolver.setSchedulerPeriod(1000);
+        assertHandoffDelay(resolver, 2000);
+    }
+
+    /**
+     * Test that a moved task is resolved only after the configured handoff delay, when it is longer than two periods
+     * of the task scheduler.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testConfiguredHandoffDelay() throws Exception {
+        LoadBalancingResolver resolver = createResolver(Collections.singletonMap("handoff_delay", "1500"));
+        resolver.setSchedulerPeriod(100);
+        assertHandoffDelay(resolver, 1500);
+    }
+
+    /**
+     * Test that a moved task is resolved to the least loaded node when the node it is moved to leaves the cluster.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMovedToNodeWhichLeft() throws Exception {
+        LoadBalancingResolver resolver = createResolver(Collections.emptyMap());
+        resolver.setSchedulerPeriod(10);
+        clusterCommunicator.nodes = Arrays.asList("node1", "node2");
+        assign("task1", "node1", CoordinatedTask.States.RUNNING, 60000);
+        assign("task2", "node1", CoordinatedTask.States.RUNNING, 30000);
+        assign("task3", "node1", CoordinatedTask.States.RUNNING, 20000);
+        Assert.assertEquals(Collections.singletonList("task1"), rebalance(resolver));
+
+        clusterCommunicator.nodes = Arrays.asList("node1", "node3");
+        Assert.assertEquals("node3", waitForNodeLocation(resolver, "task1"));
+    }
+
+    /**
+     * Test that a node which becomes the leader resolves the un assigned tasks only after the handoff delay, as they
+     * may have been moved by the previous leader.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBecameLeader() throws Exception {
+        LoadBalancingResolver resolver = createResolver(Collections.emptyMap());
+        resolver.setSchedulerPeriod(500);
+        clusterCommunicator.nodes = Arrays.asList("node1", "node2");
+        long start = System.currentTimeMillis();
+        resolver.becameLeader();
+        Assert.assertNull("The task is resolved before the handoff delay",
+                          resolver.getTaskNodeLocation(clusterCommunicator, "task1"));
+
+        Assert.assertNotNull(waitForNodeLocation(resolver, "task1"));
+        Assert.assertTrue("The task is resolved before the handoff delay",
+                          System.currentTimeMillis() - start >= 1000);
+    }
+
+    private void assertHandoffDelay(LoadBalancingResolver resolver, long handoffDelay) throws Exception {
+
+        clusterCommunicator.nodes = Arrays.asList("node1", "node2");
+        assign("task1", "node1", CoordinatedTask.States.RUNNING, 60000);
+        assign("task2", "node1", CoordinatedTask.States.RUNNING, 30000);
+        long start = System.currentTimeMillis();
+        Assert.assertEquals(Collections.singletonList("task1"), rebalance(resolver));
+        Assert.assertNull("The moved task is resolved before the handoff delay",
+                          resolver.getTaskNodeLocation(clusterCommunicator, "task1"));
+
+        Assert.assertEquals("node2", waitForNodeLocation(resolver, "task1"));
+        Assert.assertTrue("The moved task is resolved before the handoff delay",
+                          System.currentTimeMillis() - start >= handoffDelay);
+    }
+
+    private static LoadBalancingResolver createResolver(Map<String, String> properties) {
+
+        LoadBalancingResolver resolver = new LoadBalancingResolver();
+        resolver.init(properties);
+        return resolver;
+    }
+
+    /**
+     * Assigns a task to the given node, with a load of the given CPU time per second.
+     */
+    private void assign(String taskName, String node, CoordinatedTask.States state, long cpuTime) {
+
+        assignedTasks.add(new CoordinatedTask(taskName, node, state));
+        if (cpuTime > 0) {
+            taskLoads.put(taskName, new TaskLoad(cpuTime, cpuTime));
+        }
+    }
+
+    private List<String> rebalance(LoadBalancingResolver resolver) {
+        return resolver.rebalance(clusterCommunicator, new ArrayList<>(assignedTasks), new HashMap<>(taskLoads));
+    }
+
+    private String waitForNodeLocation(LoadBalancingResolver resolver, String taskName) throws Exception {
+
+        String node = null;
+        for (int i = 0; i < 200 && node == null; i++) {
+            Thread.sleep(50);
+            node = resolver.getTaskNodeLocation(clusterCommunicator, taskName);
+        }
+        Assert.assertNotNull("The task is not resolved in time", node);
+        return node;
+    }
+
+    /**
+     * Provides the given nodes as the nodes of the cluster.
+     */
+    private static class TestClusterCommunicator extends ClusterCommunicator {
+
+        private List<String> nodes = Collections.emptyList();
+
+        TestClusterCommunicator() {
+            super(null);
+        }
+
+        @Override
+        public List<String> getAllNodeIds() {
+            return new ArrayList<>(nodes);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.micro.integrator.ntask.coordination.task.scehduler;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.wso2.micro.integrator.coordination.ClusterCoordinator;
+import org.wso2.micro.integrator.coordination.CoordinationStrategy;
+import org.wso2.micro.integrator.coordination.node.NodeDetail;
+import org.wso2.micro.integrator.ntask.coordination.TaskCoordinationException;
+import org.wso2.micro.integrator.ntask.coordination.task.ClusterCommunicator;
+import org.wso2.micro.integrator.ntask.coordination.task.CoordinatedTask;
+import org.wso2.micro.integrator.ntask.coordination.task.resolver.TaskLocationResolver;
+import org.wso2.micro.integrator.ntask.coordination.task.store.TaskDatabase;
+import org.wso2.micro.integrator.ntask.coordination.task.store.TaskStore;
+import org.wso2.micro.integrator.ntask.coordination.task.store.cleaner.TaskStoreCleaner;
+import org.wso2.micro.integrator.ntask.coordination.task.store.connector.TaskQueryHelper;
+import org.wso2.micro.integrator.ntask.core.impl.standalone.RecordingTaskManager;
+import org.wso2.micro.integrator.ntask.core.internal.DataHolder;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+
+public class CoordinatedTaskSchedulerTest extends TestCase {
+
+    private static final String NODE_ID = "node1";
+    // only the first run retrieves all the tasks regardless of the versions
+    private static final int RESOLVING_FREQUENCY = 1000;
+
+    private TaskDatabase database;
+    private CountingTaskStore taskStore;
+    private RecordingTaskManager taskManager;
+    private boolean leader;
+
+    @Override
+    protected void setUp() throws Exception {
+        setClusterCoordinator(new ClusterCoordinator(createCoordinationStrategy()));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        setClusterCoordinator(null);
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    /**
+     * Test that the tasks of the node are retrieved only when the version of the node changes, and that the tasks
+     * are scheduled and paused upon the retrieval.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testUnchangedVersionSkipsRetrieval() throws Exception {
+        CoordinatedTaskScheduler scheduler = createScheduler(true);
+        assignTasks("task1", "task2");
+
+        scheduler.run();
+        Assert.assertEquals(1, taskStore.activeTaskRetrievals.get());
+        Assert.assertEquals(Arrays.asList("task1", "task2"), sorted(taskManager.takeScheduledTasks()));
+
+        runTimes(scheduler, 3);
+        Assert.assertEquals("The tasks are retrieved while the version is unchanged", 1,
+                            taskStore.activeTaskRetrievals.get());
+        Assert.assertTrue(taskManager.takeScheduledTasks().isEmpty());
+
+        taskStore.deactivateTask("task1");
+        scheduler.run();
+        Assert.assertEquals(2, taskStore.activeTaskRetrievals.get());
+        Assert.assertEquals(Collections.singletonList("task1"), taskManager.takeStoppedTasks());
+        Assert.assertEquals(CoordinatedTask.States.PAUSED, taskStore.getTaskState("task1"));
+
+        // pausing the task changes the version as well, which is retrieved once more
+        runTimes(scheduler, 2);
+        int retrievals = taskStore.activeTaskRetrievals.get();
+        runTimes(scheduler, 3);
+        Assert.assertEquals(retrievals, taskStore.activeTaskRetrievals.get());
+
+        taskStore.activateTask("task1");
+        scheduler.run();
+        Assert.assertEquals(retrievals + 1, taskStore.activeTaskRetrievals.get());
+        Assert.assertEquals(Collections.singletonList("task1"), taskManager.takeScheduledTasks());
+    }
+
+    /**
+     * Test that the tasks are retrieved again while a task retrieved to be scheduled is not deployed, although the
+     * version is unchanged.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testUnhandledTasksRetried() throws Exception {
+        CoordinatedTaskScheduler scheduler = createScheduler(true);
+        assignTasks("task1");
+        taskStore.addTaskIfNotExist("undeployed");
+        taskStore.updateAssignmentAndState(Collections.singletonMap("undeployed", NODE_ID));
+
+        scheduler.run();
+        scheduler.run();
+        Assert.assertEquals(2, taskStore.activeTaskRetrievals.get());
+        Assert.assertEquals(Collections.singletonList("task1"), taskManager.takeScheduledTasks());
+
+        taskManager.deploy("undeployed");
+        scheduler.run();
+        Assert.assertEquals(3, taskStore.activeTaskRetrievals.get());
+        Assert.assertEquals(Collections.singletonList("undeployed"), taskManager.takeScheduledTasks());
+        runTimes(scheduler, 3);
+        Assert.assertEquals(3, taskStore.activeTaskRetrievals.get());
+    }
+
+    /**
+     * Test that the leader resolves the un assigned tasks only when the version of the un assigned tasks changes,
+     * and that it schedules the tasks assigned to itself in the same run.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testLeaderResolvesChangedUnassignedTasks() throws Exception {
+        leader = true;
+        CoordinatedTaskScheduler scheduler = createScheduler(true);
+        taskManager.deploy("task1", "task2");
+        taskStore.addTaskIfNotExist("task1");
+
+        scheduler.run();
+        Assert.assertEquals(1, taskStore.unassignedTaskRetrievals.get());
+        Assert.assertEquals(Collections.singletonList("task1"), taskManager.takeScheduledTasks());
+
+        runTimes(scheduler, 3);
+        Assert.assertEquals("The un assigned tasks are resolved while the version is unchanged", 1,
+                            taskStore.unassignedTaskRetrievals.get());
+        int retrievals = taskStore.activeTaskRetrievals.get();
+
+        taskStore.addTaskIfNotExist("task2");
+        scheduler.run();
+        Assert.assertEquals(2, taskStore.unassignedTaskRetrievals.get());
+        Assert.assertEquals(Collections.singletonList("task2"), taskManager.takeScheduledTasks());
+        Assert.assertEquals(retrievals + 1, taskStore.activeTaskRetrievals.get());
+
+        runTimes(scheduler, 3);
+        Assert.assertEquals(2, taskStore.unassignedTaskRetrievals.get());
+        Assert.assertEquals(retrievals + 1, taskStore.activeTaskRetrievals.get());
+    }
+
+    /**
+     * Test that the tasks are retrieved on each run when the task store does not have the node version table.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMissingNodeVersionTable() throws Exception {
+        CoordinatedTaskScheduler scheduler = createScheduler(false);
+        assignTasks("task1");
+
+        runTimes(scheduler, 3);
+        Assert.assertEquals(3, taskStore.activeTaskRetrievals.get());
+        Assert.assertEquals(Collections.singletonList("task1"), taskManager.takeScheduledTasks());
+    }
+
+    private CoordinatedTaskScheduler createScheduler(boolean nodeVersionTable) throws Exception {
+        database = new TaskDatabase(getName(), nodeVersionTable);
+        taskStore = new CountingTaskStore(database.getDataSource());
+        // the versions are tracked once they are added, which the first run does otherwise
+        taskStore.getNodeVersion(NODE_ID);
+        taskStore.getNodeVersion(TaskQueryHelper.UNASSIGNED_TASKS_NODE_ID);
+        taskManager = new RecordingTaskManager(NODE_ID, taskStore);
+        return new CoordinatedTaskScheduler(taskManager, taskStore, new LocalNodeResolver(), null,
+                                            new TaskStoreCleaner(taskManager, taskStore), RESOLVING_FREQUENCY);
+    }
+
+    private void assignTasks(String... tasks) throws TaskCoordinationException {
+        Map<String, String> assignment = new HashMap<>();
+        for (String task : tasks) {
+            taskStore.addTaskIfNotExist(task);
+            assignment.put(task, NODE_ID);
+        }
+        taskStore.updateAssignmentAndState(assignment);
+        taskManager.deploy(tasks);
+    }
+
+    private static void runTimes(CoordinatedTaskScheduler scheduler, int times) {
+        for (int i = 0; i < times; i++) {
+            scheduler.run();
+        }
+    }
+
+    private static List<String> sorted(List<String> tasks) {
+        Collections.sort(tasks);
+        return tasks;
+    }
+
+    private static void setClusterCoordinator(ClusterCoordinator clusterCoordinator) throws Exception {
+        Field field = DataHolder.class.getDeclaredField("clusterCoordinator");
+        field.setAccessible(true);
+        field.set(DataHolder.getInstance(), clusterCoordinator);
+    }
+
+    /**
+     * Creates the coordination strategy of a cluster of this node, which is the leader if the test says so.
+     */
+    private CoordinationStrategy createCoordinationStrategy() {
+        return (CoordinationStrategy) Proxy.newProxyInstance(
+                CoordinatedTaskSchedulerTest.class.getClassLoader(), new Class[]{CoordinationStrategy.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getThisNodeId":
+                            return NODE_ID;
+                        case "isLeaderNode":
+                            return leader;
+                        case "getAllNodeDetails":
+                            return Collections.singletonList(
+                                    new NodeDetail(NODE_ID, "test", leader, System.currentTimeMillis(), false));
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    /**
+     * Resolves all the tasks to this node.
+     */
+    private static class LocalNodeResolver implements TaskLocationResolver {
+
+        @Override
+        public void init(Map<String, String> properties) {
+        }
+
+        @Override
+        public String getTaskNodeLocation(ClusterCommunicator clusterCommunicator, String taskName) {
+            return NODE_ID;
+        }
+    }
+
+    /**
+     * Counts the retrievals of the tasks of the node and of the un assigned tasks.
+     */
+    private static class CountingTaskStore extends TaskStore {
+
+        private final AtomicInteger activeTaskRetrievals = new AtomicInteger();
+        private final AtomicInteger unassignedTaskRetrievals = new AtomicInteger();
+
+        CountingTaskStore(DataSource dataSource) throws TaskCoordinationException {
+            super(dataSource);
+        }
+
+        @Override
+        public List<CoordinatedTask> retrieveActiveTasks(String nodeID) throws TaskCoordinationException {
+            activeTaskRetrievals.incrementAndGet();
+            return super.retrieveActiveTasks(nodeID);
+        }
+
+        @Override
+        public List<String> retrieveAllUnAssignedAndIncompleteTasks() throws TaskCoordinationException {
+            unassignedTaskRetrievals.incrementAndGet();
+            return super.retrieveAllUnAssignedAndIncompleteTasks();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.micro.integrator.ntask.coordination.task.store;
+
+import org.h2.jdbcx.JdbcDataSource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+
+/**
+ * An in-memory H2 database with the task tables, which records the statements prepared through its data source. The
+ * database is dropped once it is closed. The update counts of the batches can be hidden, as some drivers ( e.g.
+ * Oracle ) don't report them.
+ */
+public class TaskDatabase {
+
+    private static final String TASK_TABLE =
+            "CREATE TABLE COORDINATED_TASK_TABLE (TASK_NAME VARCHAR (512) NOT NULL, DESTINED_NODE_ID VARCHAR (512), "
+            + "TASK_STATE VARCHAR (32), PRIMARY KEY (TASK_NAME))";
+    private static final String NODE_VERSION_TABLE =
+            "CREATE TABLE TASK_NODE_VERSION_TABLE (NODE_ID VARCHAR (512) NOT NULL, NODE_VERSION BIGINT DEFAULT 0 NOT "
+            + "NULL, PRIMARY KEY (NODE_ID))";
+    private static final String TASK_LOAD_TABLE =
+            "CREATE TABLE TASK_LOAD_TABLE (TASK_NAME VARCHAR (512) NOT NULL, EXECUTION_TIME BIGINT DEFAULT 0 NOT NULL, "
+            + "CPU_TIME BIGINT DEFAULT 0 NOT NULL, PRIMARY KEY (TASK_NAME))";
+
+    private final DataSource dataSource;
+    private final List<String> statements = Collections.synchronizedList(new ArrayList<>());
+    private volatile boolean batchUpdateCountsReported = true;
+
+    /**
+     * Keeps the in-memory database open.
+     */
+    private final Connection connection;
+
+    /**
+     * @param name              the name of the database
+     * @param nodeVersionTable  whether to create the node version table, which is missing in the databases created
+     *                          with older scripts
+     */
+    public TaskDatabase(String name, boolean nodeVersionTable) throws SQLException {
+        JdbcDataSource h2DataSource = new JdbcDataSource();
+        h2DataSource.setURL("jdbc:h2:mem:" + name);
+        connection = h2DataSource.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(TASK_TABLE);
+            statement.execute(TASK_LOAD_TABLE);
+            if (nodeVersionTable) {
+                statement.execute(NODE_VERSION_TABLE);
+            }
+        }
+        ClassLoader classLoader = TaskDatabase.class.getClassLoader();
+        dataSource = (DataSource) Proxy.newProxyInstance(classLoader, new Class[]{DataSource.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(h2DataSource, method, args);
+                    if (!"getConnection".equals(method.getName())) {
+                        return result;
+                    }
+                    Connection h2Connection = (Connection) result;
+                    return Proxy.newProxyInstance(classLoader, new Class[]{Connection.class},
+                            (connectionProxy, connectionMethod, connectionArgs) -> {
+                                if (!"prepareStatement".equals(connectionMethod.getName())) {
+                                    return invoke(h2Connection, connectionMethod, connectionArgs);
+                                }
+                                statements.add((String) connectionArgs[0]);
+                                PreparedStatement h2Statement = (PreparedStatement) invoke(h2Connection,
+                                        connectionMethod, connectionArgs);
+                                return Proxy.newProxyInstance(classLoader, new Class[]{PreparedStatement.class},
+                                        (statementProxy, statementMethod, statementArgs) -> {
+                                            Object statementResult = invoke(h2Statement, statementMethod,
+                                                                            statementArgs);
+                                            if ("executeBatch".equals(statementMethod.getName())
+                                                    && !batchUpdateCountsReported) {
+                                                Arrays.fill((int[]) statementResult, Statement.SUCCESS_NO_INFO);
+                                            }
+                                            return statementResult;
+                                        });
+                            });
+                });
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Sets whether the update counts of the batches are reported, or each of them is {@link Statement#SUCCESS_NO_INFO}.
+     */
+    public void setBatchUpdateCountsReported(boolean batchUpdateCountsReported) {
+        this.batchUpdateCountsReported = batchUpdateCountsReported;
+    }
+
+    /**
+     * The statements prepared since the last call, which contain the given text.
+     */
+    public List<String> takeStatements(String text) {
+        synchronized (statements) {
+            List<String> matches = statements.stream().filter(statement -> statement.contains(text))
+                    .collect(Collectors.toList());
+            statements.clear();
+            return matches;
+        }
+    }
+
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
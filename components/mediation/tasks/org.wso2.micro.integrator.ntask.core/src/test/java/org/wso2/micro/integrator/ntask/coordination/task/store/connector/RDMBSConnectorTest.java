@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.micro.integrator.ntask.coordination.task.store.connector;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import org.apache.commons.logging.LogFactory;
+import org.apache.commons.logging.impl.SimpleLog;
+import org.junit.Test;
+import org.wso2.micro.integrator.ntask.coordination.task.CoordinatedTask;
+import org.wso2.micro.integrator.ntask.coordination.task.TaskLoad;
+import org.wso2.micro.integrator.ntask.coordination.task.store.TaskDatabase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RDMBSConnectorTest extends TestCase {
+
+    private static final String NODE_1 = "node1";
+    private static final String NODE_2 = "node2";
+
+    private TaskDatabase database;
+    private RDMBSConnector connector;
+
+    @Override
+    protected void setUp() throws Exception {
+        database = new TaskDatabase(getName(), true);
+        connector = new RDMBSConnector(database.getDataSource());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        database.close();
+    }
+
+    /**
+     * Test that the version of a node is unknown until it is added, and that it is incremented by the assignment,
+     * the deactivation, the activation and the state updates of the tasks of the node, but not by the changes of the
+     * tasks of the other nodes.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testNodeVersion() throws Exception {
+        Assert.assertEquals(RDMBSConnector.UNKNOWN_VERSION, connector.getNodeVersion(NODE_1));
+        Assert.assertEquals(0, connector.getNodeVersion(NODE_1));
+        Assert.assertEquals(RDMBSConnector.UNKNOWN_VERSION, connector.getNodeVersion(NODE_2));
+        addTasks("task1", "task2");
+
+        Map<String, String> assignment = new HashMap<>();
+        assignment.put("task1", NODE_1);
+        assignment.put("task2", NODE_2);
+        connector.updateAssignmentAndState(assignment);
+        Assert.assertEquals(1, connector.getNodeVersion(NODE_1));
+        Assert.assertEquals(1, connector.getNodeVersion(NODE_2));
+
+        connector.deactivateTask("task1");
+        Assert.assertEquals(2, connector.getNodeVersion(NODE_1));
+        connector.updateTaskState(Collections.singletonList("task1"), CoordinatedTask.States.PAUSED);
+        Assert.assertEquals(3, connector.getNodeVersion(NODE_1));
+        connector.activateTask("task1");
+        Assert.assertEquals(4, connector.getNodeVersion(NODE_1));
+        Assert.assertEquals(1, connector.getNodeVersion(NODE_2));
+
+        // the node updates the state of its own task to running, which it does not need to retrieve again
+        Assert.assertTrue(connector.updateTaskState("task1", CoordinatedTask.States.RUNNING, NODE_1));
+        Assert.assertEquals(4, connector.getNodeVersion(NODE_1));
+
+        // a task which is not in the store changes no version
+        connector.deactivateTask("unknown");
+        Assert.assertEquals(4, connector.getNodeVersion(NODE_1));
+        Assert.assertEquals(1, connector.getNodeVersion(NODE_2));
+    }
+
+    /**
+     * Test that the reserved version of the un assigned tasks is incremented when a task is added or un assigned,
+     * and that the version of a node is removed along with the assignments of the node.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testUnassignedTasksVersion() throws Exception {
+        String unassigned = TaskQueryHelper.UNASSIGNED_TASKS_NODE_ID;
+        Assert.assertEquals(RDMBSConnector.UNKNOWN_VERSION, connector.getNodeVersion(unassigned));
+        Assert.assertEquals(0, connector.getNodeVersion(unassigned));
+        connector.getNodeVersion(NODE_1);
+
+        addTasks("task1", "task2");
+        Assert.assertEquals(2, connector.getNodeVersion(unassigned));
+        // the task exists already, hence it is not un assigned again
+        connector.addTaskIfNotExist("task1");
+        Assert.assertEquals(2, connector.getNodeVersion(unassigned));
+
+        Map<String, String> assignment = new HashMap<>();
+        assignment.put("task1", NODE_1);
+        assignment.put("task2", NODE_1);
+        connector.updateAssignmentAndState(assignment);
+        Assert.assertEquals(2, connector.getNodeVersion(unassigned));
+        Assert.assertTrue(connector.retrieveAllUnAssignedAndIncompleteTasks().isEmpty());
+
+        connector.unAssignAndUpdateState(Collections.singletonList("task1"));
+        Assert.assertEquals(3, connector.getNodeVersion(unassigned));
+        Assert.assertEquals(2, connector.getNodeVersion(NODE_1));
+        Assert.assertEquals(Collections.singletonList("task1"), connector.retrieveAllUnAssignedAndIncompleteTasks());
+
+        connector.unAssignAndUpdateState(NODE_1);
+        Assert.assertEquals(4, connector.getNodeVersion(unassigned));
+        Assert.assertEquals(2, connector.retrieveAllUnAssignedAndIncompleteTasks().size());
+        // the version of the node is removed, hence the node retrieves its tasks once they are assigned again
+        Assert.assertEquals(RDMBSConnector.UNKNOWN_VERSION, connector.getNodeVersion(NODE_1));
+    }
+
+    /**
+     * Test that the active tasks of a node are retrieved in a single query, with the states to schedule or pause
+     * them.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRetrieveActiveTasks() throws Exception {
+        addTasks("none", "running", "deactivated", "paused", "completed", "other");
+        Map<String, String> assignment = new HashMap<>();
+        for (String task : Arrays.asList("none", "running", "deactivated", "paused", "completed")) {
+            assignment.put(task, NODE_1);
+        }
+        assignment.put("other", NODE_2);
+        connector.updateAssignmentAndState(assignment);
+        connector.updateTaskState("running", CoordinatedTask.States.RUNNING, NODE_1);
+        connector.deactivateTask("deactivated");
+        connector.updateTaskState("paused", CoordinatedTask.States.PAUSED, NODE_1);
+        connector.updateTaskState("completed", CoordinatedTask.States.COMPLETED, NODE_1);
+        database.takeStatements("");
+
+        Map<String, CoordinatedTask.States> states = new HashMap<>();
+        for (CoordinatedTask task : connector.retrieveActiveTasks(NODE_1)) {
+            Assert.assertEquals(NODE_1, task.getDestinedNodeId());
+            states.put(task.getTaskName(), task.getTaskState());
+        }
+        Map<String, CoordinatedTask.States> expected = new HashMap<>();
+        expected.put("none", CoordinatedTask.States.NONE);
+        expected.put("running", CoordinatedTask.States.RUNNING);
+        expected.put("deactivated", CoordinatedTask.States.DEACTIVATED);
+        Assert.assertEquals(expected, states);
+        Assert.assertEquals(1, database.takeStatements(TaskQueryHelper.TABLE_NAME).size());
+    }
+
+    /**
+     * Test that the updates over the lists of tasks update all the tasks with a statement per chunk of tasks, and
+     * that the assignment is updated with a statement per destined node.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testChunkedUpdates() throws Exception {
+        List<String> tasks = new ArrayList<>();
+        Map<String, String> assignment = new HashMap<>();
+        for (int i = 0; i < 250; i++) {
+            String task = "task" + i;
+            tasks.add(task);
+            connector.addTaskIfNotExist(task);
+            assignment.put(task, i < 150 ? NODE_1 : NODE_2);
+        }
+        database.takeStatements("");
+
+        connector.updateAssignmentAndState(assignment);
+        // 150 tasks of the first node and 100 tasks of the second node
+        assertStatements(3, "UPDATE  " + TaskQueryHelper.TABLE_NAME + " SET  " + TaskQueryHelper.DESTINED_NODE_ID);
+        Assert.assertEquals(150, connector.retrieveActiveTasks(NODE_1).size());
+        Assert.assertEquals(100, connector.retrieveActiveTasks(NODE_2).size());
+
+        connector.updateTaskState(tasks, CoordinatedTask.States.PAUSED);
+        assertStatements(3, "SET " + TaskQueryHelper.TASK_STATE + " = ? WHERE");
+        for (String task : tasks) {
+            Assert.assertEquals(CoordinatedTask.States.PAUSED, connector.getTaskState(task));
+        }
+
+        connector.unAssignAndUpdateState(tasks);
+        assertStatements(3, "SET " + TaskQueryHelper.DESTINED_NODE_ID + " = NULL");
+        Assert.assertEquals(250, connector.retrieveAllUnAssignedAndIncompleteTasks().size());
+
+        connector.deleteTasks(tasks.subList(0, 220));
+        assertStatements(3, "DELETE FROM " + TaskQueryHelper.TABLE_NAME);
+        Assert.assertEquals(tasks.subList(220, 250), sorted(connector.getAllTaskNames()));
+    }
+
+    /**
+     * Test that the tasks are updated without the node version table, which is missing in the databases created
+     * with older scripts, and that the version is unknown so that the tasks are retrieved on every run.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMissingNodeVersionTable() throws Exception {
+        TaskDatabase legacyDatabase = new TaskDatabase(getName() + "Legacy", false);
+        try {
+            RDMBSConnector legacyConnector = new RDMBSConnector(legacyDatabase.getDataSource());
+            legacyConnector.addTaskIfNotExist("task1");
+            legacyConnector.addTaskIfNotExist("task2");
+            legacyConnector.updateAssignmentAndState(Collections.singletonMap("task1", NODE_1));
+            legacyConnector.deactivateTask("task1");
+            legacyConnector.updateTaskState(Collections.singletonList("task1"), CoordinatedTask.States.PAUSED);
+            legacyConnector.activateTask("task1");
+            legacyConnector.unAssignAndUpdateState(Collections.singletonList("task1"));
+            legacyConnector.unAssignAndUpdateState(NODE_1);
+
+            Assert.assertEquals(RDMBSConnector.UNKNOWN_VERSION, legacyConnector.getNodeVersion(NODE_1));
+            Assert.assertEquals(RDMBSConnector.UNKNOWN_VERSION,
+                                legacyConnector.getNodeVersion(TaskQueryHelper.UNASSIGNED_TASKS_NODE_ID));
+            Assert.assertEquals(CoordinatedTask.States.ACTIVATED, legacyConnector.getTaskState("task1"));
+            Assert.assertEquals(2, legacyConnector.retrieveAllUnAssignedAndIncompleteTasks().size());
+            // only the check of the table at the start up uses the table
+            Assert.assertEquals(1, legacyDatabase.takeStatements(TaskQueryHelper.NODE_VERSION_TABLE_NAME).size());
+        } finally {
+            legacyDatabase.close();
+        }
+    }
+
+    /**
+     * Test that the states of a list of tasks are updated when the debug logs are enabled, which used to return
+     * before updating.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testUpdateTaskStateWithDebugLogs() throws Exception {
+        addTasks("task1", "task2");
+        Map<String, String> assignment = new HashMap<>();
+        assignment.put("task1", NODE_1);
+        assignment.put("task2", NODE_1);
+        connector.updateAssignmentAndState(assignment);
+        connector.getNodeVersion(NODE_1);
+        long version = connector.getNodeVersion(NODE_1);
+
+        // the tests log with the simple log, see commons-logging.properties
+        SimpleLog log = (SimpleLog) LogFactory.getLog(RDMBSConnector.class);
+        int level = log.getLevel();
+        log.setLevel(SimpleLog.LOG_LEVEL_DEBUG);
+        try {
+            connector.updateTaskState(Arrays.asList("task1", "task2"), CoordinatedTask.States.PAUSED);
+        } finally {
+            log.setLevel(level);
+        }
+        Assert.assertEquals(CoordinatedTask.States.PAUSED, connector.getTaskState("task1"));
+        Assert.assertEquals(CoordinatedTask.States.PAUSED, connector.getTaskState("task2"));
+        Assert.assertEquals(version + 1, connector.getNodeVersion(NODE_1));
+    }
+
+    /**
+     * Test that the missing task loads are added when the driver doesn't report the update counts of a batch, and
+     * that the existing task loads are updated.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testTaskLoadsWithoutBatchUpdateCounts() throws Exception {
+        connector.updateTaskLoads(Collections.singletonMap("task1", new TaskLoad(100, 50)));
+        database.setBatchUpdateCountsReported(false);
+        Map<String, TaskLoad> taskLoads = new HashMap<>();
+        taskLoads.put("task1", new TaskLoad(200, 150));
+        taskLoads.put("task2", new TaskLoad(300, 250));
+        connector.updateTaskLoads(taskLoads);
+        taskLoads.put("task3", new TaskLoad(400, 350));
+        connector.updateTaskLoads(taskLoads);
+
+        Map<String, TaskLoad> storedTaskLoads = connector.getAllTaskLoads();
+        Assert.assertEquals(taskLoads.keySet(), storedTaskLoads.keySet());
+        for (Map.Entry<String, TaskLoad> taskLoad : taskLoads.entrySet()) {
+            TaskLoad storedTaskLoad = storedTaskLoads.get(taskLoad.getKey());
+            Assert.assertEquals(taskLoad.getValue().getExecutionTime(), storedTaskLoad.getExecutionTime());
+            Assert.assertEquals(taskLoad.getValue().getCpuTime(), storedTaskLoad.getCpuTime());
+        }
+    }
+
+    private void addTasks(String... tasks) throws Exception {
+        for (String task : tasks) {
+            connector.addTaskIfNotExist(task);
+        }
+    }
+
+    /**
+     * Asserts the number of the statements prepared with the given text, and that each of them updates up to the
+     * maximum number of tasks per statement.
+     */
+    private void assertStatements(int count, String text) {
+        List<String> statements = database.takeStatements(text);
+        Assert.assertEquals("The statements " + statements, count, statements.size());
+        for (String statement : statements) {
+            // the state or the destined node, and up to the maximum number of task names
+            Assert.assertTrue(statement.chars().filter(c -> c == '?').count() <= 101);
+        }
+    }
+
+    private static List<String> sorted(List<String> tasks) {
+        List<String> sortedTasks = new ArrayList<>(tasks);
+        sortedTasks.sort((first, second) -> Integer.compare(Integer.parseInt(first.substring(4)),
+                                                            Integer.parseInt(second.substring(4))));
+        return sortedTasks;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.micro.integrator.ntask.core.impl.standalone;
+
+import org.quartz.ListenerManager;
+import org.quartz.Scheduler;
+import org.wso2.micro.integrator.ntask.common.TaskException;
+import org.wso2.micro.integrator.ntask.coordination.TaskCoordinationException;
+import org.wso2.micro.integrator.ntask.coordination.task.CoordinatedTask;
+import org.wso2.micro.integrator.ntask.coordination.task.store.TaskStore;
+import org.wso2.micro.integrator.ntask.core.TaskRepository;
+import org.wso2.micro.integrator.ntask.core.internal.TasksDSComponent;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A task manager of the coordinated tasks, which records the tasks it schedules and stops instead of running them.
+ * The tasks are scheduled once their state is updated to running in the task store, as the task manager does.
+ */
+public class RecordingTaskManager extends ScheduledTaskManager {
+
+    static {
+        // the task manager adds its trigger listener to the scheduler of the task component, which is not activated
+        try {
+            Field field = TasksDSComponent.class.getDeclaredField("scheduler");
+            field.setAccessible(true);
+            if (field.get(null) == null) {
+                field.set(null, createScheduler());
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final String localNodeId;
+    private final TaskStore taskStore;
+    private final Set<String> deployedTasks = ConcurrentHashMap.newKeySet();
+    private final Set<String> runningTasks = ConcurrentHashMap.newKeySet();
+    private final List<String> scheduledTasks = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> stoppedTasks = Collections.synchronizedList(new ArrayList<>());
+
+    public RecordingTaskManager(String localNodeId, TaskStore taskStore) throws TaskException {
+        super(createTaskRepository(), taskStore);
+        this.localNodeId = localNodeId;
+        this.taskStore = taskStore;
+    }
+
+    public void deploy(String... tasks) {
+        deployedTasks.addAll(Arrays.asList(tasks));
+    }
+
+    /**
+     * The tasks scheduled since the last call.
+     */
+    public List<String> takeScheduledTasks() {
+        return take(scheduledTasks);
+    }
+
+    /**
+     * The tasks stopped since the last call.
+     */
+    public List<String> takeStoppedTasks() {
+        return take(stoppedTasks);
+    }
+
+    @Override
+    public void scheduleCoordinatedTask(String taskName) throws TaskException {
+        try {
+            if (taskStore.updateTaskState(taskName, CoordinatedTask.States.RUNNING, localNodeId)) {
+                scheduledTasks.add(taskName);
+                runningTasks.add(taskName);
+            }
+        } catch (TaskCoordinationException e) {
+            throw new TaskException("Error while updating the state of the task : " + taskName,
+                                    TaskException.Code.DATABASE_ERROR, e);
+        }
+    }
+
+    @Override
+    public void stopExecution(String taskName) {
+        stoppedTasks.add(taskName);
+        runningTasks.remove(taskName);
+    }
+
+    @Override
+    public List<String> getLocallyRunningCoordinatedTasks() {
+        return new ArrayList<>(runningTasks);
+    }
+
+    @Override
+    public void removeTaskFromLocallyRunningTaskList(String taskName) {
+        runningTasks.remove(taskName);
+    }
+
+    @Override
+    public List<String> getAllCoordinatedTasksDeployed() {
+        return new ArrayList<>(deployedTasks);
+    }
+
+    @Override
+    public boolean isCoordinatedTaskDeployed(String taskName) {
+        return deployedTasks.contains(taskName);
+    }
+
+    private static List<String> take(List<String> tasks) {
+        synchronized (tasks) {
+            List<String> taken = new ArrayList<>(tasks);
+            tasks.clear();
+            return taken;
+        }
+    }
+
+    private static TaskRepository createTaskRepository() {
+        return (TaskRepository) Proxy.newProxyInstance(
+                RecordingTaskManager.class.getClassLoader(), new Class[]{TaskRepository.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getTenantId":
+                            return -1234;
+                        case "getTasksType":
+                            return "TEST_TASK";
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    /**
+     * Creates a scheduler, which only accepts the listeners.
+     */
+    private static Scheduler createScheduler() {
+        ClassLoader classLoader = RecordingTaskManager.class.getClassLoader();
+        ListenerManager listenerManager = (ListenerManager) Proxy.newProxyInstance(
+                classLoader, new Class[]{ListenerManager.class}, (proxy, method, args) -> null);
+        return (Scheduler) Proxy.newProxyInstance(classLoader, new Class[]{Scheduler.class},
+                (proxy, method, args) -> {
+                    if ("getListenerManager".equals(method.getName())) {
+                        return listenerManager;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -21,6 +21,7 @@ package org.wso2.micro.integrator.coordination;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.micro.integrator.coordination.exception.ClusterCoordinationException;
+import org.wso2.micro.integrator.coordination.util.RaftConstantUtils;
 import org.wso2.micro.integrator.ndatasource.common.DataSourceException;
 
 import java.util.ArrayList;
@@ -33,27 +34,41 @@ import javax.sql.DataSource;
 public class ClusterCoordinator {
 
     private static final Log log = LogFactory.getLog(ClusterCoordinator.class);
-    private RDBMSCoordinationStrategy rdbmsCoordinationStrategy;
+    private CoordinationStrategy coordinationStrategy;
 
     public ClusterCoordinator(DataSource coordinationDatasource) throws DataSourceException {
 
-        this.rdbmsCoordinationStrategy = new RDBMSCoordinationStrategy(coordinationDatasource);
+        String strategy = System.getProperty(RaftConstantUtils.COORDINATION_STRATEGY);
+        if (strategy == null) {
+            strategy = System.getenv(RaftConstantUtils.COORDINATION_STRATEGY);
+        }
+        if (RaftConstantUtils.COORDINATION_STRATEGY_RAFT.equalsIgnoreCase(strategy)) {
+            log.info("Using the raft coordination strategy.");
+            this.coordinationStrategy = new RaftCoordinationStrategy();
+        } else {
+            this.coordinationStrategy = new RDBMSCoordinationStrategy(coordinationDatasource);
+        }
+    }
+
+    public ClusterCoordinator(CoordinationStrategy coordinationStrategy) {
+
+        this.coordinationStrategy = coordinationStrategy;
     }
 
     public void startCoordinator() {
 
-        rdbmsCoordinationStrategy.joinGroup();
+        coordinationStrategy.joinGroup();
         List<String> allNodeIds = this.getAllNodeIds();
         allNodeIds.remove(getThisNodeId());
         allNodeIds.forEach(id -> log.info("Connected with node [" + id + "]"));
     }
 
     public boolean checkDuplicateNodeExistence() {
-        return rdbmsCoordinationStrategy.isDuplicatedNode();
+        return coordinationStrategy.isDuplicatedNode();
     }
 
     public int getHeartbeatMaxRetryInterval() {
-        return rdbmsCoordinationStrategy.getHeartbeatMaxRetryInterval();
+        return coordinationStrategy.getHeartbeatMaxRetryInterval();
     }
 
     /**
@@ -62,7 +77,7 @@ public class ClusterCoordinator {
      * @param listener - Listener instance.
      */
     public void registerListener(MemberEventListener listener) {
-        rdbmsCoordinationStrategy.registerEventListener(listener);
+        coordinationStrategy.registerEventListener(listener);
     }
 
     /**
@@ -73,7 +88,7 @@ public class ClusterCoordinator {
     public boolean isLeader() {
         boolean isLeader = false;
         try {
-            isLeader = rdbmsCoordinationStrategy.isLeaderNode();
+            isLeader = coordinationStrategy.isLeaderNode();
         } catch (ClusterCoordinationException ex) {
             log.error("Exception occurred while checking leader node.", ex);
         }
@@ -89,7 +104,7 @@ public class ClusterCoordinator {
 
         List<String> nodeIds = new ArrayList<>();
         try {
-            rdbmsCoordinationStrategy.getAllNodeDetails().forEach(node -> nodeIds.add(node.getNodeId()));
+            coordinationStrategy.getAllNodeDetails().forEach(node -> nodeIds.add(node.getNodeId()));
         } catch (ClusterCoordinationException ex) {
             log.error("Exception occurred while retrieving all node Ids.", ex);
         }
@@ -102,7 +117,7 @@ public class ClusterCoordinator {
      * @return - Id of this node.
      */
     public String getThisNodeId() {
-        return rdbmsCoordinationStrategy.getThisNodeId();
+        return coordinationStrategy.getThisNodeId();
     }
 
 }
@@ -66,5 +66,26 @@ public interface CoordinationStrategy {
      */
     void joinGroup();
 
+    /**
+     * Get the ID of this node.
+     *
+     * @return the node ID of this node
+     */
+    String getThisNodeId();
+
+    /**
+     * Checks whether a node with the same ID is already active in the group.
+     *
+     * @return true if this is a duplicate node
+     */
+    boolean isDuplicatedNode();
+
+    /**
+     * Get the time after which an unresponsive node is assumed to have left the group.
+     *
+     * @return the time in milliseconds
+     */
+    int getHeartbeatMaxRetryInterval();
+
 }
 
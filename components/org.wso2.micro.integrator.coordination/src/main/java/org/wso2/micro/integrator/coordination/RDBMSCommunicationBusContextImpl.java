@@ -25,6 +25,7 @@ import org.wso2.micro.integrator.coordination.node.NodeDetail;
 import org.wso2.micro.integrator.coordination.query.QueryManager;
 import org.wso2.micro.integrator.coordination.query.QueryManager.DBQueries;
 import org.wso2.micro.integrator.coordination.util.CommunicationBusContext;
+import org.wso2.micro.integrator.coordination.util.LeaseHeartbeat;
 import org.wso2.micro.integrator.coordination.util.MemberEvent;
 import org.wso2.micro.integrator.coordination.util.MemberEventType;
 import org.wso2.micro.integrator.coordination.util.RDBMSConstantUtils;
@@ -49,6 +50,11 @@ public class RDBMSCommunicationBusContextImpl implements CommunicationBusContext
      */
     private static final Log log = LogFactory.getLog(RDBMSCommunicationBusContextImpl.class);
 
+    /**
+     * SQL state class of the integrity constraint violations.
+     */
+    private static final String INTEGRITY_CONSTRAINT_VIOLATION_CLASS = "23";
+
     /**
      * The datasource which is used to be connected to the database.
      */
@@ -605,6 +611,201 @@ public class RDBMSCommunicationBusContextImpl implements CommunicationBusContext
     }
 
 
+    @Override
+    public LeaseHeartbeat updateHeartbeatWithLease(String nodeId, String groupId, long fencingToken,
+                                                   int leaseDuration, long currentHeartbeatTime)
+            throws ClusterCoordinationException {
+        Connection connection = null;
+        String task = RDBMSConstantUtils.TASK_UPDATE_LEASE_HEARTBEAT;
+        try {
+            connection = getConnection();
+            if (!executeUpdate(connection, DBQueries.UPDATE_NODE_HEARTBEAT, currentHeartbeatTime, nodeId, groupId)) {
+                executeUpdate(connection, DBQueries.INSERT_NODE_HEARTBEAT_ROW, nodeId, currentHeartbeatTime, groupId);
+            }
+            String leaseHolderId = null;
+            long leaseToken = 0;
+            long expiredLeaseHeartbeat = -1;
+            if (fencingToken > 0 && executeUpdate(connection, DBQueries.RENEW_LEADER_LEASE, currentHeartbeatTime,
+                                                  groupId, nodeId, fencingToken)) {
+                leaseHolderId = nodeId;
+                leaseToken = fencingToken;
+            } else {
+                LeaderLease lease = readLeaderLease(connection, groupId);
+                if (lease != null) {
+                    leaseHolderId = lease.nodeId;
+                    leaseToken = lease.fencingToken;
+                    if (nodeId.equals(lease.nodeId)) {
+                        // the lease of a previous run of this node, which has not been taken over
+                        executeUpdate(connection, DBQueries.RENEW_LEADER_LEASE, currentHeartbeatTime, groupId, nodeId,
+                                      lease.fencingToken);
+                    } else if (currentHeartbeatTime - lease.lastHeartbeat > leaseDuration &&
+                               executeUpdate(connection, DBQueries.TAKE_OVER_LEADER_LEASE, nodeId,
+                                             currentHeartbeatTime, lease.fencingToken + 1, groupId,
+                                             lease.fencingToken, lease.lastHeartbeat)) {
+                        leaseHolderId = nodeId;
+                        leaseToken = lease.fencingToken + 1;
+                        expiredLeaseHeartbeat = lease.lastHeartbeat;
+                    }
+                }
+            }
+            List<MemberEvent> memberEvents = readMembershipEvents(connection, nodeId);
+            List<NodeDetail> nodeDetails = null;
+            if (nodeId.equals(leaseHolderId)) {
+                nodeDetails = readAllNodeData(connection, groupId, leaseHolderId);
+            }
+            connection.commit();
+            if (log.isDebugEnabled()) {
+                log.debug(task + " of node " + StringUtil.removeCRLFCharacters(nodeId) + " executed successfully");
+            }
+            return new LeaseHeartbeat(leaseHolderId, leaseToken, expiredLeaseHeartbeat, memberEvents, nodeDetails);
+        } catch (SQLException e) {
+            rollback(connection, task);
+            throw new ClusterCoordinationException("Error occurred while " + task + ". Node ID: " + nodeId
+                                                   + " group ID: " + groupId, e);
+        } finally {
+            close(connection, task);
+        }
+    }
+
+    @Override
+    public boolean createLeaderLease(String nodeId, String groupId, long currentHeartbeatTime)
+            throws ClusterCoordinationException {
+        Connection connection = null;
+        String task = RDBMSConstantUtils.TASK_CREATE_LEADER_LEASE;
+        try {
+            connection = getConnection();
+            boolean created = executeUpdate(connection, DBQueries.INSERT_LEADER_LEASE, groupId, nodeId,
+                                            currentHeartbeatTime);
+            connection.commit();
+            if (log.isDebugEnabled()) {
+                log.debug(task + " for node " + StringUtil.removeCRLFCharacters(nodeId) + " executed successfully");
+            }
+            return created;
+        } catch (SQLException e) {
+            rollback(connection, task);
+            if (isIntegrityConstraintViolation(e)) {
+                // the lease has been created by another node
+                return false;
+            }
+            throw new ClusterCoordinationException("Error occurred while " + task + ". Node ID: " + nodeId
+                                                   + " group ID: " + groupId, e);
+        } finally {
+            close(connection, task);
+        }
+    }
+
+    @Override
+    public boolean isLeaderLeaseSupported() {
+        Connection connection = null;
+        String task = "checking the leader lease column";
+        try {
+            connection = getConnection();
+            try (PreparedStatement preparedStatement = connection.prepareStatement(
+                    queryManager.getQuery(DBQueries.IS_LEADER_LEASE_COLUMN_EXISTS));
+                    ResultSet ignored = preparedStatement.executeQuery()) {
+                return true;
+            }
+        } catch (SQLException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Error occurred while " + task, e);
+            }
+            return false;
+        } finally {
+            rollback(connection, task);
+            close(connection, task);
+        }
+    }
+
+    /**
+     * Whether the exception is caused by a violated integrity constraint, such as the primary key of a row which has
+     * been inserted by another node, which is reported with the SQL state class 23 by the drivers.
+     */
+    private static boolean isIntegrityConstraintViolation(SQLException e) {
+        for (SQLException cause = e; cause != null; cause = cause.getNextException()) {
+            String sqlState = cause.getSQLState();
+            if (sqlState != null && sqlState.startsWith(INTEGRITY_CONSTRAINT_VIOLATION_CLASS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Execute an update statement with the given parameters in the given connection.
+     *
+     * @return true if a row was updated
+     */
+    private boolean executeUpdate(Connection connection, DBQueries query, Object... parameters)
+            throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryManager.getQuery(query))) {
+            for (int i = 0; i < parameters.length; i++) {
+                preparedStatement.setObject(i + 1, parameters[i]);
+            }
+            return preparedStatement.executeUpdate() != 0;
+        }
+    }
+
+    /**
+     * Read the leader lease of the group in the given connection.
+     *
+     * @return the lease, null if there is no lease for the group
+     */
+    private LeaderLease readLeaderLease(Connection connection, String groupId) throws SQLException {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryManager.getQuery(
+                DBQueries.GET_LEADER_LEASE))) {
+            preparedStatement.setString(1, groupId);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (resultSet.next()) {
+                    return new LeaderLease(resultSet.getString(1), resultSet.getLong(2), resultSet.getLong(3));
+                }
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Read and clear the membership events of the node in the given connection.
+     */
+    private List<MemberEvent> readMembershipEvents(Connection connection, String nodeID) throws SQLException {
+        List<MemberEvent> membershipEvents = new ArrayList<>();
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryManager.getQuery(
+                DBQueries.SELECT_MEMBERSHIP_EVENT))) {
+            preparedStatement.setString(1, nodeID);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    membershipEvents.add(new MemberEvent(MemberEventType.getTypeFromInt(
+                            resultSet.getInt(RDBMSConstantUtils.MEMBERSHIP_CHANGE_TYPE)),
+                            resultSet.getString(RDBMSConstantUtils.MEMBERSHIP_CHANGED_MEMBER_ID),
+                            resultSet.getString(RDBMSConstantUtils.GROUP_ID)));
+                }
+            }
+        }
+        if (!membershipEvents.isEmpty()) {
+            executeUpdate(connection, DBQueries.CLEAN_MEMBERSHIP_EVENTS_FOR_NODE, nodeID);
+        }
+        return membershipEvents;
+    }
+
+    /**
+     * Read the heartbeats of all the nodes of the group in the given connection.
+     */
+    private List<NodeDetail> readAllNodeData(Connection connection, String groupId, String coordinatorNodeId)
+            throws SQLException {
+        List<NodeDetail> nodeDataList = new ArrayList<>();
+        try (PreparedStatement preparedStatement = connection.prepareStatement(queryManager.getQuery(
+                DBQueries.GET_ALL_NODE_HEARTBEAT))) {
+            preparedStatement.setString(1, groupId);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    String nodeId = resultSet.getString(2);
+                    nodeDataList.add(new NodeDetail(nodeId, groupId, nodeId.equals(coordinatorNodeId),
+                                                    resultSet.getLong(3), convertIntToBoolean(resultSet.getInt(4))));
+                }
+            }
+        }
+        return nodeDataList;
+    }
+
     @Override
     public void clearHeartBeatData() throws ClusterCoordinationException {
         Connection connection = null;
@@ -742,4 +943,20 @@ public class RDBMSCommunicationBusContextImpl implements CommunicationBusContext
         return value != 0;
     }
 
+    /**
+     * The leader lease row of a group.
+     */
+    private static class LeaderLease {
+
+        private final String nodeId;
+        private final long lastHeartbeat;
+        private final long fencingToken;
+
+        LeaderLease(String nodeId, long lastHeartbeat, long fencingToken) {
+            this.nodeId = nodeId;
+            this.lastHeartbeat = lastHeartbeat;
+            this.fencingToken = fencingToken;
+        }
+    }
+
 }
@@ -25,6 +25,7 @@ import org.wso2.config.mapper.ConfigParser;
 import org.wso2.micro.core.util.StringUtils;
 import org.wso2.micro.integrator.coordination.exception.ClusterCoordinationException;
 import org.wso2.micro.integrator.coordination.node.NodeDetail;
+import org.wso2.micro.integrator.coordination.util.LeaseHeartbeat;
 import org.wso2.micro.integrator.coordination.util.MemberEventType;
 import org.wso2.micro.integrator.coordination.util.RDBMSConstantUtils;
 import org.wso2.micro.integrator.coordination.util.StringUtil;
@@ -89,8 +90,27 @@ public class RDBMSCoordinationStrategy implements CoordinationStrategy {
      */
     private String localGroupId;
 
-    private boolean isCoordinatorTasksRunning;
+    private volatile boolean isCoordinatorTasksRunning;
 
+    /**
+     * Whether the coordinator is elected with a leader lease, which is renewed and read in the node heartbeat.
+     */
+    private boolean leaseMode;
+
+    /**
+     * Fencing token of the leader lease held by this node, 0 if this node does not hold the lease.
+     */
+    private volatile long fencingToken;
+
+    /**
+     * The time until which this node can act as the leader without renewing the lease.
+     */
+    private volatile long leaseValidUntil;
+
+    /**
+     * Time in milliseconds between the last renewal of an expired lease and its takeover by this node.
+     */
+    private volatile long lastFailoverTime = -1;
 
     /**
      * Possible node states
@@ -122,8 +142,17 @@ public class RDBMSCoordinationStrategy implements CoordinationStrategy {
 
         this.localNodeId = getNodeId();
         this.communicationBusContext = communicationBusContext;
+        if (leaseMode && !communicationBusContext.isLeaderLeaseSupported()) {
+            log.warn("The FENCING_TOKEN column of the LEADER_STATUS_TABLE is not available, hence the coordinator "
+                     + "will be elected with the heartbeat table instead of the leader lease. Please add the "
+                     + "FENCING_TOKEN column to the LEADER_STATUS_TABLE of the cluster data base, as in the latest "
+                     + "scripts, to use the " + RDBMSConstantUtils.COORDINATION_MODE_LEASE + " "
+                     + RDBMSConstantUtils.COORDINATION_MODE + ".");
+            leaseMode = false;
+        }
         this.rdbmsMemberEventProcessor = new RDBMSMemberEventProcessor(localNodeId, localGroupId,
-                                                                       heartbeatMaxRetryInterval, communicationBusContext);
+                                                                       heartbeatMaxRetryInterval,
+                                                                       communicationBusContext, !leaseMode);
     }
 
     /**
@@ -172,6 +201,12 @@ public class RDBMSCoordinationStrategy implements CoordinationStrategy {
             localGourpId = RDBMSConstantUtils.DEFAULT_LOCAL_GROUP_ID;
         }
         this.localGroupId = localGourpId;
+
+        String coordinationMode = System.getProperty(RDBMSConstantUtils.COORDINATION_MODE);
+        if (coordinationMode == null) {
+            coordinationMode = System.getenv(RDBMSConstantUtils.COORDINATION_MODE);
+        }
+        this.leaseMode = RDBMSConstantUtils.COORDINATION_MODE_LEASE.equalsIgnoreCase(coordinationMode);
     }
 
     @Override
@@ -200,6 +235,10 @@ public class RDBMSCoordinationStrategy implements CoordinationStrategy {
 
     @Override
     public boolean isLeaderNode() throws ClusterCoordinationException {
+        if (leaseMode) {
+            // the lease can not be taken over by another node before it expires
+            return fencingToken > 0 && System.currentTimeMillis() < leaseValidUntil;
+        }
         NodeDetail nodeDetail = communicationBusContext.getNodeData(localNodeId, localGroupId);
         if (nodeDetail == null) {
             return false;
@@ -212,7 +251,8 @@ public class RDBMSCoordinationStrategy implements CoordinationStrategy {
      *
      * @return whether this is duplicate node or not.
      */
-    boolean isDuplicatedNode() {
+    @Override
+    public boolean isDuplicatedNode() {
 
         boolean isNodeExist = false;
         NodeDetail nodeDetail = communicationBusContext.getNodeData(localNodeId, localGroupId);
@@ -225,7 +265,8 @@ public class RDBMSCoordinationStrategy implements CoordinationStrategy {
         return isNodeExist;
     }
 
-    int getHeartbeatMaxRetryInterval() {
+    @Override
+    public int getHeartbeatMaxRetryInterval() {
         return heartbeatMaxRetryInterval;
     }
 
@@ -241,7 +282,11 @@ public class RDBMSCoordinationStrategy implements CoordinationStrategy {
                     communicationBusContext.clearMembershipEvents(localNodeId, localGroupId);
                     isCoordinatorTasksRunning = true;
                     retryClusterJoin = false;
-                    this.threadExecutor.execute(new HeartBeatExecutionTask(false));
+                    if (leaseMode) {
+                        this.threadExecutor.execute(new LeaseHeartBeatExecutionTask());
+                    } else {
+                        this.threadExecutor.execute(new HeartBeatExecutionTask(false));
+                    }
                     log.info("Successfully joined the cluster with id [" + localNodeId + "]");
                 } catch (ClusterCoordinationException e) {
                     inactivityTime = System.currentTimeMillis();
@@ -259,6 +304,16 @@ public class RDBMSCoordinationStrategy implements CoordinationStrategy {
 
     }
 
+    /**
+     * Leaves the group by stopping the heartbeat of this node. The other nodes detect that the node has left once its
+     * heartbeat expires, and the leader lease held by this node is taken over once it expires.
+     */
+    public void leaveGroup() {
+        isCoordinatorTasksRunning = false;
+        threadExecutor.shutdown();
+        rdbmsMemberEventProcessor.stop();
+    }
+
     @Override
     public void registerEventListener(MemberEventListener memberEventListener) {
         // Register listener for membership changes
@@ -292,10 +347,31 @@ public class RDBMSCoordinationStrategy implements CoordinationStrategy {
      * Gives the id of this node.
      * @return The Node ID of this node.
      */
+    @Override
     public String getThisNodeId() {
         return localNodeId;
     }
 
+    /**
+     * Gives the fencing token of the leader lease held by this node. The token is incremented on each takeover of the
+     * lease, hence the writes of a former leader can be rejected by comparing the tokens.
+     *
+     * @return the fencing token, 0 if this node is not the leader or the lease mode is not enabled
+     */
+    public long getFencingToken() {
+        return isLeaderNode() ? fencingToken : 0;
+    }
+
+    /**
+     * Gives the time taken for the last failover of the leader lease to this node, measured from the last renewal of
+     * the expired lease.
+     *
+     * @return failover time in milliseconds, -1 if the lease has not been taken over by this node
+     */
+    public long getLastFailoverTime() {
+        return lastFailoverTime;
+    }
+
     /**
      * This class will schedule and execute coordination tasks
      */
@@ -338,6 +414,100 @@ public class RDBMSCoordinationStrategy implements CoordinationStrategy {
         }
     }
 
+    /**
+     * This class runs the heartbeat of the lease mode. Each heartbeat updates the node heartbeat, renews or takes over
+     * the leader lease and reads the membership events of the node in a single transaction, instead of the separate
+     * coordinator checks and the membership event polling.
+     */
+    private class LeaseHeartBeatExecutionTask implements Runnable {
+
+        /**
+         * Used by the leader to detect the added and removed members.
+         */
+        private final CoordinatorElectionTask membershipTask = new CoordinatorElectionTask(localNodeId, localGroupId,
+                                                                                           false);
+        private long lastHeartbeatFinishedTime;
+
+        @Override
+        public void run() {
+            while (isCoordinatorTasksRunning) {
+                try {
+                    long currentHeartbeatStartedTime = System.currentTimeMillis();
+                    try {
+                        runLeaseHeartbeat(currentHeartbeatStartedTime);
+                    } catch (ClusterCoordinationException e) {
+                        log.error("Error occurred while updating the heartbeat of node " + localNodeId + ". "
+                                  + e.getMessage(), e);
+                        rdbmsMemberEventProcessor.membershipEventsReadFailed();
+                    }
+                    long taskEndedTime = System.currentTimeMillis();
+                    if (lastHeartbeatFinishedTime != 0 &&
+                        ((taskEndedTime - (lastHeartbeatFinishedTime + heartBeatInterval))
+                         >= heartbeatWarningMargin)) {
+                        log.warn("The heartBeatInterval is in " + heartBeatInterval +
+                                 " millis with a retry count of " + heartbeatMaxRetry + ". " +
+                                 "But current heartbeat has happened after " +
+                                 (currentHeartbeatStartedTime - lastHeartbeatFinishedTime) +
+                                 " millis from the last heartbeat, and took " +
+                                 (taskEndedTime - currentHeartbeatStartedTime) +
+                                 " millis to renew the lease on the database at " +
+                                 currentHeartbeatStartedTime +
+                                 ". Please increase the heartBeat interval or the retry count.");
+                    }
+                    lastHeartbeatFinishedTime = currentHeartbeatStartedTime;
+                    if (lastHeartbeatFinishedTime + heartBeatInterval - taskEndedTime > 5) {
+                        Thread.sleep(lastHeartbeatFinishedTime + heartBeatInterval - taskEndedTime);
+                    }
+                } catch (Throwable t) {
+                    log.error("Error occurred while performing coordinator tasks. " + t.getMessage(), t);
+                }
+            }
+        }
+
+        private void runLeaseHeartbeat(long currentHeartbeatTime) throws ClusterCoordinationException {
+            LeaseHeartbeat heartbeat = communicationBusContext.updateHeartbeatWithLease(
+                    localNodeId, localGroupId, fencingToken, heartbeatMaxRetryInterval, currentHeartbeatTime);
+            if (heartbeat.getLeaseHolderId() == null
+                && communicationBusContext.createLeaderLease(localNodeId, localGroupId, currentHeartbeatTime)) {
+                heartbeat = new LeaseHeartbeat(localNodeId, 1, -1, heartbeat.getMemberEvents(),
+                                               communicationBusContext.getAllNodeData(localGroupId));
+            }
+            if (localNodeId.equals(heartbeat.getLeaseHolderId())) {
+                // the lease is valid for the lease duration from the start of the heartbeat
+                leaseValidUntil = currentHeartbeatTime + heartbeatMaxRetryInterval;
+                if (fencingToken != heartbeat.getFencingToken()) {
+                    fencingToken = heartbeat.getFencingToken();
+                    leaseAcquired(heartbeat, currentHeartbeatTime);
+                } else {
+                    membershipTask.findAddedRemovedMembers(heartbeat.getNodeDetails(), currentHeartbeatTime);
+                }
+            } else if (fencingToken > 0) {
+                log.info("Found current node (nodeId: " + localNodeId + ") being removed from coordinator for " +
+                         "the group " + localGroupId + ", the lease is held by " + heartbeat.getLeaseHolderId());
+                fencingToken = 0;
+            }
+            rdbmsMemberEventProcessor.processMembershipEvents(heartbeat.getMemberEvents());
+        }
+
+        private void leaseAcquired(LeaseHeartbeat heartbeat, long currentHeartbeatTime) {
+            if (heartbeat.isLeaseTakenOver()) {
+                lastFailoverTime = currentHeartbeatTime - heartbeat.getExpiredLeaseHeartbeat();
+                log.info("Elected current node (nodeID: " + localNodeId + ") as the coordinator for the group " +
+                         localGroupId + " with fencing token " + heartbeat.getFencingToken() + ", " +
+                         lastFailoverTime + " millis after the last renewal of the expired lease");
+            } else {
+                log.info("Elected current node (nodeID: " + localNodeId + ") as the coordinator for the group " +
+                         localGroupId + " with fencing token " + heartbeat.getFencingToken());
+            }
+            List<NodeDetail> allNodeInformation = heartbeat.getNodeDetails();
+            membershipTask.findAddedRemovedMembers(allNodeInformation, currentHeartbeatTime);
+            // notify nodes about coordinator change
+            rdbmsMemberEventProcessor.notifyMembershipEvent(localNodeId, localGroupId,
+                                                            membershipTask.getNodeIds(allNodeInformation),
+                                                            MemberEventType.COORDINATOR_CHANGED);
+        }
+    }
+
     /**
      * For each member, this class will run in a separate thread.
      */
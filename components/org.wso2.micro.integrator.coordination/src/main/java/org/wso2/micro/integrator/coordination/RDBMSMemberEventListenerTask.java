@@ -72,40 +72,55 @@ public class RDBMSMemberEventListenerTask implements Runnable {
     @Override public void run() {
 
         try {
-            List<MemberEvent> membershipEvents = readMembershipEvents();
-            if (!membershipEvents.isEmpty()) {
-                for (MemberEvent event : membershipEvents) {
-                    switch (event.getMembershipEventType()) {
-                        case MEMBER_ADDED:
-                            notifyMemberAdditionEvent(event.getTargetNodeId(), event.getTargetGroupId());
-                            break;
-                        case MEMBER_REMOVED:
-                            notifyMemberRemovalEvent(event.getTargetNodeId(), event.getTargetGroupId());
-                            break;
-                        case COORDINATOR_CHANGED:
-                            notifyCoordinatorChangeEvent(event.getTargetNodeId(), event.getTargetGroupId());
-                            break;
-                        default:
-                            log.error("Unknown cluster event type: " + event.getMembershipEventType());
-                            break;
-                    }
-                }
-            } else {
-                if (log.isDebugEnabled()) {
-                    log.debug("No membership events to sync");
-                }
-            }
-            if (wasMemberUnresponsive) {
-                notifyRejoin(nodeID, localGroupId);
-                wasMemberUnresponsive = false;
-            }
+            processMembershipEvents(readMembershipEvents());
         } catch (Throwable e) {
             log.error("Error occurred while reading membership events. ", e);
-            if (!wasMemberUnresponsive) {
-                notifyUnresponsiveness(nodeID, localGroupId);
-                wasMemberUnresponsive = true;
+            membershipEventsReadFailed();
+        }
+    }
+
+    /**
+     * Notifies the listeners of the given membership events, which have been read for the node.
+     *
+     * @param membershipEvents membership events of the node
+     */
+    void processMembershipEvents(List<MemberEvent> membershipEvents) {
+        if (!membershipEvents.isEmpty()) {
+            for (MemberEvent event : membershipEvents) {
+                switch (event.getMembershipEventType()) {
+                    case MEMBER_ADDED:
+                        notifyMemberAdditionEvent(event.getTargetNodeId(), event.getTargetGroupId());
+                        break;
+                    case MEMBER_REMOVED:
+                        notifyMemberRemovalEvent(event.getTargetNodeId(), event.getTargetGroupId());
+                        break;
+                    case COORDINATOR_CHANGED:
+                        notifyCoordinatorChangeEvent(event.getTargetNodeId(), event.getTargetGroupId());
+                        break;
+                    default:
+                        log.error("Unknown cluster event type: " + event.getMembershipEventType());
+                        break;
+                }
+            }
+        } else {
+            if (log.isDebugEnabled()) {
+                log.debug("No membership events to sync");
             }
         }
+        if (wasMemberUnresponsive) {
+            notifyRejoin(nodeID, localGroupId);
+            wasMemberUnresponsive = false;
+        }
+    }
+
+    /**
+     * Notifies the listeners that the node became unresponsive, as the membership events could not be read.
+     */
+    void membershipEventsReadFailed() {
+        if (!wasMemberUnresponsive) {
+            notifyUnresponsiveness(nodeID, localGroupId);
+            wasMemberUnresponsive = true;
+        }
     }
 
     /**
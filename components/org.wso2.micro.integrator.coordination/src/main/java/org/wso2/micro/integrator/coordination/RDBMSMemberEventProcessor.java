@@ -22,6 +22,7 @@ import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.micro.integrator.coordination.exception.ClusterCoordinationException;
+import org.wso2.micro.integrator.coordination.util.MemberEvent;
 import org.wso2.micro.integrator.coordination.util.MemberEventType;
 import org.wso2.micro.integrator.coordination.util.RDBMSConstantUtils;
 
@@ -57,11 +58,24 @@ public class RDBMSMemberEventProcessor {
 
     public RDBMSMemberEventProcessor(String localNodeId, String localGroupId, int heartbeatMaxRetry,
                                      RDBMSCommunicationBusContextImpl communicationBusContext) {
+        this(localNodeId, localGroupId, heartbeatMaxRetry, communicationBusContext, true);
+    }
+
+    /**
+     * @param pollMembershipEvents whether the membership events are read periodically by the processor. Otherwise
+     *                             the events read by the heartbeat are passed to {@link #processMembershipEvents}
+     */
+    public RDBMSMemberEventProcessor(String localNodeId, String localGroupId, int heartbeatMaxRetry,
+                                     RDBMSCommunicationBusContextImpl communicationBusContext,
+                                     boolean pollMembershipEvents) {
         this.communicationBusContext = communicationBusContext;
         ThreadFactory namedThreadFactory = new ThreadFactoryBuilder()
                 .setNameFormat("ClusterEventReaderTask-%d").build();
         this.clusterMembershipReaderTaskScheduler = Executors.newSingleThreadScheduledExecutor(namedThreadFactory);
-        addNewListenerTask(localNodeId, localGroupId, heartbeatMaxRetry);
+        membershipListenerTask = new RDBMSMemberEventListenerTask(localNodeId, localGroupId, communicationBusContext);
+        if (pollMembershipEvents) {
+            addNewListenerTask(localNodeId, heartbeatMaxRetry);
+        }
     }
 
     /**
@@ -69,7 +83,7 @@ public class RDBMSMemberEventProcessor {
      *
      * @param nodeId the node ID of the node which starts the listening
      */
-    private void addNewListenerTask(String nodeId, String localGroupId, int heartbeatMaxRetry) {
+    private void addNewListenerTask(String nodeId, int heartbeatMaxRetry) {
         int scheduledPeriod;
         String scheduledPeriodStr = System.getProperty(RDBMSConstantUtils.SCHEDULED_PERIOD);
         if (scheduledPeriodStr == null) {
@@ -84,7 +98,6 @@ public class RDBMSMemberEventProcessor {
                 scheduledPeriod = RDBMSConstantUtils.DEFAULT_SCHEDULED_PERIOD_INTERVAL;
             }
         }
-        membershipListenerTask = new RDBMSMemberEventListenerTask(nodeId, localGroupId, communicationBusContext);
         this.clusterMembershipReaderTaskScheduler.scheduleWithFixedDelay(membershipListenerTask,
                                                                          scheduledPeriod, scheduledPeriod, TimeUnit.MILLISECONDS);
         if (log.isDebugEnabled()) {
@@ -113,6 +126,22 @@ public class RDBMSMemberEventProcessor {
         this.communicationBusContext.storeMembershipEvent(nodeID, groupID, nodes, membershipEventType.getCode());
     }
 
+    /**
+     * Notifies the listeners of the membership events read by the heartbeat of the node.
+     *
+     * @param membershipEvents membership events of the node
+     */
+    public void processMembershipEvents(List<MemberEvent> membershipEvents) {
+        membershipListenerTask.processMembershipEvents(membershipEvents);
+    }
+
+    /**
+     * Notifies the listeners that the node became unresponsive, as the heartbeat of the node failed.
+     */
+    public void membershipEventsReadFailed() {
+        membershipListenerTask.membershipEventsReadFailed();
+    }
+
     /**
      * Add a listener to be notified of the cluster membership events.
      *
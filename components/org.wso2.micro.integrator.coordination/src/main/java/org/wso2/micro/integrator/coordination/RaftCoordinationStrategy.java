@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.micro.integrator.coordination;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.config.mapper.ConfigParser;
+import org.wso2.micro.core.Constants;
+import org.wso2.micro.core.util.StringUtils;
+import org.wso2.micro.integrator.coordination.exception.ClusterCoordinationException;
+import org.wso2.micro.integrator.coordination.node.NodeDetail;
+import org.wso2.micro.integrator.coordination.raft.RaftEventListener;
+import org.wso2.micro.integrator.coordination.raft.RaftNode;
+import org.wso2.micro.integrator.coordination.util.RDBMSConstantUtils;
+import org.wso2.micro.integrator.coordination.util.RaftConstantUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.wso2.micro.integrator.coordination.util.RDBMSConstantUtils.CLUSTER_CONFIG;
+import static org.wso2.micro.integrator.coordination.util.RDBMSConstantUtils.NODE_ID;
+import static org.wso2.micro.integrator.coordination.util.RDBMSConstantUtils.NODE_ID_CONFIG_NAME;
+import static org.wso2.micro.integrator.coordination.util.RDBMSConstantUtils.NODE_ID_SYSTEM_PROPERTY;
+
+/**
+ * This class controls the coordination of a group by an embedded raft consensus among the nodes, without a database
+ * in the coordination path. The members of the group are configured statically as a comma separated list of
+ * nodeId@host:port entries. The raft leader is the coordinator of the group, and the membership changes are applied
+ * from the replicated raft log on every node. The term, the vote and the log of the node are stored in the raft state
+ * directory, which defaults to repository/data/raft in the carbon home. The connections between the members are
+ * authenticated by the raft secret when it is configured on all the members.
+ */
+public class RaftCoordinationStrategy implements CoordinationStrategy {
+
+    private static final Log log = LogFactory.getLog(RaftCoordinationStrategy.class);
+
+    private final String localNodeId;
+
+    private final String localGroupId;
+
+    private final int electionTimeout;
+
+    private final int memberTimeout;
+
+    private final RaftNode raftNode;
+
+    private final List<MemberEventListener> listeners = new CopyOnWriteArrayList<>();
+
+    public RaftCoordinationStrategy() {
+        this(getNodeId(), getGroupId(), getMembers(),
+             readIntConfiguration(RaftConstantUtils.RAFT_HEARTBEAT_INTERVAL,
+                                  RaftConstantUtils.DEFAULT_RAFT_HEARTBEAT_INTERVAL),
+             readIntConfiguration(RaftConstantUtils.RAFT_ELECTION_TIMEOUT,
+                                  RaftConstantUtils.DEFAULT_RAFT_ELECTION_TIMEOUT),
+             readIntConfiguration(RaftConstantUtils.RAFT_MEMBER_TIMEOUT, RaftConstantUtils.DEFAULT_RAFT_MEMBER_TIMEOUT),
+             getStateDirectory(), getSecret());
+    }
+
+    /**
+     * Instantiate RaftCoordinationStrategy with the given members, several nodes of a group can be run in a single
+     * JVM on different local ports.
+     *
+     * @param localNodeId       the node ID of this node
+     * @param localGroupId      the group ID
+     * @param members           the addresses of the members of the group including this node, by the node ID
+     * @param heartbeatInterval the interval in milliseconds of the heartbeats of the leader
+     * @param electionTimeout   the time in milliseconds without a heartbeat after which a node starts an election
+     * @param memberTimeout     the time in milliseconds without a response after which a node is removed
+     * @param stateDirectory    the directory in which the term, the vote and the log of the node are stored
+     * @param secret            the secret shared by the members to authenticate the connections, null if the
+     *                          connections are not authenticated
+     */
+    public RaftCoordinationStrategy(String localNodeId, String localGroupId, Map<String, InetSocketAddress> members,
+                                    int heartbeatInterval, int electionTimeout, int memberTimeout,
+                                    Path stateDirectory, String secret) {
+        if (!members.containsKey(localNodeId)) {
+            throw new ClusterCoordinationException("Node with ID " + localNodeId + " is not a member of the raft "
+                                                   + "group " + members.keySet());
+        }
+        if (heartbeatInterval >= electionTimeout || electionTimeout > memberTimeout) {
+            throw new ClusterCoordinationException("The raft heartbeat interval should be less than the election "
+                                                   + "timeout, which should not exceed the member timeout");
+        }
+        this.localNodeId = localNodeId;
+        this.localGroupId = localGroupId;
+        this.electionTimeout = electionTimeout;
+        this.memberTimeout = memberTimeout;
+        this.raftNode = new RaftNode(localNodeId, members, heartbeatInterval, electionTimeout, memberTimeout,
+                                     stateDirectory.resolve(RaftConstantUtils.RAFT_STATE_FILE), secret,
+                                     new RaftMemberEventNotifier());
+    }
+
+    @Override
+    public List<NodeDetail> getAllNodeDetails() throws ClusterCoordinationException {
+        List<NodeDetail> nodeDetails = new ArrayList<>();
+        String coordinatorId = raftNode.getCoordinatorId();
+        for (String nodeId : raftNode.getMembers()) {
+            nodeDetails.add(getNodeDetail(nodeId, coordinatorId));
+        }
+        return nodeDetails;
+    }
+
+    @Override
+    public NodeDetail getLeaderNode() {
+        String coordinatorId = raftNode.getCoordinatorId();
+        return coordinatorId != null ? getNodeDetail(coordinatorId, coordinatorId) : null;
+    }
+
+    @Override
+    public boolean isLeaderNode() {
+        return raftNode.isLeader();
+    }
+
+    @Override
+    public void registerEventListener(MemberEventListener memberEventListener) {
+        memberEventListener.setGroupId(localGroupId);
+        listeners.add(memberEventListener);
+    }
+
+    @Override
+    public void joinGroup() {
+        try {
+            raftNode.start();
+        } catch (IOException e) {
+            throw new ClusterCoordinationException("Node with ID " + localNodeId + " in group " + localGroupId
+                                                   + " could not join the raft group", e);
+        }
+        try {
+            // the members are known once the coordinator is elected
+            if (!raftNode.awaitCoordinator(memberTimeout + 2L * electionTimeout)) {
+                log.warn("No coordinator has been elected for the group " + localGroupId + " yet, a majority of the "
+                         + "raft members should be running");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Successfully joined the cluster with id [" + localNodeId + "]");
+    }
+
+    /**
+     * Leaves the group by stopping the raft node.
+     */
+    public void leaveGroup() {
+        raftNode.stop();
+    }
+
+    @Override
+    public String getThisNodeId() {
+        return localNodeId;
+    }
+
+    /**
+     * A duplicate node can not bind the member address of the node ID, hence it fails to join the group.
+     */
+    @Override
+    public boolean isDuplicatedNode() {
+        return false;
+    }
+
+    @Override
+    public int getHeartbeatMaxRetryInterval() {
+        return memberTimeout;
+    }
+
+    private NodeDetail getNodeDetail(String nodeId, String coordinatorId) {
+        return new NodeDetail(nodeId, localGroupId, nodeId.equals(coordinatorId), raftNode.getLastContact(nodeId),
+                              false);
+    }
+
+    private void notifyListeners(Consumer<MemberEventListener> notification) {
+        for (MemberEventListener listener : listeners) {
+            if (localGroupId.equals(listener.getGroupId())) {
+                notification.accept(listener);
+            }
+        }
+    }
+
+    private static String getNodeId() {
+        String nodeId = System.getProperty(NODE_ID);
+        if (StringUtils.isEmpty(nodeId)) {
+            nodeId = System.getenv(NODE_ID);
+            if (StringUtils.isEmpty(nodeId)) {
+                Object nodeIdObject = ConfigParser.getParsedConfigs().get(CLUSTER_CONFIG + "." + NODE_ID_CONFIG_NAME);
+                if (nodeIdObject == null) {
+                    throw new ClusterCoordinationException("The node ID should be configured for the raft "
+                                                           + "coordination, as one of the raft members");
+                }
+                nodeId = nodeIdObject.toString();
+            }
+        }
+        System.setProperty(NODE_ID_SYSTEM_PROPERTY, nodeId);
+        return nodeId;
+    }
+
+    private static String getGroupId() {
+        String localGroupId = readConfiguration(RDBMSConstantUtils.LOCAL_GROUP_ID);
+        return StringUtils.isEmpty(localGroupId) ? RDBMSConstantUtils.DEFAULT_LOCAL_GROUP_ID : localGroupId;
+    }
+
+    private static Path getStateDirectory() {
+        String stateDirectory = readConfiguration(RaftConstantUtils.RAFT_STATE_DIRECTORY);
+        if (!StringUtils.isEmpty(stateDirectory)) {
+            return Paths.get(stateDirectory);
+        }
+        String carbonHome = System.getProperty(Constants.CARBON_HOME);
+        if (StringUtils.isEmpty(carbonHome)) {
+            throw new ClusterCoordinationException(RaftConstantUtils.RAFT_STATE_DIRECTORY + " should be configured "
+                                                   + "for the raft coordination");
+        }
+        return Paths.get(carbonHome, RaftConstantUtils.DEFAULT_RAFT_STATE_DIRECTORY);
+    }
+
+    private static String getSecret() {
+        String secret = readConfiguration(RaftConstantUtils.RAFT_SECRET);
+        return StringUtils.isEmpty(secret) ? null : secret;
+    }
+
+    /**
+     * Parses the raft members, configured as nodeId@host:port entries separated by commas.
+     */
+    private static Map<String, InetSocketAddress> getMembers() {
+        String membersConfig = readConfiguration(RaftConstantUtils.RAFT_MEMBERS);
+        if (StringUtils.isEmpty(membersConfig)) {
+            throw new ClusterCoordinationException(RaftConstantUtils.RAFT_MEMBERS + " should be configured for the "
+                                                   + "raft coordination");
+        }
+        Map<String, InetSocketAddress> members = new LinkedHashMap<>();
+        for (String member : membersConfig.split(",")) {
+            member = member.trim();
+            int separatorIndex = member.lastIndexOf('@');
+            int portIndex = member.lastIndexOf(':');
+            if (separatorIndex < 1 || portIndex < separatorIndex) {
+                throw new ClusterCoordinationException("Invalid raft member " + member + ", the members should be "
+                                                       + "configured as nodeId@host:port");
+            }
+            try {
+                int port = Integer.parseInt(member.substring(portIndex + 1));
+                members.put(member.substring(0, separatorIndex),
+                            new InetSocketAddress(member.substring(separatorIndex + 1, portIndex), port));
+            } catch (IllegalArgumentException e) {
+                throw new ClusterCoordinationException("Invalid address of the raft member " + member, e);
+            }
+        }
+        return members;
+    }
+
+    private static int readIntConfiguration(String name, int defaultValue) {
+        String value = readConfiguration(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static String readConfiguration(String name) {
+        String value = System.getProperty(name);
+        if (value == null) {
+            value = System.getenv(name);
+        }
+        return value;
+    }
+
+    /**
+     * Notifies the registered listeners of the membership changes applied by the raft node.
+     */
+    private class RaftMemberEventNotifier implements RaftEventListener {
+
+        @Override
+        public void memberAdded(String nodeId) {
+            NodeDetail nodeDetail = getNodeDetail(nodeId, raftNode.getCoordinatorId());
+            notifyListeners(listener -> listener.memberAdded(nodeDetail));
+        }
+
+        @Override
+        public void memberRemoved(String nodeId) {
+            NodeDetail nodeDetail = getNodeDetail(nodeId, raftNode.getCoordinatorId());
+            notifyListeners(listener -> listener.memberRemoved(nodeDetail));
+        }
+
+        @Override
+        public void coordinatorChanged(String nodeId) {
+            NodeDetail nodeDetail = getNodeDetail(nodeId, nodeId);
+            notifyListeners(listener -> listener.coordinatorChanged(nodeDetail));
+        }
+
+        @Override
+        public void becameUnresponsive() {
+            notifyListeners(listener -> listener.becameUnresponsive(localNodeId));
+        }
+
+        @Override
+        public void reJoined() {
+            notifyListeners(listener -> listener.reJoined(localNodeId));
+        }
+    }
+}
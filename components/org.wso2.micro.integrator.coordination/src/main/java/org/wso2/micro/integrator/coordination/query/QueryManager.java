@@ -36,6 +36,7 @@ public class QueryManager {
                 put(DBQueries.IS_CLUSTER_NODE_STATUS_TABLE_EXISTS, "SELECT * FROM CLUSTER_NODE_STATUS_TABLE");
                 put(DBQueries.IS_MEMBERSHIP_EVENT_TABLE_EXISTS, "SELECT * FROM MEMBERSHIP_EVENT_TABLE");
                 put(DBQueries.IS_REMOVED_MEMBERS_TABLE_EXISTS, "SELECT * FROM REMOVED_MEMBERS_TABLE");
+                put(DBQueries.IS_LEADER_LEASE_COLUMN_EXISTS, "SELECT FENCING_TOKEN FROM LEADER_STATUS_TABLE");
 
                 put(DBQueries.INSERT_COORDINATOR_ROW, "INSERT INTO LEADER_STATUS_TABLE (GROUP_ID, NODE_ID, LAST_HEARTBEAT) VALUES (?,?,?)");
                 put(DBQueries.INSERT_NODE_HEARTBEAT_ROW, "INSERT INTO CLUSTER_NODE_STATUS_TABLE (NODE_ID, LAST_HEARTBEAT, GROUP_ID, IS_NEW_NODE) VALUES (?,?,?,1)");
@@ -63,6 +64,11 @@ public class QueryManager {
                 put(DBQueries.CLEAR_COORDINATOR_HEARTBEAT, "DELETE FROM LEADER_STATUS_TABLE");
                 put(DBQueries.CLEAR_ALL_MEMBERSHIP_EVENTS, "DELETE FROM  MEMBERSHIP_EVENT_TABLE");
                 put(DBQueries.CLEAN_MEMBERSHIP_EVENTS_FOR_NODE, "DELETE FROM MEMBERSHIP_EVENT_TABLE WHERE NODE_ID =?");
+
+                put(DBQueries.INSERT_LEADER_LEASE, "INSERT INTO LEADER_STATUS_TABLE (GROUP_ID, NODE_ID, LAST_HEARTBEAT, FENCING_TOKEN) VALUES (?,?,?,1)");
+                put(DBQueries.GET_LEADER_LEASE, "SELECT NODE_ID, LAST_HEARTBEAT, FENCING_TOKEN FROM LEADER_STATUS_TABLE WHERE GROUP_ID =?");
+                put(DBQueries.RENEW_LEADER_LEASE, "UPDATE LEADER_STATUS_TABLE SET LAST_HEARTBEAT =? WHERE GROUP_ID =? AND NODE_ID =? AND FENCING_TOKEN =?");
+                put(DBQueries.TAKE_OVER_LEADER_LEASE, "UPDATE LEADER_STATUS_TABLE SET NODE_ID =?, LAST_HEARTBEAT =?, FENCING_TOKEN =? WHERE GROUP_ID =? AND FENCING_TOKEN =? AND LAST_HEARTBEAT =?");
             }});
 
     private final Map<DBQueries, String> postgreSQLQueryMap =
@@ -71,6 +77,7 @@ public class QueryManager {
                 put(DBQueries.IS_CLUSTER_NODE_STATUS_TABLE_EXISTS, "SELECT 1 FROM CLUSTER_NODE_STATUS_TABLE");
                 put(DBQueries.IS_MEMBERSHIP_EVENT_TABLE_EXISTS, "SELECT 1 FROM MEMBERSHIP_EVENT_TABLE");
                 put(DBQueries.IS_REMOVED_MEMBERS_TABLE_EXISTS, "SELECT 1 FROM REMOVED_MEMBERS_TABLE");
+                put(DBQueries.IS_LEADER_LEASE_COLUMN_EXISTS, "SELECT FENCING_TOKEN FROM LEADER_STATUS_TABLE");
 
                 put(DBQueries.INSERT_COORDINATOR_ROW, "INSERT INTO LEADER_STATUS_TABLE (GROUP_ID, NODE_ID, LAST_HEARTBEAT) VALUES (?,?,?)");
                 put(DBQueries.INSERT_NODE_HEARTBEAT_ROW, "INSERT INTO CLUSTER_NODE_STATUS_TABLE (NODE_ID, LAST_HEARTBEAT, GROUP_ID, IS_NEW_NODE) VALUES (?,?,?,1)");
@@ -97,6 +104,11 @@ public class QueryManager {
                 put(DBQueries.CLEAR_COORDINATOR_HEARTBEAT, "DELETE FROM LEADER_STATUS_TABLE");
                 put(DBQueries.CLEAR_ALL_MEMBERSHIP_EVENTS, "DELETE FROM  MEMBERSHIP_EVENT_TABLE");
                 put(DBQueries.CLEAN_MEMBERSHIP_EVENTS_FOR_NODE, "DELETE FROM MEMBERSHIP_EVENT_TABLE WHERE NODE_ID =?");
+
+                put(DBQueries.INSERT_LEADER_LEASE, "INSERT INTO LEADER_STATUS_TABLE (GROUP_ID, NODE_ID, LAST_HEARTBEAT, FENCING_TOKEN) VALUES (?,?,?,1)");
+                put(DBQueries.GET_LEADER_LEASE, "SELECT NODE_ID, LAST_HEARTBEAT, FENCING_TOKEN FROM LEADER_STATUS_TABLE WHERE GROUP_ID =?");
+                put(DBQueries.RENEW_LEADER_LEASE, "UPDATE LEADER_STATUS_TABLE SET LAST_HEARTBEAT =? WHERE GROUP_ID =? AND NODE_ID =? AND FENCING_TOKEN =?");
+                put(DBQueries.TAKE_OVER_LEADER_LEASE, "UPDATE LEADER_STATUS_TABLE SET NODE_ID =?, LAST_HEARTBEAT =?, FENCING_TOKEN =? WHERE GROUP_ID =? AND FENCING_TOKEN =? AND LAST_HEARTBEAT =?");
             }});
 
     private final Map<DBQueries, String> microsoftSQLServerQueryMap =
@@ -105,6 +117,7 @@ public class QueryManager {
                 put(DBQueries.IS_CLUSTER_NODE_STATUS_TABLE_EXISTS, "SELECT TOP 1 1 FROM CLUSTER_NODE_STATUS_TABLE");
                 put(DBQueries.IS_MEMBERSHIP_EVENT_TABLE_EXISTS, "SELECT TOP 1 1 FROM MEMBERSHIP_EVENT_TABLE");
                 put(DBQueries.IS_REMOVED_MEMBERS_TABLE_EXISTS, "SELECT TOP 1 1 FROM REMOVED_MEMBERS_TABLE");
+                put(DBQueries.IS_LEADER_LEASE_COLUMN_EXISTS, "SELECT TOP 1 FENCING_TOKEN FROM LEADER_STATUS_TABLE");
 
                 put(DBQueries.INSERT_COORDINATOR_ROW, "INSERT INTO LEADER_STATUS_TABLE (GROUP_ID, NODE_ID, LAST_HEARTBEAT) VALUES (?,?,?)");
                 put(DBQueries.INSERT_NODE_HEARTBEAT_ROW, "INSERT INTO CLUSTER_NODE_STATUS_TABLE (NODE_ID, LAST_HEARTBEAT, GROUP_ID, IS_NEW_NODE) VALUES (?,?,?,1)");
@@ -131,6 +144,11 @@ public class QueryManager {
                 put(DBQueries.CLEAR_COORDINATOR_HEARTBEAT, "DELETE FROM LEADER_STATUS_TABLE");
                 put(DBQueries.CLEAR_ALL_MEMBERSHIP_EVENTS, "DELETE FROM  MEMBERSHIP_EVENT_TABLE");
                 put(DBQueries.CLEAN_MEMBERSHIP_EVENTS_FOR_NODE, "DELETE FROM MEMBERSHIP_EVENT_TABLE WHERE NODE_ID =?");
+
+                put(DBQueries.INSERT_LEADER_LEASE, "INSERT INTO LEADER_STATUS_TABLE (GROUP_ID, NODE_ID, LAST_HEARTBEAT, FENCING_TOKEN) VALUES (?,?,?,1)");
+                put(DBQueries.GET_LEADER_LEASE, "SELECT NODE_ID, LAST_HEARTBEAT, FENCING_TOKEN FROM LEADER_STATUS_TABLE WHERE GROUP_ID =?");
+                put(DBQueries.RENEW_LEADER_LEASE, "UPDATE LEADER_STATUS_TABLE SET LAST_HEARTBEAT =? WHERE GROUP_ID =? AND NODE_ID =? AND FENCING_TOKEN =?");
+                put(DBQueries.TAKE_OVER_LEADER_LEASE, "UPDATE LEADER_STATUS_TABLE SET NODE_ID =?, LAST_HEARTBEAT =?, FENCING_TOKEN =? WHERE GROUP_ID =? AND FENCING_TOKEN =? AND LAST_HEARTBEAT =?");
             }});
 
     private final Map<DBQueries, String> oracleQueryMap =
@@ -139,6 +157,7 @@ public class QueryManager {
                 put(DBQueries.IS_CLUSTER_NODE_STATUS_TABLE_EXISTS, "SELECT 1 FROM CLUSTER_NODE_STATUS_TABLE WHERE rownum=1");
                 put(DBQueries.IS_MEMBERSHIP_EVENT_TABLE_EXISTS, "SELECT 1 FROM MEMBERSHIP_EVENT_TABLE WHERE rownum=1");
                 put(DBQueries.IS_REMOVED_MEMBERS_TABLE_EXISTS, "SELECT 1 FROM REMOVED_MEMBERS_TABLE WHERE rownum=1");
+                put(DBQueries.IS_LEADER_LEASE_COLUMN_EXISTS, "SELECT FENCING_TOKEN FROM LEADER_STATUS_TABLE WHERE rownum=1");
 
                 put(DBQueries.INSERT_COORDINATOR_ROW, "INSERT INTO LEADER_STATUS_TABLE (GROUP_ID, NODE_ID, LAST_HEARTBEAT) VALUES (?,?,?)");
                 put(DBQueries.INSERT_NODE_HEARTBEAT_ROW, "INSERT INTO CLUSTER_NODE_STATUS_TABLE (NODE_ID, LAST_HEARTBEAT, GROUP_ID, IS_NEW_NODE) VALUES (?,?,?,1)");
@@ -165,6 +184,11 @@ public class QueryManager {
                 put(DBQueries.CLEAR_COORDINATOR_HEARTBEAT, "DELETE FROM LEADER_STATUS_TABLE");
                 put(DBQueries.CLEAR_ALL_MEMBERSHIP_EVENTS, "DELETE FROM  MEMBERSHIP_EVENT_TABLE");
                 put(DBQueries.CLEAN_MEMBERSHIP_EVENTS_FOR_NODE, "DELETE FROM MEMBERSHIP_EVENT_TABLE WHERE NODE_ID =?");
+
+                put(DBQueries.INSERT_LEADER_LEASE, "INSERT INTO LEADER_STATUS_TABLE (GROUP_ID, NODE_ID, LAST_HEARTBEAT, FENCING_TOKEN) VALUES (?,?,?,1)");
+                put(DBQueries.GET_LEADER_LEASE, "SELECT NODE_ID, LAST_HEARTBEAT, FENCING_TOKEN FROM LEADER_STATUS_TABLE WHERE GROUP_ID =?");
+                put(DBQueries.RENEW_LEADER_LEASE, "UPDATE LEADER_STATUS_TABLE SET LAST_HEARTBEAT =? WHERE GROUP_ID =? AND NODE_ID =? AND FENCING_TOKEN =?");
+                put(DBQueries.TAKE_OVER_LEADER_LEASE, "UPDATE LEADER_STATUS_TABLE SET NODE_ID =?, LAST_HEARTBEAT =?, FENCING_TOKEN =? WHERE GROUP_ID =? AND FENCING_TOKEN =? AND LAST_HEARTBEAT =?");
             }});
 
     private final Map<DBQueries, String> db2QueryMap =
@@ -173,6 +197,7 @@ public class QueryManager {
                 put(DBQueries.IS_CLUSTER_NODE_STATUS_TABLE_EXISTS, "SELECT * FROM CLUSTER_NODE_STATUS_TABLE");
                 put(DBQueries.IS_MEMBERSHIP_EVENT_TABLE_EXISTS, "SELECT * FROM MEMBERSHIP_EVENT_TABLE");
                 put(DBQueries.IS_REMOVED_MEMBERS_TABLE_EXISTS, "SELECT * FROM REMOVED_MEMBERS_TABLE");
+                put(DBQueries.IS_LEADER_LEASE_COLUMN_EXISTS, "SELECT FENCING_TOKEN FROM LEADER_STATUS_TABLE");
 
                 put(DBQueries.INSERT_COORDINATOR_ROW, "INSERT INTO LEADER_STATUS_TABLE (GROUP_ID, NODE_ID, LAST_HEARTBEAT) VALUES (?,?,?)");
                 put(DBQueries.INSERT_NODE_HEARTBEAT_ROW, "INSERT INTO CLUSTER_NODE_STATUS_TABLE (NODE_ID, LAST_HEARTBEAT, GROUP_ID, IS_NEW_NODE) VALUES (?,?,?,1)");
@@ -199,6 +224,11 @@ public class QueryManager {
                 put(DBQueries.CLEAR_COORDINATOR_HEARTBEAT, "DELETE FROM LEADER_STATUS_TABLE");
                 put(DBQueries.CLEAR_ALL_MEMBERSHIP_EVENTS, "DELETE FROM  MEMBERSHIP_EVENT_TABLE");
                 put(DBQueries.CLEAN_MEMBERSHIP_EVENTS_FOR_NODE, "DELETE FROM MEMBERSHIP_EVENT_TABLE WHERE NODE_ID =?");
+
+                put(DBQueries.INSERT_LEADER_LEASE, "INSERT INTO LEADER_STATUS_TABLE (GROUP_ID, NODE_ID, LAST_HEARTBEAT, FENCING_TOKEN) VALUES (?,?,?,1)");
+                put(DBQueries.GET_LEADER_LEASE, "SELECT NODE_ID, LAST_HEARTBEAT, FENCING_TOKEN FROM LEADER_STATUS_TABLE WHERE GROUP_ID =?");
+                put(DBQueries.RENEW_LEADER_LEASE, "UPDATE LEADER_STATUS_TABLE SET LAST_HEARTBEAT =? WHERE GROUP_ID =? AND NODE_ID =? AND FENCING_TOKEN =?");
+                put(DBQueries.TAKE_OVER_LEADER_LEASE, "UPDATE LEADER_STATUS_TABLE SET NODE_ID =?, LAST_HEARTBEAT =?, FENCING_TOKEN =? WHERE GROUP_ID =? AND FENCING_TOKEN =? AND LAST_HEARTBEAT =?");
             }});
 
     public enum DBQueries {
@@ -206,6 +236,7 @@ public class QueryManager {
         IS_CLUSTER_NODE_STATUS_TABLE_EXISTS,
         IS_MEMBERSHIP_EVENT_TABLE_EXISTS,
         IS_REMOVED_MEMBERS_TABLE_EXISTS,
+        IS_LEADER_LEASE_COLUMN_EXISTS,
         INSERT_COORDINATOR_ROW,
         INSERT_NODE_HEARTBEAT_ROW,
         INSERT_MEMBERSHIP_EVENT,
@@ -227,6 +258,10 @@ public class QueryManager {
         CLEAR_COORDINATOR_HEARTBEAT,
         CLEAR_ALL_MEMBERSHIP_EVENTS,
         CLEAN_MEMBERSHIP_EVENTS_FOR_NODE,
+        INSERT_LEADER_LEASE,
+        GET_LEADER_LEASE,
+        RENEW_LEADER_LEASE,
+        TAKE_OVER_LEADER_LEASE,
     }
 
     public enum DBTypes {
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.micro.integrator.coordination.raft;
+
+import org.wso2.micro.integrator.coordination.util.MemberEventType;
+
+/**
+ * An entry of the replicated raft log. Each entry is a membership change of the group, which is applied on every node
+ * once it is committed.
+ */
+public class LogEntry {
+
+    /**
+     * The term of the leader which appended the entry.
+     */
+    private final long term;
+
+    /**
+     * The membership change.
+     */
+    private final MemberEventType type;
+
+    /**
+     * The node ID of the changed member.
+     */
+    private final String nodeId;
+
+    public LogEntry(long term, MemberEventType type, String nodeId) {
+        this.term = term;
+        this.type = type;
+        this.nodeId = nodeId;
+    }
+
+    public long getTerm() {
+        return term;
+    }
+
+    public MemberEventType getType() {
+        return type;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.micro.integrator.coordination.raft;
+
+/**
+ * Receives the membership changes applied by a raft node. The methods are called by a single thread, in the order of
+ * the changes in the log.
+ */
+public interface RaftEventListener {
+
+    void memberAdded(String nodeId);
+
+    void memberRemoved(String nodeId);
+
+    void coordinatorChanged(String nodeId);
+
+    /**
+     * Invoked when the node can not reach a majority of the group.
+     */
+    void becameUnresponsive();
+
+    /**
+     * Invoked when the node reaches a majority of the group again, after being unresponsive.
+     */
+    void reJoined();
+}
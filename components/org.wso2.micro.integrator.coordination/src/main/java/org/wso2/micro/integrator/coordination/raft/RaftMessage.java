@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.micro.integrator.coordination.raft;
+
+import org.wso2.micro.integrator.coordination.util.MemberEventType;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The messages exchanged by the nodes of a raft group. A message is written as its type followed by its fields, and
+ * each request is answered with the matching response on the same connection.
+ */
+abstract class RaftMessage {
+
+    private static final byte VOTE_REQUEST = 1;
+    private static final byte VOTE_RESPONSE = 2;
+    private static final byte APPEND_REQUEST = 3;
+    private static final byte APPEND_RESPONSE = 4;
+
+    /**
+     * The term of the sender.
+     */
+    final long term;
+
+    RaftMessage(long term) {
+        this.term = term;
+    }
+
+    abstract byte getType();
+
+    abstract void writeFields(DataOutput out) throws IOException;
+
+    void write(DataOutput out) throws IOException {
+        out.writeByte(getType());
+        out.writeLong(term);
+        writeFields(out);
+    }
+
+    static RaftMessage read(DataInput in) throws IOException {
+        byte type = in.readByte();
+        long term = in.readLong();
+        switch (type) {
+            case VOTE_REQUEST:
+                return new VoteRequest(term, in.readUTF(), in.readLong(), in.readLong());
+            case VOTE_RESPONSE:
+                return new VoteResponse(term, in.readBoolean());
+            case APPEND_REQUEST:
+                return AppendRequest.readFields(term, in);
+            case APPEND_RESPONSE:
+                return new AppendResponse(term, in.readBoolean(), in.readLong());
+            default:
+                throw new IOException("Unknown raft message type: " + type);
+        }
+    }
+
+    private static void writeNullableUTF(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableUTF(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Writes the snapshot, which is written in the same form to the log file of the node.
+     */
+    static void writeSnapshot(DataOutput out, Snapshot snapshot) throws IOException {
+        out.writeLong(snapshot.lastIndex);
+        out.writeLong(snapshot.lastTerm);
+        writeNullableUTF(out, snapshot.coordinatorId);
+        out.writeInt(snapshot.members.size());
+        for (String member : snapshot.members) {
+            out.writeUTF(member);
+        }
+    }
+
+    static Snapshot readSnapshot(DataInput in) throws IOException {
+        long lastIndex = in.readLong();
+        long lastTerm = in.readLong();
+        String coordinatorId = readNullableUTF(in);
+        int memberCount = in.readInt();
+        List<String> members = new ArrayList<>(memberCount);
+        for (int i = 0; i < memberCount; i++) {
+            members.add(in.readUTF());
+        }
+        return new Snapshot(lastIndex, lastTerm, members, coordinatorId);
+    }
+
+    static void writeEntries(DataOutput out, List<LogEntry> entries) throws IOException {
+        out.writeInt(entries.size());
+        for (LogEntry entry : entries) {
+            out.writeLong(entry.getTerm());
+            out.writeByte(entry.getType().getCode());
+            out.writeUTF(entry.getNodeId());
+        }
+    }
+
+    static List<LogEntry> readEntries(DataInput in) throws IOException {
+        int entryCount = in.readInt();
+        List<LogEntry> entries = entryCount == 0 ? Collections.emptyList() : new ArrayList<>(entryCount);
+        for (int i = 0; i < entryCount; i++) {
+            long entryTerm = in.readLong();
+            MemberEventType type;
+            try {
+                type = MemberEventType.getTypeFromInt(in.readByte());
+            } catch (RuntimeException e) {
+                throw new IOException("Invalid raft log entry", e);
+            }
+            entries.add(new LogEntry(entryTerm, type, in.readUTF()));
+        }
+        return entries;
+    }
+
+    /**
+     * Sent by a candidate to request the vote of a node.
+     */
+    static final class VoteRequest extends RaftMessage {
+
+        final String candidateId;
+        final long lastLogIndex;
+        final long lastLogTerm;
+
+        VoteRequest(long term, String candidateId, long lastLogIndex, long lastLogTerm) {
+            super(term);
+            this.candidateId = candidateId;
+            this.lastLogIndex = lastLogIndex;
+            this.lastLogTerm = lastLogTerm;
+        }
+
+        @Override
+        byte getType() {
+            return VOTE_REQUEST;
+        }
+
+        @Override
+        void writeFields(DataOutput out) throws IOException {
+            out.writeUTF(candidateId);
+            out.writeLong(lastLogIndex);
+            out.writeLong(lastLogTerm);
+        }
+    }
+
+    static final class VoteResponse extends RaftMessage {
+
+        final boolean voteGranted;
+
+        VoteResponse(long term, boolean voteGranted) {
+            super(term);
+            this.voteGranted = voteGranted;
+        }
+
+        @Override
+        byte getType() {
+            return VOTE_RESPONSE;
+        }
+
+        @Override
+        void writeFields(DataOutput out) throws IOException {
+            out.writeBoolean(voteGranted);
+        }
+    }
+
+    /**
+     * Sent by the leader to replicate the log entries, and as the heartbeat when there are no entries to replicate.
+     * The snapshot is included when the entries preceding the next index of the follower have been compacted.
+     */
+    static final class AppendRequest extends RaftMessage {
+
+        final String leaderId;
+        final long prevLogIndex;
+        final long prevLogTerm;
+        final long leaderCommit;
+        final Snapshot snapshot;
+        final List<LogEntry> entries;
+
+        AppendRequest(long term, String leaderId, long prevLogIndex, long prevLogTerm, long leaderCommit,
+                      Snapshot snapshot, List<LogEntry> entries) {
+            super(term);
+            this.leaderId = leaderId;
+            this.prevLogIndex = prevLogIndex;
+            this.prevLogTerm = prevLogTerm;
+            this.leaderCommit = leaderCommit;
+            this.snapshot = snapshot;
+            this.entries = entries;
+        }
+
+        @Override
+        byte getType() {
+            return APPEND_REQUEST;
+        }
+
+        @Override
+        void writeFields(DataOutput out) throws IOException {
+            out.writeUTF(leaderId);
+            out.writeLong(prevLogIndex);
+            out.writeLong(prevLogTerm);
+            out.writeLong(leaderCommit);
+            out.writeBoolean(snapshot != null);
+            if (snapshot != null) {
+                writeSnapshot(out, snapshot);
+            }
+            writeEntries(out, entries);
+        }
+
+        private static AppendRequest readFields(long term, DataInput in) throws IOException {
+            String leaderId = in.readUTF();
+            long prevLogIndex = in.readLong();
+            long prevLogTerm = in.readLong();
+            long leaderCommit = in.readLong();
+            Snapshot snapshot = in.readBoolean() ? readSnapshot(in) : null;
+            List<LogEntry> entries = readEntries(in);
+            return new AppendRequest(term, leaderId, prevLogIndex, prevLogTerm, leaderCommit, snapshot, entries);
+        }
+    }
+
+    /**
+     * The response to an append request. The match index is the last index of the log of the follower which matches
+     * the log of the leader, or a hint of it when the request did not match.
+     */
+    static final class AppendResponse extends RaftMessage {
+
+        final boolean success;
+        final long matchIndex;
+
+        AppendResponse(long term, boolean success, long matchIndex) {
+            super(term);
+            this.success = success;
+            this.matchIndex = matchIndex;
+        }
+
+        @Override
+        byte getType() {
+            return APPEND_RESPONSE;
+        }
+
+        @Override
+        void writeFields(DataOutput out) throws IOException {
+            out.writeBoolean(success);
+            out.writeLong(matchIndex);
+        }
+    }
+
+    /**
+     * The applied membership of the group up to the last index of the compacted log.
+     */
+    static final class Snapshot {
+
+        final long lastIndex;
+        final long lastTerm;
+        final List<String> members;
+        final String coordinatorId;
+
+        Snapshot(long lastIndex, long lastTerm, List<String> members, String coordinatorId) {
+            this.lastIndex = lastIndex;
+            this.lastTerm = lastTerm;
+            this.members = members;
+            this.coordinatorId = coordinatorId;
+        }
+    }
+}
@@ -0,0 +1,826 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.micro.integrator.coordination.raft;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.micro.integrator.coordination.raft.RaftMessage.AppendRequest;
+import org.wso2.micro.integrator.coordination.raft.RaftMessage.AppendResponse;
+import org.wso2.micro.integrator.coordination.raft.RaftMessage.Snapshot;
+import org.wso2.micro.integrator.coordination.raft.RaftMessage.VoteRequest;
+import org.wso2.micro.integrator.coordination.raft.RaftMessage.VoteResponse;
+import org.wso2.micro.integrator.coordination.util.MemberEventType;
+import org.wso2.micro.integrator.coordination.util.RaftConstantUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A node of a raft group with a static set of members. The leader elected by the group is the coordinator, which
+ * tracks the liveness of the members by the responses to its append requests and appends the membership changes to
+ * the replicated log. Each node applies the committed changes in the log order and notifies the listener.
+ * <p>
+ * The current term and the vote of the node are stored in the state file before they take effect, hence a restarted
+ * node does not vote twice in a term. The log is stored before its entries are acknowledged, hence a restarted node
+ * does not grant its vote to a candidate which lacks the entries it acknowledged before the restart. A restarted node
+ * applies its stored snapshot once it learns that the snapshot is committed, and applies the entries following it as
+ * they are committed.
+ */
+public class RaftNode {
+
+    private static final Log log = LogFactory.getLog(RaftNode.class);
+
+    private enum Role {
+        FOLLOWER, CANDIDATE, LEADER
+    }
+
+    private final String localNodeId;
+
+    /**
+     * The other members of the group.
+     */
+    private final Map<String, Peer> peers = new LinkedHashMap<>();
+
+    private final int heartbeatInterval;
+
+    /**
+     * The minimum time in milliseconds without hearing from the leader after which a node starts an election. The
+     * actual timeout of each election is randomized up to twice this value.
+     */
+    private final int electionTimeout;
+
+    /**
+     * The time in milliseconds without a response after which the leader removes a member from the group.
+     */
+    private final int memberTimeout;
+
+    private final RaftEventListener listener;
+
+    private final RaftTransport transport;
+
+    private final ScheduledExecutorService timer;
+
+    private final ExecutorService sender;
+
+    private final ExecutorService eventNotifier;
+
+    private final RaftStateStore stateStore;
+
+    /**
+     * The number of applied log entries after which the log is compacted to a snapshot.
+     */
+    private final int logCompactionThreshold;
+
+    private long currentTerm;
+
+    private String votedFor;
+
+    /**
+     * The log entries following the snapshot, the entry of index i is at position i - snapshotIndex - 1.
+     */
+    private final List<LogEntry> entries = new ArrayList<>();
+
+    private long snapshotIndex;
+
+    private long snapshotTerm;
+
+    private List<String> snapshotMembers = Collections.emptyList();
+
+    private String snapshotCoordinatorId;
+
+    /**
+     * Whether the log has changed since it was last stored.
+     */
+    private boolean logChanged;
+
+    private long commitIndex;
+
+    private long lastApplied;
+
+    private Role role = Role.FOLLOWER;
+
+    private String leaderId;
+
+    private long lastLeaderContact;
+
+    private long leaderSince;
+
+    private long electionDeadline;
+
+    private final Set<String> votes = new HashSet<>();
+
+    private boolean responsive = true;
+
+    /**
+     * The members of the group applied from the committed log.
+     */
+    private final Set<String> members = new LinkedHashSet<>();
+
+    private String coordinatorId;
+
+    /**
+     * The members of the group including the uncommitted changes, used by the leader to propose the changes.
+     */
+    private final Set<String> proposedMembers = new LinkedHashSet<>();
+
+    /**
+     * @param localNodeId       the node ID of this node
+     * @param memberAddresses   the addresses of the members of the group including this node, by the node ID
+     * @param heartbeatInterval the interval in milliseconds of the heartbeats of the leader
+     * @param electionTimeout   the minimum time in milliseconds without hearing from the leader before an election
+     * @param memberTimeout     the time in milliseconds without a response after which a member is removed
+     * @param stateFile         the file in which the term and the vote of the node are stored, the log is stored
+     *                          next to it
+     * @param secret            the secret shared by the members to authenticate the connections, null if the
+     *                          connections are not authenticated
+     * @param listener          the listener of the membership changes
+     */
+    public RaftNode(String localNodeId, Map<String, InetSocketAddress> memberAddresses, int heartbeatInterval,
+                    int electionTimeout, int memberTimeout, Path stateFile, String secret,
+                    RaftEventListener listener) {
+        this(localNodeId, memberAddresses, heartbeatInterval, electionTimeout, memberTimeout, stateFile, secret,
+             listener, RaftConstantUtils.RAFT_LOG_COMPACTION_THRESHOLD);
+    }
+
+    RaftNode(String localNodeId, Map<String, InetSocketAddress> memberAddresses, int heartbeatInterval,
+             int electionTimeout, int memberTimeout, Path stateFile, String secret, RaftEventListener listener,
+             int logCompactionThreshold) {
+        this.localNodeId = localNodeId;
+        this.heartbeatInterval = heartbeatInterval;
+        this.electionTimeout = electionTimeout;
+        this.memberTimeout = memberTimeout;
+        this.listener = listener;
+        this.stateStore = new RaftStateStore(stateFile);
+        this.logCompactionThreshold = logCompactionThreshold;
+        Map<String, InetSocketAddress> peerAddresses = new LinkedHashMap<>(memberAddresses);
+        peerAddresses.remove(localNodeId);
+        this.transport = new RaftTransport(memberAddresses.get(localNodeId), peerAddresses.values(), secret,
+                                           this::handleRequest, electionTimeout, memberTimeout);
+        for (Map.Entry<String, InetSocketAddress> peer : peerAddresses.entrySet()) {
+            peers.put(peer.getKey(), new Peer(peer.getKey(), transport.connect(peer.getValue())));
+        }
+        this.timer = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("RaftTimer-%d").build());
+        this.sender = Executors.newCachedThreadPool(
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("RaftSender-%d").build());
+        this.eventNotifier = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("RaftEventNotifier-%d").build());
+    }
+
+    /**
+     * Starts the node as a follower in the stored term, which starts an election if it does not hear from a leader.
+     *
+     * @throws IOException if the stored state can not be read or the member address of the node can not be bound
+     */
+    public synchronized void start() throws IOException {
+        stateStore.load();
+        currentTerm = stateStore.getTerm();
+        votedFor = stateStore.getVotedFor();
+        Snapshot snapshot = stateStore.getSnapshot();
+        snapshotIndex = snapshot.lastIndex;
+        snapshotTerm = snapshot.lastTerm;
+        snapshotMembers = snapshot.members;
+        snapshotCoordinatorId = snapshot.coordinatorId;
+        entries.addAll(stateStore.getEntries());
+        transport.start();
+        long now = System.currentTimeMillis();
+        lastLeaderContact = now;
+        resetElectionDeadline(now);
+        timer.scheduleWithFixedDelay(this::tick, heartbeatInterval, heartbeatInterval, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        timer.shutdownNow();
+        sender.shutdownNow();
+        transport.stop();
+        for (Peer peer : peers.values()) {
+            peer.connection.close();
+        }
+        eventNotifier.shutdown();
+    }
+
+    /**
+     * Waits until the coordinator of the group is known to the node.
+     *
+     * @param timeout maximum time to wait in milliseconds
+     * @return true if the coordinator is known
+     */
+    public synchronized boolean awaitCoordinator(long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        long remaining = timeout;
+        while (coordinatorId == null && remaining > 0) {
+            wait(remaining);
+            remaining = deadline - System.currentTimeMillis();
+        }
+        return coordinatorId != null;
+    }
+
+    /**
+     * @return the members of the group applied on this node
+     */
+    public synchronized List<String> getMembers() {
+        return new ArrayList<>(members);
+    }
+
+    /**
+     * @return the coordinator of the group applied on this node, null if it is not known yet
+     */
+    public synchronized String getCoordinatorId() {
+        return coordinatorId;
+    }
+
+    /**
+     * Checks whether this node is the leader. A leader which has not heard from a majority of the group within the
+     * election timeout may have been replaced, hence it is not considered the leader.
+     *
+     * @return true if this node is the leader
+     */
+    public synchronized boolean isLeader() {
+        long now = System.currentTimeMillis();
+        return role == Role.LEADER && now - lastQuorumContact(now) < electionTimeout;
+    }
+
+    /**
+     * @return the last time this node heard from the given member
+     */
+    public synchronized long getLastContact(String nodeId) {
+        if (localNodeId.equals(nodeId)) {
+            return System.currentTimeMillis();
+        }
+        if (role != Role.LEADER && nodeId.equals(leaderId)) {
+            return lastLeaderContact;
+        }
+        Peer peer = peers.get(nodeId);
+        return peer != null ? peer.lastContact : 0;
+    }
+
+    private void tick() {
+        try {
+            synchronized (this) {
+                long now = System.currentTimeMillis();
+                if (role == Role.LEADER) {
+                    updateMembers(now);
+                    for (Peer peer : peers.values()) {
+                        replicate(peer);
+                    }
+                } else if (now >= electionDeadline) {
+                    startElection(now);
+                }
+                checkResponsiveness(now);
+            }
+        } catch (Throwable t) {
+            log.error("Error occurred while running the raft node " + localNodeId + ". " + t.getMessage(), t);
+        }
+    }
+
+    private void startElection(long now) {
+        if (!storeState(currentTerm + 1, localNodeId)) {
+            resetElectionDeadline(now);
+            return;
+        }
+        role = Role.CANDIDATE;
+        currentTerm++;
+        votedFor = localNodeId;
+        leaderId = null;
+        votes.clear();
+        votes.add(localNodeId);
+        resetElectionDeadline(now);
+        if (log.isDebugEnabled()) {
+            log.debug("Node " + localNodeId + " started the election of term " + currentTerm);
+        }
+        if (votes.size() >= quorum()) {
+            becomeLeader(now);
+            return;
+        }
+        VoteRequest request = new VoteRequest(currentTerm, localNodeId, lastLogIndex(), lastLogTerm());
+        for (Peer peer : peers.values()) {
+            send(peer, request);
+        }
+    }
+
+    private void becomeLeader(long now) {
+        role = Role.LEADER;
+        leaderId = localNodeId;
+        leaderSince = now;
+        for (Peer peer : peers.values()) {
+            peer.nextIndex = lastLogIndex() + 1;
+            peer.matchIndex = 0;
+        }
+        log.info("Node " + localNodeId + " was elected as the raft leader of term " + currentTerm);
+        proposedMembers.clear();
+        // a restarted node may not have applied its stored snapshot yet
+        proposedMembers.addAll(lastApplied < snapshotIndex ? snapshotMembers : members);
+        for (long index = Math.max(lastApplied, snapshotIndex) + 1; index <= lastLogIndex(); index++) {
+            applyTo(proposedMembers, entryAt(index));
+        }
+        // the entry of the new term commits the entries of the previous terms
+        if (!append(MemberEventType.COORDINATOR_CHANGED, localNodeId)) {
+            stepDown(currentTerm, now);
+            return;
+        }
+        updateMembers(now);
+        for (Peer peer : peers.values()) {
+            replicate(peer);
+        }
+    }
+
+    private void stepDown(long term, long now) {
+        if (term > currentTerm) {
+            // the node can only vote in the term once the term is stored with the vote, hence a failure is tolerated
+            storeState(term, null);
+            currentTerm = term;
+            votedFor = null;
+            leaderId = null;
+        }
+        if (role == Role.LEADER) {
+            log.info("Node " + localNodeId + " is no longer the raft leader, found the term " + term);
+        }
+        if (role != Role.FOLLOWER) {
+            role = Role.FOLLOWER;
+            resetElectionDeadline(now);
+        }
+    }
+
+    /**
+     * Proposes the addition of the members which respond to the leader, and the removal of the members which have
+     * not responded within the member timeout.
+     */
+    private void updateMembers(long now) {
+        if (!proposedMembers.contains(localNodeId)) {
+            append(MemberEventType.MEMBER_ADDED, localNodeId);
+        }
+        for (Peer peer : peers.values()) {
+            boolean contacted = peer.lastContact > 0 && now - peer.lastContact < memberTimeout;
+            // a new leader waits for the member timeout before removing a member which it has not heard from
+            boolean expired = now - Math.max(peer.lastContact, leaderSince) >= memberTimeout;
+            if (contacted && !proposedMembers.contains(peer.nodeId)) {
+                append(MemberEventType.MEMBER_ADDED, peer.nodeId);
+            } else if (expired && proposedMembers.contains(peer.nodeId)) {
+                append(MemberEventType.MEMBER_REMOVED, peer.nodeId);
+            }
+        }
+    }
+
+    /**
+     * Appends an entry to the log of the leader, a membership change which is not stored is proposed again on the
+     * next heartbeat.
+     *
+     * @return true if the entry is stored
+     */
+    private boolean append(MemberEventType type, String nodeId) {
+        LogEntry entry = new LogEntry(currentTerm, type, nodeId);
+        entries.add(entry);
+        logChanged = true;
+        if (!storeLog()) {
+            entries.remove(entries.size() - 1);
+            return false;
+        }
+        applyTo(proposedMembers, entry);
+        advanceCommitIndex();
+        return true;
+    }
+
+    private void replicate(Peer peer) {
+        if (peer.appendInFlight) {
+            return;
+        }
+        Snapshot snapshot = null;
+        long prevLogIndex;
+        long prevLogTerm;
+        if (peer.nextIndex <= snapshotIndex) {
+            snapshot = new Snapshot(snapshotIndex, snapshotTerm, snapshotMembers, snapshotCoordinatorId);
+            prevLogIndex = snapshotIndex;
+            prevLogTerm = snapshotTerm;
+        } else {
+            prevLogIndex = peer.nextIndex - 1;
+            prevLogTerm = termAt(prevLogIndex);
+        }
+        long lastIndex = Math.min(lastLogIndex(), prevLogIndex + RaftConstantUtils.RAFT_MAX_APPEND_ENTRIES);
+        List<LogEntry> batch = new ArrayList<>(entries.subList(position(prevLogIndex + 1), position(lastIndex) + 1));
+        peer.appendInFlight = true;
+        send(peer, new AppendRequest(currentTerm, localNodeId, prevLogIndex, prevLogTerm, commitIndex, snapshot,
+                                     batch));
+    }
+
+    private void send(Peer peer, RaftMessage request) {
+        long sentTime = System.currentTimeMillis();
+        sender.execute(() -> {
+            RaftMessage response = null;
+            try {
+                response = peer.connection.send(request);
+            } catch (IOException e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Could not reach the raft member " + peer.nodeId + ". " + e.getMessage());
+                }
+            }
+            handleResponse(peer, request, response, sentTime);
+        });
+    }
+
+    private synchronized void handleResponse(Peer peer, RaftMessage request, RaftMessage response, long sentTime) {
+        if (request instanceof AppendRequest) {
+            peer.appendInFlight = false;
+        }
+        if (response == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (response.term > currentTerm) {
+            stepDown(response.term, now);
+            return;
+        }
+        // the contact is counted from the request, the member has not started an election before it was sent
+        peer.lastContact = Math.max(peer.lastContact, sentTime);
+        if (response instanceof VoteResponse) {
+            if (role == Role.CANDIDATE && request.term == currentTerm && ((VoteResponse) response).voteGranted) {
+                votes.add(peer.nodeId);
+                if (votes.size() >= quorum()) {
+                    becomeLeader(now);
+                }
+            }
+        } else if (response instanceof AppendResponse && role == Role.LEADER && request.term == currentTerm) {
+            AppendResponse appendResponse = (AppendResponse) response;
+            if (appendResponse.success) {
+                peer.matchIndex = Math.max(peer.matchIndex, appendResponse.matchIndex);
+                peer.nextIndex = peer.matchIndex + 1;
+                advanceCommitIndex();
+            } else {
+                peer.nextIndex = Math.max(1, Math.min(peer.nextIndex - 1, appendResponse.matchIndex + 1));
+            }
+            if (peer.nextIndex <= lastLogIndex()) {
+                replicate(peer);
+            }
+        }
+    }
+
+    private synchronized RaftMessage handleRequest(RaftMessage request) throws IOException {
+        long now = System.currentTimeMillis();
+        if (request instanceof VoteRequest) {
+            return handleVoteRequest((VoteRequest) request, now);
+        } else if (request instanceof AppendRequest) {
+            return handleAppendRequest((AppendRequest) request, now);
+        }
+        throw new IOException("Unexpected raft request of type " + request.getType());
+    }
+
+    private VoteResponse handleVoteRequest(VoteRequest request, long now) {
+        if (!peers.containsKey(request.candidateId)) {
+            log.warn("Ignored the vote request of " + request.candidateId + ", which is not a member of the group");
+            return new VoteResponse(currentTerm, false);
+        }
+        // a member which was partitioned from the group does not disrupt the current leader when it reconnects
+        if (request.term > currentTerm && hasCurrentLeader(now)) {
+            return new VoteResponse(currentTerm, false);
+        }
+        if (request.term > currentTerm) {
+            stepDown(request.term, now);
+        }
+        boolean voteGranted = false;
+        if (request.term == currentTerm && (votedFor == null || votedFor.equals(request.candidateId))
+            && isUpToDate(request.lastLogIndex, request.lastLogTerm) && storeState(currentTerm, request.candidateId)) {
+            votedFor = request.candidateId;
+            voteGranted = true;
+            resetElectionDeadline(now);
+        }
+        return new VoteResponse(currentTerm, voteGranted);
+    }
+
+    private AppendResponse handleAppendRequest(AppendRequest request, long now) {
+        if (!peers.containsKey(request.leaderId)) {
+            log.warn("Ignored the append request of " + request.leaderId + ", which is not a member of the group");
+            return new AppendResponse(currentTerm, false, lastLogIndex());
+        }
+        if (request.term < currentTerm) {
+            return new AppendResponse(currentTerm, false, lastLogIndex());
+        }
+        if (request.term > currentTerm || role != Role.FOLLOWER) {
+            stepDown(request.term, now);
+        }
+        if (!request.leaderId.equals(leaderId)) {
+            leaderId = request.leaderId;
+            if (log.isDebugEnabled()) {
+                log.debug("Node " + localNodeId + " follows the raft leader " + leaderId + " of term " + currentTerm);
+            }
+        }
+        lastLeaderContact = now;
+        resetElectionDeadline(now);
+        if (request.snapshot != null) {
+            installSnapshot(request.snapshot);
+        }
+        if (request.prevLogIndex > lastLogIndex()) {
+            return new AppendResponse(currentTerm, false, lastLogIndex());
+        }
+        if (request.prevLogIndex > snapshotIndex && termAt(request.prevLogIndex) != request.prevLogTerm) {
+            // the uncommitted entries from the conflicting entry are replaced by the entries of the leader
+            truncateFrom(request.prevLogIndex);
+            return new AppendResponse(currentTerm, false, request.prevLogIndex - 1);
+        }
+        long index = request.prevLogIndex;
+        for (LogEntry entry : request.entries) {
+            index++;
+            if (index <= snapshotIndex) {
+                continue;
+            }
+            if (index <= lastLogIndex()) {
+                if (termAt(index) == entry.getTerm()) {
+                    continue;
+                }
+                truncateFrom(index);
+            }
+            entries.add(entry);
+            logChanged = true;
+        }
+        if (!storeLog()) {
+            return new AppendResponse(currentTerm, false, request.prevLogIndex);
+        }
+        if (request.leaderCommit > commitIndex) {
+            commitIndex = Math.max(commitIndex, Math.min(request.leaderCommit, index));
+            applyCommitted();
+        }
+        return new AppendResponse(currentTerm, true, index);
+    }
+
+    private void installSnapshot(Snapshot snapshot) {
+        if (snapshot.lastIndex <= Math.max(lastApplied, snapshotIndex)) {
+            return;
+        }
+        if (snapshot.lastIndex <= lastLogIndex() && termAt(snapshot.lastIndex) == snapshot.lastTerm) {
+            entries.subList(0, position(snapshot.lastIndex) + 1).clear();
+        } else {
+            entries.clear();
+        }
+        snapshotIndex = snapshot.lastIndex;
+        snapshotTerm = snapshot.lastTerm;
+        snapshotMembers = snapshot.members;
+        snapshotCoordinatorId = snapshot.coordinatorId;
+        logChanged = true;
+        commitIndex = Math.max(commitIndex, snapshotIndex);
+        applyCommitted();
+    }
+
+    /**
+     * Applies the membership of the snapshot, replacing the members applied before it.
+     */
+    private void applySnapshot() {
+        lastApplied = snapshotIndex;
+        for (String member : new ArrayList<>(members)) {
+            if (!snapshotMembers.contains(member)) {
+                apply(new LogEntry(snapshotTerm, MemberEventType.MEMBER_REMOVED, member));
+            }
+        }
+        for (String member : snapshotMembers) {
+            apply(new LogEntry(snapshotTerm, MemberEventType.MEMBER_ADDED, member));
+        }
+        if (snapshotCoordinatorId != null) {
+            apply(new LogEntry(snapshotTerm, MemberEventType.COORDINATOR_CHANGED, snapshotCoordinatorId));
+        }
+    }
+
+    private void advanceCommitIndex() {
+        // only the entries of the current term are committed by counting the replicas
+        for (long index = lastLogIndex(); index > commitIndex && termAt(index) == currentTerm; index--) {
+            int replicas = 1;
+            for (Peer peer : peers.values()) {
+                if (peer.matchIndex >= index) {
+                    replicas++;
+                }
+            }
+            if (replicas >= quorum()) {
+                commitIndex = index;
+                applyCommitted();
+                for (Peer peer : peers.values()) {
+                    replicate(peer);
+                }
+                return;
+            }
+        }
+    }
+
+    private void applyCommitted() {
+        if (lastApplied < snapshotIndex) {
+            if (commitIndex < snapshotIndex) {
+                return;
+            }
+            applySnapshot();
+        }
+        while (lastApplied < commitIndex) {
+            lastApplied++;
+            apply(entryAt(lastApplied));
+        }
+        if (lastApplied - snapshotIndex > logCompactionThreshold) {
+            long lastAppliedTerm = termAt(lastApplied);
+            entries.subList(0, position(lastApplied) + 1).clear();
+            snapshotIndex = lastApplied;
+            snapshotTerm = lastAppliedTerm;
+            snapshotMembers = new ArrayList<>(members);
+            snapshotCoordinatorId = coordinatorId;
+            logChanged = true;
+        }
+    }
+
+    private void apply(LogEntry entry) {
+        String nodeId = entry.getNodeId();
+        switch (entry.getType()) {
+            case MEMBER_ADDED:
+                if (members.add(nodeId)) {
+                    notifyListener(() -> listener.memberAdded(nodeId));
+                }
+                break;
+            case MEMBER_REMOVED:
+                if (members.remove(nodeId)) {
+                    notifyListener(() -> listener.memberRemoved(nodeId));
+                }
+                break;
+            case COORDINATOR_CHANGED:
+                if (!nodeId.equals(coordinatorId)) {
+                    coordinatorId = nodeId;
+                    notifyAll();
+                    notifyListener(() -> listener.coordinatorChanged(nodeId));
+                }
+                break;
+            default:
+                log.error("Unknown raft log entry type: " + entry.getType());
+                break;
+        }
+    }
+
+    private void applyTo(Set<String> memberSet, LogEntry entry) {
+        if (entry.getType() == MemberEventType.MEMBER_ADDED) {
+            memberSet.add(entry.getNodeId());
+        } else if (entry.getType() == MemberEventType.MEMBER_REMOVED) {
+            memberSet.remove(entry.getNodeId());
+        }
+    }
+
+    private void checkResponsiveness(long now) {
+        boolean quorumReachable = now - lastQuorumContact(now) < memberTimeout;
+        if (responsive && !quorumReachable) {
+            responsive = false;
+            log.warn("Node " + localNodeId + " can not reach a majority of the raft group");
+            notifyListener(listener::becameUnresponsive);
+        } else if (!responsive && quorumReachable) {
+            responsive = true;
+            notifyListener(listener::reJoined);
+        }
+    }
+
+    /**
+     * The time of the last contact with a majority of the group. A follower is in contact with the group through the
+     * leader.
+     */
+    private long lastQuorumContact(long now) {
+        if (role != Role.LEADER) {
+            return lastLeaderContact;
+        }
+        long[] contacts = new long[peers.size() + 1];
+        contacts[0] = now;
+        int i = 1;
+        for (Peer peer : peers.values()) {
+            contacts[i++] = peer.lastContact;
+        }
+        Arrays.sort(contacts);
+        return contacts[contacts.length - quorum()];
+    }
+
+    private boolean hasCurrentLeader(long now) {
+        if (role == Role.LEADER) {
+            return now - lastQuorumContact(now) < electionTimeout;
+        }
+        return leaderId != null && now - lastLeaderContact < electionTimeout;
+    }
+
+    private boolean isUpToDate(long candidateLastLogIndex, long candidateLastLogTerm) {
+        long lastLogTerm = lastLogTerm();
+        return candidateLastLogTerm > lastLogTerm
+               || (candidateLastLogTerm == lastLogTerm && candidateLastLogIndex >= lastLogIndex());
+    }
+
+    private void resetElectionDeadline(long now) {
+        electionDeadline = now + electionTimeout + ThreadLocalRandom.current().nextInt(electionTimeout);
+    }
+
+    /**
+     * Stores the given term and vote of the node, which take effect only if they are stored.
+     *
+     * @return true if the state is stored
+     */
+    private boolean storeState(long term, String vote) {
+        try {
+            stateStore.save(term, vote);
+            return true;
+        } catch (IOException e) {
+            log.error("Could not store the raft term " + term + " of node " + localNodeId + ". " + e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Stores the log if it has changed since it was last stored. The entries which are not stored are neither
+     * acknowledged to the leader nor counted by the leader.
+     *
+     * @return true if the log is stored
+     */
+    private boolean storeLog() {
+        if (!logChanged) {
+            return true;
+        }
+        try {
+            stateStore.saveLog(new Snapshot(snapshotIndex, snapshotTerm, snapshotMembers, snapshotCoordinatorId),
+                               entries);
+            logChanged = false;
+            return true;
+        } catch (IOException e) {
+            log.error("Could not store the raft log of node " + localNodeId + ". " + e.getMessage(), e);
+            return false;
+        }
+    }
+
+    private void notifyListener(Runnable notification) {
+        eventNotifier.execute(() -> {
+            try {
+                notification.run();
+            } catch (Throwable t) {
+                log.error("Error occurred while notifying the raft membership change. " + t.getMessage(), t);
+            }
+        });
+    }
+
+    private int quorum() {
+        return (peers.size() + 1) / 2 + 1;
+    }
+
+    private long lastLogIndex() {
+        return snapshotIndex + entries.size();
+    }
+
+    private long lastLogTerm() {
+        return termAt(lastLogIndex());
+    }
+
+    private long termAt(long index) {
+        return index == snapshotIndex ? snapshotTerm : entryAt(index).getTerm();
+    }
+
+    private LogEntry entryAt(long index) {
+        return entries.get(position(index));
+    }
+
+    private int position(long index) {
+        return (int) (index - snapshotIndex - 1);
+    }
+
+    private void truncateFrom(long index) {
+        entries.subList(position(index), entries.size()).clear();
+        logChanged = true;
+    }
+
+    /**
+     * The replication state of another member, kept by the leader.
+     */
+    private static class Peer {
+
+        private final String nodeId;
+        private final RaftTransport.PeerConnection connection;
+        private long nextIndex = 1;
+        private long matchIndex;
+        private long lastContact;
+        private boolean appendInFlight;
+
+        private Peer(String nodeId, RaftTransport.PeerConnection connection) {
+            this.nodeId = nodeId;
+            this.connection = connection;
+        }
+    }
+}
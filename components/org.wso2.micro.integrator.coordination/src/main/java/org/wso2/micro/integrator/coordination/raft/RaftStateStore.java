@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.micro.integrator.coordination.raft;
+
+import org.wso2.micro.integrator.coordination.raft.RaftMessage.Snapshot;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Stores the state which a raft node has to keep across the restarts. The current term and the vote are stored in the
+ * state file so that the node does not vote twice in a term, and the snapshot and the log entries following it are
+ * stored in the log file so that the node does not lose the entries it acknowledged, nor grant its vote to a candidate
+ * whose log is behind the entries it held before the restart.
+ * <p>
+ * Each file is written to a temporary file, which is synced to the disk and moved over the file, hence a file always
+ * holds a complete state. The log file is rewritten on each change of the log, which is compacted to a snapshot once
+ * the applied entries exceed the log compaction threshold.
+ */
+class RaftStateStore {
+
+    private static final Snapshot EMPTY_SNAPSHOT = new Snapshot(0, 0, Collections.emptyList(), null);
+
+    private final Path stateFile;
+
+    private final Path logFile;
+
+    private long term;
+
+    private String votedFor;
+
+    private Snapshot snapshot = EMPTY_SNAPSHOT;
+
+    private List<LogEntry> entries = Collections.emptyList();
+
+    RaftStateStore(Path stateFile) {
+        this.stateFile = stateFile.toAbsolutePath();
+        this.logFile = this.stateFile.resolveSibling(this.stateFile.getFileName() + ".log");
+    }
+
+    /**
+     * Reads the stored state, a node which has not stored a state starts from the term 0 without a vote and with an
+     * empty log.
+     *
+     * @throws IOException if the state file or the log file can not be read
+     */
+    void load() throws IOException {
+        Files.createDirectories(stateFile.getParent());
+        if (Files.exists(stateFile)) {
+            try (InputStream inputStream = Files.newInputStream(stateFile);
+                 DataInputStream in = new DataInputStream(inputStream)) {
+                term = in.readLong();
+                votedFor = in.readBoolean() ? in.readUTF() : null;
+            }
+        }
+        if (Files.exists(logFile)) {
+            try (InputStream inputStream = Files.newInputStream(logFile);
+                 DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream))) {
+                snapshot = RaftMessage.readSnapshot(in);
+                entries = RaftMessage.readEntries(in);
+            }
+        }
+    }
+
+    /**
+     * Stores the given state, which has to be stored before it takes effect.
+     *
+     * @throws IOException if the state can not be written to the disk
+     */
+    void save(long term, String votedFor) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(term);
+            out.writeBoolean(votedFor != null);
+            if (votedFor != null) {
+                out.writeUTF(votedFor);
+            }
+        }
+        write(stateFile, bytes.toByteArray());
+        this.term = term;
+        this.votedFor = votedFor;
+    }
+
+    /**
+     * Stores the given snapshot and the log entries following it, which have to be stored before the node
+     * acknowledges the entries.
+     *
+     * @throws IOException if the log can not be written to the disk
+     */
+    void saveLog(Snapshot snapshot, List<LogEntry> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            RaftMessage.writeSnapshot(out, snapshot);
+            RaftMessage.writeEntries(out, entries);
+        }
+        write(logFile, bytes.toByteArray());
+    }
+
+    private static void write(Path file, byte[] bytes) throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    long getTerm() {
+        return term;
+    }
+
+    String getVotedFor() {
+        return votedFor;
+    }
+
+    /**
+     * @return the snapshot read from the log file
+     */
+    Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return the log entries following the snapshot read from the log file
+     */
+    List<LogEntry> getEntries() {
+        return entries;
+    }
+}
@@ -0,0 +1,382 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.micro.integrator.coordination.raft;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Exchanges the raft messages between the nodes of the group over TCP. Each node listens on its member address and
+ * keeps a connection to each of the other members, on which a request is written and its response is awaited.
+ * <p>
+ * Only the connections from the hosts of the other members are served, and a connection which is idle for the idle
+ * timeout is closed. Each member opens a single connection at a time, hence the connections served at a time are
+ * bounded by twice the number of the other members, which leaves room for the connections being closed.
+ * <p>
+ * The host check alone trusts every process on the hosts of the members and every host which can spoof their
+ * addresses. When the members share a secret, both ends of a connection prove that they know it before any message is
+ * exchanged, by an HMAC-SHA256 of the random nonces of both ends, hence the secret is never sent. The messages are
+ * neither encrypted nor signed, the transport should be run on a network on which the connections between the members
+ * can not be intercepted.
+ */
+class RaftTransport {
+
+    private static final Log log = LogFactory.getLog(RaftTransport.class);
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private static final int NONCE_LENGTH = 16;
+
+    private static final int MAC_LENGTH = 32;
+
+    private static final SecureRandom random = new SecureRandom();
+
+    /**
+     * Handles a request received from another member.
+     */
+    interface RequestHandler {
+
+        RaftMessage handle(RaftMessage request) throws IOException;
+    }
+
+    private final InetSocketAddress address;
+
+    /**
+     * The addresses of the other members, from whose hosts the connections are served.
+     */
+    private final List<InetSocketAddress> peerAddresses;
+
+    /**
+     * The key of the secret shared by the members, null if the connections are not authenticated.
+     */
+    private final SecretKeySpec secretKey;
+
+    private final RequestHandler requestHandler;
+
+    /**
+     * Timeout in milliseconds of connecting to a member and of awaiting a response.
+     */
+    private final int timeout;
+
+    /**
+     * Time in milliseconds after which an idle connection is closed.
+     */
+    private final int idleTimeout;
+
+    /**
+     * Runs the acceptor and a task serving each connection.
+     */
+    private final ThreadPoolExecutor connectionExecutor;
+
+    /**
+     * The connections being served, which are closed when the transport is stopped.
+     */
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+    private volatile ServerSocket serverSocket;
+
+    RaftTransport(InetSocketAddress address, Collection<InetSocketAddress> peerAddresses, String secret,
+                  RequestHandler requestHandler, int timeout, int idleTimeout) {
+        this.address = address;
+        this.peerAddresses = new ArrayList<>(peerAddresses);
+        this.secretKey = secret != null ? new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), MAC_ALGORITHM)
+                                        : null;
+        this.requestHandler = requestHandler;
+        this.timeout = timeout;
+        this.idleTimeout = idleTimeout;
+        this.connectionExecutor = new ThreadPoolExecutor(
+                0, 1 + 2 * peerAddresses.size(), 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("RaftConnection-%d").build());
+    }
+
+    /**
+     * Binds the member address and starts accepting the connections of the other members.
+     *
+     * @throws IOException if the member address can not be bound
+     */
+    void start() throws IOException {
+        if (secretKey == null) {
+            log.warn("No raft secret is configured, the raft connections from the hosts of the members are not "
+                     + "authenticated");
+        }
+        ServerSocket socket = new ServerSocket();
+        socket.setReuseAddress(true);
+        socket.bind(address);
+        serverSocket = socket;
+        connectionExecutor.execute(this::acceptConnections);
+    }
+
+    void stop() {
+        ServerSocket socket = serverSocket;
+        serverSocket = null;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                log.debug("Error while closing the raft server socket", e);
+            }
+        }
+        connectionExecutor.shutdownNow();
+        for (Socket connection : connections) {
+            close(connection);
+        }
+    }
+
+    /**
+     * Creates the connection to a member. The connection is opened on the first request.
+     */
+    PeerConnection connect(InetSocketAddress peerAddress) {
+        return new PeerConnection(peerAddress, secretKey, timeout, idleTimeout);
+    }
+
+    private void acceptConnections() {
+        ServerSocket socket;
+        while ((socket = serverSocket) != null) {
+            try {
+                Socket connection = socket.accept();
+                if (!isPeerHost(connection.getInetAddress())) {
+                    log.warn("Rejected the raft connection from " + connection.getRemoteSocketAddress()
+                             + ", which is not the host of a member of the group");
+                    close(connection);
+                    continue;
+                }
+                try {
+                    connectionExecutor.execute(() -> serve(connection));
+                } catch (RejectedExecutionException e) {
+                    log.warn("Rejected the raft connection from " + connection.getRemoteSocketAddress()
+                             + ", as the maximum number of raft connections are served");
+                    close(connection);
+                }
+            } catch (IOException e) {
+                if (serverSocket != null) {
+                    log.error("Error while accepting a raft connection on " + address, e);
+                }
+            }
+        }
+    }
+
+    private void serve(Socket connection) {
+        connections.add(connection);
+        try (Socket socket = connection) {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(idleTimeout);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            if (secretKey != null && !authenticate(in, out)) {
+                log.warn("Rejected the raft connection from " + socket.getRemoteSocketAddress()
+                         + ", which did not prove the raft secret");
+                return;
+            }
+            while (serverSocket != null) {
+                RaftMessage response = requestHandler.handle(RaftMessage.read(in));
+                response.write(out);
+                out.flush();
+            }
+        } catch (EOFException | SocketException e) {
+            // the member closed the connection
+        } catch (SocketTimeoutException e) {
+            // the connection was idle, the member reconnects on its next request
+        } catch (IOException e) {
+            log.debug("Error while serving a raft connection", e);
+        } finally {
+            connections.remove(connection);
+        }
+    }
+
+    /**
+     * Authenticates a connection served by this node. The member proves the secret with the nonce of this node,
+     * after which this node proves it with the nonce of the member.
+     *
+     * @return true if the member proved the secret
+     */
+    private boolean authenticate(DataInputStream in, DataOutputStream out) throws IOException {
+        byte[] nonce = createNonce();
+        out.write(nonce);
+        out.flush();
+        byte[] peerNonce = new byte[NONCE_LENGTH];
+        in.readFully(peerNonce);
+        byte[] peerProof = new byte[MAC_LENGTH];
+        in.readFully(peerProof);
+        if (!MessageDigest.isEqual(peerProof, mac(secretKey, nonce, peerNonce))) {
+            return false;
+        }
+        out.write(mac(secretKey, peerNonce, nonce));
+        out.flush();
+        return true;
+    }
+
+    private static byte[] createNonce() {
+        byte[] nonce = new byte[NONCE_LENGTH];
+        random.nextBytes(nonce);
+        return nonce;
+    }
+
+    /**
+     * The HMAC of the given nonces, the nonce of the node which verifies the proof comes first so that a proof can not
+     * be replayed in the other direction.
+     */
+    private static byte[] mac(SecretKeySpec secretKey, byte[] first, byte[] second) throws IOException {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(secretKey);
+            mac.update(first);
+            return mac.doFinal(second);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Could not compute the raft secret proof", e);
+        }
+    }
+
+    /**
+     * Checks whether the given address is the address of a host of the other members. The member addresses which
+     * could not be resolved when the node was created are resolved again.
+     */
+    private boolean isPeerHost(InetAddress remoteAddress) {
+        for (InetSocketAddress peerAddress : peerAddresses) {
+            try {
+                InetAddress peerHost = peerAddress.isUnresolved()
+                        ? InetAddress.getByName(peerAddress.getHostString()) : peerAddress.getAddress();
+                if (peerHost.equals(remoteAddress)) {
+                    return true;
+                }
+            } catch (UnknownHostException e) {
+                log.debug("Could not resolve the raft member address " + peerAddress, e);
+            }
+        }
+        return false;
+    }
+
+    private static void close(Socket connection) {
+        try {
+            connection.close();
+        } catch (IOException e) {
+            log.debug("Error while closing a raft connection", e);
+        }
+    }
+
+    /**
+     * The connection to a member. A single request is in flight on the connection at a time, and the connection is
+     * reopened on the next request after an error. A connection which has been idle for half the idle timeout is
+     * reopened as well, before the member closes it.
+     */
+    static class PeerConnection {
+
+        private final InetSocketAddress address;
+        private final SecretKeySpec secretKey;
+        private final int timeout;
+        private final int idleTimeout;
+        private Socket socket;
+        private DataInputStream in;
+        private DataOutputStream out;
+        private long lastUsed;
+
+        private PeerConnection(InetSocketAddress address, SecretKeySpec secretKey, int timeout, int idleTimeout) {
+            this.address = address;
+            this.secretKey = secretKey;
+            this.timeout = timeout;
+            this.idleTimeout = idleTimeout;
+        }
+
+        synchronized RaftMessage send(RaftMessage request) throws IOException {
+            long now = System.currentTimeMillis();
+            if (socket != null && now - lastUsed >= idleTimeout / 2) {
+                close();
+            }
+            lastUsed = now;
+            try {
+                if (socket == null) {
+                    Socket newSocket = new Socket();
+                    newSocket.setTcpNoDelay(true);
+                    newSocket.setSoTimeout(timeout);
+                    newSocket.connect(address, timeout);
+                    socket = newSocket;
+                    in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                    out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                    if (secretKey != null) {
+                        authenticate();
+                    }
+                }
+                request.write(out);
+                out.flush();
+                return RaftMessage.read(in);
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        /**
+         * Proves the secret with the nonce of the member, after which the member proves it with the nonce of this
+         * node.
+         */
+        private void authenticate() throws IOException {
+            byte[] peerNonce = new byte[NONCE_LENGTH];
+            in.readFully(peerNonce);
+            byte[] nonce = createNonce();
+            out.write(nonce);
+            out.write(mac(secretKey, peerNonce, nonce));
+            out.flush();
+            byte[] peerProof = new byte[MAC_LENGTH];
+            in.readFully(peerProof);
+            if (!MessageDigest.isEqual(peerProof, mac(secretKey, nonce, peerNonce))) {
+                throw new IOException("The raft member at " + address + " did not prove the raft secret");
+            }
+        }
+
+        synchronized void close() {
+            if (socket != null) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    log.debug("Error while closing the raft connection to " + address, e);
+                }
+                socket = null;
+            }
+        }
+    }
+}
@@ -139,6 +139,42 @@ public interface CommunicationBusContext {
      */
     String getCoordinatorNodeId(String groupId) throws ClusterCoordinationException;
 
+    /**
+     * Update the node heartbeat, renew or take over the leader lease and read the membership events of the node in a
+     * single transaction. The lease is renewed if the given fencing token is still the token of the lease, otherwise
+     * it is taken over with an incremented fencing token if it has not been renewed within the lease duration.
+     *
+     * @param nodeId               local node ID
+     * @param groupId              local group ID
+     * @param fencingToken         fencing token of the lease held by the node, 0 if the node does not hold the lease
+     * @param leaseDuration        the duration in milliseconds after which an unrenewed lease can be taken over
+     * @param currentHeartbeatTime current heartbeat time
+     * @return the lease and the membership events of the node
+     * @throws ClusterCoordinationException when an error is detected while calling the store (mostly due to a DB error)
+     */
+    LeaseHeartbeat updateHeartbeatWithLease(String nodeId, String groupId, long fencingToken, int leaseDuration,
+                                            long currentHeartbeatTime) throws ClusterCoordinationException;
+
+    /**
+     * Try to create the leader lease of the group for the local node, with the first fencing token.
+     *
+     * @param nodeId               local node ID
+     * @param groupId              local group ID
+     * @param currentHeartbeatTime current heartbeat time
+     * @return True if the lease was created, false if the lease of the group already exists
+     * @throws ClusterCoordinationException when the lease could not be created due to any other error
+     */
+    boolean createLeaderLease(String nodeId, String groupId, long currentHeartbeatTime)
+            throws ClusterCoordinationException;
+
+    /**
+     * Check whether the leader lease can be used with the database, which is not the case for the databases created
+     * with the scripts which do not have the fencing token of the lease.
+     *
+     * @return True if the leader lease is supported by the database
+     */
+    boolean isLeaderLeaseSupported();
+
     /**
      * Clear all heartbeat data present in the database. This is normally done when the cluster is restarted
      *
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.micro.integrator.coordination.util;
+
+import org.wso2.micro.integrator.coordination.node.NodeDetail;
+
+import java.util.List;
+
+/**
+ * This class represents the outcome of a heartbeat of a node in the lease coordination mode, which updates the node
+ * heartbeat, renews or takes over the leader lease and reads the membership events of the node in a single
+ * transaction.
+ */
+public class LeaseHeartbeat {
+    /**
+     * Node ID of the lease holder, null if there is no lease for the group.
+     */
+    private final String leaseHolderId;
+
+    /**
+     * Fencing token of the lease, which is incremented whenever the lease is taken over.
+     */
+    private final long fencingToken;
+
+    /**
+     * The last renewal time of the expired lease which was taken over by this heartbeat, -1 otherwise.
+     */
+    private final long expiredLeaseHeartbeat;
+
+    /**
+     * Membership events destined to the node.
+     */
+    private final List<MemberEvent> memberEvents;
+
+    /**
+     * All the nodes of the group, only read if the node holds the lease.
+     */
+    private final List<NodeDetail> nodeDetails;
+
+    /**
+     * Constructor.
+     *
+     * @param leaseHolderId         node ID of the lease holder
+     * @param fencingToken          fencing token of the lease
+     * @param expiredLeaseHeartbeat last renewal time of the expired lease taken over by the heartbeat, or -1
+     * @param memberEvents          membership events destined to the node
+     * @param nodeDetails           the nodes of the group if the node holds the lease, null otherwise
+     */
+    public LeaseHeartbeat(String leaseHolderId, long fencingToken, long expiredLeaseHeartbeat,
+                          List<MemberEvent> memberEvents, List<NodeDetail> nodeDetails) {
+        this.leaseHolderId = leaseHolderId;
+        this.fencingToken = fencingToken;
+        this.expiredLeaseHeartbeat = expiredLeaseHeartbeat;
+        this.memberEvents = memberEvents;
+        this.nodeDetails = nodeDetails;
+    }
+
+    public String getLeaseHolderId() {
+        return leaseHolderId;
+    }
+
+    public long getFencingToken() {
+        return fencingToken;
+    }
+
+    /**
+     * Check whether the lease was taken over from an expired lease holder by this heartbeat.
+     *
+     * @return true if the lease was taken over
+     */
+    public boolean isLeaseTakenOver() {
+        return expiredLeaseHeartbeat >= 0;
+    }
+
+    public long getExpiredLeaseHeartbeat() {
+        return expiredLeaseHeartbeat;
+    }
+
+    public List<MemberEvent> getMemberEvents() {
+        return memberEvents;
+    }
+
+    public List<NodeDetail> getNodeDetails() {
+        return nodeDetails;
+    }
+}
@@ -41,10 +41,14 @@ public class RDBMSConstantUtils {
     public static final String TASK_CREATE_NODE_HEARTBEAT = "creating node heartbeat";
     public static final String TASK_GET_ALL_QUEUES = "getting all queues";
     public static final String TASK_REMOVE_NODE_HEARTBEAT = "removing node heartbeat entry";
+    public static final String TASK_UPDATE_LEASE_HEARTBEAT = "updating node heartbeat with leader lease";
+    public static final String TASK_CREATE_LEADER_LEASE = "creating leader lease";
 
     public static final String HEART_BEAT_INTERVAL = "heartBeatInterval";
     public static final String HEART_BEAT_MAX_RETRY = "heartbeatMaxRetry";
     public static final String LOCAL_GROUP_ID = "localGroupId";
+    public static final String COORDINATION_MODE = "coordinationMode";
+    public static final String COORDINATION_MODE_LEASE = "lease";
     public static final String SCHEDULED_PERIOD = "scheduledPeriod";
     public static final String NODE_ID = "nodeId";
     public static final String NODE_ID_SYSTEM_PROPERTY = "node.id";
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.micro.integrator.coordination.util;
+
+/**
+ * Contains constant values needed for the raft coordination mechanism.
+ */
+public class RaftConstantUtils {
+
+    public static final String COORDINATION_STRATEGY = "coordinationStrategy";
+    public static final String COORDINATION_STRATEGY_RAFT = "raft";
+
+    public static final String RAFT_MEMBERS = "raftMembers";
+    public static final String RAFT_HEARTBEAT_INTERVAL = "raftHeartbeatInterval";
+    public static final String RAFT_ELECTION_TIMEOUT = "raftElectionTimeout";
+    public static final String RAFT_MEMBER_TIMEOUT = "raftMemberTimeout";
+    public static final String RAFT_STATE_DIRECTORY = "raftStateDirectory";
+    public static final String RAFT_SECRET = "raftSecret";
+
+    public static final int DEFAULT_RAFT_HEARTBEAT_INTERVAL = 100;
+    public static final int DEFAULT_RAFT_ELECTION_TIMEOUT = 1000;
+    public static final int DEFAULT_RAFT_MEMBER_TIMEOUT = 3000;
+
+    /**
+     * The default directory of the raft state file, relative to the carbon home.
+     */
+    public static final String DEFAULT_RAFT_STATE_DIRECTORY = "repository/data/raft";
+
+    /**
+     * The file in the state directory in which the term and the vote of the node are stored, the log of the node is
+     * stored in the file of the same name with the .log extension.
+     */
+    public static final String RAFT_STATE_FILE = "raft.state";
+
+    /**
+     * The number of applied log entries after which the log is compacted to a snapshot.
+     */
+    public static final int RAFT_LOG_COMPACTION_THRESHOLD = 1000;
+
+    /**
+     * The maximum number of log entries sent in a single append request.
+     */
+    public static final int RAFT_MAX_APPEND_ENTRIES = 100;
+
+}
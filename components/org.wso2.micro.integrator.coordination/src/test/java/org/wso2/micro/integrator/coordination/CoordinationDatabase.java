@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.micro.integrator.coordination;
+
+import org.h2.jdbcx.JdbcDataSource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.sql.DataSource;
+
+/**
+ * An in-memory H2 database with the coordination tables, which is dropped once it is closed.
+ */
+class CoordinationDatabase {
+
+    private static final String[] TABLES = {
+            "CREATE TABLE LEADER_STATUS_TABLE (GROUP_ID VARCHAR (512) NOT NULL, NODE_ID VARCHAR (512) NOT NULL, "
+            + "LAST_HEARTBEAT BIGINT NOT NULL, FENCING_TOKEN BIGINT DEFAULT 0 NOT NULL, PRIMARY KEY (GROUP_ID))",
+            "CREATE TABLE CLUSTER_NODE_STATUS_TABLE (GROUP_ID VARCHAR (512) NOT NULL, NODE_ID VARCHAR (512) NOT NULL, "
+            + "IS_NEW_NODE INT NOT NULL, LAST_HEARTBEAT BIGINT NOT NULL, PRIMARY KEY (GROUP_ID, NODE_ID))",
+            "CREATE TABLE MEMBERSHIP_EVENT_TABLE (GROUP_ID VARCHAR (512) NOT NULL, NODE_ID VARCHAR (512) NOT NULL, "
+            + "CHANGE_TYPE INT NOT NULL, CHANGED_MEMBER_ID VARCHAR (512) NOT NULL)",
+            "CREATE TABLE REMOVED_MEMBERS_TABLE (GROUP_ID VARCHAR (512) NOT NULL, NODE_ID VARCHAR (512) NOT NULL, "
+            + "REMOVED_MEMBER_ID VARCHAR (512) NOT NULL)"
+    };
+
+    private final JdbcDataSource dataSource;
+
+    /**
+     * Keeps the in-memory database open, and runs the statements of the tests.
+     */
+    private final Connection connection;
+
+    CoordinationDatabase(String name) throws SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";LOCK_TIMEOUT=10000");
+        connection = dataSource.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            for (String table : TABLES) {
+                statement.execute(table);
+            }
+        }
+    }
+
+    DataSource getDataSource() {
+        return dataSource;
+    }
+
+    /**
+     * Creates a data source of the database, which calls the given hook before each statement is prepared.
+     */
+    DataSource createDataSource(StatementHook hook) {
+        ClassLoader classLoader = CoordinationDatabase.class.getClassLoader();
+        return (DataSource) Proxy.newProxyInstance(classLoader, new Class[]{DataSource.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(dataSource, method, args);
+                    if (!"getConnection".equals(method.getName())) {
+                        return result;
+                    }
+                    Connection target = (Connection) result;
+                    return Proxy.newProxyInstance(classLoader, new Class[]{Connection.class},
+                            (connectionProxy, connectionMethod, connectionArgs) -> {
+                                if ("prepareStatement".equals(connectionMethod.getName())) {
+                                    hook.beforeStatement((String) connectionArgs[0]);
+                                }
+                                return invoke(target, connectionMethod, connectionArgs);
+                            });
+                });
+    }
+
+    /**
+     * Executes an update statement with the given parameters.
+     */
+    void execute(String sql, Object... parameters) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                statement.setObject(i + 1, parameters[i]);
+            }
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Reads a column of the leader lease of the group.
+     *
+     * @return the value of the column, null if there is no lease for the group
+     */
+    Object readLease(String groupId, String column) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT " + column + " FROM LEADER_STATUS_TABLE WHERE GROUP_ID =?")) {
+            statement.setString(1, groupId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getObject(1) : null;
+            }
+        }
+    }
+
+    void close() throws SQLException {
+        connection.close();
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Called before a statement is prepared on a connection of the data source.
+     */
+    interface StatementHook {
+
+        void beforeStatement(String sql) throws SQLException;
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.micro.integrator.coordination;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.wso2.micro.integrator.coordination.exception.ClusterCoordinationException;
+import org.wso2.micro.integrator.coordination.node.NodeDetail;
+import org.wso2.micro.integrator.coordination.util.LeaseHeartbeat;
+import org.wso2.micro.integrator.coordination.util.MemberEvent;
+import org.wso2.micro.integrator.coordination.util.MemberEventType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class RDBMSLeaderLeaseTest extends TestCase {
+
+    private static final String GROUP = "testGroup";
+    private static final int LEASE_DURATION = 1000;
+    private static final long START = 100000;
+
+    private CoordinationDatabase database;
+    private RDBMSCommunicationBusContextImpl communicationBusContext;
+
+    @Override
+    protected void setUp() throws Exception {
+        database = new CoordinationDatabase(getName());
+        communicationBusContext = new RDBMSCommunicationBusContextImpl(database.getDataSource());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        database.close();
+    }
+
+    /**
+     * Test that the lease is created with the first fencing token by the first node, and that the other nodes find
+     * the lease held by that node.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testInitialAcquisition() throws Exception {
+        LeaseHeartbeat heartbeat = heartbeat("node1", 0, START);
+        Assert.assertNull(heartbeat.getLeaseHolderId());
+        Assert.assertTrue(communicationBusContext.createLeaderLease("node1", GROUP, START));
+        Assert.assertFalse("The lease is created twice", communicationBusContext.createLeaderLease("node2", GROUP,
+                                                                                                    START));
+
+        heartbeat = heartbeat("node2", 0, START + 1);
+        Assert.assertEquals("node1", heartbeat.getLeaseHolderId());
+        Assert.assertEquals(1, heartbeat.getFencingToken());
+        Assert.assertFalse(heartbeat.isLeaseTakenOver());
+        Assert.assertNull("The node details are read by a node which does not hold the lease",
+                          heartbeat.getNodeDetails());
+    }
+
+    /**
+     * Test that an error other than the lease created by another node is not taken as a lost race for the lease.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testCreateLeaseError() throws Exception {
+        database.execute("DROP TABLE LEADER_STATUS_TABLE");
+        try {
+            communicationBusContext.createLeaderLease("node1", GROUP, START);
+            Assert.fail("The lease is not created, but no error is reported");
+        } catch (ClusterCoordinationException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test that the lease is not supported by a data base created with the scripts without the fencing token.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testLeaseSupport() throws Exception {
+        Assert.assertTrue(communicationBusContext.isLeaderLeaseSupported());
+        database.execute("ALTER TABLE LEADER_STATUS_TABLE DROP COLUMN FENCING_TOKEN");
+        Assert.assertFalse(communicationBusContext.isLeaderLeaseSupported());
+    }
+
+    /**
+     * Test that the holder renews the lease with the same fencing token, and that a renewed lease is not taken over
+     * before it expires.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRenewal() throws Exception {
+        communicationBusContext.createLeaderLease("node1", GROUP, START);
+        heartbeat("node2", 0, START);
+
+        long renewal = START + LEASE_DURATION - 100;
+        LeaseHeartbeat heartbeat = heartbeat("node1", 1, renewal);
+        Assert.assertEquals("node1", heartbeat.getLeaseHolderId());
+        Assert.assertEquals(1, heartbeat.getFencingToken());
+        Assert.assertFalse(heartbeat.isLeaseTakenOver());
+        Assert.assertEquals(renewal, database.readLease(GROUP, "LAST_HEARTBEAT"));
+        List<String> nodeIds = new ArrayList<>();
+        for (NodeDetail nodeDetail : heartbeat.getNodeDetails()) {
+            nodeIds.add(nodeDetail.getNodeId());
+            Assert.assertEquals("node1".equals(nodeDetail.getNodeId()), nodeDetail.isCoordinator());
+        }
+        Collections.sort(nodeIds);
+        Assert.assertEquals(2, nodeIds.size());
+        Assert.assertEquals("node1", nodeIds.get(0));
+        Assert.assertEquals("node2", nodeIds.get(1));
+
+        // expired since the creation of the lease, but not since its renewal
+        heartbeat = heartbeat("node2", 0, START + LEASE_DURATION + 100);
+        Assert.assertEquals("node1", heartbeat.getLeaseHolderId());
+        Assert.assertEquals(1L, database.readLease(GROUP, "FENCING_TOKEN"));
+    }
+
+    /**
+     * Test that an expired lease is taken over with an incremented fencing token, that the last renewal of the
+     * expired lease is reported for the failover time, and that the former holder can not renew the lease with its
+     * fencing token.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExpiryTakeover() throws Exception {
+        communicationBusContext.createLeaderLease("node1", GROUP, START);
+
+        LeaseHeartbeat heartbeat = heartbeat("node2", 0, START + LEASE_DURATION);
+        Assert.assertEquals("The lease is taken over before it expires", "node1", heartbeat.getLeaseHolderId());
+
+        long takeover = START + LEASE_DURATION + 1;
+        heartbeat = heartbeat("node2", 0, takeover);
+        Assert.assertEquals("node2", heartbeat.getLeaseHolderId());
+        Assert.assertEquals(2, heartbeat.getFencingToken());
+        Assert.assertTrue(heartbeat.isLeaseTakenOver());
+        Assert.assertEquals(START, heartbeat.getExpiredLeaseHeartbeat());
+        Assert.assertNotNull(heartbeat.getNodeDetails());
+
+        // the former holder resumes with its fencing token
+        heartbeat = heartbeat("node1", 1, takeover + 1);
+        Assert.assertEquals("node2", heartbeat.getLeaseHolderId());
+        Assert.assertEquals(2, heartbeat.getFencingToken());
+        Assert.assertEquals("node2", database.readLease(GROUP, "NODE_ID"));
+        Assert.assertEquals(takeover, database.readLease(GROUP, "LAST_HEARTBEAT"));
+
+        heartbeat = heartbeat("node3", 0, takeover + LEASE_DURATION + 1);
+        Assert.assertEquals("node3", heartbeat.getLeaseHolderId());
+        Assert.assertEquals(3, heartbeat.getFencingToken());
+        Assert.assertEquals(takeover, heartbeat.getExpiredLeaseHeartbeat());
+    }
+
+    /**
+     * Test that a restarted node, which does not know its fencing token, reclaims the lease of its previous run with
+     * the same fencing token, even after the lease expired, as long as the lease is not taken over.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSameNodeReclaim() throws Exception {
+        communicationBusContext.createLeaderLease("node1", GROUP, START);
+
+        long reclaim = START + 2 * LEASE_DURATION;
+        LeaseHeartbeat heartbeat = heartbeat("node1", 0, reclaim);
+        Assert.assertEquals("node1", heartbeat.getLeaseHolderId());
+        Assert.assertEquals(1, heartbeat.getFencingToken());
+        Assert.assertFalse(heartbeat.isLeaseTakenOver());
+        Assert.assertEquals(reclaim, database.readLease(GROUP, "LAST_HEARTBEAT"));
+
+        heartbeat = heartbeat("node2", 0, reclaim + LEASE_DURATION - 1);
+        Assert.assertEquals("node1", heartbeat.getLeaseHolderId());
+        Assert.assertEquals(1L, database.readLease(GROUP, "FENCING_TOKEN"));
+    }
+
+    /**
+     * Test that the takeover does not overwrite a lease, which is taken over by another node after it was read as
+     * expired.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testTakeoverCompareAndSet() throws Exception {
+        communicationBusContext.createLeaderLease("node1", GROUP, START);
+        long takeover = START + LEASE_DURATION + 1;
+        RDBMSCommunicationBusContextImpl racingContext = new RDBMSCommunicationBusContextImpl(
+                database.createDataSource(sql -> {
+                    if (sql.startsWith("UPDATE LEADER_STATUS_TABLE SET NODE_ID")) {
+                        // another node takes over the lease between the read and the takeover of this node
+                        database.execute("UPDATE LEADER_STATUS_TABLE SET NODE_ID =?, LAST_HEARTBEAT =?, "
+                                         + "FENCING_TOKEN =? WHERE GROUP_ID =?", "node3", takeover, 2, GROUP);
+                    }
+                }));
+
+        LeaseHeartbeat heartbeat = racingContext.updateHeartbeatWithLease("node2", GROUP, 0, LEASE_DURATION,
+                                                                          takeover);
+        Assert.assertFalse("The lease is taken over twice", "node2".equals(heartbeat.getLeaseHolderId()));
+        Assert.assertFalse(heartbeat.isLeaseTakenOver());
+        Assert.assertNull(heartbeat.getNodeDetails());
+        Assert.assertEquals("node3", database.readLease(GROUP, "NODE_ID"));
+        Assert.assertEquals(2L, database.readLease(GROUP, "FENCING_TOKEN"));
+    }
+
+    /**
+     * Test that only one of the nodes which take over an expired lease concurrently acquires it.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testConcurrentTakeover() throws Exception {
+        int nodes = 8;
+        communicationBusContext.createLeaderLease("node0", GROUP, START);
+        long takeover = START + LEASE_DURATION + 1;
+        ExecutorService executor = Executors.newFixedThreadPool(nodes);
+        List<Future<LeaseHeartbeat>> futures = new ArrayList<>();
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            for (int i = 1; i <= nodes; i++) {
+                String nodeId = "node" + i;
+                RDBMSCommunicationBusContextImpl nodeContext = new RDBMSCommunicationBusContextImpl(
+                        database.getDataSource());
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return nodeContext.updateHeartbeatWithLease(nodeId, GROUP, 0, LEASE_DURATION, takeover);
+                }));
+            }
+            start.countDown();
+            List<String> holders = new ArrayList<>();
+            for (int i = 1; i <= nodes; i++) {
+                LeaseHeartbeat heartbeat;
+                try {
+                    heartbeat = futures.get(i - 1).get(30, TimeUnit.SECONDS);
+                } catch (ExecutionException e) {
+                    // a heartbeat may fail on the lock of the lease, which is then retried by the next heartbeat
+                    Assert.assertTrue(e.getCause() instanceof ClusterCoordinationException);
+                    continue;
+                }
+                if (("node" + i).equals(heartbeat.getLeaseHolderId())) {
+                    Assert.assertEquals(2, heartbeat.getFencingToken());
+                    holders.add(heartbeat.getLeaseHolderId());
+                }
+            }
+            Assert.assertEquals("The lease is not acquired by a single node", 1, holders.size());
+            Assert.assertEquals(holders.get(0), database.readLease(GROUP, "NODE_ID"));
+            Assert.assertEquals(2L, database.readLease(GROUP, "FENCING_TOKEN"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Test that the membership events of a node are read and cleared by its heartbeat.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMembershipEvents() throws Exception {
+        communicationBusContext.storeMembershipEvent("node2", GROUP, Collections.singletonList("node1"),
+                                                     MemberEventType.MEMBER_ADDED.getCode());
+
+        List<MemberEvent> memberEvents = heartbeat("node1", 0, START).getMemberEvents();
+        Assert.assertEquals(1, memberEvents.size());
+        Assert.assertEquals(MemberEventType.MEMBER_ADDED, memberEvents.get(0).getMembershipEventType());
+        Assert.assertEquals("node2", memberEvents.get(0).getTargetNodeId());
+        Assert.assertTrue(heartbeat("node1", 0, START + 1).getMemberEvents().isEmpty());
+    }
+
+    private LeaseHeartbeat heartbeat(String nodeId, long fencingToken, long heartbeatTime) {
+        return communicationBusContext.updateHeartbeatWithLease(nodeId, GROUP, fencingToken, LEASE_DURATION,
+                                                                heartbeatTime);
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.micro.integrator.coordination;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.wso2.micro.integrator.coordination.node.NodeDetail;
+import org.wso2.micro.integrator.coordination.util.RDBMSConstantUtils;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.sql.DataSource;
+
+public class RDBMSLeaseCoordinationStrategyTest extends TestCase {
+
+    private static final int HEARTBEAT_INTERVAL = 100;
+    private static final int HEARTBEAT_MAX_RETRY = 3;
+    private static final int LEASE_DURATION = HEARTBEAT_INTERVAL * HEARTBEAT_MAX_RETRY;
+
+    private final List<RDBMSCoordinationStrategy> strategies = new ArrayList<>();
+    private CoordinationDatabase database;
+
+    @Override
+    protected void setUp() throws Exception {
+        System.setProperty(RDBMSConstantUtils.HEART_BEAT_INTERVAL, String.valueOf(HEARTBEAT_INTERVAL));
+        System.setProperty(RDBMSConstantUtils.HEART_BEAT_MAX_RETRY, String.valueOf(HEARTBEAT_MAX_RETRY));
+        System.setProperty(RDBMSConstantUtils.COORDINATION_MODE, RDBMSConstantUtils.COORDINATION_MODE_LEASE);
+        database = new CoordinationDatabase(getName());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        for (RDBMSCoordinationStrategy strategy : strategies) {
+            strategy.leaveGroup();
+        }
+        database.close();
+        System.clearProperty(RDBMSConstantUtils.HEART_BEAT_INTERVAL);
+        System.clearProperty(RDBMSConstantUtils.HEART_BEAT_MAX_RETRY);
+        System.clearProperty(RDBMSConstantUtils.COORDINATION_MODE);
+        System.clearProperty(RDBMSConstantUtils.NODE_ID);
+        System.clearProperty(RDBMSConstantUtils.NODE_ID_SYSTEM_PROPERTY);
+    }
+
+    /**
+     * Test that the first node acquires the lease, that it keeps the lease with the same fencing token while it
+     * renews the lease, and that the other node is notified that it joined the group.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testAcquisitionAndRenewal() throws Exception {
+        RDBMSCoordinationStrategy first = createStrategy("node1", database.getDataSource());
+        first.joinGroup();
+        waitFor(first::isLeaderNode);
+        Assert.assertEquals(1, first.getFencingToken());
+        Assert.assertEquals(-1, first.getLastFailoverTime());
+
+        RDBMSCoordinationStrategy second = createStrategy("node2", database.getDataSource());
+        RecordingListener listener = new RecordingListener();
+        second.registerEventListener(listener);
+        second.joinGroup();
+        waitFor(() -> listener.events.contains("added:node2"));
+
+        // the lease is renewed for a few lease durations
+        Thread.sleep(3 * LEASE_DURATION);
+        Assert.assertTrue(first.isLeaderNode());
+        Assert.assertEquals(1, first.getFencingToken());
+        Assert.assertFalse(second.isLeaderNode());
+        Assert.assertEquals(0, second.getFencingToken());
+        Assert.assertEquals("node1", database.readLease(RDBMSConstantUtils.DEFAULT_LOCAL_GROUP_ID, "NODE_ID"));
+    }
+
+    /**
+     * Test that the lease of a node which left the group is taken over with the next fencing token once it expires,
+     * that the failover time is measured from the last renewal of the lease, and that the new leader is notified of
+     * the removal of the former leader.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExpiryTakeover() throws Exception {
+        RDBMSCoordinationStrategy first = createStrategy("node1", database.getDataSource());
+        first.joinGroup();
+        waitFor(first::isLeaderNode);
+        RDBMSCoordinationStrategy second = createStrategy("node2", database.getDataSource());
+        RecordingListener listener = new RecordingListener();
+        second.registerEventListener(listener);
+        second.joinGroup();
+        waitFor(() -> listener.events.contains("added:node2"));
+
+        first.leaveGroup();
+        waitFor(second::isLeaderNode);
+        Assert.assertFalse(first.isLeaderNode());
+        Assert.assertEquals(2, second.getFencingToken());
+        long failoverTime = second.getLastFailoverTime();
+        Assert.assertTrue("The lease is taken over before it expires: " + failoverTime,
+                          failoverTime > LEASE_DURATION);
+        Assert.assertTrue("The lease is not taken over soon after it expires: " + failoverTime,
+                          failoverTime <= LEASE_DURATION + 5 * HEARTBEAT_INTERVAL);
+        waitFor(() -> listener.events.contains("removed:node1") && listener.events.contains("coordinator:node2"));
+    }
+
+    /**
+     * Test that a leader which can not renew its lease stops acting as the leader before the lease is taken over,
+     * and that it finds it lost the leadership once it reaches the database again.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testLossOfLeadership() throws Exception {
+        FailingHook hook = new FailingHook();
+        RDBMSCoordinationStrategy first = createStrategy("node1", database.createDataSource(hook));
+        RecordingListener firstListener = new RecordingListener();
+        first.registerEventListener(firstListener);
+        first.joinGroup();
+        waitFor(first::isLeaderNode);
+        RDBMSCoordinationStrategy second = createStrategy("node2", database.getDataSource());
+        second.joinGroup();
+        Thread.sleep(2 * HEARTBEAT_INTERVAL);
+
+        hook.failing = true;
+        waitFor(() -> {
+            // the new leader is checked first, as it can only take over the lease after the former leader stopped
+            boolean secondLeader = second.isLeaderNode();
+            boolean firstLeader = first.isLeaderNode();
+            Assert.assertFalse("Both the nodes act as the leader", firstLeader && secondLeader);
+            return secondLeader;
+        });
+        Assert.assertEquals(2, second.getFencingToken());
+        Assert.assertTrue(firstListener.events.contains("unresponsive:node1"));
+
+        hook.failing = false;
+        waitFor(() -> firstListener.events.contains("rejoined:node1"));
+        Thread.sleep(2 * HEARTBEAT_INTERVAL);
+        Assert.assertFalse(first.isLeaderNode());
+        Assert.assertEquals(0, first.getFencingToken());
+        Assert.assertTrue(second.isLeaderNode());
+        Assert.assertEquals(2, second.getFencingToken());
+        Assert.assertEquals("node2", database.readLease(RDBMSConstantUtils.DEFAULT_LOCAL_GROUP_ID, "NODE_ID"));
+    }
+
+    /**
+     * Test that the coordinator is elected with the heartbeat table when the data base has no fencing token for the
+     * lease.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFallbackWithoutFencingToken() throws Exception {
+        database.execute("ALTER TABLE LEADER_STATUS_TABLE DROP COLUMN FENCING_TOKEN");
+        RDBMSCoordinationStrategy first = createStrategy("node1", database.getDataSource());
+        first.joinGroup();
+        waitFor(first::isLeaderNode);
+        Assert.assertEquals(0, first.getFencingToken());
+        Assert.assertEquals("node1", database.readLease(RDBMSConstantUtils.DEFAULT_LOCAL_GROUP_ID, "NODE_ID"));
+
+        RDBMSCoordinationStrategy second = createStrategy("node2", database.getDataSource());
+        second.joinGroup();
+        Thread.sleep(2 * HEARTBEAT_INTERVAL);
+        Assert.assertTrue(first.isLeaderNode());
+        Assert.assertFalse(second.isLeaderNode());
+    }
+
+    private RDBMSCoordinationStrategy createStrategy(String nodeId, DataSource dataSource) throws Exception {
+        System.setProperty(RDBMSConstantUtils.NODE_ID, nodeId);
+        RDBMSCoordinationStrategy strategy = new RDBMSCoordinationStrategy(dataSource);
+        strategies.add(strategy);
+        return strategy;
+    }
+
+    private static void waitFor(Condition condition) throws Exception {
+        for (int i = 0; i < 200 && !condition.isMet(); i++) {
+            Thread.sleep(50);
+        }
+        Assert.assertTrue("The condition is not met in time", condition.isMet());
+    }
+
+    private interface Condition {
+
+        boolean isMet();
+    }
+
+    /**
+     * Fails the statements of a node while the node can not reach the database.
+     */
+    private static class FailingHook implements CoordinationDatabase.StatementHook {
+
+        private volatile boolean failing;
+
+        @Override
+        public void beforeStatement(String sql) throws SQLException {
+            if (failing) {
+                throw new SQLException("The database is not reachable");
+            }
+        }
+    }
+
+    /**
+     * Records the membership events of a node.
+     */
+    private static class RecordingListener extends MemberEventListener {
+
+        private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void memberAdded(NodeDetail nodeDetail) {
+            events.add("added:" + nodeDetail.getNodeId());
+        }
+
+        @Override
+        public void memberRemoved(NodeDetail nodeDetail) {
+            events.add("removed:" + nodeDetail.getNodeId());
+        }
+
+        @Override
+        public void coordinatorChanged(NodeDetail nodeDetail) {
+            events.add("coordinator:" + nodeDetail.getNodeId());
+        }
+
+        @Override
+        public void becameUnresponsive(String nodeId) {
+            events.add("unresponsive:" + nodeId);
+        }
+
+        @Override
+        public void reJoined(String nodeId) {
+            events.add("rejoined:" + nodeId);
+        }
+    }
+}
@@ -0,0 +1,473 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.micro.integrator.coordination.raft;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.wso2.micro.integrator.coordination.raft.RaftMessage.AppendRequest;
+import org.wso2.micro.integrator.coordination.raft.RaftMessage.AppendResponse;
+import org.wso2.micro.integrator.coordination.raft.RaftMessage.VoteRequest;
+import org.wso2.micro.integrator.coordination.raft.RaftMessage.VoteResponse;
+import org.wso2.micro.integrator.coordination.util.MemberEventType;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Runs the nodes of a raft group on the local ports.
+ */
+public class RaftNodeTest extends TestCase {
+
+    private static final int HEARTBEAT_INTERVAL = 50;
+    private static final int ELECTION_TIMEOUT = 300;
+    private static final int MEMBER_TIMEOUT = 900;
+    private static final List<String> NODE_IDS = Arrays.asList("node1", "node2", "node3");
+    private static final String SECRET = "raft-secret";
+
+    private final Map<String, InetSocketAddress> members = new LinkedHashMap<>();
+    private final Map<String, RaftNode> nodes = new HashMap<>();
+    private final Map<String, RecordingListener> listeners = new HashMap<>();
+    private Path stateDirectory;
+
+    @Override
+    protected void setUp() throws Exception {
+        for (String nodeId : NODE_IDS) {
+            members.put(nodeId, new InetSocketAddress("127.0.0.1", getFreePort()));
+        }
+        stateDirectory = Files.createTempDirectory("raft");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        for (RaftNode node : nodes.values()) {
+            node.stop();
+        }
+        try (Stream<Path> files = Files.walk(stateDirectory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * Test that a single leader is elected, which is the coordinator of all the nodes, and that all the nodes are
+     * notified of the members and the coordinator.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testElection() throws Exception {
+        for (String nodeId : NODE_IDS) {
+            startNode(nodeId);
+        }
+
+        String leaderId = awaitLeader(NODE_IDS);
+        for (String nodeId : NODE_IDS) {
+            waitFor(() -> nodes.get(nodeId).getMembers().size() == 3);
+            Assert.assertEquals(leaderId, nodes.get(nodeId).getCoordinatorId());
+            RecordingListener listener = listeners.get(nodeId);
+            waitFor(() -> listener.events.containsAll(Arrays.asList("added:node1", "added:node2", "added:node3",
+                                                                    "coordinator:" + leaderId)));
+        }
+    }
+
+    /**
+     * Test that another leader is elected once the leader stops, which the other nodes apply as the coordinator, and
+     * that the stopped leader is removed from the group once the member timeout elapses.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testLeaderFailover() throws Exception {
+        for (String nodeId : NODE_IDS) {
+            startNode(nodeId);
+        }
+        String leaderId = awaitLeader(NODE_IDS);
+        for (String nodeId : NODE_IDS) {
+            waitFor(() -> nodes.get(nodeId).getMembers().size() == 3);
+        }
+
+        nodes.remove(leaderId).stop();
+        List<String> remaining = new ArrayList<>(nodes.keySet());
+        String newLeaderId = awaitLeader(remaining);
+        Assert.assertFalse(leaderId.equals(newLeaderId));
+        for (String nodeId : remaining) {
+            RecordingListener listener = listeners.get(nodeId);
+            waitFor(() -> newLeaderId.equals(nodes.get(nodeId).getCoordinatorId()));
+            waitFor(() -> listener.events.containsAll(Arrays.asList("coordinator:" + newLeaderId,
+                                                                    "removed:" + leaderId)));
+            Assert.assertFalse(nodes.get(nodeId).getMembers().contains(leaderId));
+        }
+    }
+
+    /**
+     * Test that a node which starts after the election is added to the group on all the nodes, and that a follower
+     * which stops is removed from the group.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMemberAddedAndRemoved() throws Exception {
+        startNode("node1");
+        startNode("node2");
+        String leaderId = awaitLeader(Arrays.asList("node1", "node2"));
+        waitFor(() -> nodes.get("node1").getMembers().size() == 2 && nodes.get("node2").getMembers().size() == 2);
+
+        startNode("node3");
+        for (String nodeId : NODE_IDS) {
+            waitFor(() -> listeners.get(nodeId).events.contains("added:node3"));
+            Assert.assertEquals(NODE_IDS, sorted(nodes.get(nodeId).getMembers()));
+        }
+
+        String followerId = "node1".equals(leaderId) ? "node2" : "node1";
+        nodes.remove(followerId).stop();
+        for (String nodeId : nodes.keySet()) {
+            waitFor(() -> listeners.get(nodeId).events.contains("removed:" + followerId));
+            Assert.assertFalse(nodes.get(nodeId).getMembers().contains(followerId));
+        }
+        Assert.assertTrue("The leader changed after a follower stopped", nodes.get(leaderId).isLeader());
+    }
+
+    /**
+     * Test that a node which starts after the log of the leader is compacted catches up from the snapshot of the
+     * leader.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSnapshotCatchUp() throws Exception {
+        startNode("node1", 2);
+        startNode("node2", 2);
+        String leaderId = awaitLeader(Arrays.asList("node1", "node2"));
+        waitFor(() -> nodes.get("node1").getMembers().size() == 2 && nodes.get("node2").getMembers().size() == 2);
+        waitFor(() -> getSnapshotIndex(nodes.get(leaderId)) > 0);
+
+        startNode("node3", 2);
+        RecordingListener listener = listeners.get("node3");
+        waitFor(() -> listener.events.containsAll(Arrays.asList("added:node1", "added:node2", "added:node3",
+                                                                "coordinator:" + leaderId)));
+        Assert.assertEquals(NODE_IDS, sorted(nodes.get("node3").getMembers()));
+        Assert.assertEquals(leaderId, nodes.get("node3").getCoordinatorId());
+    }
+
+    /**
+     * Test that a restarted node does not vote for another candidate in the term it voted in before the restart.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testVoteStoredAcrossRestart() throws Exception {
+        RaftNode node = startNode("node1", 10000, 30000);
+        RaftTransport.PeerConnection connection = createClientTransport(SECRET).connect(members.get("node1"));
+        Assert.assertTrue(requestVote(connection, 5, "node2"));
+
+        node.stop();
+        nodes.remove("node1");
+        waitFor(() -> isFree(members.get("node1")));
+        startNode("node1", 10000, 30000);
+        connection = createClientTransport(SECRET).connect(members.get("node1"));
+        Assert.assertFalse("The node voted twice in a term", requestVote(connection, 5, "node3"));
+        Assert.assertTrue(requestVote(connection, 5, "node2"));
+        Assert.assertTrue(requestVote(connection, 6, "node3"));
+    }
+
+    /**
+     * Test that a restarted node keeps the entries it acknowledged, hence it does not vote for a candidate whose log
+     * lacks them.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testLogStoredAcrossRestart() throws Exception {
+        RaftNode node = startNode("node1", 10000, 30000);
+        RaftTransport.PeerConnection connection = createClientTransport(SECRET).connect(members.get("node1"));
+        AppendResponse response = (AppendResponse) connection.send(new AppendRequest(
+                1, "node2", 0, 0, 0, null,
+                Arrays.asList(new LogEntry(1, MemberEventType.MEMBER_ADDED, "node2"),
+                              new LogEntry(1, MemberEventType.COORDINATOR_CHANGED, "node2"))));
+        Assert.assertTrue(response.success);
+        Assert.assertEquals(2, response.matchIndex);
+
+        node.stop();
+        nodes.remove("node1");
+        waitFor(() -> isFree(members.get("node1")));
+        startNode("node1", 10000, 30000);
+        connection = createClientTransport(SECRET).connect(members.get("node1"));
+        Assert.assertFalse("The node voted for a candidate which lacks the acknowledged entries",
+                           requestVote(connection, 2, "node3", 1, 1));
+        Assert.assertTrue(requestVote(connection, 2, "node3", 2, 1));
+    }
+
+    /**
+     * Test that the group elects a coordinator again once all the nodes restart after the log is compacted, and that
+     * the restarted nodes apply the stored snapshot.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGroupRestart() throws Exception {
+        for (String nodeId : NODE_IDS) {
+            startNode(nodeId, 2);
+        }
+        String leaderId = awaitLeader(NODE_IDS);
+        for (String nodeId : NODE_IDS) {
+            waitFor(() -> nodes.get(nodeId).getMembers().size() == 3);
+        }
+        waitFor(() -> getSnapshotIndex(nodes.get(leaderId)) > 0);
+
+        for (String nodeId : NODE_IDS) {
+            nodes.remove(nodeId).stop();
+        }
+        for (String nodeId : NODE_IDS) {
+            waitFor(() -> isFree(members.get(nodeId)));
+        }
+        for (String nodeId : NODE_IDS) {
+            startNode(nodeId, 2);
+        }
+        String newLeaderId = awaitLeader(NODE_IDS);
+        for (String nodeId : NODE_IDS) {
+            waitFor(() -> newLeaderId.equals(nodes.get(nodeId).getCoordinatorId()));
+            waitFor(() -> nodes.get(nodeId).getMembers().size() == 3);
+            Assert.assertEquals(NODE_IDS, sorted(nodes.get(nodeId).getMembers()));
+        }
+    }
+
+    /**
+     * Test that the connections of a node which does not prove the secret of the group are closed.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testWrongSecretRejected() throws Exception {
+        startNode("node1", 10000, 30000);
+        RaftTransport.PeerConnection connection = createClientTransport("wrong-secret").connect(members.get("node1"));
+        try {
+            requestVote(connection, 1, "node2");
+            Assert.fail("The connection of a node which does not prove the secret is served");
+        } catch (IOException e) {
+            // expected
+        }
+        connection = createClientTransport(null).connect(members.get("node1"));
+        try {
+            requestVote(connection, 1, "node2");
+            Assert.fail("The connection of a node without the secret is served");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test that the requests of a node which is not a member of the group are rejected.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testNonMemberRejected() throws Exception {
+        RaftNode node = startNode("node1", 10000, 30000);
+        RaftTransport.PeerConnection connection = createClientTransport(SECRET).connect(members.get("node1"));
+        AppendResponse response = (AppendResponse) connection.send(
+                new AppendRequest(1, "node4", 0, 0, 0, null, Collections.emptyList()));
+        Assert.assertFalse(response.success);
+        Assert.assertFalse(requestVote(connection, 1, "node4"));
+        Assert.assertNull(node.getCoordinatorId());
+    }
+
+    /**
+     * Test that the connections from the hosts which are not the hosts of the other members are closed.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testNonMemberHostRejected() throws Exception {
+        // the other members are on a host which is not reachable, hence the local connections are not accepted
+        members.put("node2", new InetSocketAddress("192.0.2.1", 9999));
+        members.put("node3", new InetSocketAddress("192.0.2.2", 9999));
+        startNode("node1", 10000, 30000);
+        RaftTransport.PeerConnection connection = createClientTransport(SECRET).connect(members.get("node1"));
+        try {
+            connection.send(new VoteRequest(1, "node2", 0, 0));
+            Assert.fail("The connection from a host which is not a member host is served");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    private RaftNode startNode(String nodeId) throws Exception {
+        return startNode(nodeId, ELECTION_TIMEOUT, MEMBER_TIMEOUT, 1000);
+    }
+
+    private RaftNode startNode(String nodeId, int logCompactionThreshold) throws Exception {
+        return startNode(nodeId, ELECTION_TIMEOUT, MEMBER_TIMEOUT, logCompactionThreshold);
+    }
+
+    private RaftNode startNode(String nodeId, int electionTimeout, int memberTimeout) throws Exception {
+        return startNode(nodeId, electionTimeout, memberTimeout, 1000);
+    }
+
+    private RaftNode startNode(String nodeId, int electionTimeout, int memberTimeout, int logCompactionThreshold)
+            throws Exception {
+        RecordingListener listener = new RecordingListener();
+        RaftNode node = new RaftNode(nodeId, members, HEARTBEAT_INTERVAL, electionTimeout, memberTimeout,
+                                     stateDirectory.resolve(nodeId + ".state"), SECRET, listener,
+                                     logCompactionThreshold);
+        node.start();
+        nodes.put(nodeId, node);
+        listeners.put(nodeId, listener);
+        return node;
+    }
+
+    /**
+     * Waits until one of the given nodes is the leader, and checks that the other nodes are not.
+     *
+     * @return the node ID of the leader
+     */
+    private String awaitLeader(List<String> nodeIds) throws Exception {
+        List<String> leaders = new ArrayList<>();
+        waitFor(() -> {
+            leaders.clear();
+            for (String nodeId : nodeIds) {
+                if (nodes.get(nodeId).isLeader()) {
+                    leaders.add(nodeId);
+                }
+            }
+            return !leaders.isEmpty();
+        });
+        Assert.assertEquals("More than one leader is elected " + leaders, 1, leaders.size());
+        return leaders.get(0);
+    }
+
+    /**
+     * Creates the transport of a client, which connects from the local host as the members do.
+     */
+    private static RaftTransport createClientTransport(String secret) {
+        return new RaftTransport(new InetSocketAddress("127.0.0.1", 0), Collections.emptyList(), secret, request -> {
+            throw new IOException("The client does not serve requests");
+        }, 5000, 10000);
+    }
+
+    private static boolean requestVote(RaftTransport.PeerConnection connection, long term, String candidateId)
+            throws IOException {
+        return requestVote(connection, term, candidateId, 0, 0);
+    }
+
+    private static boolean requestVote(RaftTransport.PeerConnection connection, long term, String candidateId,
+                                       long lastLogIndex, long lastLogTerm) throws IOException {
+        return ((VoteResponse) connection.send(new VoteRequest(term, candidateId, lastLogIndex, lastLogTerm)))
+                .voteGranted;
+    }
+
+    /**
+     * The index of the last log entry compacted to the snapshot of the node.
+     */
+    private static long getSnapshotIndex(RaftNode node) {
+        try {
+            Field field = RaftNode.class.getDeclaredField("snapshotIndex");
+            field.setAccessible(true);
+            synchronized (node) {
+                return field.getLong(node);
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static List<String> sorted(List<String> nodeIds) {
+        List<String> sortedNodeIds = new ArrayList<>(nodeIds);
+        Collections.sort(sortedNodeIds);
+        return sortedNodeIds;
+    }
+
+    private static int getFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Checks whether the address of a stopped node can be bound again, as the server socket is closed once the
+     * thread accepting the connections returns.
+     */
+    private static boolean isFree(InetSocketAddress address) {
+        try (ServerSocket socket = new ServerSocket()) {
+            socket.setReuseAddress(true);
+            socket.bind(address);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void waitFor(Condition condition) throws Exception {
+        for (int i = 0; i < 200 && !condition.isMet(); i++) {
+            Thread.sleep(50);
+        }
+        Assert.assertTrue("The condition is not met in time", condition.isMet());
+    }
+
+    private interface Condition {
+
+        boolean isMet();
+    }
+
+    /**
+     * Records the membership changes applied by a node.
+     */
+    private static class RecordingListener implements RaftEventListener {
+
+        private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void memberAdded(String nodeId) {
+            events.add("added:" + nodeId);
+        }
+
+        @Override
+        public void memberRemoved(String nodeId) {
+            events.add("removed:" + nodeId);
+        }
+
+        @Override
+        public void coordinatorChanged(String nodeId) {
+            events.add("coordinator:" + nodeId);
+        }
+
+        @Override
+        public void becameUnresponsive() {
+            events.add("unresponsive");
+        }
+
+        @Override
+        public void reJoined() {
+            events.add("rejoined");
+        }
+    }
+}
@@ -78,8 +78,6 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Properties;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -109,8 +107,6 @@ public class ServiceBusInitializer {
 
     private TransactionCountHandlerComponent transactionCountHandlerComponent;
 
-    private ExecutorService transactionCountExecutor;
-
     @Activate
     protected void activate(ComponentContext ctxt) {
 
@@ -199,8 +195,7 @@ public class ServiceBusInitializer {
                 if (transactionPropertyEnabled) {
                     transactionCountHandlerComponent = new TransactionCountHandlerComponent();
                     transactionCountHandlerComponent.start(dataSourceService);
-                    transactionCountExecutor = Executors.newFixedThreadPool(100);
-                    synapseEnvironment.registerSynapseHandler(new TransactionCountHandler(transactionCountExecutor));
+                    synapseEnvironment.registerSynapseHandler(new TransactionCountHandler());
                 }
                 if (log.isDebugEnabled()) {
                     log.debug("SynapseEnvironmentService Registered");
@@ -233,9 +228,6 @@ public class ServiceBusInitializer {
         if (Objects.nonNull(transactionCountHandlerComponent)) {
             transactionCountHandlerComponent.cleanup();
         }
-        if (Objects.nonNull(transactionCountExecutor)) {
-            transactionCountExecutor.shutdownNow();
-        }
         List handlers = serverManager.getServerContextInformation().getSynapseEnvironment().getSynapseHandlers();
         Iterator<SynapseHandler> iterator = handlers.iterator();
         while (iterator.hasNext()) {
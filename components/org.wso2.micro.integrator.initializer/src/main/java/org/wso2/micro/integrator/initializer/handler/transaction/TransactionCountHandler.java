@@ -24,31 +24,31 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.synapse.AbstractSynapseHandler;
 import org.apache.synapse.MessageContext;
 import org.apache.synapse.core.axis2.Axis2MessageContext;
-import org.wso2.micro.integrator.initializer.handler.DataHolder;
+import org.wso2.micro.integrator.initializer.handler.transaction.exception.TransactionCounterException;
 import org.wso2.micro.integrator.initializer.handler.transaction.store.TransactionStore;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Counts the transactions in the request in flow. The transactions are counted in the request thread on a
+ * {@link LongAdder}, so that the concurrent requests do not contend on a single counter. The count is persisted by
+ * the transaction writer task, which takes a snapshot of the count at each run, see
+ * {@link #persistTransactionCount(TransactionStore)}.
+ */
 public class TransactionCountHandler extends AbstractSynapseHandler {
 
     private static final Log LOG = LogFactory.getLog(TransactionCountHandler.class);
     private static final double MAX_TRANSACTION_COUNT = Integer.MAX_VALUE * 0.9;
-    private static volatile int transactionCount = 0;
-    private ExecutorService transactionCountExecutor;
-    private final Object lock = new Object();
 
-    public TransactionCountHandler(ExecutorService executor) {
-        this.transactionCountExecutor = executor;
-    }
+    /* the number of transactions counted since the server started, it is never reset */
+    private static final LongAdder transactionCounter = new LongAdder();
+
+    /* the number of transactions counted before the current node id, only updated by the transaction writer task */
+    private static volatile long previousNodesTransactionCount = 0;
 
     @Override
     public boolean handleRequestInFlow(MessageContext messageContext) {
-        try {
-            transactionCountExecutor.execute(() -> handleTransactionCount(messageContext));
-        } catch (RejectedExecutionException e) {
-            LOG.error("Transaction could not be counted.", e);
-        }
+        handleTransactionCount(messageContext);
         return true;
     }
 
@@ -67,14 +67,43 @@ public class TransactionCountHandler extends AbstractSynapseHandler {
         return true;
     }
 
+    /**
+     * Get the transaction count of the current node id.
+     *
+     * @return - transaction count.
+     */
     public static long getTransactionCount() {
+        return transactionCounter.sum() - previousNodesTransactionCount;
+    }
+
+    /**
+     * Persist a snapshot of the transaction count of the current node id. If the snapshot has reached or exceeded
+     * the Max_Integer_value * 0.9, set a new node id and count the transactions of the new node id from zero. The
+     * transactions counted while the snapshot is persisted belong to the new node id.
+     *
+     * @param transactionStore - transactionStore instance.
+     * @return - the persisted transaction count.
+     * @throws TransactionCounterException - when the transaction count could not be persisted.
+     */
+    static synchronized long persistTransactionCount(TransactionStore transactionStore)
+            throws TransactionCounterException {
+        long totalTransactionCount = transactionCounter.sum();
+        long transactionCount = totalTransactionCount - previousNodesTransactionCount;
+        transactionStore.addTransaction(transactionCount);
+        if (transactionCount >= MAX_TRANSACTION_COUNT) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Transaction count reached to max Integer value. Hence, added the current transaction "
+                                  + "count: " + transactionCount + " to the database and set a new node id.");
+            }
+            // set new node id to the server and make the tx count zero. This should happen in this order.
+            transactionStore.setNewNodeId();
+            previousNodesTransactionCount = totalTransactionCount;
+        }
         return transactionCount;
     }
 
     /**
      * Increment the transaction count by 1 if the INTERNAL_TRANSACTION_COUNTED message property is not set to true.
-     * Commit the current transaction count to database and set the transaction count to zero if it has exceeded the
-     * Integer.MAX_VALUE
      */
     private void handleTransactionCount(MessageContext messageContext) {
         org.apache.axis2.context.MessageContext axis2MessageContext =
@@ -84,12 +113,7 @@ public class TransactionCountHandler extends AbstractSynapseHandler {
         // or if the value of the property is set to false.
         if (!(transactionProperty instanceof Boolean && (Boolean) transactionProperty)) {
             axis2MessageContext.setProperty(BaseConstants.INTERNAL_TRANSACTION_COUNTED, true);
-            // commit the current transaction count to database and set the transaction count to zero if it has
-            // reached to Integer.MAX_VALUE
-            synchronized (lock) {
-                commitAndResetTransactionCountIfReachedToMaxIntegerValue();
-                transactionCount += 1;
-            }
+            transactionCounter.increment();
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Transaction " + axis2MessageContext.getLogCorrelationID() + " is counted.");
             }
@@ -100,28 +124,4 @@ public class TransactionCountHandler extends AbstractSynapseHandler {
             }
         }
     }
-
-    /**
-     * If the current transaction count has reached or exceeded the Max_Integer_value * 0.9, commit the current
-     * transaction to the database, set a new node id, and reset the transaction count to zero.
-     */
-    private void commitAndResetTransactionCountIfReachedToMaxIntegerValue() {
-        if (transactionCount >= MAX_TRANSACTION_COUNT) {
-            DataHolder dataHolder = DataHolder.getInstance();
-            TransactionStore transactionStore = dataHolder.getTransactionStore();
-            try {
-                transactionStore.addTransaction();
-                if (LOG.isDebugEnabled()) {
-                    LOG.debug("Transaction count reached to max Integer value. Hence, adding the current transaction "
-                                      + "count: " + transactionCount + " to the database.");
-                }
-                // set new node id to the server and make the tx count zero. This should happen in this order.
-                transactionStore.setNewNodeId();
-                transactionCount = 0;
-            } catch (Throwable e) {
-                LOG.fatal("Could not persist the transaction count for the last period of " + DataHolder.getInstance()
-                        .getTransactionUpdateInterval() + "min.", e);
-            }
-        }
-    }
 }
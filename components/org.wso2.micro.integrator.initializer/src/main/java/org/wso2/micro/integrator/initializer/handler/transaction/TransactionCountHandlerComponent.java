@@ -110,10 +110,9 @@ public class TransactionCountHandlerComponent {
 
         txCountWriterTaskScheduler.scheduleAtFixedRate(() -> {
             try {
-                transactionStore.addTransaction();
+                long transactionCount = TransactionCountHandler.persistTransactionCount(transactionStore);
                 if (LOG.isDebugEnabled()) {
-                    LOG.debug("Added the current transaction count: " + TransactionCountHandler.getTransactionCount()
-                                      + " to the database.");
+                    LOG.debug("Added the current transaction count: " + transactionCount + " to the database.");
                 }
             } catch (Throwable e) {
                 LOG.error("Could not persist the transaction count: ", e);
@@ -52,10 +52,11 @@ public class TransactionStore {
     /**
      * Add transaction.
      *
+     * @param transactionCount Transaction count of the current node id.
      * @throws TransactionCounterException -
      */
-    public void addTransaction() throws TransactionCounterException {
-        this.rdbmsConnector.addTransaction();
+    public void addTransaction(long transactionCount) throws TransactionCounterException {
+        this.rdbmsConnector.addTransaction(transactionCount);
     }
 
     /**
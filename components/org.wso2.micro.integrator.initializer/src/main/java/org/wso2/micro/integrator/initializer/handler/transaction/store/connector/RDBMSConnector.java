@@ -21,7 +21,6 @@ package org.wso2.micro.integrator.initializer.handler.transaction.store.connecto
 import org.apache.axis2.databinding.utils.ConverterUtil;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.wso2.micro.integrator.initializer.handler.transaction.TransactionCountHandler;
 import org.wso2.micro.integrator.initializer.handler.transaction.exception.TransactionCounterException;
 import org.wso2.micro.integrator.initializer.handler.transaction.exception.TransactionCounterInitializationException;
 import org.wso2.micro.integrator.initializer.handler.transaction.security.CryptoUtil;
@@ -88,14 +87,16 @@ public class RDBMSConnector {
 
     /**
      * Add transaction count to the database.
+     *
+     * @param transactionCount Transaction count of the current node id.
      */
-    public synchronized void addTransaction() throws TransactionCounterException {
+    public synchronized void addTransaction(long transactionCount) throws TransactionCounterException {
         // if raw exists - update else and a new raw.
         try {
             if (checkDataExists()) {
-                updateStats();
+                updateStats(transactionCount);
             } else {
-                addNewRow();
+                addNewRow(transactionCount);
             }
         } catch (SQLException e) {
             throw new TransactionCounterException(
@@ -171,8 +172,7 @@ public class RDBMSConnector {
     }
 
     // Add new entry to the transaction stat table
-    private void addNewRow() throws SQLException {
-        long transactionCount = TransactionCountHandler.getTransactionCount();
+    private void addNewRow(long transactionCount) throws SQLException {
         String encryptedCount;
         try {
             encryptedCount = CryptoUtil.doEncryption(cipher, Long.toString(transactionCount));
@@ -205,9 +205,8 @@ public class RDBMSConnector {
     }
 
     // update the transaction count of this node for this month.
-    private void updateStats() throws SQLException {
+    private void updateStats(long transactionCount) throws SQLException {
 
-        long transactionCount = TransactionCountHandler.getTransactionCount();
         String encryptedCount;
         try {
             encryptedCount = CryptoUtil.doEncryption(cipher, Long.toString(transactionCount));
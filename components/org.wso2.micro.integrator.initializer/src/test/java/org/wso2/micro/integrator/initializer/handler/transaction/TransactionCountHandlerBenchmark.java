@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.micro.integrator.initializer.handler.transaction;
+
+import org.apache.axis2.transport.base.BaseConstants;
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.core.axis2.Axis2MessageContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the time the transaction count handler adds to a request when 32 threads handle requests
+ * concurrently, for a request which is counted and for a request which was counted before. The benchmark is not run
+ * with the unit tests, it can be run with the main method using the test class path of the module.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(32)
+public class TransactionCountHandlerBenchmark {
+
+    private TransactionCountHandler handler;
+
+    private MessageContext messageContext;
+
+    private org.apache.axis2.context.MessageContext axis2MessageContext;
+
+    @Setup
+    public void setUp() {
+        handler = new TransactionCountHandler();
+        axis2MessageContext = new org.apache.axis2.context.MessageContext();
+        messageContext = new Axis2MessageContext(axis2MessageContext, null, null);
+    }
+
+    @Benchmark
+    public boolean countRequest() {
+        // each invocation is a new request, which is not counted yet
+        axis2MessageContext.removeProperty(BaseConstants.INTERNAL_TRANSACTION_COUNTED);
+        return handler.handleRequestInFlow(messageContext);
+    }
+
+    @Benchmark
+    public boolean countedRequest() {
+        axis2MessageContext.setProperty(BaseConstants.INTERNAL_TRANSACTION_COUNTED, true);
+        return handler.handleRequestInFlow(messageContext);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(TransactionCountHandlerBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2020, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.micro.integrator.initializer.handler.transaction;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.core.axis2.Axis2MessageContext;
+import org.junit.Test;
+import org.wso2.micro.integrator.initializer.handler.transaction.exception.TransactionCounterException;
+import org.wso2.micro.integrator.initializer.handler.transaction.store.TransactionStore;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.sql.DataSource;
+
+public class TransactionCountHandlerTest extends TestCase {
+
+    /**
+     * Test that a request is counted once, even when it passes the handler again.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRequestCountedOnce() throws Exception {
+        TransactionCountHandler handler = new TransactionCountHandler();
+        long initialCount = TransactionCountHandler.getTransactionCount();
+        MessageContext messageContext = createMessageContext();
+
+        Assert.assertTrue(handler.handleRequestInFlow(messageContext));
+        Assert.assertTrue(handler.handleRequestInFlow(messageContext));
+        Assert.assertEquals(initialCount + 1, TransactionCountHandler.getTransactionCount());
+
+        handler.handleRequestInFlow(createMessageContext());
+        Assert.assertEquals(initialCount + 2, TransactionCountHandler.getTransactionCount());
+    }
+
+    /**
+     * Test that no request counted by concurrent threads is lost.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testConcurrentRequests() throws Exception {
+        int threads = 32;
+        int requests = 1000;
+        TransactionCountHandler handler = new TransactionCountHandler();
+        long initialCount = TransactionCountHandler.getTransactionCount();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < requests; j++) {
+                        handler.handleRequestInFlow(createMessageContext());
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(initialCount + threads * requests, TransactionCountHandler.getTransactionCount());
+    }
+
+    /**
+     * Test that the transaction writer persists a snapshot of the count of the current node id, and that the count
+     * keeps growing from the snapshot below the rollover threshold.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testPersistSnapshot() throws Exception {
+        TransactionCountHandler handler = new TransactionCountHandler();
+        RecordingTransactionStore transactionStore = new RecordingTransactionStore();
+        handler.handleRequestInFlow(createMessageContext());
+        long count = TransactionCountHandler.getTransactionCount();
+
+        Assert.assertEquals(count, TransactionCountHandler.persistTransactionCount(transactionStore));
+        handler.handleRequestInFlow(createMessageContext());
+        Assert.assertEquals(count + 1, TransactionCountHandler.persistTransactionCount(transactionStore));
+
+        Assert.assertEquals(2, transactionStore.persistedCounts.size());
+        Assert.assertEquals(Long.valueOf(count), transactionStore.persistedCounts.get(0));
+        Assert.assertEquals(Long.valueOf(count + 1), transactionStore.persistedCounts.get(1));
+        Assert.assertEquals(0, transactionStore.newNodeIds);
+    }
+
+    /**
+     * Test that the count is reset for a new node id once a persisted snapshot reaches the rollover threshold, and
+     * that the transactions counted afterwards are persisted for the new node id.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRolloverToNewNodeId() throws Exception {
+        TransactionCountHandler handler = new TransactionCountHandler();
+        RecordingTransactionStore transactionStore = new RecordingTransactionStore();
+        getTransactionCounter().add((long) Math.ceil(Integer.MAX_VALUE * 0.9));
+        long count = TransactionCountHandler.getTransactionCount();
+
+        Assert.assertEquals(count, TransactionCountHandler.persistTransactionCount(transactionStore));
+        Assert.assertEquals(1, transactionStore.newNodeIds);
+        Assert.assertEquals(0, TransactionCountHandler.getTransactionCount());
+
+        handler.handleRequestInFlow(createMessageContext());
+        Assert.assertEquals(1, TransactionCountHandler.persistTransactionCount(transactionStore));
+        Assert.assertEquals(Long.valueOf(1), transactionStore.persistedCounts.get(1));
+        Assert.assertEquals(1, transactionStore.newNodeIds);
+    }
+
+    /**
+     * Test that the count is kept for the next run of the transaction writer when the snapshot is not persisted.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testFailedPersist() throws Exception {
+        TransactionCountHandler handler = new TransactionCountHandler();
+        RecordingTransactionStore transactionStore = new RecordingTransactionStore();
+        getTransactionCounter().add((long) Math.ceil(Integer.MAX_VALUE * 0.9));
+        handler.handleRequestInFlow(createMessageContext());
+        long count = TransactionCountHandler.getTransactionCount();
+
+        transactionStore.failure = new TransactionCounterException("database unavailable", null);
+        try {
+            TransactionCountHandler.persistTransactionCount(transactionStore);
+            Assert.fail("The failure to persist the snapshot is not reported");
+        } catch (TransactionCounterException e) {
+            // expected
+        }
+        Assert.assertEquals(count, TransactionCountHandler.getTransactionCount());
+        Assert.assertEquals(0, transactionStore.newNodeIds);
+
+        transactionStore.failure = null;
+        Assert.assertEquals(count, TransactionCountHandler.persistTransactionCount(transactionStore));
+        Assert.assertEquals(1, transactionStore.newNodeIds);
+    }
+
+    private static MessageContext createMessageContext() {
+        return new Axis2MessageContext(new org.apache.axis2.context.MessageContext(), null, null);
+    }
+
+    /**
+     * The counter of the handler, which the tests advance to the rollover threshold without counting each request.
+     */
+    private static LongAdder getTransactionCounter() throws Exception {
+        Field field = TransactionCountHandler.class.getDeclaredField("transactionCounter");
+        field.setAccessible(true);
+        return (LongAdder) field.get(null);
+    }
+
+    /**
+     * Creates a data source, which only connects to tell the name of the database.
+     */
+    private static DataSource createDataSource() {
+        ClassLoader classLoader = TransactionCountHandlerTest.class.getClassLoader();
+        DatabaseMetaData metaData = (DatabaseMetaData) Proxy.newProxyInstance(
+                classLoader, new Class[]{DatabaseMetaData.class},
+                (proxy, method, args) -> "getDatabaseProductName".equals(method.getName()) ? "H2" : null);
+        Connection connection = (Connection) Proxy.newProxyInstance(
+                classLoader, new Class[]{Connection.class},
+                (proxy, method, args) -> "getMetaData".equals(method.getName()) ? metaData : null);
+        return (DataSource) Proxy.newProxyInstance(
+                classLoader, new Class[]{DataSource.class},
+                (proxy, method, args) -> "getConnection".equals(method.getName()) ? connection : null);
+    }
+
+    /**
+     * Records the counts persisted by the transaction writer instead of writing them to the database.
+     */
+    private static class RecordingTransactionStore extends TransactionStore {
+
+        private final List<Long> persistedCounts = new ArrayList<>();
+        private int newNodeIds;
+        private TransactionCounterException failure;
+
+        RecordingTransactionStore() throws Exception {
+            super(createDataSource(), "testNode", null);
+        }
+
+        @Override
+        public void addTransaction(long transactionCount) throws TransactionCounterException {
+            if (failure != null) {
+                throw failure;
+            }
+            persistedCounts.add(transactionCount);
+        }
+
+        @Override
+        public void setNewNodeId() {
+            newNodeIds++;
+        }
+    }
+}
@@ -2,6 +2,7 @@ CREATE TABLE IF NOT EXISTS LEADER_STATUS_TABLE (
   GROUP_ID VARCHAR (512) NOT NULL,
   NODE_ID VARCHAR (512) NOT NULL,
   LAST_HEARTBEAT BIGINT NOT NULL,
+  FENCING_TOKEN BIGINT DEFAULT 0 NOT NULL,
   PRIMARY KEY (GROUP_ID)
 );
 
@@ -32,3 +33,16 @@ CREATE TABLE IF NOT EXISTS COORDINATED_TASK_TABLE (
   TASK_STATE VARCHAR (32),
   PRIMARY KEY (TASK_NAME)
 );
+
+CREATE TABLE IF NOT EXISTS TASK_NODE_VERSION_TABLE (
+  NODE_ID VARCHAR (512) NOT NULL,
+  NODE_VERSION BIGINT DEFAULT 0 NOT NULL,
+  PRIMARY KEY (NODE_ID)
+);
+
+CREATE TABLE IF NOT EXISTS TASK_LOAD_TABLE (
+  TASK_NAME VARCHAR (512) NOT NULL,
+  EXECUTION_TIME BIGINT DEFAULT 0 NOT NULL,
+  CPU_TIME BIGINT DEFAULT 0 NOT NULL,
+  PRIMARY KEY (TASK_NAME)
+);
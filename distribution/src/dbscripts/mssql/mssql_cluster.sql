@@ -3,6 +3,7 @@ CREATE TABLE  LEADER_STATUS_TABLE (
   GROUP_ID VARCHAR (512) NOT NULL,
   NODE_ID VARCHAR (512) NOT NULL,
   LAST_HEARTBEAT BIGINT NOT NULL,
+  FENCING_TOKEN BIGINT DEFAULT 0 NOT NULL,
   PRIMARY KEY (GROUP_ID)
 );
 
@@ -37,3 +38,18 @@ CREATE TABLE COORDINATED_TASK_TABLE (
   TASK_STATE VARCHAR (32),
   PRIMARY KEY (TASK_NAME)
 );
+
+IF NOT  EXISTS (SELECT * FROM SYS.OBJECTS WHERE OBJECT_ID = OBJECT_ID(N'[DBO].[TASK_NODE_VERSION_TABLE]') AND TYPE IN (N'U'))
+CREATE TABLE TASK_NODE_VERSION_TABLE (
+  NODE_ID VARCHAR (512) NOT NULL,
+  NODE_VERSION BIGINT DEFAULT 0 NOT NULL,
+  PRIMARY KEY (NODE_ID)
+);
+
+IF NOT  EXISTS (SELECT * FROM SYS.OBJECTS WHERE OBJECT_ID = OBJECT_ID(N'[DBO].[TASK_LOAD_TABLE]') AND TYPE IN (N'U'))
+CREATE TABLE TASK_LOAD_TABLE (
+  TASK_NAME VARCHAR (512) NOT NULL,
+  EXECUTION_TIME BIGINT DEFAULT 0 NOT NULL,
+  CPU_TIME BIGINT DEFAULT 0 NOT NULL,
+  PRIMARY KEY (TASK_NAME)
+);
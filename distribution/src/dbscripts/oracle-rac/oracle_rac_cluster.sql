@@ -2,6 +2,7 @@ CREATE TABLE LEADER_STATUS_TABLE (
     GROUP_ID VARCHAR2(512) NOT NULL,
     NODE_ID VARCHAR2(512) NOT NULL,
     LAST_HEARTBEAT NUMBER NOT NULL,
+    FENCING_TOKEN NUMBER DEFAULT 0 NOT NULL,
     PRIMARY KEY (GROUP_ID)
 );
 
@@ -32,3 +33,16 @@ CREATE TABLE  COORDINATED_TASK_TABLE (
   TASK_STATE VARCHAR (32),
   PRIMARY KEY (TASK_NAME)
 );
+
+CREATE TABLE  TASK_NODE_VERSION_TABLE (
+  NODE_ID VARCHAR (512) NOT NULL,
+  NODE_VERSION NUMBER DEFAULT 0 NOT NULL,
+  PRIMARY KEY (NODE_ID)
+);
+
+CREATE TABLE  TASK_LOAD_TABLE (
+  TASK_NAME VARCHAR (512) NOT NULL,
+  EXECUTION_TIME NUMBER DEFAULT 0 NOT NULL,
+  CPU_TIME NUMBER DEFAULT 0 NOT NULL,
+  PRIMARY KEY (TASK_NAME)
+);